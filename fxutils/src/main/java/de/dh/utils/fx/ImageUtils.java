@@ -23,33 +23,30 @@ import java.awt.Graphics;
 import java.awt.Shape;
 import java.awt.font.GlyphVector;
 import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.IntBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
 import javax.imageio.ImageIO;
 
 import de.dh.cad.architect.fx.nodes.objviewer.ThreeDObjectViewConfiguration.CameraType;
+import de.dh.utils.io.PngWriter;
 import javafx.collections.ObservableList;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.geometry.Bounds;
 import javafx.scene.AmbientLight;
-import javafx.scene.Group;
 import javafx.scene.Node;
-import javafx.scene.ParallelCamera;
-import javafx.scene.PerspectiveCamera;
 import javafx.scene.PointLight;
-import javafx.scene.Scene;
-import javafx.scene.SceneAntialiasing;
 import javafx.scene.SnapshotParameters;
-import javafx.scene.SubScene;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
-import javafx.scene.image.PixelReader;
-import javafx.scene.image.PixelWriter;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.image.WritableImage;
+import javafx.scene.image.WritablePixelFormat;
 import javafx.scene.paint.Color;
 import javafx.scene.transform.Rotate;
 import javafx.scene.transform.Scale;
@@ -57,6 +54,8 @@ import javafx.scene.transform.Transform;
 import javafx.scene.transform.Translate;
 
 public class ImageUtils {
+    public static final String PNG_FORMAT = "png";
+
     public static ImageView loadSquareIcon(Class<?> origin, String resourceName, int size) {
         return loadIcon(origin, resourceName, size, size);
     }
@@ -78,265 +77,272 @@ public class ImageUtils {
         // Snapshot scene calculation
         ///////////////////////////////
 
-        Group sceneRoot = new Group();
-        Scene scene = new Scene(sceneRoot, -1, -1, true);
-        scene.setFill(backgroundColor);
-
-        Group subSceneRoot = new Group();
-        SubScene subScene = new SubScene(subSceneRoot, 0, 0, true, SceneAntialiasing.BALANCED);
-        ObservableList<Node> sceneRootChildren = sceneRoot.getChildren();
-        sceneRootChildren.add(subScene);
-        subSceneRoot.getChildren().add(obj);
-
-        ///////////////////////////////
-        // Calculation of correct scale
-        ///////////////////////////////
+        SnapshotScene snapshotScene = SnapshotScene.acquire();
+        try {
+            snapshotScene.setBackground(backgroundColor);
+            snapshotScene.setObject(obj);
+
+            ///////////////////////////////
+            // Calculation of correct scale
+            ///////////////////////////////
+
+            // TODO: Use transform of SnapshotParams:
+            // SnapshotParams also supports a transform function but that transform works slightly different then
+            // applying a transformation directly on our object.
+            ObservableList<Transform> transforms = obj.getTransforms();
+
+            // Scale object to make its size match the desired image size - the result image size
+            // will be derived from the object's size by the snapshot procedure
+            Bounds boundsInParent = obj.getBoundsInParent();
+            double scaleX = imageWidth / boundsInParent.getWidth();
+            double scaleY = imageHeight / boundsInParent.getHeight();
+            double scale = Math.min(scaleX, scaleY); // Makes the biggest direction of the image fit the desired image size; the other direction can be smaller
+
+            // Hack: ParallelCamera has a stupid hard coded calculation for the near and far clipping plane.
+            // Let mvs be the max X/Y image size, then the far clipping pane is located at Z=mvs/2 and the near clipping pane is located at Z=-mvs/2.
+            // See ParallelCamera#computeProjectionTransform(GeneralTransform3D).
+            // This Z scale makes our object match into those clipping planes for ParallelCamera. Also seems to work for PerspectiveCamera.
+            double scaleZ = Math.max(imageWidth, imageHeight) / 2.0 / boundsInParent.getHeight();
+            if (scaleZ > 1) {
+                scaleZ = 1;
+            }
+            Scale objectScale = new Scale(scale, scale, scaleZ);
+            transforms.addFirst(objectScale);
+
+            boundsInParent = obj.getBoundsInParent();
+
+            double translateZ;
+            if (cameraType == CameraType.Parallel) {
+                // For parallel camera, we center the object between the hard coded clipping panes of ParallelCamera
+                translateZ = -boundsInParent.getCenterZ();
+            } else if (cameraType == CameraType.Perspective) {
+                // We try to compmpensate the perspective camera's field of view.
+                // Actually, we'd need to find a X/Y/Z translation to make all points of the camera's projection fit into our
+                // target image, which depends on the object's shape (e.g. an object which is wider at its front needs a bigger
+                // Z translation than an object which is wider at its back, additionally if the object is unequally wide or high
+                // at right/left/top/bottom would leave an empty space in the target image at that side, which could be compensated
+                // with a X/Y translation.
+                // Using a constant value is a good approximation because we work with a normalized object size.
+                // The value is a compromise between too much space at the border for special object shapes and/or rotations
+                // and a clipped object projection.
+                translateZ = 60;
+            } else {
+                throw new RuntimeException("Handling for camera type " + cameraType + " is not implemented");
+            }
+            // Move object to start at 0/0 because the camera's view port starts at 0/0.
+            Translate objectTranslate = new Translate(-boundsInParent.getMinX(), -boundsInParent.getMinY(), translateZ);
+            transforms.addFirst(objectTranslate);
+
+            ///////////////////////////////
+            // Lights
+            ///////////////////////////////
+
+            AmbientLight ambientLight = snapshotScene.getAmbientLight();
+            PointLight pointLight = snapshotScene.getPointLight();
+            Rotate lightXRotate = new Rotate(pointLightConfig.getLightAngleX(), Rotate.X_AXIS);
+            Rotate lightZRotate = new Rotate(180 + pointLightConfig.getLightAngleZ(), Rotate.Z_AXIS); // I don't know why the Z rotation is different for snapshot...
+            Translate lightTranslate = new Translate(0, pointLightConfig.getLightDistance());
+
+            pointLight.getTransforms().setAll(objectTranslate, objectScale, lightXRotate, lightZRotate, lightTranslate);
+            pointLight.setLightOn(pointLightConfig.isLightOn());
+            pointLight.setColor(pointLightConfig.getLightColor());
+            ambientLight.setLightOn(ambientLightConfig.isLightOn());
+            ambientLight.setColor(ambientLightConfig.getLightColor());
+
+            ///////////////////////////////
+            // Snapshot parameters
+            ///////////////////////////////
+
+            SnapshotParameters params = new SnapshotParameters();
+            params.setDepthBuffer(true);
+            params.setFill(backgroundColor);
+
+            // Problem with ParallelCamera: Near and far clipping parameters are ignored, so we must scale our object
+            // Problem with PerspectiveCamera: Because of the perspective, it's too complicated to compute a correct translation
+            // to make the object match our desired image size
+            switch (cameraType) {
+            case Parallel:
+                params.setCamera(snapshotScene.getParallelCamera());
+                break;
+            case Perspective:
+                params.setCamera(snapshotScene.getPerspectiveCamera());
+                break;
+            default:
+                throw new RuntimeException("Handling for camera type " + cameraType + " is not implemented");
+            }
 
-        // TODO: Use transform of SnapshotParams:
-        // SnapshotParams also supports a transform function but that transform works slightly different then
-        // applying a transformation directly on our object.
-        ObservableList<Transform> transforms = obj.getTransforms();
-
-        // Scale object to make its size match the desired image size - the result image size
-        // will be derived from the object's size by the snapshot procedure
-        Bounds boundsInParent = obj.getBoundsInParent();
-        double scaleX = imageWidth / boundsInParent.getWidth();
-        double scaleY = imageHeight / boundsInParent.getHeight();
-        double scale = Math.min(scaleX, scaleY); // Makes the biggest direction of the image fit the desired image size; the other direction can be smaller
-
-        // Hack: ParallelCamera has a stupid hard coded calculation for the near and far clipping plane.
-        // Let mvs be the max X/Y image size, then the far clipping pane is located at Z=mvs/2 and the near clipping pane is located at Z=-mvs/2.
-        // See ParallelCamera#computeProjectionTransform(GeneralTransform3D).
-        // This Z scale makes our object match into those clipping planes for ParallelCamera. Also seems to work for PerspectiveCamera.
-        double scaleZ = Math.max(imageWidth, imageHeight) / 2.0 / boundsInParent.getHeight();
-        if (scaleZ > 1) {
-            scaleZ = 1;
-        }
-        Scale objectScale = new Scale(scale, scale, scaleZ);
-        transforms.addFirst(objectScale);
-
-        boundsInParent = obj.getBoundsInParent();
-
-        double translateZ;
-        if (cameraType == CameraType.Parallel) {
-            // For parallel camera, we center the object between the hard coded clipping panes of ParallelCamera
-            translateZ = -boundsInParent.getCenterZ();
-        } else if (cameraType == CameraType.Perspective) {
-            // We try to compmpensate the perspective camera's field of view.
-            // Actually, we'd need to find a X/Y/Z translation to make all points of the camera's projection fit into our
-            // target image, which depends on the object's shape (e.g. an object which is wider at its front needs a bigger
-            // Z translation than an object which is wider at its back, additionally if the object is unequally wide or high
-            // at right/left/top/bottom would leave an empty space in the target image at that side, which could be compensated
-            // with a X/Y translation.
-            // Using a constant value is a good approximation because we work with a normalized object size.
-            // The value is a compromise between too much space at the border for special object shapes and/or rotations
-            // and a clipped object projection.
-            translateZ = 60;
-        } else {
-            throw new RuntimeException("Handling for camera type " + cameraType + " is not implemented");
+            WritableImage result = snapshotScene.snapshot(params);
+            // The system produces a spare pixel border at X=0 and Y=0, which seems a problem of the mapping of
+            // float/double coordinates to int image coordinates. The resulting image is then one pixel too big in
+            // both directions. As workaround, we cleanup the image borders.
+            result = cropTransparentImageBorders(result);
+            return result;
+        } finally {
+            snapshotScene.release();
         }
-        // Move object to start at 0/0 because the camera's view port starts at 0/0.
-        Translate objectTranslate = new Translate(-boundsInParent.getMinX(), -boundsInParent.getMinY(), translateZ);
-        transforms.addFirst(objectTranslate);
+    }
 
-        ///////////////////////////////
-        // Lights
-        ///////////////////////////////
+    // Old implementation, only for ParallelCamera
+    public static Image takeSnapshot(Node objView, LightType lightType, int imageSize) {
+        SnapshotScene snapshotScene = SnapshotScene.acquire();
+        try {
+            snapshotScene.setBackground(Color.TRANSPARENT);
+            ObservableList<Transform> transforms = objView.getTransforms();
+
+            Bounds boundsInParent = objView.getBoundsInParent();
+
+            // Move object to start at 0/0 because ParallelCamera's view port starts at 0/0.
+            // In Z direction, we move the object to the center to make our scale hack work (see below).
+            transforms.addFirst(new Translate(-boundsInParent.getMinX(), -boundsInParent.getMinY(), -boundsInParent.getCenterZ()));
+
+            // Scale object to make it's size match the desired image size - the result image size
+            // will be derived from the object's size by the snapshot procedure
+            double objExtentsInPlane = Math.max(boundsInParent.getWidth(), boundsInParent.getHeight());
+            double scale = imageSize / objExtentsInPlane;
+
+            // Hack: ParallelCamera has a stupid hard coded calculation for the near and far clipping plane.
+            // Let mvs be the max X/Y image size, then the far clipping pane is located at Z=mvs and the near clipping pane is located at Z=-mvs.
+            // See ParallelCamera#computeProjectionTransform(GeneralTransform3D).
+            // We choose the Z scale to make our object match into those clipping planes.
+            double scaleZ = imageSize / 2.0 / boundsInParent.getDepth();
+            transforms.addFirst(new Scale(scale, scale, scaleZ));
+            boundsInParent = objView.getBoundsInParent();
+
+            // Reflective objects look better with an AmbientLight while matt objects look better with PointLight.
+            // The pooled scene contains both lights, the light which is not used is switched off.
+            switch (lightType) {
+            case Ambient: {
+                snapshotScene.getPointLight().setLightOn(false);
+                break;
+            }
+            case Point: {
+                PointLight light = snapshotScene.getPointLight();
 
-        AmbientLight ambientLight = new AmbientLight();
-        PointLight pointLight = new PointLight();
-        Rotate lightXRotate = new Rotate(pointLightConfig.getLightAngleX(), Rotate.X_AXIS);
-        Rotate lightZRotate = new Rotate(180 + pointLightConfig.getLightAngleZ(), Rotate.Z_AXIS); // I don't know why the Z rotation is different for snapshot...
-        Translate lightTranslate = new Translate(0, pointLightConfig.getLightDistance());
+                light.setTranslateZ(-1000 - boundsInParent.getDepth() / 2);
+                light.setTranslateX(boundsInParent.getWidth() / 3); // Division by 3 to move light out of the center
+                light.setTranslateY(boundsInParent.getHeight() / 3);
+                snapshotScene.getAmbientLight().setLightOn(false);
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported light type " + lightType);
+            }
 
-        pointLight.getTransforms().addAll(objectTranslate, objectScale, lightXRotate, lightZRotate, lightTranslate);
-        pointLight.setLightOn(pointLightConfig.isLightOn());
-        pointLight.setColor(pointLightConfig.getLightColor());
-        ambientLight.setLightOn(ambientLightConfig.isLightOn());
-        ambientLight.setColor(ambientLightConfig.getLightColor());
+            snapshotScene.setObject(objView);
 
-        sceneRootChildren.addAll(pointLight, ambientLight);
+            SnapshotParameters params = new SnapshotParameters();
+            params.setDepthBuffer(true);
+            params.setFill(Color.TRANSPARENT);
 
-        ///////////////////////////////
-        // Snapshot parameters
-        ///////////////////////////////
+            // Problem with ParallelCamera: Near and far clipping parameters are ignored, so we must scale our object
+            // Problem with PerspectiveCamera: Because of the perspective, it's not simply possible to calculate
+            // a scale factor to make the object match our desired image size
+            params.setCamera(snapshotScene.getParallelCamera());
 
-        SnapshotParameters params = new SnapshotParameters();
-        params.setDepthBuffer(true);
-        params.setFill(backgroundColor);
-
-        // Problem with ParallelCamera: Near and far clipping parameters are ignored, so we must scale our object
-        // Problem with PerspectiveCamera: Because of the perspective, it's too complicated to compute a correct translation
-        // to make the object match our desired image size
-        switch (cameraType) {
-        case Parallel:
-            params.setCamera(new ParallelCamera());
-            break;
-        case Perspective:
-            params.setCamera(new PerspectiveCamera(false));
-            break;
-        default:
-            throw new RuntimeException("Handling for camera type " + cameraType + " is not implemented");
+            WritableImage result = snapshotScene.snapshot(params);
+            // The system produces a spare pixel border at X=0 and Y=0, which seems a problem of the mapping of
+            // float/double coordinates to int image coordinates. The resulting image is then one pixel too big in
+            // both directions. As workaround, we cleanup the image borders.
+            result = cropTransparentImageBorders(result);
+            return result;
+        } finally {
+            snapshotScene.release();
         }
+    }
 
-        WritableImage result = subSceneRoot.snapshot(params, null);
-        // The system produces a spare pixel border at X=0 and Y=0, which seems a problem of the mapping of
-        // float/double coordinates to int image coordinates. The resulting image is then one pixel too big in
-        // both directions. As workaround, we cleanup the image borders.
-        result = cropTransparentImageBorders(result);
+    /**
+     * Reads all pixels of the given image at once as non-premultiplied ARGB values.
+     */
+    public static int[] getArgbPixels(Image image) {
+        int width = (int) image.getWidth();
+        int height = (int) image.getHeight();
+        int[] result = new int[width * height];
+        image.getPixelReader().getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), result, 0, width);
         return result;
     }
 
-    // Old implementation, only for ParallelCamera
-    public static Image takeSnapshot(Node objView, LightType lightType, int imageSize) {
-        Group sceneRoot = new Group();
-        Scene scene = new Scene(sceneRoot, -1, -1, true);
-        scene.setFill(Color.TRANSPARENT);
-
-        Group subSceneRoot = new Group();
-        SubScene subScene = new SubScene(subSceneRoot, 0, 0, true, SceneAntialiasing.BALANCED);
-        ObservableList<Node> sceneRootChildren = sceneRoot.getChildren();
-        sceneRootChildren.add(subScene);
-        ObservableList<Transform> transforms = objView.getTransforms();
-
-        Bounds boundsInParent = objView.getBoundsInParent();
-
-        // Move object to start at 0/0 because ParallelCamera's view port starts at 0/0.
-        // In Z direction, we move the object to the center to make our scale hack work (see below).
-        transforms.addFirst(new Translate(-boundsInParent.getMinX(), -boundsInParent.getMinY(), -boundsInParent.getCenterZ()));
-
-        // Scale object to make it's size match the desired image size - the result image size
-        // will be derived from the object's size by the snapshot procedure
-        double objExtentsInPlane = Math.max(boundsInParent.getWidth(), boundsInParent.getHeight());
-        double scale = imageSize / objExtentsInPlane;
-
-        // Hack: ParallelCamera has a stupid hard coded calculation for the near and far clipping plane.
-        // Let mvs be the max X/Y image size, then the far clipping pane is located at Z=mvs and the near clipping pane is located at Z=-mvs.
-        // See ParallelCamera#computeProjectionTransform(GeneralTransform3D).
-        // We choose the Z scale to make our object match into those clipping planes.
-        double scaleZ = imageSize / 2.0 / boundsInParent.getDepth();
-        transforms.addFirst(new Scale(scale, scale, scaleZ));
-        boundsInParent = objView.getBoundsInParent();
-
-        // Reflective objects look better with an AmbientLight while matt objects look better with PointLight
-        switch (lightType) {
-        case Ambient: {
-            sceneRootChildren.add(new AmbientLight());
-            break;
-        }
-        case Point: {
-            PointLight light = new PointLight();
-
-            light.setTranslateZ(-1000 - boundsInParent.getDepth() / 2);
-            light.setTranslateX(boundsInParent.getWidth() / 3); // Division by 3 to move light out of the center
-            light.setTranslateY(boundsInParent.getHeight() / 3);
-            sceneRootChildren.add(light);
-            break;
-        }
-        default:
-            throw new IllegalArgumentException("Unsupported light type " + lightType);
+    /**
+     * Creates a copy of the given image with half of its width and height, each target pixel is the average of
+     * the corresponding 2x2 source pixels. Pixels are averaged in premultiplied form, thus transparent pixels
+     * don't bleed their color into their neighbours.
+     */
+    public static WritableImage downsampleByHalf(Image image) {
+        int width = (int) image.getWidth();
+        int height = (int) image.getHeight();
+        WritablePixelFormat<IntBuffer> pixelFormat = PixelFormat.getIntArgbPreInstance();
+        int[] pixels = new int[width * height];
+        image.getPixelReader().getPixels(0, 0, width, height, pixelFormat, pixels, 0, width);
+
+        int targetWidth = Math.max(1, width / 2);
+        int targetHeight = Math.max(1, height / 2);
+        int[] targetPixels = new int[targetWidth * targetHeight];
+        for (int ty = 0; ty < targetHeight; ty++) {
+            int row0 = Math.min(2 * ty, height - 1) * width;
+            int row1 = Math.min(2 * ty + 1, height - 1) * width;
+            for (int tx = 0; tx < targetWidth; tx++) {
+                int x0 = Math.min(2 * tx, width - 1);
+                int x1 = Math.min(2 * tx + 1, width - 1);
+                int p00 = pixels[row0 + x0];
+                int p01 = pixels[row0 + x1];
+                int p10 = pixels[row1 + x0];
+                int p11 = pixels[row1 + x1];
+                int result = 0;
+                for (int shift = 0; shift < 32; shift += 8) {
+                    int sum = ((p00 >>> shift) & 0xff) + ((p01 >>> shift) & 0xff) + ((p10 >>> shift) & 0xff) + ((p11 >>> shift) & 0xff);
+                    result |= ((sum + 2) >> 2) << shift;
+                }
+                targetPixels[ty * targetWidth + tx] = result;
+            }
         }
-
-        subSceneRoot.getChildren().add(objView);
-
-        SnapshotParameters params = new SnapshotParameters();
-        params.setDepthBuffer(true);
-        params.setFill(Color.TRANSPARENT);
-
-        // Problem with ParallelCamera: Near and far clipping parameters are ignored, so we must scale our object
-        // Problem with PerspectiveCamera: Because of the perspective, it's not simply possible to calculate
-        // a scale factor to make the object match our desired image size
-        ParallelCamera camera = new ParallelCamera();
-        params.setCamera(camera);
-
-        WritableImage result = subSceneRoot.snapshot(params, null);
-        // The system produces a spare pixel border at X=0 and Y=0, which seems a problem of the mapping of
-        // float/double coordinates to int image coordinates. The resulting image is then one pixel too big in
-        // both directions. As workaround, we cleanup the image borders.
-        result = cropTransparentImageBorders(result);
+        WritableImage result = new WritableImage(targetWidth, targetHeight);
+        result.getPixelWriter().setPixels(0, 0, targetWidth, targetHeight, pixelFormat, targetPixels, 0, targetWidth);
         return result;
     }
 
+    /**
+     * Crops the given image to the bounding box of all pixels which are not completely transparent.
+     * The pixels are read and written in bulk; if there is nothing to crop, the given image is returned.
+     */
     public static WritableImage cropTransparentImageBorders(WritableImage image) {
-        int height = (int) image.getHeight();
         int width = (int) image.getWidth();
-        int startX = 0;
-        int startY = 0;
-        boolean changed = false;
-
-        PixelReader pixelReader = image.getPixelReader();
-        // Upper border
-        boolean allTransparent = true;
-        for (int x = startX; x < width; x++) {
-            Color color = pixelReader.getColor(x, startY);
-            if (color.getOpacity() > 0) {
-                allTransparent = false;
-                break;
+        int height = (int) image.getHeight();
+        WritablePixelFormat<IntBuffer> pixelFormat = PixelFormat.getIntArgbPreInstance();
+        int[] pixels = new int[width * height];
+        image.getPixelReader().getPixels(0, 0, width, height, pixelFormat, pixels, 0, width);
+
+        int minX = width;
+        int maxX = -1;
+        int minY = height;
+        int maxY = -1;
+        for (int y = 0; y < height; y++) {
+            int rowStart = y * width;
+            int x = 0;
+            while (x < width && (pixels[rowStart + x] >>> 24) == 0) {
+                x++;
             }
-        }
-        if (allTransparent) {
-            startY++;
-            height--;
-            changed = true;
-        }
-
-        // Lower border
-        allTransparent = true;
-        for (int x = startX; x < width; x++) {
-            Color color = pixelReader.getColor(x, startY + height - 1);
-            if (color.getOpacity() > 0) {
-                allTransparent = false;
-                break;
+            if (x == width) {
+                // Row is completely transparent
+                continue;
             }
-        }
-        if (allTransparent) {
-            height--;
-            changed = true;
-        }
-
-        // Left border
-        allTransparent = true;
-        for (int y = startY; y < height; y++) {
-            Color color = pixelReader.getColor(startX, y);
-            if (color.getOpacity() > 0) {
-                allTransparent = false;
-                break;
+            minX = Math.min(minX, x);
+            x = width - 1;
+            while ((pixels[rowStart + x] >>> 24) == 0) {
+                x--;
             }
-        }
-        if (allTransparent) {
-            startX++;
-            width--;
-            changed = true;
+            maxX = Math.max(maxX, x);
+            minY = Math.min(minY, y);
+            maxY = y;
         }
 
-        // Right border
-        allTransparent = true;
-        for (int y = startY; y < height; y++) {
-            Color color = pixelReader.getColor(startX + width - 1, y);
-            if (color.getOpacity() > 0) {
-                allTransparent = false;
-                break;
-            }
-        }
-        if (allTransparent) {
-            width--;
-            changed = true;
-        }
-
-        if (!changed) {
+        if (maxY < 0 || (minX == 0 && minY == 0 && maxX == width - 1 && maxY == height - 1)) {
+            // Completely transparent or nothing to crop
             return image;
         }
 
-        WritableImage result = new WritableImage(width, height);
-        PixelWriter pixelWriter = result.getPixelWriter();
-
-        for (int y = 0; y < height; y++){
-            for (int x = 0; x < width; x++){
-                Color color = pixelReader.getColor(x + startX, y + startY);
-                pixelWriter.setColor(x, y, color);
-            }
-        }
-
+        int resultWidth = maxX - minX + 1;
+        int resultHeight = maxY - minY + 1;
+        WritableImage result = new WritableImage(resultWidth, resultHeight);
+        result.getPixelWriter().setPixels(0, 0, resultWidth, resultHeight, pixelFormat, pixels, minY * width + minX, width);
         return result;
     }
 
@@ -369,13 +375,24 @@ public class ImageUtils {
     }
 
     public static void saveImage(Image image, String extension, Path imagePath) throws IOException {
-        try (OutputStream os = Files.newOutputStream(imagePath)) {
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(imagePath))) {
             saveImage(image, extension, os);
         }
     }
 
+    /**
+     * Saves the given image in the format of the given extension, which may start with a dot.
+     * PNG images are encoded directly from the image's pixel buffer, other formats are written via {@link ImageIO}.
+     */
     public static void saveImage(Image image, String extension, OutputStream outputStream) throws IOException {
+        String format = extension.startsWith(".") ? extension.substring(1) : extension;
+        if (PNG_FORMAT.equalsIgnoreCase(format)) {
+            PngWriter.writeArgb(getArgbPixels(image), (int) image.getWidth(), (int) image.getHeight(), outputStream);
+            return;
+        }
         BufferedImage bi = SwingFXUtils.fromFXImage(image, null);
-        ImageIO.write(bi, extension, outputStream);
+        if (!ImageIO.write(bi, format, outputStream)) {
+            throw new IOException("No image writer available for format '" + format + "'");
+        }
     }
 }
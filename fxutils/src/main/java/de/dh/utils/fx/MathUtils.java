@@ -18,84 +18,12 @@
 package de.dh.utils.fx;
 
 import de.dh.utils.Vector3D;
-import eu.mihosoft.vvecmath.Transform;
 import eu.mihosoft.vvecmath.Vector3d;
 import javafx.geometry.Point2D;
 
 public class MathUtils {
     public static final double EPSILON_DOUBLE_EQUALITY = 0.1;
 
-    public static Vector3d findOrthogonalVector(Vector3d v) {
-        double vx = v.getX();
-        double vy = v.getY();
-        double vz = v.getZ();
-        double ax = Math.abs(vx);
-        double ay = Math.abs(vy);
-        double az = Math.abs(vz);
-        if (ax > ay && ax > az) {
-            // Calculate intersection point at Y + 1
-            return calculatePlaneLineIntersectionPoint(Vector3d.ZERO, v, Vector3d.xyz(v.getX(), v.getY() + 1, v.getZ()), v);
-        } else {
-            // Calculate intersection point at X + 1
-            return calculatePlaneLineIntersectionPoint(Vector3d.ZERO, v, Vector3d.xyz(v.getX() + 1, v.getY(), v.getZ()), v);
-        }
-    }
-
-    public static class RotationData {
-        protected final double mAngle;
-        protected final Vector3d mAxis;
-
-        public RotationData(double angle, Vector3d axis) {
-            mAngle = angle;
-            mAxis = axis;
-        }
-
-        public double getAngle() {
-            return mAngle;
-        }
-
-        public Vector3d getAxis() {
-            return mAxis;
-        }
-    }
-
-    public static Transform rot(Transform t, Vector3d from, Vector3d to) {
-        RotationData rotationData = calculateRotation(from, to);
-        Vector3d axis = rotationData.getAxis();
-        double angle = rotationData.getAngle();
-        return angle == 0 ? t : t.rot(Vector3d.ZERO, axis, angle);
-    }
-
-    public static RotationData calculateRotation(Vector3d from, Vector3d to) {
-        Vector3d a = from.normalized();
-        Vector3d b = to.normalized();
-        Vector3d c = a.crossed(b);
-
-        double l = c.magnitude(); // sine of angle
-
-        if (l > 1e-9) {
-            Vector3d axis = c.normalized();
-            double angle = a.angle(b);
-            if (a.dot(b) < 0) {
-                // Wrong direction, rotate by 180 degrees
-                angle += 180;
-            }
-
-            return new RotationData(angle, axis);
-        } else {
-            // Vectors linearly dependent
-            if (from.dot(to) < 0) {
-                // Wrong direction, rotate by 180 degrees
-                // We need to find a rotation vector in the plane which is normal to a
-                // Try to find vector with a big angle to a
-                Vector3d axis = MathUtils.findOrthogonalVector(a);
-                return new RotationData(180, axis);
-            }
-        }
-
-        return new RotationData(0, Vector3d.Z_ONE);
-    }
-
     /**
      * Finds the intersection point of two lines in 2D.
      */
@@ -217,19 +145,6 @@ public class MathUtils {
         return linePoint.plus(ldu.times(t));
     }
 
-    /**
-     * Same as {@link #calculatePlaneLineIntersectionPoint(Vector3D, Vector3D, Vector3D, Vector3D)} but for {@link Vector3d}.
-     */
-    public static Vector3d calculatePlaneLineIntersectionPoint(Vector3d planePoint, Vector3d planeNormal, Vector3d linePoint, Vector3d lineDirection) {
-        Vector3d ldu = lineDirection.normalized();
-        if (planeNormal.dot(ldu) == 0) {
-            return null;
-        }
-
-        double t = (planeNormal.dot(planePoint) - planeNormal.dot(linePoint)) / planeNormal.dot(ldu);
-        return linePoint.plus(ldu.times(t));
-    }
-
     public static double min4(double v1, double v2, double v3, double v4) {
         return Math.min(Math.min(v1, v2), Math.min(v3, v4));
     }
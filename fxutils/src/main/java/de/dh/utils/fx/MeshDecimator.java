@@ -0,0 +1,157 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.utils.fx;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javafx.collections.ObservableFloatArray;
+import javafx.scene.shape.ObservableFaceArray;
+import javafx.scene.shape.TriangleMesh;
+import javafx.scene.shape.VertexFormat;
+
+/**
+ * Creates simplified versions of a {@link TriangleMesh} by vertex clustering.
+ * The bounding box of the mesh is divided into a regular grid of cubic cells, all vertices inside a cell
+ * are collapsed to their average position and faces which degenerate by that collapse are dropped.
+ * Texture coordinates and smoothing groups of the remaining faces are kept.
+ *
+ * The algorithm is very fast and robust against non-manifold input, which is typical for imported
+ * furniture models, but it doesn't preserve the mesh topology. It is meant to produce level-of-detail
+ * variants which are only shown when the object covers a small area on the screen.
+ */
+public class MeshDecimator {
+    /**
+     * Creates a decimated version of the given mesh.
+     * @param mesh Mesh to be simplified, must have vertex format {@link VertexFormat#POINT_TEXCOORD}.
+     * @param gridResolution Number of grid cells along the longest extent of the mesh's bounding box.
+     * @return Simplified mesh or {@code null} if the given mesh cannot be simplified with the given resolution,
+     * i.e. if the result would not have less faces than the source mesh.
+     */
+    public static TriangleMesh decimate(TriangleMesh mesh, int gridResolution) {
+        if (mesh.getVertexFormat() != VertexFormat.POINT_TEXCOORD || gridResolution < 1) {
+            return null;
+        }
+        float[] points = mesh.getPoints().toArray(null);
+        int numPoints = points.length / 3;
+        if (numPoints == 0) {
+            return null;
+        }
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+        for (int i = 0; i < points.length; i += 3) {
+            minX = Math.min(minX, points[i]);
+            maxX = Math.max(maxX, points[i]);
+            minY = Math.min(minY, points[i + 1]);
+            maxY = Math.max(maxY, points[i + 1]);
+            minZ = Math.min(minZ, points[i + 2]);
+            maxZ = Math.max(maxZ, points[i + 2]);
+        }
+        float extent = Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ));
+        if (extent <= 0) {
+            return null;
+        }
+        float cellSize = extent / gridResolution;
+
+        // Map each source point to its cluster
+        int[] pointToCluster = new int[numPoints];
+        Map<Long, Integer> cellsToClusters = new HashMap<>();
+        float[] clusterSums = new float[points.length];
+        int[] clusterCounts = new int[numPoints];
+        int numClusters = 0;
+        for (int p = 0; p < numPoints; p++) {
+            int i = p * 3;
+            long cx = Math.min((long) ((points[i] - minX) / cellSize), gridResolution - 1);
+            long cy = Math.min((long) ((points[i + 1] - minY) / cellSize), gridResolution - 1);
+            long cz = Math.min((long) ((points[i + 2] - minZ) / cellSize), gridResolution - 1);
+            long cellKey = (cx << 42) | (cy << 21) | cz;
+            Integer cluster = cellsToClusters.get(cellKey);
+            if (cluster == null) {
+                cluster = numClusters++;
+                cellsToClusters.put(cellKey, cluster);
+            }
+            pointToCluster[p] = cluster;
+            int c = cluster * 3;
+            clusterSums[c] += points[i];
+            clusterSums[c + 1] += points[i + 1];
+            clusterSums[c + 2] += points[i + 2];
+            clusterCounts[cluster]++;
+        }
+        if (numClusters == numPoints) {
+            return null;
+        }
+
+        float[] clusterPoints = new float[numClusters * 3];
+        for (int c = 0; c < numClusters; c++) {
+            int count = clusterCounts[c];
+            clusterPoints[c * 3] = clusterSums[c * 3] / count;
+            clusterPoints[c * 3 + 1] = clusterSums[c * 3 + 1] / count;
+            clusterPoints[c * 3 + 2] = clusterSums[c * 3 + 2] / count;
+        }
+
+        // Remap faces, drop degenerated ones
+        ObservableFaceArray facesArray = mesh.getFaces();
+        int[] faces = facesArray.toArray(null);
+        int numFaces = faces.length / 6;
+        int[] smoothingGroups = mesh.getFaceSmoothingGroups().toArray(null);
+        boolean hasSmoothingGroups = smoothingGroups.length == numFaces;
+        int[] resultFaces = new int[faces.length];
+        int[] resultSmoothingGroups = new int[hasSmoothingGroups ? numFaces : 0];
+        int numResultFaces = 0;
+        for (int f = 0; f < numFaces; f++) {
+            int i = f * 6;
+            int c0 = pointToCluster[faces[i]];
+            int c1 = pointToCluster[faces[i + 2]];
+            int c2 = pointToCluster[faces[i + 4]];
+            if (c0 == c1 || c1 == c2 || c0 == c2) {
+                continue;
+            }
+            int j = numResultFaces * 6;
+            resultFaces[j] = c0;
+            resultFaces[j + 1] = faces[i + 1];
+            resultFaces[j + 2] = c1;
+            resultFaces[j + 3] = faces[i + 3];
+            resultFaces[j + 4] = c2;
+            resultFaces[j + 5] = faces[i + 5];
+            if (hasSmoothingGroups) {
+                resultSmoothingGroups[numResultFaces] = smoothingGroups[f];
+            }
+            numResultFaces++;
+        }
+        if (numResultFaces == 0 || numResultFaces == numFaces) {
+            return null;
+        }
+
+        TriangleMesh result = new TriangleMesh(VertexFormat.POINT_TEXCOORD);
+        result.getPoints().setAll(clusterPoints);
+        ObservableFloatArray texCoords = mesh.getTexCoords();
+        result.getTexCoords().setAll(texCoords);
+        result.getFaces().setAll(resultFaces, 0, numResultFaces * 6);
+        if (hasSmoothingGroups) {
+            result.getFaceSmoothingGroups().setAll(resultSmoothingGroups, 0, numResultFaces);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of faces of the given mesh.
+     */
+    public static int getNumFaces(TriangleMesh mesh) {
+        return mesh.getFaces().size() / mesh.getFaceElementSize();
+    }
+}
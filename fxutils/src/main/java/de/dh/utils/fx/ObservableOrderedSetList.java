@@ -0,0 +1,253 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.utils.fx;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import javafx.collections.ModifiableObservableListBase;
+import javafx.collections.ObservableList;
+
+/**
+ * Observable list with the semantics of an insertion ordered hash set: Each element is contained at most once,
+ * the iteration order is the order of insertion and {@link #contains(Object)} is answered by a hash lookup.
+ * Adding an element which is already contained is ignored.
+ *
+ * We use an observable list instead of an {@code ObservableSet} because the {@code SetChangeListener} reports
+ * each single element as an own change, which is too slow for big selections.
+ */
+public class ObservableOrderedSetList<E> extends ModifiableObservableListBase<E> implements
+        ObservableList<E>, RandomAccess {
+
+    protected final List<E> mElements = new ArrayList<>();
+    protected final Set<E> mIndex = new HashSet<>();
+
+    public ObservableOrderedSetList() {
+        // Empty
+    }
+
+    @Override
+    public E get(int i) {
+        return mElements.get(i);
+    }
+
+    @Override
+    public int size() {
+        return mElements.size();
+    }
+
+    @Override
+    public boolean add(E element) {
+        if (mIndex.contains(element)) {
+            return false;
+        }
+        super.add(size(), element);
+        return true;
+    }
+
+    @Override
+    public void add(int i, E element) {
+        if (mIndex.contains(element)) {
+            return;
+        }
+        super.add(i, element);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        return addAll(size(), c);
+    }
+
+    @Override
+    public boolean addAll(int i, Collection<? extends E> c) {
+        Set<E> newElements = new LinkedHashSet<>(c);
+        newElements.removeAll(mIndex);
+        if (newElements.isEmpty()) {
+            return false;
+        }
+        return super.addAll(i, newElements);
+    }
+
+    @Override
+    protected void doAdd(int i, E element) {
+        if (!mIndex.add(element)) {
+            throw new IllegalArgumentException("Element <" + element + "> is already contained");
+        }
+        mElements.add(i, element);
+    }
+
+    @Override
+    protected E doSet(int i, E element) {
+        E oldElement = mElements.get(i);
+        if (oldElement == null ? element == null : oldElement.equals(element)) {
+            return mElements.set(i, element);
+        }
+        if (mIndex.contains(element)) {
+            throw new IllegalArgumentException("Element <" + element + "> is already contained");
+        }
+        mIndex.remove(oldElement);
+        mIndex.add(element);
+        return mElements.set(i, element);
+    }
+
+    @Override
+    protected E doRemove(int i) {
+        E result = mElements.remove(i);
+        mIndex.remove(result);
+        return result;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return mIndex.contains(o) ? mElements.indexOf(o) : -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return mIndex.contains(o);
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        return mIndex.containsAll(c);
+    }
+
+    @Override
+    public void clear() {
+        if (hasListeners()) {
+            beginChange();
+            nextRemove(0, this);
+        }
+        mElements.clear();
+        mIndex.clear();
+        ++modCount;
+        if (hasListeners()) {
+            endChange();
+        }
+    }
+
+    @Override
+    public void remove(int fromIndex, int toIndex) {
+        beginChange();
+        for (int i = fromIndex; i < toIndex; ++i) {
+            remove(fromIndex);
+        }
+        endChange();
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        return removeMatching(c, true);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        return removeMatching(c, false);
+    }
+
+    /**
+     * Removes all elements whose containment in the given collection equals {@code contained}.
+     * The given collection is converted to a hash set if necessary and the remaining elements are compacted
+     * in a single pass, which keeps this operation linear. All removals are reported as a single change.
+     */
+    protected boolean removeMatching(Collection<?> c, boolean contained) {
+        if (isEmpty() || (contained && c.isEmpty())) {
+            return false;
+        }
+        Collection<?> lookup = c instanceof Set ? c : new HashSet<>(c);
+        int size = mElements.size();
+        int numRetained = 0;
+        beginChange();
+        try {
+            for (int i = 0; i < size; i++) {
+                E element = mElements.get(i);
+                if (lookup.contains(element) == contained) {
+                    mIndex.remove(element);
+                    // All elements before the current element are already compacted
+                    nextRemove(numRetained, element);
+                } else {
+                    mElements.set(numRetained++, element);
+                }
+            }
+            if (numRetained == size) {
+                return false;
+            }
+            mElements.subList(numRetained, size).clear();
+            ++modCount;
+        } finally {
+            endChange();
+        }
+        return true;
+    }
+
+    public void publicBeginChange() {
+        beginChange();
+    }
+
+    public void publicEndChange() {
+        endChange();
+    }
+
+    /**
+     * Sorts the elements with the given comparator, or in their natural order if the comparator is {@code null}.
+     * The sort is stable and is reported as a single permutation.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void sort(Comparator<? super E> comparator) {
+        int size = mElements.size();
+        if (size < 2) {
+            return;
+        }
+        Comparator<? super E> c = comparator == null ? (Comparator<? super E>) Comparator.naturalOrder() : comparator;
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (i1, i2) -> c.compare(mElements.get(i1), mElements.get(i2)));
+        List<E> sortedElements = new ArrayList<>(size);
+        int[] permutation = new int[size];
+        for (int newIndex = 0; newIndex < size; newIndex++) {
+            int oldIndex = order[newIndex];
+            sortedElements.add(mElements.get(oldIndex));
+            permutation[oldIndex] = newIndex;
+        }
+        beginChange();
+        try {
+            for (int i = 0; i < size; i++) {
+                mElements.set(i, sortedElements.get(i));
+            }
+            ++modCount;
+            nextPermutation(0, size, permutation);
+        } finally {
+            endChange();
+        }
+    }
+}
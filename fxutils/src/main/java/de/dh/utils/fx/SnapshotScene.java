@@ -0,0 +1,126 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.utils.fx;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import javafx.scene.AmbientLight;
+import javafx.scene.Group;
+import javafx.scene.LightBase;
+import javafx.scene.Node;
+import javafx.scene.ParallelCamera;
+import javafx.scene.PerspectiveCamera;
+import javafx.scene.PointLight;
+import javafx.scene.Scene;
+import javafx.scene.SceneAntialiasing;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.SubScene;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+/**
+ * Offscreen scene for taking snapshots of 3D objects, containing a sub scene, a point light, an ambient light and the cameras.
+ * Building those nodes for each snapshot is expensive when images are generated for a whole library, so instances are pooled:
+ * Use {@link #acquire()} to get a scene and {@link #release()} to give it back after the snapshot was taken.
+ * Like all scene graph operations, this class must only be used in the JavaFX application thread.
+ */
+public class SnapshotScene {
+    protected static final int MAX_POOL_SIZE = 2;
+
+    protected static final Deque<SnapshotScene> POOL = new ArrayDeque<>();
+
+    protected final Group mSceneRoot = new Group();
+    protected final Scene mScene;
+    protected final Group mSubSceneRoot = new Group();
+    protected final SubScene mSubScene;
+
+    protected final AmbientLight mAmbientLight = new AmbientLight();
+    protected final PointLight mPointLight = new PointLight();
+
+    protected final ParallelCamera mParallelCamera = new ParallelCamera();
+    protected final PerspectiveCamera mPerspectiveCamera = new PerspectiveCamera(false);
+
+    protected SnapshotScene() {
+        mScene = new Scene(mSceneRoot, -1, -1, true);
+        mSubScene = new SubScene(mSubSceneRoot, 0, 0, true, SceneAntialiasing.BALANCED);
+        mSceneRoot.getChildren().addAll(mSubScene, mPointLight, mAmbientLight);
+    }
+
+    /**
+     * Returns a pooled snapshot scene or creates a new one if the pool is empty.
+     * The returned scene is empty, its lights are switched on with their default settings.
+     */
+    public static SnapshotScene acquire() {
+        SnapshotScene result = POOL.poll();
+        return result == null ? new SnapshotScene() : result;
+    }
+
+    /**
+     * Removes the snapshot object from this scene, resets the lights and gives this scene back to the pool.
+     * This scene must not be used any more after this call.
+     */
+    public void release() {
+        mSubSceneRoot.getChildren().clear();
+        resetLight(mPointLight);
+        resetLight(mAmbientLight);
+        if (POOL.size() < MAX_POOL_SIZE) {
+            POOL.push(this);
+        }
+    }
+
+    protected static void resetLight(LightBase light) {
+        light.getTransforms().clear();
+        light.setTranslateX(0);
+        light.setTranslateY(0);
+        light.setTranslateZ(0);
+        light.setColor(Color.WHITE);
+        light.setLightOn(true);
+    }
+
+    public void setBackground(Color backgroundColor) {
+        mScene.setFill(backgroundColor);
+    }
+
+    /**
+     * Sets the object to take the snapshot of. The object's own transforms are not touched by this scene.
+     */
+    public void setObject(Node obj) {
+        mSubSceneRoot.getChildren().setAll(obj);
+    }
+
+    public AmbientLight getAmbientLight() {
+        return mAmbientLight;
+    }
+
+    public PointLight getPointLight() {
+        return mPointLight;
+    }
+
+    public ParallelCamera getParallelCamera() {
+        return mParallelCamera;
+    }
+
+    public PerspectiveCamera getPerspectiveCamera() {
+        return mPerspectiveCamera;
+    }
+
+    public WritableImage snapshot(SnapshotParameters params) {
+        return mSubSceneRoot.snapshot(params, null);
+    }
+}
@@ -17,11 +17,15 @@
  *******************************************************************************/
 package de.dh.utils.fx.dialogs;
 
+import java.util.Optional;
+
 import javafx.concurrent.Task;
 import javafx.concurrent.WorkerStateEvent;
 import javafx.event.EventHandler;
 import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.ProgressBar;
 import javafx.scene.layout.BorderPane;
@@ -32,8 +36,17 @@ import javafx.stage.StageStyle;
 public class ProgressDialog {
     private final Stage mDialogStage;
     private final ProgressBar mProgressBar = new ProgressBar();
+    private final Optional<Button> mOCancelButton;
 
     public ProgressDialog(String title, javafx.stage.Window ownerWindow) {
+        this(title, ownerWindow, Optional.empty());
+    }
+
+    /**
+     * Creates a progress dialog which optionally shows a button to cancel the task.
+     * @param oCancelButtonText Text of the cancel button, if the task can be canceled by the user.
+     */
+    public ProgressDialog(String title, javafx.stage.Window ownerWindow, Optional<String> oCancelButtonText) {
         mDialogStage = new Stage();
         mDialogStage.initOwner(ownerWindow);
         mDialogStage.initStyle(StageStyle.UTILITY);
@@ -55,23 +68,38 @@ public class ProgressDialog {
         titleLabel.setStyle("-fx-font-weight: bold");
         pane.setTop(titleLabel);
 
+        mOCancelButton = oCancelButtonText.map(Button::new);
+        mOCancelButton.ifPresent(cancelButton -> {
+            BorderPane.setAlignment(cancelButton, Pos.CENTER_RIGHT);
+            BorderPane.setMargin(cancelButton, new Insets(5, 10, 5, 10));
+            pane.setBottom(cancelButton);
+        });
+
         Scene scene = new Scene(pane);
         mDialogStage.setScene(scene);
 
-        mDialogStage.setHeight(60);
+        mDialogStage.setHeight(mOCancelButton.isPresent() ? 100 : 60);
         mDialogStage.setWidth(250);
         mDialogStage.setResizable(false);
         mDialogStage.initStyle(StageStyle.UNDECORATED);
     }
 
+    /**
+     * Starts the given task in a new thread and shows this dialog until the task is finished.
+     * Handlers for the task's state events which were set by the caller are preserved.
+     */
     public void start(Task<?> task)  {
         mProgressBar.progressProperty().bind(task.progressProperty());
         EventHandler<WorkerStateEvent> closeHandler = event -> {
             close();
         };
-        task.setOnCancelled(closeHandler);
-        task.setOnFailed(closeHandler);
-        task.setOnSucceeded(closeHandler);
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_CANCELLED, closeHandler);
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_FAILED, closeHandler);
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_SUCCEEDED, closeHandler);
+        mOCancelButton.ifPresent(cancelButton -> cancelButton.setOnAction(event -> {
+            cancelButton.setDisable(true);
+            task.cancel();
+        }));
         new Thread(task).start();
         mDialogStage.show();
     }
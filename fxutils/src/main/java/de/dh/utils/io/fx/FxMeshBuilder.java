@@ -35,10 +35,12 @@ import de.dh.utils.ArrayUtils;
 import de.dh.utils.MaterialMapping;
 import de.dh.utils.Vector2D;
 import de.dh.utils.Vector3D;
+import de.dh.utils.io.IndexedMeshData;
 import de.dh.utils.io.MeshData;
 import de.dh.utils.io.MeshData.FaceNormalsData;
 import de.dh.utils.io.ObjData;
 import de.dh.utils.io.SmoothingGroups;
+import de.dh.utils.io.obj.MaterialData;
 import de.dh.utils.io.obj.ParserUtils;
 import de.dh.utils.io.obj.ParserUtils.TokenIterator;
 import de.dh.utils.io.obj.RawMaterialData;
@@ -420,7 +422,7 @@ optionsLoop:
             List<Integer> faceNormals = faceNormalsData.getFaceNormals();
             int[] faceNormalsArray = ArrayUtils.toPrimitiveIntArray(faceNormals);
             float[] normalsArray = ArrayUtils.toPrimitiveFloatArray(normals);
-            int[] smGroups = SmoothingGroups.calcSmoothGroups(result, facesArray, faceNormalsArray, normalsArray);
+            int[] smGroups = SmoothingGroups.calcSmoothGroups(facesArray, result.getFaceElementSize(), faceNormalsArray, normalsArray);
             result.getFaceSmoothingGroups().setAll(smGroups);
         } else {
             List<Integer> smoothingGroups = meshData.getSmoothingGroups();
@@ -437,6 +439,21 @@ optionsLoop:
         return result;
     }
 
+    /**
+     * Builds a mesh from the given indexed mesh data. The primitive arrays are directly used for the mesh.
+     */
+    public static Mesh buildMesh(IndexedMeshData meshData) {
+        TriangleMesh result = new TriangleMesh();
+        result.getPoints().setAll(meshData.getPoints());
+        result.getTexCoords().setAll(meshData.getTexCoords());
+        result.getFaces().setAll(meshData.getFaces());
+        result.getFaceSmoothingGroups().setAll(meshData.getSmoothingGroups());
+
+        log.trace("Created mesh '" + meshData.getName() + "' of " + meshData.getNumVertices() + " vertices, " + meshData.getNumFaces() + " faces");
+
+        return result;
+    }
+
     public static MeshView buildMeshView(MeshData meshData) throws IOException {
         MeshView meshView = new MeshView();
         meshView.setId(meshData.getName());
@@ -18,17 +18,10 @@
 module de.dh.cad.architect.fxutils {
     exports de.dh.cad.architect.fx.nodes;
     exports de.dh.cad.architect.fx.nodes.objviewer;
-    exports de.dh.utils;
     exports de.dh.utils.fx;
     exports de.dh.utils.fx.shapes;
-    exports de.dh.utils.io;
-    exports de.dh.utils.io.obj;
     exports de.dh.utils.io.fx;
-    exports eu.mihosoft.vvecmath;
-    exports eu.mihosoft.jcsg;
-    exports eu.mihosoft.jcsg.ext.org.poly2tri;
     exports de.dh.utils.fx.dialogs;
-    exports de.dh.utils.csg;
     opens de.dh.cad.architect.fx.nodes.objviewer;
 
     requires transitive javafx.graphics;
@@ -0,0 +1,145 @@
+package de.dh.utils.fx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+
+/**
+ * Test class for {@link ObservableOrderedSetList}.
+ * Executes random add and remove operations and compares the list against a {@link LinkedHashSet}.
+ */
+public class ObservableOrderedSetListTest {
+    protected static final int NUM_OPERATIONS = 2000;
+    protected static final int NUM_DIFFERENT_ELEMENTS = 50;
+
+    protected static List<String> randomElements(Random random) {
+        List<String> result = new ArrayList<>();
+        int num = random.nextInt(5);
+        for (int i = 0; i < num; i++) {
+            result.add("E" + random.nextInt(NUM_DIFFERENT_ELEMENTS));
+        }
+        return result;
+    }
+
+    @Test
+    @DisplayName("Random operations behave like an insertion ordered hash set")
+    public void testRandomOperations() {
+        Random random = new Random(0);
+        ObservableOrderedSetList<String> list = new ObservableOrderedSetList<>();
+        Set<String> reference = new LinkedHashSet<>();
+        for (int i = 0; i < NUM_OPERATIONS; i++) {
+            int operation = random.nextInt(6);
+            String element = "E" + random.nextInt(NUM_DIFFERENT_ELEMENTS);
+            List<String> elements = randomElements(random);
+            String context = "Operation " + i;
+            switch (operation) {
+            case 0 -> assertEquals(reference.add(element), list.add(element), context);
+            case 1 -> assertEquals(reference.addAll(elements), list.addAll(elements), context);
+            case 2 -> assertEquals(reference.remove(element), list.remove(element), context);
+            case 3 -> assertEquals(reference.removeAll(elements), list.removeAll(elements), context);
+            case 4 -> assertEquals(reference.retainAll(new ArrayList<>(reference).subList(0, (reference.size() + 1) / 2)),
+                list.retainAll(new ArrayList<>(list).subList(0, (list.size() + 1) / 2)), context);
+            default -> {
+                if (random.nextInt(20) == 0) {
+                    reference.clear();
+                    list.clear();
+                }
+            }
+            }
+            assertEquals(new ArrayList<>(reference), list, context);
+            for (int j = 0; j < NUM_DIFFERENT_ELEMENTS; j++) {
+                String e = "E" + j;
+                assertEquals(reference.contains(e), list.contains(e), context);
+                assertEquals(new ArrayList<>(reference).indexOf(e), list.indexOf(e), context);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Duplicates are ignored when inserting at an index and rejected when setting")
+    public void testDuplicates() {
+        ObservableOrderedSetList<String> list = new ObservableOrderedSetList<>();
+        list.addAll(Arrays.asList("A", "B", "A", "C"));
+        assertEquals(Arrays.asList("A", "B", "C"), list);
+
+        list.add(0, "C");
+        list.addAll(1, Arrays.asList("B", "D", "D"));
+        assertEquals(Arrays.asList("A", "D", "B", "C"), list);
+
+        assertThrows(IllegalArgumentException.class, () -> list.set(0, "B"));
+        list.set(0, "E");
+        assertEquals(Arrays.asList("E", "D", "B", "C"), list);
+        assertFalse(list.contains("A"));
+        assertTrue(list.contains("E"));
+    }
+
+    @Test
+    @DisplayName("Sorting reorders the elements and reports a single permutation")
+    public void testSort() {
+        ObservableOrderedSetList<String> list = new ObservableOrderedSetList<>();
+        list.addAll(Arrays.asList("C", "A", "D", "B"));
+        List<String> before = new ArrayList<>(list);
+        int[] numChanges = new int[1];
+        ListChangeListener<String> listener = change -> {
+            numChanges[0]++;
+            while (change.next()) {
+                assertTrue(change.wasPermutated());
+                for (int i = change.getFrom(); i < change.getTo(); i++) {
+                    assertEquals(before.get(i), list.get(change.getPermutation(i)));
+                }
+            }
+        };
+        list.addListener(listener);
+        list.sort(null);
+        list.removeListener(listener);
+        assertEquals(Arrays.asList("A", "B", "C", "D"), list);
+        assertEquals(1, numChanges[0]);
+        assertEquals(2, list.indexOf("C"));
+
+        FXCollections.sort(list, Comparator.reverseOrder());
+        assertEquals(Arrays.asList("D", "C", "B", "A"), list);
+        assertTrue(list.contains("A"));
+        assertFalse(list.add("B"));
+    }
+
+    @Test
+    @DisplayName("Removing many elements is reported as a single change")
+    public void testRemoveAllSingleChange() {
+        ObservableOrderedSetList<String> list = new ObservableOrderedSetList<>();
+        list.addAll(Arrays.asList("A", "B", "C", "D", "E", "F"));
+        List<String> removed = new ArrayList<>();
+        int[] numChanges = new int[1];
+        list.addListener((ListChangeListener<String>) change -> {
+            numChanges[0]++;
+            while (change.next()) {
+                assertTrue(change.wasRemoved());
+                removed.addAll(change.getRemoved());
+            }
+        });
+
+        assertTrue(list.removeAll(Arrays.asList("B", "C", "F", "X")));
+        assertEquals(Arrays.asList("A", "D", "E"), list);
+        assertEquals(Arrays.asList("B", "C", "F"), removed);
+        assertEquals(1, numChanges[0]);
+        assertFalse(list.contains("C"));
+        assertEquals(2, list.indexOf("E"));
+
+        assertFalse(list.retainAll(Arrays.asList("A", "D", "E")));
+        assertEquals(1, numChanges[0]);
+    }
+}
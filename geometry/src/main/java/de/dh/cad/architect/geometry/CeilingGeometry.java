@@ -0,0 +1,140 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.geometry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import de.dh.cad.architect.model.coords.Length;
+import de.dh.cad.architect.model.objects.Anchor;
+import de.dh.cad.architect.model.objects.Ceiling;
+import de.dh.utils.Vector3D;
+import de.dh.utils.csg.CSGs;
+import de.dh.utils.csg.CSGs.ExtrusionSurfaceDataProvider;
+import de.dh.utils.csg.TriangulationCache;
+import de.dh.utils.io.IndexedMeshData;
+import eu.mihosoft.jcsg.ext.org.poly2tri.PolygonUtil;
+import eu.mihosoft.vvecmath.Transform;
+import eu.mihosoft.vvecmath.Vector3d;
+
+/**
+ * Computes the mesh of the bottom surface of a {@link Ceiling}. The ceiling polygon is rotated into the X/Y plane
+ * for the extrusion, the resulting mesh must be rotated back by the rotation of the computed {@link ObjectMeshes}.
+ */
+public class CeilingGeometry {
+    protected enum Surface {
+        Bottom
+    }
+
+    /**
+     * Computes the ceiling mesh.
+     * @param triangulationCache Cache for the triangulation of the ceiling polygon or {@code null}.
+     */
+    public static ObjectMeshes compute(Ceiling ceiling, TriangulationCache triangulationCache) {
+        ObjectMeshes result = new ObjectMeshes(ceiling.getId());
+        String surfaceTypeId = ceiling.getSurfaceConfigurations().iterator().next().getSurfaceTypeId();
+
+        // Ceiling plane
+        Vector3d a = GeometryUtils.position3DToVector3d(ceiling.getAnchorA().requirePosition3D());
+        Vector3d b = GeometryUtils.position3DToVector3d(ceiling.getAnchorB().requirePosition3D());
+        Vector3d c = GeometryUtils.position3DToVector3d(ceiling.getAnchorC().requirePosition3D());
+
+        Vector3d ab = b.minus(a);
+
+        // Ceiling normal vector
+        Vector3d n1 = ab.crossed(c.minus(a)).normalized();
+
+        // Rotate object coordinates temporarily in X/Y plane to extrude the polygon
+        // Code taken from Transform.rot(Vector3d, Vector3d)
+        Vector3d z1 = Vector3d.xyz(0, 0, -1);
+        Vector3d _axis = n1.crossed(z1);
+        double l = _axis.magnitude(); // sine of angle
+
+        Vector3d axis = Vector3d.X_ONE;
+        double angle = 0;
+        Transform rotation = Transform.unity();
+        if (l > 1e-9) {
+            axis = _axis.normalized();
+            angle = n1.angle(z1);
+
+            rotation = rotation.rot(Vector3d.ZERO, axis, angle);
+        }
+
+        double THICKNESS = GeometryUtils.lengthToCoords(Length.ofMM(1));
+
+        List<Vector3d> bottomPointsCW = new ArrayList<>();
+        for (Anchor anchor : ceiling.getEdgePositionAnchors()) {
+            Vector3d posNormalZ = GeometryUtils.position3DToVector3d(anchor.requirePosition3D()).transformed(rotation);
+
+            bottomPointsCW.add(posNormalZ);
+        }
+        if (PolygonUtil.isCCW_XY(bottomPointsCW)) {
+            Collections.reverse(bottomPointsCW);
+        }
+        List<Vector3d> topPointsCW = new ArrayList<>();
+        for (Vector3d bottomPoint : bottomPointsCW) {
+            topPointsCW.add(Vector3d.xyz(bottomPoint.getX(), bottomPoint.getY(), bottomPoint.getZ() + THICKNESS));
+        }
+
+        Vector3d textureDirectionX = ab.transformed(rotation);
+
+        ExtrusionSurfaceDataProvider<Surface> ceilingSurfaceDataProvider = new ExtrusionSurfaceDataProvider<>() {
+            @Override
+            public List<Vector3d> getBottomPolygonPointsCW() {
+                return bottomPointsCW;
+            }
+
+            @Override
+            public List<Vector3d> getTopPolygonPointsCW() {
+                return topPointsCW;
+            }
+
+            @Override
+            public Vector3d getTopPolygonTextureDirectionX() {
+                return textureDirectionX;
+            }
+
+            @Override
+            public Vector3d getBottomPolygonTextureDirectionX() {
+                return textureDirectionX;
+            }
+
+            @Override
+            public Surface getSurfaceCW(int startPointIndex) {
+                return null;
+            }
+
+            @Override
+            public Surface getTopSurface() {
+                return null;
+            }
+
+            @Override
+            public Surface getBottomSurface() {
+                return Surface.Bottom;
+            }
+        };
+        result.setSurfaceSize(surfaceTypeId, ceilingSurfaceDataProvider.getBottomPolygonTextureProjection().getSpannedSize());
+        Map<Surface, IndexedMeshData> meshes = CSGs.extrudeSurfacesToMeshes(ceilingSurfaceDataProvider, 0, triangulationCache);
+        result.setMesh(surfaceTypeId, meshes.get(Surface.Bottom));
+        result.setRotation(-angle, new Vector3D(axis.getX(), axis.getY(), axis.getZ()));
+        return result;
+    }
+}
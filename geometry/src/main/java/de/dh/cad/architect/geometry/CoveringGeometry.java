@@ -0,0 +1,163 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.geometry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import de.dh.cad.architect.model.coords.Length;
+import de.dh.cad.architect.model.objects.Anchor;
+import de.dh.cad.architect.model.objects.Covering;
+import de.dh.utils.Vector2D;
+import de.dh.utils.Vector3D;
+import de.dh.utils.csg.CSGs;
+import de.dh.utils.csg.CSGs.ExtrusionSurfaceDataProvider;
+import de.dh.utils.csg.TriangulationCache;
+import de.dh.utils.io.IndexedMeshData;
+import eu.mihosoft.jcsg.ext.org.poly2tri.PolygonUtil;
+import eu.mihosoft.vvecmath.Transform;
+import eu.mihosoft.vvecmath.Vector3d;
+
+/**
+ * Computes the meshes of both surfaces of a {@link Covering}. The covering polygon is rotated into the X/Y plane
+ * for the extrusion, the resulting meshes must be rotated back by the rotation of the computed {@link ObjectMeshes}.
+ */
+public class CoveringGeometry {
+    public enum Surface {
+        S1(Covering.SURFACE_TYPE_1),
+        S2(Covering.SURFACE_TYPE_2);
+
+        private final String mSurfaceType;
+
+        private Surface(String surfaceType) {
+            mSurfaceType = surfaceType;
+        }
+
+        public String getSurfaceType() {
+            return mSurfaceType;
+        }
+
+        public static Surface ofSurfaceType(String type) {
+            for (Surface surface : values()) {
+                if (surface.getSurfaceType().equals(type)) {
+                    return surface;
+                }
+            }
+            throw new IllegalArgumentException("No surface of type '" + type + "'");
+        }
+    }
+
+    /**
+     * Computes the covering meshes.
+     * @param triangulationCache Cache for the triangulation of the covering polygon or {@code null}.
+     */
+    public static ObjectMeshes compute(Covering covering, TriangulationCache triangulationCache) {
+        ObjectMeshes result = new ObjectMeshes(covering.getId());
+
+        // Covering plane
+        Vector3d a = GeometryUtils.position3DToVector3d(covering.getAnchorA().requirePosition3D());
+        Vector3d b = GeometryUtils.position3DToVector3d(covering.getAnchorB().requirePosition3D());
+        Vector3d c = GeometryUtils.position3DToVector3d(covering.getAnchorC().requirePosition3D());
+
+        Vector3d ab = b.minus(a);
+
+        // Covering normal vector
+        Vector3d n1 = ab.crossed(c.minus(a)).normalized();
+
+        // Rotate object coordinates temporarily in X/Y plane to extrude the polygon
+        // Code taken from Transform.rot(Vector3d, Vector3d)
+        Vector3d z1 = Vector3d.xyz(0, 0, 1);
+        Vector3d _axis = n1.crossed(z1);
+        double l = _axis.magnitude(); // sine of angle
+
+        Vector3d axis = Vector3d.X_ONE;
+        double angle = 0;
+        Transform rotation = Transform.unity();
+        if (l > 1e-9) {
+            axis = _axis.normalized();
+            angle = n1.angle(z1);
+
+            rotation = rotation.rot(Vector3d.ZERO, axis, angle);
+        }
+
+        double THICKNESS = GeometryUtils.lengthToCoords(Length.ofMM(1));
+
+        List<Vector3d> bottomPointsCW = new ArrayList<>();
+        for (Anchor anchor : covering.getAnchors()) {
+            Vector3d posNormalZ = GeometryUtils.position3DToVector3d(anchor.requirePosition3D()).transformed(rotation);
+
+            bottomPointsCW.add(posNormalZ);
+        }
+        if (PolygonUtil.isCCW_XY(bottomPointsCW)) {
+            Collections.reverse(bottomPointsCW);
+        }
+        List<Vector3d> topPointsCW = new ArrayList<>();
+        for (Vector3d bottomPoint : bottomPointsCW) {
+            topPointsCW.add(Vector3d.xyz(bottomPoint.getX(), bottomPoint.getY(), bottomPoint.getZ() + THICKNESS));
+        }
+
+        Vector3d textureDirectionX = ab.transformed(rotation);
+
+        ExtrusionSurfaceDataProvider<Surface> coveringSurfaceDataProvider = new ExtrusionSurfaceDataProvider<>() {
+            @Override
+            public List<Vector3d> getBottomPolygonPointsCW() {
+                return bottomPointsCW;
+            }
+
+            @Override
+            public List<Vector3d> getTopPolygonPointsCW() {
+                return topPointsCW;
+            }
+
+            @Override
+            public Vector3d getTopPolygonTextureDirectionX() {
+                return textureDirectionX;
+            }
+
+            @Override
+            public Vector3d getBottomPolygonTextureDirectionX() {
+                return textureDirectionX;
+            }
+
+            @Override
+            public Surface getSurfaceCW(int startPointIndex) {
+                return null;
+            }
+
+            @Override
+            public Surface getTopSurface() {
+                return Surface.S1;
+            }
+
+            @Override
+            public Surface getBottomSurface() {
+                return Surface.S2;
+            }
+        };
+        Vector2D surfaceSize = coveringSurfaceDataProvider.getTopPolygonTextureProjection().getSpannedSize();
+        Map<Surface, IndexedMeshData> meshes = CSGs.extrudeSurfacesToMeshes(coveringSurfaceDataProvider, 0, triangulationCache);
+        for (Surface surface : Surface.values()) {
+            result.setMesh(surface.getSurfaceType(), meshes.get(surface));
+            result.setSurfaceSize(surface.getSurfaceType(), surfaceSize);
+        }
+        result.setRotation(-angle, new Vector3D(axis.getX(), axis.getY(), axis.getZ()));
+        return result;
+    }
+}
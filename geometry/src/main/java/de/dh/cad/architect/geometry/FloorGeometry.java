@@ -0,0 +1,119 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.geometry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import de.dh.cad.architect.model.coords.Length;
+import de.dh.cad.architect.model.objects.Anchor;
+import de.dh.cad.architect.model.objects.Floor;
+import de.dh.utils.csg.CSGs;
+import de.dh.utils.csg.CSGs.ExtrusionSurfaceDataProvider;
+import de.dh.utils.csg.TriangulationCache;
+import de.dh.utils.io.IndexedMeshData;
+import eu.mihosoft.jcsg.ext.org.poly2tri.PolygonUtil;
+import eu.mihosoft.vvecmath.Vector3d;
+
+/**
+ * Computes the mesh of the top surface of a {@link Floor}.
+ */
+public class FloorGeometry {
+    protected enum Surface {
+        Top
+    }
+
+    /**
+     * Computes the floor mesh. For a floor with less than 3 edge anchors, no mesh is produced.
+     * @param triangulationCache Cache for the triangulation of the floor polygon or {@code null}.
+     */
+    public static ObjectMeshes compute(Floor floor, TriangulationCache triangulationCache) {
+        ObjectMeshes result = new ObjectMeshes(floor.getId());
+        String surfaceTypeId = floor.getSurfaceConfigurations().iterator().next().getSurfaceTypeId();
+        List<Anchor> anchors = floor.getEdgePositionAnchors();
+
+        if (anchors.size() < 3) {
+            return result;
+        }
+
+        Vector3d a = GeometryUtils.position3DToVector3d(anchors.get(0).requirePosition3D());
+        Vector3d b = GeometryUtils.position3DToVector3d(anchors.get(1).requirePosition3D());
+        Vector3d ab = b.minus(a);
+
+        double THICKNESS = GeometryUtils.lengthToCoords(Length.ofMM(1));
+
+        List<Vector3d> topPointsCW = new ArrayList<>();
+        List<Vector3d> bottomPointsCW = new ArrayList<>();
+        for (Anchor anchor : anchors) {
+            Vector3d posNormalZ = GeometryUtils.position3DToVector3d(anchor.requirePosition3D());
+
+            bottomPointsCW.add(posNormalZ);
+            topPointsCW.add(Vector3d.xyz(posNormalZ.getX(), posNormalZ.getY(), posNormalZ.getZ() + THICKNESS));
+        }
+
+        if (PolygonUtil.isCCW_XY(bottomPointsCW)) {
+            Collections.reverse(bottomPointsCW);
+            Collections.reverse(topPointsCW);
+        }
+
+        Vector3d textureDirectionX = ab;
+
+        ExtrusionSurfaceDataProvider<Surface> floorSurfaceDataProvider = new ExtrusionSurfaceDataProvider<>() {
+            @Override
+            public List<Vector3d> getBottomPolygonPointsCW() {
+                return bottomPointsCW;
+            }
+
+            @Override
+            public List<Vector3d> getTopPolygonPointsCW() {
+                return topPointsCW;
+            }
+
+            @Override
+            public Vector3d getTopPolygonTextureDirectionX() {
+                return textureDirectionX;
+            }
+
+            @Override
+            public Vector3d getBottomPolygonTextureDirectionX() {
+                return textureDirectionX;
+            }
+
+            @Override
+            public Surface getSurfaceCW(int startPointIndex) {
+                return null;
+            }
+
+            @Override
+            public Surface getTopSurface() {
+                return Surface.Top;
+            }
+
+            @Override
+            public Surface getBottomSurface() {
+                return null;
+            }
+        };
+        result.setSurfaceSize(surfaceTypeId, floorSurfaceDataProvider.getTopPolygonTextureProjection().getSpannedSize());
+        Map<Surface, IndexedMeshData> meshes = CSGs.extrudeSurfacesToMeshes(floorSurfaceDataProvider, 0, triangulationCache);
+        result.setMesh(surfaceTypeId, meshes.get(Surface.Top));
+        return result;
+    }
+}
@@ -0,0 +1,42 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.geometry;
+
+import de.dh.cad.architect.model.coords.IPosition;
+import de.dh.cad.architect.model.coords.Length;
+import de.dh.cad.architect.model.coords.Position3D;
+import de.dh.utils.Vector2D;
+import eu.mihosoft.vvecmath.Vector3d;
+
+/**
+ * Conversions of model coordinates to the plain coordinates of the geometry computation, which are given
+ * in centimeters in the model coordinate system.
+ */
+public class GeometryUtils {
+    public static double lengthToCoords(Length value) {
+        return value.inCM();
+    }
+
+    public static Vector2D positionToVector2D(IPosition position) {
+        return new Vector2D(lengthToCoords(position.getX()), lengthToCoords(position.getY()));
+    }
+
+    public static Vector3d position3DToVector3d(Position3D position) {
+        return Vector3d.xyz(lengthToCoords(position.getX()), lengthToCoords(position.getY()), lengthToCoords(position.getZ()));
+    }
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.geometry;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import de.dh.utils.Vector2D;
+import de.dh.utils.Vector3D;
+import de.dh.utils.io.IndexedMeshData;
+
+/**
+ * Plain geometry of a single model object, one indexed mesh buffer per surface type id.
+ * The mesh coordinates are given in the model coordinate system in centimeters, i.e. they are not yet converted to
+ * the coordinate system of any 3D frontend. Objects which are extruded in a tilted plane, like ceilings and coverings,
+ * are computed in the X/Y plane; their meshes must be rotated by {@link #getRotationAngle()} around {@link #getRotationAxis()}.
+ * Instances are filled by the geometry computation and must not be modified afterwards, thus they can be
+ * handed over between threads.
+ */
+public class ObjectMeshes {
+    protected final String mObjectId;
+    protected final Map<String, IndexedMeshData> mMeshes = new HashMap<>(); // Surface type id -> mesh
+    protected final Map<String, Vector2D> mSurfaceSizes = new HashMap<>(); // Surface type id -> surface size
+    protected double mRotationAngle = 0;
+    protected Vector3D mRotationAxis = Vector3D.Z1;
+    protected long mComputationNanos = 0;
+
+    public ObjectMeshes(String objectId) {
+        mObjectId = objectId;
+    }
+
+    public String getObjectId() {
+        return mObjectId;
+    }
+
+    /**
+     * Gets the meshes of all surfaces which produced geometry. Surfaces without geometry, e.g. the embrasures of a wall
+     * without holes, are not contained.
+     */
+    public Map<String, IndexedMeshData> getMeshes() {
+        return Collections.unmodifiableMap(mMeshes);
+    }
+
+    public Optional<IndexedMeshData> getMesh(String surfaceTypeId) {
+        return Optional.ofNullable(mMeshes.get(surfaceTypeId));
+    }
+
+    public void setMesh(String surfaceTypeId, IndexedMeshData mesh) {
+        mMeshes.put(surfaceTypeId, mesh);
+    }
+
+    /**
+     * Gets the sizes of the surfaces, which are used to scale the surface textures.
+     */
+    public Map<String, Vector2D> getSurfaceSizes() {
+        return Collections.unmodifiableMap(mSurfaceSizes);
+    }
+
+    public void setSurfaceSize(String surfaceTypeId, Vector2D surfaceSize) {
+        mSurfaceSizes.put(surfaceTypeId, surfaceSize);
+    }
+
+    /**
+     * Gets the angle in degrees of the rotation which must be applied to the meshes of the object.
+     */
+    public double getRotationAngle() {
+        return mRotationAngle;
+    }
+
+    public Vector3D getRotationAxis() {
+        return mRotationAxis;
+    }
+
+    public void setRotation(double angle, Vector3D axis) {
+        mRotationAngle = angle;
+        mRotationAxis = axis;
+    }
+
+    public boolean isEmpty() {
+        return mMeshes.isEmpty();
+    }
+
+    public int getNumVertices() {
+        int result = 0;
+        for (IndexedMeshData mesh : mMeshes.values()) {
+            result += mesh.getNumVertices();
+        }
+        return result;
+    }
+
+    public int getNumFaces() {
+        int result = 0;
+        for (IndexedMeshData mesh : mMeshes.values()) {
+            result += mesh.getNumFaces();
+        }
+        return result;
+    }
+
+    /**
+     * Gets the time which was needed to compute this geometry, in nanoseconds.
+     */
+    public long getComputationNanos() {
+        return mComputationNanos;
+    }
+
+    public void setComputationNanos(long value) {
+        mComputationNanos = value;
+    }
+
+    @Override
+    public String toString() {
+        return "ObjectMeshes [objectId=" + mObjectId + ", #surfaces=" + mMeshes.size() + ", #vertices=" + getNumVertices() + ", #faces=" + getNumFaces() + "]";
+    }
+}
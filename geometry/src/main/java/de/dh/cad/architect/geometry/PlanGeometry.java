@@ -0,0 +1,135 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.geometry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import de.dh.cad.architect.model.Plan;
+import de.dh.cad.architect.model.objects.BaseObject;
+import de.dh.cad.architect.model.objects.Ceiling;
+import de.dh.cad.architect.model.objects.Covering;
+import de.dh.cad.architect.model.objects.Floor;
+import de.dh.cad.architect.model.objects.Wall;
+import de.dh.utils.csg.TriangulationCache;
+
+/**
+ * Entry point of the geometry computation, turns the model objects of a plan into plain indexed mesh buffers,
+ * see {@link ObjectMeshes}.
+ * The computation doesn't depend on any UI toolkit and doesn't modify the plan. All computations are thread-safe,
+ * thus the geometry of different objects can be computed in parallel as long as the plan is not modified at the same time.
+ * The triangulation cache is shared between all computations of this instance.
+ */
+public class PlanGeometry {
+    protected final TriangulationCache mTriangulationCache;
+
+    public PlanGeometry() {
+        this(new TriangulationCache());
+    }
+
+    public PlanGeometry(TriangulationCache triangulationCache) {
+        mTriangulationCache = triangulationCache;
+    }
+
+    public TriangulationCache getTriangulationCache() {
+        return mTriangulationCache;
+    }
+
+    /**
+     * Returns {@code true} if the geometry of the given object can be computed by this class.
+     */
+    public static boolean hasGeometry(BaseObject obj) {
+        return obj instanceof Wall || obj instanceof Floor || obj instanceof Ceiling || obj instanceof Covering;
+    }
+
+    /**
+     * Gets all objects of the given plan whose geometry can be computed, in a stable order.
+     */
+    public static List<BaseObject> getGeometryObjects(Plan plan) {
+        List<BaseObject> result = new ArrayList<>();
+        result.addAll(plan.getWalls().values());
+        result.addAll(plan.getFloors().values());
+        result.addAll(plan.getCeilings().values());
+        result.addAll(plan.getCoverings().values());
+        return result;
+    }
+
+    public ObjectMeshes computeWall(Wall wall) {
+        return WallGeometry.compute(wall);
+    }
+
+    public ObjectMeshes computeFloor(Floor floor) {
+        return FloorGeometry.compute(floor, mTriangulationCache);
+    }
+
+    public ObjectMeshes computeCeiling(Ceiling ceiling) {
+        return CeilingGeometry.compute(ceiling, mTriangulationCache);
+    }
+
+    public ObjectMeshes computeCovering(Covering covering) {
+        return CoveringGeometry.compute(covering, mTriangulationCache);
+    }
+
+    /**
+     * Computes the geometry of the given object and records the computation time in the result.
+     * @return Geometry of the object or {@link Optional#empty()} if the object type has no geometry which can be computed by this class.
+     */
+    public Optional<ObjectMeshes> compute(BaseObject obj) {
+        long start = System.nanoTime();
+        ObjectMeshes result;
+        if (obj instanceof Wall wall) {
+            result = computeWall(wall);
+        } else if (obj instanceof Floor floor) {
+            result = computeFloor(floor);
+        } else if (obj instanceof Ceiling ceiling) {
+            result = computeCeiling(ceiling);
+        } else if (obj instanceof Covering covering) {
+            result = computeCovering(covering);
+        } else {
+            return Optional.empty();
+        }
+        result.setComputationNanos(System.nanoTime() - start);
+        return Optional.of(result);
+    }
+
+    /**
+     * Computes the geometry of all given objects.
+     * @param parallel If set to {@code true}, the objects are computed in parallel in the common fork/join pool.
+     * @return Map of object ids to their geometry, in the order of the given objects. Objects without geometry are not contained.
+     */
+    public Map<String, ObjectMeshes> computeAll(Collection<? extends BaseObject> objects, boolean parallel) {
+        Stream<? extends BaseObject> stream = parallel ? objects.parallelStream() : objects.stream();
+        return stream
+                        .map(this::compute)
+                        .flatMap(Optional::stream)
+                        .collect(Collectors.toMap(ObjectMeshes::getObjectId, m -> m, (m1, m2) -> m1, LinkedHashMap::new));
+    }
+
+    /**
+     * Computes the geometry of all objects of the given plan, see {@link #computeAll(Collection, boolean)}.
+     */
+    public Map<String, ObjectMeshes> computeAll(Plan plan, boolean parallel) {
+        return computeAll(getGeometryObjects(plan), parallel);
+    }
+}
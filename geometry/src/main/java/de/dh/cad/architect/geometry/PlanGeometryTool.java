@@ -0,0 +1,208 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.geometry;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.Unmarshaller.Listener;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+
+import de.dh.cad.architect.geometry.export.AbstractPlanExporter;
+import de.dh.cad.architect.geometry.export.IExportAssetResolver;
+import de.dh.cad.architect.geometry.export.IExportProgressMonitor;
+import de.dh.cad.architect.geometry.export.PlanExportSource;
+import de.dh.cad.architect.model.Plan;
+import de.dh.cad.architect.model.jaxb.PlanJavaTypeAdapter;
+import de.dh.cad.architect.model.objects.BaseObject;
+import de.dh.cad.architect.utils.jaxb.IDeserializationHandler;
+import de.dh.cad.architect.utils.jaxb.JAXBUtility;
+
+/**
+ * Command line tool which computes the geometry of all objects of a plan file without any UI and reports the
+ * computation time per object.
+ * <pre>
+ * PlanGeometryTool [-sequential] [-runs &lt;n&gt;] [-export &lt;obj or glb file&gt;] &lt;plan file&gt;
+ * </pre>
+ * The plan file can be a plain XML file or a GZIP compressed plan file.
+ * With {@code -runs}, the whole plan is computed multiple times with a fresh triangulation cache, the first runs serve
+ * as warm-up for the JIT compiler. The reported object timings are taken from the last run.
+ * With {@code -export}, the plan is additionally exported to the given file. The tool doesn't have access to the
+ * asset libraries, thus support objects are left out and all surfaces get the default material.
+ */
+public class PlanGeometryTool {
+    /**
+     * Reads the plan part of a plan file, the UI state of the file is ignored.
+     */
+    @XmlRootElement(name = "Planfile")
+    public static class PlanFileContents {
+        protected Plan mPlan;
+
+        @XmlElement(name = "Plan")
+        @XmlJavaTypeAdapter(PlanJavaTypeAdapter.class)
+        public Plan getPlan() {
+            return mPlan;
+        }
+
+        public void setPlan(Plan value) {
+            mPlan = value;
+        }
+    }
+
+    protected static final double NANOS_PER_MS = 1_000_000.0;
+
+    protected static final int BUFFER_SIZE = 64 * 1024;
+
+    protected static boolean startsWithGZIPHeader(InputStream is) throws IOException {
+        is.mark(2);
+        int b1 = is.read();
+        int b2 = is.read();
+        is.reset();
+        return b1 == (GZIPInputStream.GZIP_MAGIC & 0xFF) && b2 == (GZIPInputStream.GZIP_MAGIC >> 8);
+    }
+
+    /**
+     * Opens a reader for the content of the given plan file. Like the application, the tool reads plain XML files
+     * as well as GZIP compressed plan files; the format is detected from the file content.
+     */
+    protected static Reader openReader(Path path) throws IOException {
+        InputStream is = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+        try {
+            if (startsWithGZIPHeader(is)) {
+                is = new GZIPInputStream(is, BUFFER_SIZE);
+            }
+            return new InputStreamReader(is, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            is.close();
+            throw e;
+        }
+    }
+
+    protected static Plan loadPlan(Path path) throws IOException {
+        try (Reader reader = openReader(path)) {
+            JAXBContext context = JAXBUtility.initializeJAXBContext(PlanFileContents.class);
+            Unmarshaller u = context.createUnmarshaller();
+            // Deserialization handlers must be called after the whole file was read, like it is done when opening the plan in the application
+            List<Runnable> pendingHandlerCalls = new ArrayList<>();
+            u.setListener(new Listener() {
+                @Override
+                public void afterUnmarshal(Object target, Object parent) {
+                    if (target instanceof IDeserializationHandler handler) {
+                        pendingHandlerCalls.add(() -> handler.afterDeserialize(parent));
+                    }
+                }
+            });
+            PlanFileContents contents = (PlanFileContents) u.unmarshal(reader);
+            for (Runnable handlerCall : pendingHandlerCalls) {
+                handlerCall.run();
+            }
+            return contents.getPlan();
+        } catch (JAXBException e) {
+            throw new IOException("Error deserializing plan from path '" + path + "'", e);
+        }
+    }
+
+    protected static void printUsage(PrintStream out) {
+        out.println("Usage: PlanGeometryTool [-sequential] [-runs <n>] [-export <obj or glb file>] <plan file>");
+    }
+
+    protected static String formatMillis(long nanos) {
+        return String.format("%10.3f ms", nanos / NANOS_PER_MS);
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean parallel = true;
+        int numRuns = 1;
+        Path planFilePath = null;
+        Path exportFilePath = null;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ("-sequential".equals(arg)) {
+                parallel = false;
+            } else if ("-runs".equals(arg) && i + 1 < args.length) {
+                numRuns = Math.max(1, Integer.parseInt(args[++i]));
+            } else if ("-export".equals(arg) && i + 1 < args.length) {
+                exportFilePath = Paths.get(args[++i]);
+            } else if (planFilePath == null && !arg.startsWith("-")) {
+                planFilePath = Paths.get(arg);
+            } else {
+                printUsage(System.err);
+                System.exit(1);
+            }
+        }
+        if (planFilePath == null) {
+            printUsage(System.err);
+            System.exit(1);
+        }
+
+        PrintStream out = System.out;
+        long startLoad = System.nanoTime();
+        Plan plan = loadPlan(planFilePath);
+        out.println("Loaded plan '" + planFilePath + "' in " + formatMillis(System.nanoTime() - startLoad).trim());
+
+        List<BaseObject> objects = PlanGeometry.getGeometryObjects(plan);
+        Map<String, ObjectMeshes> result = null;
+        PlanGeometry planGeometry = null;
+        for (int run = 1; run <= numRuns; run++) {
+            planGeometry = new PlanGeometry();
+            long start = System.nanoTime();
+            result = planGeometry.computeAll(objects, parallel);
+            out.println("Run " + run + ": computed " + result.size() + " objects " + (parallel ? "in parallel" : "sequentially") + " in " + formatMillis(System.nanoTime() - start).trim());
+        }
+
+        out.println();
+        out.println(String.format("%-12s %-40s %8s %10s %10s %13s", "Type", "Id", "Surfaces", "Vertices", "Faces", "Time"));
+        long sumNanos = 0;
+        int sumVertices = 0;
+        int sumFaces = 0;
+        for (BaseObject obj : objects) {
+            ObjectMeshes meshes = result.get(obj.getId());
+            out.println(String.format("%-12s %-40s %8d %10d %10d %13s", obj.getClass().getSimpleName(), obj.getId(),
+                meshes.getMeshes().size(), meshes.getNumVertices(), meshes.getNumFaces(), formatMillis(meshes.getComputationNanos())));
+            sumNanos += meshes.getComputationNanos();
+            sumVertices += meshes.getNumVertices();
+            sumFaces += meshes.getNumFaces();
+        }
+        out.println(String.format("%-12s %-40s %8s %10d %10d %13s", "Total", "", "", sumVertices, sumFaces, formatMillis(sumNanos)));
+        out.println("Triangulation cache: " + planGeometry.getTriangulationCache().getNumHits() + " hits, " + planGeometry.getTriangulationCache().getNumMisses() + " misses");
+
+        if (exportFilePath != null) {
+            AbstractPlanExporter exporter = AbstractPlanExporter.create(exportFilePath);
+            long start = System.nanoTime();
+            exporter.export(new PlanExportSource(plan, planGeometry, IExportAssetResolver.NONE), IExportProgressMonitor.NONE);
+            out.println("Exported plan to '" + exportFilePath + "' in " + formatMillis(System.nanoTime() - start).trim());
+        }
+    }
+}
@@ -0,0 +1,321 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import de.dh.cad.architect.model.coords.Dimensions2D;
+import de.dh.cad.architect.model.coords.Length;
+import de.dh.cad.architect.model.coords.Position2D;
+import de.dh.cad.architect.model.objects.SurfaceConfiguration;
+import de.dh.cad.architect.model.objects.Wall;
+import de.dh.cad.architect.model.objects.WallHole;
+import de.dh.cad.architect.model.wallmodel.WallAnchorPositions;
+import de.dh.cad.architect.model.wallmodel.WallOutline;
+import de.dh.cad.architect.model.wallmodel.WallOutlineConnection;
+import de.dh.cad.architect.model.wallmodel.WallOutlineCorner;
+import de.dh.cad.architect.model.wallmodel.WallSurface;
+import de.dh.utils.Vector2D;
+import de.dh.utils.csg.CSGSurfaceAwareAddon;
+import de.dh.utils.csg.CSGs;
+import de.dh.utils.csg.CSGs.ExtrusionSurfaceDataProvider;
+import de.dh.utils.io.IndexedMeshData;
+import eu.mihosoft.jcsg.CSG;
+import eu.mihosoft.vvecmath.Vector3d;
+
+/**
+ * Computes the meshes of all surfaces of a {@link Wall}. The wall is extruded from its outline and the wall holes
+ * are subtracted via CSG.
+ */
+public class WallGeometry {
+    protected static final double EPSILON = 0.01;
+
+    /**
+     * Removes duplicate points. We don't remove points in the middle of a line segment,
+     * those might belong to different wall connections and thus, we need those as different
+     * entries to be able to attach different materials.
+     */
+    protected static boolean cleanupWallOutlineCorners(List<WallOutlineCorner> corners) {
+        if (corners.size() < 3) {
+            // Polygon must have at least 3 points
+            return false;
+        }
+        // Build points list which exactly mirrors the corners list - and will be modified the same way
+        List<Vector2D> points = corners
+                        .stream()
+                        .map(c -> new Vector2D(
+                            c.getPosition().getX().inInternalFormat(),
+                            c.getPosition().getY().inInternalFormat()))
+                        .collect(Collectors.toCollection(ArrayList::new));
+        int i = 0;
+        while (i < points.size()) {
+            int i1 = i;
+            int i2 = (i + 1) % points.size();
+            Vector2D p1 = points.get(i1);
+            Vector2D p2 = points.get(i2);
+            if (p2.minus(p1).getLength() < EPSILON) {
+                points.remove(i2);
+                if (points.size() < 3) {
+                    // All points are collinear
+                    return false;
+                }
+                WallOutlineCorner first = corners.get(i1);
+                WallOutlineCorner second = corners.remove(i2);
+                second.getPrevious().getPrevious().setNext(second.getNext());
+                second.getNext().setPrevious(first);
+            } else {
+                i++;
+            }
+        }
+        return true;
+    }
+
+    protected static CSG createWallCSG(Wall wall, List<WallOutlineCorner> outlineCornersCW, ObjectMeshes target) {
+        if (!cleanupWallOutlineCorners(outlineCornersCW)) {
+            return null;
+        }
+
+        // We later work on the reverted points direction, so here we're interested in the index AFTER the surface change.
+        // That's why we check the surfaces at the opposite side.
+        WallSurface lastSurface = outlineCornersCW.get(0).getNext().getSurface();
+        int firstSurfaceChange = -1;
+        for (int i = 0; i < outlineCornersCW.size(); i++) {
+            WallOutlineConnection currentConnection = outlineCornersCW.get(i).getPrevious();
+            if (firstSurfaceChange == -1 && currentConnection.getSurface() != lastSurface) {
+                firstSurfaceChange = i; // Found the first surface change - this is the start index for the extrusion process
+            }
+        }
+        if (firstSurfaceChange == -1) {
+            firstSurfaceChange = 0; // No surface change, start at index 0
+        }
+
+        double heightA = GeometryUtils.lengthToCoords(wall.getHeightA());
+        double heightB = GeometryUtils.lengthToCoords(wall.getHeightB());
+        Position2D handleA = wall.getAnchorWallHandleA().getPosition().projectionXY();
+        Position2D handleB = wall.getAnchorWallHandleB().getPosition().projectionXY();
+
+        Vector2D handleAPos = GeometryUtils.positionToVector2D(handleA);
+        Vector2D handleBPos = GeometryUtils.positionToVector2D(handleB);
+
+        // The texture direction of the top and bottom surfaces has always been taken with an inverted Y axis,
+        // we keep that to not change the texture placement of existing plans
+        de.dh.cad.architect.model.coords.Vector2D handleAB = handleB.minus(handleA);
+        Vector3d wallDirectionAB = Vector3d.xy(GeometryUtils.lengthToCoords(handleAB.getX()), -GeometryUtils.lengthToCoords(handleAB.getY()));
+        double wallLength = wallDirectionAB.magnitude();
+        Vector2D upperHandle = heightA > heightB ? handleAPos : handleBPos;
+        Vector2D lowerHandle = heightA > heightB ? handleBPos : handleAPos;
+        double diffH = Math.abs(heightA - heightB);
+        double diffM = diffH / (wallLength == 0 ? 1 : wallLength); // Actually, the wall length cannot be 0, can it?
+        Vector2D descendingDirection = lowerHandle.minus(upperHandle).toUnitVector();
+
+        double baseExtrudeHeight = Math.max(heightA, heightB);
+
+        List<Vector3d> topPolygonPointsCW = new ArrayList<>();
+        List<Vector3d> bottomPolygonPointsCW = new ArrayList<>();
+
+        for (WallOutlineCorner corner : outlineCornersCW) {
+            Vector2D vv = GeometryUtils.positionToVector2D(corner.getPosition());
+
+            // Calculate top level; projection of top points to a plane which spans between the two upper handle positions.
+            // This is necessary if the wall has different heights at the wall ends.
+            double t = vv.minus(upperHandle).dotProduct(descendingDirection);
+
+            Vector3d topPoint = Vector3d.xyz(vv.getX(), vv.getY(), (baseExtrudeHeight - diffM * t));
+
+            // TODO: Bottom level is currently simply at Z=0, should be at the same level as our floor
+            Vector3d bottomPoint = Vector3d.xyz(vv.getX(), vv.getY(), 0);
+
+            topPolygonPointsCW.add(topPoint);
+            bottomPolygonPointsCW.add(bottomPoint);
+        }
+
+        // Wall fragment without clipping of the top
+        ExtrusionSurfaceDataProvider<WallSurface> wallSurfaceDataProvider = new ExtrusionSurfaceDataProvider<>() {
+            @Override
+            public List<Vector3d> getTopPolygonPointsCW() {
+                return topPolygonPointsCW;
+            }
+
+            @Override
+            public List<Vector3d> getBottomPolygonPointsCW() {
+                return bottomPolygonPointsCW;
+            }
+
+            @Override
+            public Vector3d getTopPolygonTextureDirectionX() {
+                return wallDirectionAB;
+            }
+
+            @Override
+            public Vector3d getBottomPolygonTextureDirectionX() {
+                return wallDirectionAB;
+            }
+
+            @Override
+            public WallSurface getSurfaceCW(int startPointIndex) {
+                return outlineCornersCW.get(startPointIndex).getNext().getSurface();
+            }
+
+            @Override
+            public WallSurface getTopSurface() {
+                return WallSurface.Top;
+            }
+
+            @Override
+            public WallSurface getBottomSurface() {
+                return WallSurface.Bottom;
+            }
+        };
+        target.setSurfaceSize(WallSurface.Top.getSurfaceType(), wallSurfaceDataProvider.getTopPolygonTextureProjection().getSpannedSize());
+        target.setSurfaceSize(WallSurface.Bottom.getSurfaceType(), wallSurfaceDataProvider.getBottomPolygonTextureProjection().getSpannedSize());
+
+        double thicknessC = GeometryUtils.lengthToCoords(wall.getThickness());
+        double maxWallHeightC = Math.max(heightA, heightB);
+        double lengthSideOne_C = GeometryUtils.lengthToCoords(wall.getAnchorWallCornerLA1().requirePosition3D().distance(wall.getAnchorWallCornerLB1().requirePosition3D()));
+        double lengthSideTwo_C = GeometryUtils.lengthToCoords(wall.getAnchorWallCornerLA2().requirePosition3D().distance(wall.getAnchorWallCornerLB2().requirePosition3D()));
+
+        target.setSurfaceSize(WallSurface.One.getSurfaceType(), new Vector2D(lengthSideOne_C, maxWallHeightC));
+        target.setSurfaceSize(WallSurface.Two.getSurfaceType(), new Vector2D(lengthSideTwo_C, maxWallHeightC));
+        target.setSurfaceSize(WallSurface.A.getSurfaceType(), new Vector2D(thicknessC, heightA));
+        target.setSurfaceSize(WallSurface.B.getSurfaceType(), new Vector2D(thicknessC, heightB));
+
+        return CSGs.extrudeSurfaces(wallSurfaceDataProvider, firstSurfaceChange, true);
+    }
+
+    protected static CSG createHoleCSG(WallHole wallHole, Length wallBaseLength, Vector2D pA, Vector2D longEdgeWall, Vector2D shortEdgeWall) {
+        double distanceFromWallEndA = GeometryUtils.lengthToCoords(wallHole.getDistanceFromWallEndA(wallBaseLength));
+        Dimensions2D holeDimensions = wallHole.getDimensions();
+        double holeWidthC = GeometryUtils.lengthToCoords(holeDimensions.getX());
+        double holeHeightC = GeometryUtils.lengthToCoords(holeDimensions.getY());
+        double holeParapetHeightC = GeometryUtils.lengthToCoords(wallHole.getParapetHeight());
+
+        Vector2D longEdgeWallU = longEdgeWall.toUnitVector();
+        Vector2D windowStartMiddle = pA.plus(longEdgeWallU.times(distanceFromWallEndA));
+        Vector2D windowEndMiddle = windowStartMiddle.plus(longEdgeWallU.times(holeWidthC));
+        Vector2D a1p = windowStartMiddle.minus(shortEdgeWall); // Window a1 plus x overhang for other walls bevels, if any. TODO: Calculate the overhang according to other wall's thickness.
+        Vector2D a2p = windowStartMiddle.plus(shortEdgeWall);
+        Vector2D b1p = windowEndMiddle.minus(shortEdgeWall);
+        Vector2D b2p = windowEndMiddle.plus(shortEdgeWall);
+
+        List<Vector3d> bottomPoints = Arrays.asList(
+            Vector3d.xyz(b1p.getX(), b1p.getY(), holeParapetHeightC),
+            Vector3d.xyz(b2p.getX(), b2p.getY(), holeParapetHeightC),
+            Vector3d.xyz(a2p.getX(), a2p.getY(), holeParapetHeightC),
+            Vector3d.xyz(a1p.getX(), a1p.getY(), holeParapetHeightC)
+            );
+        List<Vector3d> topPoints = bottomPoints
+                        .stream()
+                        .map(p -> Vector3d.xyz(p.getX(), p.getY(), (holeParapetHeightC + holeHeightC)))
+                        .collect(Collectors.toList());
+
+        Vector3d textureDirectionX = Vector3d.xy(longEdgeWall.getX(), longEdgeWall.getY());
+        return CSGs.extrudeSurfaces(
+            new ExtrusionSurfaceDataProvider<WallSurface>() {
+                @Override
+                public List<Vector3d> getTopPolygonPointsCW() {
+                    return topPoints;
+                }
+
+                @Override
+                public List<Vector3d> getBottomPolygonPointsCW() {
+                    return bottomPoints;
+                }
+
+                @Override
+                public Vector3d getTopPolygonTextureDirectionX() {
+                    return textureDirectionX;
+                }
+
+                @Override
+                public Vector3d getBottomPolygonTextureDirectionX() {
+                    return textureDirectionX;
+                }
+
+                @Override
+                public WallSurface getSurfaceCW(int startPointIndex) {
+                    return WallSurface.Embrasure;
+                }
+
+                @Override
+                public WallSurface getTopSurface() {
+                    return WallSurface.Embrasure;
+                }
+
+                @Override
+                public WallSurface getBottomSurface() {
+                    return WallSurface.Embrasure;
+                }
+            }, 0, false);
+    }
+
+    /**
+     * Computes the meshes of all wall surfaces. For an invalid wall, no meshes are produced.
+     */
+    public static ObjectMeshes compute(Wall wall) {
+        ObjectMeshes result = new ObjectMeshes(wall.getId());
+
+        Optional<WallAnchorPositions> oWap = wall.extractWallAnchorPositions();
+        Optional<WallOutline> oWallOutlineCW = oWap.map(WallAnchorPositions::calculateWallOutlineCW);
+        if (oWallOutlineCW.isEmpty()) {
+            return result;
+        }
+        WallOutline wallOutlineCW = oWallOutlineCW.get();
+        CSG csg = createWallCSG(wall, wallOutlineCW.getCornersAsList(), result);
+        if (csg == null) {
+            return result;
+        }
+
+        Vector2D pA = GeometryUtils.positionToVector2D(wall.getAnchorWallHandleA().requirePosition2D());
+        Vector2D pB = GeometryUtils.positionToVector2D(wall.getAnchorWallHandleB().requirePosition2D());
+
+        Length wallBaseLengthL = wall.calculateBaseLength();
+        double wallBaseLengthC = GeometryUtils.lengthToCoords(wallBaseLengthL);
+
+        Vector2D longEdgeWall = pB.minus(pA);
+        Vector2D shortEdgeWall = longEdgeWall.getNormalCW().scaleToLength(wallBaseLengthC);
+
+        for (WallHole wallHole : wall.getWallHoles()) {
+            csg = csg.difference(createHoleCSG(wallHole, wallBaseLengthL, pA, longEdgeWall, shortEdgeWall));
+        }
+
+        // TODO: To get a correct material mapping to our window and door embrasures, we would need to have separate
+        //  entries for all embrasure sides of all holes.
+
+        Map<WallSurface, IndexedMeshData> meshes = CSGSurfaceAwareAddon.createIndexedMeshes(csg, Optional.empty());
+        for (SurfaceConfiguration surfaceConfig : wall.getSurfaceConfigurations()) {
+            // One surface of the wall, e.g. A or One
+            String surfaceTypeId = surfaceConfig.getSurfaceTypeId();
+            WallSurface wallSurface = WallSurface.ofWallSurfaceType(surfaceTypeId);
+            IndexedMeshData meshData = meshes.get(wallSurface);
+            if (meshData == null) { // E.g. wall contains no embrasures
+                continue;
+            }
+            // The CSG builder has generated the mesh in a way that the texture coordinates of the surface parts map
+            // to their corresponding part of the overall surface texture, as if the texture would be a wallpaper.
+            // E.g. if wall side 1 extends over two surface parts, the main side 1 surface and the corner bevel apex, the algorithm places the texture coords
+            // to cover both surface parts, i.e. texture coords (0; 0) at the beginning of part 1 and texture coords (1; 1) at the end of part 2.
+            result.setMesh(surfaceTypeId, meshData);
+        }
+        return result;
+    }
+}
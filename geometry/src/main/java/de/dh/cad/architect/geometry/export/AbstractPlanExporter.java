@@ -0,0 +1,212 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.geometry.export;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.mihosoft.vvecmath.Transform;
+
+/**
+ * Base class for exporters which write the objects of a {@link PlanExportSource} to a file.
+ * The objects are requested from the source and written one after the other, so exporters don't hold the geometry
+ * of the whole plan in memory.
+ * Exported coordinates are given in meters, the Y axis pointing up, like it is common for OBJ and glTF files.
+ * Exporters write all files as temporary files next to their targets, see {@link #createPendingFile(Path)}, which replace
+ * the target files when the export is complete. Thus, a failed or canceled export leaves existing files untouched.
+ */
+public abstract class AbstractPlanExporter {
+    private static final Logger log = LoggerFactory.getLogger(AbstractPlanExporter.class);
+
+    /**
+     * Transformation from the model coordinate system (centimeters, Z axis pointing up) to the export coordinate system
+     * (meters, Y axis pointing up), as row-major 4x4 matrix.
+     */
+    protected static final double[] MODEL_TO_EXPORT_MATRIX = {
+            0.01, 0, 0, 0,
+            0, 0, 0.01, 0,
+            0, -0.01, 0, 0,
+            0, 0, 0, 1};
+
+    protected final Path mTargetFile;
+    protected final Map<Path, Path> mPendingFiles = new LinkedHashMap<>(); // Temporary file -> target file
+
+    protected AbstractPlanExporter(Path targetFile) {
+        mTargetFile = targetFile;
+    }
+
+    /**
+     * Creates the exporter for the format which is given by the extension of the target file.
+     * @throws IllegalArgumentException If the file extension doesn't denote a supported export format.
+     */
+    public static AbstractPlanExporter create(Path targetFile) {
+        String extension = FilenameUtils.getExtension(targetFile.getFileName().toString()).toLowerCase(Locale.ROOT);
+        return switch (extension) {
+            case ObjPlanExporter.FILE_EXTENSION -> new ObjPlanExporter(targetFile);
+            case GlbPlanExporter.FILE_EXTENSION -> new GlbPlanExporter(targetFile);
+            default -> throw new IllegalArgumentException("Unsupported export file format '" + extension + "'");
+        };
+    }
+
+    public Path getTargetFile() {
+        return mTargetFile;
+    }
+
+    /**
+     * Creates the transformation from the coordinates of an object's model to the export coordinate system.
+     */
+    public static Transform createExportTransform(Transform placement) {
+        return Transform.from(MODEL_TO_EXPORT_MATRIX).apply(placement);
+    }
+
+    /**
+     * Transforms the given points by the given row-major matrix.
+     */
+    protected static float[] transformPoints(float[] points, double[] m) {
+        float[] result = new float[points.length];
+        for (int i = 0; i < points.length; i += 3) {
+            double x = points[i];
+            double y = points[i + 1];
+            double z = points[i + 2];
+            result[i] = (float) (m[0] * x + m[1] * y + m[2] * z + m[3]);
+            result[i + 1] = (float) (m[4] * x + m[5] * y + m[6] * z + m[7]);
+            result[i + 2] = (float) (m[8] * x + m[9] * y + m[10] * z + m[11]);
+        }
+        return result;
+    }
+
+    /**
+     * Formats the given number without exponent, as it is expected by most readers of text based 3D formats.
+     */
+    protected static String formatNumber(float value) {
+        String result = Float.toString(value);
+        return result.indexOf('E') == -1 ? result : new BigDecimal(result).toPlainString();
+    }
+
+    /**
+     * Creates an empty temporary file next to the given target file, which replaces the target file when the export
+     * is complete. If the export fails, the temporary file is deleted.
+     */
+    protected Path createPendingFile(Path targetFile) throws IOException {
+        Path result = Files.createFile(targetFile.resolveSibling(targetFile.getFileName() + "." + UUID.randomUUID() + ".tmp"));
+        mPendingFiles.put(result, targetFile);
+        return result;
+    }
+
+    /**
+     * Moves all pending files to their targets. The files are moved in reverse order of their creation, so the main
+     * file, which is created first, replaces its target only when all files which are referenced by it are in place.
+     */
+    protected void commitPendingFiles() throws IOException {
+        List<Map.Entry<Path, Path>> pendingFiles = new ArrayList<>(mPendingFiles.entrySet());
+        Collections.reverse(pendingFiles);
+        for (Map.Entry<Path, Path> entry : pendingFiles) {
+            Path tempFile = entry.getKey();
+            Path targetFile = entry.getValue();
+            try {
+                Files.move(tempFile, targetFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            mPendingFiles.remove(tempFile);
+        }
+    }
+
+    /**
+     * Deletes all pending files which were not moved to their targets, must not throw any exception.
+     */
+    protected void deletePendingFiles() {
+        for (Path tempFile : mPendingFiles.keySet()) {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException e) {
+                log.warn("Unable to delete temporary export file '" + tempFile + "'", e);
+            }
+        }
+        mPendingFiles.clear();
+    }
+
+    /**
+     * Exports all objects of the given source to the target file.
+     * If the export fails or is canceled, the target file and all other files of the export are left untouched.
+     * @throws CancellationException If the export was canceled by the given progress monitor.
+     */
+    public void export(PlanExportSource source, IExportProgressMonitor monitor) throws IOException {
+        int numObjects = source.getNumObjects();
+        boolean success = false;
+        beginExport();
+        try {
+            for (int i = 0; i < numObjects; i++) {
+                if (monitor.isCanceled()) {
+                    throw new CancellationException("Export to '" + mTargetFile + "' was canceled");
+                }
+                Optional<ExportObject> oObject = source.createExportObject(i);
+                if (oObject.isPresent()) {
+                    writeObject(oObject.get());
+                }
+                monitor.exportProgress(i + 1, numObjects);
+            }
+            finishExport();
+            commitPendingFiles();
+            success = true;
+        } finally {
+            if (!success) {
+                abortExport();
+                deletePendingFiles();
+            }
+        }
+    }
+
+    /**
+     * Opens the output channels, files are written as {@link #createPendingFile(Path) pending files}.
+     */
+    protected abstract void beginExport() throws IOException;
+
+    /**
+     * Writes the given object to the output channels; the object's geometry must not be kept after this method returns.
+     */
+    protected abstract void writeObject(ExportObject obj) throws IOException;
+
+    /**
+     * Writes the remaining data like materials and closes the output channels.
+     */
+    protected abstract void finishExport() throws IOException;
+
+    /**
+     * Closes all output channels after an error or cancellation, must not throw any exception.
+     * Pending files are deleted after this method.
+     */
+    protected abstract void abortExport();
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.geometry.export;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Set of surfaces which are exported together, in the model coordinate system (centimeters, Z axis pointing up).
+ * A model is either owned by a single {@link ExportObject}, like the computed geometry of a wall, or it is shared
+ * between several export objects, like the 3D model of a support object which is placed multiple times in a plan.
+ * Exporters write shared models only once if the target format supports instancing.
+ */
+public class ExportModel {
+    protected final String mKey;
+    protected final boolean mShared;
+    protected final List<ExportSurface> mSurfaces;
+    protected double[] mBounds = null;
+
+    public ExportModel(String key, boolean shared, List<ExportSurface> surfaces) {
+        mKey = key;
+        mShared = shared;
+        mSurfaces = Collections.unmodifiableList(new ArrayList<>(surfaces));
+    }
+
+    /**
+     * Gets the key of this model which identifies it among all models of an export.
+     */
+    public String getKey() {
+        return mKey;
+    }
+
+    public boolean isShared() {
+        return mShared;
+    }
+
+    public List<ExportSurface> getSurfaces() {
+        return mSurfaces;
+    }
+
+    /**
+     * Gets the axis aligned bounds of this model.
+     * @return Array {@code minX, minY, minZ, maxX, maxY, maxZ}, all values are {@code 0} if this model doesn't contain any vertices.
+     */
+    public synchronized double[] getBounds() {
+        if (mBounds == null) {
+            double[] bounds = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                    Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+            for (ExportSurface surface : mSurfaces) {
+                float[] points = surface.getMesh().getPoints();
+                for (int i = 0; i < points.length; i += 3) {
+                    for (int c = 0; c < 3; c++) {
+                        bounds[c] = Math.min(bounds[c], points[i + c]);
+                        bounds[c + 3] = Math.max(bounds[c + 3], points[i + c]);
+                    }
+                }
+            }
+            if (bounds[0] > bounds[3]) {
+                bounds = new double[6];
+            }
+            mBounds = bounds;
+        }
+        return mBounds;
+    }
+
+    public int getNumVertices() {
+        int result = 0;
+        for (ExportSurface surface : mSurfaces) {
+            result += surface.getMesh().getNumVertices();
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "ExportModel [key=" + mKey + ", shared=" + mShared + ", #surfaces=" + mSurfaces.size() + "]";
+    }
+}
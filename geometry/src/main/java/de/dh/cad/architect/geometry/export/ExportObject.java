@@ -0,0 +1,59 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.geometry.export;
+
+import eu.mihosoft.vvecmath.Transform;
+
+/**
+ * Single object of an export, an {@link ExportModel} placed in the plan.
+ */
+public class ExportObject {
+    protected final String mName;
+    protected final ExportModel mModel;
+    protected final Transform mPlacement;
+
+    /**
+     * Creates a new export object.
+     * @param name Name of the object, unique in the export.
+     * @param model Model of the object.
+     * @param placement Transformation from the model's coordinates to the plan coordinates. The transformation must
+     * not be modified after this object was created.
+     */
+    public ExportObject(String name, ExportModel model, Transform placement) {
+        mName = name;
+        mModel = model;
+        mPlacement = placement;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public ExportModel getModel() {
+        return mModel;
+    }
+
+    public Transform getPlacement() {
+        return mPlacement;
+    }
+
+    @Override
+    public String toString() {
+        return "ExportObject [name=" + mName + ", model=" + mModel + "]";
+    }
+}
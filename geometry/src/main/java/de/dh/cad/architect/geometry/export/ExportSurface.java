@@ -0,0 +1,70 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.geometry.export;
+
+import java.util.Optional;
+
+import de.dh.utils.io.IndexedMeshData;
+import de.dh.utils.io.obj.MaterialData;
+
+/**
+ * Single surface of an {@link ExportModel}, a mesh with a single material.
+ */
+public class ExportSurface {
+    protected final String mName;
+    protected final IndexedMeshData mMesh;
+    protected final String mMaterialName;
+    protected final Optional<MaterialData> mOMaterial;
+
+    /**
+     * Creates a new export surface.
+     * @param name Name of the surface, unique in its model.
+     * @param mesh Mesh of the surface, texture coordinates in the JavaFX convention (origin in the upper left corner).
+     * @param materialName Name of the material, unique in the exported plan. Surfaces with the same material name
+     * must provide the same material.
+     * @param oMaterial Material data whose referenced texture files will be copied to the export target or
+     * {@link Optional#empty()} to use a plain white material.
+     */
+    public ExportSurface(String name, IndexedMeshData mesh, String materialName, Optional<MaterialData> oMaterial) {
+        mName = name;
+        mMesh = mesh;
+        mMaterialName = materialName;
+        mOMaterial = oMaterial;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public IndexedMeshData getMesh() {
+        return mMesh;
+    }
+
+    public String getMaterialName() {
+        return mMaterialName;
+    }
+
+    public Optional<MaterialData> getOMaterial() {
+        return mOMaterial;
+    }
+
+    @Override
+    public String toString() {
+        return "ExportSurface [name=" + mName + ", mesh=" + mMesh + ", material=" + mMaterialName + "]";
+    }
+}
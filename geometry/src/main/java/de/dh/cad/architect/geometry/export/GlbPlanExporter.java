@@ -0,0 +1,445 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.geometry.export;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.dh.cad.architect.utils.vfs.IResourceLocator;
+import de.dh.utils.io.IndexedMeshData;
+import de.dh.utils.io.obj.MaterialData;
+import de.dh.utils.io.obj.ParserUtils;
+
+/**
+ * Exports a plan to a binary glTF 2.0 file ({@code .glb}).
+ * The binary buffer is streamed to a temporary file while the objects are written; only the small glTF JSON structure
+ * is held in memory. When all objects are written, the JSON chunk and the buffer are copied to the target file.
+ * Shared models are written as a single mesh which is referenced by one node per instance. Diffuse texture files
+ * in PNG or JPEG format are embedded into the buffer as they are, without decoding them.
+ */
+public class GlbPlanExporter extends AbstractPlanExporter {
+    private static final Logger log = LoggerFactory.getLogger(GlbPlanExporter.class);
+
+    public static final String FILE_EXTENSION = "glb";
+
+    protected static final int GLB_MAGIC = 0x46546C67; // "glTF"
+    protected static final int GLB_VERSION = 2;
+    protected static final int CHUNK_TYPE_JSON = 0x4E4F534A; // "JSON"
+    protected static final int CHUNK_TYPE_BIN = 0x004E4942; // "BIN\0"
+
+    protected static final int COMPONENT_TYPE_UNSIGNED_INT = 5125;
+    protected static final int COMPONENT_TYPE_FLOAT = 5126;
+    protected static final int TARGET_ARRAY_BUFFER = 34962;
+    protected static final int TARGET_ELEMENT_ARRAY_BUFFER = 34963;
+
+    protected Path mBufferFile = null;
+    protected FileChannel mBufferChannel = null;
+    protected long mBufferLength = 0;
+
+    // JSON representations of the glTF top-level array elements
+    protected final List<String> mNodes = new ArrayList<>();
+    protected final List<String> mMeshes = new ArrayList<>();
+    protected final List<String> mMaterials = new ArrayList<>();
+    protected final List<String> mTextures = new ArrayList<>();
+    protected final List<String> mImages = new ArrayList<>();
+    protected final List<String> mAccessors = new ArrayList<>();
+    protected final List<String> mBufferViews = new ArrayList<>();
+
+    protected final Map<String, Integer> mSharedMeshIndices = new HashMap<>(); // Model key -> mesh index or -1 if the model has no faces
+    protected final Map<String, Integer> mMaterialIndices = new HashMap<>(); // Material name -> material index
+    protected final Map<String, Optional<Integer>> mTextureIndices = new HashMap<>(); // Absolute image path -> texture index
+
+    public GlbPlanExporter(Path targetFile) {
+        super(targetFile);
+    }
+
+    protected static String quote(String str) {
+        StringBuilder result = new StringBuilder("\"");
+        for (char c : str.toCharArray()) {
+            switch (c) {
+            case '"' -> result.append("\\\"");
+            case '\\' -> result.append("\\\\");
+            case '\n' -> result.append("\\n");
+            case '\r' -> result.append("\\r");
+            case '\t' -> result.append("\\t");
+            default -> {
+                if (c < 0x20) {
+                    result.append(String.format("\\u%04x", (int) c));
+                } else {
+                    result.append(c);
+                }
+            }
+            }
+        }
+        return result.append('"').toString();
+    }
+
+    protected static String toJsonArray(List<String> elements) {
+        return "[" + String.join(",", elements) + "]";
+    }
+
+    protected static String formatNumber(double value) {
+        return formatNumber((float) value);
+    }
+
+    @Override
+    protected void beginExport() throws IOException {
+        mBufferFile = Files.createTempFile(mTargetFile.toAbsolutePath().getParent(), mTargetFile.getFileName().toString(), ".bin");
+        mBufferChannel = FileChannel.open(mBufferFile, StandardOpenOption.WRITE, StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    @Override
+    protected void writeObject(ExportObject obj) throws IOException {
+        ExportModel model = obj.getModel();
+        double[] m = createExportTransform(obj.getPlacement()).to();
+        if (model.isShared()) {
+            Integer meshIndex = mSharedMeshIndices.get(model.getKey());
+            if (meshIndex == null) {
+                meshIndex = writeMesh(model.getKey(), model, null);
+                mSharedMeshIndices.put(model.getKey(), meshIndex);
+            }
+            if (meshIndex >= 0) {
+                // glTF matrices are stored in column-major order
+                List<String> matrix = new ArrayList<>(16);
+                for (int column = 0; column < 4; column++) {
+                    for (int row = 0; row < 4; row++) {
+                        matrix.add(formatNumber(m[row * 4 + column]));
+                    }
+                }
+                mNodes.add("{\"name\":" + quote(obj.getName()) + ",\"mesh\":" + meshIndex + ",\"matrix\":" + toJsonArray(matrix) + "}");
+            }
+        } else {
+            int meshIndex = writeMesh(obj.getName(), model, m);
+            if (meshIndex >= 0) {
+                mNodes.add("{\"name\":" + quote(obj.getName()) + ",\"mesh\":" + meshIndex + "}");
+            }
+        }
+    }
+
+    /**
+     * Writes the surfaces of the given model as primitives of a new mesh.
+     * @param m Transformation to be applied to the vertices or {@code null}.
+     * @return Index of the new mesh or {@code -1} if the model doesn't contain any faces.
+     */
+    protected int writeMesh(String name, ExportModel model, double[] m) throws IOException {
+        List<String> primitives = new ArrayList<>();
+        for (ExportSurface surface : model.getSurfaces()) {
+            IndexedMeshData mesh = surface.getMesh();
+            int numFaces = mesh.getNumFaces();
+            if (numFaces == 0) {
+                continue;
+            }
+            float[] points = m == null ? mesh.getPoints() : transformPoints(mesh.getPoints(), m);
+            float[] texCoords = mesh.getTexCoords();
+            int[] faces = mesh.getFaces();
+
+            // glTF vertices have a single index for position and texture coordinate, so we create a vertex for each
+            // distinct combination of point and texture coordinate
+            Map<Long, Integer> vertexIndices = new HashMap<>();
+            ByteBuffer positionsBuffer = ByteBuffer.allocate(numFaces * 3 * 3 * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer texCoordsBuffer = ByteBuffer.allocate(numFaces * 3 * 2 * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer indicesBuffer = ByteBuffer.allocate(numFaces * 3 * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            float[] min = {Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY};
+            float[] max = {Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+            for (int i = 0; i < faces.length; i += 2) {
+                int pointIndex = faces[i];
+                int texCoordIndex = faces[i + 1];
+                long key = ((long) pointIndex << 32) | (texCoordIndex & 0xFFFFFFFFL);
+                Integer vertexIndex = vertexIndices.get(key);
+                if (vertexIndex == null) {
+                    vertexIndex = vertexIndices.size();
+                    vertexIndices.put(key, vertexIndex);
+                    for (int c = 0; c < 3; c++) {
+                        float value = points[pointIndex * 3 + c];
+                        positionsBuffer.putFloat(value);
+                        min[c] = Math.min(min[c], value);
+                        max[c] = Math.max(max[c], value);
+                    }
+                    if (texCoordIndex >= 0 && texCoordIndex * 2 + 1 < texCoords.length) {
+                        texCoordsBuffer.putFloat(texCoords[texCoordIndex * 2]);
+                        texCoordsBuffer.putFloat(texCoords[texCoordIndex * 2 + 1]);
+                    } else {
+                        texCoordsBuffer.putFloat(0);
+                        texCoordsBuffer.putFloat(0);
+                    }
+                }
+                indicesBuffer.putInt(vertexIndex);
+            }
+            int numVertices = vertexIndices.size();
+
+            int positionsView = writeBufferView(positionsBuffer.flip(), TARGET_ARRAY_BUFFER);
+            int positionsAccessor = addAccessor(positionsView, COMPONENT_TYPE_FLOAT, numVertices, "VEC3",
+                ",\"min\":[" + formatNumber(min[0]) + "," + formatNumber(min[1]) + "," + formatNumber(min[2]) + "]"
+                + ",\"max\":[" + formatNumber(max[0]) + "," + formatNumber(max[1]) + "," + formatNumber(max[2]) + "]");
+            int texCoordsView = writeBufferView(texCoordsBuffer.flip(), TARGET_ARRAY_BUFFER);
+            int texCoordsAccessor = addAccessor(texCoordsView, COMPONENT_TYPE_FLOAT, numVertices, "VEC2", "");
+            int indicesView = writeBufferView(indicesBuffer.flip(), TARGET_ELEMENT_ARRAY_BUFFER);
+            int indicesAccessor = addAccessor(indicesView, COMPONENT_TYPE_UNSIGNED_INT, numFaces * 3, "SCALAR", "");
+
+            primitives.add("{\"attributes\":{\"POSITION\":" + positionsAccessor + ",\"TEXCOORD_0\":" + texCoordsAccessor + "}"
+                + ",\"indices\":" + indicesAccessor + ",\"material\":" + getMaterialIndex(surface) + "}");
+        }
+        if (primitives.isEmpty()) {
+            return -1;
+        }
+        mMeshes.add("{\"name\":" + quote(name) + ",\"primitives\":" + toJsonArray(primitives) + "}");
+        return mMeshes.size() - 1;
+    }
+
+    protected int addAccessor(int bufferView, int componentType, int count, String type, String additionalProperties) {
+        mAccessors.add("{\"bufferView\":" + bufferView + ",\"componentType\":" + componentType + ",\"count\":" + count
+            + ",\"type\":\"" + type + "\"" + additionalProperties + "}");
+        return mAccessors.size() - 1;
+    }
+
+    /**
+     * Appends the given data to the binary buffer, padded to a multiple of 4 bytes.
+     * @param target Buffer view target or {@code 0} if the view doesn't hold vertex attributes or indices.
+     * @return Index of the new buffer view.
+     */
+    protected int writeBufferView(ByteBuffer data, int target) throws IOException {
+        long offset = mBufferLength;
+        int length = data.remaining();
+        while (data.hasRemaining()) {
+            mBufferChannel.write(data);
+        }
+        mBufferLength += length;
+        padBuffer();
+        mBufferViews.add("{\"buffer\":0,\"byteOffset\":" + offset + ",\"byteLength\":" + length + (target == 0 ? "" : ",\"target\":" + target) + "}");
+        return mBufferViews.size() - 1;
+    }
+
+    protected void padBuffer() throws IOException {
+        int padding = (int) ((4 - mBufferLength % 4) % 4);
+        if (padding > 0) {
+            ByteBuffer zeros = ByteBuffer.allocate(padding);
+            while (zeros.hasRemaining()) {
+                mBufferChannel.write(zeros);
+            }
+            mBufferLength += padding;
+        }
+    }
+
+    protected int getMaterialIndex(ExportSurface surface) {
+        String materialName = surface.getMaterialName();
+        Integer result = mMaterialIndices.get(materialName);
+        if (result == null) {
+            mMaterials.add(createMaterial(materialName, surface.getOMaterial()));
+            result = mMaterials.size() - 1;
+            mMaterialIndices.put(materialName, result);
+        }
+        return result;
+    }
+
+    /**
+     * Creates the glTF material for the given material data. We only take over the diffuse color, the opacity and
+     * the diffuse texture, glTF's physically based material model doesn't have counterparts for most of the other
+     * {@code .mtl} commands.
+     */
+    protected String createMaterial(String materialName, Optional<MaterialData> oMaterial) {
+        float[] baseColor = {1, 1, 1, 1};
+        Optional<Integer> oTextureIndex = Optional.empty();
+        if (oMaterial.isPresent()) {
+            MaterialData material = oMaterial.get();
+            for (String line : material.getLines()) {
+                line = line.trim();
+                try {
+                    if (line.startsWith("Kd ")) {
+                        String[] parts = line.substring(3).trim().split("\\s+");
+                        for (int i = 0; i < 3 && i < parts.length; i++) {
+                            baseColor[i] = Float.parseFloat(parts[i]);
+                        }
+                    } else if (line.startsWith("d ")) {
+                        baseColor[3] = Float.parseFloat(ParserUtils.getLastPart(line));
+                    } else if (line.startsWith("map_Kd ")) {
+                        IResourceLocator imageResource = material.getBaseDirectory().resolveResource(ParserUtils.getLastPart(line));
+                        oTextureIndex = getTextureIndex(imageResource);
+                    }
+                } catch (NumberFormatException e) {
+                    log.warn("Unable to parse line '" + line + "' of material '" + materialName + "'");
+                }
+            }
+            if (oTextureIndex.isPresent()) {
+                // The diffuse color is multiplied with the texture in glTF, while it is replaced by the texture in .mtl files
+                baseColor[0] = baseColor[1] = baseColor[2] = 1;
+            }
+        }
+        StringBuilder result = new StringBuilder("{\"name\":" + quote(materialName) + ",\"pbrMetallicRoughness\":{\"baseColorFactor\":["
+            + formatNumber(baseColor[0]) + "," + formatNumber(baseColor[1]) + "," + formatNumber(baseColor[2]) + "," + formatNumber(baseColor[3]) + "]");
+        oTextureIndex.ifPresent(textureIndex -> result.append(",\"baseColorTexture\":{\"index\":" + textureIndex + "}"));
+        result.append(",\"metallicFactor\":0,\"roughnessFactor\":1}");
+        if (baseColor[3] < 1) {
+            result.append(",\"alphaMode\":\"BLEND\"");
+        }
+        // Surfaces of the computed plan objects don't have a consistent face orientation
+        result.append(",\"doubleSided\":true}");
+        return result.toString();
+    }
+
+    protected static Optional<String> getImageMimeType(String fileName) {
+        String lowerFileName = fileName.toLowerCase(Locale.ROOT);
+        if (lowerFileName.endsWith(".png")) {
+            return Optional.of("image/png");
+        } else if (lowerFileName.endsWith(".jpg") || lowerFileName.endsWith(".jpeg")) {
+            return Optional.of("image/jpeg");
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Embeds the given image file into the binary buffer, each image file is only embedded once.
+     * @return Index of the texture referencing the image or {@link Optional#empty()} if the image cannot be embedded.
+     */
+    protected Optional<Integer> getTextureIndex(IResourceLocator imageResource) {
+        String imagePath = imageResource.getAbsolutePath();
+        Optional<Integer> result = mTextureIndices.get(imagePath);
+        if (result != null) {
+            return result;
+        }
+        result = Optional.empty();
+        Optional<String> oMimeType = getImageMimeType(imageResource.getFileName());
+        if (oMimeType.isEmpty()) {
+            log.warn("Texture image '" + imagePath + "' is neither a PNG nor a JPEG image, glTF doesn't support it, texture will be left out of export");
+        } else if (!imageResource.exists()) {
+            log.warn("Texture image '" + imagePath + "' doesn't exist, texture will be left out of export");
+        } else {
+            try {
+                long offset = mBufferLength;
+                // Don't close the output stream, it would close our buffer channel
+                OutputStream os = Channels.newOutputStream(mBufferChannel);
+                long length;
+                try (InputStream is = imageResource.inputStream()) {
+                    length = is.transferTo(os);
+                }
+                mBufferLength += length;
+                padBuffer();
+                mBufferViews.add("{\"buffer\":0,\"byteOffset\":" + offset + ",\"byteLength\":" + length + "}");
+                mImages.add("{\"bufferView\":" + (mBufferViews.size() - 1) + ",\"mimeType\":\"" + oMimeType.get() + "\"}");
+                mTextures.add("{\"source\":" + (mImages.size() - 1) + "}");
+                result = Optional.of(mTextures.size() - 1);
+            } catch (IOException e) {
+                log.warn("Unable to read texture image '" + imagePath + "', texture will be left out of export", e);
+            }
+        }
+        mTextureIndices.put(imagePath, result);
+        return result;
+    }
+
+    protected String createJson() {
+        StringBuilder result = new StringBuilder("{\"asset\":{\"version\":\"2.0\",\"generator\":\"Architect\"}");
+        List<String> sceneNodes = new ArrayList<>(mNodes.size());
+        for (int i = 0; i < mNodes.size(); i++) {
+            sceneNodes.add(Integer.toString(i));
+        }
+        result.append(",\"scene\":0,\"scenes\":[{\"nodes\":" + toJsonArray(sceneNodes) + "}]");
+        appendJsonArray(result, "nodes", mNodes);
+        appendJsonArray(result, "meshes", mMeshes);
+        appendJsonArray(result, "materials", mMaterials);
+        appendJsonArray(result, "textures", mTextures);
+        appendJsonArray(result, "images", mImages);
+        appendJsonArray(result, "accessors", mAccessors);
+        appendJsonArray(result, "bufferViews", mBufferViews);
+        if (mBufferLength > 0) {
+            result.append(",\"buffers\":[{\"byteLength\":" + mBufferLength + "}]");
+        }
+        return result.append("}").toString();
+    }
+
+    protected static void appendJsonArray(StringBuilder json, String name, List<String> elements) {
+        // glTF doesn't allow empty top-level arrays
+        if (!elements.isEmpty()) {
+            json.append(",\"" + name + "\":" + toJsonArray(elements));
+        }
+    }
+
+    @Override
+    protected void finishExport() throws IOException {
+        byte[] json = createJson().getBytes(StandardCharsets.UTF_8);
+        int jsonPadding = (4 - json.length % 4) % 4;
+        int jsonChunkLength = json.length + jsonPadding;
+        long totalLength = 12 + 8 + jsonChunkLength + (mBufferLength > 0 ? 8 + mBufferLength : 0);
+        if (totalLength > 0xFFFFFFFFL) {
+            throw new IOException("Export of plan exceeds maximum size of a glTF binary file");
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(12 + 8 + jsonChunkLength + 8).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(GLB_MAGIC);
+        header.putInt(GLB_VERSION);
+        header.putInt((int) totalLength);
+        header.putInt(jsonChunkLength);
+        header.putInt(CHUNK_TYPE_JSON);
+        header.put(json);
+        for (int i = 0; i < jsonPadding; i++) {
+            header.put((byte) ' '); // JSON chunk must be padded with spaces
+        }
+        if (mBufferLength > 0) {
+            header.putInt((int) mBufferLength);
+            header.putInt(CHUNK_TYPE_BIN);
+        }
+        header.flip();
+
+        try (FileChannel target = FileChannel.open(createPendingFile(mTargetFile), StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) {
+                target.write(header);
+            }
+            long position = 0;
+            while (position < mBufferLength) {
+                position += mBufferChannel.transferTo(position, mBufferLength - position, target);
+            }
+        }
+        closeBuffer();
+    }
+
+    @Override
+    protected void abortExport() {
+        closeBuffer();
+    }
+
+    protected void closeBuffer() {
+        try {
+            if (mBufferChannel != null) {
+                mBufferChannel.close();
+                mBufferChannel = null;
+            }
+            if (mBufferFile != null) {
+                Files.deleteIfExists(mBufferFile);
+                mBufferFile = null;
+            }
+        } catch (IOException e) {
+            log.warn("Unable to delete temporary buffer file '" + mBufferFile + "'", e);
+        }
+    }
+}
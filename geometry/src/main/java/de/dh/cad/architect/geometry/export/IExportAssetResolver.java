@@ -0,0 +1,61 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.geometry.export;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import de.dh.cad.architect.model.assets.AssetRefPath;
+import de.dh.cad.architect.model.objects.SupportObject;
+import de.dh.utils.io.obj.MaterialData;
+
+/**
+ * Resolves the assets which are referenced by the objects of an exported plan. Implementations are called from
+ * the thread which runs the export.
+ */
+public interface IExportAssetResolver {
+    /**
+     * Resolver which doesn't resolve any asset. Support objects are left out and all surfaces get the default material.
+     */
+    IExportAssetResolver NONE = new IExportAssetResolver() {
+        @Override
+        public Optional<MaterialData> resolveMaterial(AssetRefPath materialRef) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<ExportModel> resolveSupportObjectModel(SupportObject supportObject, String modelKey) {
+            return Optional.empty();
+        }
+    };
+
+    /**
+     * Loads the material of the given reference.
+     */
+    Optional<MaterialData> resolveMaterial(AssetRefPath materialRef) throws IOException;
+
+    /**
+     * Loads the 3D model of the given support object, with the surface materials configured in the support object.
+     * The returned model must be in the model coordinate system, i.e. the model's root transformation must already be
+     * applied to the vertices, but it must not be scaled or moved to the support object's position.
+     * This method is called only once per model key during an export.
+     * @param modelKey Key of the model to be used for the returned {@link ExportModel}. Support objects with the same
+     * descriptor and the same surface configuration share the same key.
+     */
+    Optional<ExportModel> resolveSupportObjectModel(SupportObject supportObject, String modelKey) throws IOException;
+}
@@ -0,0 +1,43 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.geometry.export;
+
+/**
+ * Receives the progress of a plan export. Exporters call the monitor from the thread which runs the export.
+ */
+public interface IExportProgressMonitor {
+    /**
+     * Monitor which ignores the progress and never cancels the export.
+     */
+    IExportProgressMonitor NONE = (numExportedObjects, numObjects) -> {
+        // Ignore
+    };
+
+    /**
+     * Called after each exported object.
+     */
+    void exportProgress(int numExportedObjects, int numObjects);
+
+    /**
+     * Checked by the exporter before each object; if this method returns {@code true}, the export is aborted
+     * with a {@link java.util.concurrent.CancellationException}.
+     */
+    default boolean isCanceled() {
+        return false;
+    }
+}
@@ -0,0 +1,278 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.geometry.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.dh.cad.architect.utils.vfs.IDirectoryLocator;
+import de.dh.cad.architect.utils.vfs.IResourceLocator;
+import de.dh.cad.architect.utils.vfs.PlainFileSystemDirectoryLocator;
+import de.dh.utils.io.IndexedMeshData;
+import de.dh.utils.io.obj.MaterialData;
+import de.dh.utils.io.obj.MtlLibraryIO;
+import de.dh.utils.io.obj.ParserUtils;
+import de.dh.utils.io.obj.RawMaterialData;
+
+/**
+ * Exports a plan to a Wavefront {@code .obj} file with a {@code .mtl} material library next to it.
+ * Each surface of an object is written as a separate OBJ object named {@code <object name>_<surface name>}.
+ * The OBJ format doesn't support instancing, so the vertices of shared models are written for each instance, but
+ * the texture coordinates of shared models are written only once and are referenced by all instances.
+ * Texture files which are referenced by the materials are copied to a directory next to the {@code .obj} file.
+ */
+public class ObjPlanExporter extends AbstractPlanExporter {
+    private static final Logger log = LoggerFactory.getLogger(ObjPlanExporter.class);
+
+    public static final String FILE_EXTENSION = "obj";
+    public static final String FILE_COMMENT = "Plan exported by Architect";
+
+    protected static final String[] TEXTURE_MAP_COMMANDS = {"map_", "bump ", "disp ", "decal ", "refl "};
+
+    protected final String mBaseName;
+    protected BufferedWriter mWriter = null;
+    protected int mNumVertices = 0;
+    protected int mNumTexCoords = 0;
+    protected final Map<String, Optional<MaterialData>> mMaterials = new LinkedHashMap<>(); // Sanitized material name -> material
+    protected final Map<String, Integer> mSharedTexCoordOffsets = new HashMap<>(); // Model key + surface name -> texture coordinate offset
+    protected final Map<String, String> mCopiedTextureFiles = new HashMap<>(); // Absolute source path -> relative target path
+    protected final Set<String> mTextureFileNames = new HashSet<>();
+    protected boolean mTexturesDirectoryCreated = false;
+
+    public ObjPlanExporter(Path targetFile) {
+        super(targetFile);
+        mBaseName = sanitizeName(FilenameUtils.getBaseName(targetFile.getFileName().toString()));
+    }
+
+    /**
+     * Replaces whitespace in the given name, which would break the parsing of names in OBJ and MTL files.
+     */
+    public static String sanitizeName(String name) {
+        return name.trim().replaceAll("\\s+", "_");
+    }
+
+    public Path getMaterialLibraryFile() {
+        return mTargetFile.resolveSibling(mBaseName + ".mtl");
+    }
+
+    public Path getTexturesDirectory() {
+        return mTargetFile.resolveSibling(mBaseName + "_textures");
+    }
+
+    @Override
+    protected void beginExport() throws IOException {
+        mWriter = Files.newBufferedWriter(createPendingFile(mTargetFile), StandardCharsets.UTF_8);
+        mWriter.write("# " + FILE_COMMENT + "\n");
+        mWriter.write("mtllib " + getMaterialLibraryFile().getFileName() + "\n");
+    }
+
+    @Override
+    protected void writeObject(ExportObject obj) throws IOException {
+        ExportModel model = obj.getModel();
+        double[] m = createExportTransform(obj.getPlacement()).to();
+        for (ExportSurface surface : model.getSurfaces()) {
+            IndexedMeshData mesh = surface.getMesh();
+            if (mesh.getNumFaces() == 0) {
+                continue;
+            }
+            String materialName = sanitizeName(surface.getMaterialName());
+            mMaterials.putIfAbsent(materialName, surface.getOMaterial());
+            mWriter.write("o " + sanitizeName(obj.getName() + "_" + surface.getName()) + "\n");
+            mWriter.write("usemtl " + materialName + "\n");
+
+            int vertexOffset = mNumVertices;
+            float[] points = transformPoints(mesh.getPoints(), m);
+            for (int i = 0; i < points.length; i += 3) {
+                mWriter.write("v " + formatNumber(points[i]) + " " + formatNumber(points[i + 1]) + " " + formatNumber(points[i + 2]) + "\n");
+            }
+            mNumVertices += points.length / 3;
+
+            Integer texCoordOffset = null;
+            String sharedKey = model.getKey() + "/" + surface.getName();
+            if (model.isShared()) {
+                texCoordOffset = mSharedTexCoordOffsets.get(sharedKey);
+            }
+            if (texCoordOffset == null) {
+                texCoordOffset = mNumTexCoords;
+                float[] texCoords = mesh.getTexCoords();
+                for (int i = 0; i < texCoords.length; i += 2) {
+                    // OBJ texture coordinates start at the bottom, in contrast to our mesh data
+                    mWriter.write("vt " + formatNumber(texCoords[i]) + " " + formatNumber(1 - texCoords[i + 1]) + "\n");
+                }
+                mNumTexCoords += texCoords.length / 2;
+                if (model.isShared()) {
+                    mSharedTexCoordOffsets.put(sharedKey, texCoordOffset);
+                }
+            }
+
+            // OBJ indices are 1-based
+            int[] faces = mesh.getFaces();
+            for (int i = 0; i < faces.length; i += 6) {
+                mWriter.write("f " + (vertexOffset + faces[i] + 1) + "/" + (texCoordOffset + faces[i + 1] + 1)
+                    + " " + (vertexOffset + faces[i + 2] + 1) + "/" + (texCoordOffset + faces[i + 3] + 1)
+                    + " " + (vertexOffset + faces[i + 4] + 1) + "/" + (texCoordOffset + faces[i + 5] + 1) + "\n");
+            }
+        }
+    }
+
+    @Override
+    protected void finishExport() throws IOException {
+        mWriter.close();
+        mWriter = null;
+
+        Path materialLibraryFile = getMaterialLibraryFile();
+        IDirectoryLocator targetDirectory = new PlainFileSystemDirectoryLocator(materialLibraryFile.getParent());
+        Collection<RawMaterialData> materials = new ArrayList<>();
+        for (Map.Entry<String, Optional<MaterialData>> entry : mMaterials.entrySet()) {
+            String materialName = entry.getKey();
+            List<String> lines = entry.getValue()
+                            .map(this::copyMaterialTextures)
+                            .orElseGet(() -> List.of("Kd 1.0 1.0 1.0"));
+            materials.add(new RawMaterialData(materialName, lines, targetDirectory));
+        }
+        try (Writer w = Files.newBufferedWriter(createPendingFile(materialLibraryFile), StandardCharsets.UTF_8)) {
+            MtlLibraryIO.writeMaterialSet(w, materials);
+        }
+    }
+
+    @Override
+    protected void abortExport() {
+        if (mWriter != null) {
+            try {
+                mWriter.close();
+            } catch (IOException e) {
+                log.warn("Error closing export file '" + mTargetFile + "'", e);
+            }
+            mWriter = null;
+        }
+    }
+
+    @Override
+    protected void deletePendingFiles() {
+        super.deletePendingFiles();
+        if (mTexturesDirectoryCreated) {
+            Path texturesDirectory = getTexturesDirectory();
+            try {
+                Files.deleteIfExists(texturesDirectory);
+            } catch (IOException e) {
+                log.warn("Unable to delete textures directory '" + texturesDirectory + "'", e);
+            }
+            mTexturesDirectoryCreated = false;
+        }
+    }
+
+    protected static boolean isTextureMapCommand(String line) {
+        for (String command : TEXTURE_MAP_COMMANDS) {
+            if (line.startsWith(command)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies the texture files which are referenced by the given material to the textures directory.
+     * @return Material lines with texture file references pointing to the copied files.
+     */
+    protected List<String> copyMaterialTextures(MaterialData material) {
+        List<String> result = new ArrayList<>();
+        for (String line : material.getLines()) {
+            if (isTextureMapCommand(line)) {
+                String fileName = ParserUtils.getLastPart(line);
+                Optional<String> oTargetPath = copyTextureFile(material.getBaseDirectory(), fileName);
+                if (oTargetPath.isEmpty()) {
+                    continue;
+                }
+                line = line.trim();
+                line = line.substring(0, line.length() - fileName.length()) + oTargetPath.get();
+            }
+            result.add(line);
+        }
+        return result;
+    }
+
+    /**
+     * Copies the given texture file to the textures directory, each source file is only copied once.
+     * @return Path of the copied file, relative to the material library file.
+     */
+    protected Optional<String> copyTextureFile(IDirectoryLocator baseDirectory, String fileName) {
+        IResourceLocator source = baseDirectory.resolveResource(fileName);
+        String sourcePath = source.getAbsolutePath();
+        String result = mCopiedTextureFiles.get(sourcePath);
+        if (result != null) {
+            return Optional.of(result);
+        }
+        if (!source.exists()) {
+            log.warn("Texture file '" + sourcePath + "' doesn't exist, texture will be left out of export");
+            return Optional.empty();
+        }
+        String targetFileName = sanitizeName(Paths.get(fileName).getFileName().toString());
+        String baseName = FilenameUtils.getBaseName(targetFileName);
+        String extension = FilenameUtils.getExtension(targetFileName);
+        for (int i = 1; mTextureFileNames.contains(targetFileName); i++) {
+            targetFileName = baseName + "_" + i + (extension.isEmpty() ? "" : "." + extension);
+        }
+        Path texturesDirectory = getTexturesDirectory();
+        Path tempFile = null;
+        try {
+            if (!Files.isDirectory(texturesDirectory)) {
+                Files.createDirectories(texturesDirectory);
+                mTexturesDirectoryCreated = true;
+            }
+            tempFile = createPendingFile(texturesDirectory.resolve(targetFileName));
+            try (InputStream is = source.inputStream()) {
+                Files.copy(is, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to copy texture file '" + sourcePath + "', texture will be left out of export", e);
+            if (tempFile != null) {
+                mPendingFiles.remove(tempFile);
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException ex) {
+                    log.warn("Unable to delete temporary texture file '" + tempFile + "'", ex);
+                }
+            }
+            return Optional.empty();
+        }
+        mTextureFileNames.add(targetFileName);
+        result = texturesDirectory.getFileName() + "/" + targetFileName;
+        mCopiedTextureFiles.put(sourcePath, result);
+        return Optional.of(result);
+    }
+}
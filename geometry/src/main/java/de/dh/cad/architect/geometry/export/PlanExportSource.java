@@ -0,0 +1,265 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.geometry.export;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.dh.cad.architect.geometry.ObjectMeshes;
+import de.dh.cad.architect.geometry.PlanGeometry;
+import de.dh.cad.architect.model.Plan;
+import de.dh.cad.architect.model.assets.AssetRefPath;
+import de.dh.cad.architect.model.coords.Dimensions2D;
+import de.dh.cad.architect.model.coords.Position2D;
+import de.dh.cad.architect.model.objects.BaseObject;
+import de.dh.cad.architect.model.objects.BaseSolidObject;
+import de.dh.cad.architect.model.objects.MaterialMappingConfiguration;
+import de.dh.cad.architect.model.objects.SupportObject;
+import de.dh.cad.architect.model.objects.SurfaceConfiguration;
+import de.dh.utils.Vector2D;
+import de.dh.utils.Vector3D;
+import de.dh.utils.io.IndexedMeshData;
+import de.dh.utils.io.obj.MaterialData;
+import eu.mihosoft.vvecmath.Transform;
+import eu.mihosoft.vvecmath.Vector3d;
+
+/**
+ * Provides the objects of a plan to be exported. The export objects are created one after the other on request, so
+ * the geometry of an object can be discarded after it was written and an export only holds the geometry of a single
+ * object plus the shared support object models in memory.
+ * The list of exported objects is determined in the constructor; the plan must not be modified until the export is finished.
+ */
+public class PlanExportSource {
+    private static final Logger log = LoggerFactory.getLogger(PlanExportSource.class);
+
+    public static final String DEFAULT_MATERIAL_NAME = "default";
+
+    protected final List<BaseObject> mObjects;
+    protected final PlanGeometry mPlanGeometry;
+    protected final IExportAssetResolver mAssetResolver;
+    protected final Map<AssetRefPath, Optional<MaterialData>> mMaterials = new HashMap<>();
+    protected final Map<String, Optional<ExportModel>> mSupportObjectModels = new HashMap<>(); // Model key -> model
+
+    public PlanExportSource(Plan plan, PlanGeometry planGeometry, IExportAssetResolver assetResolver) {
+        mObjects = getExportedObjects(plan);
+        mPlanGeometry = planGeometry;
+        mAssetResolver = assetResolver;
+    }
+
+    /**
+     * Gets all objects of the given plan which are exported, in the order of the export.
+     */
+    public static List<BaseObject> getExportedObjects(Plan plan) {
+        List<BaseObject> result = new ArrayList<>(PlanGeometry.getGeometryObjects(plan));
+        result.addAll(plan.getSupportObjects().values());
+        return result;
+    }
+
+    public static String getExportObjectName(BaseObject obj) {
+        // Object ids are unique and already contain the object type
+        return obj.getId();
+    }
+
+    /**
+     * Gets the key of the shared model of the given support object. Support objects share their model if they use
+     * the same descriptor and the same surface materials.
+     */
+    public static String getSupportObjectModelKey(SupportObject supportObject) {
+        StringBuilder result = new StringBuilder(supportObject.getSupportObjectDescriptorRef().toPathString());
+        Map<String, SurfaceConfiguration> surfaceConfigurations = new TreeMap<>(supportObject.getSurfaceTypeIdsToSurfaceConfigurations());
+        for (SurfaceConfiguration surfaceConfiguration : surfaceConfigurations.values()) {
+            MaterialMappingConfiguration mmc = surfaceConfiguration.getMaterialMappingConfiguration();
+            if (mmc == null || mmc.getMaterialRef() == null) {
+                continue;
+            }
+            result.append('|').append(surfaceConfiguration.getSurfaceTypeId()).append('=').append(mmc.getMaterialRef().toPathString());
+        }
+        return result.toString();
+    }
+
+    public int getNumObjects() {
+        return mObjects.size();
+    }
+
+    public List<BaseObject> getObjects() {
+        return mObjects;
+    }
+
+    /**
+     * Creates the export object for the object with the given index.
+     * @return Export object or {@link Optional#empty()} if the object doesn't produce any geometry, e.g. if the 3D model
+     * of a support object cannot be loaded.
+     */
+    public Optional<ExportObject> createExportObject(int index) {
+        BaseObject obj = mObjects.get(index);
+        if (obj instanceof SupportObject supportObject) {
+            return createSupportObjectExportObject(supportObject);
+        }
+        return mPlanGeometry.compute(obj)
+                        .filter(meshes -> !meshes.isEmpty())
+                        .map(meshes -> createExportObject((BaseSolidObject) obj, meshes));
+    }
+
+    protected ExportObject createExportObject(BaseSolidObject obj, ObjectMeshes objectMeshes) {
+        String name = getExportObjectName(obj);
+        Map<String, SurfaceConfiguration> surfaceConfigurations = obj.getSurfaceTypeIdsToSurfaceConfigurations();
+        List<ExportSurface> surfaces = new ArrayList<>();
+        for (Map.Entry<String, IndexedMeshData> entry : new TreeMap<>(objectMeshes.getMeshes()).entrySet()) {
+            String surfaceTypeId = entry.getKey();
+            IndexedMeshData mesh = entry.getValue();
+            SurfaceConfiguration surfaceConfiguration = surfaceConfigurations.get(surfaceTypeId);
+            MaterialMappingConfiguration mmc = surfaceConfiguration == null ? null : surfaceConfiguration.getMaterialMappingConfiguration();
+            AssetRefPath materialRef = mmc == null ? null : mmc.getMaterialRef();
+            Optional<MaterialData> oMaterial = resolveMaterial(materialRef);
+            float[] texCoords = mapTexCoords(mesh.getTexCoords(), objectMeshes.getSurfaceSizes().get(surfaceTypeId), mmc,
+                oMaterial.flatMap(MaterialData::getTileSize));
+            IndexedMeshData mappedMesh = new IndexedMeshData(mesh.getName(), mesh.getGroups(), mesh.getPoints(), texCoords,
+                mesh.getFaces(), mesh.getSmoothingGroups());
+            surfaces.add(new ExportSurface(surfaceTypeId, mappedMesh, getMaterialName(materialRef), oMaterial));
+        }
+        Transform placement = Transform.unity();
+        double rotationAngle = objectMeshes.getRotationAngle();
+        if (rotationAngle != 0) {
+            Vector3D axis = objectMeshes.getRotationAxis();
+            placement.rot(Vector3d.ZERO, Vector3d.xyz(axis.getX(), axis.getY(), axis.getZ()), rotationAngle);
+        }
+        return new ExportObject(name, new ExportModel(name, false, surfaces), placement);
+    }
+
+    protected Optional<ExportObject> createSupportObjectExportObject(SupportObject supportObject) {
+        String modelKey = getSupportObjectModelKey(supportObject);
+        Optional<ExportModel> oModel = mSupportObjectModels.get(modelKey);
+        if (oModel == null) {
+            try {
+                oModel = mAssetResolver.resolveSupportObjectModel(supportObject, modelKey);
+            } catch (IOException e) {
+                log.warn("Unable to load 3D model of support object descriptor <" + supportObject.getSupportObjectDescriptorRef() + ">, the support object will not be exported", e);
+                oModel = Optional.empty();
+            }
+            mSupportObjectModels.put(modelKey, oModel);
+        }
+        return oModel.map(model -> new ExportObject(getExportObjectName(supportObject), model, createSupportObjectPlacement(supportObject, model)));
+    }
+
+    /**
+     * Creates the transformation which centers the given model in X/Y, puts its bottom to Z=0, scales it to the size of the
+     * support object and moves it to the support object's position and elevation, like the 3D view does.
+     */
+    public static Transform createSupportObjectPlacement(SupportObject supportObject, ExportModel model) {
+        double[] bounds = model.getBounds();
+        Position2D center = supportObject.getCenterPoint();
+        Dimensions2D size = supportObject.getSize();
+        return Transform.unity()
+                        .translate(center.getX().inCM(), center.getY().inCM(), supportObject.getElevation().inCM())
+                        .rot(Vector3d.ZERO, Vector3d.Z_ONE, supportObject.getRotationDeg())
+                        .scale(
+                            scaleFactor(size.getX().inCM(), bounds[3] - bounds[0]),
+                            scaleFactor(size.getY().inCM(), bounds[4] - bounds[1]),
+                            scaleFactor(supportObject.getHeight().inCM(), bounds[5] - bounds[2]))
+                        .translate(-(bounds[0] + bounds[3]) / 2, -(bounds[1] + bounds[4]) / 2, -bounds[2]);
+    }
+
+    protected static double scaleFactor(double targetSize, double modelSize) {
+        return modelSize < 1e-9 ? 1 : targetSize / modelSize;
+    }
+
+    public static String getMaterialName(AssetRefPath materialRef) {
+        return materialRef == null ? DEFAULT_MATERIAL_NAME : materialRef.toPathString();
+    }
+
+    protected Optional<MaterialData> resolveMaterial(AssetRefPath materialRef) {
+        if (materialRef == null) {
+            return Optional.empty();
+        }
+        Optional<MaterialData> result = mMaterials.get(materialRef);
+        if (result == null) {
+            try {
+                result = mAssetResolver.resolveMaterial(materialRef);
+            } catch (IOException e) {
+                log.warn("Unable to load material <" + materialRef + ">, using default material", e);
+                result = Optional.empty();
+            }
+            mMaterials.put(materialRef, result);
+        }
+        return result;
+    }
+
+    /**
+     * Maps the texture coordinates of a surface according to the material mapping configuration of the surface.
+     * The 3D view renders tiled, moved or rotated materials into a texture image of the size of the surface; to be able
+     * to reference the original texture image files, the export moves that mapping to the texture coordinates instead.
+     * @param texCoords Texture coordinates which stretch the texture over the surface, 2 elements per vertex.
+     * @param surfaceSize Size of the surface in centimeters or {@code null} if the size is not known.
+     * @param mmc Material mapping of the surface or {@code null}.
+     * @param oNativeTileSize Tile size which is defined by the material itself.
+     * @return The given texture coordinates if no mapping is necessary, else a new array of mapped texture coordinates.
+     */
+    public static float[] mapTexCoords(float[] texCoords, Vector2D surfaceSize, MaterialMappingConfiguration mmc, Optional<Vector2D> oNativeTileSize) {
+        if (mmc == null || surfaceSize == null) {
+            return texCoords;
+        }
+        boolean stretch = mmc.getLayoutMode() == MaterialMappingConfiguration.LayoutMode.Stretch;
+        if (stretch && mmc.getOffset() == null && mmc.getMaterialRotationDeg() == null) {
+            return texCoords;
+        }
+        double surfaceWidth = surfaceSize.getX();
+        double surfaceHeight = surfaceSize.getY();
+        Vector2D tileSize;
+        if (stretch) {
+            tileSize = surfaceSize;
+        } else if (mmc.getTileSize() != null) {
+            tileSize = new Vector2D(mmc.getTileSize().getX().inCM(), mmc.getTileSize().getY().inCM());
+        } else {
+            tileSize = oNativeTileSize.orElse(surfaceSize);
+        }
+        // Material tile sizes might be given in UI coordinates with inverted Y direction
+        double tileWidth = Math.abs(tileSize.getX());
+        double tileHeight = Math.abs(tileSize.getY());
+        if (tileWidth < 1e-9 || tileHeight < 1e-9) {
+            return texCoords;
+        }
+        // Texture coordinates grow downwards, thus the offset's Y direction must be inverted like in the 3D view
+        double offsetX = mmc.getOffset() == null ? 0 : mmc.getOffset().getX().inCM();
+        double offsetY = mmc.getOffset() == null ? 0 : -mmc.getOffset().getY().inCM();
+        // The texture is rotated around the surface center, so we rotate the surface points in the opposite direction
+        double rotationRad = mmc.getMaterialRotationDeg() == null ? 0 : -Math.toRadians(mmc.getMaterialRotationDeg());
+        double sin = Math.sin(rotationRad);
+        double cos = Math.cos(rotationRad);
+        double centerX = surfaceWidth / 2;
+        double centerY = surfaceHeight / 2;
+
+        float[] result = new float[texCoords.length];
+        for (int i = 0; i < texCoords.length; i += 2) {
+            double x = texCoords[i] * surfaceWidth - centerX;
+            double y = texCoords[i + 1] * surfaceHeight - centerY;
+            double rx = x * cos - y * sin + centerX;
+            double ry = x * sin + y * cos + centerY;
+            result[i] = (float) ((rx - offsetX) / tileWidth);
+            result[i + 1] = (float) ((ry - offsetY) / tileHeight);
+        }
+        return result;
+    }
+}
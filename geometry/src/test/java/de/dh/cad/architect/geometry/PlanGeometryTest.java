@@ -0,0 +1,144 @@
+package de.dh.cad.architect.geometry;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.dh.cad.architect.model.Plan;
+import de.dh.cad.architect.model.changes.IModelChange;
+import de.dh.cad.architect.model.coords.Dimensions2D;
+import de.dh.cad.architect.model.coords.Length;
+import de.dh.cad.architect.model.coords.Position2D;
+import de.dh.cad.architect.model.coords.Position3D;
+import de.dh.cad.architect.model.objects.Ceiling;
+import de.dh.cad.architect.model.objects.Covering;
+import de.dh.cad.architect.model.objects.Floor;
+import de.dh.cad.architect.model.objects.Wall;
+import de.dh.cad.architect.model.objects.WallHole;
+import de.dh.cad.architect.model.wallmodel.WallDockEnd;
+import de.dh.cad.architect.model.wallmodel.WallSurface;
+import de.dh.utils.Vector2D;
+import de.dh.utils.io.IndexedMeshData;
+
+/**
+ * Test class for {@link PlanGeometry}.
+ * Computes the geometry of a random plan sequentially and in parallel and checks that both computations produce
+ * the same mesh buffers.
+ */
+public class PlanGeometryTest {
+    protected static final int NUM_WALLS = 40;
+
+    protected static final Length WALL_THICKNESS = Length.ofCM(20);
+    protected static final Length WALL_HEIGHT = Length.ofM(2.5);
+
+    protected static Plan createPlan(long seed) {
+        Random random = new Random(seed);
+        Plan plan = Plan.newPlan();
+        List<IModelChange> changeTrace = new ArrayList<>();
+        for (int i = 0; i < NUM_WALLS; i++) {
+            Position2D handleA = new Position2D(Length.ofM(random.nextInt(20)), Length.ofM(random.nextInt(20)));
+            Position2D handleB = handleA.plus(new de.dh.cad.architect.model.coords.Vector2D(Length.ofM(2 + random.nextInt(3)), Length.ofM(random.nextInt(3))));
+            Wall wall = Wall.createFromHandlePositions("Wall " + i, WALL_THICKNESS, WALL_HEIGHT, WALL_HEIGHT, handleA, handleB, plan, changeTrace);
+            if (i % 2 == 0) {
+                WallHole.createFromParameters("Hole " + i, Length.ofCM(90), new Dimensions2D(Length.ofCM(80), Length.ofCM(120)),
+                    WallDockEnd.A, Length.ofCM(50), wall, changeTrace);
+            }
+        }
+        List<Position2D> floorPositions = List.of(
+            new Position2D(Length.ofM(0), Length.ofM(0)),
+            new Position2D(Length.ofM(10), Length.ofM(0)),
+            new Position2D(Length.ofM(10), Length.ofM(8)),
+            new Position2D(Length.ofM(0), Length.ofM(8)));
+        Floor.create(0, Length.ofCM(0), "Floor", floorPositions, plan, changeTrace);
+        Ceiling.create("Ceiling", new Position3D(Length.ofM(0), Length.ofM(0), WALL_HEIGHT),
+            new Position3D(Length.ofM(10), Length.ofM(0), WALL_HEIGHT),
+            new Position3D(Length.ofM(10), Length.ofM(8), Length.ofM(3)), plan, changeTrace);
+        Covering.create("Covering", new Position3D(Length.ofM(1), Length.ofM(1), Length.ofCM(0)),
+            new Position3D(Length.ofM(4), Length.ofM(1), Length.ofCM(0)),
+            new Position3D(Length.ofM(4), Length.ofM(1), Length.ofM(2)), plan, changeTrace);
+        return plan;
+    }
+
+    protected static void assertMeshEquals(IndexedMeshData expected, IndexedMeshData actual, String context) {
+        assertArrayEquals(expected.getPoints(), actual.getPoints(), context + ": Points");
+        assertArrayEquals(expected.getTexCoords(), actual.getTexCoords(), context + ": Texture coordinates");
+        assertArrayEquals(expected.getFaces(), actual.getFaces(), context + ": Faces");
+    }
+
+    @Test
+    @DisplayName("Parallel computation produces the same meshes as sequential computation")
+    public void testParallelEqualsSequential() {
+        for (long seed = 0; seed < 5; seed++) {
+            Plan plan = createPlan(seed);
+            Map<String, ObjectMeshes> sequential = new PlanGeometry().computeAll(plan, false);
+            Map<String, ObjectMeshes> parallel = new PlanGeometry().computeAll(plan, true);
+
+            assertEquals(PlanGeometry.getGeometryObjects(plan).size(), sequential.size());
+            assertEquals(List.copyOf(sequential.keySet()), List.copyOf(parallel.keySet()), "Seed " + seed + ": Order of results");
+            for (ObjectMeshes expected : sequential.values()) {
+                ObjectMeshes actual = parallel.get(expected.getObjectId());
+                assertEquals(expected.getMeshes().keySet(), actual.getMeshes().keySet());
+                assertEquals(expected.getSurfaceSizes().keySet(), actual.getSurfaceSizes().keySet());
+                for (Map.Entry<String, Vector2D> entry : expected.getSurfaceSizes().entrySet()) {
+                    Vector2D actualSize = actual.getSurfaceSizes().get(entry.getKey());
+                    assertEquals(entry.getValue().getX(), actualSize.getX());
+                    assertEquals(entry.getValue().getY(), actualSize.getY());
+                }
+                assertEquals(expected.getRotationAngle(), actual.getRotationAngle());
+                for (Map.Entry<String, IndexedMeshData> entry : expected.getMeshes().entrySet()) {
+                    assertMeshEquals(entry.getValue(), actual.getMesh(entry.getKey()).get(), "Seed " + seed + ", object " + expected.getObjectId() + ", surface " + entry.getKey());
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Walls produce meshes for their sides and embrasures only if they contain holes")
+    public void testWallSurfaces() {
+        Plan plan = createPlan(42);
+        PlanGeometry planGeometry = new PlanGeometry();
+        for (Wall wall : plan.getWalls().values()) {
+            ObjectMeshes meshes = planGeometry.computeWall(wall);
+            for (WallSurface surface : List.of(WallSurface.A, WallSurface.B, WallSurface.One, WallSurface.Two, WallSurface.Top, WallSurface.Bottom)) {
+                assertTrue(meshes.getMesh(surface.getSurfaceType()).isPresent(), "Missing surface " + surface + " of " + wall);
+            }
+            assertEquals(!wall.getWallHoles().isEmpty(), meshes.getMesh(WallSurface.Embrasure.getSurfaceType()).isPresent());
+
+            // Walls of constant height are extruded from Z=0 to their height
+            float maxZ = Float.NEGATIVE_INFINITY;
+            for (IndexedMeshData mesh : meshes.getMeshes().values()) {
+                float[] points = mesh.getPoints();
+                for (int i = 2; i < points.length; i += 3) {
+                    maxZ = Math.max(maxZ, points[i]);
+                }
+            }
+            assertEquals(WALL_HEIGHT.inCM(), maxZ, 0.001);
+        }
+    }
+
+    @Test
+    @DisplayName("Tilted objects are computed in the X/Y plane and carry their rotation")
+    public void testRotation() {
+        Plan plan = createPlan(0);
+        PlanGeometry planGeometry = new PlanGeometry();
+        Floor floor = plan.getFloors().values().iterator().next();
+        ObjectMeshes floorMeshes = planGeometry.computeFloor(floor);
+        assertEquals(0, floorMeshes.getRotationAngle());
+        assertFalse(floorMeshes.isEmpty());
+
+        // Vertical covering must be rotated by 90 degrees
+        Covering covering = plan.getCoverings().values().iterator().next();
+        ObjectMeshes coveringMeshes = planGeometry.computeCovering(covering);
+        assertEquals(90, Math.abs(coveringMeshes.getRotationAngle()), 0.001);
+        assertEquals(2, coveringMeshes.getMeshes().size());
+    }
+}
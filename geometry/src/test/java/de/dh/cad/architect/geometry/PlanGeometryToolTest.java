@@ -0,0 +1,119 @@
+package de.dh.cad.architect.geometry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.dh.cad.architect.geometry.PlanGeometryTool.PlanFileContents;
+import de.dh.cad.architect.model.Plan;
+import de.dh.cad.architect.utils.jaxb.JAXBUtility;
+
+/**
+ * Test class for {@link PlanGeometryTool}.
+ * Writes plan files as plain and as GZIP compressed XML and checks that the tool reads both formats.
+ */
+public class PlanGeometryToolTest {
+    protected static final String CONTENT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Planfile name=\"Grundriss Erdgeschoß\"/>\n";
+
+    protected Path mDirectory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        mDirectory = Files.createTempDirectory("PlanGeometryToolTest");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(mDirectory.toFile());
+    }
+
+    protected static void write(Path path, boolean compressed, String content) throws IOException {
+        OutputStream os = Files.newOutputStream(path);
+        if (compressed) {
+            os = new GZIPOutputStream(os);
+        }
+        try (Writer writer = new OutputStreamWriter(os, StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+    }
+
+    protected static String read(Path path) throws IOException {
+        try (Reader reader = PlanGeometryTool.openReader(path)) {
+            StringWriter result = new StringWriter();
+            reader.transferTo(result);
+            return result.toString();
+        }
+    }
+
+    protected static String serializePlan(Plan plan) throws JAXBException {
+        PlanFileContents contents = new PlanFileContents();
+        contents.setPlan(plan);
+        JAXBContext context = JAXBUtility.initializeJAXBContext(PlanFileContents.class);
+        Marshaller m = context.createMarshaller();
+        JAXBUtility.configureMarshaller(m);
+        StringWriter result = new StringWriter();
+        m.marshal(contents, result);
+        return result.toString();
+    }
+
+    @Test
+    @DisplayName("Plain and compressed plan files are read with the same content")
+    public void testReadPlainAndCompressed() throws IOException {
+        Path plainFile = mDirectory.resolve("plan.xml");
+        Path compressedFile = mDirectory.resolve("plan.xml.gz");
+        write(plainFile, false, CONTENT);
+        write(compressedFile, true, CONTENT);
+        assertEquals(CONTENT, read(plainFile));
+        assertEquals(CONTENT, read(compressedFile));
+
+        // The format is detected from the content, not from the file name
+        Path compressedWithPlainName = mDirectory.resolve("compressed.xml");
+        write(compressedWithPlainName, true, CONTENT);
+        assertEquals(CONTENT, read(compressedWithPlainName));
+    }
+
+    @Test
+    @DisplayName("Empty files are read as plain files")
+    public void testReadEmptyFile() throws IOException {
+        Path emptyFile = mDirectory.resolve("empty.xml");
+        write(emptyFile, false, "");
+        assertEquals("", read(emptyFile));
+    }
+
+    @Test
+    @DisplayName("Plans are loaded from plain and from compressed plan files")
+    public void testLoadCompressedPlan() throws Exception {
+        Plan plan = PlanGeometryTest.createPlan(7);
+        String content = serializePlan(plan);
+        Path plainFile = mDirectory.resolve("plan.xml");
+        Path compressedFile = mDirectory.resolve("plan.xml.gz");
+        write(plainFile, false, content);
+        write(compressedFile, true, content);
+
+        for (Path path : new Path[] {plainFile, compressedFile}) {
+            Plan loadedPlan = PlanGeometryTool.loadPlan(path);
+            assertEquals(plan.getWalls().keySet(), loadedPlan.getWalls().keySet(), "Walls of " + path.getFileName());
+            assertEquals(plan.getFloors().keySet(), loadedPlan.getFloors().keySet(), "Floors of " + path.getFileName());
+            assertEquals(plan.getAnchors().keySet(), loadedPlan.getAnchors().keySet(), "Anchors of " + path.getFileName());
+        }
+    }
+}
@@ -0,0 +1,434 @@
+package de.dh.cad.architect.geometry.export;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.dh.cad.architect.geometry.PlanGeometry;
+import de.dh.cad.architect.model.Plan;
+import de.dh.cad.architect.model.assets.AssetRefPath;
+import de.dh.cad.architect.model.changes.IModelChange;
+import de.dh.cad.architect.model.coords.Dimensions2D;
+import de.dh.cad.architect.model.coords.Length;
+import de.dh.cad.architect.model.coords.Position2D;
+import de.dh.cad.architect.model.coords.Position3D;
+import de.dh.cad.architect.model.coords.Vector2D;
+import de.dh.cad.architect.model.objects.Covering;
+import de.dh.cad.architect.model.objects.Floor;
+import de.dh.cad.architect.model.objects.MaterialMappingConfiguration;
+import de.dh.cad.architect.model.objects.SupportObject;
+import de.dh.cad.architect.model.objects.Wall;
+import de.dh.cad.architect.model.objects.WallHole;
+import de.dh.cad.architect.model.wallmodel.WallDockEnd;
+import de.dh.cad.architect.model.wallmodel.WallSurface;
+import de.dh.cad.architect.utils.vfs.PlainFileSystemDirectoryLocator;
+import de.dh.cad.architect.utils.vfs.PlainFileSystemResourceLocator;
+import de.dh.utils.io.IndexedMeshData;
+import de.dh.utils.io.MeshData;
+import de.dh.utils.io.obj.MaterialData;
+import de.dh.utils.io.obj.MtlLibraryIO;
+import de.dh.utils.io.obj.ObjReader;
+import de.dh.utils.io.obj.ObjReader.ObjDataRaw;
+import de.dh.utils.io.obj.RawMaterialData;
+
+/**
+ * Test class for {@link ObjPlanExporter} and {@link GlbPlanExporter}.
+ * Exports a plan with walls, a floor, a covering and instances of support objects, reads the OBJ export back with
+ * our {@link ObjReader} and compares the result with the exported geometry. The binary glTF export is checked for
+ * a valid container structure and for the instancing of shared support object models.
+ */
+public class PlanExportTest {
+    protected static final Length WALL_THICKNESS = Length.ofCM(20);
+    protected static final Length WALL_HEIGHT = Length.ofM(2.5);
+
+    protected static final AssetRefPath CHAIR_REF = AssetRefPath.parse("/Libraries/TestLibrary/SupportObjects/Chair");
+    protected static final AssetRefPath TABLE_REF = AssetRefPath.parse("/Libraries/TestLibrary/SupportObjects/Table");
+    protected static final AssetRefPath WALLPAPER_REF = AssetRefPath.parse("/Libraries/TestLibrary/MaterialSets/Wallpapers/Flowers");
+
+    protected static final byte[] TEXTURE_BYTES = "Texture image, not decoded by the exporter".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Resolves all support objects to a box model and the wallpaper material to a material with a texture file.
+     */
+    protected static class TestAssetResolver implements IExportAssetResolver {
+        protected final Path mMaterialDirectory;
+        protected final List<String> mResolvedModelKeys = new ArrayList<>();
+
+        public TestAssetResolver(Path materialDirectory) throws IOException {
+            mMaterialDirectory = materialDirectory;
+            Files.write(materialDirectory.resolve("flowers.png"), TEXTURE_BYTES);
+        }
+
+        @Override
+        public Optional<MaterialData> resolveMaterial(AssetRefPath materialRef) {
+            if (!WALLPAPER_REF.equals(materialRef)) {
+                return Optional.empty();
+            }
+            return Optional.of(new MaterialData("Flowers", List.of("Kd 0.8 0.8 0.8", "map_Kd flowers.png"), Optional.empty(),
+                new PlainFileSystemDirectoryLocator(mMaterialDirectory)));
+        }
+
+        @Override
+        public Optional<ExportModel> resolveSupportObjectModel(SupportObject supportObject, String modelKey) {
+            mResolvedModelKeys.add(modelKey);
+            float[] points = {
+                    0, 0, 0, 2, 0, 0, 2, 1, 0, 0, 1, 0,
+                    0, 0, 3, 2, 0, 3, 2, 1, 3, 0, 1, 3};
+            float[] texCoords = {0, 0, 1, 0, 1, 1, 0, 1};
+            int[] faces = {
+                    0, 0, 2, 2, 1, 1, 0, 0, 3, 3, 2, 2, // Bottom
+                    4, 0, 5, 1, 6, 2, 4, 0, 6, 2, 7, 3, // Top
+                    0, 0, 1, 1, 5, 2, 0, 0, 5, 2, 4, 3, // Front
+                    2, 0, 3, 1, 7, 2, 2, 0, 7, 2, 6, 3}; // Back
+            IndexedMeshData mesh = new IndexedMeshData("Box", List.of(), points, texCoords, faces, new int[faces.length / 6]);
+            return Optional.of(new ExportModel(modelKey, true, List.of(new ExportSurface("Box", mesh, "white", Optional.empty()))));
+        }
+    }
+
+    protected static Plan createPlan(int numSupportObjects) {
+        Plan plan = Plan.newPlan();
+        List<IModelChange> changeTrace = new ArrayList<>();
+        List<Position2D> corners = List.of(
+            new Position2D(Length.ofM(0), Length.ofM(0)),
+            new Position2D(Length.ofM(5), Length.ofM(0)),
+            new Position2D(Length.ofM(5), Length.ofM(4)),
+            new Position2D(Length.ofM(0), Length.ofM(4)));
+        for (int i = 0; i < corners.size(); i++) {
+            Wall wall = Wall.createFromHandlePositions("Wall " + i, WALL_THICKNESS, WALL_HEIGHT, WALL_HEIGHT,
+                corners.get(i), corners.get((i + 1) % corners.size()), plan, changeTrace);
+            if (i == 0) {
+                WallHole.createFromParameters("Window", Length.ofCM(90), new Dimensions2D(Length.ofCM(80), Length.ofCM(120)),
+                    WallDockEnd.A, Length.ofCM(50), wall, changeTrace);
+                wall.getSurfaceTypeIdsToSurfaceConfigurations().get(WallSurface.A.getSurfaceType())
+                    .setMaterialMappingConfiguration(MaterialMappingConfiguration.tile(WALLPAPER_REF,
+                        new Vector2D(Length.ofCM(10), Length.ZERO), new Dimensions2D(Length.ofCM(50), Length.ofCM(50))));
+            }
+        }
+        Floor.create(0, Length.ofCM(0), "Floor", corners, plan, changeTrace);
+        Covering.create("Covering", new Position3D(Length.ofM(1), Length.ofM(1), Length.ofCM(0)),
+            new Position3D(Length.ofM(4), Length.ofM(1), Length.ofCM(0)),
+            new Position3D(Length.ofM(4), Length.ofM(1), Length.ofM(2)), plan, changeTrace);
+        for (int i = 0; i < numSupportObjects; i++) {
+            SupportObject.create("Object " + i, i % 3 == 2 ? TABLE_REF : CHAIR_REF,
+                new Position2D(Length.ofCM(50 + (i % 40) * 10), Length.ofCM(50 + (i / 40) * 10)),
+                new Dimensions2D(Length.ofCM(40), Length.ofCM(60)), Length.ofCM(90), i * 30, Length.ofCM(i % 2 * 10),
+                Set.of("Box"), plan, changeTrace);
+        }
+        return plan;
+    }
+
+    protected static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    protected static List<Path> listFiles(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.toList();
+        }
+    }
+
+    @Test
+    @DisplayName("OBJ export can be read by ObjReader and reproduces the exported geometry")
+    public void testObjRoundTrip() throws IOException {
+        Path directory = Files.createTempDirectory("PlanExportTest");
+        try {
+            Path materialDirectory = Files.createDirectories(directory.resolve("material"));
+            Path exportDirectory = Files.createDirectories(directory.resolve("export"));
+            Plan plan = createPlan(6);
+            TestAssetResolver assetResolver = new TestAssetResolver(materialDirectory);
+            Path objFile = exportDirectory.resolve("My plan.obj");
+            ObjPlanExporter exporter = new ObjPlanExporter(objFile);
+            exporter.export(new PlanExportSource(plan, new PlanGeometry(), assetResolver), IExportProgressMonitor.NONE);
+
+            // Support object models are resolved once per descriptor, in the undefined order of the plan's support objects
+            assertEquals(2, assetResolver.mResolvedModelKeys.size(), "Number of resolved models");
+            assertEquals(Set.of(CHAIR_REF.toPathString(), TABLE_REF.toPathString()), Set.copyOf(assetResolver.mResolvedModelKeys));
+
+            // Expected meshes, computed from a second export source
+            PlanExportSource source = new PlanExportSource(plan, new PlanGeometry(), assetResolver);
+            Map<String, ExportSurface> expectedSurfaces = new HashMap<>();
+            Map<String, double[]> expectedTransforms = new HashMap<>();
+            Set<String> sharedSurfaces = new HashSet<>();
+            int expectedNumTexCoords = 0;
+            for (int i = 0; i < source.getNumObjects(); i++) {
+                ExportObject obj = source.createExportObject(i).get();
+                for (ExportSurface surface : obj.getModel().getSurfaces()) {
+                    if (surface.getMesh().getNumFaces() == 0) {
+                        continue;
+                    }
+                    String meshName = ObjPlanExporter.sanitizeName(obj.getName() + "_" + surface.getName());
+                    expectedSurfaces.put(meshName, surface);
+                    expectedTransforms.put(meshName, AbstractPlanExporter.createExportTransform(obj.getPlacement()).to());
+                    if (!obj.getModel().isShared() || sharedSurfaces.add(obj.getModel().getKey())) {
+                        expectedNumTexCoords += surface.getMesh().getTexCoords().length / 2;
+                    }
+                }
+            }
+
+            ObjDataRaw objData = ObjReader.readObjRaw(new PlainFileSystemResourceLocator(objFile));
+            assertEquals(expectedSurfaces.size(), objData.getMeshes().size(), "Number of meshes");
+            for (MeshData mesh : objData.getMeshes()) {
+                String meshName = mesh.getName();
+                ExportSurface expectedSurface = expectedSurfaces.get(meshName);
+                assertTrue(expectedSurface != null, "Unexpected mesh " + meshName);
+                IndexedMeshData expectedMesh = expectedSurface.getMesh();
+                assertEquals(ObjPlanExporter.sanitizeName(expectedSurface.getMaterialName()), objData.getMeshNamesToMaterialNames().get(meshName), meshName + ": Material");
+
+                float[] expectedPoints = AbstractPlanExporter.transformPoints(expectedMesh.getPoints(), expectedTransforms.get(meshName));
+                float[] expectedTexCoords = expectedMesh.getTexCoords();
+                int[] expectedFaces = expectedMesh.getFaces();
+                List<Integer> faces = mesh.getFaces();
+                assertEquals(expectedFaces.length, faces.size(), meshName + ": Faces");
+                for (int i = 0; i < expectedFaces.length; i += 2) {
+                    int expectedPointIndex = expectedFaces[i];
+                    int pointIndex = faces.get(i);
+                    for (int c = 0; c < 3; c++) {
+                        assertEquals(expectedPoints[expectedPointIndex * 3 + c], mesh.getVertices().get(pointIndex * 3 + c), 1e-5, meshName + ": Vertex coordinate");
+                    }
+                    int expectedTexCoordIndex = expectedFaces[i + 1];
+                    int texCoordIndex = faces.get(i + 1);
+                    for (int c = 0; c < 2; c++) {
+                        assertEquals(expectedTexCoords[expectedTexCoordIndex * 2 + c], mesh.getTexCoords().get(texCoordIndex * 2 + c), 1e-5, meshName + ": Texture coordinate");
+                    }
+                }
+            }
+
+            // Texture coordinates of shared models are only written once
+            long numTexCoordLines;
+            try (Stream<String> lines = Files.lines(objFile)) {
+                numTexCoordLines = lines.filter(line -> line.startsWith("vt ")).count();
+            }
+            assertEquals(expectedNumTexCoords, numTexCoordLines, "Number of texture coordinates");
+
+            // Texture file is copied and referenced by the material library
+            assertEquals(new TreeSet<>(Set.of("default", "white", WALLPAPER_REF.toPathString())),
+                new TreeSet<>(objData.getMeshNamesToMaterialNames().values()), "Used materials");
+            Map<String, RawMaterialData> materials = MtlLibraryIO.readMaterialSet(new PlainFileSystemResourceLocator(exporter.getMaterialLibraryFile()));
+            RawMaterialData wallpaper = materials.get(WALLPAPER_REF.toPathString());
+            String textureLine = wallpaper.getLines().stream().filter(line -> line.startsWith("map_Kd ")).findFirst().get();
+            Path copiedTexture = exportDirectory.resolve(textureLine.substring("map_Kd ".length()));
+            assertArrayEquals(TEXTURE_BYTES, Files.readAllBytes(copiedTexture), "Texture file content");
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    @DisplayName("Binary glTF export contains a valid container and instances shared models")
+    public void testGlbStructure() throws IOException {
+        Path directory = Files.createTempDirectory("PlanExportTest");
+        try {
+            Path materialDirectory = Files.createDirectories(directory.resolve("material"));
+            Path exportDirectory = Files.createDirectories(directory.resolve("export"));
+            int numSupportObjects = 2000;
+            Plan plan = createPlan(numSupportObjects);
+            Path glbFile = exportDirectory.resolve("plan.glb");
+            int[] lastProgress = new int[2];
+            PlanExportSource source = new PlanExportSource(plan, new PlanGeometry(), new TestAssetResolver(materialDirectory));
+            new GlbPlanExporter(glbFile).export(source, (numExportedObjects, numObjects) -> {
+                lastProgress[0] = numExportedObjects;
+                lastProgress[1] = numObjects;
+            });
+            assertEquals(source.getNumObjects(), lastProgress[0], "Progress");
+            assertEquals(source.getNumObjects(), lastProgress[1], "Progress total");
+
+            // Temporary buffer file was removed
+            assertEquals(List.of(glbFile), listFiles(exportDirectory));
+
+            ByteBuffer glb = ByteBuffer.wrap(Files.readAllBytes(glbFile)).order(ByteOrder.LITTLE_ENDIAN);
+            assertEquals(0x46546C67, glb.getInt(), "Magic");
+            assertEquals(2, glb.getInt(), "Version");
+            assertEquals(glb.capacity(), glb.getInt(), "Length");
+            int jsonLength = glb.getInt();
+            assertEquals(0x4E4F534A, glb.getInt(), "JSON chunk type");
+            assertEquals(0, jsonLength % 4, "JSON chunk alignment");
+            byte[] jsonBytes = new byte[jsonLength];
+            glb.get(jsonBytes);
+            String json = new String(jsonBytes, StandardCharsets.UTF_8).trim();
+            int binLength = glb.getInt();
+            assertEquals(0x004E4942, glb.getInt(), "BIN chunk type");
+            assertEquals(glb.remaining(), binLength, "BIN chunk length");
+            assertTrue(json.contains("\"buffers\":[{\"byteLength\":" + binLength + "}]"), "Buffer length");
+
+            // One mesh per plan object with geometry plus one mesh per support object descriptor,
+            // one node per exported object
+            int numPlanObjects = PlanGeometry.getGeometryObjects(plan).size();
+            assertEquals(numPlanObjects + 2, count(json, "\"primitives\":"), "Number of meshes");
+            assertEquals(numPlanObjects + numSupportObjects, count(json, "\"mesh\":"), "Number of nodes");
+            assertEquals(numSupportObjects, count(json, "\"matrix\":"), "Number of instances");
+
+            // Texture image is embedded once, byte by byte
+            assertEquals(1, count(json, "\"mimeType\":\"image/png\""), "Number of images");
+            byte[] bin = new byte[binLength];
+            glb.get(bin);
+            assertTrue(indexOf(bin, TEXTURE_BYTES) >= 0, "Embedded texture");
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    @DisplayName("Canceled glTF export throws CancellationException and removes temporary files")
+    public void testCancel() throws IOException {
+        Path directory = Files.createTempDirectory("PlanExportTest");
+        try {
+            Plan plan = createPlan(20);
+            Path glbFile = directory.resolve("plan.glb");
+            Files.writeString(glbFile, "Former export");
+            PlanExportSource source = new PlanExportSource(plan, new PlanGeometry(), IExportAssetResolver.NONE);
+            int[] numExported = new int[1];
+            IExportProgressMonitor monitor = new IExportProgressMonitor() {
+                @Override
+                public void exportProgress(int numExportedObjects, int numObjects) {
+                    numExported[0] = numExportedObjects;
+                }
+
+                @Override
+                public boolean isCanceled() {
+                    return numExported[0] == 5;
+                }
+            };
+            assertThrows(CancellationException.class, () -> new GlbPlanExporter(glbFile).export(source, monitor));
+            assertEquals(5, numExported[0], "Exported objects before cancel");
+            assertEquals("Former export", Files.readString(glbFile), "Canceled export must not touch the target file");
+            assertEquals(List.of(glbFile), listFiles(directory));
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    /**
+     * Progress monitor which cancels the export after the given number of objects.
+     */
+    protected static IExportProgressMonitor cancelAfter(int numObjects) {
+        return new IExportProgressMonitor() {
+            protected int mNumExported = 0;
+
+            @Override
+            public void exportProgress(int numExportedObjects, int numObjects) {
+                mNumExported = numExportedObjects;
+            }
+
+            @Override
+            public boolean isCanceled() {
+                return mNumExported == numObjects;
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("Canceled OBJ export leaves an existing export untouched and removes temporary files")
+    public void testObjCancel() throws IOException {
+        Path directory = Files.createTempDirectory("PlanExportTest");
+        try {
+            Path materialDirectory = Files.createDirectories(directory.resolve("material"));
+            Path exportDirectory = Files.createDirectories(directory.resolve("export"));
+            Plan plan = createPlan(20);
+            Path objFile = exportDirectory.resolve("plan.obj");
+            Files.writeString(objFile, "Former export");
+            PlanExportSource source = new PlanExportSource(plan, new PlanGeometry(), new TestAssetResolver(materialDirectory));
+
+            assertThrows(CancellationException.class, () -> new ObjPlanExporter(objFile).export(source, cancelAfter(5)));
+            assertEquals("Former export", Files.readString(objFile));
+            assertEquals(List.of(objFile), listFiles(exportDirectory));
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    @DisplayName("Failed OBJ export leaves an existing export untouched and removes the material library and textures")
+    public void testObjFailure() throws IOException {
+        Path directory = Files.createTempDirectory("PlanExportTest");
+        try {
+            Path materialDirectory = Files.createDirectories(directory.resolve("material"));
+            Path exportDirectory = Files.createDirectories(directory.resolve("export"));
+            Plan plan = createPlan(6);
+            Path objFile = exportDirectory.resolve("plan.obj");
+            Files.writeString(objFile, "Former export");
+            ObjPlanExporter exporter = new ObjPlanExporter(objFile);
+            // A non-empty directory in place of the material library makes the export fail after the textures were copied
+            Path blockedMaterialLibrary = Files.createDirectories(exporter.getMaterialLibraryFile());
+            Files.writeString(blockedMaterialLibrary.resolve("content.txt"), "Content");
+            PlanExportSource source = new PlanExportSource(plan, new PlanGeometry(), new TestAssetResolver(materialDirectory));
+
+            assertThrows(IOException.class, () -> exporter.export(source, IExportProgressMonitor.NONE));
+            assertEquals("Former export", Files.readString(objFile));
+            assertFalse(Files.exists(exporter.getTexturesDirectory()), "Textures directory of failed export");
+            assertEquals(new TreeSet<>(List.of(objFile, blockedMaterialLibrary)), new TreeSet<>(listFiles(exportDirectory)));
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    @DisplayName("Tiled materials are mapped to texture coordinates")
+    public void testMapTexCoords() {
+        float[] texCoords = {0, 0, 1, 0, 1, 1, 0.5f, 0.5f};
+        de.dh.utils.Vector2D surfaceSize = new de.dh.utils.Vector2D(200, 100);
+
+        // Stretched materials are not mapped
+        assertTrue(texCoords == PlanExportSource.mapTexCoords(texCoords, surfaceSize, MaterialMappingConfiguration.stretch(WALLPAPER_REF), Optional.empty()));
+
+        MaterialMappingConfiguration tile = MaterialMappingConfiguration.tile(WALLPAPER_REF,
+            new Vector2D(Length.ofCM(50), Length.ZERO), new Dimensions2D(Length.ofCM(50), Length.ofCM(25)));
+        assertArrayEquals(new float[] {-1, 0, 3, 0, 3, 4, 1, 2}, PlanExportSource.mapTexCoords(texCoords, surfaceSize, tile, Optional.empty()), "Tiled");
+
+        // Rotation by 90 degrees around the surface center
+        MaterialMappingConfiguration rotated = MaterialMappingConfiguration.tile(WALLPAPER_REF, null, new Dimensions2D(Length.ofCM(100), Length.ofCM(100)));
+        rotated.setMaterialRotationDeg(90.0);
+        float[] mapped = PlanExportSource.mapTexCoords(texCoords, surfaceSize, rotated, Optional.empty());
+        assertEquals(0.5, mapped[0], 1e-5, "Rotated U");
+        assertEquals(1.5, mapped[1], 1e-5, "Rotated V");
+        assertEquals(1, mapped[6], 1e-5, "Rotated center U");
+        assertEquals(0.5, mapped[7], 1e-5, "Rotated center V");
+    }
+
+    protected static int count(String str, String part) {
+        int result = 0;
+        for (int i = str.indexOf(part); i >= 0; i = str.indexOf(part, i + part.length())) {
+            result++;
+        }
+        return result;
+    }
+
+    protected static int indexOf(byte[] data, byte[] part) {
+        for (int i = 0; i + part.length <= data.length; i++) {
+            int j = 0;
+            while (j < part.length && data[i + j] == part[j]) {
+                j++;
+            }
+            if (j == part.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -63,7 +63,7 @@ import de.dh.utils.fx.viewsfx.layout.SashLayoutDescriptor;
 import de.dh.utils.fx.viewsfx.layout.SashLayoutDescriptor.Orientation;
 import de.dh.utils.fx.viewsfx.layout.TabHostLayoutDescriptor;
 import de.dh.utils.fx.viewsfx.state.ViewsLayoutState;
-import de.dh.utils.io.MeshData;
+import de.dh.utils.io.IndexedMeshData;
 import de.dh.utils.io.fx.FxMeshBuilder;
 import eu.mihosoft.jcsg.CSG;
 import groovy.lang.Binding;
@@ -453,11 +453,11 @@ public class LibraryEditorMainWindow implements Initializable {
                 Collection<MeshView> meshViews = new ArrayList<>();
                 Collection<String> currentSurfaceTypeIds = new ArrayList<>();
 
-                Map<String, MeshData> meshes = CSGSurfaceAwareAddon.createMeshes(mCSGObject, Optional.empty());
-                for (Entry<String, MeshData> entry : meshes.entrySet()) {
+                Map<String, IndexedMeshData> meshes = CSGSurfaceAwareAddon.createIndexedMeshes(mCSGObject, Optional.empty());
+                for (Entry<String, IndexedMeshData> entry : meshes.entrySet()) {
                     String surfaceTypeId = entry.getKey();
 
-                    MeshData meshData = entry.getValue();
+                    IndexedMeshData meshData = entry.getValue();
 
                     Mesh mesh = FxMeshBuilder.buildMesh(meshData);
                     MeshView meshView = new MeshView(mesh);
@@ -14,7 +14,7 @@ import de.dh.cad.architect.model.assets.AssetRefPath;
 import de.dh.cad.architect.ui.assets.AssetLoader;
 import de.dh.cad.architect.ui.view.libraries.ImageLoadOptions;
 import de.dh.utils.MaterialMapping;
-import de.dh.utils.io.fx.MaterialData;
+import de.dh.utils.io.obj.MaterialData;
 import de.dh.utils.io.obj.RawMaterialData;
 import javafx.beans.value.ChangeListener;
 import javafx.geometry.Insets;
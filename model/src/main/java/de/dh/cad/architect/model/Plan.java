@@ -29,6 +29,7 @@ import de.dh.cad.architect.model.changes.IModelChange;
 import de.dh.cad.architect.model.changes.ObjectAdditionChange;
 import de.dh.cad.architect.model.changes.ObjectRemovalChange;
 import de.dh.cad.architect.model.objects.Anchor;
+import de.dh.cad.architect.model.objects.AnchorDockIndex;
 import de.dh.cad.architect.model.objects.BaseObject;
 import de.dh.cad.architect.model.objects.Ceiling;
 import de.dh.cad.architect.model.objects.Covering;
@@ -54,6 +55,8 @@ public class Plan implements IRootContainer, IAnchorContainer {
     protected Map<String, GuideLine> mGuideLines = new TreeMap<>();
     protected Map<String, ObjectsGroup> mGroups = new TreeMap<>();
 
+    protected final AnchorDockIndex mAnchorDockIndex = new AnchorDockIndex();
+
     public Plan() {
         // For JAXB
     }
@@ -71,6 +74,7 @@ public class Plan implements IRootContainer, IAnchorContainer {
         forEach(bo -> {
             bo.setOwnerContainer_Internal(Plan.this);
         });
+        mAnchorDockIndex.rebuild(mAnchors.values());
     }
 
     public void forEachMap(Consumer<Map<String, ? extends BaseObject>> c) {
@@ -217,6 +221,11 @@ public class Plan implements IRootContainer, IAnchorContainer {
         return result;
     }
 
+    @Override
+    public AnchorDockIndex getAnchorDockIndex() {
+        return mAnchorDockIndex;
+    }
+
     @Override
     public void addAnchor_Internal(Anchor anchor, List<IModelChange> changeTrace) {
         mAnchors.put(anchor.getId(), anchor);
@@ -231,6 +240,7 @@ public class Plan implements IRootContainer, IAnchorContainer {
     @Override
     public void removeAnchor_Internal(Anchor anchor, List<IModelChange> changeTrace) {
         mAnchors.remove(anchor.getId());
+        mAnchorDockIndex.invalidate(anchor);
         changeTrace.add(new ObjectRemovalChange(anchor) {
             @Override
             public void undo(List<IModelChange> undoChangeTrace) {
@@ -277,8 +287,9 @@ public class Plan implements IRootContainer, IAnchorContainer {
     @Override
     public void removeOwnedChild_Internal(BaseObject object, List<IModelChange> changeTrace) {
         String id = object.getId();
-        if (object instanceof Anchor) {
+        if (object instanceof Anchor anchor) {
             mAnchors.remove(id);
+            mAnchorDockIndex.invalidate(anchor);
         } else if (object instanceof Dimensioning) {
             mDimensionings.remove(id);
         } else if (object instanceof Floor) {
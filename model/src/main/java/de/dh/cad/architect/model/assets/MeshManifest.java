@@ -0,0 +1,207 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.model.assets;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+
+import de.dh.utils.io.MeshData;
+import de.dh.utils.io.obj.ObjReader.ObjDataRaw;
+
+/**
+ * Small summary of the 3D model of a support object, stored in the {@link SupportObjectDescriptor}.
+ * The manifest contains all information which is needed to create a support object in a plan, so the (possibly big)
+ * 3D model doesn't need to be loaded until a 3D view shows the object.
+ * The manifest is computed when the 3D model is imported; descriptors of older libraries don't contain a manifest, in that case,
+ * it is computed on demand and saved together with the descriptor.
+ */
+public class MeshManifest {
+    /**
+     * Entry for a single mesh of the 3D model.
+     */
+    public static class MeshEntry {
+        protected String mMeshName;
+        protected String mDefaultMaterialName;
+
+        public MeshEntry() {
+            // For JAXB
+        }
+
+        public MeshEntry(String meshName, String defaultMaterialName) {
+            mMeshName = meshName;
+            mDefaultMaterialName = defaultMaterialName;
+        }
+
+        /**
+         * Gets the name of the mesh, which is also the id of the corresponding surface in the support object.
+         */
+        @XmlAttribute(name = "name")
+        public String getMeshName() {
+            return mMeshName;
+        }
+
+        public void setMeshName(String value) {
+            mMeshName = value;
+        }
+
+        /**
+         * Gets the name of the material which is assigned to the mesh in the 3D model file, or {@code null}.
+         */
+        @XmlAttribute(name = "defaultMaterial")
+        public String getDefaultMaterialName() {
+            return mDefaultMaterialName;
+        }
+
+        public void setDefaultMaterialName(String value) {
+            mDefaultMaterialName = value;
+        }
+    }
+
+    protected List<MeshEntry> mMeshes = new ArrayList<>();
+
+    // Bounding box of the 3D model in the coordinates of the model file, without model rotation
+    protected double mMinX;
+    protected double mMinY;
+    protected double mMinZ;
+    protected double mMaxX;
+    protected double mMaxY;
+    protected double mMaxZ;
+
+    public MeshManifest() {
+        // For JAXB
+    }
+
+    /**
+     * Creates the manifest of the given parsed OBJ model.
+     */
+    public static MeshManifest create(ObjDataRaw objData) {
+        MeshManifest result = new MeshManifest();
+        Map<String, String> meshNamesToMaterialNames = objData.getMeshNamesToMaterialNames();
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (MeshData meshData : objData.getMeshes()) {
+            String meshName = meshData.getName();
+            result.getMeshes().add(new MeshEntry(meshName, meshNamesToMaterialNames.get(meshName)));
+            List<Float> vertices = meshData.getVertices();
+            for (int i = 0; i + 2 < vertices.size(); i += 3) {
+                float x = vertices.get(i);
+                float y = vertices.get(i + 1);
+                float z = vertices.get(i + 2);
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                minZ = Math.min(minZ, z);
+                maxX = Math.max(maxX, x);
+                maxY = Math.max(maxY, y);
+                maxZ = Math.max(maxZ, z);
+            }
+        }
+        if (minX <= maxX) {
+            result.setBounds(minX, minY, minZ, maxX, maxY, maxZ);
+        }
+        return result;
+    }
+
+    @XmlElement(name = "Mesh")
+    public List<MeshEntry> getMeshes() {
+        return mMeshes;
+    }
+
+    public void setMeshes(List<MeshEntry> value) {
+        mMeshes = value;
+    }
+
+    /**
+     * Returns the names of all meshes of the 3D model.
+     */
+    public Set<String> getMeshNames() {
+        Set<String> result = new TreeSet<>();
+        for (MeshEntry entry : mMeshes) {
+            result.add(entry.getMeshName());
+        }
+        return result;
+    }
+
+    @XmlElement(name = "MinX")
+    public double getMinX() {
+        return mMinX;
+    }
+
+    public void setMinX(double value) {
+        mMinX = value;
+    }
+
+    @XmlElement(name = "MinY")
+    public double getMinY() {
+        return mMinY;
+    }
+
+    public void setMinY(double value) {
+        mMinY = value;
+    }
+
+    @XmlElement(name = "MinZ")
+    public double getMinZ() {
+        return mMinZ;
+    }
+
+    public void setMinZ(double value) {
+        mMinZ = value;
+    }
+
+    @XmlElement(name = "MaxX")
+    public double getMaxX() {
+        return mMaxX;
+    }
+
+    public void setMaxX(double value) {
+        mMaxX = value;
+    }
+
+    @XmlElement(name = "MaxY")
+    public double getMaxY() {
+        return mMaxY;
+    }
+
+    public void setMaxY(double value) {
+        mMaxY = value;
+    }
+
+    @XmlElement(name = "MaxZ")
+    public double getMaxZ() {
+        return mMaxZ;
+    }
+
+    public void setMaxZ(double value) {
+        mMaxZ = value;
+    }
+
+    public void setBounds(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        mMinX = minX;
+        mMinY = minY;
+        mMinZ = minZ;
+        mMaxX = maxX;
+        mMaxY = maxY;
+        mMaxZ = maxZ;
+    }
+}
@@ -41,6 +41,7 @@ public class SupportObjectDescriptor extends AbstractAssetDescriptor {
     protected String mPlanViewImageResourceName;
 
     protected Map<String, MeshConfiguration> mMeshNamesToMeshConfigurations = new TreeMap<>();
+    protected MeshManifest mMeshManifest = null;
 
     public SupportObjectDescriptor() {
         // For JAXB
@@ -131,6 +132,19 @@ public class SupportObjectDescriptor extends AbstractAssetDescriptor {
         mMeshNamesToMeshConfigurations = value;
     }
 
+    /**
+     * Gets the summary of the meshes of the 3D model of this support object or {@code null} if the manifest was not
+     * computed yet. The manifest must be updated when the 3D model is changed.
+     */
+    @XmlElement(name = "MeshManifest")
+    public MeshManifest getMeshManifest() {
+        return mMeshManifest;
+    }
+
+    public void setMeshManifest(MeshManifest value) {
+        mMeshManifest = value;
+    }
+
     @Override
     public String toString() {
         return "SupportObjectDescriptor <" + mSelfRef + ">";
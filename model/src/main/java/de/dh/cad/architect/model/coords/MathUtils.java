@@ -54,27 +54,36 @@ public class MathUtils {
      * Finds the intersection point of two lines in 2D.
      */
     public static Optional<Position2D> calculateLinesIntersectionPoint(Position2D l1p1, Position2D l1p2, Position2D l2p1, Position2D l2p2) {
-        double l1p1x = l1p1.getX().inMM();
-        double l1p1y = l1p1.getY().inMM();
-        double l1p2x = l1p2.getX().inMM();
-        double l1p2y = l1p2.getY().inMM();
-        double l2p1x = l2p1.getX().inMM();
-        double l2p1y = l2p1.getY().inMM();
-        double l2p2x = l2p2.getX().inMM();
-        double l2p2y = l2p2.getY().inMM();
+        double[] res = new double[2];
+        if (!calculateLinesIntersectionPoint(
+                l1p1.getX().inMM(), l1p1.getY().inMM(), l1p2.getX().inMM(), l1p2.getY().inMM(),
+                l2p1.getX().inMM(), l2p1.getY().inMM(), l2p2.getX().inMM(), l2p2.getY().inMM(), res, 0)) {
+            return Optional.empty();
+        }
+        return Optional.of(new Position2D(Length.ofMM(res[0]), Length.ofMM(res[1])));
+    }
+
+    /**
+     * Finds the intersection point of two lines in 2D, given by two points each in millimeters, without allocating objects.
+     * The coordinates of the intersection point are written to {@code target} at index {@code offset} (X) and {@code offset + 1} (Y).
+     * @return {@code true} if the lines intersect, {@code false} if they are parallel. In the latter case, the content
+     * of {@code target} is undefined.
+     */
+    public static boolean calculateLinesIntersectionPoint(
+        double l1p1x, double l1p1y, double l1p2x, double l1p2y,
+        double l2p1x, double l2p1y, double l2p2x, double l2p2y,
+        double[] target, int offset) {
         double v1x = l1p2x - l1p1x;
         double v1y = l1p2y - l1p1y;
         double v2x = l2p2x - l2p1x;
         double v2y = l2p2y - l2p1y;
-        Position2D res = new Position2D(
-            Length.ofMM(
-                (v2x * (l1p2x*l1p1y - l1p1x*l1p2y) - v1x * (l2p2x*l2p1y - l2p1x*l2p2y)) /
-                (v2y * v1x - v1y * v2x)),
-
-            Length.ofMM(
-                (-v1y * (l2p2x*l2p1y - l2p1x*l2p2y) + v2y * (l1p2x*l1p1y - l1p1x*l1p2y)) /
-                (v2y * v1x - v1y * v2x)));
-        return res.getX().isValid() && res.getY().isValid() ? Optional.of(res) : Optional.empty();
+        double x = (v2x * (l1p2x*l1p1y - l1p1x*l1p2y) - v1x * (l2p2x*l2p1y - l2p1x*l2p2y)) /
+                (v2y * v1x - v1y * v2x);
+        double y = (-v1y * (l2p2x*l2p1y - l2p1x*l2p2y) + v2y * (l1p2x*l1p1y - l1p1x*l1p2y)) /
+                (v2y * v1x - v1y * v2x);
+        target[offset] = x;
+        target[offset + 1] = y;
+        return Double.isFinite(x) && Double.isFinite(y);
     }
 
     /**
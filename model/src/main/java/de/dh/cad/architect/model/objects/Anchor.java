@@ -20,9 +20,9 @@ package de.dh.cad.architect.model.objects;
 import java.security.InvalidParameterException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlIDREF;
@@ -85,7 +85,42 @@ public class Anchor extends BaseObject implements IDeserializationHandler {
 
     @Override
     public void afterDeserialize(Object parent) {
-        mDockMaster.ifPresent(dockMaster -> dockMaster.getDockSlaves().add(Anchor.this));
+        mDockMaster.ifPresent(dockMaster -> {
+            dockMaster.getDockSlaves().add(Anchor.this);
+            invalidateDockCluster(dockMaster);
+        });
+    }
+
+    /**
+     * Gets the dock cluster index of the plan this anchor belongs to or {@code null} if this anchor is not (yet) connected
+     * to a plan, e.g. during creation or deserialization.
+     */
+    protected AnchorDockIndex getAnchorDockIndex() {
+        if (mAnchorOwner == null) {
+            return null;
+        }
+        IObjectsContainer ownerContainer = mAnchorOwner.getOwnerContainer();
+        if (ownerContainer == null) {
+            return null;
+        }
+        IAnchorContainer anchorContainer = ownerContainer.getAnchorContainer();
+        return anchorContainer == null ? null : anchorContainer.getAnchorDockIndex();
+    }
+
+    protected static void invalidateDockCluster(Anchor anchor) {
+        AnchorDockIndex index = anchor.getAnchorDockIndex();
+        if (index != null) {
+            index.invalidate(anchor);
+        }
+    }
+
+    /**
+     * Gets the cluster of all anchors which are docked with this anchor, also containing this anchor.
+     */
+    @XmlTransient
+    public DockCluster getDockCluster() {
+        AnchorDockIndex index = getAnchorDockIndex();
+        return index == null ? DockCluster.compute(this) : index.getCluster(this);
     }
 
     public void setDockMaster(Anchor newDockMaster, Optional<Integer> oNewDockSlaveIndex, List<IModelChange> changeTrace) {
@@ -108,6 +143,8 @@ public class Anchor extends BaseObject implements IDeserializationHandler {
                 .objectsModified(oldDockMaster.getAllDockOwners()));
             oldMasterSlaves.remove(this);
             mDockMaster = Optional.empty();
+            invalidateDockCluster(this);
+            invalidateDockCluster(oldDockMaster);
         });
         if (newDockMaster != null) {
             mDockMaster = Optional.of(newDockMaster);
@@ -123,6 +160,8 @@ public class Anchor extends BaseObject implements IDeserializationHandler {
             } else {
                 newDockMasterSlaves.add(this);
             }
+            invalidateDockCluster(this);
+            invalidateDockCluster(newDockMaster);
             changeTrace.add(
                 new ObjectChange() {
                     @Override
@@ -186,7 +225,9 @@ public class Anchor extends BaseObject implements IDeserializationHandler {
 
     // Called by the owner after deserialization
     protected void setAnchorOwner_Internal(BaseAnchoredObject value) {
+        invalidateDockCluster(this);
         mAnchorOwner = value;
+        invalidateDockCluster(this);
     }
 
     /**
@@ -278,22 +319,19 @@ public class Anchor extends BaseObject implements IDeserializationHandler {
     /**
      * Convenience method to get all anchors which are docked with this anchor, also containing this anchor.
      * The order of the returned collection is the same no matter on which of the docked anchors this method is called.
+     * The returned list is an unmodifiable view which is shared by all docked anchors.
      */
     @XmlTransient
     public List<Anchor> getAllDockedAnchors() {
-        // We always start at the dock master, going through its slaves
-        if (mDockMaster.isPresent()) {
-            return mDockMaster.get().getAllDockedAnchors();
-        }
-        // We're the master
-        return getAllDockedAnchorsDownStream();
+        return getDockCluster().getMembers();
     }
 
+    /**
+     * Gets the owners of all anchors which are docked with this anchor in the order of {@link #getAllDockedAnchors()}.
+     * The returned list is an unmodifiable view which is shared by all docked anchors.
+     */
     public List<BaseAnchoredObject> getAllDockOwners() {
-        return getAllDockedAnchors()
-                        .stream()
-                        .map(anchor -> anchor.getAnchorOwner())
-                        .collect(Collectors.toList());
+        return getDockCluster().getOwners();
     }
 
     /**
@@ -305,23 +343,22 @@ public class Anchor extends BaseObject implements IDeserializationHandler {
      */
     @XmlTransient
     public Anchor getRootMasterOfAnchorDock() {
-        if (mDockMaster.isPresent()) {
-            return mDockMaster.get().getRootMasterOfAnchorDock();
+        if (mDockMaster.isEmpty()) {
+            return this;
         }
-        return this;
+        return getDockCluster().getRootMaster();
     }
 
     /**
-     * Gets all direct and indirect docked slave anchors.
+     * Gets this anchor and all its direct and indirect docked slave anchors.
+     * The returned list is an unmodifiable view.
      */
     @XmlTransient
     public List<Anchor> getAllDockedAnchorsDownStream() {
-        List<Anchor> result = new ArrayList<>();
-        result.add(this);
-        for (Anchor dockSlave : mDockSlaves) {
-            result.addAll(dockSlave.getAllDockedAnchorsDownStream());
+        if (mDockSlaves.isEmpty()) {
+            return Collections.singletonList(this);
         }
-        return result;
+        return getDockCluster().getDownStream(this);
     }
 
     @XmlElement(name = "DockMaster")
@@ -331,6 +368,7 @@ public class Anchor extends BaseObject implements IDeserializationHandler {
     }
 
     public void setDockMaster_JAXB(Anchor value) {
+        invalidateDockCluster(this);
         mDockMaster = Optional.ofNullable(value);
     }
 
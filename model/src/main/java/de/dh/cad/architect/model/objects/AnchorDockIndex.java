@@ -0,0 +1,86 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.model.objects;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Plan level index which maps anchors to their {@link DockCluster dock cluster}.
+ * Clusters are computed lazily on first request and then shared by all member anchors until the dock hierarchy of one of
+ * the members changes. {@link Anchor} invalidates the affected clusters on each dock and undock operation, also when those
+ * operations are executed as undo of a former change, so the index never returns a cluster which doesn't match the
+ * current dock hierarchy.
+ *
+ * Lookups may be executed concurrently, e.g. by parallel object reconcile runs. Changes of the dock hierarchy must not
+ * be done concurrently to lookups.
+ */
+public class AnchorDockIndex {
+    protected final Map<Anchor, DockCluster> mClusters = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the dock cluster which contains the given anchor.
+     */
+    public DockCluster getCluster(Anchor anchor) {
+        DockCluster result = mClusters.get(anchor);
+        if (result != null) {
+            return result;
+        }
+        result = DockCluster.compute(anchor);
+        for (Anchor member : result.getMembers()) {
+            mClusters.put(member, result);
+        }
+        return result;
+    }
+
+    /**
+     * Removes the cached cluster of the given anchor, if present, for all anchors of that cluster.
+     * Must be called after each change of the dock hierarchy for all anchors which were involved.
+     */
+    public void invalidate(Anchor anchor) {
+        DockCluster cluster = mClusters.remove(anchor);
+        if (cluster == null) {
+            return;
+        }
+        for (Anchor member : cluster.getMembers()) {
+            mClusters.remove(member);
+        }
+    }
+
+    public void clear() {
+        mClusters.clear();
+    }
+
+    /**
+     * Drops all cached clusters and computes the clusters of the given anchors.
+     */
+    public void rebuild(Collection<Anchor> anchors) {
+        mClusters.clear();
+        for (Anchor anchor : anchors) {
+            getCluster(anchor);
+        }
+    }
+
+    /**
+     * Returns the number of anchors whose cluster is currently cached.
+     */
+    public int getNumIndexedAnchors() {
+        return mClusters.size();
+    }
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.model.objects;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable snapshot of all anchors which are docked together, i.e. the complete dock hierarchy below a root master anchor.
+ * The members are held in the same depth-first pre-order which was formerly produced by walking the dock hierarchy recursively,
+ * starting at the root master, so the order is the same no matter from which anchor of the dock the cluster was requested.
+ * Instances are shared by all member anchors and handed out by {@link AnchorDockIndex}; the returned lists must not be modified.
+ */
+public class DockCluster {
+    protected final Anchor mRootMaster;
+    protected final Anchor[] mMembers;
+    protected final int[] mSubtreeEnds; // Exclusive end index of the dock subtree of the member at the same index
+    protected final List<Anchor> mMembersView;
+    protected final List<BaseAnchoredObject> mOwnersView;
+
+    protected DockCluster(Anchor rootMaster, Anchor[] members, int[] subtreeEnds) {
+        mRootMaster = rootMaster;
+        mMembers = members;
+        mSubtreeEnds = subtreeEnds;
+        mMembersView = Collections.unmodifiableList(Arrays.asList(members));
+        List<BaseAnchoredObject> owners = new ArrayList<>(members.length);
+        for (Anchor member : members) {
+            owners.add(member.getAnchorOwner());
+        }
+        mOwnersView = Collections.unmodifiableList(owners);
+    }
+
+    /**
+     * Walks the current dock hierarchy of the given anchor and creates a new cluster for it.
+     */
+    public static DockCluster compute(Anchor anchor) {
+        Anchor rootMaster = anchor;
+        while (rootMaster.getDockMaster().isPresent()) {
+            rootMaster = rootMaster.getDockMaster().get();
+        }
+        List<Anchor> members = new ArrayList<>();
+        List<Integer> subtreeEnds = new ArrayList<>();
+        collectDownStream(rootMaster, members, subtreeEnds);
+        int[] ends = new int[subtreeEnds.size()];
+        for (int i = 0; i < ends.length; i++) {
+            ends[i] = subtreeEnds.get(i);
+        }
+        return new DockCluster(rootMaster, members.toArray(new Anchor[members.size()]), ends);
+    }
+
+    protected static void collectDownStream(Anchor anchor, List<Anchor> members, List<Integer> subtreeEnds) {
+        int index = members.size();
+        members.add(anchor);
+        subtreeEnds.add(-1);
+        for (Anchor dockSlave : anchor.getDockSlaves()) {
+            collectDownStream(dockSlave, members, subtreeEnds);
+        }
+        subtreeEnds.set(index, members.size());
+    }
+
+    /**
+     * Gets the root of the dock hierarchy.
+     */
+    public Anchor getRootMaster() {
+        return mRootMaster;
+    }
+
+    /**
+     * Gets all anchors of this dock, starting with the root master.
+     */
+    public List<Anchor> getMembers() {
+        return mMembersView;
+    }
+
+    /**
+     * Gets the owners of all anchors of this dock in the order of {@link #getMembers()}. An owner is contained multiple times
+     * if more than one of its anchors are part of this dock.
+     */
+    public List<BaseAnchoredObject> getOwners() {
+        return mOwnersView;
+    }
+
+    public int size() {
+        return mMembers.length;
+    }
+
+    /**
+     * Gets the index of the given anchor in {@link #getMembers()} or {@code -1} if it is not part of this cluster.
+     */
+    public int indexOf(Anchor anchor) {
+        for (int i = 0; i < mMembers.length; i++) {
+            if (mMembers[i] == anchor) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(Anchor anchor) {
+        return indexOf(anchor) != -1;
+    }
+
+    /**
+     * Gets the given member anchor and all its direct and indirect dock slaves.
+     */
+    public List<Anchor> getDownStream(Anchor anchor) {
+        int index = indexOf(anchor);
+        if (index == -1) {
+            throw new IllegalArgumentException("Anchor <" + anchor + "> is not part of dock cluster of root master <" + mRootMaster + ">");
+        }
+        return mMembersView.subList(index, mSubtreeEnds[index]);
+    }
+
+    @Override
+    public String toString() {
+        return "DockCluster [RootMaster=<" + mRootMaster + ">, Size=" + mMembers.length + "]";
+    }
+}
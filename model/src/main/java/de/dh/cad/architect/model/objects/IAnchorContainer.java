@@ -27,4 +27,12 @@ import de.dh.cad.architect.model.changes.IModelChange;
 public interface IAnchorContainer {
     void addAnchor_Internal(Anchor anchor, List<IModelChange> changeTrace);
     void removeAnchor_Internal(Anchor anchor, List<IModelChange> changeTrace);
+
+    /**
+     * Gets the index of the dock clusters of the anchors in this container or {@code null}, if this container
+     * doesn't maintain such an index.
+     */
+    default AnchorDockIndex getAnchorDockIndex() {
+        return null;
+    }
 }
@@ -38,6 +38,7 @@ import de.dh.cad.architect.model.changes.ObjectChange;
 import de.dh.cad.architect.model.changes.ObjectModificationChange;
 import de.dh.cad.architect.model.coords.AnchorTarget;
 import de.dh.cad.architect.model.coords.Dimensions2D;
+import de.dh.cad.architect.model.coords.IPosition;
 import de.dh.cad.architect.model.coords.Length;
 import de.dh.cad.architect.model.coords.Position2D;
 import de.dh.cad.architect.model.coords.Position3D;
@@ -51,6 +52,7 @@ import de.dh.cad.architect.model.wallmodel.WallAnchorPositions;
 import de.dh.cad.architect.model.wallmodel.WallBevelType;
 import de.dh.cad.architect.model.wallmodel.WallDockEnd;
 import de.dh.cad.architect.model.wallmodel.WallEndView;
+import de.dh.cad.architect.model.wallmodel.WallGeometryKernel;
 import de.dh.cad.architect.model.wallmodel.WallSurface;
 import de.dh.cad.architect.utils.IdGenerator;
 
@@ -224,15 +226,26 @@ public class Wall extends BaseSolidObject implements IObjectsContainer {
     }
 
     public Optional<WallAnchorPositions> extractWallAnchorPositions() {
-        return Optional.of(new WallAnchorPositions(
-            getAnchorWallHandleA().requirePosition2D(),
-            getAnchorWallHandleB().requirePosition2D(),
-            hasNeighborWallA(),
-            hasNeighborWallB(),
-            getAnchorWallCornerLA1().getPosition().projectionXY(), mA1BevelApex,
-            getAnchorWallCornerLA2().getPosition().projectionXY(), mA2BevelApex,
-            getAnchorWallCornerLB1().getPosition().projectionXY(), mB1BevelApex,
-            getAnchorWallCornerLB2().getPosition().projectionXY(), mB2BevelApex));
+        double[] coords = new double[WallGeometryKernel.NUM_ANCHOR_COORDS];
+        extractPosition(getAnchorWallHandleA().getPosition(), coords, WallGeometryKernel.HANDLE_A);
+        extractPosition(getAnchorWallHandleB().getPosition(), coords, WallGeometryKernel.HANDLE_B);
+        extractPosition(getAnchorWallCornerLA1().getPosition(), coords, WallGeometryKernel.CORNER_A1);
+        extractPosition(mA1BevelApex.orElse(null), coords, WallGeometryKernel.A1_BEVEL_APEX);
+        extractPosition(getAnchorWallCornerLA2().getPosition(), coords, WallGeometryKernel.CORNER_A2);
+        extractPosition(mA2BevelApex.orElse(null), coords, WallGeometryKernel.A2_BEVEL_APEX);
+        extractPosition(getAnchorWallCornerLB1().getPosition(), coords, WallGeometryKernel.CORNER_B1);
+        extractPosition(mB1BevelApex.orElse(null), coords, WallGeometryKernel.B1_BEVEL_APEX);
+        extractPosition(getAnchorWallCornerLB2().getPosition(), coords, WallGeometryKernel.CORNER_B2);
+        extractPosition(mB2BevelApex.orElse(null), coords, WallGeometryKernel.B2_BEVEL_APEX);
+        return Optional.of(new WallAnchorPositions(coords, hasNeighborWallA(), hasNeighborWallB()));
+    }
+
+    protected static void extractPosition(IPosition position, double[] coords, int slot) {
+        if (position == null) {
+            WallGeometryKernel.clear(coords, slot);
+        } else {
+            WallGeometryKernel.set(coords, slot, position.getX().inMM(), position.getY().inMM());
+        }
     }
 
     protected Collection<AnchorTarget> updateAnchors(List<IModelChange> changeTrace) {
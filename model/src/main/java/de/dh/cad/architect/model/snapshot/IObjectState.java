@@ -0,0 +1,408 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.model.snapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import de.dh.cad.architect.model.assets.AssetRefPath;
+import de.dh.cad.architect.model.coords.Dimensions2D;
+import de.dh.cad.architect.model.coords.IPosition;
+import de.dh.cad.architect.model.coords.Length;
+import de.dh.cad.architect.model.coords.Position2D;
+import de.dh.cad.architect.model.coords.Vector2D;
+import de.dh.cad.architect.model.objects.Anchor;
+import de.dh.cad.architect.model.objects.BaseAnchoredObject;
+import de.dh.cad.architect.model.objects.BaseObject;
+import de.dh.cad.architect.model.objects.BaseSolidObject;
+import de.dh.cad.architect.model.objects.Ceiling;
+import de.dh.cad.architect.model.objects.Covering;
+import de.dh.cad.architect.model.objects.Dimensioning;
+import de.dh.cad.architect.model.objects.Floor;
+import de.dh.cad.architect.model.objects.GuideLine;
+import de.dh.cad.architect.model.objects.GuideLine.GuideLineDirection;
+import de.dh.cad.architect.model.objects.MaterialMappingConfiguration;
+import de.dh.cad.architect.model.objects.MaterialMappingConfiguration.LayoutMode;
+import de.dh.cad.architect.model.objects.ObjectsGroup;
+import de.dh.cad.architect.model.objects.SupportObject;
+import de.dh.cad.architect.model.objects.SurfaceConfiguration;
+import de.dh.cad.architect.model.objects.Wall;
+import de.dh.cad.architect.model.objects.WallHole;
+import de.dh.cad.architect.model.wallmodel.WallBevelType;
+import de.dh.cad.architect.model.wallmodel.WallDockEnd;
+
+/**
+ * Immutable state of a single plan object, as contained in a {@link PlanSnapshot}.
+ * A state holds the same properties which are written to the plan file, references to other objects are held as
+ * object ids. Thus, the state of an object doesn't need to be captured again if a referenced object changes.
+ */
+public sealed interface IObjectState {
+    String id();
+    String name();
+    boolean hidden();
+
+    /**
+     * Creates a new, detached model object with the properties of this state. References to other objects are set
+     * in {@link #resolveReferences(BaseObject, Map)}.
+     */
+    BaseObject createObject();
+
+    /**
+     * Sets the references of the given object, which was created by {@link #createObject()}, to the other objects
+     * of the materialized plan.
+     */
+    default void resolveReferences(BaseObject object, Map<String, BaseObject> objectsById) {
+        // Nothing to resolve by default
+    }
+
+    record MaterialMappingState(AssetRefPath materialRef, LayoutMode layoutMode, Vector2D offset, Dimensions2D tileSize, Double materialRotationDeg) {
+        public static MaterialMappingState of(MaterialMappingConfiguration mmc) {
+            return mmc == null ? null : new MaterialMappingState(mmc.getMaterialRef(), mmc.getLayoutMode(), mmc.getOffset(), mmc.getTileSize(), mmc.getMaterialRotationDeg());
+        }
+
+        public MaterialMappingConfiguration createMaterialMappingConfiguration() {
+            MaterialMappingConfiguration result = new MaterialMappingConfiguration();
+            result.setMaterialRef(materialRef);
+            result.setLayoutMode(layoutMode);
+            result.setOffset(offset);
+            result.setTileSize(tileSize);
+            result.setMaterialRotationDeg(materialRotationDeg);
+            return result;
+        }
+    }
+
+    record SurfaceState(String surfaceTypeId, MaterialMappingState materialMapping) {
+        public static SurfaceState of(SurfaceConfiguration surfaceConfiguration) {
+            return new SurfaceState(surfaceConfiguration.getSurfaceTypeId(), MaterialMappingState.of(surfaceConfiguration.getMaterialMappingConfiguration()));
+        }
+
+        public SurfaceConfiguration createSurfaceConfiguration() {
+            SurfaceConfiguration result = new SurfaceConfiguration(surfaceTypeId);
+            if (materialMapping != null) {
+                result.setMaterialMappingConfiguration(materialMapping.createMaterialMappingConfiguration());
+            }
+            return result;
+        }
+    }
+
+    record AnchorState(String id, String name, boolean hidden, String ownerId, String anchorType, IPosition position,
+            String dockMasterId, List<String> dockSlaveIds) implements IObjectState {
+        public static AnchorState of(Anchor anchor) {
+            return new AnchorState(anchor.getId(), anchor.getName(), anchor.isHidden(),
+                anchor.getAnchorOwner() == null ? null : anchor.getAnchorOwner().getId(),
+                anchor.getAnchorType(), anchor.getPosition(),
+                anchor.getDockMaster().map(BaseObject::getId).orElse(null), ids(anchor.getDockSlaves()));
+        }
+
+        @Override
+        public BaseObject createObject() {
+            Anchor result = new Anchor();
+            restoreBaseProperties(this, result);
+            result.setAnchorType_JAXB(anchorType);
+            result.setPosition_JAXB(position);
+            return result;
+        }
+
+        @Override
+        public void resolveReferences(BaseObject object, Map<String, BaseObject> objectsById) {
+            Anchor anchor = (Anchor) object;
+            if (dockMasterId != null) {
+                anchor.setDockMaster_JAXB((Anchor) objectsById.get(dockMasterId));
+            }
+            for (String dockSlaveId : dockSlaveIds) {
+                anchor.getDockSlaves().add((Anchor) objectsById.get(dockSlaveId));
+            }
+        }
+    }
+
+    record WallState(String id, String name, boolean hidden, List<String> anchorIds, List<SurfaceState> surfaces,
+            Length thickness, Length heightA, Length heightB, WallBevelType wallBevelA, WallBevelType wallBevelB,
+            Optional<Position2D> a1BevelApex, Optional<Position2D> a2BevelApex, Optional<Position2D> b1BevelApex, Optional<Position2D> b2BevelApex,
+            List<String> wallHoleIds) implements IObjectState {
+        public static WallState of(Wall wall) {
+            return new WallState(wall.getId(), wall.getName(), wall.isHidden(), ids(wall.getAnchors()), surfaceStates(wall),
+                wall.getThickness_JAXB(), wall.getHeightA_JAXB(), wall.getHeightB_JAXB(), wall.getWallBevelA_JAXB(), wall.getWallBevelB_JAXB(),
+                wall.getA1BevelApex_JAXB(), wall.getA2BevelApex_JAXB(), wall.getB1BevelApex_JAXB(), wall.getB2BevelApex_JAXB(),
+                ids(wall.getWallHoles()));
+        }
+
+        @Override
+        public BaseObject createObject() {
+            Wall result = new Wall();
+            restoreBaseProperties(this, result);
+            restoreSurfaces(surfaces, result);
+            result.setThickness_JAXB(thickness);
+            result.setHeightA_JAXB(heightA);
+            result.setHeightB_JAXB(heightB);
+            result.setWallBevelA_JAXB(wallBevelA);
+            result.setWallBevelB_JAXB(wallBevelB);
+            result.setA1BevelApex_JAXB(a1BevelApex);
+            result.setA2BevelApex_JAXB(a2BevelApex);
+            result.setB1BevelApex_JAXB(b1BevelApex);
+            result.setB2BevelApex_JAXB(b2BevelApex);
+            return result;
+        }
+
+        @Override
+        public void resolveReferences(BaseObject object, Map<String, BaseObject> objectsById) {
+            Wall wall = (Wall) object;
+            resolveAnchors(anchorIds, wall, objectsById);
+            for (String wallHoleId : wallHoleIds) {
+                wall.getWallHoles().add((WallHole) objectsById.get(wallHoleId));
+            }
+        }
+    }
+
+    record WallHoleState(String id, String name, boolean hidden, List<String> anchorIds, List<SurfaceState> surfaces,
+            Length parapetHeight, Dimensions2D dimensions, WallDockEnd dockEnd, Length distanceFromWallEnd) implements IObjectState {
+        public static WallHoleState of(WallHole wallHole) {
+            return new WallHoleState(wallHole.getId(), wallHole.getName(), wallHole.isHidden(), ids(wallHole.getAnchors()), surfaceStates(wallHole),
+                wallHole.getParapetHeight_JAXB(), wallHole.getDimensions_JAXB(), wallHole.getDockEnd_JAXB(), wallHole.getDistanceFromWallEnd_JAXB());
+        }
+
+        @Override
+        public BaseObject createObject() {
+            WallHole result = new WallHole();
+            restoreBaseProperties(this, result);
+            restoreSurfaces(surfaces, result);
+            result.setParapetHeight_JAXB(parapetHeight);
+            result.setDimensions_JAXB(dimensions);
+            result.setDockEnd_JAXB(dockEnd);
+            result.setDistanceFromWallEnd_JAXB(distanceFromWallEnd);
+            return result;
+        }
+
+        @Override
+        public void resolveReferences(BaseObject object, Map<String, BaseObject> objectsById) {
+            resolveAnchors(anchorIds, (BaseAnchoredObject) object, objectsById);
+        }
+    }
+
+    record FloorState(String id, String name, boolean hidden, List<String> anchorIds, List<SurfaceState> surfaces,
+            List<String> edgeAnchorTypes, int level, Length height) implements IObjectState {
+        public static FloorState of(Floor floor) {
+            return new FloorState(floor.getId(), floor.getName(), floor.isHidden(), ids(floor.getAnchors()), surfaceStates(floor),
+                List.copyOf(floor.getEdgeAnchorTypes()), floor.getLevel_JAXB(), floor.getHeight_JAXB());
+        }
+
+        @Override
+        public BaseObject createObject() {
+            Floor result = new Floor();
+            restoreBaseProperties(this, result);
+            restoreSurfaces(surfaces, result);
+            result.getEdgeAnchorTypes().addAll(edgeAnchorTypes);
+            result.setLevel_JAXB(level);
+            result.setHeight_JAXB(height);
+            return result;
+        }
+
+        @Override
+        public void resolveReferences(BaseObject object, Map<String, BaseObject> objectsById) {
+            resolveAnchors(anchorIds, (BaseAnchoredObject) object, objectsById);
+        }
+    }
+
+    record CeilingState(String id, String name, boolean hidden, List<String> anchorIds, List<SurfaceState> surfaces,
+            List<String> edgeAnchorTypes) implements IObjectState {
+        public static CeilingState of(Ceiling ceiling) {
+            return new CeilingState(ceiling.getId(), ceiling.getName(), ceiling.isHidden(), ids(ceiling.getAnchors()), surfaceStates(ceiling),
+                List.copyOf(ceiling.getEdgeAnchorTypes()));
+        }
+
+        @Override
+        public BaseObject createObject() {
+            Ceiling result = new Ceiling();
+            restoreBaseProperties(this, result);
+            restoreSurfaces(surfaces, result);
+            result.getEdgeAnchorTypes().addAll(edgeAnchorTypes);
+            return result;
+        }
+
+        @Override
+        public void resolveReferences(BaseObject object, Map<String, BaseObject> objectsById) {
+            resolveAnchors(anchorIds, (BaseAnchoredObject) object, objectsById);
+        }
+    }
+
+    record CoveringState(String id, String name, boolean hidden, List<String> anchorIds, List<SurfaceState> surfaces) implements IObjectState {
+        public static CoveringState of(Covering covering) {
+            return new CoveringState(covering.getId(), covering.getName(), covering.isHidden(), ids(covering.getAnchors()), surfaceStates(covering));
+        }
+
+        @Override
+        public BaseObject createObject() {
+            Covering result = new Covering();
+            restoreBaseProperties(this, result);
+            restoreSurfaces(surfaces, result);
+            return result;
+        }
+
+        @Override
+        public void resolveReferences(BaseObject object, Map<String, BaseObject> objectsById) {
+            resolveAnchors(anchorIds, (BaseAnchoredObject) object, objectsById);
+        }
+    }
+
+    record SupportObjectState(String id, String name, boolean hidden, List<String> anchorIds, List<SurfaceState> surfaces,
+            AssetRefPath supportObjectDescriptorRef, Dimensions2D size, Float rotationDeg, Length height, Length elevation) implements IObjectState {
+        public static SupportObjectState of(SupportObject supportObject) {
+            return new SupportObjectState(supportObject.getId(), supportObject.getName(), supportObject.isHidden(), ids(supportObject.getAnchors()), surfaceStates(supportObject),
+                supportObject.getSupportObjectDescriptorRef_JAXB(), supportObject.getSize_JAXB(), supportObject.getRotation_JAXB(),
+                supportObject.getHeight_JAXB(), supportObject.getElevation_JAXB());
+        }
+
+        @Override
+        public BaseObject createObject() {
+            SupportObject result = new SupportObject();
+            restoreBaseProperties(this, result);
+            restoreSurfaces(surfaces, result);
+            result.setSupportObjectDescriptorRef_JAXB(supportObjectDescriptorRef);
+            result.setSize_JAXB(size);
+            result.setRotation_JAXB(rotationDeg);
+            result.setHeight_JAXB(height);
+            result.setElevation_JAXB(elevation);
+            return result;
+        }
+
+        @Override
+        public void resolveReferences(BaseObject object, Map<String, BaseObject> objectsById) {
+            resolveAnchors(anchorIds, (BaseAnchoredObject) object, objectsById);
+        }
+    }
+
+    record DimensioningState(String id, String name, boolean hidden, List<String> anchorIds, String label, double labelDistance) implements IObjectState {
+        public static DimensioningState of(Dimensioning dimensioning) {
+            return new DimensioningState(dimensioning.getId(), dimensioning.getName(), dimensioning.isHidden(), ids(dimensioning.getAnchors()),
+                dimensioning.getLabel_JAXB(), dimensioning.getLabelDistance_JAXB());
+        }
+
+        @Override
+        public BaseObject createObject() {
+            Dimensioning result = new Dimensioning();
+            restoreBaseProperties(this, result);
+            result.setLabel_JAXB(label);
+            result.setLabelDistance_JAXB(labelDistance);
+            return result;
+        }
+
+        @Override
+        public void resolveReferences(BaseObject object, Map<String, BaseObject> objectsById) {
+            resolveAnchors(anchorIds, (BaseAnchoredObject) object, objectsById);
+        }
+    }
+
+    record GuideLineState(String id, String name, boolean hidden, GuideLineDirection direction, Length position) implements IObjectState {
+        public static GuideLineState of(GuideLine guideLine) {
+            return new GuideLineState(guideLine.getId(), guideLine.getName(), guideLine.isHidden(), guideLine.getDirection_JAXB(), guideLine.getPosition_JAXB());
+        }
+
+        @Override
+        public BaseObject createObject() {
+            GuideLine result = new GuideLine();
+            restoreBaseProperties(this, result);
+            result.setDirection_JAXB(direction);
+            result.setPosition_JAXB(position);
+            return result;
+        }
+    }
+
+    record ObjectsGroupState(String id, String name, boolean hidden, List<String> groupedObjectIds) implements IObjectState {
+        public static ObjectsGroupState of(ObjectsGroup group) {
+            return new ObjectsGroupState(group.getId(), group.getName(), group.isHidden(), ids(group.getGroupedObjects()));
+        }
+
+        @Override
+        public BaseObject createObject() {
+            ObjectsGroup result = new ObjectsGroup();
+            restoreBaseProperties(this, result);
+            return result;
+        }
+
+        @Override
+        public void resolveReferences(BaseObject object, Map<String, BaseObject> objectsById) {
+            ObjectsGroup group = (ObjectsGroup) object;
+            for (String objectId : groupedObjectIds) {
+                group.getGroupedObjects().add(objectsById.get(objectId));
+            }
+        }
+    }
+
+    /**
+     * Captures the current state of the given object.
+     */
+    static IObjectState of(BaseObject obj) {
+        if (obj instanceof Anchor o) {
+            return AnchorState.of(o);
+        } else if (obj instanceof Wall o) {
+            return WallState.of(o);
+        } else if (obj instanceof WallHole o) {
+            return WallHoleState.of(o);
+        } else if (obj instanceof Floor o) {
+            return FloorState.of(o);
+        } else if (obj instanceof Ceiling o) {
+            return CeilingState.of(o);
+        } else if (obj instanceof Covering o) {
+            return CoveringState.of(o);
+        } else if (obj instanceof SupportObject o) {
+            return SupportObjectState.of(o);
+        } else if (obj instanceof Dimensioning o) {
+            return DimensioningState.of(o);
+        } else if (obj instanceof GuideLine o) {
+            return GuideLineState.of(o);
+        } else if (obj instanceof ObjectsGroup o) {
+            return ObjectsGroupState.of(o);
+        } else {
+            throw new IllegalArgumentException("Unable to capture state of object '" + obj + "' of unsupported type");
+        }
+    }
+
+    private static List<String> ids(Iterable<? extends BaseObject> objects) {
+        List<String> result = new ArrayList<>();
+        for (BaseObject obj : objects) {
+            result.add(obj.getId());
+        }
+        return List.copyOf(result);
+    }
+
+    private static List<SurfaceState> surfaceStates(BaseSolidObject obj) {
+        return obj.getSurfaceConfigurations()
+                .stream()
+                .map(SurfaceState::of)
+                .toList();
+    }
+
+    private static void restoreBaseProperties(IObjectState state, BaseObject obj) {
+        obj.setId_JAXB(state.id());
+        obj.setName_JAXB(state.name());
+        obj.setHidden_JAXB(state.hidden());
+    }
+
+    private static void restoreSurfaces(List<SurfaceState> surfaces, BaseSolidObject obj) {
+        for (SurfaceState surface : surfaces) {
+            obj.getSurfaceConfigurations().add(surface.createSurfaceConfiguration());
+        }
+    }
+
+    private static void resolveAnchors(List<String> anchorIds, BaseAnchoredObject obj, Map<String, BaseObject> objectsById) {
+        for (String anchorId : anchorIds) {
+            obj.getAnchors().add((Anchor) objectsById.get(anchorId));
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.model.snapshot;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable hash map with structural sharing (hash array mapped trie). Modifications return a new map which shares
+ * all unchanged nodes with this map, so a modification costs {@code O(log32 n)} time and memory, independent of the
+ * number of entries. Instances can be read from any thread.
+ */
+final class PersistentHashMap<K, V> {
+    protected static final int BITS_PER_LEVEL = 5;
+    protected static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+    protected static final int MAX_SHIFT = 30; // Keys whose hashes are equal up to this shift are held in a collision node
+
+    protected static final class Leaf {
+        protected final int mHash;
+        protected final Object mKey;
+        protected final Object mValue;
+
+        protected Leaf(int hash, Object key, Object value) {
+            mHash = hash;
+            mKey = key;
+            mValue = value;
+        }
+    }
+
+    /**
+     * Inner node, its slots are {@link Leaf leaves} or child nodes, indexed by the bits of the {@link #mBitmap bitmap}.
+     */
+    protected static final class BitmapNode {
+        protected final int mBitmap;
+        protected final Object[] mSlots;
+
+        protected BitmapNode(int bitmap, Object[] slots) {
+            mBitmap = bitmap;
+            mSlots = slots;
+        }
+
+        protected int slotIndex(int bit) {
+            return Integer.bitCount(mBitmap & (bit - 1));
+        }
+    }
+
+    /**
+     * Node for keys whose hashes are completely equal.
+     */
+    protected static final class CollisionNode {
+        protected final int mHash;
+        protected final Leaf[] mLeaves;
+
+        protected CollisionNode(int hash, Leaf[] leaves) {
+            mHash = hash;
+            mLeaves = leaves;
+        }
+    }
+
+    protected static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(new BitmapNode(0, new Object[0]), 0);
+
+    protected final BitmapNode mRoot;
+    protected final int mSize;
+
+    protected PersistentHashMap(BitmapNode root, int size) {
+        mRoot = root;
+        mSize = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    protected static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    protected static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & LEVEL_MASK);
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        int hash = hash(key);
+        Object node = mRoot;
+        int shift = 0;
+        while (true) {
+            if (node instanceof BitmapNode bn) {
+                int bit = bit(hash, shift);
+                if ((bn.mBitmap & bit) == 0) {
+                    return null;
+                }
+                node = bn.mSlots[bn.slotIndex(bit)];
+                shift += BITS_PER_LEVEL;
+            } else if (node instanceof CollisionNode cn) {
+                for (Leaf leaf : cn.mLeaves) {
+                    if (leaf.mKey.equals(key)) {
+                        return (V) leaf.mValue;
+                    }
+                }
+                return null;
+            } else {
+                Leaf leaf = (Leaf) node;
+                return leaf.mHash == hash && leaf.mKey.equals(key) ? (V) leaf.mValue : null;
+            }
+        }
+    }
+
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns a map which contains the entries of this map and the given entry. {@code null} values are not supported.
+     */
+    public PersistentHashMap<K, V> plus(K key, V value) {
+        Objects.requireNonNull(value);
+        boolean[] added = new boolean[1];
+        BitmapNode root = (BitmapNode) plus(mRoot, 0, new Leaf(hash(key), key, value), added);
+        return root == mRoot ? this : new PersistentHashMap<>(root, added[0] ? mSize + 1 : mSize);
+    }
+
+    /**
+     * Returns a map which contains the entries of this map without the entry of the given key.
+     */
+    public PersistentHashMap<K, V> minus(K key) {
+        Object root = minus(mRoot, 0, hash(key), key);
+        if (root == mRoot) {
+            return this;
+        }
+        if (root instanceof BitmapNode bn) {
+            return new PersistentHashMap<>(bn, mSize - 1);
+        }
+        // Root must always be a bitmap node
+        BitmapNode newRoot = root == null ? new BitmapNode(0, new Object[0]) : wrap(root, 0);
+        return new PersistentHashMap<>(newRoot, mSize - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        forEach(mRoot, (BiConsumer<Object, Object>) action);
+    }
+
+    protected static void forEach(Object node, BiConsumer<Object, Object> action) {
+        if (node instanceof BitmapNode bn) {
+            for (Object slot : bn.mSlots) {
+                forEach(slot, action);
+            }
+        } else if (node instanceof CollisionNode cn) {
+            for (Leaf leaf : cn.mLeaves) {
+                action.accept(leaf.mKey, leaf.mValue);
+            }
+        } else {
+            Leaf leaf = (Leaf) node;
+            action.accept(leaf.mKey, leaf.mValue);
+        }
+    }
+
+    protected static BitmapNode wrap(Object node, int shift) {
+        int hash = node instanceof Leaf leaf ? leaf.mHash : ((CollisionNode) node).mHash;
+        return new BitmapNode(bit(hash, shift), new Object[] {node});
+    }
+
+    protected static Object plus(Object node, int shift, Leaf newLeaf, boolean[] added) {
+        if (node instanceof BitmapNode bn) {
+            int bit = bit(newLeaf.mHash, shift);
+            int index = bn.slotIndex(bit);
+            if ((bn.mBitmap & bit) == 0) {
+                Object[] slots = new Object[bn.mSlots.length + 1];
+                System.arraycopy(bn.mSlots, 0, slots, 0, index);
+                slots[index] = newLeaf;
+                System.arraycopy(bn.mSlots, index, slots, index + 1, bn.mSlots.length - index);
+                added[0] = true;
+                return new BitmapNode(bn.mBitmap | bit, slots);
+            }
+            Object child = bn.mSlots[index];
+            Object newChild = plus(child, shift + BITS_PER_LEVEL, newLeaf, added);
+            if (newChild == child) {
+                return bn;
+            }
+            Object[] slots = bn.mSlots.clone();
+            slots[index] = newChild;
+            return new BitmapNode(bn.mBitmap, slots);
+        } else if (node instanceof CollisionNode cn) {
+            if (cn.mHash != newLeaf.mHash) {
+                return plus(wrap(cn, shift), shift, newLeaf, added);
+            }
+            Leaf[] leaves = cn.mLeaves;
+            for (int i = 0; i < leaves.length; i++) {
+                if (leaves[i].mKey.equals(newLeaf.mKey)) {
+                    if (leaves[i].mValue == newLeaf.mValue) {
+                        return cn;
+                    }
+                    Leaf[] newLeaves = leaves.clone();
+                    newLeaves[i] = newLeaf;
+                    return new CollisionNode(cn.mHash, newLeaves);
+                }
+            }
+            Leaf[] newLeaves = Arrays.copyOf(leaves, leaves.length + 1);
+            newLeaves[leaves.length] = newLeaf;
+            added[0] = true;
+            return new CollisionNode(cn.mHash, newLeaves);
+        } else {
+            Leaf leaf = (Leaf) node;
+            if (leaf.mHash == newLeaf.mHash && leaf.mKey.equals(newLeaf.mKey)) {
+                return leaf.mValue == newLeaf.mValue ? leaf : newLeaf;
+            }
+            added[0] = true;
+            if (leaf.mHash == newLeaf.mHash || shift > MAX_SHIFT) {
+                return new CollisionNode(leaf.mHash, new Leaf[] {leaf, newLeaf});
+            }
+            // Push the existing leaf one level down and insert the new leaf there
+            return plus(wrap(leaf, shift), shift, newLeaf, new boolean[1]);
+        }
+    }
+
+    /**
+     * Removes the given key from the given node.
+     * @return The given node if the key was not found, {@code null} if the node became empty, a {@link Leaf} if only
+     * one entry is left in the node, else the new node.
+     */
+    protected static Object minus(Object node, int shift, int hash, Object key) {
+        if (node instanceof BitmapNode bn) {
+            int bit = bit(hash, shift);
+            if ((bn.mBitmap & bit) == 0) {
+                return bn;
+            }
+            int index = bn.slotIndex(bit);
+            Object child = bn.mSlots[index];
+            Object newChild = minus(child, shift + BITS_PER_LEVEL, hash, key);
+            if (newChild == child) {
+                return bn;
+            }
+            if (newChild == null) {
+                if (bn.mSlots.length == 1) {
+                    return null;
+                }
+                Object[] slots = new Object[bn.mSlots.length - 1];
+                System.arraycopy(bn.mSlots, 0, slots, 0, index);
+                System.arraycopy(bn.mSlots, index + 1, slots, index, slots.length - index);
+                BitmapNode result = new BitmapNode(bn.mBitmap & ~bit, slots);
+                return slots.length == 1 && slots[0] instanceof Leaf ? slots[0] : result;
+            }
+            if (bn.mSlots.length == 1 && newChild instanceof Leaf) {
+                // Collapse chains of single-slot nodes
+                return newChild;
+            }
+            Object[] slots = bn.mSlots.clone();
+            slots[index] = newChild;
+            return new BitmapNode(bn.mBitmap, slots);
+        } else if (node instanceof CollisionNode cn) {
+            Leaf[] leaves = cn.mLeaves;
+            for (int i = 0; i < leaves.length; i++) {
+                if (leaves[i].mKey.equals(key)) {
+                    if (leaves.length == 2) {
+                        return leaves[1 - i];
+                    }
+                    Leaf[] newLeaves = new Leaf[leaves.length - 1];
+                    System.arraycopy(leaves, 0, newLeaves, 0, i);
+                    System.arraycopy(leaves, i + 1, newLeaves, i, newLeaves.length - i);
+                    return new CollisionNode(cn.mHash, newLeaves);
+                }
+            }
+            return cn;
+        } else {
+            Leaf leaf = (Leaf) node;
+            return leaf.mHash == hash && leaf.mKey.equals(key) ? null : leaf;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.model.snapshot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+import de.dh.cad.architect.model.Plan;
+import de.dh.cad.architect.model.changes.IModelChange;
+import de.dh.cad.architect.model.objects.Anchor;
+import de.dh.cad.architect.model.objects.BaseAnchoredObject;
+import de.dh.cad.architect.model.objects.BaseObject;
+import de.dh.cad.architect.model.objects.ObjectsGroup;
+import de.dh.cad.architect.model.objects.Wall;
+import de.dh.cad.architect.model.objects.WallHole;
+import de.dh.cad.architect.model.snapshot.IObjectState.AnchorState;
+import de.dh.cad.architect.model.snapshot.IObjectState.WallHoleState;
+import de.dh.cad.architect.model.snapshot.IObjectState.WallState;
+
+/**
+ * Immutable snapshot of the state of all objects of a {@link Plan}.
+ * A snapshot can safely be read by background threads while the plan is modified in the UI thread.
+ * Snapshots are derived from their predecessor by {@link #withChanges(Plan, IModelChange)}, which only captures the
+ * objects touched by the change; the states of all other objects are shared between both snapshots. Thus, the cost
+ * of taking a snapshot after a change is proportional to the number of changed objects, not to the size of the plan.
+ */
+public final class PlanSnapshot {
+    protected final String mPlanId;
+    protected final long mVersion;
+    protected final PersistentHashMap<String, IObjectState> mObjectStates;
+
+    protected PlanSnapshot(String planId, long version, PersistentHashMap<String, IObjectState> objectStates) {
+        mPlanId = planId;
+        mVersion = version;
+        mObjectStates = objectStates;
+    }
+
+    /**
+     * Captures the complete state of the given plan.
+     */
+    public static PlanSnapshot of(Plan plan) {
+        List<BaseObject> objects = new ArrayList<>();
+        plan.forEach(objects::add);
+        PersistentHashMap<String, IObjectState> states = PersistentHashMap.empty();
+        for (BaseObject obj : objects) {
+            states = states.plus(obj.getId(), IObjectState.of(obj));
+            if (obj instanceof Wall wall) {
+                for (WallHole wallHole : wall.getWallHoles()) {
+                    states = states.plus(wallHole.getId(), IObjectState.of(wallHole));
+                }
+            }
+        }
+        return new PlanSnapshot(plan.getId(), 0, states);
+    }
+
+    /**
+     * Returns a snapshot reflecting the given change which was applied to the given plan after this snapshot was taken.
+     * All objects which were added, modified or removed by the change are captured again or removed from the snapshot,
+     * the states of all other objects are shared with this snapshot.
+     */
+    public PlanSnapshot withChanges(Plan plan, IModelChange change) {
+        PersistentHashMap<String, IObjectState> states = mObjectStates;
+        states = updateStates(states, plan, change.getAdditions());
+        states = updateStates(states, plan, change.getModifications());
+        states = updateStates(states, plan, change.getRemovals());
+        return states == mObjectStates ? this : new PlanSnapshot(mPlanId, mVersion + 1, states);
+    }
+
+    protected static PersistentHashMap<String, IObjectState> updateStates(PersistentHashMap<String, IObjectState> states, Plan plan, Collection<BaseObject> objects) {
+        for (BaseObject obj : objects) {
+            String id = obj.getId();
+            if (isLive(plan, obj)) {
+                IObjectState state = IObjectState.of(obj);
+                // Objects are often reported as modified without an actual change of their own state, e.g. dock owners;
+                // keep the former state instance in that case to share it with this snapshot
+                if (!state.equals(states.get(id))) {
+                    states = states.plus(id, state);
+                }
+            } else {
+                if (states.get(id) instanceof WallState wallState) {
+                    // Wall holes only exist inside their wall
+                    for (String wallHoleId : wallState.wallHoleIds()) {
+                        states = states.minus(wallHoleId);
+                    }
+                }
+                states = states.minus(id);
+            }
+        }
+        return states;
+    }
+
+    /**
+     * Returns the information whether the given object is currently part of the given plan.
+     * A change also reports objects which are removed by the change or by a later change in the same change trace.
+     */
+    protected static boolean isLive(Plan plan, BaseObject obj) {
+        if (obj instanceof Anchor anchor) {
+            return plan.getAnchors().get(anchor.getId()) == anchor;
+        } else if (obj instanceof WallHole wallHole) {
+            return wallHole.getOwnerContainer() instanceof Wall wall
+                    && wall.getOwnerContainer() == plan
+                    && wall.getWallHoleById(wallHole.getId()) == wallHole;
+        } else {
+            return obj.getOwnerContainer() == plan;
+        }
+    }
+
+    public String getPlanId() {
+        return mPlanId;
+    }
+
+    /**
+     * Returns the number of changes which were applied since the initial snapshot was taken.
+     */
+    public long getVersion() {
+        return mVersion;
+    }
+
+    public int getNumObjects() {
+        return mObjectStates.size();
+    }
+
+    public Optional<IObjectState> getObjectState(String id) {
+        return Optional.ofNullable(mObjectStates.get(id));
+    }
+
+    public <T extends IObjectState> List<T> getObjectStates(Class<T> type) {
+        List<T> result = new ArrayList<>();
+        mObjectStates.forEach((id, state) -> {
+            if (type.isInstance(state)) {
+                result.add(type.cast(state));
+            }
+        });
+        return result;
+    }
+
+    public void forEach(BiConsumer<String, IObjectState> action) {
+        mObjectStates.forEach(action);
+    }
+
+    /**
+     * Materializes a new plan from this snapshot. The returned plan is completely detached from the plan the snapshot
+     * was taken from, so it can be read and modified by a background task.
+     */
+    public Plan toPlan() {
+        Map<String, BaseObject> objectsById = new HashMap<>(mObjectStates.size() * 2);
+        mObjectStates.forEach((id, state) -> objectsById.put(id, state.createObject()));
+        mObjectStates.forEach((id, state) -> state.resolveReferences(objectsById.get(id), objectsById));
+
+        Plan result = new Plan(mPlanId);
+        List<IModelChange> changeTrace = new ArrayList<>();
+        mObjectStates.forEach((id, state) -> {
+            BaseObject obj = objectsById.get(id);
+            if (state instanceof AnchorState) {
+                result.addAnchor_Internal((Anchor) obj, changeTrace);
+            } else if (!(state instanceof WallHoleState)) {
+                result.addOwnedChild_Internal(obj, changeTrace);
+            }
+        });
+        for (BaseObject obj : objectsById.values()) {
+            if (obj instanceof BaseAnchoredObject bao) {
+                bao.afterDeserialize(null);
+            } else if (obj instanceof ObjectsGroup group) {
+                group.afterDeserialize(null);
+            }
+        }
+        result.afterDeserialize();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [PlanId=" + mPlanId + ", Version=" + mVersion + ", NumObjects=" + mObjectStates.size() + "]";
+    }
+}
@@ -21,10 +21,8 @@ import java.util.List;
 import java.util.Optional;
 
 import de.dh.cad.architect.model.changes.IModelChange;
-import de.dh.cad.architect.model.coords.Angle;
 import de.dh.cad.architect.model.coords.Length;
 import de.dh.cad.architect.model.coords.LengthUnit;
-import de.dh.cad.architect.model.coords.MathUtils;
 import de.dh.cad.architect.model.coords.Position2D;
 import de.dh.cad.architect.model.coords.Vector2D;
 import de.dh.cad.architect.model.objects.Anchor;
@@ -32,164 +30,66 @@ import de.dh.cad.architect.model.objects.Wall;
 
 /**
  * Positions of the four wall corner anchors in 2D space / on the floor according to current docking situation.
+ * The positions are held as primitive coordinates in millimeters, laid out as described in {@link WallGeometryKernel};
+ * boxed {@link Position2D} objects are only created on access.
  */
 public class WallAnchorPositions {
-    protected static class WallEndAnchorPositions {
-        protected final Position2D mLeftCorner;
-        protected final Optional<Position2D> mOLeftBevelApexCorner;
-        protected final Position2D mHandle;
-        protected final Optional<Position2D> mORightBevelApexCorner;
-        protected final Position2D mRightCorner;
-        protected final boolean mHasNeighbor;
-
-        public WallEndAnchorPositions(Position2D leftCorner, Optional<Position2D> oLeftBevelApexCorner, Position2D handle, Optional<Position2D> oRightBevelApexCorner, Position2D rightCorner, boolean hasNeighbor) {
-            mLeftCorner = leftCorner;
-            mOLeftBevelApexCorner = oLeftBevelApexCorner;
-            mHandle = handle;
-            mORightBevelApexCorner = oRightBevelApexCorner;
-            mRightCorner = rightCorner;
-            mHasNeighbor = hasNeighbor;
-        }
-
-        public static WallEndAnchorPositions fromThickness(Position2D handlePosition, Vector2D wallFN, Length thickness, boolean hasNeighbor) {
-            Vector2D vLeft = wallFN.getNormalCCW().toUnitVector(LengthUnit.DEFAULT).times(thickness.inInternalFormat() / 2);
-            return new WallEndAnchorPositions(handlePosition.plus(vLeft), Optional.empty(), handlePosition, Optional.empty(), handlePosition.minus(vLeft), hasNeighbor);
-        }
-
-        public Position2D getLeftCorner() {
-            return mLeftCorner;
-        }
-
-        public Optional<Position2D> getOLeftBevelApexCorner() {
-            return mOLeftBevelApexCorner;
-        }
-
-        public Position2D getHandle() {
-            return mHandle;
-        }
-
-        public Optional<Position2D> getORightBevelApexCorner() {
-            return mORightBevelApexCorner;
-        }
-
-        public Position2D getRightCorner() {
-            return mRightCorner;
-        }
-
-        public boolean hasNeighbor() {
-            return mHasNeighbor;
-        }
-    }
-
-    protected static class WallEndBasePositions {
-        protected final IWallAnchor mNearHandleAnchor;
-        protected final IWallAnchor mFarHandleAnchor;
-        protected final Length mThickness;
-
-        public WallEndBasePositions(IWallAnchor nearHandleAnchor, IWallAnchor farHandleAnchor, Length thickness) {
-            mNearHandleAnchor = nearHandleAnchor;
-            mFarHandleAnchor = farHandleAnchor;
-            mThickness = thickness;
-        }
-
-        public IWallAnchor getNearHandleAnchor() {
-            return mNearHandleAnchor;
-        }
-
-        public Position2D getNearHandlePosition() {
-            return mNearHandleAnchor.getPosition();
-        }
-
-        public IWallAnchor getFarHandleAnchor() {
-            return mFarHandleAnchor;
-        }
-
-        public Position2D getFarHandlePosition() {
-            return mFarHandleAnchor.getPosition();
-        }
-
-        public Length getThickness() {
-            return mThickness;
-        }
-
-        /**
-         * Vector pointing from this wall's far side anchor to the anchor at the near side.
-         */
-        public Vector2D getVectorFN() {
-            return mNearHandleAnchor.getPosition().minus(mFarHandleAnchor.getPosition());
-        }
-
-        /**
-         * Vector orthogonal to {@link #getVectorFN() the FN vector}, pointing in clockwise direction, with a length of the {@link #getThickness() thickness} of the wall.
-         */
-        public Vector2D getVectorCW() {
-            return getVectorFN().getNormalCW().scaleToLength(mThickness);
-        }
-
-        public Vector2D getVectorCCW() {
-            return getVectorCW().negated();
-        }
-    }
-
-    protected static class NeighbourWallData extends WallEndBasePositions {
-        protected final double mAngle;
-        protected final boolean mHasBevelPriority;
-
-        public NeighbourWallData(IWallAnchor nearHandleAnchor, IWallAnchor farHandleAnchor, double angle, Length thickness, boolean hasBevelPriority) {
-            super(nearHandleAnchor, farHandleAnchor, thickness);
-            mAngle = angle;
-            mHasBevelPriority = hasBevelPriority;
-        }
-
-        public double getAngle() {
-            return mAngle;
-        }
+    // Results of the wall end calculation
+    protected static final int WALL_END_INVALID = 0;
+    protected static final int WALL_END_WITHOUT_NEIGHBOR = 1;
+    protected static final int WALL_END_WITH_NEIGHBOR = 2;
 
-        public boolean hasBevelPriority() {
-            return mHasBevelPriority;
-        }
-    }
-
-    protected static final double EPSILON = 0.001;
     protected static final Length WALL_MIN_LENGTH = Length.ofMM(5);
+    protected static final double WALL_MIN_LENGTH_MM = WALL_MIN_LENGTH.inMM();
 
-    // Handles
-    protected final Position2D mHandleA;
-    protected final Position2D mHandleB;
+    protected final double[] mCoords;
 
     // Neighbor situation
     protected final boolean mHasNeighborA;
     protected final boolean mHasNeighborB;
 
-    // Wall end 1
-    protected final Position2D mCornerA1;
-    protected final Optional<Position2D> mOA1BevelApex;
-    protected final Position2D mCornerA2;
-    protected final Optional<Position2D> mOA2BevelApex;
-
-    // Wall end 2
-    protected final Position2D mCornerB1;
-    protected final Optional<Position2D> mOB1BevelApex;
-    protected final Position2D mCornerB2;
-    protected final Optional<Position2D> mOB2BevelApex;
-
     public WallAnchorPositions(Position2D handleA, Position2D handleB, boolean hasNeighborA, boolean hasNeighborB,
         Position2D cornerA1, Optional<Position2D> oA1BevelApex,
         Position2D cornerA2, Optional<Position2D> oA2BevelApex,
         Position2D cornerB1, Optional<Position2D> oB1BevelApex,
         Position2D cornerB2, Optional<Position2D> oB2BevelApex) {
-        mHandleA = handleA;
-        mHandleB = handleB;
+        this(new double[WallGeometryKernel.NUM_ANCHOR_COORDS], hasNeighborA, hasNeighborB);
+        setPosition(WallGeometryKernel.HANDLE_A, handleA);
+        setPosition(WallGeometryKernel.HANDLE_B, handleB);
+        setPosition(WallGeometryKernel.CORNER_A1, cornerA1);
+        setPosition(WallGeometryKernel.A1_BEVEL_APEX, oA1BevelApex.orElse(null));
+        setPosition(WallGeometryKernel.CORNER_A2, cornerA2);
+        setPosition(WallGeometryKernel.A2_BEVEL_APEX, oA2BevelApex.orElse(null));
+        setPosition(WallGeometryKernel.CORNER_B1, cornerB1);
+        setPosition(WallGeometryKernel.B1_BEVEL_APEX, oB1BevelApex.orElse(null));
+        setPosition(WallGeometryKernel.CORNER_B2, cornerB2);
+        setPosition(WallGeometryKernel.B2_BEVEL_APEX, oB2BevelApex.orElse(null));
+    }
+
+    /**
+     * Creates wall anchor positions from a coordinate array in the layout described in {@link WallGeometryKernel}.
+     * The given array is taken over, it must not be modified by the caller afterwards.
+     */
+    public WallAnchorPositions(double[] coords, boolean hasNeighborA, boolean hasNeighborB) {
+        mCoords = coords;
         mHasNeighborA = hasNeighborA;
         mHasNeighborB = hasNeighborB;
-        mCornerA1 = cornerA1;
-        mOA1BevelApex = oA1BevelApex;
-        mCornerA2 = cornerA2;
-        mOA2BevelApex = oA2BevelApex;
-        mCornerB1 = cornerB1;
-        mOB1BevelApex = oB1BevelApex;
-        mCornerB2 = cornerB2;
-        mOB2BevelApex = oB2BevelApex;
+    }
+
+    protected void setPosition(int slot, Position2D position) {
+        if (position == null) {
+            WallGeometryKernel.clear(mCoords, slot);
+        } else {
+            WallGeometryKernel.set(mCoords, slot, position.getX().inMM(), position.getY().inMM());
+        }
+    }
+
+    protected Position2D getPosition(int slot) {
+        return new Position2D(Length.ofMM(mCoords[slot]), Length.ofMM(mCoords[slot + 1]));
+    }
+
+    protected Optional<Position2D> getOPosition(int slot) {
+        return WallGeometryKernel.isPresent(mCoords, slot) ? Optional.of(getPosition(slot)) : Optional.empty();
     }
 
     public static WallAnchorPositions fromHandles(
@@ -238,34 +138,42 @@ public class WallAnchorPositions {
             cornerB2, Optional.empty());
     }
 
-    protected static WallAnchorPositions fromWallEnds(WallEndAnchorPositions endA, WallEndAnchorPositions endB) {
-        return new WallAnchorPositions(
-            endA.getHandle(), endB.getHandle(), endA.hasNeighbor(), endB.hasNeighbor(),
-            endA.getRightCorner(), endA.getORightBevelApexCorner(),
-            endA.getLeftCorner(), endA.getOLeftBevelApexCorner(),
-            endB.getLeftCorner(), endB.getOLeftBevelApexCorner(),
-            endB.getRightCorner(), endB.getORightBevelApexCorner());
-    }
-
     public static Optional<WallAnchorPositions> calculateDockSituation(IWall wall) {
-        // Abstract base positions from concrete wall ends
-        Length thickness = wall.getThickness();
+        double thickness = wall.getThickness().inMM();
         IWallAnchor anchorWallHandleA = wall.getAnchorWallHandleA();
         IWallAnchor anchorWallHandleB = wall.getAnchorWallHandleB();
-        WallEndBasePositions basePositionsA = new WallEndBasePositions(anchorWallHandleA, anchorWallHandleB, thickness);
-        WallEndBasePositions basePositionsB = new WallEndBasePositions(anchorWallHandleB, anchorWallHandleA, thickness);
-
-        // Calculate wall end from positions
-        Optional<WallEndAnchorPositions> oWeapA = calculateWallEndAnchorPositions(basePositionsA);
-        Optional<WallEndAnchorPositions> oWeapB = calculateWallEndAnchorPositions(basePositionsB);
-
         Position2D posHandleA = anchorWallHandleA.getPosition();
         Position2D posHandleB = anchorWallHandleB.getPosition();
-        WallEndAnchorPositions weapA = oWeapA.orElse(WallEndAnchorPositions.fromThickness(posHandleA, posHandleA.minus(posHandleB), thickness, wall.hasNeighborWallA()));
-        WallEndAnchorPositions weapB = oWeapB.orElse(WallEndAnchorPositions.fromThickness(posHandleB, posHandleB.minus(posHandleA), thickness, wall.hasNeighborWallB()));
+        double ax = posHandleA.getX().inMM();
+        double ay = posHandleA.getY().inMM();
+        double bx = posHandleB.getX().inMM();
+        double by = posHandleB.getY().inMM();
+
+        double[] coords = new double[WallGeometryKernel.NUM_ANCHOR_COORDS];
+        WallGeometryKernel.set(coords, WallGeometryKernel.HANDLE_A, ax, ay);
+        WallGeometryKernel.set(coords, WallGeometryKernel.HANDLE_B, bx, by);
+
+        // Wall end A: Seen from end A, the left corner is at side 2, the right corner at side 1
+        int resultA = calculateWallEndAnchorPositions(anchorWallHandleA, ax, ay, bx, by, thickness, coords,
+            WallGeometryKernel.CORNER_A2, WallGeometryKernel.A2_BEVEL_APEX, WallGeometryKernel.CORNER_A1, WallGeometryKernel.A1_BEVEL_APEX);
+        boolean hasNeighborA = resultA == WALL_END_WITH_NEIGHBOR;
+        if (resultA == WALL_END_INVALID) {
+            WallGeometryKernel.calculateWallEndFromThickness(ax, ay, ax - bx, ay - by, thickness, coords,
+                WallGeometryKernel.CORNER_A2, WallGeometryKernel.A2_BEVEL_APEX, WallGeometryKernel.CORNER_A1, WallGeometryKernel.A1_BEVEL_APEX);
+            hasNeighborA = wall.hasNeighborWallA();
+        }
+
+        // Wall end B: Seen from end B, the left corner is at side 1, the right corner at side 2
+        int resultB = calculateWallEndAnchorPositions(anchorWallHandleB, bx, by, ax, ay, thickness, coords,
+            WallGeometryKernel.CORNER_B1, WallGeometryKernel.B1_BEVEL_APEX, WallGeometryKernel.CORNER_B2, WallGeometryKernel.B2_BEVEL_APEX);
+        boolean hasNeighborB = resultB == WALL_END_WITH_NEIGHBOR;
+        if (resultB == WALL_END_INVALID) {
+            WallGeometryKernel.calculateWallEndFromThickness(bx, by, bx - ax, by - ay, thickness, coords,
+                WallGeometryKernel.CORNER_B1, WallGeometryKernel.B1_BEVEL_APEX, WallGeometryKernel.CORNER_B2, WallGeometryKernel.B2_BEVEL_APEX);
+            hasNeighborB = wall.hasNeighborWallB();
+        }
 
-        // Map wall end positions to concrete wall ends
-        return Optional.of(WallAnchorPositions.fromWallEnds(weapA, weapB));
+        return Optional.of(new WallAnchorPositions(coords, hasNeighborA, hasNeighborB));
     }
 
     /**
@@ -320,20 +228,21 @@ public class WallAnchorPositions {
         }
     }
 
-    protected static Optional<WallEndAnchorPositions> calculateWallEndAnchorPositions(WallEndBasePositions basePositions) {
-        IWallAnchor thisNearHandleAnchor = basePositions.getNearHandleAnchor();
-        Position2D thisNearHandlePosition = thisNearHandleAnchor.getPosition();
-        IWallAnchor thisFarHandleAnchor = basePositions.getFarHandleAnchor();
-        Position2D thisFarHandlePosition = thisFarHandleAnchor.getPosition();
-        Vector2D thisWallFN = basePositions.getVectorFN();
-        Length thisWallFNLength = thisWallFN.getLength();
-        Vector2D thisWallCW2 = basePositions.getVectorCW().times(0.5); // Pointing from this handle in clockwise direction
-        Vector2D thisWallCCW2 = thisWallCW2.negated(); // Pointing from this handle in counter clockwise direction
-        Length thisWallThickness = basePositions.getThickness();
+    /**
+     * Calculates the corners and bevel apexes at the wall end of the given near handle anchor and writes them to the given
+     * coordinate array.
+     * @return {@link #WALL_END_INVALID} if the wall end situation is invalid, {@link #WALL_END_WITHOUT_NEIGHBOR} if the wall
+     * end is not connected to a valid neighbor wall, else {@link #WALL_END_WITH_NEIGHBOR}.
+     */
+    protected static int calculateWallEndAnchorPositions(IWallAnchor thisNearHandleAnchor,
+        double nearX, double nearY, double farX, double farY, double thickness,
+        double[] target, int leftSlot, int leftApexSlot, int rightSlot, int rightApexSlot) {
+        double thisWallFNX = nearX - farX;
+        double thisWallFNY = nearY - farY;
         WallBevelType bevelType = null;
 
-        if (thisWallFNLength.lt(WALL_MIN_LENGTH)) {
-            return Optional.empty();
+        if (WallGeometryKernel.length(thisWallFNX, thisWallFNY) < WALL_MIN_LENGTH_MM) {
+            return WALL_END_INVALID;
         }
 
         // If two or more walls are connected, we need the wall with the lowest angle (the wall left)
@@ -341,8 +250,19 @@ public class WallAnchorPositions {
         // those are the outer walls which determine the corners. We can ignore all other walls in between
         // because their junction does not concern our wall anchors and is calculated in their own context.
         // If only one neighbour wall is connected, that wall counts both as left and as right wall.
-        NeighbourWallData leftWallData = null;
-        NeighbourWallData rightWallData = null;
+        boolean hasLeftWall = false;
+        double leftAngle = 0;
+        double leftFarX = 0;
+        double leftFarY = 0;
+        double leftThickness = 0;
+        boolean leftHasBevelPriority = false;
+
+        boolean hasRightWall = false;
+        double rightAngle = 0;
+        double rightFarX = 0;
+        double rightFarY = 0;
+        double rightThickness = 0;
+        boolean rightHasBevelPriority = false;
 
         boolean thisAnchorPassed = false; // Anchors before this anchor have bevel priority, anchors after this anchors are subordinate
 
@@ -375,186 +295,128 @@ public class WallAnchorPositions {
                 continue;
             }
 
-            Vector2D neighbourFN = thisNearHandlePosition.minus(neighbourFarHandleAnchor.getPosition()); // This handle position = other handle position at this side
-            if (neighbourFN.getLength().lt(WALL_MIN_LENGTH)) {
+            Position2D neighbourFarPosition = neighbourFarHandleAnchor.getPosition();
+            double neighbourFarX = neighbourFarPosition.getX().inMM();
+            double neighbourFarY = neighbourFarPosition.getY().inMM();
+            // This handle position = other handle position at this side
+            double neighbourFNX = nearX - neighbourFarX;
+            double neighbourFNY = nearY - neighbourFarY;
+            if (WallGeometryKernel.length(neighbourFNX, neighbourFNY) < WALL_MIN_LENGTH_MM) {
                 // Neighbour wall too short and thus invalid; treat it as if it would not exist
                 continue;
             }
-            double angle = Angle.angleBetween(neighbourFN, thisWallFN).getAngleDeg();
-            if (Math.abs(angle % 360) < EPSILON) {
-                // Neighbour wall is parallel, skip
-            }
-            if (leftWallData == null || leftWallData.getAngle() > angle) {
-                leftWallData = new NeighbourWallData(thisNearHandleAnchor, neighbourFarHandleAnchor, angle, dockedWall.getThickness(), !thisAnchorPassed);
+            double angle = WallGeometryKernel.angleBetween(neighbourFNX, neighbourFNY, thisWallFNX, thisWallFNY);
+            if (!hasLeftWall || leftAngle > angle) {
+                hasLeftWall = true;
+                leftAngle = angle;
+                leftFarX = neighbourFarX;
+                leftFarY = neighbourFarY;
+                leftThickness = dockedWall.getThickness().inMM();
+                leftHasBevelPriority = !thisAnchorPassed;
             }
-            if (rightWallData == null || rightWallData.getAngle() < angle) {
-                rightWallData = new NeighbourWallData(thisNearHandleAnchor, neighbourFarHandleAnchor, angle, dockedWall.getThickness(), !thisAnchorPassed);
+            if (!hasRightWall || rightAngle < angle) {
+                hasRightWall = true;
+                rightAngle = angle;
+                rightFarX = neighbourFarX;
+                rightFarY = neighbourFarY;
+                rightThickness = dockedWall.getThickness().inMM();
+                rightHasBevelPriority = !thisAnchorPassed;
             }
         }
 
-        if (leftWallData == null || rightWallData == null) {
+        if (!hasLeftWall || !hasRightWall) {
             // Trivial case: No other (valid) wall is connected
-            return Optional.of(WallEndAnchorPositions.fromThickness(thisNearHandlePosition, thisWallFN, thisWallThickness, false));
+            WallGeometryKernel.calculateWallEndFromThickness(nearX, nearY, thisWallFNX, thisWallFNY, thickness, target,
+                leftSlot, leftApexSlot, rightSlot, rightApexSlot);
+            return WALL_END_WITHOUT_NEIGHBOR;
         }
 
         // Left (CCW) situation
-        Position2D leftCorner;
-        Optional<Position2D> oLeftBevelApexCorner = Optional.empty();
-        {
-            double leftAngle = leftWallData.getAngle(); // Angle between thisWallFN and otherWallFN in degrees
-            Position2D thisNearCCW = thisNearHandlePosition.plus(thisWallCCW2);
-            Position2D thisFarCCW = thisFarHandlePosition.plus(thisWallCCW2);
-            Vector2D otherCW = leftWallData.getVectorCW().times(0.5);
-            Position2D otherNearHandlePosition = leftWallData.getNearHandlePosition();
-            Position2D otherFarHandlePosition = leftWallData.getFarHandlePosition();
-            Position2D otherNearCW = otherNearHandlePosition.plus(otherCW);
-            Position2D otherFarCW = otherFarHandlePosition.plus(otherCW);
-            Vector2D otherFN = otherNearHandlePosition.minus(otherFarHandlePosition);
-            Length thickerWallThickness = Length.max(thisWallThickness, leftWallData.getThickness());
-            boolean includeLeftBevelApex = !leftWallData.hasBevelPriority();
-
-            if (Math.abs(leftAngle) < EPSILON) {
-                // Other wall parallel, located over this wall (pointing to same direction)
-                return Optional.empty(); // Invalid situation, (hopefully) prevented by check above
-            } else if (Math.abs(leftAngle - 180) < EPSILON) {
-                leftCorner = thisNearCCW; // Walls nearly parallel, other wall is elongation of this wall
-            } else if (leftAngle < 180) {
-                 leftCorner = MathUtils.calculateLinesIntersectionPoint(
-                    thisNearCCW, thisFarCCW,
-                    otherNearCW, otherFarCW).orElse(null);
-
-                if (leftCorner == null || leftCorner.distance(thisNearCCW).gt(thisWallFNLength)
-                        || leftCorner.distance(otherNearCW).gt(otherFN.getLength())) {
-                    leftCorner = thisNearCCW; // Intersection point outside wall range of shorter wall
-                }
-            } else { // leftAngle > 180
-                if (bevelType == WallBevelType.Miter) {
-                    leftCorner = MathUtils.calculateLinesIntersectionPoint(
-                        thisNearCCW, thisFarCCW,
-                        otherNearCW, otherFarCW).orElse(null);
-                    if (leftCorner == null || leftAngle > 270 && (
-                            leftCorner.distance(thisNearHandlePosition).gt(thickerWallThickness))) {
-                        // Walls build a sharp angle, intersection point is too far away; fallback to bevel
-                        leftCorner = thisNearCCW;
-                        if (includeLeftBevelApex) {
-                            oLeftBevelApexCorner = Optional.of(otherNearCW);
-                        }
-                    }
-                } else if (bevelType == WallBevelType.Bevel) {
-                    leftCorner = thisNearCCW;
-                    if (includeLeftBevelApex) {
-                        oLeftBevelApexCorner = Optional.of(otherNearCW);
-                    }
-                } else throw new IllegalArgumentException("Unexpected value for wall bevel type: '" + bevelType + "'");
-            }
+        if (!WallGeometryKernel.calculateWallEndCorner(true, nearX, nearY, farX, farY, thickness,
+                leftFarX, leftFarY, leftThickness, leftAngle, !leftHasBevelPriority, bevelType,
+                target, leftSlot, leftApexSlot)) {
+            return WALL_END_INVALID;
         }
 
         // Right (CW) situation
-        Position2D rightCorner;
-        Optional<Position2D> oRightBevelApexCorner = Optional.empty();
-        {
-            double rightAngle = rightWallData.getAngle(); // Angle between thisWallFN and otherWallFN in degrees
-            Position2D thisNearCW = thisNearHandlePosition.plus(thisWallCW2);
-            Position2D thisFarCW = thisFarHandlePosition.plus(thisWallCW2);
-            Vector2D otherCCW = rightWallData.getVectorCCW().times(0.5);
-            Position2D otherNearHandlePosition = rightWallData.getNearHandlePosition();
-            Position2D otherFarHandlePosition = rightWallData.getFarHandlePosition();
-            Position2D otherNearCCW = otherNearHandlePosition.plus(otherCCW);
-            Position2D otherFarCCW = otherFarHandlePosition.plus(otherCCW);
-            Vector2D otherFN = otherNearHandlePosition.minus(otherFarHandlePosition);
-            Length thickerWallThickness = Length.max(thisWallThickness, rightWallData.getThickness());
-            boolean includeRightBevelApex = !rightWallData.hasBevelPriority();
-
-            if (Math.abs(rightAngle) < EPSILON) {
-                // Other wall parallel, located over this wall (pointing to same direction)
-                return Optional.empty(); // Invalid situation, (hopefully) prevented by check above
-            } else if (Math.abs(rightAngle - 180) < EPSILON) {
-                rightCorner = thisNearCW; // Walls nearly parallel, other wall is elongation of this wall
-            } else if (rightAngle > 180) {
-                rightCorner = MathUtils.calculateLinesIntersectionPoint(
-                    thisNearCW, thisFarCW,
-                    otherNearCCW, otherFarCCW).orElse(null);
-
-                if (rightCorner == null || rightCorner.distance(thisNearCW).gt(thisWallFNLength)
-                        || rightCorner.distance(otherNearCCW).gt(otherFN.getLength())) {
-                    rightCorner = thisNearCW; // Intersection point outside wall range of shorter wall
-                }
-            } else { // rightAngle < 180
-                if (bevelType == WallBevelType.Miter) {
-                    rightCorner = MathUtils.calculateLinesIntersectionPoint(
-                        thisNearCW, thisFarCW,
-                        otherNearCCW, otherFarCCW).orElse(null);
-                    if (rightCorner == null || rightAngle < 90 && (
-                            rightCorner.distance(thisNearHandlePosition).gt(thickerWallThickness))) {
-                        // Walls build a sharp angle, intersection point is too far away; fallback to bevel
-                        rightCorner = thisNearCW;
-                        if (includeRightBevelApex) {
-                            oRightBevelApexCorner = Optional.of(otherNearCCW);
-                        }
-                    }
-                } else if (bevelType == WallBevelType.Bevel) {
-                    rightCorner = thisNearCW;
-                    if (includeRightBevelApex) {
-                        oRightBevelApexCorner = Optional.of(otherNearCCW);
-                    }
-                } else throw new IllegalArgumentException("Unexpected value for wall bevel type: '" + bevelType + "'");
-            }
+        if (!WallGeometryKernel.calculateWallEndCorner(false, nearX, nearY, farX, farY, thickness,
+                rightFarX, rightFarY, rightThickness, rightAngle, !rightHasBevelPriority, bevelType,
+                target, rightSlot, rightApexSlot)) {
+            return WALL_END_INVALID;
         }
-        return Optional.of(new WallEndAnchorPositions(leftCorner, oLeftBevelApexCorner, thisNearHandlePosition, oRightBevelApexCorner, rightCorner, true));
+        return WALL_END_WITH_NEIGHBOR;
     }
 
     public Position2D getHandleA() {
-        return mHandleA;
+        return getPosition(WallGeometryKernel.HANDLE_A);
     }
 
     public Position2D getHandleB() {
-        return mHandleB;
+        return getPosition(WallGeometryKernel.HANDLE_B);
     }
 
     public Position2D getCornerA1() {
-        return mCornerA1;
+        return getPosition(WallGeometryKernel.CORNER_A1);
     }
 
     public Optional<Position2D> getOA1BevelApex() {
-        return mOA1BevelApex;
+        return getOPosition(WallGeometryKernel.A1_BEVEL_APEX);
     }
 
     public Position2D getCornerA2() {
-        return mCornerA2;
+        return getPosition(WallGeometryKernel.CORNER_A2);
     }
 
     public Optional<Position2D> getOA2BevelApex() {
-        return mOA2BevelApex;
+        return getOPosition(WallGeometryKernel.A2_BEVEL_APEX);
     }
 
     public Position2D getCornerB1() {
-        return mCornerB1;
+        return getPosition(WallGeometryKernel.CORNER_B1);
     }
 
     public Optional<Position2D> getOB1BevelApex() {
-        return mOB1BevelApex;
+        return getOPosition(WallGeometryKernel.B1_BEVEL_APEX);
     }
 
     public Position2D getCornerB2() {
-        return mCornerB2;
+        return getPosition(WallGeometryKernel.CORNER_B2);
     }
 
     public Optional<Position2D> getOB2BevelApex() {
-        return mOB2BevelApex;
+        return getOPosition(WallGeometryKernel.B2_BEVEL_APEX);
+    }
+
+    /**
+     * Gets the coordinates of all anchor positions in millimeters in the layout described in {@link WallGeometryKernel}.
+     * The returned array must not be modified.
+     */
+    public double[] getCoords() {
+        return mCoords;
     }
 
     public WallOutline calculateWallOutlineCW() {
-        WallOutline result = new WallOutline(mCornerA1);
-        result.addCorner(WallSurface.One, false, mCornerB1);
-        mOB1BevelApex.ifPresent(b1BevelApex -> result.addCorner(WallSurface.B, false, b1BevelApex));
-        result.addCorner(WallSurface.B, mHasNeighborB, mHandleB);
-        mOB2BevelApex.ifPresent(b2BevelApex -> result.addCorner(WallSurface.B, mHasNeighborB, b2BevelApex));
-        result.addCorner(WallSurface.B, true, mCornerB2);
-        result.addCorner(WallSurface.Two, false, mCornerA2);
-        mOA2BevelApex.ifPresent(a2BevelApex -> result.addCorner(WallSurface.A, false, a2BevelApex));
-        result.addCorner(WallSurface.A, mHasNeighborA, mHandleA);
-        mOA1BevelApex.ifPresent(a1BevelApex -> result.addCorner(WallSurface.A, mHasNeighborA, a1BevelApex));
+        WallOutline result = new WallOutline(getCornerA1());
+        result.addCorner(WallSurface.One, false, getCornerB1());
+        getOB1BevelApex().ifPresent(b1BevelApex -> result.addCorner(WallSurface.B, false, b1BevelApex));
+        result.addCorner(WallSurface.B, mHasNeighborB, getHandleB());
+        getOB2BevelApex().ifPresent(b2BevelApex -> result.addCorner(WallSurface.B, mHasNeighborB, b2BevelApex));
+        result.addCorner(WallSurface.B, true, getCornerB2());
+        result.addCorner(WallSurface.Two, false, getCornerA2());
+        getOA2BevelApex().ifPresent(a2BevelApex -> result.addCorner(WallSurface.A, false, a2BevelApex));
+        result.addCorner(WallSurface.A, mHasNeighborA, getHandleA());
+        getOA1BevelApex().ifPresent(a1BevelApex -> result.addCorner(WallSurface.A, mHasNeighborA, a1BevelApex));
         result.closeOutline(WallSurface.A, true);
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * Allocation free variant of {@link #calculateWallOutlineCW()} which only produces the outline's corner points.
+     * @param target Array which takes the X/Y coordinates of the corners in millimeters, must have a size of at least
+     * {@code 2 * }{@link WallGeometryKernel#MAX_NUM_OUTLINE_CORNERS}.
+     * @return Number of corners written to {@code target}.
+     */
+    public int calculateWallOutlineCW(double[] target) {
+        return WallGeometryKernel.calculateWallOutlineCW(mCoords, target);
+    }
+}
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.model.wallmodel;
+
+import de.dh.cad.architect.model.coords.MathUtils;
+
+/**
+ * Allocation free geometry calculations for wall ends and wall outlines.
+ * All coordinates and lengths are given in millimeters as primitive {@code double} values. Results are written to caller
+ * provided coordinate arrays which are laid out as consecutive X/Y pairs, see the slot constants of this class. Missing
+ * optional positions, e.g. absent bevel apexes, are represented by {@link Double#NaN NaN} coordinates.
+ *
+ * The arithmetic is done in exactly the same order as in the {@link de.dh.cad.architect.model.coords.Length Length} /
+ * {@link de.dh.cad.architect.model.coords.Vector2D Vector2D} based calculations this kernel replaces, so the results
+ * are the same.
+ */
+public class WallGeometryKernel {
+    // Slots of the wall anchor positions coordinate array; X is located at the slot index, Y at the slot index + 1
+    public static final int HANDLE_A = 0;
+    public static final int HANDLE_B = 2;
+    public static final int CORNER_A1 = 4;
+    public static final int A1_BEVEL_APEX = 6;
+    public static final int CORNER_A2 = 8;
+    public static final int A2_BEVEL_APEX = 10;
+    public static final int CORNER_B1 = 12;
+    public static final int B1_BEVEL_APEX = 14;
+    public static final int CORNER_B2 = 16;
+    public static final int B2_BEVEL_APEX = 18;
+
+    public static final int NUM_ANCHOR_COORDS = 20;
+
+    /**
+     * Maximum number of corners of a wall outline: Four corners, the two handles and up to four bevel apexes.
+     */
+    public static final int MAX_NUM_OUTLINE_CORNERS = 10;
+
+    public static final double ANGLE_EPSILON = 0.001;
+
+    public static double length(double x, double y) {
+        return Math.sqrt(x * x + y * y);
+    }
+
+    public static double distance(double x1, double y1, double x2, double y2) {
+        return Math.sqrt((x2 - x1) * (x2 - x1) + (y2 - y1) * (y2 - y1));
+    }
+
+    /**
+     * Returns the angle between vector 1 and vector 2 in degrees from 0-360 degrees.
+     */
+    public static double angleBetween(double x1, double y1, double x2, double y2) {
+        double res = Math.atan2(x1*y2 - y1*x2, x1*x2 + y1*y2) * 180/Math.PI;
+        return res < 0 ? 360 + res : res;
+    }
+
+    public static boolean isPresent(double[] coords, int slot) {
+        return !Double.isNaN(coords[slot]);
+    }
+
+    public static void set(double[] coords, int slot, double x, double y) {
+        coords[slot] = x;
+        coords[slot + 1] = y;
+    }
+
+    public static void clear(double[] coords, int slot) {
+        coords[slot] = Double.NaN;
+        coords[slot + 1] = Double.NaN;
+    }
+
+    /**
+     * Calculates the two corners of a wall end which is not connected to any neighbor wall. The corners are located
+     * orthogonal to the wall direction, in half the wall's thickness distance from the handle.
+     * @param fnX X coordinate of the wall vector from the far handle to the near handle.
+     * @param fnY Y coordinate of the wall vector from the far handle to the near handle.
+     */
+    public static void calculateWallEndFromThickness(double nearX, double nearY, double fnX, double fnY, double thickness,
+        double[] target, int leftSlot, int leftApexSlot, int rightSlot, int rightApexSlot) {
+        double fnLength = length(-fnY, fnX);
+        double halfThickness = thickness / 2;
+        double vLeftX = -fnY / fnLength * halfThickness;
+        double vLeftY = fnX / fnLength * halfThickness;
+        set(target, leftSlot, nearX + vLeftX, nearY + vLeftY);
+        clear(target, leftApexSlot);
+        set(target, rightSlot, nearX - vLeftX, nearY - vLeftY);
+        clear(target, rightApexSlot);
+    }
+
+    /**
+     * Calculates the left (counter clockwise) or right (clockwise) corner of a wall end which is connected to the
+     * given neighbor wall.
+     * @param left {@code true} to calculate the left corner with the neighbor wall with the lowest angle,
+     * {@code false} to calculate the right corner with the neighbor wall with the biggest angle.
+     * @param nearX X coordinate of the handle at the calculated wall end, also the near handle of the neighbor wall.
+     * @param farX X coordinate of this wall's handle at the opposite wall end.
+     * @param otherFarX X coordinate of the neighbor wall's handle at its opposite wall end.
+     * @param angle Angle between the neighbor wall's far-near vector and this wall's far-near vector in degrees.
+     * @param includeBevelApex Whether a bevel apex should be produced for this corner, if the bevel situation requires one.
+     * This is the case if the neighbor wall doesn't have bevel priority.
+     * @return {@code false} if the neighbor wall is parallel to this wall, located over this wall, which is an invalid
+     * situation.
+     */
+    public static boolean calculateWallEndCorner(boolean left,
+        double nearX, double nearY, double farX, double farY, double thickness,
+        double otherFarX, double otherFarY, double otherThickness,
+        double angle, boolean includeBevelApex, WallBevelType bevelType,
+        double[] target, int cornerSlot, int apexSlot) {
+        // Half thickness vectors of this wall and the other wall, pointing in clockwise direction
+        double fnX = nearX - farX;
+        double fnY = nearY - farY;
+        double fnLength = length(fnY, -fnX);
+        double cw2X = fnY / fnLength * thickness * 0.5;
+        double cw2Y = -fnX / fnLength * thickness * 0.5;
+        double otherFNX = nearX - otherFarX;
+        double otherFNY = nearY - otherFarY;
+        double otherFNLength = length(otherFNY, -otherFNX);
+        double otherCW2X = otherFNY / otherFNLength * otherThickness * 0.5;
+        double otherCW2Y = -otherFNX / otherFNLength * otherThickness * 0.5;
+
+        // The left corner is located on the CCW side of this wall and on the CW side of the other wall, the right corner vice versa
+        double thisOffsetX = left ? -cw2X : cw2X;
+        double thisOffsetY = left ? -cw2Y : cw2Y;
+        double otherOffsetX = left ? otherCW2X : -otherCW2X;
+        double otherOffsetY = left ? otherCW2Y : -otherCW2Y;
+        double thisNearX = nearX + thisOffsetX;
+        double thisNearY = nearY + thisOffsetY;
+        double thisFarX = farX + thisOffsetX;
+        double thisFarY = farY + thisOffsetY;
+        double otherNearX = nearX + otherOffsetX;
+        double otherNearY = nearY + otherOffsetY;
+        double otherFarSideX = otherFarX + otherOffsetX;
+        double otherFarSideY = otherFarY + otherOffsetY;
+
+        clear(target, apexSlot);
+        if (Math.abs(angle) < ANGLE_EPSILON) {
+            // Other wall parallel, located over this wall (pointing to same direction)
+            return false;
+        } else if (Math.abs(angle - 180) < ANGLE_EPSILON) {
+            // Walls nearly parallel, other wall is elongation of this wall
+            set(target, cornerSlot, thisNearX, thisNearY);
+        } else if (left ? angle < 180 : angle > 180) {
+            if (!MathUtils.calculateLinesIntersectionPoint(
+                    thisNearX, thisNearY, thisFarX, thisFarY,
+                    otherNearX, otherNearY, otherFarSideX, otherFarSideY, target, cornerSlot)
+                    || distance(target[cornerSlot], target[cornerSlot + 1], thisNearX, thisNearY) > fnLength
+                    || distance(target[cornerSlot], target[cornerSlot + 1], otherNearX, otherNearY) > otherFNLength) {
+                // Intersection point outside wall range of shorter wall
+                set(target, cornerSlot, thisNearX, thisNearY);
+            }
+        } else {
+            boolean useBevel;
+            if (bevelType == WallBevelType.Miter) {
+                double thickerWallThickness = thickness < otherThickness ? otherThickness : thickness;
+                boolean sharpAngle = left ? angle > 270 : angle < 90;
+                // Walls build a sharp angle, intersection point is too far away; fallback to bevel
+                useBevel = !MathUtils.calculateLinesIntersectionPoint(
+                        thisNearX, thisNearY, thisFarX, thisFarY,
+                        otherNearX, otherNearY, otherFarSideX, otherFarSideY, target, cornerSlot)
+                        || sharpAngle && distance(target[cornerSlot], target[cornerSlot + 1], nearX, nearY) > thickerWallThickness;
+            } else if (bevelType == WallBevelType.Bevel) {
+                useBevel = true;
+            } else throw new IllegalArgumentException("Unexpected value for wall bevel type: '" + bevelType + "'");
+            if (useBevel) {
+                set(target, cornerSlot, thisNearX, thisNearY);
+                if (includeBevelApex) {
+                    set(target, apexSlot, otherNearX, otherNearY);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the corner points of the clockwise wall outline of the given wall anchor positions to the given target array
+     * as X/Y pairs. The target array must have space for {@link #MAX_NUM_OUTLINE_CORNERS} corners.
+     * @return Number of written corners.
+     */
+    public static int calculateWallOutlineCW(double[] anchorCoords, double[] target) {
+        int numCorners = 0;
+        numCorners = addOutlineCorner(anchorCoords, CORNER_A1, target, numCorners);
+        numCorners = addOutlineCorner(anchorCoords, CORNER_B1, target, numCorners);
+        numCorners = addOutlineCorner(anchorCoords, B1_BEVEL_APEX, target, numCorners);
+        numCorners = addOutlineCorner(anchorCoords, HANDLE_B, target, numCorners);
+        numCorners = addOutlineCorner(anchorCoords, B2_BEVEL_APEX, target, numCorners);
+        numCorners = addOutlineCorner(anchorCoords, CORNER_B2, target, numCorners);
+        numCorners = addOutlineCorner(anchorCoords, CORNER_A2, target, numCorners);
+        numCorners = addOutlineCorner(anchorCoords, A2_BEVEL_APEX, target, numCorners);
+        numCorners = addOutlineCorner(anchorCoords, HANDLE_A, target, numCorners);
+        numCorners = addOutlineCorner(anchorCoords, A1_BEVEL_APEX, target, numCorners);
+        return numCorners;
+    }
+
+    protected static int addOutlineCorner(double[] anchorCoords, int slot, double[] target, int numCorners) {
+        if (!isPresent(anchorCoords, slot)) {
+            return numCorners;
+        }
+        set(target, numCorners * 2, anchorCoords[slot], anchorCoords[slot + 1]);
+        return numCorners + 1;
+    }
+}
@@ -23,6 +23,7 @@ module de.dh.cad.architect.model {
     exports de.dh.cad.architect.model.wallmodel;
     exports de.dh.cad.architect.model.assets;
     exports de.dh.cad.architect.model.coords;
+    exports de.dh.cad.architect.model.snapshot;
 
     opens de.dh.cad.architect.model.jaxb;
     opens de.dh.cad.architect.model.objects;
@@ -0,0 +1,100 @@
+package de.dh.cad.architect.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.dh.cad.architect.model.assets.MeshManifest;
+import de.dh.cad.architect.model.assets.MeshManifest.MeshEntry;
+import de.dh.cad.architect.utils.vfs.PlainFileSystemResourceLocator;
+import de.dh.utils.io.obj.ObjReader;
+
+/**
+ * Test class for {@link MeshManifest}.
+ * Creates manifests of small OBJ models and checks the mesh names, default materials and bounds.
+ */
+public class MeshManifestTest {
+    protected static final String OBJ_MODEL = String.join("\n",
+        "mtllib chair.mtl",
+        "v 0 0 0",
+        "v 1 0 0",
+        "v 0 2 0",
+        "# Vertex which is not used by any face",
+        "v 5 5 5",
+        "v -1 0 3",
+        "o Seat",
+        "usemtl Fabric",
+        "f 1 2 3",
+        "o Legs",
+        "usemtl Wood",
+        "f 1 2 5",
+        "");
+
+    protected Path mDirectory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        mDirectory = Files.createTempDirectory("MeshManifestTest");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(mDirectory.toFile());
+    }
+
+    protected MeshManifest createManifest(String objModel) throws IOException {
+        Path objFile = mDirectory.resolve("model.obj");
+        Files.writeString(objFile, objModel);
+        return MeshManifest.create(ObjReader.readObjRaw(new PlainFileSystemResourceLocator(objFile)));
+    }
+
+    @Test
+    @DisplayName("The manifest contains all meshes with their default materials")
+    public void testMeshes() throws IOException {
+        MeshManifest manifest = createManifest(OBJ_MODEL);
+        List<MeshEntry> meshes = manifest.getMeshes();
+        assertEquals(2, meshes.size());
+        Map<String, String> meshNamesToMaterialNames = new TreeMap<>();
+        for (MeshEntry entry : meshes) {
+            meshNamesToMaterialNames.put(entry.getMeshName(), entry.getDefaultMaterialName());
+        }
+        assertEquals(Map.of("Seat", "Fabric", "Legs", "Wood"), meshNamesToMaterialNames);
+        // Mesh names are the surface ids of a new support object
+        assertEquals(Set.of("Seat", "Legs"), manifest.getMeshNames());
+    }
+
+    @Test
+    @DisplayName("The bounds of the manifest enclose all vertices which are used by the meshes")
+    public void testBounds() throws IOException {
+        MeshManifest manifest = createManifest(OBJ_MODEL);
+        assertEquals(-1, manifest.getMinX());
+        assertEquals(0, manifest.getMinY());
+        assertEquals(0, manifest.getMinZ());
+        assertEquals(1, manifest.getMaxX());
+        assertEquals(2, manifest.getMaxY());
+        assertEquals(3, manifest.getMaxZ());
+    }
+
+    @Test
+    @DisplayName("A model without faces results in an empty manifest")
+    public void testEmptyModel() throws IOException {
+        MeshManifest manifest = createManifest("v 1 2 3\nv 4 5 6\n");
+        assertTrue(manifest.getMeshes().isEmpty());
+        assertTrue(manifest.getMeshNames().isEmpty());
+        assertEquals(0, manifest.getMinX());
+        assertEquals(0, manifest.getMaxZ());
+    }
+}
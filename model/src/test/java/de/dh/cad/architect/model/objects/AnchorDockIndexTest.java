@@ -0,0 +1,204 @@
+package de.dh.cad.architect.model.objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.dh.cad.architect.model.Plan;
+import de.dh.cad.architect.model.changes.IModelChange;
+import de.dh.cad.architect.model.changes.MacroChange;
+import de.dh.cad.architect.model.coords.Length;
+import de.dh.cad.architect.model.coords.Position2D;
+import de.dh.cad.architect.model.coords.Vector2D;
+
+/**
+ * Test class for {@link AnchorDockIndex}.
+ * Executes random sequences of dock, undock, delete, undo and redo operations and checks the answers of the index-backed
+ * dock methods of {@link Anchor} against a recursive walk of the current dock hierarchy after each step.
+ */
+public class AnchorDockIndexTest {
+    protected static final int NUM_SEEDS = 20;
+    protected static final int NUM_OPERATIONS = 200;
+    protected static final int NUM_WALLS = 12;
+
+    protected static final Length WALL_THICKNESS = Length.ofCM(20);
+    protected static final Length WALL_HEIGHT = Length.ofM(2.5);
+
+    protected static class Scenario {
+        protected final Random mRandom;
+        protected final Plan mPlan = Plan.newPlan();
+        protected final Deque<IModelChange> mUndoStack = new ArrayDeque<>();
+        protected final Deque<IModelChange> mRedoStack = new ArrayDeque<>();
+
+        public Scenario(long seed) {
+            mRandom = new Random(seed);
+            List<IModelChange> changeTrace = new ArrayList<>();
+            for (int i = 0; i < NUM_WALLS; i++) {
+                Position2D handleA = new Position2D(Length.ofM(mRandom.nextInt(10)), Length.ofM(mRandom.nextInt(10)));
+                Position2D handleB = handleA.plus(new Vector2D(Length.ofM(1 + mRandom.nextInt(3)), Length.ofM(1)));
+                Wall.createFromHandlePositions("Wall " + i, WALL_THICKNESS, WALL_HEIGHT, WALL_HEIGHT, handleA, handleB, mPlan, changeTrace);
+            }
+        }
+
+        public List<Anchor> getAnchors() {
+            return new ArrayList<>(mPlan.getAnchors().values());
+        }
+
+        protected Anchor randomAnchor() {
+            List<Anchor> anchors = getAnchors();
+            return anchors.get(mRandom.nextInt(anchors.size()));
+        }
+
+        protected void execute(List<IModelChange> changeTrace) {
+            if (!changeTrace.isEmpty()) {
+                mUndoStack.push(MacroChange.create(changeTrace, false));
+                mRedoStack.clear();
+            }
+        }
+
+        public void executeRandomOperation() {
+            List<IModelChange> changeTrace = new ArrayList<>();
+            int operation = mRandom.nextInt(10);
+            if (operation < 5) {
+                // Dock a random anchor to another anchor which is not part of its own dock subtree
+                Anchor anchor = randomAnchor();
+                Anchor target = randomAnchor();
+                if (referenceDownStream(anchor).contains(target)) {
+                    return;
+                }
+                Optional<Integer> oIndex = mRandom.nextBoolean()
+                                ? Optional.of(mRandom.nextInt(target.getDockSlaves().size() + 1))
+                                : Optional.empty();
+                anchor.setDockMaster(target, oIndex, changeTrace);
+            } else if (operation == 5) {
+                randomAnchor().undockFromDockMaster(changeTrace);
+            } else if (operation == 6) {
+                randomAnchor().undockAllDockSlaves(changeTrace);
+            } else if (operation == 7) {
+                if (mPlan.getWalls().size() > NUM_WALLS / 2) {
+                    List<Wall> walls = new ArrayList<>(mPlan.getWalls().values());
+                    walls.get(mRandom.nextInt(walls.size())).delete(changeTrace);
+                }
+            } else if (operation == 8) {
+                if (!mUndoStack.isEmpty()) {
+                    List<IModelChange> undoChangeTrace = new ArrayList<>();
+                    mUndoStack.pop().undo(undoChangeTrace);
+                    mRedoStack.push(MacroChange.create(undoChangeTrace, false));
+                }
+                return;
+            } else {
+                if (!mRedoStack.isEmpty()) {
+                    List<IModelChange> redoChangeTrace = new ArrayList<>();
+                    mRedoStack.pop().undo(redoChangeTrace);
+                    mUndoStack.push(MacroChange.create(redoChangeTrace, false));
+                }
+                return;
+            }
+            execute(changeTrace);
+        }
+    }
+
+    // Reference implementations, walking the dock hierarchy recursively like the former implementation of Anchor did
+
+    protected static Anchor referenceRootMaster(Anchor anchor) {
+        Optional<Anchor> oDockMaster = anchor.getDockMaster();
+        return oDockMaster.isPresent() ? referenceRootMaster(oDockMaster.get()) : anchor;
+    }
+
+    protected static List<Anchor> referenceDownStream(Anchor anchor) {
+        List<Anchor> result = new ArrayList<>();
+        result.add(anchor);
+        for (Anchor dockSlave : anchor.getDockSlaves()) {
+            result.addAll(referenceDownStream(dockSlave));
+        }
+        return result;
+    }
+
+    protected static List<Anchor> referenceAllDockedAnchors(Anchor anchor) {
+        return referenceDownStream(referenceRootMaster(anchor));
+    }
+
+    protected static List<BaseAnchoredObject> referenceAllDockOwners(Anchor anchor) {
+        return referenceAllDockedAnchors(anchor)
+                        .stream()
+                        .map(a -> a.getAnchorOwner())
+                        .collect(Collectors.toList());
+    }
+
+    protected static void assertConsistent(Scenario scenario, String context) {
+        for (Anchor anchor : scenario.getAnchors()) {
+            assertSame(referenceRootMaster(anchor), anchor.getRootMasterOfAnchorDock(), () -> context + ": Root master of " + anchor);
+            assertEquals(referenceAllDockedAnchors(anchor), anchor.getAllDockedAnchors(), () -> context + ": Docked anchors of " + anchor);
+            assertEquals(referenceAllDockOwners(anchor), anchor.getAllDockOwners(), () -> context + ": Dock owners of " + anchor);
+            assertEquals(referenceDownStream(anchor), anchor.getAllDockedAnchorsDownStream(), () -> context + ": Downstream anchors of " + anchor);
+        }
+    }
+
+    @Test
+    @DisplayName("Index answers match recursive dock walk for random dock operations with undo/redo")
+    public void testRandomDockOperations() {
+        for (long seed = 0; seed < NUM_SEEDS; seed++) {
+            Scenario scenario = new Scenario(seed);
+            assertConsistent(scenario, "Seed " + seed + ", initial");
+            for (int i = 0; i < NUM_OPERATIONS; i++) {
+                scenario.executeRandomOperation();
+                assertConsistent(scenario, "Seed " + seed + ", operation " + i);
+            }
+
+            // Undo everything, the dock hierarchy must be completely dissolved again
+            while (!scenario.mUndoStack.isEmpty()) {
+                List<IModelChange> undoChangeTrace = new ArrayList<>();
+                scenario.mUndoStack.pop().undo(undoChangeTrace);
+                assertConsistent(scenario, "Seed " + seed + ", undo all");
+            }
+            assertEquals(NUM_WALLS, scenario.mPlan.getWalls().size());
+            for (Anchor anchor : scenario.getAnchors()) {
+                assertEquals(1, anchor.getAllDockedAnchors().size(), "Seed " + seed + ": Anchor still docked after undo of all operations: " + anchor);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Rebuilt index matches recursive dock walk")
+    public void testRebuild() {
+        Scenario scenario = new Scenario(42);
+        for (int i = 0; i < NUM_OPERATIONS; i++) {
+            scenario.executeRandomOperation();
+        }
+        scenario.mPlan.afterDeserialize();
+        assertEquals(scenario.getAnchors().size(), scenario.mPlan.getAnchorDockIndex().getNumIndexedAnchors());
+        assertConsistent(scenario, "After rebuild");
+    }
+
+    @Test
+    @DisplayName("Docked anchors share one immutable cluster")
+    public void testSharedImmutableViews() {
+        Scenario scenario = new Scenario(7);
+        List<Anchor> anchors = scenario.getAnchors();
+        Anchor master = anchors.get(0);
+        Anchor slave = anchors.get(1);
+        slave.setDockMaster(master, new ArrayList<>());
+
+        List<Anchor> dockedAnchors = master.getAllDockedAnchors();
+        assertSame(dockedAnchors, slave.getAllDockedAnchors());
+        assertSame(master.getAllDockOwners(), slave.getAllDockOwners());
+        assertThrows(UnsupportedOperationException.class, () -> dockedAnchors.add(master));
+        assertThrows(UnsupportedOperationException.class, () -> master.getAllDockOwners().clear());
+
+        slave.undockFromDockMaster(new ArrayList<>());
+        assertTrue(slave.getAllDockedAnchors().size() == 1 && master.getAllDockedAnchors().size() == 1);
+        assertEquals(2, dockedAnchors.size(), "Former cluster view must not change");
+    }
+}
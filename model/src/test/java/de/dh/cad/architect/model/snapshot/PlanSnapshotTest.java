@@ -0,0 +1,309 @@
+package de.dh.cad.architect.model.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.dh.cad.architect.model.Plan;
+import de.dh.cad.architect.model.changes.IModelChange;
+import de.dh.cad.architect.model.changes.MacroChange;
+import de.dh.cad.architect.model.coords.Dimensions2D;
+import de.dh.cad.architect.model.coords.Length;
+import de.dh.cad.architect.model.coords.Position2D;
+import de.dh.cad.architect.model.coords.Vector2D;
+import de.dh.cad.architect.model.objects.Anchor;
+import de.dh.cad.architect.model.objects.Dimensioning;
+import de.dh.cad.architect.model.objects.ObjectsGroup;
+import de.dh.cad.architect.model.objects.Wall;
+import de.dh.cad.architect.model.objects.WallHole;
+import de.dh.cad.architect.model.snapshot.IObjectState.WallState;
+import de.dh.cad.architect.model.wallmodel.WallDockEnd;
+
+/**
+ * Test class for {@link PlanSnapshot}.
+ * Executes random sequences of plan operations with undo and redo and checks after each step that the incrementally
+ * updated snapshot equals a snapshot which is completely captured from the current plan.
+ * The benchmark is only executed if the system property {@value #BENCHMARK_PROPERTY} is set to {@code true}.
+ */
+public class PlanSnapshotTest {
+    private static final Logger log = LoggerFactory.getLogger(PlanSnapshotTest.class);
+
+    protected static final String BENCHMARK_PROPERTY = "architect.test.benchmark";
+
+    protected static final int NUM_SEEDS = 10;
+    protected static final int NUM_OPERATIONS = 200;
+    protected static final int NUM_WALLS = 12;
+
+    protected static final Length WALL_THICKNESS = Length.ofCM(20);
+    protected static final Length WALL_HEIGHT = Length.ofM(2.5);
+
+    protected static Wall createWall(Random random, String name, Plan plan, List<IModelChange> changeTrace) {
+        Position2D handleA = new Position2D(Length.ofM(random.nextInt(10)), Length.ofM(random.nextInt(10)));
+        Position2D handleB = handleA.plus(new Vector2D(Length.ofM(1 + random.nextInt(3)), Length.ofM(1)));
+        return Wall.createFromHandlePositions(name, WALL_THICKNESS, WALL_HEIGHT, WALL_HEIGHT, handleA, handleB, plan, changeTrace);
+    }
+
+    protected static WallHole createWallHole(String name, Wall wall, List<IModelChange> changeTrace) {
+        return WallHole.createFromParameters(name, Length.ofCM(90), new Dimensions2D(Length.ofCM(80), Length.ofCM(120)),
+            WallDockEnd.A, Length.ofCM(20), wall, changeTrace);
+    }
+
+    protected static class Scenario {
+        protected final Random mRandom;
+        protected final Plan mPlan = Plan.newPlan();
+        protected final Deque<IModelChange> mUndoStack = new ArrayDeque<>();
+        protected final Deque<IModelChange> mRedoStack = new ArrayDeque<>();
+        protected PlanSnapshot mSnapshot;
+        protected int mNumCreatedObjects = 0;
+
+        public Scenario(long seed, int numWalls) {
+            mRandom = new Random(seed);
+            List<IModelChange> changeTrace = new ArrayList<>();
+            List<Wall> walls = new ArrayList<>();
+            for (int i = 0; i < numWalls; i++) {
+                Wall wall = createWall(mRandom, "Wall " + i, mPlan, changeTrace);
+                if (i % 2 == 0) {
+                    createWallHole("Hole " + i, wall, changeTrace);
+                }
+                walls.add(wall);
+            }
+            Dimensioning.create("Dimensioning", new Position2D(Length.ofM(0), Length.ofM(0)), new Position2D(Length.ofM(5), Length.ofM(0)), 10, mPlan, changeTrace);
+            ObjectsGroup group = ObjectsGroup.create("Group", "Group", mPlan, changeTrace);
+            group.addObject(walls.get(0), changeTrace);
+            group.addObject(walls.get(1), changeTrace);
+            mSnapshot = PlanSnapshot.of(mPlan);
+        }
+
+        protected <T> T randomElement(List<T> elements) {
+            return elements.get(mRandom.nextInt(elements.size()));
+        }
+
+        protected Anchor randomAnchor() {
+            return randomElement(new ArrayList<>(mPlan.getAnchors().values()));
+        }
+
+        protected Wall randomWall() {
+            return randomElement(new ArrayList<>(mPlan.getWalls().values()));
+        }
+
+        protected void apply(IModelChange change) {
+            mSnapshot = mSnapshot.withChanges(mPlan, change);
+        }
+
+        public void executeRandomOperation() {
+            List<IModelChange> changeTrace = new ArrayList<>();
+            int operation = mRandom.nextInt(10);
+            if (operation < 2) {
+                Anchor anchor = randomAnchor();
+                Anchor target = randomAnchor();
+                if (anchor.getAllDockedAnchorsDownStream().contains(target)) {
+                    return;
+                }
+                anchor.setDockMaster(target, changeTrace);
+            } else if (operation == 2) {
+                randomAnchor().undockFromDockMaster(changeTrace);
+            } else if (operation == 3) {
+                if (mPlan.getWalls().size() > NUM_WALLS / 2) {
+                    randomWall().delete(changeTrace);
+                }
+            } else if (operation == 4) {
+                Wall wall = createWall(mRandom, "New wall " + mNumCreatedObjects++, mPlan, changeTrace);
+                createWallHole("New hole " + mNumCreatedObjects++, wall, changeTrace);
+            } else if (operation == 5) {
+                Wall wall = randomWall();
+                if (mRandom.nextBoolean()) {
+                    wall.setThickness(Length.ofCM(10 + mRandom.nextInt(30)), changeTrace);
+                } else if (!wall.getWallHoles().isEmpty()) {
+                    WallHole wallHole = wall.getWallHoles().iterator().next();
+                    wallHole.setParapetHeight(Length.ofCM(mRandom.nextInt(100)), changeTrace);
+                }
+            } else if (operation == 6) {
+                Anchor anchor = randomAnchor();
+                if (anchor.getPosition() instanceof Position2D position) {
+                    anchor.setPosition(position.plus(new Vector2D(Length.ofCM(mRandom.nextInt(100)), Length.ofCM(mRandom.nextInt(100)))), changeTrace);
+                }
+            } else if (operation == 7) {
+                randomWall().setName("Renamed " + mNumCreatedObjects++, changeTrace);
+            } else if (operation == 8) {
+                if (!mUndoStack.isEmpty()) {
+                    List<IModelChange> undoChangeTrace = new ArrayList<>();
+                    mUndoStack.pop().undo(undoChangeTrace);
+                    IModelChange undoChange = MacroChange.create(undoChangeTrace, false);
+                    mRedoStack.push(undoChange);
+                    apply(undoChange);
+                }
+                return;
+            } else {
+                if (!mRedoStack.isEmpty()) {
+                    List<IModelChange> redoChangeTrace = new ArrayList<>();
+                    mRedoStack.pop().undo(redoChangeTrace);
+                    IModelChange redoChange = MacroChange.create(redoChangeTrace, false);
+                    mUndoStack.push(redoChange);
+                    apply(redoChange);
+                }
+                return;
+            }
+            if (!changeTrace.isEmpty()) {
+                IModelChange change = MacroChange.create(changeTrace, false);
+                mUndoStack.push(change);
+                mRedoStack.clear();
+                apply(change);
+            }
+        }
+    }
+
+    protected static Map<String, IObjectState> toMap(PlanSnapshot snapshot) {
+        Map<String, IObjectState> result = new HashMap<>();
+        snapshot.forEach(result::put);
+        return result;
+    }
+
+    protected static void assertSnapshotEquals(PlanSnapshot expected, PlanSnapshot actual, String context) {
+        assertEquals(expected.getNumObjects(), actual.getNumObjects(), context + ": Number of objects");
+        assertEquals(toMap(expected), toMap(actual), context + ": Object states");
+    }
+
+    @Test
+    @DisplayName("Incrementally updated snapshot equals full capture for random operations with undo/redo")
+    public void testRandomOperations() {
+        for (long seed = 0; seed < NUM_SEEDS; seed++) {
+            Scenario scenario = new Scenario(seed, NUM_WALLS);
+            for (int i = 0; i < NUM_OPERATIONS; i++) {
+                scenario.executeRandomOperation();
+                assertSnapshotEquals(PlanSnapshot.of(scenario.mPlan), scenario.mSnapshot, "Seed " + seed + ", operation " + i);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Snapshot is not affected by later changes and shares unchanged object states")
+    public void testImmutabilityAndSharing() {
+        Scenario scenario = new Scenario(42, NUM_WALLS);
+        PlanSnapshot before = scenario.mSnapshot;
+        Map<String, IObjectState> statesBefore = toMap(before);
+
+        Wall wall = scenario.mPlan.getWalls().values().iterator().next();
+        List<IModelChange> changeTrace = new ArrayList<>();
+        wall.setThickness(Length.ofCM(42), changeTrace);
+        PlanSnapshot after = before.withChanges(scenario.mPlan, MacroChange.create(changeTrace, false));
+
+        assertEquals(statesBefore, toMap(before), "Former snapshot must not change");
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(Length.ofCM(42), ((WallState) after.getObjectState(wall.getId()).get()).thickness());
+        assertEquals(WALL_THICKNESS, ((WallState) before.getObjectState(wall.getId()).get()).thickness());
+        int numShared = 0;
+        for (Map.Entry<String, IObjectState> entry : statesBefore.entrySet()) {
+            if (after.getObjectState(entry.getKey()).get() == entry.getValue()) {
+                numShared++;
+            }
+        }
+        assertEquals(statesBefore.size() - 1, numShared, "All states except the one of the modified wall must be shared");
+
+        // Deleting a wall must also remove its holes
+        changeTrace.clear();
+        List<String> wallHoleIds = ((WallState) after.getObjectState(wall.getId()).get()).wallHoleIds();
+        wall.delete(changeTrace);
+        PlanSnapshot afterDelete = after.withChanges(scenario.mPlan, MacroChange.create(changeTrace, false));
+        assertTrue(afterDelete.getObjectState(wall.getId()).isEmpty());
+        for (String wallHoleId : wallHoleIds) {
+            assertTrue(afterDelete.getObjectState(wallHoleId).isEmpty());
+        }
+        assertSnapshotEquals(PlanSnapshot.of(scenario.mPlan), afterDelete, "After delete");
+    }
+
+    @Test
+    @DisplayName("Materialized plan reproduces the snapshot")
+    public void testToPlan() {
+        Scenario scenario = new Scenario(7, NUM_WALLS);
+        for (int i = 0; i < NUM_OPERATIONS; i++) {
+            scenario.executeRandomOperation();
+        }
+        Plan plan = scenario.mSnapshot.toPlan();
+        assertSnapshotEquals(scenario.mSnapshot, PlanSnapshot.of(plan), "Materialized plan");
+        assertEquals(scenario.mPlan.getAnchors().keySet(), plan.getAnchors().keySet());
+        for (Anchor anchor : plan.getAnchors().values()) {
+            Anchor original = scenario.mPlan.getAnchors().get(anchor.getId());
+            assertEquals(original.getAnchorOwner().getId(), anchor.getAnchorOwner().getId());
+            assertEquals(original.getAllDockedAnchors().size(), anchor.getAllDockedAnchors().size());
+            assertSame(plan, anchor.getAnchorOwner().getAnchorContainer());
+        }
+        for (Wall wall : plan.getWalls().values()) {
+            for (WallHole wallHole : wall.getWallHoles()) {
+                assertSame(wall, wallHole.getWall());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Persistent map behaves like a hash map")
+    public void testPersistentHashMap() {
+        Random random = new Random(0);
+        Map<Integer, Integer> reference = new HashMap<>();
+        PersistentHashMap<Integer, Integer> map = PersistentHashMap.empty();
+        for (int i = 0; i < 20000; i++) {
+            // Few different keys with many hash collisions in the lower bits
+            Integer key = random.nextInt(2000) << (random.nextBoolean() ? 0 : 16);
+            PersistentHashMap<Integer, Integer> former = map;
+            if (random.nextInt(3) == 0) {
+                reference.remove(key);
+                map = map.minus(key);
+                assertNull(map.get(key));
+            } else {
+                reference.put(key, i);
+                map = map.plus(key, i);
+            }
+            if (former != map && random.nextInt(100) == 0) {
+                Map<Integer, Integer> formerContents = new HashMap<>();
+                former.forEach(formerContents::put);
+                assertEquals(former.size(), formerContents.size());
+            }
+            assertEquals(reference.size(), map.size());
+            assertEquals(reference.get(key), map.get(key));
+        }
+        Map<Integer, Integer> contents = new HashMap<>();
+        map.forEach(contents::put);
+        assertEquals(reference, contents);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = BENCHMARK_PROPERTY, matches = "true")
+    @DisplayName("Benchmark: Snapshot after a single wall change in a 2000 wall plan")
+    public void benchmarkSingleChangeIn2000WallPlan() {
+        Scenario scenario = new Scenario(0, 2000);
+        int numSteps = 200;
+        long fullCaptureNanos = 0;
+        long incrementalNanos = 0;
+        List<Wall> walls = new ArrayList<>(scenario.mPlan.getWalls().values());
+        for (int i = 0; i < numSteps; i++) {
+            List<IModelChange> changeTrace = new ArrayList<>();
+            walls.get(i % walls.size()).setThickness(Length.ofCM(10 + i % 30), changeTrace);
+            IModelChange change = MacroChange.create(changeTrace, false);
+
+            long startTime = System.nanoTime();
+            scenario.apply(change);
+            incrementalNanos += System.nanoTime() - startTime;
+
+            startTime = System.nanoTime();
+            PlanSnapshot.of(scenario.mPlan);
+            fullCaptureNanos += System.nanoTime() - startTime;
+        }
+        log.info(String.format("Snapshot of plan with %d walls, %d objects: %.3f ms full capture, %.4f ms incremental update after single wall change",
+            walls.size(), scenario.mSnapshot.getNumObjects(), fullCaptureNanos / 1_000_000.0 / numSteps, incrementalNanos / 1_000_000.0 / numSteps));
+        assertTrue(incrementalNanos < fullCaptureNanos, "Incremental snapshot update must be cheaper than a full capture");
+    }
+}
@@ -0,0 +1,364 @@
+package de.dh.cad.architect.model.wallmodel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.dh.cad.architect.model.Plan;
+import de.dh.cad.architect.model.changes.IModelChange;
+import de.dh.cad.architect.model.coords.Angle;
+import de.dh.cad.architect.model.coords.Length;
+import de.dh.cad.architect.model.coords.LengthUnit;
+import de.dh.cad.architect.model.coords.MathUtils;
+import de.dh.cad.architect.model.coords.Position2D;
+import de.dh.cad.architect.model.coords.Vector2D;
+import de.dh.cad.architect.model.objects.Anchor;
+import de.dh.cad.architect.model.objects.Wall;
+
+/**
+ * Test class for {@link WallGeometryKernel}.
+ * Compares the primitive wall end and outline calculation of {@link WallAnchorPositions} with the former
+ * {@link Length}/{@link Vector2D} based implementation on a randomized corpus of wall junctions.
+ */
+public class WallGeometryKernelTest {
+    protected static final double MAX_DEVIATION_MM = 1e-9;
+    protected static final int NUM_PLANS = 200;
+
+    /**
+     * Former, object based implementation of {@link WallAnchorPositions#calculateDockSituation(IWall)}.
+     * Produces the positions in the coordinate layout of {@link WallGeometryKernel}, the last two entries hold the
+     * neighbor flags of wall end A and B.
+     */
+    protected static class ReferenceImplementation {
+        protected static final double EPSILON = 0.001;
+        protected static final Length WALL_MIN_LENGTH = Length.ofMM(5);
+
+        protected static class WallEnd {
+            Position2D mLeftCorner;
+            Optional<Position2D> mOLeftBevelApexCorner = Optional.empty();
+            Position2D mRightCorner;
+            Optional<Position2D> mORightBevelApexCorner = Optional.empty();
+            boolean mHasNeighbor;
+        }
+
+        protected static WallEnd fromThickness(Position2D handlePosition, Vector2D wallFN, Length thickness, boolean hasNeighbor) {
+            Vector2D vLeft = wallFN.getNormalCCW().toUnitVector(LengthUnit.DEFAULT).times(thickness.inInternalFormat() / 2);
+            WallEnd result = new WallEnd();
+            result.mLeftCorner = handlePosition.plus(vLeft);
+            result.mRightCorner = handlePosition.minus(vLeft);
+            result.mHasNeighbor = hasNeighbor;
+            return result;
+        }
+
+        protected static Vector2D vectorCW(Position2D near, Position2D far, Length thickness) {
+            return near.minus(far).getNormalCW().scaleToLength(thickness);
+        }
+
+        public static Optional<double[]> calculateDockSituation(IWall wall) {
+            Length thickness = wall.getThickness();
+            IWallAnchor anchorWallHandleA = wall.getAnchorWallHandleA();
+            IWallAnchor anchorWallHandleB = wall.getAnchorWallHandleB();
+            Optional<WallEnd> oWeA = calculateWallEnd(anchorWallHandleA, anchorWallHandleB, thickness);
+            Optional<WallEnd> oWeB = calculateWallEnd(anchorWallHandleB, anchorWallHandleA, thickness);
+            Position2D posHandleA = anchorWallHandleA.getPosition();
+            Position2D posHandleB = anchorWallHandleB.getPosition();
+            WallEnd weA = oWeA.orElse(fromThickness(posHandleA, posHandleA.minus(posHandleB), thickness, wall.hasNeighborWallA()));
+            WallEnd weB = oWeB.orElse(fromThickness(posHandleB, posHandleB.minus(posHandleA), thickness, wall.hasNeighborWallB()));
+            double[] result = new double[WallGeometryKernel.NUM_ANCHOR_COORDS + 2];
+            set(result, WallGeometryKernel.HANDLE_A, posHandleA);
+            set(result, WallGeometryKernel.HANDLE_B, posHandleB);
+            set(result, WallGeometryKernel.CORNER_A1, weA.mRightCorner);
+            set(result, WallGeometryKernel.A1_BEVEL_APEX, weA.mORightBevelApexCorner.orElse(null));
+            set(result, WallGeometryKernel.CORNER_A2, weA.mLeftCorner);
+            set(result, WallGeometryKernel.A2_BEVEL_APEX, weA.mOLeftBevelApexCorner.orElse(null));
+            set(result, WallGeometryKernel.CORNER_B1, weB.mLeftCorner);
+            set(result, WallGeometryKernel.B1_BEVEL_APEX, weB.mOLeftBevelApexCorner.orElse(null));
+            set(result, WallGeometryKernel.CORNER_B2, weB.mRightCorner);
+            set(result, WallGeometryKernel.B2_BEVEL_APEX, weB.mORightBevelApexCorner.orElse(null));
+            result[WallGeometryKernel.NUM_ANCHOR_COORDS] = weA.mHasNeighbor ? 1 : 0;
+            result[WallGeometryKernel.NUM_ANCHOR_COORDS + 1] = weB.mHasNeighbor ? 1 : 0;
+            return Optional.of(result);
+        }
+
+        protected static void set(double[] coords, int slot, Position2D position) {
+            coords[slot] = position == null ? Double.NaN : position.getX().inMM();
+            coords[slot + 1] = position == null ? Double.NaN : position.getY().inMM();
+        }
+
+        protected static Optional<WallEnd> calculateWallEnd(IWallAnchor thisNearHandleAnchor, IWallAnchor thisFarHandleAnchor, Length thisWallThickness) {
+            Position2D thisNearHandlePosition = thisNearHandleAnchor.getPosition();
+            Position2D thisFarHandlePosition = thisFarHandleAnchor.getPosition();
+            Vector2D thisWallFN = thisNearHandlePosition.minus(thisFarHandlePosition);
+            Length thisWallFNLength = thisWallFN.getLength();
+            Vector2D thisWallCW2 = vectorCW(thisNearHandlePosition, thisFarHandlePosition, thisWallThickness).times(0.5);
+            Vector2D thisWallCCW2 = thisWallCW2.negated();
+            WallBevelType bevelType = null;
+
+            if (thisWallFNLength.lt(WALL_MIN_LENGTH)) {
+                return Optional.empty();
+            }
+
+            IWallAnchor leftFar = null, rightFar = null;
+            double leftAngle = 0, rightAngle = 0;
+            Length leftThickness = null, rightThickness = null;
+            boolean leftPriority = false, rightPriority = false;
+            boolean thisAnchorPassed = false;
+
+            for (IWallAnchor adjacentAnchor : thisNearHandleAnchor.getAllDockedAnchors()) {
+                IWall dockedWall = adjacentAnchor.getOwner();
+                WallBevelType dockedWallBevelType;
+                IWallAnchor neighbourFarHandleAnchor;
+                if (dockedWall.getAnchorWallHandleA().equals(adjacentAnchor)) {
+                    neighbourFarHandleAnchor = dockedWall.getAnchorWallHandleB();
+                    dockedWallBevelType = dockedWall.getWallBevelA();
+                } else if (dockedWall.getAnchorWallHandleB().equals(adjacentAnchor)) {
+                    neighbourFarHandleAnchor = dockedWall.getAnchorWallHandleA();
+                    dockedWallBevelType = dockedWall.getWallBevelB();
+                } else {
+                    continue;
+                }
+                if (bevelType == null) {
+                    bevelType = dockedWallBevelType;
+                }
+                if (adjacentAnchor.equals(thisNearHandleAnchor)) {
+                    thisAnchorPassed = true;
+                    continue;
+                }
+                Vector2D neighbourFN = thisNearHandlePosition.minus(neighbourFarHandleAnchor.getPosition());
+                if (neighbourFN.getLength().lt(WALL_MIN_LENGTH)) {
+                    continue;
+                }
+                double angle = Angle.angleBetween(neighbourFN, thisWallFN).getAngleDeg();
+                if (leftFar == null || leftAngle > angle) {
+                    leftFar = neighbourFarHandleAnchor;
+                    leftAngle = angle;
+                    leftThickness = dockedWall.getThickness();
+                    leftPriority = !thisAnchorPassed;
+                }
+                if (rightFar == null || rightAngle < angle) {
+                    rightFar = neighbourFarHandleAnchor;
+                    rightAngle = angle;
+                    rightThickness = dockedWall.getThickness();
+                    rightPriority = !thisAnchorPassed;
+                }
+            }
+
+            if (leftFar == null || rightFar == null) {
+                return Optional.of(fromThickness(thisNearHandlePosition, thisWallFN, thisWallThickness, false));
+            }
+
+            WallEnd result = new WallEnd();
+            result.mHasNeighbor = true;
+            {
+                Position2D thisNearCCW = thisNearHandlePosition.plus(thisWallCCW2);
+                Position2D thisFarCCW = thisFarHandlePosition.plus(thisWallCCW2);
+                Position2D otherFarHandlePosition = leftFar.getPosition();
+                Vector2D otherCW = vectorCW(thisNearHandlePosition, otherFarHandlePosition, leftThickness).times(0.5);
+                Position2D otherNearCW = thisNearHandlePosition.plus(otherCW);
+                Position2D otherFarCW = otherFarHandlePosition.plus(otherCW);
+                Vector2D otherFN = thisNearHandlePosition.minus(otherFarHandlePosition);
+                Length thickerWallThickness = Length.max(thisWallThickness, leftThickness);
+                Position2D leftCorner;
+                if (Math.abs(leftAngle) < EPSILON) {
+                    return Optional.empty();
+                } else if (Math.abs(leftAngle - 180) < EPSILON) {
+                    leftCorner = thisNearCCW;
+                } else if (leftAngle < 180) {
+                    leftCorner = MathUtils.calculateLinesIntersectionPoint(thisNearCCW, thisFarCCW, otherNearCW, otherFarCW).orElse(null);
+                    if (leftCorner == null || leftCorner.distance(thisNearCCW).gt(thisWallFNLength)
+                            || leftCorner.distance(otherNearCW).gt(otherFN.getLength())) {
+                        leftCorner = thisNearCCW;
+                    }
+                } else {
+                    if (bevelType == WallBevelType.Miter) {
+                        leftCorner = MathUtils.calculateLinesIntersectionPoint(thisNearCCW, thisFarCCW, otherNearCW, otherFarCW).orElse(null);
+                        if (leftCorner == null || leftAngle > 270 && leftCorner.distance(thisNearHandlePosition).gt(thickerWallThickness)) {
+                            leftCorner = thisNearCCW;
+                            if (!leftPriority) {
+                                result.mOLeftBevelApexCorner = Optional.of(otherNearCW);
+                            }
+                        }
+                    } else {
+                        leftCorner = thisNearCCW;
+                        if (!leftPriority) {
+                            result.mOLeftBevelApexCorner = Optional.of(otherNearCW);
+                        }
+                    }
+                }
+                result.mLeftCorner = leftCorner;
+            }
+            {
+                Position2D thisNearCW = thisNearHandlePosition.plus(thisWallCW2);
+                Position2D thisFarCW = thisFarHandlePosition.plus(thisWallCW2);
+                Position2D otherFarHandlePosition = rightFar.getPosition();
+                Vector2D otherCCW = vectorCW(thisNearHandlePosition, otherFarHandlePosition, rightThickness).negated().times(0.5);
+                Position2D otherNearCCW = thisNearHandlePosition.plus(otherCCW);
+                Position2D otherFarCCW = otherFarHandlePosition.plus(otherCCW);
+                Vector2D otherFN = thisNearHandlePosition.minus(otherFarHandlePosition);
+                Length thickerWallThickness = Length.max(thisWallThickness, rightThickness);
+                Position2D rightCorner;
+                if (Math.abs(rightAngle) < EPSILON) {
+                    return Optional.empty();
+                } else if (Math.abs(rightAngle - 180) < EPSILON) {
+                    rightCorner = thisNearCW;
+                } else if (rightAngle > 180) {
+                    rightCorner = MathUtils.calculateLinesIntersectionPoint(thisNearCW, thisFarCW, otherNearCCW, otherFarCCW).orElse(null);
+                    if (rightCorner == null || rightCorner.distance(thisNearCW).gt(thisWallFNLength)
+                            || rightCorner.distance(otherNearCCW).gt(otherFN.getLength())) {
+                        rightCorner = thisNearCW;
+                    }
+                } else {
+                    if (bevelType == WallBevelType.Miter) {
+                        rightCorner = MathUtils.calculateLinesIntersectionPoint(thisNearCW, thisFarCW, otherNearCCW, otherFarCCW).orElse(null);
+                        if (rightCorner == null || rightAngle < 90 && rightCorner.distance(thisNearHandlePosition).gt(thickerWallThickness)) {
+                            rightCorner = thisNearCW;
+                            if (!rightPriority) {
+                                result.mORightBevelApexCorner = Optional.of(otherNearCCW);
+                            }
+                        }
+                    } else {
+                        rightCorner = thisNearCW;
+                        if (!rightPriority) {
+                            result.mORightBevelApexCorner = Optional.of(otherNearCCW);
+                        }
+                    }
+                }
+                result.mRightCorner = rightCorner;
+            }
+            return Optional.of(result);
+        }
+    }
+
+    /**
+     * Creates a plan with random wall junctions. Walls are created between random junction points, their handles are docked
+     * at the junctions. The corpus contains acute, obtuse, reflex and nearly straight junctions, walls below the
+     * minimum length, walls of different thickness and mixed bevel types.
+     */
+    protected static List<Wall> createRandomPlan(Random random) {
+        Plan plan = Plan.newPlan();
+        List<IModelChange> changeTrace = new ArrayList<>();
+        int numJunctions = 2 + random.nextInt(5);
+        List<Position2D> junctions = new ArrayList<>();
+        for (int i = 0; i < numJunctions; i++) {
+            if (i > 0 && random.nextInt(8) == 0) {
+                // Junction very close to another junction, produces too short walls
+                Position2D other = junctions.get(random.nextInt(junctions.size()));
+                junctions.add(other.plus(new Vector2D(Length.ofMM(random.nextDouble() * 4), Length.ofMM(random.nextDouble() * 4))));
+            } else if (i > 1 && random.nextInt(5) == 0) {
+                // Junction on the elongation of two other junctions, produces nearly straight walls
+                Position2D p1 = junctions.get(0);
+                Position2D p2 = junctions.get(1);
+                double factor = 1.5 + random.nextDouble();
+                double jitter = random.nextInt(3) == 0 ? random.nextDouble() * 1e-3 : 0;
+                junctions.add(Position2D.pointBetween(p1, p2, factor).plus(new Vector2D(Length.ofMM(jitter), Length.ZERO)));
+            } else {
+                junctions.add(new Position2D(Length.ofMM(random.nextDouble() * 8000 - 4000), Length.ofMM(random.nextDouble() * 8000 - 4000)));
+            }
+        }
+        Anchor[] junctionMasters = new Anchor[numJunctions];
+        List<Wall> walls = new ArrayList<>();
+        int numWalls = 1 + random.nextInt(2 * numJunctions);
+        for (int i = 0; i < numWalls; i++) {
+            int j1 = random.nextInt(numJunctions);
+            int j2 = random.nextInt(numJunctions);
+            if (j1 == j2) {
+                continue;
+            }
+            Length thickness = Length.ofMM(50 + random.nextDouble() * 450);
+            Wall wall = Wall.createFromHandlePositions("Wall " + i, thickness, Length.ofM(2.5), Length.ofM(2.5),
+                junctions.get(j1), junctions.get(j2), plan, changeTrace);
+            wall.setWallBevelA(random.nextBoolean() ? WallBevelType.Miter : WallBevelType.Bevel, changeTrace);
+            wall.setWallBevelB(random.nextBoolean() ? WallBevelType.Miter : WallBevelType.Bevel, changeTrace);
+            dockAtJunction(wall.getAnchorWallHandleA(), j1, junctionMasters, changeTrace);
+            dockAtJunction(wall.getAnchorWallHandleB(), j2, junctionMasters, changeTrace);
+            walls.add(wall);
+        }
+        return walls;
+    }
+
+    protected static void dockAtJunction(Anchor handle, int junction, Anchor[] junctionMasters, List<IModelChange> changeTrace) {
+        Anchor master = junctionMasters[junction];
+        if (master == null) {
+            junctionMasters[junction] = handle;
+        } else {
+            handle.setDockMaster(master, changeTrace);
+        }
+    }
+
+    protected static void assertCoordsEqual(double[] expected, double[] actual, int numCoords, String context) {
+        for (int i = 0; i < numCoords; i++) {
+            if (Double.isNaN(expected[i])) {
+                assertTrue(Double.isNaN(actual[i]), context + ": Coordinate " + i + " expected to be absent");
+            } else {
+                assertEquals(expected[i], actual[i], MAX_DEVIATION_MM, context + ": Coordinate " + i);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Primitive wall end calculation matches object based implementation")
+    public void testCalculateDockSituationMatchesReference() {
+        Random random = new Random(4711);
+        int numWalls = 0;
+        int numBevelApexes = 0;
+        for (int p = 0; p < NUM_PLANS; p++) {
+            for (Wall wall : createRandomPlan(random)) {
+                IWall adaptedWall = new AdaptedModelWall(wall);
+                String context = "Plan " + p + ", " + wall.getName();
+                double[] expected = ReferenceImplementation.calculateDockSituation(adaptedWall).get();
+                WallAnchorPositions actual = WallAnchorPositions.calculateDockSituation(adaptedWall).get();
+                assertCoordsEqual(expected, actual.getCoords(), WallGeometryKernel.NUM_ANCHOR_COORDS, context);
+                assertEquals(expected[WallGeometryKernel.NUM_ANCHOR_COORDS] == 1, actual.mHasNeighborA, context + ": Neighbor A");
+                assertEquals(expected[WallGeometryKernel.NUM_ANCHOR_COORDS + 1] == 1, actual.mHasNeighborB, context + ": Neighbor B");
+                numWalls++;
+                for (int slot : new int[] {WallGeometryKernel.A1_BEVEL_APEX, WallGeometryKernel.A2_BEVEL_APEX, WallGeometryKernel.B1_BEVEL_APEX, WallGeometryKernel.B2_BEVEL_APEX}) {
+                    if (WallGeometryKernel.isPresent(expected, slot)) {
+                        numBevelApexes++;
+                    }
+                }
+            }
+        }
+        assertTrue(numWalls > 500, "Corpus too small");
+        assertTrue(numBevelApexes > 0, "Corpus doesn't contain bevel situations");
+    }
+
+    @Test
+    @DisplayName("Primitive wall outline matches wall outline ground points")
+    public void testWallOutlineMatchesGroundPoints() {
+        Random random = new Random(815);
+        double[] outline = new double[WallGeometryKernel.MAX_NUM_OUTLINE_CORNERS * 2];
+        for (int p = 0; p < NUM_PLANS; p++) {
+            for (Wall wall : createRandomPlan(random)) {
+                WallAnchorPositions wap = WallAnchorPositions.calculateDockSituation(new AdaptedModelWall(wall)).get();
+                List<Position2D> groundPoints = wap.calculateWallOutlineCW().calculateAllGroundPoints();
+                int numCorners = wap.calculateWallOutlineCW(outline);
+                assertEquals(groundPoints.size(), numCorners, "Number of outline corners");
+                for (int i = 0; i < numCorners; i++) {
+                    assertEquals(groundPoints.get(i).getX().inMM(), outline[2 * i], MAX_DEVIATION_MM, "Outline corner X " + i);
+                    assertEquals(groundPoints.get(i).getY().inMM(), outline[2 * i + 1], MAX_DEVIATION_MM, "Outline corner Y " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Extracted wall anchor positions match anchors")
+    public void testExtractWallAnchorPositions() {
+        Random random = new Random(42);
+        for (Wall wall : createRandomPlan(random)) {
+            WallAnchorPositions wap = wall.extractWallAnchorPositions().get();
+            assertEquals(wall.getAnchorWallHandleA().requirePosition2D(), wap.getHandleA(), "Handle A");
+            assertEquals(wall.getAnchorWallHandleB().requirePosition2D(), wap.getHandleB(), "Handle B");
+            assertEquals(wall.getAnchorWallCornerLA1().getPosition().projectionXY(), wap.getCornerA1(), "Corner A1");
+            assertEquals(wall.getAnchorWallCornerLB2().getPosition().projectionXY(), wap.getCornerB2(), "Corner B2");
+            assertTrue(wap.getOA1BevelApex().isEmpty(), "Bevel apex A1");
+        }
+    }
+}
@@ -24,6 +24,9 @@ import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -64,6 +67,8 @@ public class ExternalSupportObjectDescriptor {
     private static final LightType ICON_SNAPSHOT_LIGHT_TYPE = LightType.Point;
     private static final LightType PLAN_VIEW_IMAGE_LIGHT_TYPE = LightType.Point;
 
+    protected static record Snapshots(Image icon, Image planViewImage) {}
+
     protected final CatalogPieceOfFurniture mSourcePieceOfFurniture;
     protected final SH3DFurnitureLibrary mSourceLibrary;
     protected final Path mSourceLibraryPath;
@@ -144,53 +149,35 @@ public class ExternalSupportObjectDescriptor {
                 assetManager.deleteAsset(arp);
                 return null;
             }
-            Node objViewCache = null;
-            boolean creatingIconInUIThread = false;
+            boolean needsIconSnapshot = icon == null && planIcon == null;
+            boolean needsPlanViewSnapshot = planIcon == null;
 
             if (icon != null) {
                 assetLoader.importAssetIconImage(importedDescriptor, icon, Optional.empty());
-            } else {
-                if (planIcon != null) {
-                    assetLoader.importAssetIconImage(importedDescriptor, planIcon, Optional.empty());
-                } else {
-                    if (objViewCache == null) {
-                        objViewCache = mSourcePieceOfFurniture.createThreeDModel(assetManager.getDefaultMaterials());
-                    }
-                    createSnapshotForIcon(importedDescriptor, objViewCache, assetLoader);
-                    creatingIconInUIThread = true;
-                }
+            } else if (planIcon != null) {
+                assetLoader.importAssetIconImage(importedDescriptor, planIcon, Optional.empty());
             }
 
             if (planIcon != null) {
                 assetLoader.importSupportObjectPlanViewImage(importedDescriptor, planIcon, Optional.empty());
-            } else {
-                if (objViewCache == null) {
-                    objViewCache = mSourcePieceOfFurniture.createThreeDModel(assetManager.getDefaultMaterials());
+            }
+
+            if (needsIconSnapshot || needsPlanViewSnapshot) {
+                // Both snapshots are rendered in a single run in the UI thread, the images are encoded and saved here
+                Node objView = mSourcePieceOfFurniture.createThreeDModel(assetManager.getDefaultMaterials());
+                Snapshots snapshots = takeSnapshots(objView, needsIconSnapshot, needsPlanViewSnapshot);
+                if (snapshots.icon() != null) {
+                    assetLoader.importAssetIconImage(importedDescriptor, snapshots.icon(), AssetManager.ICON_IMAGE_DEFAULT_BASE_NAME);
+                }
+                if (snapshots.planViewImage() != null) {
+                    assetLoader.importSupportObjectPlanViewImage(importedDescriptor, snapshots.planViewImage(), AssetManager.PLAN_VIEW_IMAGE_DEFAULT_BASE_NAME);
                 }
-                createSnapshotForPlanViewImage(importedDescriptor, objViewCache, assetLoader);
             }
 
             // This must be done after the icon was imported (or created from snapshot, if not present)
             // because the icons of the support-object-local material sets are built using the support object descriptor's icon
-            if (creatingIconInUIThread) {
-                AssetRefPath finalArp = arp;
-                Platform.runLater(() -> {
-                    try {
-                        import3DModel(importedDescriptor, modelResource, Optional.ofNullable(mSourcePieceOfFurniture.getModelRotationArchitect()), assetLoader);
-                    } catch (IOException e) {
-                        log.info("Error while importing support object '" + id + "', will delete it", e);
-                        try {
-                            assetManager.deleteAsset(finalArp);
-                        } catch (IOException ex) {
-                            log.error("Error while importing support object '" + id + "', will delete it", e);
-                        }
-                    }
-                });
-            } else {
-                import3DModel(importedDescriptor, modelResource, Optional.ofNullable(mSourcePieceOfFurniture.getModelRotationArchitect()), assetLoader);
-            }
+            import3DModel(importedDescriptor, modelResource, Optional.ofNullable(mSourcePieceOfFurniture.getModelRotationArchitect()), assetLoader);
 
-            // Some import tasks are still running - snapshot creation and model import are executed using Platform.runLater()
             log.debug("Processed support object '" + id + "'");
             return importedDescriptor;
         } catch (Exception e) {
@@ -204,7 +191,7 @@ public class ExternalSupportObjectDescriptor {
         }
     }
 
-    public void createSnapshotForIcon(SupportObjectDescriptor soDescriptor, Node objView, AssetLoader assetLoader) throws IOException {
+    protected static Image takeIconSnapshot(Node objView) {
         Group g = new Group(objView);
 
         Rotate rotateX = new Rotate(ICON_SNAPSHOT_ANGLE_X, Rotate.X_AXIS);
@@ -212,17 +199,10 @@ public class ExternalSupportObjectDescriptor {
 
         g.getTransforms().addAll(0, Arrays.asList(rotateX, rotateY));
 
-        Platform.runLater(() -> {
-            try {
-                Image snapshot = ImageUtils.takeSnapshot(g, ICON_SNAPSHOT_LIGHT_TYPE, DEFAULT_ICON_SIZE);
-                assetLoader.importAssetIconImage(soDescriptor, snapshot, AssetManager.ICON_IMAGE_DEFAULT_BASE_NAME);
-            } catch (IOException e) {
-                throw new RuntimeException("Error importing snapshot image for plan view", e);
-            }
-        });
+        return ImageUtils.takeSnapshot(g, ICON_SNAPSHOT_LIGHT_TYPE, DEFAULT_ICON_SIZE);
     }
 
-    public void createSnapshotForPlanViewImage(SupportObjectDescriptor soDescriptor, Node objView, AssetLoader assetLoader) throws IOException {
+    protected static Image takePlanViewSnapshot(Node objView) {
         Group g = new Group(objView);
 
         Rotate rotateX = new Rotate(PLANVIEW_SNAPSHOT_ANGLE_X, Rotate.X_AXIS);
@@ -230,14 +210,32 @@ public class ExternalSupportObjectDescriptor {
 
         g.getTransforms().addAll(0, Arrays.asList(rotateX, rotateY));
 
-        Platform.runLater(() -> {
-            try {
-                Image snapshot = ImageUtils.takeSnapshot(g, PLAN_VIEW_IMAGE_LIGHT_TYPE, DEFAULT_PLAN_VIEW_IMAGE_SIZE);
-                assetLoader.importSupportObjectPlanViewImage(soDescriptor, snapshot, AssetManager.PLAN_VIEW_IMAGE_DEFAULT_BASE_NAME);
-            } catch (IOException e) {
-                throw new RuntimeException("Error importing snapshot image for plan view", e);
+        return ImageUtils.takeSnapshot(g, PLAN_VIEW_IMAGE_LIGHT_TYPE, DEFAULT_PLAN_VIEW_IMAGE_SIZE);
+    }
+
+    /**
+     * Takes the requested snapshots of the given object in the UI thread and waits for the result.
+     * The snapshots are taken one after the other because they re-parent the same object node.
+     */
+    protected static Snapshots takeSnapshots(Node objView, boolean icon, boolean planViewImage) throws IOException {
+        Callable<Snapshots> snapshotTask = () -> new Snapshots(
+            icon ? takeIconSnapshot(objView) : null,
+            planViewImage ? takePlanViewSnapshot(objView) : null);
+        try {
+            if (Platform.isFxApplicationThread()) {
+                return snapshotTask.call();
             }
-        });
+            FutureTask<Snapshots> future = new FutureTask<>(snapshotTask);
+            Platform.runLater(future);
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for snapshot images", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error creating snapshot images", e.getCause());
+        } catch (Exception e) {
+            throw new IOException("Error creating snapshot images", e);
+        }
     }
 
     // Tries to retain 3D object resource directories with additional files like license files etc., if possible
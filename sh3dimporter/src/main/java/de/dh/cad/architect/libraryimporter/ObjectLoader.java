@@ -27,7 +27,7 @@ import de.dh.cad.architect.utils.vfs.IResourceLocator;
 import de.dh.utils.MaterialMapping;
 import de.dh.utils.io.ObjData;
 import de.dh.utils.io.fx.FxMeshBuilder;
-import de.dh.utils.io.fx.MaterialData;
+import de.dh.utils.io.obj.MaterialData;
 import de.dh.utils.io.obj.ObjReader;
 import javafx.scene.Group;
 import javafx.scene.Node;
@@ -26,7 +26,7 @@ import de.dh.cad.architect.ui.assets.AssetLoader;
 import de.dh.cad.architect.ui.assets.AssetLoaderUtils;
 import de.dh.cad.architect.ui.utils.CoordinateUtils;
 import de.dh.cad.architect.utils.vfs.IResourceLocator;
-import de.dh.utils.io.fx.MaterialData;
+import de.dh.utils.io.obj.MaterialData;
 import javafx.geometry.Bounds;
 import javafx.scene.Node;
 import javafx.scene.transform.Transform;
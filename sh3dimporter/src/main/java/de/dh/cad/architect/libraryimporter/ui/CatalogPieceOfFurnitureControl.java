@@ -38,7 +38,7 @@ import de.dh.cad.architect.ui.assets.AssetLoader;
 import de.dh.cad.architect.ui.assets.AssetManager;
 import de.dh.cad.architect.ui.utils.CoordinateUtils;
 import de.dh.cad.architect.utils.vfs.IResourceLocator;
-import de.dh.utils.io.fx.MaterialData;
+import de.dh.utils.io.obj.MaterialData;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.ObservableList;
@@ -22,26 +22,48 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+import org.apache.commons.io.FilenameUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import de.dh.cad.architect.geometry.PlanGeometry;
+import de.dh.cad.architect.geometry.export.AbstractPlanExporter;
+import de.dh.cad.architect.geometry.export.GlbPlanExporter;
+import de.dh.cad.architect.geometry.export.IExportProgressMonitor;
+import de.dh.cad.architect.geometry.export.ObjPlanExporter;
+import de.dh.cad.architect.geometry.export.PlanExportSource;
 import de.dh.cad.architect.model.Plan;
 import de.dh.cad.architect.model.objects.BaseObject;
+import de.dh.cad.architect.model.snapshot.PlanSnapshot;
+import de.dh.cad.architect.ui.assets.AssetLoader;
 import de.dh.cad.architect.ui.assets.AssetManager;
+import de.dh.cad.architect.ui.assets.AssetManager.LibraryData;
+import de.dh.cad.architect.ui.assets.ExportAssetResolver;
 import de.dh.cad.architect.ui.controller.ObjectsChangeHandler;
 import de.dh.cad.architect.ui.controller.UiController;
+import de.dh.cad.architect.ui.persistence.AssetDescriptorsIO;
 import de.dh.cad.architect.ui.persistence.PlanFile;
+import de.dh.cad.architect.ui.persistence.PlanFileContainer;
 import de.dh.cad.architect.ui.persistence.PlanFileIO;
+import de.dh.cad.architect.ui.persistence.PlanFileWriter;
+import de.dh.cad.architect.ui.view.MainWindow;
 import de.dh.cad.architect.utils.vfs.PlainFileSystemDirectoryLocator;
 import de.dh.utils.fx.StageState;
+import de.dh.utils.fx.dialogs.ProgressDialog;
+import de.dh.utils.fx.viewsfx.state.ViewsLayoutState;
 import javafx.application.Platform;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.Property;
 import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.value.ChangeListener;
+import javafx.concurrent.Task;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.ButtonBar.ButtonData;
@@ -64,6 +86,14 @@ public class ApplicationController {
     protected final ObjectProperty<Boolean> mDirtyProperty = new SimpleObjectProperty<>(false);
     protected final UiController mUiController;
     protected final AssetManager mAssetManager;
+    protected final PlanFileWriter mPlanFileWriter = new PlanFileWriter();
+
+    /**
+     * Background save of a plan whose result was not handled yet.
+     */
+    protected static record PendingSave(CompletableFuture<Void> future, Plan plan, Path planFilePath) {}
+
+    protected PendingSave mPendingSave = null;
 
     public ApplicationController(Configuration config, Stage primaryStage, AssetManager assetManager) {
         mPrimaryStage = primaryStage;
@@ -109,32 +139,69 @@ public class ApplicationController {
     }
 
     public void startup() {
-        ChangeListener<Object> updateTitleChangeListener = (observable, oldValue, newValue) -> updateTitle();
-        ChangeListener<Plan> updateAssetManagerListener = (observable, oldValue, newValue) -> {
-            // Attention: Ensure that mPlanFilePath is always set before setting mPlanProperty
-            mAssetManager.setCurrentPlan(newValue.getId(), new PlainFileSystemDirectoryLocator(getPlanFilePath()));
-        };
-        mPlanFilePathProperty.addListener(updateTitleChangeListener);
-        mPlanProperty.addListener(updateAssetManagerListener);
-        mDirtyProperty.addListener(updateTitleChangeListener);
+        StartupSequence startupSequence = new StartupSequence(new StartupSequence.IStartupPhases() {
+            protected Plan mInitialPlan = null;
 
-        mAssetManager.start();
-        mUiController.initialize(mPrimaryStage, this);
-        restoreStageState();
+            @Override
+            public void createJaxbContexts() {
+                PlanFileIO.initialize();
+                AssetDescriptorsIO.initialize();
+            }
 
-        updateTitle();
+            @Override
+            public List<LibraryData> loadAssetLibraries() {
+                return mAssetManager.loadOpenAssetLibraries();
+            }
 
-        Path path = mConfig.getLastPlanFilePath();
-        if (path == null) {
-            newPlan();
-        } else {
-            try {
-                loadPlanFile(path);
-            } catch (Exception e) {
-                log.error("Unable to load last plan '" + path + "', starting with a new one", e);
-                newPlan();
+            @Override
+            public Optional<ViewsLayoutState> loadViewsLayoutState() {
+                return MainWindow.loadViewsLayoutState();
             }
-        }
+
+            @Override
+            public PlanFile parsePlanFile(Path planFilePath) throws IOException {
+                return PlanFileIO.deserializePlanFile(planFilePath);
+            }
+
+            @Override
+            public void createMainWindow(CompletableFuture<Optional<ViewsLayoutState>> viewsLayoutStateFuture) {
+                ChangeListener<Object> updateTitleChangeListener = (observable, oldValue, newValue) -> updateTitle();
+                ChangeListener<Plan> updateAssetManagerListener = (observable, oldValue, newValue) -> {
+                    // Attention: Ensure that mPlanFilePath is always set before setting mPlanProperty
+                    mAssetManager.setCurrentPlan(newValue.getId(), new PlainFileSystemDirectoryLocator(getPlanFilePath()));
+                };
+                mPlanFilePathProperty.addListener(updateTitleChangeListener);
+                mPlanProperty.addListener(updateAssetManagerListener);
+                mDirtyProperty.addListener(updateTitleChangeListener);
+
+                mUiController.initialize(mPrimaryStage, ApplicationController.this, viewsLayoutStateFuture);
+                restoreStageState();
+
+                updateTitle();
+                mInitialPlan = getPlan();
+            }
+
+            @Override
+            public void openAssetLibraries(List<LibraryData> libraries) {
+                mAssetManager.start(libraries);
+            }
+
+            @Override
+            public boolean isPlanChanged() {
+                return getPlan() != mInitialPlan || isDirty();
+            }
+
+            @Override
+            public void showPlan(PlanFile planFile, Path planFilePath) {
+                setPlanFile(planFile, planFilePath);
+            }
+
+            @Override
+            public void newPlan() {
+                ApplicationController.this.newPlan();
+            }
+        }, Platform::runLater);
+        startupSequence.run(mConfig.getLastPlanFilePath());
     }
 
     public void shutdown() {
@@ -142,6 +209,7 @@ public class ApplicationController {
         mUiController.shutdown();
         mAssetManager.shutdown();
         saveStageState();
+        mPlanFileWriter.close();
         Platform.exit();
     }
 
@@ -226,7 +294,11 @@ public class ApplicationController {
      */
     public void loadPlanFile(Path planFilePath) throws IOException {
         log.info("Loading plan from '" + planFilePath + "'");
-        PlanFile planFile = PlanFileIO.deserializePlanFile(planFilePath);
+        mPlanFileWriter.awaitPendingWrites(); // The file might be just being written
+        setPlanFile(PlanFileIO.deserializePlanFile(planFilePath), planFilePath);
+    }
+
+    protected void setPlanFile(PlanFile planFile, Path planFilePath) {
         setPlan(planFile.getPlan(), planFilePath);
         try {
             mUiController.setUiState(planFile.getUiState());
@@ -236,18 +308,69 @@ public class ApplicationController {
         mConfig.setLastPlanFilePath(planFilePath);
         setDirty(false);
         updateTitle();
+        // Capture the initial snapshot now, the first save only needs to apply the changes made until then
+        mUiController.getPlanSnapshot();
     }
 
     /**
      * Saves the plan under the given file path without user query.
+     * The plan is captured as snapshot and written by the background writer, so this method returns immediately.
+     * If writing the file fails, the plan is marked dirty again and an error dialog is shown.
+     * Callers which need the plan to be written, e.g. before closing it, use {@link #awaitPendingSave()}.
      */
-    public void savePlanAs(Path planFilePath) throws IOException {
+    public void savePlanAs(Path planFilePath) {
         log.info("Saving current plan as '" + planFilePath + "'");
-        PlanFileIO.serializePlanFile(new PlanFile(getPlan(), mUiController.getUiState()), planFilePath);
+        long startNanos = System.nanoTime();
+        PendingSave pendingSave = new PendingSave(
+            mPlanFileWriter.write(mUiController.getPlanSnapshot(), mUiController.getUiState(), planFilePath),
+            getPlan(), planFilePath);
+        mPendingSave = pendingSave;
+        pendingSave.future().whenCompleteAsync((res, e) -> {
+            // A later save supersedes this one, its result is handled by that save
+            if (mPendingSave == pendingSave) {
+                awaitPendingSave();
+            }
+        }, Platform::runLater);
         changePlanFilePath(planFilePath);
         mConfig.setLastPlanFilePath(planFilePath);
         setDirty(false);
         updateTitle();
+        log.debug("Plan save request took " + (System.nanoTime() - startNanos) / 1000 + " µs in UI thread");
+    }
+
+    /**
+     * Waits until the pending background save, if any, is written and handles its result.
+     * If writing the file failed, the plan is marked dirty again and an error dialog is shown.
+     * This method must be called in the FX thread, it blocks the UI while the plan is written.
+     * @return {@code true} if there is no pending save or if the plan was written successfully, else {@code false}.
+     */
+    protected boolean awaitPendingSave() {
+        PendingSave pendingSave = mPendingSave;
+        if (pendingSave == null) {
+            return true;
+        }
+        mPendingSave = null;
+        try {
+            pendingSave.future().join();
+            return true;
+        } catch (CompletionException | CancellationException e) {
+            log.error("Error writing plan file to path '" + pendingSave.planFilePath() + "'", e);
+            if (getPlan() == pendingSave.plan()) {
+                setDirty(true);
+            }
+            showSavePlanError(pendingSave.planFilePath(), e);
+            return false;
+        }
+    }
+
+    protected void showSavePlanError(Path path, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        Alert alert = new Alert(AlertType.ERROR);
+        alert.initOwner(mPrimaryStage);
+        alert.setTitle(Strings.DIALOG_SAVE_PLAN_TITLE);
+        alert.setHeaderText(Strings.DIALOG_SAVE_PLAN_ERROR_HEADER);
+        alert.setContentText(cause.getMessage());
+        alert.showAndWait();
     }
 
     /**
@@ -288,9 +411,14 @@ public class ApplicationController {
      * Checks if the user wants to save a potentially unsaved plan before an operation which would
      * close the current plan. This method will save the plan as side effect if the user wants to do that,
      * returning the information whether the ongoing process can continue or not.
+     * Pending saves are awaited, if one of them fails, the error is shown and the process is cancelled.
      * Returns {@code true} if the process can continue, {@code false} if not.
      */
     protected boolean querySavePlanBeforeClose(Window parentWindow) {
+        if (!awaitPendingSave()) {
+            log.debug("Saving plan failed, cancelling");
+            return false;
+        }
         if (!isDirty()) {
             log.debug("Plan is unchanged, no need to save");
             return true;
@@ -313,7 +441,7 @@ public class ApplicationController {
         }
         if (result.get() == buttonTypeYes) {
             log.debug("Plan was changed and user wants to save");
-            return saveOrQueryPath(parentWindow);
+            return saveOrQueryPath(parentWindow) && awaitPendingSave();
         } else if (result.get() == buttonTypeNo) {
             log.debug("Plan was changed but user wants to discard changes");
             return true;
@@ -325,20 +453,16 @@ public class ApplicationController {
 
     /**
      * Saves the plan if it is attached to a file path, else queries the user for path to save as.
-     * @return {@code true} if the plan was saved, else {@code false}.
+     * The plan is written in the background, see {@link #savePlanAs(Path)}.
+     * @return {@code true} if saving the plan was started, {@code false} if the user cancelled.
      */
     public boolean saveOrQueryPath(Window parentWindow) {
         Path currentPath = getPlanFilePath();
         if (currentPath == null) {
             return querySaveAs(parentWindow);
         } else {
-            try {
-                savePlanAs(currentPath);
-                return true;
-            } catch (IOException e) {
-                log.error("Error writing plan file to path '" + currentPath + "'", e);
-                return false;
-            }
+            savePlanAs(currentPath);
+            return true;
         }
     }
 
@@ -376,12 +500,16 @@ public class ApplicationController {
     }
 
     protected void addFileChooserExtensionFilters(PlanFileChooser fileChooser) {
-        fileChooser.addExtensionFilter(new FileChooser.ExtensionFilter(Strings.FILE_TYPE_ROOT_PLAN_EXTENSION_NAME, "*." + PlanFileIO.PLAN_FILE_EXTENSION));
+        fileChooser.addExtensionFilter(new FileChooser.ExtensionFilter(Strings.FILE_TYPE_ROOT_PLAN_EXTENSION_NAME,
+            "*." + PlanFileIO.PLAN_FILE_EXTENSION, "*." + PlanFileContainer.COMPRESSED_FILE_EXTENSION));
+        fileChooser.addExtensionFilter(new FileChooser.ExtensionFilter(Strings.FILE_TYPE_COMPRESSED_ROOT_PLAN_EXTENSION_NAME,
+            "*." + PlanFileContainer.COMPRESSED_FILE_EXTENSION));
     }
 
     /**
      * Shows a save-as dialog to the user.
-     * @return {@code true} if the user saved the plan to file, else {@code false}.
+     * The plan is written in the background, see {@link #savePlanAs(Path)}.
+     * @return {@code true} if saving the plan was started, {@code false} if the user cancelled.
      */
     public boolean querySaveAs(Window parentWindow) {
         PlanFileChooser fileChooser = new PlanFileChooser();
@@ -404,12 +532,7 @@ public class ApplicationController {
         if (path == null) {
             return false;
         }
-        try {
-            savePlanAs(path);
-        } catch (IOException e) {
-            log.error("Error writing plan to path '" + path + "'", e);
-            return false;
-        }
+        savePlanAs(path);
         return true;
     }
 
@@ -430,4 +553,75 @@ public class ApplicationController {
         Optional<Path> oPath = fileChooser.showOpenDialog(parentWindow);
         return oPath.map(path -> queryLoadPlanFile(mPrimaryStage, path)).orElse(false);
     }
+
+    /**
+     * Shows an export dialog to the user and exports the 3D model of the current plan to the chosen file.
+     * The export runs in a background task while a modal progress dialog blocks the main window, so the plan
+     * cannot be changed during the export.
+     */
+    public void queryExport3D(Window parentWindow) {
+        PlanFileChooser fileChooser = new PlanFileChooser();
+        fileChooser.setTitle(Strings.DIALOG_EXPORT_3D_TITLE);
+        Path planFilePath = getPlanFilePath();
+        if (planFilePath != null) {
+            fileChooser.setInitialDirectory(planFilePath.toAbsolutePath().getParent());
+            fileChooser.setInitialFileName(FilenameUtils.getBaseName(planFilePath.getFileName().toString()) + "." + GlbPlanExporter.FILE_EXTENSION);
+        }
+        fileChooser.addExtensionFilter(new FileChooser.ExtensionFilter(Strings.FILE_TYPE_GLB_EXTENSION_NAME, "*." + GlbPlanExporter.FILE_EXTENSION));
+        fileChooser.addExtensionFilter(new FileChooser.ExtensionFilter(Strings.FILE_TYPE_OBJ_EXTENSION_NAME, "*." + ObjPlanExporter.FILE_EXTENSION));
+        Path path = fileChooser.showSaveDialog(parentWindow);
+        if (path == null) {
+            return;
+        }
+        AbstractPlanExporter exporter;
+        try {
+            exporter = AbstractPlanExporter.create(path);
+        } catch (IllegalArgumentException e) {
+            showExport3DError(parentWindow, path, e);
+            return;
+        }
+
+        // The export runs on a background thread, so it doesn't read the live plan model but a plan materialized from the current
+        // plan snapshot. The plan window is blocked by the window modal progress dialog until the export is finished or canceled.
+        // The plan geometry shares the triangulation cache with the 3D views.
+        PlanSnapshot planSnapshot = mUiController.getPlanSnapshot();
+        PlanGeometry planGeometry = new PlanGeometry(mUiController.getSharedPlanGeometry().getTriangulationCache());
+        ExportAssetResolver assetResolver = new ExportAssetResolver(AssetLoader.build(mAssetManager));
+        Task<Void> exportTask = new Task<>() {
+            @Override
+            protected Void call() throws Exception {
+                PlanExportSource exportSource = new PlanExportSource(planSnapshot.toPlan(), planGeometry, assetResolver);
+                exporter.export(exportSource, new IExportProgressMonitor() {
+                    @Override
+                    public void exportProgress(int numExportedObjects, int numObjects) {
+                        updateProgress(numExportedObjects, numObjects);
+                    }
+
+                    @Override
+                    public boolean isCanceled() {
+                        return isCancelled();
+                    }
+                });
+                return null;
+            }
+        };
+        exportTask.setOnSucceeded(event -> {
+            log.info("Exported plan to '" + path + "'");
+        });
+        exportTask.setOnFailed(event -> {
+            showExport3DError(parentWindow, path, exportTask.getException());
+        });
+        ProgressDialog progressDialog = new ProgressDialog(Strings.DIALOG_EXPORT_3D_PROGRESS_TITLE, parentWindow, Optional.of(Strings.DIALOG_EXPORT_3D_CANCEL_BUTTON));
+        progressDialog.start(exportTask);
+    }
+
+    protected void showExport3DError(Window parentWindow, Path path, Throwable e) {
+        log.error("Error exporting plan to path '" + path + "'", e);
+        Alert alert = new Alert(AlertType.ERROR);
+        alert.initOwner(parentWindow);
+        alert.setTitle(Strings.DIALOG_EXPORT_3D_TITLE);
+        alert.setHeaderText(Strings.DIALOG_EXPORT_3D_ERROR_HEADER);
+        alert.setContentText(e.getMessage());
+        alert.showAndWait();
+    }
 }
@@ -43,6 +43,7 @@ public class Constants {
     public static final double VIEW_ORDER_FLOOR = 7;
 
     public static final double VIEW_ORDER_UNKNOWN = 10;
+    public static final double VIEW_ORDER_STATIC_LAYER = 100; // Tiles of the static layer are behind all objects
 
     public static final double VIEW_ORDER_INTERACTION = -20; // On top
 
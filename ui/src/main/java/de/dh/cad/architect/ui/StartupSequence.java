@@ -0,0 +1,170 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.ui;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.dh.cad.architect.ui.assets.AssetManager.LibraryData;
+import de.dh.cad.architect.ui.persistence.PlanFile;
+import de.dh.utils.fx.viewsfx.state.ViewsLayoutState;
+
+/**
+ * Orchestrates the phases of the application startup.
+ * The phases which don't need the FX thread are started in background threads before the main window is created,
+ * the main window is created in the calling thread and gets the views layout as future. When the asset libraries
+ * and the last plan are available, they are opened in the UI thread, represented by the UI executor.
+ * The phases themselves are provided by an {@link IStartupPhases} implementation.
+ */
+public class StartupSequence {
+    private static final Logger log = LoggerFactory.getLogger(StartupSequence.class);
+
+    public static final String PHASE_CREATE_JAXB_CONTEXTS = "Create JAXB contexts";
+    public static final String PHASE_LOAD_ASSET_LIBRARIES = "Load asset libraries";
+    public static final String PHASE_LOAD_VIEWS_LAYOUT = "Load views layout";
+    public static final String PHASE_PARSE_PLAN_FILE = "Parse plan file";
+    public static final String PHASE_CREATE_MAIN_WINDOW = "Create main window";
+    public static final String PHASE_OPEN_ASSET_LIBRARIES = "Open asset libraries";
+    public static final String PHASE_SHOW_PLAN = "Show plan";
+
+    /**
+     * The phases of the startup, called by the startup sequence.
+     */
+    public interface IStartupPhases {
+        /**
+         * Background phase, initializes the persistence layer.
+         */
+        void createJaxbContexts() throws Exception;
+
+        /**
+         * Background phase, loads the asset libraries which were open in the last session.
+         */
+        List<LibraryData> loadAssetLibraries() throws Exception;
+
+        /**
+         * Background phase, loads the layout of the views of the last session.
+         */
+        Optional<ViewsLayoutState> loadViewsLayoutState() throws Exception;
+
+        /**
+         * Background phase, parses the plan file of the last session.
+         */
+        PlanFile parsePlanFile(Path planFilePath) throws Exception;
+
+        /**
+         * Creates the main window in the calling thread, while the background phases are running.
+         * The window must not wait for the views layout future.
+         */
+        void createMainWindow(CompletableFuture<Optional<ViewsLayoutState>> viewsLayoutStateFuture);
+
+        /**
+         * Opens the loaded asset libraries in the UI thread.
+         */
+        void openAssetLibraries(List<LibraryData> libraries);
+
+        /**
+         * Returns the information whether the user changed the plan after the main window was created.
+         * In that case, the last plan is not shown.
+         */
+        boolean isPlanChanged();
+
+        /**
+         * Shows the given plan in the UI thread.
+         */
+        void showPlan(PlanFile planFile, Path planFilePath);
+
+        /**
+         * Starts with a new plan in the UI thread.
+         */
+        void newPlan();
+    }
+
+    protected final IStartupPhases mPhases;
+    protected final Executor mUiExecutor;
+    protected final StartupTimeline mTimeline = new StartupTimeline();
+
+    public StartupSequence(IStartupPhases phases, Executor uiExecutor) {
+        mPhases = phases;
+        mUiExecutor = uiExecutor;
+    }
+
+    public StartupTimeline getTimeline() {
+        return mTimeline;
+    }
+
+    /**
+     * Runs the startup. Returns after the main window was created, the returned future is completed when the
+     * asset libraries and the given plan were opened and the startup timeline was closed.
+     * @param planFilePath Path of the plan to show or {@code null} to start with a new plan.
+     */
+    public CompletableFuture<Void> run(Path planFilePath) {
+        // Time consuming preparations which don't need the FX thread are run in parallel with the creation of the main window
+        mTimeline.startAsync(PHASE_CREATE_JAXB_CONTEXTS, () -> {
+            mPhases.createJaxbContexts();
+            return null;
+        });
+        CompletableFuture<List<LibraryData>> librariesFuture = mTimeline.startAsync(PHASE_LOAD_ASSET_LIBRARIES, mPhases::loadAssetLibraries);
+        CompletableFuture<Optional<ViewsLayoutState>> viewsLayoutStateFuture = mTimeline.startAsync(PHASE_LOAD_VIEWS_LAYOUT, mPhases::loadViewsLayoutState);
+        CompletableFuture<PlanFile> planFileFuture = planFilePath == null
+                ? CompletableFuture.completedFuture(null)
+                : mTimeline.startAsync(PHASE_PARSE_PLAN_FILE, () -> mPhases.parsePlanFile(planFilePath));
+
+        mTimeline.record(PHASE_CREATE_MAIN_WINDOW, () -> mPhases.createMainWindow(viewsLayoutStateFuture));
+
+        // The window is interactive with the initial empty plan until the asset libraries and the last plan are available
+        CompletableFuture<List<LibraryData>> librariesOrEmptyFuture = librariesFuture.exceptionally(e -> {
+            log.error("Unable to load asset libraries, starting without asset libraries", e);
+            return List.of();
+        });
+        return CompletableFuture.allOf(librariesOrEmptyFuture, planFileFuture.exceptionally(e -> null)).thenRunAsync(() -> {
+            try {
+                openLibrariesAndPlan(librariesOrEmptyFuture.join(), planFileFuture, planFilePath);
+            } finally {
+                mTimeline.close();
+                log.info("Startup timeline:\n" + mTimeline.format());
+            }
+        }, mUiExecutor);
+    }
+
+    protected void openLibrariesAndPlan(List<LibraryData> libraries, CompletableFuture<PlanFile> planFileFuture, Path planFilePath) {
+        try {
+            mTimeline.record(PHASE_OPEN_ASSET_LIBRARIES, () -> mPhases.openAssetLibraries(libraries));
+        } catch (Exception e) {
+            log.error("Unable to open asset libraries", e);
+        }
+        if (planFilePath == null) {
+            mPhases.newPlan();
+        } else if (mPhases.isPlanChanged()) {
+            log.info("Plan was changed during startup, skipping last plan '" + planFilePath + "'");
+        } else {
+            try {
+                PlanFile planFile = planFileFuture.join();
+                mTimeline.record(PHASE_SHOW_PLAN, () -> mPhases.showPlan(planFile, planFilePath));
+            } catch (Exception e) {
+                log.error("Unable to load last plan '" + planFilePath + "', starting with a new one", e);
+                mPhases.newPlan();
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.ui;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the phases of the application startup and records their timeline.
+ * Phases which don't need the FX thread can be started in parallel using {@link #startAsync(String, Callable)},
+ * phases in the calling thread are recorded by {@link #record(String, Runnable)}. The recorded timeline can be
+ * inspected by {@link #getPhases()} and is logged in a human readable form by {@link #format()}.
+ */
+public class StartupTimeline implements AutoCloseable {
+    /**
+     * A recorded phase of the startup, start and end times are relative to the creation of the timeline.
+     */
+    public record Phase(String name, String threadName, long startNanos, long endNanos) {
+        public long getDurationNanos() {
+            return endNanos - startNanos;
+        }
+    }
+
+    protected final long mStartNanos = System.nanoTime();
+    protected final List<Phase> mPhases = new ArrayList<>();
+    protected final ExecutorService mExecutor;
+
+    public StartupTimeline() {
+        AtomicInteger threadCount = new AtomicInteger();
+        mExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread result = new Thread(runnable, "Startup-" + threadCount.incrementAndGet());
+            result.setDaemon(true);
+            return result;
+        });
+    }
+
+    /**
+     * Starts the given task in a background thread and records it as a phase of the given name.
+     * If the task fails, the returned future is completed exceptionally.
+     */
+    public <T> CompletableFuture<T> startAsync(String name, Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        mExecutor.execute(() -> {
+            long startNanos = System.nanoTime();
+            try {
+                T value = task.call();
+                addPhase(name, startNanos);
+                result.complete(value);
+            } catch (Throwable e) {
+                addPhase(name, startNanos);
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Runs the given task in the calling thread and records it as a phase of the given name.
+     */
+    public void record(String name, Runnable task) {
+        long startNanos = System.nanoTime();
+        try {
+            task.run();
+        } finally {
+            addPhase(name, startNanos);
+        }
+    }
+
+    protected void addPhase(String name, long startNanos) {
+        long endNanos = System.nanoTime();
+        Phase phase = new Phase(name, Thread.currentThread().getName(), startNanos - mStartNanos, endNanos - mStartNanos);
+        synchronized (mPhases) {
+            mPhases.add(phase);
+        }
+    }
+
+    /**
+     * Returns the phases which were finished until now, ordered by their start time.
+     */
+    public List<Phase> getPhases() {
+        List<Phase> result;
+        synchronized (mPhases) {
+            result = new ArrayList<>(mPhases);
+        }
+        result.sort(Comparator.comparingLong(Phase::startNanos));
+        return result;
+    }
+
+    /**
+     * Returns the time from the creation of this timeline until the end of the last finished phase.
+     */
+    public long getElapsedNanos() {
+        return getPhases().stream().mapToLong(Phase::endNanos).max().orElse(0);
+    }
+
+    /**
+     * Returns the sum of the durations of all finished phases, i.e. the time the startup would take if
+     * all phases were executed sequentially.
+     */
+    public long getSequentialNanos() {
+        return getPhases().stream().mapToLong(Phase::getDurationNanos).sum();
+    }
+
+    public String format() {
+        StringBuilder result = new StringBuilder();
+        for (Phase phase : getPhases()) {
+            result.append(String.format("%8.1f ms - %8.1f ms (%7.1f ms) [%s] %s%n",
+                phase.startNanos() / 1_000_000.0, phase.endNanos() / 1_000_000.0, phase.getDurationNanos() / 1_000_000.0,
+                phase.threadName(), phase.name()));
+        }
+        result.append(String.format("Total: %.1f ms, sequential: %.1f ms", getElapsedNanos() / 1_000_000.0, getSequentialNanos() / 1_000_000.0));
+        return result.toString();
+    }
+
+    /**
+     * Releases the background threads, phases which are still running will be finished.
+     */
+    @Override
+    public void close() {
+        mExecutor.shutdown();
+    }
+}
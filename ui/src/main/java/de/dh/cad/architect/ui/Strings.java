@@ -125,8 +125,16 @@ public class Strings {
     public static final String DIALOG_SAVE_PLAN_TITLE = "Plan speichern";
     public static final String DIALOG_SAVE_PLAN_ON_CLOSE_TITLE = "Plan schließen";
     public static final String DIALOG_SAVE_PLAN_ON_QUIT_HEADER = "Geänderten Plan speichern?";
+    public static final String DIALOG_SAVE_PLAN_ERROR_HEADER = "Der Plan konnte nicht gespeichert werden";
     public static final String DIALOG_OPEN_PLAN_TITLE = "Plan öffnen";
     public static final String FILE_TYPE_ROOT_PLAN_EXTENSION_NAME = "Architect Plan";
+    public static final String FILE_TYPE_COMPRESSED_ROOT_PLAN_EXTENSION_NAME = "Architect Plan (komprimiert)";
+    public static final String DIALOG_EXPORT_3D_TITLE = "3D-Modell exportieren";
+    public static final String DIALOG_EXPORT_3D_PROGRESS_TITLE = "Exportiere 3D-Modell...";
+    public static final String DIALOG_EXPORT_3D_CANCEL_BUTTON = "Abbrechen";
+    public static final String DIALOG_EXPORT_3D_ERROR_HEADER = "Das 3D-Modell konnte nicht exportiert werden";
+    public static final String FILE_TYPE_GLB_EXTENSION_NAME = "glTF Binärdatei";
+    public static final String FILE_TYPE_OBJ_EXTENSION_NAME = "Wavefront OBJ";
 
     public static final String PLAN_FILES_HISTORY_CLEAR_HISTORY_MENU_ITEM = "History löschen";
     public static final String PLAN_FILES_HISTORY_EMPTY_MENU_ITEM = "Keine Pläne geöffnet - öffnen";
@@ -447,6 +455,9 @@ public class Strings {
     public static final String THREE_D_CAMERA_POSITIONS_MANAGER_NAME_CAMERA_POSITION_DIALOG_HEADER = "Gib einen neuen Namen für die Kameraposition ein";
     public static final String THREE_D_CAMERA_POSITIONS_MANAGER_NAME_CAMERA_POSITION_DIALOG_CAMERA_NAME_LABEL = "Neuer Name:";
 
+    public static final String THREE_D_CULLING_INFO_PATTERN = "{0} von {1} Objekten ausgeblendet";
+    public static final String THREE_D_CULLING_INFO_WITH_OCCLUSION_PATTERN = "{0} von {1} Objekten ausgeblendet, davon {2} verdeckt";
+
     public static final String THREE_D_SELECTION_MODE_ACTION_TOOLTIP = "Selektionsmodus";
     public static final String THREE_D_SELECTION_BEHAVIOR_TITLE = "Selektionsmodus";
     public static final String THREE_D_SELECTION_BEHAVIOR_USER_HINT = "Selektiere Objekte durch Klicken";
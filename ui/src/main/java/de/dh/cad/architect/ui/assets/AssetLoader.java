@@ -27,9 +27,11 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
@@ -48,6 +50,7 @@ import de.dh.cad.architect.model.assets.AssetRefPath;
 import de.dh.cad.architect.model.assets.MaterialSetDescriptor;
 import de.dh.cad.architect.model.assets.MaterialsModel;
 import de.dh.cad.architect.model.assets.MeshConfiguration;
+import de.dh.cad.architect.model.assets.MeshManifest;
 import de.dh.cad.architect.model.assets.ObjModelResource;
 import de.dh.cad.architect.model.assets.RawMaterialModel;
 import de.dh.cad.architect.model.assets.SupportObjectDescriptor;
@@ -55,6 +58,7 @@ import de.dh.cad.architect.model.assets.ThreeDModelResource;
 import de.dh.cad.architect.model.coords.Length;
 import de.dh.cad.architect.model.objects.MaterialMappingConfiguration;
 import de.dh.cad.architect.ui.assets.AssetManager.AssetLocation;
+import de.dh.cad.architect.ui.assets.PlanViewImageCache.ImagePyramid;
 import de.dh.cad.architect.ui.utils.CoordinateUtils;
 import de.dh.cad.architect.ui.view.libraries.ImageLoadOptions;
 import de.dh.cad.architect.utils.vfs.IDirectoryLocator;
@@ -63,8 +67,9 @@ import de.dh.cad.architect.utils.vfs.IResourceLocator;
 import de.dh.utils.MaterialMapping;
 import de.dh.utils.Vector2D;
 import de.dh.utils.fx.BoxMesh;
+import de.dh.utils.fx.MeshDecimator;
 import de.dh.utils.io.fx.FxMeshBuilder;
-import de.dh.utils.io.fx.MaterialData;
+import de.dh.utils.io.obj.MaterialData;
 import de.dh.utils.io.obj.MtlLibraryIO;
 import de.dh.utils.io.obj.ObjReader;
 import de.dh.utils.io.obj.ObjReader.ObjDataRaw;
@@ -73,6 +78,7 @@ import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.PhongMaterial;
 import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
 import javafx.scene.transform.Rotate;
 import javafx.scene.transform.Transform;
 
@@ -272,19 +278,64 @@ public class AssetLoader {
         for (MeshView meshView : result.getSurfaceMeshViews()) {
             String meshName = meshView.getId();
             AssetRefPath materialRef = meshNamesToSODMaterialRefs.get(meshName);
-            MaterialData material;
             if (materialRef == null) {
                 String materialName = meshNamesToOrigMaterialNames.get(meshName);
-                material = materialName == null ? null : mAssetManager.getDefaultMaterials().get(materialName);
+                MaterialData material = materialName == null ? null : mAssetManager.getDefaultMaterials().get(materialName);
+                meshView.setMaterial(buildMaterial_Lax(material, MaterialMapping.stretch()));
             } else {
-                material = loadMaterialData(materialRef);
+                meshView.setMaterial(getOrBuildMaterial(materialRef, MaterialMapping.stretch()));
             }
-            meshView.setMaterial(buildMaterial_Lax(material, MaterialMapping.stretch()));
         }
 
         return result;
     }
 
+    /**
+     * Gets the decimated level-of-detail meshes for the surfaces of the given support object. The meshes are created
+     * from the given full resolution object on first request and are cached in the {@link AssetManager}, thus they are
+     * shared among all instances of the support object.
+     * @param soDescriptor Descriptor of the support object.
+     * @param fullObject Full resolution 3D object of the support object, as loaded by {@link #loadSupportObject3DResource(SupportObjectDescriptor)}.
+     * @param gridResolutions Vertex clustering grid resolutions of the LOD levels 1..n, see {@link MeshDecimator}.
+     * @param minFaces Minimum number of faces of a mesh to be decimated.
+     * @return Map of mesh ids to the meshes of levels 1..n. Meshes which are too small to be decimated or which
+     * cannot be decimated further are not contained in the result, a mesh list may contain the same mesh for several
+     * levels.
+     */
+    public Map<String, List<TriangleMesh>> getOrCreateSupportObjectLodMeshes(SupportObjectDescriptor soDescriptor, ThreeDObject fullObject,
+        int[] gridResolutions, int minFaces) {
+        String cacheKey = soDescriptor.getSelfRef().toPathString() + "|" + Arrays.toString(gridResolutions) + "|" + minFaces;
+        Map<String, Map<String, List<TriangleMesh>>> lodMeshesCache = mAssetManager.getSupportObjectLodMeshes();
+        Map<String, List<TriangleMesh>> result = lodMeshesCache.get(cacheKey);
+        if (result != null) {
+            return result;
+        }
+        result = new HashMap<>();
+        for (MeshView meshView : fullObject.getSurfaceMeshViews()) {
+            if (!(meshView.getMesh() instanceof TriangleMesh mesh) || MeshDecimator.getNumFaces(mesh) < minFaces) {
+                continue;
+            }
+            List<TriangleMesh> levels = new ArrayList<>(gridResolutions.length);
+            TriangleMesh previousLevel = mesh;
+            boolean decimated = false;
+            for (int gridResolution : gridResolutions) {
+                TriangleMesh level = MeshDecimator.decimate(mesh, gridResolution);
+                if (level == null || MeshDecimator.getNumFaces(level) >= MeshDecimator.getNumFaces(previousLevel)) {
+                    level = previousLevel;
+                } else {
+                    decimated = true;
+                }
+                levels.add(level);
+                previousLevel = level;
+            }
+            if (decimated) {
+                result.put(meshView.getId(), levels);
+            }
+        }
+        lodMeshesCache.put(cacheKey, result);
+        return result;
+    }
+
     protected String importAssetResourceImage(AssetRefPath assetRefPath, Image image, String imageName) throws IOException {
         if (!imageName.endsWith("." + AssetManager.STORE_IMAGE_EXTENSION)) {
             imageName = imageName + "." + AssetManager.STORE_IMAGE_EXTENSION;
@@ -369,6 +420,7 @@ public class AssetLoader {
         for (ImportResource resource : resources) {
             resourceLocation.importResource(resource.getResourceLocator(), resource.getTargetFileName());
         }
+        mAssetManager.getMaterialCache().invalidateMaterialSet(materialSetRefPath);
     }
 
     public void importAssetIconImage(AbstractAssetDescriptor descriptor, Image image, String imageName) throws IOException {
@@ -385,6 +437,7 @@ public class AssetLoader {
         imageName = importAssetResourceImage(assetRefPath, image, imageName);
         descriptor.setPlanViewImageResourceName(imageName);
         mAssetManager.saveSupportObjectDescriptor(descriptor);
+        mAssetManager.getPlanViewImageCache().invalidate(assetRefPath);
     }
 
     public void importAssetIconImage(AbstractAssetDescriptor descriptor, IResourceLocator imageResource, Optional<String> oOverriddenName) throws IOException {
@@ -401,6 +454,7 @@ public class AssetLoader {
         String relativeName = importAssetResourceImage(assetRefPath, imageResource, oOverriddenName);
         descriptor.setPlanViewImageResourceName(relativeName);
         mAssetManager.saveSupportObjectDescriptor(descriptor);
+        mAssetManager.getPlanViewImageCache().invalidate(assetRefPath);
     }
 
     public void importSupportObject3DViewObjResource(SupportObjectDescriptor descriptor, IResourceLocator sourceObjResourceLocator,
@@ -414,6 +468,7 @@ public class AssetLoader {
             modelResource.setModelRotationMatrix(null);
         }
         descriptor.setModel(modelResource);
+        mAssetManager.clearSupportObjectLodMeshes(assetRefPath);
 
         if (importMode == ThreeDResourceImportMode.Directory) {
             AbstractModelResource soModel = descriptor.getModel();
@@ -427,9 +482,47 @@ public class AssetLoader {
             }
         }
 
+        descriptor.setMeshManifest(createMeshManifest(descriptor));
         mAssetManager.saveSupportObjectDescriptor(descriptor);
     }
 
+    /**
+     * Creates the mesh manifest for the 3D model of the given support object. Therefore, the model file is parsed but
+     * no JavaFX meshes are built.
+     */
+    public MeshManifest createMeshManifest(SupportObjectDescriptor soDescriptor) throws IOException {
+        AssetRefPath assetRefPath = soDescriptor.getSelfRef();
+        AbstractModelResource model = soDescriptor.getModel();
+        if (model == null) {
+            throw new NullPointerException("3D model is not assigned in descriptor <" + assetRefPath + ">");
+        }
+        if (model instanceof ObjModelResource omr) {
+            AssetLocation assetLocation = mAssetManager.resolveAssetLocation(assetRefPath);
+            return MeshManifest.create(loadObjModelData(assetLocation, omr));
+        } else {
+            throw new NotImplementedException("Unable to create mesh manifest of 3D model of class <" + model.getClass() + "> in descriptor <" + assetRefPath + ">");
+        }
+    }
+
+    /**
+     * Gets the mesh manifest of the given support object. If the descriptor doesn't contain a manifest yet, e.g. because
+     * it was created by an older version, the manifest is computed and saved with the descriptor.
+     */
+    public MeshManifest getOrCreateMeshManifest(SupportObjectDescriptor soDescriptor) throws IOException {
+        MeshManifest result = soDescriptor.getMeshManifest();
+        if (result != null) {
+            return result;
+        }
+        result = createMeshManifest(soDescriptor);
+        soDescriptor.setMeshManifest(result);
+        try {
+            mAssetManager.saveSupportObjectDescriptor(soDescriptor);
+        } catch (IOException e) {
+            logWarnOnce("Manifest: " + soDescriptor.getSelfRef(), "Unable to save mesh manifest of support object descriptor <" + soDescriptor.getSelfRef() + ">", e);
+        }
+        return result;
+    }
+
     /**
      * Given a support object with already imported .obj file part, this method converts the referenced materials
      * from .mtl files which were already copied to the support object's {@link AssetManager#RESOURCES_DIRECTORY_NAME Resources} directory
@@ -690,6 +783,20 @@ public class AssetLoader {
         return loadSupportObjectPlanViewImage(descriptor, fallbackToPlaceholder);
     }
 
+    /**
+     * Returns the plan view images of the given support object from the {@link PlanViewImageCache} or loads and caches them
+     * if they were not loaded yet. The returned images are shared among all instances of the support object.
+     * If the image cannot be loaded, the placeholder image is returned.
+     */
+    public ImagePyramid getSupportObjectPlanViewImages(AssetRefPath supportObjectDescriptorRef) {
+        PlanViewImageCache planViewImageCache = mAssetManager.getPlanViewImageCache();
+        ImagePyramid result = planViewImageCache.get(supportObjectDescriptorRef);
+        if (result == null) {
+            result = planViewImageCache.put(supportObjectDescriptorRef, loadSupportObjectPlanViewImage(supportObjectDescriptorRef, true));
+        }
+        return result;
+    }
+
     public ThreeDObject loadSupportObject3DObject(SupportObjectDescriptor descriptor, boolean fallbackToPlaceholder) {
         try {
             return loadSupportObject3DResource(descriptor);
@@ -718,13 +825,33 @@ public class AssetLoader {
         return loadSupportObject3DObject(descriptor, fallbackToPlaceholder);
     }
 
+    /**
+     * Returns the material for the given material ref path in the given mapping from the {@link MaterialCache} or builds
+     * and caches it if it was not built for the same mapping yet. The returned material might be shared among
+     * multiple shapes, so it must not be modified.
+     */
+    protected PhongMaterial getOrBuildMaterial(AssetRefPath materialRefPath, MaterialMapping mappingConfig) throws IOException {
+        MaterialCache materialCache = mAssetManager.getMaterialCache();
+        String mappingKey = MaterialCache.createMappingKey(mappingConfig);
+        PhongMaterial result = materialCache.get(materialRefPath, mappingKey);
+        if (result == null) {
+            MaterialData material = loadMaterialData(materialRefPath);
+            result = buildMaterial_Lax(material, mappingConfig);
+            materialCache.put(materialRefPath, mappingKey, result);
+        }
+        return result;
+    }
+
+    /**
+     * Builds the material for the given material ref path in the given mapping. Materials are shared via the
+     * {@link MaterialCache}, so the returned material must not be modified.
+     */
     public PhongMaterial buildMaterial(AssetRefPath materialRefPath, MaterialMapping mappingConfig) {
         if (materialRefPath == null) {
             return new PhongMaterial(Color.WHITE);
         }
         try {
-            MaterialData material = loadMaterialData(materialRefPath);
-            return buildMaterial_Lax(material, mappingConfig);
+            return getOrBuildMaterial(materialRefPath, mappingConfig);
         } catch (IOException e) {
             log.warn("Error building material <" + materialRefPath + ">", e);
             Image placeholder = loadMaterialPlaceholderTextureImage(Optional.empty());
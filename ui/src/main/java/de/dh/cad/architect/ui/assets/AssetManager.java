@@ -33,6 +33,8 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -67,11 +69,12 @@ import de.dh.cad.architect.utils.vfs.IDirectoryLocator;
 import de.dh.cad.architect.utils.vfs.IResourceLocator;
 import de.dh.cad.architect.utils.vfs.PlainFileSystemDirectoryLocator;
 import de.dh.utils.fx.ImageUtils;
-import de.dh.utils.io.fx.MaterialData;
 import de.dh.utils.io.obj.DefaultMaterials;
+import de.dh.utils.io.obj.MaterialData;
 import de.dh.utils.io.obj.MtlLibraryIO;
 import de.dh.utils.io.obj.RawMaterialData;
 import javafx.scene.image.Image;
+import javafx.scene.shape.TriangleMesh;
 
 /**
  * Management API for assets in asset libraries and local assets in the plan. For loading and consuming assets,
@@ -517,6 +520,9 @@ public class AssetManager {
 
     protected final Map<String, MaterialData> mDefaultMaterials = new TreeMap<>(); // Material names to materials
     protected final Map<String, LibraryData> mAssetLibraries = new TreeMap<>(); // Ids to asset libraries
+    protected final Map<String, Map<String, List<TriangleMesh>>> mSupportObjectLodMeshes = new HashMap<>(); // LOD cache keys to mesh ids to decimated meshes
+    protected final MaterialCache mMaterialCache = new MaterialCache();
+    protected final PlanViewImageCache mPlanViewImageCache = new PlanViewImageCache();
 
     protected Optional<PlanContext> mOPlanContext = Optional.empty(); // Set if there is a plan in context, value changes if another plan is opened
 
@@ -562,6 +568,8 @@ public class AssetManager {
             mOPlanContext = Optional.empty();
         }
         mOPlanContext = Optional.of(new PlanContext(planId, planBaseDirectory, new AssetCollection(new PlanAssetPathAnchor(planId), planBaseDirectory)));
+        mMaterialCache.clear();
+        mPlanViewImageCache.clear();
     }
 
     /**
@@ -583,14 +591,37 @@ public class AssetManager {
     /////////////////////////////////////////////////////// Lifecycle methods ////////////////////////////////////////////////////////
 
     public void start() {
+        start(loadOpenAssetLibraries());
+    }
+
+    /**
+     * Opens the given asset libraries which were loaded by {@link #loadOpenAssetLibraries()}.
+     */
+    public void start(Collection<LibraryData> libraries) {
+        for (LibraryData libraryData : libraries) {
+            mAssetLibraries.put(libraryData.getLibrary().getId(), libraryData);
+        }
+        if (!libraries.isEmpty()) {
+            saveOpenAssetLibraries();
+        }
+    }
+
+    /**
+     * Loads the asset libraries which were open in the last session without opening them in this asset manager.
+     * This method doesn't change the state of this asset manager, so it can be called in a background thread.
+     */
+    public List<LibraryData> loadOpenAssetLibraries() {
+        List<LibraryData> result = new ArrayList<>();
         Collection<Path> openLibraries = mConfiguration.getOpenAssetLibraries();
         for (Path libraryPath : openLibraries) {
             try {
-                openAssetLibrary(new PlainFileSystemDirectoryLocator(libraryPath));
+                IDirectoryLocator libraryRootDirectory = new PlainFileSystemDirectoryLocator(libraryPath);
+                result.add(new LibraryData(loadAssetLibrary(libraryRootDirectory), libraryRootDirectory));
             } catch (Exception e) {
                 log.warn("Unable to load asset library from path '" + libraryPath + "'", e);
             }
         }
+        return result;
     }
 
     public void shutdown() {
@@ -608,6 +639,42 @@ public class AssetManager {
             ld.getAssetCollection().clearCache();
         }
         mOPlanContext.ifPresent(pc -> pc.getAssetCollection().clearCache());
+        mSupportObjectLodMeshes.clear();
+        mMaterialCache.clear();
+        mPlanViewImageCache.clear();
+    }
+
+    /**
+     * Gets the cache of decimated level-of-detail meshes of support objects. The cache is filled by
+     * {@link AssetLoader#getOrCreateSupportObjectLodMeshes(SupportObjectDescriptor, ThreeDObject, int[], int)}.
+     * Meshes can be shared among multiple mesh views, so all instances of a support object share the same LOD meshes.
+     */
+    public Map<String, Map<String, List<TriangleMesh>>> getSupportObjectLodMeshes() {
+        return mSupportObjectLodMeshes;
+    }
+
+    /**
+     * Removes all cached level-of-detail meshes of the given support object, e.g. after its 3D model has changed.
+     */
+    public void clearSupportObjectLodMeshes(AssetRefPath supportObjectDescriptorRef) {
+        String prefix = supportObjectDescriptorRef.toPathString() + "|";
+        mSupportObjectLodMeshes.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * Gets the cache of built materials, shared among all surfaces using the same material in the same mapping.
+     * The cache is filled by {@link AssetLoader#buildMaterial(AssetRefPath, de.dh.utils.MaterialMapping)}.
+     */
+    public MaterialCache getMaterialCache() {
+        return mMaterialCache;
+    }
+
+    /**
+     * Gets the cache of decoded plan view images, shared among all instances of a support object.
+     * The cache is filled by {@link AssetLoader#getSupportObjectPlanViewImages(AssetRefPath)}.
+     */
+    public PlanViewImageCache getPlanViewImageCache() {
+        return mPlanViewImageCache;
     }
 
     //////////////////////////////////////////////////////// Directory computation /////////////////////////////////////////////////////
@@ -724,6 +791,7 @@ public class AssetManager {
 
     public void closeAssetLibrary(String libraryId) {
         mAssetLibraries.remove(libraryId);
+        mMaterialCache.clear();
         saveOpenAssetLibraries();
     }
 
@@ -819,6 +887,7 @@ public class AssetManager {
         AssetRefPath refPath = descriptor.getSelfRef();
         AssetLocation assetLocation = resolveAssetLocation(refPath);
         assetLocation.saveMaterialSetDescriptor(descriptor);
+        mMaterialCache.invalidateMaterialSet(refPath);
     }
 
     public void saveSupportObjectDescriptor(SupportObjectDescriptor descriptor) throws IOException {
@@ -945,6 +1014,9 @@ public class AssetManager {
         }
         AssetLocation assetLocation = resolveAssetLocation(assetRefPath);
         Path assetBaseDirectoryPath = assetLocation.getRelativePathInAssetCollection();
+        if (assetRefPath.getAssetType() == AssetType.MaterialSet) {
+            mMaterialCache.invalidateMaterialSet(assetRefPath);
+        }
         try {
             assetLocation.deleteAssetDirectory();
         } catch (IOException e) {
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.ui.assets;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.commons.lang3.NotImplementedException;
+
+import de.dh.cad.architect.geometry.export.ExportModel;
+import de.dh.cad.architect.geometry.export.ExportSurface;
+import de.dh.cad.architect.geometry.export.IExportAssetResolver;
+import de.dh.cad.architect.geometry.export.PlanExportSource;
+import de.dh.cad.architect.model.assets.AbstractModelResource;
+import de.dh.cad.architect.model.assets.AssetRefPath;
+import de.dh.cad.architect.model.assets.ObjModelResource;
+import de.dh.cad.architect.model.assets.SupportObjectDescriptor;
+import de.dh.cad.architect.model.objects.MaterialMappingConfiguration;
+import de.dh.cad.architect.model.objects.SupportObject;
+import de.dh.cad.architect.model.objects.SurfaceConfiguration;
+import de.dh.cad.architect.ui.assets.AssetManager.AssetLocation;
+import de.dh.utils.ArrayUtils;
+import de.dh.utils.io.IndexedMeshData;
+import de.dh.utils.io.MeshData;
+import de.dh.utils.io.obj.MaterialData;
+import de.dh.utils.io.obj.ObjReader.ObjDataRaw;
+
+/**
+ * Resolves the materials and support object models of a plan export from the asset libraries.
+ * Support object surfaces get the same materials as in the 3D view: The material of the support object's surface
+ * configuration, if set, else the material assignment of the descriptor, else the material of the OBJ file.
+ */
+public class ExportAssetResolver implements IExportAssetResolver {
+    protected final AssetLoader mAssetLoader;
+
+    public ExportAssetResolver(AssetLoader assetLoader) {
+        mAssetLoader = assetLoader;
+    }
+
+    @Override
+    public Optional<MaterialData> resolveMaterial(AssetRefPath materialRef) throws IOException {
+        return Optional.of(mAssetLoader.loadMaterialData(materialRef));
+    }
+
+    @Override
+    public Optional<ExportModel> resolveSupportObjectModel(SupportObject supportObject, String modelKey) throws IOException {
+        AssetManager assetManager = mAssetLoader.getAssetManager();
+        SupportObjectDescriptor descriptor = assetManager.loadSupportObjectDescriptor(supportObject.getSupportObjectDescriptorRef());
+        AssetRefPath assetRefPath = descriptor.getSelfRef();
+        AbstractModelResource model = descriptor.getModel();
+        if (model == null) {
+            return Optional.empty();
+        }
+        if (!(model instanceof ObjModelResource omr)) {
+            throw new NotImplementedException("Unable to export 3D model of class <" + model.getClass() + "> in descriptor <" + assetRefPath + ">");
+        }
+        AssetLocation assetLocation = assetManager.resolveAssetLocation(assetRefPath);
+        ObjDataRaw objData = mAssetLoader.loadObjModelData(assetLocation, omr);
+        float[][] rotationMatrix = omr.getModelRotationMatrix();
+
+        Map<String, AssetRefPath> meshNamesToDescriptorMaterialRefs = new HashMap<>();
+        descriptor.getMeshNamesToMeshConfigurations().values()
+                .forEach(mc -> meshNamesToDescriptorMaterialRefs.put(mc.getMeshName(), mc.getMaterialAssignment()));
+        Map<String, SurfaceConfiguration> surfaceConfigurations = supportObject.getSurfaceTypeIdsToSurfaceConfigurations();
+        Map<String, String> meshNamesToOrigMaterialNames = objData.getMeshNamesToMaterialNames();
+
+        List<ExportSurface> surfaces = new ArrayList<>();
+        for (MeshData meshData : objData.getMeshes()) {
+            String meshName = meshData.getName();
+            IndexedMeshData mesh = new IndexedMeshData(meshName, meshData.getGroups(),
+                transformPoints(ArrayUtils.toPrimitiveFloatArray(meshData.getVertices()), rotationMatrix),
+                ArrayUtils.toPrimitiveFloatArray(meshData.getTexCoords()),
+                ArrayUtils.toPrimitiveIntArray(meshData.getFaces()),
+                ArrayUtils.toPrimitiveIntArray(meshData.getSmoothingGroups()));
+
+            SurfaceConfiguration surfaceConfiguration = meshName == null ? null : surfaceConfigurations.get(meshName);
+            MaterialMappingConfiguration mmc = surfaceConfiguration == null ? null : surfaceConfiguration.getMaterialMappingConfiguration();
+            AssetRefPath materialRef = mmc == null || mmc.getMaterialRef() == null ? meshNamesToDescriptorMaterialRefs.get(meshName) : mmc.getMaterialRef();
+            if (materialRef != null) {
+                surfaces.add(new ExportSurface(meshName, mesh, PlanExportSource.getMaterialName(materialRef), resolveMaterial(materialRef)));
+            } else {
+                String origMaterialName = meshNamesToOrigMaterialNames.get(meshName);
+                MaterialData material = origMaterialName == null ? null : assetManager.getDefaultMaterials().get(origMaterialName);
+                surfaces.add(new ExportSurface(meshName, mesh,
+                    material == null ? PlanExportSource.DEFAULT_MATERIAL_NAME : origMaterialName, Optional.ofNullable(material)));
+            }
+        }
+        return Optional.of(new ExportModel(modelKey, true, surfaces));
+    }
+
+    /**
+     * Applies the model rotation matrix of a support object descriptor to the given points, see
+     * {@link AssetLoaderUtils#createTransform(float[][])}.
+     */
+    protected static float[] transformPoints(float[] points, float[][] rotationMatrix) {
+        if (rotationMatrix == null) {
+            return points;
+        }
+        float[] result = new float[points.length];
+        for (int i = 0; i < points.length; i += 3) {
+            float x = points[i];
+            float y = points[i + 1];
+            float z = points[i + 2];
+            for (int r = 0; r < 3; r++) {
+                result[i + r] = rotationMatrix[r][0] * x + rotationMatrix[r][1] * y + rotationMatrix[r][2] * z;
+            }
+        }
+        return result;
+    }
+}
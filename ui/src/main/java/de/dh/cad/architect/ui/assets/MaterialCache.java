@@ -0,0 +1,203 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.ui.assets;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.dh.cad.architect.model.assets.AssetRefPath;
+import de.dh.utils.MaterialMapping;
+import de.dh.utils.Vector2D;
+import javafx.scene.image.Image;
+import javafx.scene.paint.PhongMaterial;
+
+/**
+ * Cache of built materials, shared among all surfaces and objects which use the same material in the same mapping.
+ * Materials are cached per material set, keyed by the material name and the {@link #createMappingKey(MaterialMapping) mapping key}.
+ * The cached materials are shared among multiple shapes, so they must not be modified by their users.
+ * The entries of a material set must be invalidated when the material set is changed.
+ *
+ * Materials with generated textures are keyed by the size of their surface, so e.g. dragging a wall produces a new
+ * entry for each intermediate wall length. To keep the memory bounded, the cache evicts the least recently used
+ * materials when it exceeds its maximum number of entries or its maximum texture size. Evicted materials stay valid
+ * for the shapes which still use them, they are just built again when they are requested the next time.
+ */
+public class MaterialCache {
+    private static Logger log = LoggerFactory.getLogger(MaterialCache.class);
+
+    public static final int DEFAULT_MAX_ENTRIES = 500;
+    public static final long DEFAULT_MAX_TEXTURE_BYTES = 256L * 1024 * 1024;
+
+    protected static record CacheKey(AssetRefPath materialSetRefPath, String materialKey) {}
+
+    protected static record CacheEntry(PhongMaterial material, long textureBytes) {}
+
+    protected final int mMaxEntries;
+    protected final long mMaxTextureBytes;
+
+    protected final Map<CacheKey, CacheEntry> mEntries = new LinkedHashMap<>(16, 0.75f, true); // Access order, eldest entry first
+    protected long mTextureBytes = 0;
+
+    protected long mNumHits = 0;
+    protected long mNumMisses = 0;
+    protected long mNumEvictions = 0;
+
+    public MaterialCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_TEXTURE_BYTES);
+    }
+
+    public MaterialCache(int maxEntries, long maxTextureBytes) {
+        mMaxEntries = maxEntries;
+        mMaxTextureBytes = maxTextureBytes;
+    }
+
+    /**
+     * Creates the part of the cache key which describes the mapping of a material to its surface.
+     * The target surface size is only taken into account if the material texture is generated for the surface, i.e. if
+     * the material is tiled, moved or rotated. In that case, the surface size is rounded to whole texture pixels because
+     * surfaces of the same size class result in the same texture.
+     */
+    public static String createMappingKey(MaterialMapping mapping) {
+        StringBuilder result = new StringBuilder();
+        MaterialMapping.LayoutMode layoutMode = mapping.getLayoutMode();
+        Optional<Vector2D> oOffset = mapping.getMaterialOffset();
+        Optional<Double> oRotationDeg = mapping.getMaterialRotationDeg();
+        result.append(layoutMode);
+        oOffset.ifPresent(offset -> result.append("|o" + offset.getX() + "/" + offset.getY()));
+        mapping.getMaterialTileSize().ifPresent(tileSize -> result.append("|t" + tileSize.getX() + "/" + tileSize.getY()));
+        oRotationDeg.ifPresent(rotationDeg -> result.append("|r" + rotationDeg));
+        if (layoutMode == MaterialMapping.LayoutMode.Stretch && oOffset.isEmpty() && oRotationDeg.isEmpty()) {
+            // Texture image is used as it is, independent from the surface size
+            return result.toString();
+        }
+        double resolution = mapping.getTextureResolutionPerLengthUnit();
+        result.append("|res" + resolution);
+        mapping.getTargetSurfaceSize().ifPresent(surfaceSize -> result.append(
+            "|s" + Math.round(surfaceSize.getX() * resolution) + "x" + Math.round(surfaceSize.getY() * resolution)));
+        return result.toString();
+    }
+
+    protected static CacheKey createCacheKey(AssetRefPath materialRefPath, String mappingKey) {
+        return new CacheKey(materialRefPath.withoutMaterialName(), materialRefPath.getOMaterialName().orElse("") + "|" + mappingKey);
+    }
+
+    /**
+     * Estimates the memory size of the texture images of the given material, 4 bytes per pixel.
+     */
+    protected static long estimateTextureBytes(PhongMaterial material) {
+        long result = 0;
+        for (Image image : new Image[] {material.getDiffuseMap(), material.getSpecularMap(), material.getBumpMap(), material.getSelfIlluminationMap()}) {
+            if (image != null) {
+                result += (long) image.getWidth() * (long) image.getHeight() * 4;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the cached material for the given material ref path and mapping key, if present.
+     * Each call counts as a cache hit or miss.
+     */
+    public PhongMaterial get(AssetRefPath materialRefPath, String mappingKey) {
+        CacheEntry entry = mEntries.get(createCacheKey(materialRefPath, mappingKey));
+        if (entry == null) {
+            mNumMisses++;
+            return null;
+        }
+        mNumHits++;
+        return entry.material();
+    }
+
+    public void put(AssetRefPath materialRefPath, String mappingKey, PhongMaterial material) {
+        CacheEntry entry = new CacheEntry(material, estimateTextureBytes(material));
+        CacheEntry oldEntry = mEntries.put(createCacheKey(materialRefPath, mappingKey), entry);
+        if (oldEntry != null) {
+            mTextureBytes -= oldEntry.textureBytes();
+        }
+        mTextureBytes += entry.textureBytes();
+        evict();
+    }
+
+    /**
+     * Removes the least recently used entries until the cache is within its bounds. The most recently used
+     * entry is always kept, even if its textures alone exceed the maximum texture size.
+     */
+    protected void evict() {
+        Iterator<CacheEntry> i = mEntries.values().iterator();
+        while ((mEntries.size() > mMaxEntries || mTextureBytes > mMaxTextureBytes) && mEntries.size() > 1) {
+            CacheEntry eldest = i.next();
+            i.remove();
+            mTextureBytes -= eldest.textureBytes();
+            mNumEvictions++;
+        }
+    }
+
+    /**
+     * Removes all cached materials of the given material set, e.g. after the material set was changed or deleted.
+     */
+    public void invalidateMaterialSet(AssetRefPath materialSetRefPath) {
+        AssetRefPath setRefPath = materialSetRefPath.withoutMaterialName();
+        int numRemoved = 0;
+        for (Iterator<Entry<CacheKey, CacheEntry>> i = mEntries.entrySet().iterator(); i.hasNext();) {
+            Entry<CacheKey, CacheEntry> entry = i.next();
+            if (entry.getKey().materialSetRefPath().equals(setRefPath)) {
+                i.remove();
+                mTextureBytes -= entry.getValue().textureBytes();
+                numRemoved++;
+            }
+        }
+        if (numRemoved > 0) {
+            log.debug("Invalidated " + numRemoved + " cached materials of material set <" + materialSetRefPath + ">");
+        }
+    }
+
+    public void clear() {
+        log.debug("Clearing material cache with " + getNumEntries() + " entries (" + mNumHits + " hits, " + mNumMisses + " misses, " + mNumEvictions + " evictions)");
+        mEntries.clear();
+        mTextureBytes = 0;
+    }
+
+    public int getNumEntries() {
+        return mEntries.size();
+    }
+
+    /**
+     * Gets the estimated memory size of the textures of all cached materials.
+     */
+    public long getTextureBytes() {
+        return mTextureBytes;
+    }
+
+    public long getNumEvictions() {
+        return mNumEvictions;
+    }
+
+    public long getNumHits() {
+        return mNumHits;
+    }
+
+    public long getNumMisses() {
+        return mNumMisses;
+    }
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.ui.assets;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.dh.cad.architect.model.assets.AssetRefPath;
+import de.dh.utils.fx.ImageUtils;
+import javafx.scene.image.Image;
+
+/**
+ * Cache of decoded plan view images of support objects, shared among all instances of a support object in the plan view.
+ * Each entry holds the full resolution image together with a small pyramid of downsampled versions, which are
+ * created on demand when the objects are displayed in a low zoom level. Thus, the memory consumption scales with the number
+ * of distinct support object descriptors rather than with the number of support objects in the plan.
+ * The entry of a support object must be invalidated when its plan view image is changed.
+ */
+public class PlanViewImageCache {
+    private static Logger log = LoggerFactory.getLogger(PlanViewImageCache.class);
+
+    /**
+     * Maximum number of downsampled levels per image.
+     */
+    public static final int MAX_DOWNSAMPLED_LEVELS = 4;
+
+    /**
+     * Images are not downsampled below this size.
+     */
+    public static final int MIN_LEVEL_SIZE = 16;
+
+    /**
+     * Full resolution image and its downsampled versions, each level has half of the width and height of the previous level.
+     */
+    public static class ImagePyramid {
+        protected final List<Image> mLevels = new ArrayList<>();
+
+        public ImagePyramid(Image fullImage) {
+            mLevels.add(fullImage);
+        }
+
+        public Image getFullImage() {
+            return mLevels.get(0);
+        }
+
+        public int getNumLevels() {
+            return mLevels.size();
+        }
+
+        /**
+         * Returns the smallest level which covers the given display size in pixels; missing levels are created on demand.
+         */
+        public Image getImage(double requiredWidth, double requiredHeight) {
+            int level = 0;
+            Image result = mLevels.get(0);
+            while (level < MAX_DOWNSAMPLED_LEVELS
+                            && result.getWidth() / 2 >= Math.max(requiredWidth, MIN_LEVEL_SIZE)
+                            && result.getHeight() / 2 >= Math.max(requiredHeight, MIN_LEVEL_SIZE)) {
+                level++;
+                if (level == mLevels.size()) {
+                    mLevels.add(ImageUtils.downsampleByHalf(result));
+                }
+                result = mLevels.get(level);
+            }
+            return result;
+        }
+
+        /**
+         * Returns the smallest level which covers the given display size on a screen with the given output scale,
+         * e.g. twice the display size in each direction on a HiDPI screen with an output scale of 2.
+         */
+        public Image getImage(double displayWidth, double displayHeight, double outputScaleX, double outputScaleY) {
+            return getImage(displayWidth * outputScaleX, displayHeight * outputScaleY);
+        }
+    }
+
+    protected final Map<AssetRefPath, ImagePyramid> mImages = new HashMap<>(); // Support object descriptor ref paths to images
+
+    protected long mNumHits = 0;
+    protected long mNumMisses = 0;
+
+    /**
+     * Gets the cached images for the support object of the given descriptor ref path, if present.
+     * Each call counts as a cache hit or miss.
+     */
+    public ImagePyramid get(AssetRefPath supportObjectDescriptorRef) {
+        ImagePyramid result = mImages.get(supportObjectDescriptorRef);
+        if (result == null) {
+            mNumMisses++;
+        } else {
+            mNumHits++;
+        }
+        return result;
+    }
+
+    public ImagePyramid put(AssetRefPath supportObjectDescriptorRef, Image fullImage) {
+        ImagePyramid result = new ImagePyramid(fullImage);
+        mImages.put(supportObjectDescriptorRef, result);
+        return result;
+    }
+
+    /**
+     * Removes the cached images of the given support object, e.g. after its plan view image was changed.
+     */
+    public void invalidate(AssetRefPath supportObjectDescriptorRef) {
+        mImages.remove(supportObjectDescriptorRef);
+    }
+
+    public void clear() {
+        log.debug("Clearing plan view image cache with " + getNumEntries() + " entries (" + mNumHits + " hits, " + mNumMisses + " misses)");
+        mImages.clear();
+    }
+
+    public int getNumEntries() {
+        return mImages.size();
+    }
+
+    public long getNumHits() {
+        return mNumHits;
+    }
+
+    public long getNumMisses() {
+        return mNumMisses;
+    }
+}
@@ -24,13 +24,13 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
-import org.apache.commons.collections4.CollectionUtils;
-
 import de.dh.cad.architect.model.Plan;
 import de.dh.cad.architect.model.assets.SupportObjectDescriptor;
 import de.dh.cad.architect.model.changes.IModelChange;
@@ -50,6 +50,7 @@ import de.dh.cad.architect.model.objects.IObjectsContainer;
 import de.dh.cad.architect.model.objects.ObjectsGroup;
 import de.dh.cad.architect.model.objects.SupportObject;
 import de.dh.cad.architect.model.objects.Wall;
+import de.dh.cad.architect.model.snapshot.PlanSnapshot;
 import de.dh.cad.architect.model.wallmodel.WallAnchorPositions;
 import de.dh.cad.architect.model.wallmodel.WallBevelType;
 import de.dh.cad.architect.ui.ApplicationController;
@@ -57,7 +58,6 @@ import de.dh.cad.architect.ui.IConfig;
 import de.dh.cad.architect.ui.Strings;
 import de.dh.cad.architect.ui.assets.AssetLoader;
 import de.dh.cad.architect.ui.assets.AssetManager;
-import de.dh.cad.architect.ui.assets.ThreeDObject;
 import de.dh.cad.architect.ui.objects.AbstractObjectUIRepresentation;
 import de.dh.cad.architect.ui.objects.AbstractObjectUIRepresentation.Cardinality;
 import de.dh.cad.architect.ui.objects.BaseObjectUIRepresentation;
@@ -69,8 +69,10 @@ import de.dh.cad.architect.ui.properties.PropertiesControl;
 import de.dh.cad.architect.ui.view.AbstractPlanView;
 import de.dh.cad.architect.ui.view.MainWindow;
 import de.dh.cad.architect.ui.view.ObjectReconcileOperation;
+import de.dh.cad.architect.ui.view.threed.SharedPlanGeometry;
 import de.dh.cad.architect.utils.IdGenerator;
-import de.dh.utils.fx.SimpleObservableListWrapper;
+import de.dh.utils.fx.ObservableOrderedSetList;
+import de.dh.utils.fx.viewsfx.state.ViewsLayoutState;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.Property;
 import javafx.beans.property.ReadOnlyObjectProperty;
@@ -81,13 +83,12 @@ import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
-import javafx.scene.Node;
 import javafx.stage.Stage;
 
 public class UiController {
     protected final IConfig mConfiguration;
     protected final Property<Plan> mPlanProperty;
-    protected final SimpleObservableListWrapper<String> mSelectedObjectIds = new SimpleObservableListWrapper<>(new ArrayList<>());
+    protected final ObservableOrderedSetList<String> mSelectedObjectIds = new ObservableOrderedSetList<>();
     protected final StringProperty mFocusedObjectId = new SimpleStringProperty(null);
     protected final List<ObjectsChangeHandler> mChangeHandlers = new ArrayList<>();
     protected final List<IObjectContextMenuProvider> mContextMenuProviders = new ArrayList<>();
@@ -101,16 +102,26 @@ public class UiController {
 
     protected AbstractPlanView<?, ?> mCurrentView = null;
 
+    // Objects whose properties are currently shown in the properties control, null forces a rebuild
+    protected List<BaseObject> mPropertiesInput = null;
+
+    // Geometry shared between all 3D views of the current plan, created on demand
+    protected SharedPlanGeometry mSharedPlanGeometry = null;
+
+    // Immutable snapshot of the current plan for background readers, created on demand and updated on each change
+    protected PlanSnapshot mPlanSnapshot = null;
+    protected Plan mPlanSnapshotPlan = null;
+
     public UiController(Property<Plan> planProperty, IConfig configuration) {
         mPlanProperty = planProperty;
         mConfiguration = configuration;
     }
 
-    public void initialize(Stage primaryStage, ApplicationController applicationController) {
+    public void initialize(Stage primaryStage, ApplicationController applicationController, CompletableFuture<Optional<ViewsLayoutState>> viewsLayoutStateFuture) {
         mApplicationController = applicationController;
         mMainWindow = MainWindow.create(applicationController, this);
         mMainWindow.show(primaryStage);
-        mMainWindow.initializeAfterShow();
+        mMainWindow.initializeAfterShow(viewsLayoutStateFuture);
 
         ObjectTreeControl objectTreeControl = mMainWindow.getObjectTreeControl();
 
@@ -205,6 +216,7 @@ public class UiController {
 
     public void setCurrentView(AbstractPlanView<?, ?> view) {
         mCurrentView = view;
+        mPropertiesInput = null;
         updateProperties();
     }
 
@@ -250,8 +262,30 @@ public class UiController {
         updatePropertiesView(selectedObjects);
     }
 
+    /**
+     * Returns {@code true} if both lists contain the same object instances in the same order.
+     */
+    protected static boolean isSameObjects(List<BaseObject> objects1, List<BaseObject> objects2) {
+        if (objects1 == null || objects2 == null || objects1.size() != objects2.size()) {
+            return false;
+        }
+        for (int i = 0; i < objects1.size(); i++) {
+            if (objects1.get(i) != objects2.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Shows the properties of the given objects. If the objects are the same as in the last call, the properties
+     * control only updates the changed property values in place; it is only rebuilt if the selection or the
+     * property schema changes.
+     */
     protected void updatePropertiesView(List<BaseObject> selectedObjects) {
         PropertiesControl propertiesControl = mMainWindow.getPropertiesControl();
+        boolean sameInput = isSameObjects(mPropertiesInput, selectedObjects);
+        mPropertiesInput = selectedObjects;
         String placeholder = calculatePropertiesViewPlaceholder(selectedObjects);
         propertiesControl.setPlaceholder(placeholder);
         if (selectedObjects.size() == 0) {
@@ -262,7 +296,12 @@ public class UiController {
             if (uiRepresentation == null) {
                 propertiesControl.setEmptyInput();
             } else {
-                propertiesControl.setSingleInput(uiRepresentation.getProperties(bo, this));
+                ObjectProperties properties = uiRepresentation.getProperties(bo, this);
+                if (sameInput) {
+                    propertiesControl.updateSingleInput(properties);
+                } else {
+                    propertiesControl.setSingleInput(properties);
+                }
             }
         } else {
             Collection<ObjectProperties> properties = new ArrayList<>(selectedObjects.size());
@@ -283,6 +322,8 @@ public class UiController {
             }
             if (different || properties.size() != selectedObjects.size()) {
                 propertiesControl.setEmptyInput();
+            } else if (sameInput) {
+                propertiesControl.updateMultipleInput(properties);
             } else {
                 propertiesControl.setMultipleInput(properties);
             }
@@ -326,6 +367,36 @@ public class UiController {
         mPlanProperty.setValue(value);
     }
 
+    /**
+     * Gets the 3D geometry of the current plan which is shared between all 3D views.
+     */
+    public SharedPlanGeometry getSharedPlanGeometry() {
+        Plan plan = getPlan();
+        if (mSharedPlanGeometry == null || mSharedPlanGeometry.getPlan() != plan) {
+            mSharedPlanGeometry = new SharedPlanGeometry(plan);
+        }
+        return mSharedPlanGeometry;
+    }
+
+    /**
+     * Gets an immutable snapshot of the current plan which can safely be read by background tasks while the plan is edited.
+     * Once requested, the snapshot is updated incrementally on each change of the plan.
+     */
+    public PlanSnapshot getPlanSnapshot() {
+        Plan plan = getPlan();
+        if (mPlanSnapshot == null || mPlanSnapshotPlan != plan) {
+            mPlanSnapshot = PlanSnapshot.of(plan);
+            mPlanSnapshotPlan = plan;
+        }
+        return mPlanSnapshot;
+    }
+
+    protected void updatePlanSnapshot(IModelChange change) {
+        if (mPlanSnapshot != null && mPlanSnapshotPlan == getPlan()) {
+            mPlanSnapshot = mPlanSnapshot.withChanges(mPlanSnapshotPlan, change);
+        }
+    }
+
     public AssetManager getAssetManager() {
         return mApplicationController.getAssetManager();
     }
@@ -334,7 +405,7 @@ public class UiController {
         return mFocusedObjectId;
     }
 
-    // Using an ObservableList here instead of an ObservableSet to prevent performance issues with the inperformant SetChangeListener
+    // Using an ObservableList with hash set semantics here instead of an ObservableSet to prevent performance issues with the inperformant SetChangeListener
     public ObservableList<String> selectedObjectIds() {
         return mSelectedObjectIds;
     }
@@ -343,8 +414,15 @@ public class UiController {
      * Sets the object ids of the selcted objects.
      */
     public void setSelectedObjectIds(Collection<String> ids) {
-        Collection<String> added = CollectionUtils.subtract(ids, mSelectedObjectIds);
-        Collection<String> removed = CollectionUtils.subtract(mSelectedObjectIds, ids);
+        Collection<String> newIds = ids instanceof Set ? ids : new LinkedHashSet<>(ids);
+        List<String> added = newIds
+            .stream()
+            .filter(id -> !mSelectedObjectIds.contains(id))
+            .toList();
+        List<String> removed = mSelectedObjectIds
+            .stream()
+            .filter(id -> !newIds.contains(id))
+            .toList();
         if (added.isEmpty() && removed.isEmpty()) {
             return;
         }
@@ -495,7 +573,7 @@ public class UiController {
      * object reconcile operation at the end. Instead, returns all objects which need to be reconciled later.
      */
     public Collection<BaseAnchoredObject> doRemoveAnchorFromDock_Internal(Anchor anchor, List<IModelChange> changeTrace) {
-        Collection<BaseAnchoredObject> reconcileObjects = anchor.getAllDockOwners();
+        Collection<BaseAnchoredObject> reconcileObjects = new ArrayList<>(anchor.getAllDockOwners());
         Optional<Anchor> oDockMaster = anchor.getDockMaster();
         if (oDockMaster.isPresent()) {
             Anchor dockMaster = oDockMaster.get();
@@ -819,8 +897,8 @@ public class UiController {
     public SupportObject doCreateNewSupportObject(SupportObjectDescriptor supportObjectDescriptor, Position2D pos, List<IModelChange> changeTrace) throws IOException {
         Plan plan = getPlan();
         AssetLoader assetLoader = getAssetManager().buildAssetLoader();
-        ThreeDObject obj = assetLoader.loadSupportObject3DResource(supportObjectDescriptor);
-        Set<String> meshIds = obj.getSurfaceMeshViews().stream().map(Node::getId).collect(Collectors.toSet());
+        // Only the mesh manifest is needed here, the 3D model is loaded when the object is shown in a 3D view
+        Set<String> meshIds = assetLoader.getOrCreateMeshManifest(supportObjectDescriptor).getMeshNames();
         String name = BaseObjectUIRepresentation.generateSimpleName(getPlan().getSupportObjects().values(), supportObjectDescriptor.getName());
         return SupportObject.create(
                 name, supportObjectDescriptor.getSelfRef(), pos,
@@ -885,6 +963,7 @@ public class UiController {
     }
 
     protected void fireChanges(IModelChange change) {
+        updatePlanSnapshot(change);
         Collection<BaseObject> additions = change.getAdditions();
         Collection<BaseObject> removals = change.getRemovals();
         boolean objectSetUnChanged = additions.isEmpty() && removals.isEmpty();
@@ -894,8 +973,9 @@ public class UiController {
             fireObjectsChanged(change.getModifications());
         } else {
             // "Complex" change with additions and/or removals which potentially can impact our selected objet ids
+            ObjectTreeControl objectTreeControl = mMainWindow.getObjectTreeControl();
             mSelectedObjectIds.publicBeginChange();
-            // TODO: We should also begin/end change of object tree here
+            objectTreeControl.beginUpdate();
             try {
                 fireObjectsRemoved(removals);
                 fireObjectsAdded(additions);
@@ -905,6 +985,7 @@ public class UiController {
                     .map(BaseObject::getId)
                     .toList());
             } finally {
+                objectTreeControl.endUpdate();
                 mSelectedObjectIds.publicEndChange();
             }
         }
@@ -924,6 +1005,9 @@ public class UiController {
         if (objects == null || objects.isEmpty()) {
             return;
         }
+        if (mSharedPlanGeometry != null) {
+            mSharedPlanGeometry.remove(objects);
+        }
         Collection<BaseObject> objs = Collections.unmodifiableCollection(objects);
         for (ObjectsChangeHandler handler : mChangeHandlers) {
             handler.objectsRemoved(objs);
@@ -934,6 +1018,10 @@ public class UiController {
         if (objects == null || objects.isEmpty()) {
             return;
         }
+        // Shared 3D geometry must be invalidated before the 3D views update their representations
+        if (mSharedPlanGeometry != null) {
+            mSharedPlanGeometry.invalidate(objects);
+        }
         Collection<BaseObject> objs = Collections.unmodifiableCollection(objects);
         for (ObjectsChangeHandler handler : mChangeHandlers) {
             handler.objectsChanged(objs);
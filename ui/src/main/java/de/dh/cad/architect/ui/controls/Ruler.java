@@ -18,11 +18,15 @@
 package de.dh.cad.architect.ui.controls;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.TreeMap;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import de.dh.cad.architect.model.coords.Length;
 import de.dh.cad.architect.model.coords.LengthUnit;
 import de.dh.cad.architect.model.objects.GuideLine;
@@ -35,27 +39,37 @@ import de.dh.utils.fx.FxUtils;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.ObservableList;
-import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
 import javafx.scene.Cursor;
 import javafx.scene.Group;
 import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.input.MouseButton;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Line;
+import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Text;
 
+/**
+ * Ruler at the border of the construction view.
+ * The scale is painted on a canvas which is wider than the ruler by {@link #PAN_MARGIN} at both sides. When the view is panned,
+ * the canvas is just moved as long as the visible range remains inside the painted range; it is only repainted when the
+ * scale changes or when the visible range leaves the painted range. Label widths are measured once per label text and cached.
+ */
 public class Ruler extends Pane {
+    private static final Logger log = LoggerFactory.getLogger(Ruler.class);
+
     protected static final double GUIDE_ARROW_VISIBLE_OPACITY = 1.0;
     protected static final double GUIDE_ARROW_INVISIBLE_OPACITY = 0.3;
 
     protected class ScaleLabel {
         protected final double mPosition;
         protected final double mScaleLength;
-        protected final Optional<Text> mOLabel;
+        protected final Optional<String> mOLabel;
         protected final double mTextPosition;
-        public ScaleLabel(double position, double scaleLength, Optional<Text> oLabel, double textPosition) {
+        public ScaleLabel(double position, double scaleLength, Optional<String> oLabel, double textPosition) {
             mPosition = position;
             mScaleLength = scaleLength;
             mOLabel = oLabel;
@@ -67,7 +81,7 @@ public class Ruler extends Pane {
         public double getScaleLength() {
             return mScaleLength;
         }
-        public Optional<Text> getOLabel() {
+        public Optional<String> getOLabel() {
             return mOLabel;
         }
         public double getTextPosition() {
@@ -82,20 +96,51 @@ public class Ruler extends Pane {
     public static final int MIDDLE_SCALE_LENGTH = 7;
     public static final int TENTH_SCALE_LENGTH = 5;
 
+    /**
+     * Width of the invisible parts of the canvas at both sides of the ruler, which are painted in advance for panning.
+     */
+    public static final double PAN_MARGIN = 512;
+
+    protected static final int MAX_CACHED_LABEL_WIDTHS = 1000;
+
+    // Label widths are shared between all rulers, the labels repeat for both directions and for each zoom level
+    protected static final Map<String, Double> LABEL_WIDTHS = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Double> eldest) {
+            return size() > MAX_CACHED_LABEL_WIDTHS;
+        }
+    };
+    protected static final Text METRICS_TEXT = new Text();
+    protected static double mLabelHeight = -1;
+
     protected final UiController mUIController;
     protected final GuideLineDirection mDirection;
-    protected final Group mRulerContentsArea;
+    protected final Canvas mRulerContentsArea;
+    protected final Rectangle mBorder;
     protected final Group mGuideArrowsArea;
     protected final Line mCursorMarker;
     protected final Map<String, GuideArrow> mGuideArrows = new TreeMap<>();
     protected double mScale = 1;
     protected double mTranslation = 0;
 
+    // State of the last repaint of the canvas
+    protected double mPaintedScale = Double.NaN;
+    protected double mPaintedTranslation = Double.NaN;
+    protected double mPaintedWidth = -1;
+    protected double mPaintedHeight = -1;
+    protected int mNumRepaints = 0;
+    protected int mNumUpdates = 0;
+
     public Ruler(UiController uiController, GuideLineDirection direction) {
         mUIController = uiController;
         mDirection = direction;
         mGuideArrowsArea = new Group();
-        mRulerContentsArea = new Group();
+        mRulerContentsArea = new Canvas();
+        mRulerContentsArea.setMouseTransparent(true);
+        mBorder = new Rectangle();
+        mBorder.setFill(null);
+        mBorder.setStroke(Color.BLACK);
+        mBorder.setMouseTransparent(true);
         mCursorMarker = new Line();
         mCursorMarker.setMouseTransparent(true);
         mCursorMarker.setVisible(false);
@@ -104,10 +149,11 @@ public class Ruler extends Pane {
         mCursorMarker.setViewOrder(0);
         mGuideArrowsArea.setViewOrder(1);
         mRulerContentsArea.setViewOrder(2);
+        mBorder.setViewOrder(2);
 
         mGuideArrowsArea.translateYProperty().bind(heightProperty().subtract(GuideArrow.GUIDE_ARROW_HEIGHT));
         ObservableList<Node> children = getChildren();
-        children.addAll(mGuideArrowsArea, mRulerContentsArea, mCursorMarker);
+        children.addAll(mGuideArrowsArea, mBorder, mRulerContentsArea, mCursorMarker);
 
         setStyle("-fx-background-color: white;");
         FxUtils.addClippingToBounds(this);
@@ -135,12 +181,26 @@ public class Ruler extends Pane {
         updateView();
     }
 
-    protected double getVisibleRange() {
-        return getWidth();
+    protected double getTextOffset(double labelWidth) {
+        return -labelWidth / 2;
+    }
+
+    protected static double getLabelWidth(String label) {
+        Double result = LABEL_WIDTHS.get(label);
+        if (result == null) {
+            METRICS_TEXT.setText(label);
+            result = METRICS_TEXT.getLayoutBounds().getWidth();
+            LABEL_WIDTHS.put(label, result);
+        }
+        return result;
     }
 
-    protected double getTextOffset(Bounds textLayoutBounds) {
-        return -textLayoutBounds.getWidth() / 2;
+    protected static double getLabelHeight() {
+        if (mLabelHeight < 0) {
+            METRICS_TEXT.setText("0");
+            mLabelHeight = METRICS_TEXT.getLayoutBounds().getHeight();
+        }
+        return mLabelHeight;
     }
 
     public void doUpdateView() {
@@ -148,27 +208,54 @@ public class Ruler extends Pane {
             updateGuideArrow(guideArrow);
         }
 
-        ObservableList<Node> children = mRulerContentsArea.getChildren();
-        children.clear();
-
+        mNumUpdates++;
         double height = getHeight();
         double width = getWidth();
+        double panDelta = mTranslation - mPaintedTranslation;
+        if (width != mPaintedWidth || height != mPaintedHeight) {
+            mBorder.setWidth(width);
+            mBorder.setHeight(height - 1);
+        }
+        if (mScale != mPaintedScale || width != mPaintedWidth || height != mPaintedHeight || !(Math.abs(panDelta) <= PAN_MARGIN)) {
+            repaint(width, height);
+            panDelta = 0;
+        }
+        mRulerContentsArea.setTranslateX(panDelta - PAN_MARGIN);
+    }
 
-        children.add(new Line(0, 0, 0, height)); // Left
-        children.add(new Line(0, 0, width, 0)); // Top
-        children.add(new Line(width, 0, width, height)); // Right
-        children.add(new Line(0, height - 1, width, height - 1)); // Bottom
-        for (ScaleLabel sl : calculateScaleLabels()) {
+    /**
+     * Paints the scale of the visible range and of the pan margins at both sides into the canvas.
+     */
+    protected void repaint(double width, double height) {
+        long start = System.nanoTime();
+        mRulerContentsArea.setWidth(width + 2 * PAN_MARGIN);
+        mRulerContentsArea.setHeight(height);
+        GraphicsContext gc = mRulerContentsArea.getGraphicsContext2D();
+        gc.clearRect(0, 0, mRulerContentsArea.getWidth(), height);
+        gc.setStroke(Color.BLACK);
+        gc.setFill(Color.BLACK);
+        gc.setLineWidth(1);
+
+        // Canvas coordinates are ruler coordinates, shifted by the pan margin
+        gc.save();
+        gc.translate(PAN_MARGIN, 0);
+        double labelY = getLabelHeight();
+        List<ScaleLabel> scaleLabels = calculateScaleLabels(-PAN_MARGIN, width + PAN_MARGIN);
+        for (ScaleLabel sl : scaleLabels) {
             double position = sl.getPosition();
-            double scaleLength = sl.getScaleLength();
-            double textPosition = sl.getTextPosition();
-            Optional<Text> oLabel = sl.getOLabel();
-            children.add(new Line(position, height - scaleLength, position, height - 1));
-            oLabel.ifPresent(label -> {
-                label.setX(textPosition);
-                label.setY(label.getLayoutBounds().getHeight());
-                children.add(label);
-            });
+            gc.strokeLine(position, height - sl.getScaleLength(), position, height - 1);
+            sl.getOLabel().ifPresent(label -> gc.fillText(label, sl.getTextPosition(), labelY));
+        }
+        gc.restore();
+
+        mPaintedScale = mScale;
+        mPaintedTranslation = mTranslation;
+        mPaintedWidth = width;
+        mPaintedHeight = height;
+        mNumRepaints++;
+        if (log.isDebugEnabled()) {
+            log.debug(mDirection + " ruler repainted in " + (System.nanoTime() - start) / 1000 + " µs, " + scaleLabels.size() + " scale lines, "
+                    + mNumRepaints + " repaints for " + mNumUpdates + " updates");
         }
     }
 
@@ -185,6 +272,13 @@ public class Ruler extends Pane {
         updateView();
     }
 
+    /**
+     * Returns the number of repaints of the scale canvas, for diagnostic purposes.
+     */
+    public int getNumRepaints() {
+        return mNumRepaints;
+    }
+
     public void setCursorMarker(Length position) {
         if (position == null) {
             mCursorMarker.setVisible(false);
@@ -315,11 +409,12 @@ public class Ruler extends Pane {
         return CoordinateUtils.lengthToCoords(position, null) * mScale + mTranslation;
     }
 
-    protected List<ScaleLabel> calculateScaleLabels() {
-        double visibleRange = getVisibleRange();
-
-        // Length of our visible range
-        double rangeStartPos = -mTranslation / mScale;
+    /**
+     * Calculates the scale lines and labels between the given positions of the ruler.
+     */
+    protected List<ScaleLabel> calculateScaleLabels(double fromPosition, double toPosition) {
+        // Length at the start of the range
+        double rangeStartPos = (fromPosition - mTranslation) / mScale;
         Length rangeStart = CoordinateUtils.coordsToLength(rangeStartPos, null);
 
         Length scaleDelta = Length.ofMM(1);
@@ -335,13 +430,12 @@ public class Ruler extends Pane {
         while (true) {
             // Main label
             String label = p.toHumanReadableString(lengthUnit, true);
-            Text text = new Text(label);
-            double currentPos = (CoordinateUtils.lengthToCoords(p, null) - rangeStartPos) * mScale;
-            double textStart = currentPos + getTextOffset(text.getLayoutBounds());
-            if (textStart > visibleRange) {
+            double currentPos = CoordinateUtils.lengthToCoords(p, null) * mScale + mTranslation;
+            double textStart = currentPos + getTextOffset(getLabelWidth(label));
+            if (textStart > toPosition) {
                 break;
             }
-            result.add(new ScaleLabel(currentPos, SCALE_LENGTH, Optional.of(text), textStart));
+            result.add(new ScaleLabel(currentPos, SCALE_LENGTH, Optional.of(label), textStart));
             boolean printMiddle = scaleDeltaDiff > 70;
             boolean printMiddleLabel = scaleDeltaDiff > 150;
             // 10th scale line
@@ -357,9 +451,8 @@ public class Ruler extends Pane {
                 double middlePos = currentPos + scaleDeltaDiff/2;
                 if (printMiddleLabel) {
                     String label2 = p.plus(scaleDelta.times(0.5)).toHumanReadableString(lengthUnit, true);
-                    Text middleLabel = new Text(label2);
-                    double middleTextStart = middlePos + getTextOffset(middleLabel.getLayoutBounds());
-                    result.add(new ScaleLabel(middlePos, MIDDLE_SCALE_LENGTH, Optional.of(middleLabel), middleTextStart));
+                    double middleTextStart = middlePos + getTextOffset(getLabelWidth(label2));
+                    result.add(new ScaleLabel(middlePos, MIDDLE_SCALE_LENGTH, Optional.of(label2), middleTextStart));
                 }
                 result.add(new ScaleLabel(middlePos, MIDDLE_SCALE_LENGTH, Optional.empty(), 0));
             }
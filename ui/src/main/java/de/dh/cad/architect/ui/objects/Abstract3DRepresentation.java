@@ -24,6 +24,7 @@ import de.dh.cad.architect.ui.assets.AssetLoader;
 import de.dh.cad.architect.ui.view.threed.Abstract3DView;
 import de.dh.cad.architect.ui.view.threed.behaviors.Abstract3DViewBehavior;
 import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.event.EventHandler;
 import javafx.scene.Group;
@@ -55,6 +56,11 @@ public abstract class Abstract3DRepresentation extends Group implements IModelBa
 
     protected final BooleanProperty mSelectedProperty = new SimpleBooleanProperty(this, "isSelected", false);
 
+    // The visibility of this node is the combination of the shown state, which is controlled by the model and the UI element filter,
+    // and the culled state, which is controlled by the visibility culling of the parent view
+    protected final BooleanProperty mShownProperty = new SimpleBooleanProperty(this, "isShown", true);
+    protected final BooleanProperty mCulledProperty = new SimpleBooleanProperty(this, "isCulled", false);
+
     protected final Abstract3DView mParentView;
     protected final BaseObject mModelObject;
 
@@ -141,6 +147,47 @@ public abstract class Abstract3DRepresentation extends Group implements IModelBa
         mObjectEmphasizedProperty.set(value);
     }
 
+    /**
+     * Property representing the information whether this object should be displayed. In contrast to the
+     * {@link #visibleProperty() visible property}, this property is not affected by visibility culling.
+     */
+    public BooleanProperty shownProperty() {
+        return mShownProperty;
+    }
+
+    public boolean isShown() {
+        return mShownProperty.get();
+    }
+
+    public void setShown(boolean value) {
+        mShownProperty.set(value);
+        updateVisibility();
+    }
+
+    /**
+     * Property representing the information whether this object is currently culled because it's outside the view frustum or occluded.
+     * Only to be changed by the visibility culling of the parent view, use {@link #setCulled(boolean)}.
+     */
+    public ReadOnlyBooleanProperty culledProperty() {
+        return mCulledProperty;
+    }
+
+    public boolean isCulled() {
+        return mCulledProperty.get();
+    }
+
+    /**
+     * Only to be called from the visibility culling of the parent view.
+     */
+    public void setCulled(boolean value) {
+        mCulledProperty.set(value);
+        updateVisibility();
+    }
+
+    protected void updateVisibility() {
+        setVisible(isShown() && !isCulled());
+    }
+
     public BooleanProperty mouseOverProperty() {
         return mMouseOverProperty;
     }
@@ -149,6 +196,14 @@ public abstract class Abstract3DRepresentation extends Group implements IModelBa
         return mMouseOverProperty.get();
     }
 
+    /**
+     * Sets the mouse-over state of this object. Called by the {@link de.dh.cad.architect.ui.view.threed.PickingManager picking manager}
+     * of our view, which resolves the object under the mouse cursor for mesh surfaces.
+     */
+    public void setMouseOver(boolean value) {
+        mMouseOverProperty.set(value);
+    }
+
     /**
      * Called after this view was removed from the plan.
      * Can remove event handlers etc.
@@ -159,7 +214,7 @@ public abstract class Abstract3DRepresentation extends Group implements IModelBa
 
     @Override
     public void updateToModel() {
-        setVisible(!mModelObject.isHidden());
+        setShown(!mModelObject.isHidden());
     }
 
     /**
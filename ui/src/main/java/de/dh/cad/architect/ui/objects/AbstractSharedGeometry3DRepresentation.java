@@ -0,0 +1,109 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.ui.objects;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import de.dh.cad.architect.geometry.PlanGeometry;
+import de.dh.cad.architect.model.coords.Position3D;
+import de.dh.cad.architect.model.objects.Anchor;
+import de.dh.cad.architect.model.objects.BaseSolidObject;
+import de.dh.cad.architect.model.objects.MaterialMappingConfiguration;
+import de.dh.cad.architect.ui.assets.AssetLoader;
+import de.dh.cad.architect.ui.view.threed.Abstract3DView;
+import de.dh.cad.architect.ui.view.threed.SharedPlanGeometry.ObjectGeometry;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.Shape3D;
+
+/**
+ * Solid 3D representation whose meshes are computed by the UI independent {@link PlanGeometry} and shared with the
+ * representations of the same object in other 3D views.
+ */
+public abstract class AbstractSharedGeometry3DRepresentation extends AbstractSolid3DRepresentation {
+    // Geometry of our model object, shared with the representations of the same object in other 3D views
+    protected ObjectGeometry mGeometry = null;
+
+    protected AbstractSharedGeometry3DRepresentation(BaseSolidObject modelObject, Abstract3DView parentView) {
+        super(modelObject, parentView);
+    }
+
+    /**
+     * Computes the meshes, surface sizes and the rotation of our model object. The computation is done only once per model
+     * change for all 3D views, see {@link #updateSharedGeometry()}.
+     */
+    protected abstract void computeGeometry(ObjectGeometry target);
+
+    /**
+     * Creates the key which describes all inputs of {@link #computeGeometry(ObjectGeometry)}. If the key didn't change
+     * after a change of our model object, e.g. because only the material was changed, the geometry is not computed again.
+     * Returns {@code null} by default, which means that the geometry is computed again after each change.
+     */
+    protected Object createGeometryKey() {
+        return null;
+    }
+
+    /**
+     * Creates a geometry key from the positions of the given anchors.
+     */
+    protected static List<Position3D> createPositionsKey(Collection<Anchor> anchors) {
+        List<Position3D> result = new ArrayList<>(anchors.size());
+        for (Anchor anchor : anchors) {
+            result.add(anchor.requirePosition3D());
+        }
+        return result;
+    }
+
+    /**
+     * Gets the UI independent geometry computation, which shares its triangulation cache with all 3D views of the plan.
+     */
+    protected PlanGeometry getPlanGeometry() {
+        return mParentView.getSharedPlanGeometry().getPlanGeometry();
+    }
+
+    /**
+     * Fetches the shared geometry of our model object, computing it if necessary, and attaches the meshes to
+     * the mesh views of our surfaces.
+     */
+    protected void updateSharedGeometry() {
+        mGeometry = mParentView.getSharedPlanGeometry().getOrCompute(getModelId(), createGeometryKey(), this::computeGeometry);
+        for (SurfaceData<? extends Shape3D> surfaceData : mSurfacesByTypeId.values()) {
+            String surfaceTypeId = surfaceData.getSurfaceTypeId();
+            if (surfaceData.getShape() instanceof MeshView meshView) {
+                meshView.setMesh(mGeometry.getMesh(surfaceTypeId));
+            }
+            surfaceData.setSurfaceSize(mGeometry.getSurfaceSize(surfaceTypeId).orElse(null));
+        }
+    }
+
+    /**
+     * Assigns the materials of our surfaces. The materials are shared between all 3D views like the geometry,
+     * thus {@link #updateSharedGeometry()} must have been called before.
+     */
+    protected void updateSharedMaterials() {
+        AssetLoader assetLoader = getAssetLoader();
+        for (SurfaceData<? extends Shape3D> surfaceData : mSurfacesByTypeId.values()) {
+            String surfaceTypeId = surfaceData.getSurfaceTypeId();
+            MaterialMappingConfiguration mmc = getSurfaceMaterial(surfaceTypeId);
+            PhongMaterial material = mGeometry.getOrCreateMaterial(surfaceTypeId, () -> assetLoader.buildMaterial(mmc, surfaceData.getSurfaceSize()));
+            surfaceData.setMaterial(material);
+        }
+    }
+}
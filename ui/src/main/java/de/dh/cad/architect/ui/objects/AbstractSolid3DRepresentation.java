@@ -19,6 +19,7 @@ package de.dh.cad.architect.ui.objects;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,6 +37,7 @@ import javafx.beans.value.ChangeListener;
 import javafx.scene.Node;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.paint.Color;
+import javafx.scene.shape.MeshView;
 import javafx.scene.shape.Shape3D;
 
 /**
@@ -88,6 +90,13 @@ public abstract class AbstractSolid3DRepresentation extends Abstract3DRepresenta
         }
     }
 
+    /**
+     * Gets all registered surfaces of this object.
+     */
+    public Collection<SurfaceData<? extends Shape3D>> getSurfaces() {
+        return mSurfacesByTypeId.values();
+    }
+
     public ObjectProperty<SurfaceData<? extends Shape3D>> mouseOverSurfaceProperty() {
         return mMouseOverSurfaceProperty;
     }
@@ -96,6 +105,14 @@ public abstract class AbstractSolid3DRepresentation extends Abstract3DRepresenta
         return mMouseOverSurfaceProperty.get();
     }
 
+    /**
+     * Sets the surface under the mouse cursor. Called by the {@link de.dh.cad.architect.ui.view.threed.PickingManager picking manager}
+     * of our view for surfaces which are represented by meshes.
+     */
+    public void setMouseOverSurface(SurfaceData<? extends Shape3D> surface) {
+        mMouseOverSurfaceProperty.set(surface);
+    }
+
     /**
      * Property representing the currently spotted surface. This property holds the currently spotted surface if
      * the {@link #getMouseSpotMode() mouse spot mode} is set to {@link AbstractSolid3DRepresentation.MouseSpotMode#Surface}, else it remains
@@ -154,23 +171,29 @@ public abstract class AbstractSolid3DRepresentation extends Abstract3DRepresenta
     /**
      * Assigns the given surface to the given 3D node object. This needs to be done when the object is constructed, it is
      * necessary for the {@link #mouseOverSurfaceProperty()} and the mouse spot engine to work.
+     * Mesh surfaces are picked by the {@link de.dh.cad.architect.ui.view.threed.PickingManager picking manager} of our view,
+     * so their shapes are made mouse transparent. Other shapes are still picked by JavaFX.
      * Currently, a node can only be marked with a surface but that assignment cannot be reverted for technical reasons.
      * If such a node is {@link #remove(Node) removed} for some reason, that node must not be reused.
      */
     protected void registerSurface(SurfaceData<? extends Shape3D> surface) {
         Shape3D shape = surface.getShape();
-        // Those event handlers represent the context of the node <-> surface mapping,
-        // thus we cannot put them into fields. That's why we cannot remember the event handler's
-        // instances without further overhead. That's why we currently don't support the removal of the event handlers
-        // in some unregister() method.
-        // If that capability will be needed in the future, we could store the event handler's instances
-        // in the surface or something...
-        shape.addEventHandler(MouseEvent.MOUSE_ENTERED, event -> {
-            mMouseOverSurfaceProperty.set(surface);
-        });
-        shape.addEventHandler(MouseEvent.MOUSE_EXITED, event -> {
-            mMouseOverSurfaceProperty.set(null);
-        });
+        if (shape instanceof MeshView) {
+            shape.setMouseTransparent(true);
+        } else {
+            // Those event handlers represent the context of the node <-> surface mapping,
+            // thus we cannot put them into fields. That's why we cannot remember the event handler's
+            // instances without further overhead. That's why we currently don't support the removal of the event handlers
+            // in some unregister() method.
+            // If that capability will be needed in the future, we could store the event handler's instances
+            // in the surface or something...
+            shape.addEventHandler(MouseEvent.MOUSE_ENTERED, event -> {
+                mMouseOverSurfaceProperty.set(surface);
+            });
+            shape.addEventHandler(MouseEvent.MOUSE_EXITED, event -> {
+                mMouseOverSurfaceProperty.set(null);
+            });
+        }
         mSurfacesByTypeId.put(surface.getSurfaceTypeId(), surface);
     }
 
@@ -45,7 +45,7 @@ public class SupportObject2DAncillary extends Abstract2DAncillaryObject {
 
     public void updateSupportObject(SupportObjectDescriptor descriptor, Dimensions2D dimensions, AssetLoader assetLoader) {
         mSupportObject = descriptor;
-        Image image = assetLoader.loadSupportObjectPlanViewImage(descriptor, true);
+        Image image = assetLoader.getSupportObjectPlanViewImages(descriptor.getSelfRef()).getFullImage();
         double cWidth = CoordinateUtils.lengthToCoords(dimensions.getX(), null);
         double cDepth = CoordinateUtils.lengthToCoords(dimensions.getY(), null);
         mImageView.setImage(image);
@@ -24,6 +24,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -43,6 +44,7 @@ import de.dh.cad.architect.ui.assets.ThreeDObject;
 import de.dh.cad.architect.ui.controller.UiController;
 import de.dh.cad.architect.ui.utils.CoordinateUtils;
 import de.dh.cad.architect.ui.view.threed.Abstract3DView;
+import de.dh.cad.architect.ui.view.threed.LevelOfDetailConfiguration;
 import de.dh.cad.architect.ui.view.threed.ThreeDView;
 import de.dh.utils.Vector2D;
 import javafx.collections.ObservableList;
@@ -52,8 +54,10 @@ import javafx.geometry.Point3D;
 import javafx.scene.Group;
 import javafx.scene.Node;
 import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.Mesh;
 import javafx.scene.shape.MeshView;
 import javafx.scene.shape.Shape3D;
+import javafx.scene.shape.TriangleMesh;
 import javafx.scene.transform.Rotate;
 import javafx.scene.transform.Scale;
 import javafx.scene.transform.Transform;
@@ -69,6 +73,10 @@ public class SupportObject3DRepresentation extends AbstractSolid3DRepresentation
     protected Rotate mRotation = new Rotate();
     protected Translate mTranslation = new Translate();
 
+    // Level of detail handling
+    protected final Map<MeshView, List<Mesh>> mMeshViewsToLodMeshes = new HashMap<>(); // Mesh views to meshes of levels 0..n
+    protected int mLevelOfDetail = 0;
+
     public SupportObject3DRepresentation(SupportObject supportObject, Abstract3DView parentView) {
         super(supportObject, parentView);
         initializeNode();
@@ -88,6 +96,9 @@ public class SupportObject3DRepresentation extends AbstractSolid3DRepresentation
         AssetManager assetManager = assetLoader.getAssetManager();
         AssetRefPath supportObjectDescriptorRef = supportObject.getSupportObjectDescriptorRef();
 
+        mMeshViewsToLodMeshes.clear();
+        mLevelOfDetail = 0;
+
         ThreeDObject object;
         try {
             SupportObjectDescriptor descriptor = assetManager.loadSupportObjectDescriptor(supportObjectDescriptorRef);
@@ -98,6 +109,7 @@ public class SupportObject3DRepresentation extends AbstractSolid3DRepresentation
                 PhongMaterial material = (PhongMaterial) mv.getMaterial();
                 mOrigModelMaterials.put(mv.getId(), material);
             }
+            initializeLevelsOfDetail(descriptor, object);
         } catch (IOException e) {
             log.error("Error creating 3D representation for support object <" + supportObjectDescriptorRef + ">", e);
             object = AssetLoader.loadSupportObjectPlaceholder3DResource();
@@ -142,6 +154,55 @@ public class SupportObject3DRepresentation extends AbstractSolid3DRepresentation
         }
     }
 
+    protected void initializeLevelsOfDetail(SupportObjectDescriptor descriptor, ThreeDObject object) {
+        LevelOfDetailConfiguration lodConfig = mParentView.getLevelOfDetailConfiguration();
+        if (!lodConfig.isEnabled()) {
+            return;
+        }
+        Map<String, List<TriangleMesh>> lodMeshes = getAssetLoader().getOrCreateSupportObjectLodMeshes(descriptor, object,
+            lodConfig.getGridResolutions(), lodConfig.getMinFaces());
+        if (lodMeshes.isEmpty()) {
+            return;
+        }
+        for (MeshView meshView : object.getSurfaceMeshViews()) {
+            List<TriangleMesh> meshLevels = lodMeshes.get(meshView.getId());
+            if (meshLevels == null) {
+                continue;
+            }
+            List<Mesh> levels = new ArrayList<>(meshLevels.size() + 1);
+            levels.add(meshView.getMesh());
+            levels.addAll(meshLevels);
+            mMeshViewsToLodMeshes.put(meshView, levels);
+        }
+    }
+
+    /**
+     * Returns {@code true} if this object has decimated meshes which can be shown if the object is far away.
+     */
+    public boolean hasLevelsOfDetail() {
+        return !mMeshViewsToLodMeshes.isEmpty();
+    }
+
+    public int getLevelOfDetail() {
+        return mLevelOfDetail;
+    }
+
+    /**
+     * Switches the meshes of this object to the given level of detail.
+     * @param level Level to be shown, {@code 0} is the full resolution model. If this object doesn't provide the
+     * given level, the nearest available coarser level is shown.
+     */
+    public void setLevelOfDetail(int level) {
+        if (level == mLevelOfDetail) {
+            return;
+        }
+        mLevelOfDetail = level;
+        for (Entry<MeshView, List<Mesh>> entry : mMeshViewsToLodMeshes.entrySet()) {
+            List<Mesh> levels = entry.getValue();
+            entry.getKey().setMesh(levels.get(Math.min(level, levels.size() - 1)));
+        }
+    }
+
     public void resetSupportObjectSurfaces(SupportObject supportObject, UiController uiController) {
         AssetManager assetManager = uiController.getAssetManager();
         AssetLoader assetLoader = assetManager.buildAssetLoader();
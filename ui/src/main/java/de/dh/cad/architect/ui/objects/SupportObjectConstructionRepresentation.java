@@ -23,6 +23,7 @@ import de.dh.cad.architect.model.coords.Length;
 import de.dh.cad.architect.model.objects.SupportObject;
 import de.dh.cad.architect.ui.Constants;
 import de.dh.cad.architect.ui.assets.AssetLoader;
+import de.dh.cad.architect.ui.assets.PlanViewImageCache.ImagePyramid;
 import de.dh.cad.architect.ui.utils.CoordinateUtils;
 import de.dh.cad.architect.ui.view.construction.Abstract2DView;
 import de.dh.cad.architect.ui.view.construction.ConstructionView;
@@ -34,18 +35,20 @@ import javafx.beans.value.ChangeListener;
 import javafx.geometry.Point2D;
 import javafx.geometry.Point3D;
 import javafx.scene.Cursor;
-import javafx.scene.image.Image;
+import javafx.scene.Scene;
 import javafx.scene.image.ImageView;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.shape.Shape;
 import javafx.scene.shape.StrokeType;
+import javafx.stage.Window;
 
 public class SupportObjectConstructionRepresentation extends AbstractAnchoredObjectConstructionRepresentation {
     public interface IMoveHandler {
         void move(de.dh.cad.architect.model.coords.Vector2D delta, boolean firstMoveEvent);
     }
 
+    protected final ImagePyramid mPlanViewImages;
     protected final ImageView mImage;
     protected final Rectangle mSpotRectangle;
 
@@ -55,12 +58,13 @@ public class SupportObjectConstructionRepresentation extends AbstractAnchoredObj
         super(supportObject, parentView);
 
         AssetLoader assetLoader = parentView.getAssetLoader();
-        Image image = assetLoader.loadSupportObjectPlanViewImage(supportObject.getSupportObjectDescriptorRef(), true);
+        // Images are shared among all instances of the support object
+        mPlanViewImages = assetLoader.getSupportObjectPlanViewImages(supportObject.getSupportObjectDescriptorRef());
         //setViewOrder(Constants.VIEW_ORDER_SUPPORT_OBJECT); -- set in updateProperties()
         mSpotRectangle = new Rectangle();
         mSpotRectangle.getStrokeDashArray().setAll(3d, 10d);
         addScaled(mSpotRectangle);
-        mImage = new ImageView(image);
+        mImage = new ImageView(mPlanViewImages.getFullImage());
         addScaled(mImage);
 
         ChangeListener<Boolean> propertiesUpdaterListener = (observable, oldValue, newValue) -> updateProperties();
@@ -68,6 +72,8 @@ public class SupportObjectConstructionRepresentation extends AbstractAnchoredObj
         objectSpottedProperty().addListener(propertiesUpdaterListener);
         objectFocusedProperty().addListener(propertiesUpdaterListener);
         objectEmphasizedProperty().addListener(propertiesUpdaterListener);
+        // The output scale of the screen is only known when we are shown
+        sceneProperty().addListener((observable, oldValue, newValue) -> updateImageResolution());
     }
 
     public SupportObject getSupportObject() {
@@ -134,6 +140,21 @@ public class SupportObjectConstructionRepresentation extends AbstractAnchoredObj
         mImage.setFitHeight(size.getY());
         mImage.setRotationAxis(rotationAxis);
         mImage.setRotate(rotationDeg);
+
+        updateImageResolution();
+    }
+
+    /**
+     * Chooses the image resolution which fits the current zoom level and the output scale of the screen.
+     */
+    protected void updateImageResolution() {
+        Vector2D size = CoordinateUtils.dimensions2DToUiVector2D(getSupportObject().getSize());
+        double scaleCompensation = getScaleCompensation();
+        Scene scene = getScene();
+        Window window = scene == null ? null : scene.getWindow();
+        double outputScaleX = window == null ? 1 : window.getOutputScaleX();
+        double outputScaleY = window == null ? 1 : window.getOutputScaleY();
+        mImage.setImage(mPlanViewImages.getImage(size.getX() / scaleCompensation, size.getY() / scaleCompensation, outputScaleX, outputScaleY));
     }
 
     public void enableCollectiveMove(IMoveHandler moveHandler) {
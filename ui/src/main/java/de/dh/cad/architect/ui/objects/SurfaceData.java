@@ -39,10 +39,13 @@ public class SurfaceData<T extends Shape3D> {
     protected Optional<Vector2D> mOSurfaceSize = Optional.empty();
 
     protected PhongMaterial mOriginalMaterial = null;
-    protected Color mOriginalColor = null;
     protected PhongMaterial mOverlayMaterial = null;
     protected Color mOverlayColor = null;
 
+    // Copy of the original material, colored in the overlay color. The original material might be shared with
+    // other views, so we must not change its color.
+    protected PhongMaterial mOverlayColorMaterial = null;
+
     public SurfaceData(AbstractSolid3DRepresentation ownerRepr, String surfaceTypeId, T shape) {
         mOwnerRepr = ownerRepr;
         mSurfaceTypeId = surfaceTypeId;
@@ -96,7 +99,7 @@ public class SurfaceData<T extends Shape3D> {
             material = new PhongMaterial();
         }
         mOriginalMaterial = material;
-        mOriginalColor = mOriginalMaterial.getDiffuseColor();
+        mOverlayColorMaterial = null;
         updateShape();
     }
 
@@ -133,6 +136,7 @@ public class SurfaceData<T extends Shape3D> {
             return;
         }
         mOverlayColor = value;
+        mOverlayColorMaterial = null;
         updateShape();
     }
 
@@ -144,6 +148,7 @@ public class SurfaceData<T extends Shape3D> {
             return;
         }
         mOverlayColor = null;
+        mOverlayColorMaterial = null;
         updateShape();
     }
 
@@ -153,11 +158,20 @@ public class SurfaceData<T extends Shape3D> {
             return;
         }
         if (mOverlayColor != null) {
-            mOriginalMaterial.setDiffuseColor(mOverlayColor);
-            mShape.setMaterial(mOriginalMaterial);
+            if (mOverlayColorMaterial == null) {
+                mOverlayColorMaterial = createOverlayColorMaterial(mOriginalMaterial, mOverlayColor);
+            }
+            mShape.setMaterial(mOverlayColorMaterial);
             return;
         }
-        mOriginalMaterial.setDiffuseColor(mOriginalColor);
         mShape.setMaterial(mOriginalMaterial);
     }
+
+    protected static PhongMaterial createOverlayColorMaterial(PhongMaterial originalMaterial, Color overlayColor) {
+        PhongMaterial result = new PhongMaterial(overlayColor, originalMaterial.getDiffuseMap(),
+            originalMaterial.getSpecularMap(), originalMaterial.getBumpMap(), originalMaterial.getSelfIlluminationMap());
+        result.setSpecularColor(originalMaterial.getSpecularColor());
+        result.setSpecularPower(originalMaterial.getSpecularPower());
+        return result;
+    }
 }
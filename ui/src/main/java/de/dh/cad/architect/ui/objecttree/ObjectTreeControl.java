@@ -119,6 +119,7 @@ public class ObjectTreeControl extends BorderPane {
     }
 
     protected int mSuppressSelectionChanges = 0;
+    protected int mUpdateDepth = 0;
 
     protected void initialize() {
         TreeTableViewSelectionModel<ITreeItemData> ttvSelectionModel = mTreeTableView.getSelectionModel();
@@ -278,7 +279,7 @@ public class ObjectTreeControl extends BorderPane {
             mTreeTableView.getSelectionModel().clearSelection();
             mSelectedObjectIds
                 .stream()
-                .flatMap(id -> mRootTreeItem.getTreeItemsByObjectId(id).stream())
+                .flatMap(id -> mRootTreeItem.getOrBuildTreeItemsByObjectId(id).stream())
                 .forEach(item -> {
                     if (mSelectedObjectIds.size() > 1) {
                         TreeViewUtils.addSelection(mTreeTableView, item);
@@ -332,7 +333,7 @@ public class ObjectTreeControl extends BorderPane {
     protected Collection<TreeItem<ITreeItemData>> getTreeItems(Collection<String> objectIds) {
         return objectIds
                         .stream()
-                        .flatMap(id -> mRootTreeItem.getTreeItemsByObjectId(id).stream())
+                        .flatMap(id -> mRootTreeItem.getOrBuildTreeItemsByObjectId(id).stream())
                         .collect(Collectors.toList());
     }
 
@@ -351,34 +352,52 @@ public class ObjectTreeControl extends BorderPane {
         return mSelectedObjectIds;
     }
 
-    public void objectsRemoved(Collection<BaseObject> removedObjects) {
+    /**
+     * Starts a batch of object changes. The tree is updated and the selection is synchronized when the outermost
+     * batch ends, see {@link #endUpdate()}.
+     */
+    public void beginUpdate() {
+        mUpdateDepth++;
         mSuppressSelectionChanges++;
+        mRootTreeItem.beginUpdate();
+    }
+
+    public void endUpdate() {
         try {
-            mRootTreeItem.objectsRemoved(removedObjects);
+            mRootTreeItem.endUpdate();
         } finally {
             mSuppressSelectionChanges--;
         }
-        updateSelectedObjectIdsFromTreeViewSelection();
+        if (--mUpdateDepth == 0) {
+            updateSelectedObjectIdsFromTreeViewSelection();
+        }
+    }
+
+    public void objectsRemoved(Collection<BaseObject> removedObjects) {
+        beginUpdate();
+        try {
+            mRootTreeItem.objectsRemoved(removedObjects);
+        } finally {
+            endUpdate();
+        }
     }
 
     public void objectsChanged(Collection<BaseObject> changedObjects) {
-        mSuppressSelectionChanges++;
+        beginUpdate();
         try {
             mRootTreeItem.objectsChanged(changedObjects);
         } finally {
-            mSuppressSelectionChanges--;
+            endUpdate();
         }
-        updateSelectedObjectIdsFromTreeViewSelection();
     }
 
     public void objectsAdded(Collection<BaseObject> addedObjects) {
-        mSuppressSelectionChanges++;
+        beginUpdate();
         try {
             mRootTreeItem.objectsAdded(addedObjects);
         } finally {
-            mSuppressSelectionChanges--;
+            endUpdate();
         }
-        updateSelectedObjectIdsFromTreeViewSelection();
     }
 
     public void setContextMenuProviders(List<IObjectContextMenuProvider> contextMenuProviders) {
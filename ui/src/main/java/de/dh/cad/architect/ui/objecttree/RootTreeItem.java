@@ -20,7 +20,12 @@ package de.dh.cad.architect.ui.objecttree;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
@@ -48,12 +53,65 @@ import javafx.collections.ObservableList;
 import javafx.event.Event;
 import javafx.scene.control.TreeItem;
 
+/**
+ * Root of the object tree.
+ * Tree mutations are collected while an update is running (see {@link #beginUpdate()} and {@link #endUpdate()}) and are
+ * applied at the end of the update with a single children diff per parent item. Children of object items (anchors and
+ * wall holes) are only created when the object item is expanded or when one of its child items is requested.
+ */
 public class RootTreeItem extends TreeItem<ITreeItemData> {
+    /**
+     * Collected children changes of a single parent item.
+     */
+    protected static class ChildrenChanges {
+        protected final List<TreeItem<ITreeItemData>> mAdded = new ArrayList<>();
+        protected final Set<TreeItem<ITreeItemData>> mRemoved = new LinkedHashSet<>();
+    }
+
+    /**
+     * Tree item of an object which can own child objects. The child items are built on first access to the children list.
+     */
+    protected class ObjectTreeItem extends TreeItem<ITreeItemData> {
+        protected boolean mChildrenBuilt = false;
+
+        public ObjectTreeItem(BaseObject obj) {
+            super(new BaseObjectTreeItemData(obj, false));
+        }
+
+        public BaseObject getObject() {
+            return ((IObjectTreeItemData) getValue()).getObject();
+        }
+
+        public boolean isChildrenBuilt() {
+            return mChildrenBuilt;
+        }
+
+        @Override
+        public boolean isLeaf() {
+            return mChildrenBuilt ? super.isLeaf() : !hasChildObjects(getObject());
+        }
+
+        @Override
+        public ObservableList<TreeItem<ITreeItemData>> getChildren() {
+            ObservableList<TreeItem<ITreeItemData>> result = super.getChildren();
+            if (!mChildrenBuilt) {
+                mChildrenBuilt = true;
+                result.setAll(createChildItems(getObject()));
+            }
+            return result;
+        }
+    }
+
     protected final Plan mPlan;
     protected final MultiValuedMap<String, TreeItem<ITreeItemData>> mIdsToItems = new ArrayListValuedHashMap<>();
     protected final Map<String, TreeItem<ITreeItemData>> mCurrentTopLevelGroups = new TreeMap<>();
     protected final MultiValuedMap<String, String> mCurrentItemsToGroups = new ArrayListValuedHashMap<>();
 
+    protected int mUpdateDepth = 0;
+    protected final Map<TreeItem<ITreeItemData>, ChildrenChanges> mPendingChildrenChanges = new LinkedHashMap<>();
+    protected final Map<TreeItem<ITreeItemData>, TreeItem<ITreeItemData>> mPendingParents = new HashMap<>();
+    protected final Set<TreeItem<ITreeItemData>> mPendingValueChanges = new LinkedHashSet<>();
+
     protected final TreeItem<ITreeItemData> mDimensioningsItem;
     protected final TreeItem<ITreeItemData> mFloorsItem;
     protected final TreeItem<ITreeItemData> mWallsItem;
@@ -138,17 +196,144 @@ public class RootTreeItem extends TreeItem<ITreeItemData> {
         });
         rootChildren.add(mObjectGroupsItem);
 
-        insertTreeItems(mPlan.getDimensionings().values());
-        insertTreeItems(mPlan.getFloors().values());
-        Collection<Wall> walls = mPlan.getWalls().values();
-        insertTreeItems(walls);
-        insertWallHoles(walls);
-        insertTreeItems(mPlan.getCeilings().values());
-        insertTreeItems(mPlan.getCoverings().values());
-        insertTreeItems(mPlan.getSupportObjects().values());
-        insertTreeItems(mPlan.getGuideLines().values());
-        insertGroups();
-        insertTreeItems(mPlan.getAnchors().values());
+        // Wall holes and anchors are created lazily by their owner items
+        beginUpdate();
+        try {
+            insertTreeItems(mPlan.getDimensionings().values());
+            insertTreeItems(mPlan.getFloors().values());
+            insertTreeItems(mPlan.getWalls().values());
+            insertTreeItems(mPlan.getCeilings().values());
+            insertTreeItems(mPlan.getCoverings().values());
+            insertTreeItems(mPlan.getSupportObjects().values());
+            insertTreeItems(mPlan.getGuideLines().values());
+            insertGroups();
+        } finally {
+            endUpdate();
+        }
+    }
+
+    /**
+     * Starts collecting tree mutations. Calls may be nested, the mutations are applied to the tree
+     * when the outermost update ends.
+     */
+    public void beginUpdate() {
+        mUpdateDepth++;
+    }
+
+    public void endUpdate() {
+        if (--mUpdateDepth > 0) {
+            return;
+        }
+        flushPendingChanges();
+    }
+
+    protected void flushPendingChanges() {
+        List<Entry<TreeItem<ITreeItemData>, ChildrenChanges>> childrenChanges = new ArrayList<>(mPendingChildrenChanges.entrySet());
+        List<TreeItem<ITreeItemData>> valueChanges = new ArrayList<>(mPendingValueChanges);
+        mPendingChildrenChanges.clear();
+        mPendingParents.clear();
+        mPendingValueChanges.clear();
+        for (Entry<TreeItem<ITreeItemData>, ChildrenChanges> entry : childrenChanges) {
+            TreeItem<ITreeItemData> parent = entry.getKey();
+            ChildrenChanges changes = entry.getValue();
+            ObservableList<TreeItem<ITreeItemData>> children = parent.getChildren();
+            if (!changes.mRemoved.isEmpty()) {
+                children.removeAll(changes.mRemoved);
+            }
+            if (!changes.mAdded.isEmpty()) {
+                children.addAll(changes.mAdded);
+            }
+        }
+        for (TreeItem<ITreeItemData> item : valueChanges) {
+            // Provoke an update of maybe changed values
+            TreeModificationEvent<ITreeItemData> event = new TreeModificationEvent<>(TreeItem.valueChangedEvent(), item);
+            Event.fireEvent(item, event);
+        }
+    }
+
+    protected void addChild(TreeItem<ITreeItemData> parent, TreeItem<ITreeItemData> item) {
+        if (mUpdateDepth == 0) {
+            parent.getChildren().add(item);
+            return;
+        }
+        mPendingChildrenChanges.computeIfAbsent(parent, p -> new ChildrenChanges()).mAdded.add(item);
+        mPendingParents.put(item, parent);
+    }
+
+    protected void removeChild(TreeItem<ITreeItemData> item) {
+        TreeItem<ITreeItemData> parent = getParent(item);
+        if (parent == null) {
+            return;
+        }
+        if (mUpdateDepth == 0) {
+            parent.getChildren().remove(item);
+            return;
+        }
+        ChildrenChanges changes = mPendingChildrenChanges.computeIfAbsent(parent, p -> new ChildrenChanges());
+        if (mPendingParents.remove(item) != null) {
+            // Item was not added yet
+            changes.mAdded.remove(item);
+        } else {
+            changes.mRemoved.add(item);
+        }
+    }
+
+    /**
+     * Returns the parent of the given item, taking pending additions into account.
+     */
+    protected TreeItem<ITreeItemData> getParent(TreeItem<ITreeItemData> item) {
+        TreeItem<ITreeItemData> result = mPendingParents.get(item);
+        return result == null ? item.getParent() : result;
+    }
+
+    /**
+     * Returns the current children of the given item including pending additions, without building the children of
+     * lazy items.
+     */
+    protected Collection<TreeItem<ITreeItemData>> getKnownChildren(TreeItem<ITreeItemData> item) {
+        if (item instanceof ObjectTreeItem oti && !oti.isChildrenBuilt()) {
+            return Collections.emptyList();
+        }
+        Collection<TreeItem<ITreeItemData>> result = new ArrayList<>(item.getChildren());
+        ChildrenChanges changes = mPendingChildrenChanges.get(item);
+        if (changes != null) {
+            result.removeAll(changes.mRemoved);
+            result.addAll(changes.mAdded);
+        }
+        return result;
+    }
+
+    protected boolean hasChildObjects(BaseObject obj) {
+        if (obj instanceof Wall wall && !wall.getWallHoles().isEmpty()) {
+            return true;
+        }
+        return obj instanceof BaseAnchoredObject bao && !bao.getAnchors().isEmpty();
+    }
+
+    /**
+     * Creates the child items of the given object's main item, which are the items of its wall holes and anchors.
+     */
+    protected List<TreeItem<ITreeItemData>> createChildItems(BaseObject obj) {
+        List<TreeItem<ITreeItemData>> result = new ArrayList<>();
+        if (obj instanceof Wall wall) {
+            for (WallHole hole : wall.getWallHoles()) {
+                TreeItem<ITreeItemData> item = createMainTreeItem(hole);
+                mIdsToItems.put(hole.getId(), item);
+                result.add(item);
+            }
+        }
+        if (obj instanceof BaseAnchoredObject bao) {
+            for (Anchor anchor : bao.getAnchors()) {
+                TreeItem<ITreeItemData> item = createMainTreeItem(anchor);
+                mIdsToItems.put(anchor.getId(), item);
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    protected TreeItem<ITreeItemData> createMainTreeItem(BaseObject obj) {
+        return obj instanceof BaseAnchoredObject ? new ObjectTreeItem(obj) : new TreeItem<>(new BaseObjectTreeItemData(obj, false));
     }
 
     protected Collection<TreeItem<ITreeItemData>> getTreeItemsByObjectId(String id) {
@@ -156,6 +341,28 @@ public class RootTreeItem extends TreeItem<ITreeItemData> {
         return result == null ? Collections.emptyList() : result;
     }
 
+    /**
+     * Returns the tree items of the object with the given id. If the object is an anchor or a wall hole whose items were not built
+     * yet, the child items of its owner are built.
+     */
+    protected Collection<TreeItem<ITreeItemData>> getOrBuildTreeItemsByObjectId(String id) {
+        Collection<TreeItem<ITreeItemData>> result = getTreeItemsByObjectId(id);
+        if (!result.isEmpty()) {
+            return result;
+        }
+        BaseObject obj = mPlan.getObjectById(id);
+        BaseObject owner = obj instanceof Anchor a ? a.getAnchorOwner() : obj instanceof WallHole hole ? hole.getWall() : null;
+        if (owner == null) {
+            return result;
+        }
+        for (TreeItem<ITreeItemData> ownerItem : getOrBuildTreeItemsByObjectId(owner.getId())) {
+            if (ownerItem instanceof ObjectTreeItem) {
+                ownerItem.getChildren(); // Builds children
+            }
+        }
+        return getTreeItemsByObjectId(id);
+    }
+
     protected Optional<TreeItem<ITreeItemData>> getMainTreeItemByObjectId(String id) {
         return filterMainTreeItem(getTreeItemsByObjectId(id));
     }
@@ -174,14 +381,6 @@ public class RootTreeItem extends TreeItem<ITreeItemData> {
         }
     }
 
-    protected void insertWallHoles(Collection<Wall> walls) {
-        for (Wall wall : walls) {
-            for (WallHole hole : wall.getWallHoles()) {
-                getOrCreateTreeItems(hole);
-            }
-        }
-    }
-
     protected void insertGroups() {
         checkGroups(mPlan.getTopLevelGroups().values()); // Ensure that all top-level group items are present
         Collection<ObjectsGroup> groups = mPlan.getGroups().values();
@@ -214,53 +413,27 @@ public class RootTreeItem extends TreeItem<ITreeItemData> {
             // Object addition changes arrive in an undefined order - thus we can get additions of anchors before we
             // are called for their owner object. So we try to create the owner object, if it is not present yet.
             getOrCreateTreeItems(owner);
-            Optional<TreeItem<ITreeItemData>> oOwnerItem = getMainTreeItemByObjectId(ownerId);
-            if (!oOwnerItem.isPresent()) {
-                oOwnerItem = getMainTreeItemByObjectId(ownerId);
-            }
-            oOwnerItem.ifPresent(ownerItem -> {
-                TreeItem<ITreeItemData> item = new TreeItem<>(new BaseObjectTreeItemData(obj, false)); // This is the main item
-                result.add(item);
-                ownerItem.getChildren().add(item);
-            });
+            getMainTreeItemByObjectId(ownerId).ifPresent(ownerItem -> addChildObjectItem(ownerItem, obj, result));
         } else if (obj instanceof Dimensioning) {
-            TreeItem<ITreeItemData> item = new TreeItem<>(new BaseObjectTreeItemData(obj, false));
-            result.add(item);
-            mDimensioningsItem.getChildren().add(item);
+            addMainItem(mDimensioningsItem, obj, result);
         } else if (obj instanceof Floor) {
-            TreeItem<ITreeItemData> item = new TreeItem<>(new BaseObjectTreeItemData(obj, false));
-            result.add(item);
-            mFloorsItem.getChildren().add(item);
+            addMainItem(mFloorsItem, obj, result);
         } else if (obj instanceof Wall) {
-            TreeItem<ITreeItemData> item = new TreeItem<>(new BaseObjectTreeItemData(obj, false));
-            result.add(item);
-            mWallsItem.getChildren().add(item);
+            addMainItem(mWallsItem, obj, result);
         } else if (obj instanceof WallHole hole) {
             Wall wall = hole.getWall();
             // Object addition changes arrive in an undefined order - thus we could potentially get additions of wall holes
             // before we are called for their owner wall. So we try to create the owner wall, if it is not present yet.
             getOrCreateTreeItems(wall);
-            getMainTreeItemByObjectId(wall.getId()).ifPresent(wallItem -> {
-                TreeItem<ITreeItemData> item = new TreeItem<>(new BaseObjectTreeItemData(obj, false));
-                result.add(item);
-                wallItem.getChildren().add(item);
-            });
+            getMainTreeItemByObjectId(wall.getId()).ifPresent(wallItem -> addChildObjectItem(wallItem, obj, result));
         } else if (obj instanceof Ceiling) {
-            TreeItem<ITreeItemData> item = new TreeItem<>(new BaseObjectTreeItemData(obj, false));
-            result.add(item);
-            mCeilingsItem.getChildren().add(item);
+            addMainItem(mCeilingsItem, obj, result);
         } else if (obj instanceof Covering) {
-            TreeItem<ITreeItemData> item = new TreeItem<>(new BaseObjectTreeItemData(obj, false));
-            result.add(item);
-            mCoveringsItem.getChildren().add(item);
+            addMainItem(mCoveringsItem, obj, result);
         } else if (obj instanceof SupportObject) {
-            TreeItem<ITreeItemData> item = new TreeItem<>(new BaseObjectTreeItemData(obj, false));
-            result.add(item);
-            mSupportObjectsItem.getChildren().add(item);
+            addMainItem(mSupportObjectsItem, obj, result);
         } else if (obj instanceof GuideLine) {
-            TreeItem<ITreeItemData> item = new TreeItem<>(new BaseObjectTreeItemData(obj, false));
-            result.add(item);
-            mGuideLinesItem.getChildren().add(item);
+            addMainItem(mGuideLinesItem, obj, result);
         }
         if (!result.isEmpty()) {
             for (TreeItem<ITreeItemData> item : result) {
@@ -271,6 +444,25 @@ public class RootTreeItem extends TreeItem<ITreeItemData> {
         return Collections.emptyList();
     }
 
+    protected void addMainItem(TreeItem<ITreeItemData> parent, BaseObject obj, Collection<TreeItem<ITreeItemData>> result) {
+        TreeItem<ITreeItemData> item = createMainTreeItem(obj);
+        result.add(item);
+        addChild(parent, item);
+    }
+
+    /**
+     * Adds the item for the given child object (anchor or wall hole) under its owner item. If the children of the owner item
+     * are not built yet, nothing is done because the item will be created when the children are built.
+     */
+    protected void addChildObjectItem(TreeItem<ITreeItemData> ownerItem, BaseObject obj, Collection<TreeItem<ITreeItemData>> result) {
+        if (ownerItem instanceof ObjectTreeItem oti && !oti.isChildrenBuilt()) {
+            return;
+        }
+        TreeItem<ITreeItemData> item = createMainTreeItem(obj);
+        result.add(item);
+        addChild(ownerItem, item);
+    }
+
     /**
      * Checks the tree items of the owner group assignments of the given object.
      * Only the parents of the given child object are checked if their children are still up-to-date, so we assume to be called for each child object
@@ -288,7 +480,7 @@ public class RootTreeItem extends TreeItem<ITreeItemData> {
                 // We need a Top level group item
                 if (!mCurrentTopLevelGroups.containsKey(objId)) {
                     TreeItem<ITreeItemData> groupItem = new TreeItem<>(new GroupsTreeItemData(obj));
-                    mObjectGroupsItem.getChildren().add(groupItem);
+                    addChild(mObjectGroupsItem, groupItem);
                     mIdsToItems.put(objId, groupItem);
                     mCurrentTopLevelGroups.put(objId, groupItem);
                 }
@@ -297,7 +489,7 @@ public class RootTreeItem extends TreeItem<ITreeItemData> {
                 // we need to remove it from the top level items
                 TreeItem<ITreeItemData> tlgItem = mCurrentTopLevelGroups.get(objId);
                 if (tlgItem != null) {
-                    tlgItem.getParent().getChildren().remove(tlgItem);
+                    removeChild(tlgItem);
                     mIdsToItems.removeMapping(objId, tlgItem);
                     mCurrentTopLevelGroups.remove(objId);
                 }
@@ -321,7 +513,7 @@ public class RootTreeItem extends TreeItem<ITreeItemData> {
                     .stream()
                     .filter(ti -> ti.getValue() instanceof GroupsTreeItemData) // Only consider items in groups tree, don't touch items at other places
                     .forEach(itemToRemoveFromGroup -> {
-                        itemToRemoveFromGroup.getParent().getChildren().remove(itemToRemoveFromGroup);
+                        removeChild(itemToRemoveFromGroup);
                         mIdsToItems.removeMapping(objId, itemToRemoveFromGroup);
                     });
             mCurrentItemsToGroups.removeMapping(objId, currentGroupId);
@@ -355,7 +547,7 @@ public class RootTreeItem extends TreeItem<ITreeItemData> {
                 continue;
             }
             TreeItem<ITreeItemData> item = new TreeItem<>(new GroupsTreeItemData(obj));
-            groupItem.getChildren().add(item);
+            addChild(groupItem, item);
             mIdsToItems.put(obj.getId(), item);
             if (obj instanceof ObjectsGroup subGroup) {
                 String subGroupId = subGroup.getId();
@@ -367,10 +559,9 @@ public class RootTreeItem extends TreeItem<ITreeItemData> {
     }
 
     protected boolean itemsContainObjItem(TreeItem<ITreeItemData> groupItem, BaseObject obj) {
-        ObservableList<TreeItem<ITreeItemData>> children = groupItem.getChildren();
         // We could establish an index structure in GroupsTreeItemData to avoid this loop, if necessary...
-        for (TreeItem<ITreeItemData> item : children) {
-            if (item instanceof IObjectTreeItemData otid) {
+        for (TreeItem<ITreeItemData> item : getKnownChildren(groupItem)) {
+            if (item.getValue() instanceof IObjectTreeItemData otid) {
                 if (obj.equals(otid.getObject())) {
                     return true;
                 }
@@ -402,17 +593,22 @@ public class RootTreeItem extends TreeItem<ITreeItemData> {
     }
 
     protected void removeSingleItem(TreeItem<ITreeItemData> item) {
-        for (TreeItem<ITreeItemData> child : new ArrayList<>(item.getChildren())) {
-            removeSingleItem(child);
+        unregisterItemRecursive(item);
+        removeChild(item);
+    }
+
+    /**
+     * Removes the given item and all its descendants from our id index. The descendants stay in the detached sub tree of the item.
+     */
+    protected void unregisterItemRecursive(TreeItem<ITreeItemData> item) {
+        for (TreeItem<ITreeItemData> child : getKnownChildren(item)) {
+            unregisterItemRecursive(child);
         }
+        mPendingChildrenChanges.remove(item);
         if (item.getValue() instanceof IObjectTreeItemData otid) {
             String id = otid.getId();
             mIdsToItems.get(id).remove(item);
         }
-        TreeItem<ITreeItemData> parent = item.getParent();
-        if (parent != null) {
-            parent.getChildren().remove(item);
-        }
     }
 
     protected void removeTreeItem(String id) {
@@ -426,27 +622,37 @@ public class RootTreeItem extends TreeItem<ITreeItemData> {
     }
 
     public void objectsRemoved(Collection<BaseObject> removedObjects) {
-        // This also handles toplevel groups, no special treatment necessary
-        for (BaseObject obj : removedObjects) {
-            removeTreeItem(obj.getId());
+        beginUpdate();
+        try {
+            // This also handles toplevel groups, no special treatment necessary
+            for (BaseObject obj : removedObjects) {
+                removeTreeItem(obj.getId());
+            }
+        } finally {
+            endUpdate();
         }
     }
 
     public void objectsChanged(Collection<BaseObject> changedObjects) {
-        for (BaseObject obj : changedObjects) {
-            Collection<TreeItem<ITreeItemData>> items = getTreeItemsByObjectId(obj.getId());
-            if (items.isEmpty()) {
-                continue;
+        beginUpdate();
+        try {
+            for (BaseObject obj : changedObjects) {
+                Collection<TreeItem<ITreeItemData>> items = getTreeItemsByObjectId(obj.getId());
+                if (items.isEmpty()) {
+                    continue;
+                }
+                fireChangeEvents(itemsAndParents(items));
             }
-            fireChangeEvents(itemsAndParents(getOrCreateTreeItems(obj)));
+            checkGroups(changedObjects);
+        } finally {
+            endUpdate();
         }
-        checkGroups(changedObjects);
     }
 
     protected Collection<TreeItem<ITreeItemData>> parents(Collection<TreeItem<ITreeItemData>> treeItems) {
         Collection<TreeItem<ITreeItemData>> result = new ArrayList<>();
         for (TreeItem<ITreeItemData> treeItem : treeItems) {
-            TreeItem<ITreeItemData> parent = treeItem.getParent();
+            TreeItem<ITreeItemData> parent = getParent(treeItem);
             if (parent != null) {
                 result.add(parent);
             }
@@ -460,18 +666,27 @@ public class RootTreeItem extends TreeItem<ITreeItemData> {
         return result;
     }
 
+    /**
+     * Schedules value change events for the given items. Each item gets at most one event per update.
+     */
     protected void fireChangeEvents(Collection<TreeItem<ITreeItemData>> treeItems) {
-        for (TreeItem<ITreeItemData> item : treeItems) {
-            // Provoke an update of maybe changed values
-            TreeModificationEvent<ITreeItemData> event = new TreeModificationEvent<>(TreeItem.valueChangedEvent(), item);
-            Event.fireEvent(item, event);
+        beginUpdate();
+        try {
+            mPendingValueChanges.addAll(treeItems);
+        } finally {
+            endUpdate();
         }
     }
 
     public void objectsAdded(Collection<BaseObject> addedObjects) {
-        for (BaseObject obj : addedObjects) {
-            fireChangeEvents(parents(getOrCreateTreeItems(obj)));
+        beginUpdate();
+        try {
+            for (BaseObject obj : addedObjects) {
+                fireChangeEvents(parents(getOrCreateTreeItems(obj)));
+            }
+            checkGroups(addedObjects);
+        } finally {
+            endUpdate();
         }
-        checkGroups(addedObjects);
     }
 }
\ No newline at end of file
@@ -40,6 +40,14 @@ public class AssetDescriptorsIO {
     protected static final JAXBContext mSO_JAXBContext = JAXBUtility.initializeJAXBContext(SupportObjectDescriptor.class);
     protected static final JAXBContext mMS_JAXBContext = JAXBUtility.initializeJAXBContext(MaterialSetDescriptor.class);
 
+    /**
+     * Creates the JAXB context(s) of this class, if not done yet. The creation takes a considerable amount of time,
+     * so this method can be called in a background thread during application startup.
+     */
+    public static void initialize() {
+        // The JAXB contexts are created by the static initialization of this class
+    }
+
     public static void serializeSupportObjectDescriptor(SupportObjectDescriptor descriptor, Writer writer) throws IOException {
         try {
             Marshaller m = mSO_JAXBContext.createMarshaller();
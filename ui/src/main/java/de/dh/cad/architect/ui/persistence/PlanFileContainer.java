@@ -0,0 +1,145 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.ui.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Physical container of plan files. A plan file is stored either as plain XML or as GZIP compressed XML.
+ * When writing, the container format is chosen by the file extension, when reading, it is detected from the file content,
+ * so plain XML files are always readable.
+ * Files are written to a temporary file in the target directory first, which atomically replaces the target file
+ * when it is complete. Thus, a failed or interrupted save never leaves a partially written plan file.
+ * The temporary file gets the permissions of the file it replaces, so saving doesn't change the permissions of a plan file.
+ */
+public class PlanFileContainer {
+    /**
+     * Extension of compressed plan files without {@code '.'}.
+     */
+    public static final String COMPRESSED_FILE_EXTENSION = "xml.gz";
+
+    protected static final int BUFFER_SIZE = 64 * 1024;
+
+    @FunctionalInterface
+    public interface IContentWriter {
+        void write(Writer writer) throws IOException;
+    }
+
+    public static boolean isCompressedFileName(Path path) {
+        return path.getFileName().toString().toLowerCase().endsWith("." + COMPRESSED_FILE_EXTENSION);
+    }
+
+    protected static boolean startsWithGZIPHeader(InputStream is) throws IOException {
+        is.mark(2);
+        int b1 = is.read();
+        int b2 = is.read();
+        is.reset();
+        return b1 == (GZIPInputStream.GZIP_MAGIC & 0xFF) && b2 == (GZIPInputStream.GZIP_MAGIC >> 8);
+    }
+
+    /**
+     * Opens a reader for the content of the given plan file. Compressed files are decompressed while reading.
+     */
+    public static Reader openReader(Path path) throws IOException {
+        InputStream is = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+        try {
+            if (startsWithGZIPHeader(is)) {
+                is = new GZIPInputStream(is, BUFFER_SIZE);
+            }
+            return new InputStreamReader(is, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            is.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the given plan file, compressed if the file name has the {@link #COMPRESSED_FILE_EXTENSION compressed file extension}.
+     * The content is written to a temporary file which replaces the given file when complete.
+     */
+    public static void write(Path path, IContentWriter contentWriter) throws IOException {
+        write(path, isCompressedFileName(path), contentWriter);
+    }
+
+    public static void write(Path path, boolean compressed, IContentWriter contentWriter) throws IOException {
+        Path targetPath = path.toAbsolutePath();
+        Path tempFile = createTempFile(targetPath);
+        try {
+            copyPermissions(targetPath, tempFile);
+            try (OutputStream os = openOutputStream(tempFile, compressed);
+                    Writer writer = new OutputStreamWriter(os, StandardCharsets.UTF_8)) {
+                contentWriter.write(writer);
+            }
+            replace(tempFile, targetPath);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a new temporary file next to the given target path.
+     * In contrast to {@link Files#createTempFile(Path, String, String, java.nio.file.attribute.FileAttribute...)}, which
+     * restricts the file to its owner, the file gets the default permissions of new files, like a directly written file.
+     */
+    protected static Path createTempFile(Path targetPath) throws IOException {
+        return Files.createFile(targetPath.resolveSibling(targetPath.getFileName() + "." + UUID.randomUUID() + ".tmp"));
+    }
+
+    /**
+     * Applies the POSIX permissions of the given target file, if it exists, to the given temporary file.
+     */
+    protected static void copyPermissions(Path targetPath, Path tempFile) throws IOException {
+        PosixFileAttributeView targetAttributes = Files.getFileAttributeView(targetPath, PosixFileAttributeView.class);
+        if (targetAttributes == null || !Files.exists(targetPath)) {
+            // Not a POSIX file system or a new file
+            return;
+        }
+        Files.setPosixFilePermissions(tempFile, targetAttributes.readAttributes().permissions());
+    }
+
+    protected static OutputStream openOutputStream(Path path, boolean compressed) throws IOException {
+        OutputStream result = new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE);
+        return compressed ? new GZIPOutputStream(result, BUFFER_SIZE) : result;
+    }
+
+    protected static void replace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -20,7 +20,6 @@ package de.dh.cad.architect.ui.persistence;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
@@ -45,6 +44,14 @@ public class PlanFileIO {
 
     protected static final JAXBContext mJAXBContext = JAXBUtility.initializeJAXBContext(PlanFile.class);
 
+    /**
+     * Creates the JAXB context(s) of this class, if not done yet. The creation takes a considerable amount of time,
+     * so this method can be called in a background thread during application startup.
+     */
+    public static void initialize() {
+        // The JAXB contexts are created by the static initialization of this class
+    }
+
     public static void serializePlanFile(PlanFile planFile, Writer writer) throws IOException {
         try {
             Marshaller m = mJAXBContext.createMarshaller();
@@ -56,9 +63,13 @@ public class PlanFileIO {
         }
     }
 
+    /**
+     * Writes the given plan file to the given path, compressed if the path has the
+     * {@link PlanFileContainer#COMPRESSED_FILE_EXTENSION compressed file extension}.
+     */
     public static void serializePlanFile(PlanFile planFile, Path path) throws IOException {
-        try (Writer writer = Files.newBufferedWriter(path)) {
-            serializePlanFile(planFile, writer);
+        try {
+            PlanFileContainer.write(path, writer -> serializePlanFile(planFile, writer));
         } catch (Exception e) {
             throw new IOException("Error writing plan file to path '" + path + "'", e);
         }
@@ -104,8 +115,11 @@ public class PlanFileIO {
         }
     }
 
+    /**
+     * Reads the plan file from the given path, which can contain a plain or a compressed plan file.
+     */
     public static PlanFile deserializePlanFile(Path path) throws IOException {
-        try (Reader reader = Files.newBufferedReader(path)) {
+        try (Reader reader = PlanFileContainer.openReader(path)) {
             return deserializePlanFile(reader);
         } catch (Exception e) {
             throw new IOException("Error loading root plan from path '" + path + "'", e);
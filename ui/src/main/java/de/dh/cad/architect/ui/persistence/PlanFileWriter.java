@@ -0,0 +1,88 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.ui.persistence;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.dh.cad.architect.model.snapshot.PlanSnapshot;
+
+/**
+ * Writes plan files in a background thread, so saving a plan doesn't block the UI.
+ * The plan is passed as immutable {@link PlanSnapshot}, which is materialized and serialized in the writer thread
+ * while the user continues editing the plan. Write requests are executed in the order of their submission.
+ */
+public class PlanFileWriter implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(PlanFileWriter.class);
+
+    protected static final long CLOSE_TIMEOUT_SECONDS = 60;
+
+    protected final ExecutorService mExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread result = new Thread(runnable, "PlanFileWriter");
+        result.setDaemon(true);
+        return result;
+    });
+
+    /**
+     * Writes the plan of the given snapshot together with the given UI state to the given path.
+     * @return Future which is completed when the file was written, or completed exceptionally with the cause of the failure.
+     */
+    public CompletableFuture<Void> write(PlanSnapshot planSnapshot, UiState uiState, Path path) {
+        return CompletableFuture.runAsync(() -> {
+            long startNanos = System.nanoTime();
+            try {
+                PlanFileIO.serializePlanFile(new PlanFile(planSnapshot.toPlan(), uiState), path);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+            log.info("Plan file '" + path + "' written in " + (System.nanoTime() - startNanos) / 1_000_000 + " ms");
+        }, mExecutor);
+    }
+
+    /**
+     * Blocks until all write requests which were submitted before are finished.
+     */
+    public void awaitPendingWrites() {
+        CompletableFuture.runAsync(() -> {
+            // Nothing to do, write requests are executed in order
+        }, mExecutor).join();
+    }
+
+    /**
+     * Finishes all pending write requests and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        mExecutor.shutdown();
+        try {
+            if (!mExecutor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Pending plan file writes didn't finish within " + CLOSE_TIMEOUT_SECONDS + " seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
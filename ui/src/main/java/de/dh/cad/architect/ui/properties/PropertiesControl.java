@@ -22,8 +22,11 @@ import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 
 import org.apache.commons.collections4.map.LinkedMap;
 
@@ -131,6 +134,9 @@ public class PropertiesControl extends BorderPane {
     @FXML
     protected TreeTableColumn<UiProperty<?>, Object> mValueColumn;
 
+    // Categories, keys, types and editability of the currently shown properties
+    protected List<String> mContentSchema = null;
+
     protected PropertiesControl() {
         FXMLLoader fxmlLoader = new FXMLLoader(PropertiesControl.class.getResource(FXML));
         fxmlLoader.setRoot(this);
@@ -192,6 +198,15 @@ public class PropertiesControl extends BorderPane {
         setContent(objectProperties.getData());
     }
 
+    /**
+     * Updates the property values of the currently shown object in place. Must only be called if the given
+     * properties belong to the same object as the current content; if the property schema has changed, the
+     * content is rebuilt like in {@link #setSingleInput(ObjectProperties)}.
+     */
+    public void updateSingleInput(ObjectProperties objectProperties) {
+        updateContent(objectProperties.getData());
+    }
+
     @SuppressWarnings("rawtypes")
     protected static class ConsolidatedUiProperty extends UiProperty<Object> {
         protected final Collection<UiProperty> mChildren = new ArrayList<>();
@@ -234,6 +249,19 @@ public class PropertiesControl extends BorderPane {
      * view on the property collections.
      */
     public void setMultipleInput(Collection<ObjectProperties> multipleObjectsProperties) {
+        setContent(consolidate(multipleObjectsProperties));
+    }
+
+    /**
+     * Updates the consolidated property values of the currently shown objects in place. Must only be called if the given
+     * properties belong to the same objects as the current content; if the property schema has changed, the
+     * content is rebuilt like in {@link #setMultipleInput(Collection)}.
+     */
+    public void updateMultipleInput(Collection<ObjectProperties> multipleObjectsProperties) {
+        updateContent(consolidate(multipleObjectsProperties));
+    }
+
+    protected Map<String, Collection<UiProperty<?>>> consolidate(Collection<ObjectProperties> multipleObjectsProperties) {
         Map<String, Map<String, ConsolidatedUiProperty>> values = new LinkedMap<>(); // Map: Category name -> (property name -> consolidated property)
 
         for (ObjectProperties properties : multipleObjectsProperties) {
@@ -267,11 +295,45 @@ public class PropertiesControl extends BorderPane {
             Collection<UiProperty<?>> uiProperties = new ArrayList<>(entry.getValue().values());
             categories.put(entry.getKey(), uiProperties);
         }
+        return categories;
+    }
+
+    protected static List<String> calculateSchema(Map<String, Collection<UiProperty<?>>> categories) {
+        List<String> result = new ArrayList<>();
+        for (Entry<String, Collection<UiProperty<?>>> categoryEntry : categories.entrySet()) {
+            result.add(categoryEntry.getKey());
+            for (UiProperty<?> p : categoryEntry.getValue()) {
+                result.add(categoryEntry.getKey() + "/" + p.getKey() + "/" + p.getDisplayName() + "/" + p.getType() + "/" + p.isEditable());
+            }
+        }
+        return result;
+    }
 
-        setContent(categories);
+    /**
+     * Replaces the properties of the existing tree items whose values have changed. The tree is only rebuilt
+     * if the property schema differs from the current content.
+     */
+    protected void updateContent(Map<String, Collection<UiProperty<?>>> categories) {
+        TreeItem<UiProperty<?>> root = mTreeTableView.getRoot();
+        if (root == null || !calculateSchema(categories).equals(mContentSchema)) {
+            setContent(categories);
+            return;
+        }
+        Iterator<TreeItem<UiProperty<?>>> categoryItems = root.getChildren().iterator();
+        for (Collection<UiProperty<?>> propertiesOfCategory : categories.values()) {
+            Iterator<TreeItem<UiProperty<?>>> propertyItems = categoryItems.next().getChildren().iterator();
+            for (UiProperty<?> p : propertiesOfCategory) {
+                TreeItem<UiProperty<?>> propertyItem = propertyItems.next();
+                if (!Objects.equals(propertyItem.getValue().getValue(), p.getValue())) {
+                    // Replacing the value of the tree item only refreshes the affected row
+                    propertyItem.setValue(p);
+                }
+            }
+        }
     }
 
     protected void setContent(Map<String, Collection<UiProperty<?>>> categories) {
+        mContentSchema = calculateSchema(categories);
         TreeItem<UiProperty<?>> root = new TreeItem<>();
         ObservableList<TreeItem<UiProperty<?>>> rootChildren = root.getChildren();
         for (Entry<String, Collection<UiProperty<?>>> categoryEntry : categories.entrySet()) {
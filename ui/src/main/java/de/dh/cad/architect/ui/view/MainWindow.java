@@ -33,6 +33,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -200,6 +201,9 @@ public class MainWindow implements Initializable {
     @FXML
     protected MenuItem mFileSaveAsMenuItem;
 
+    @FXML
+    protected MenuItem mFileExport3DMenuItem;
+
     @FXML
     protected MenuItem mFileQuitMenuItem;
 
@@ -375,7 +379,8 @@ public class MainWindow implements Initializable {
         viewsRegistry.addView(mScriptConsoleViewManager = new ViewLifecycleManager<>(VIEW_ID_SCRIPT_CONSOLE, true) {
             @Override
             protected Dockable<ScriptConsoleControl> createDockable(String viewId) {
-                Dockable<ScriptConsoleControl> result = Dockable.of(mScriptConsoleControl, viewId, Strings.SCRIPT_CONSOLE_VIEW_TITLE, true);
+                // The script console is only created when it becomes visible for the first time
+                        Dockable<ScriptConsoleControl> result = Dockable.of(mScriptConsoleControl, viewId, Strings.SCRIPT_CONSOLE_VIEW_TITLE, true);
                 return result;
             }
 
@@ -476,12 +481,12 @@ public class MainWindow implements Initializable {
             mUIController.setObjectsVisibility(objs, hidden);
         });
         mLogOutputControl = LogOutputControl.create();
-        mScriptConsoleControl = ScriptConsoleControl.create(mUIController, mLogOutputControl.getLogOutputWriter());
 
         mFileNewMenuItem.setOnAction(this::onFileNewAction);
         mFileOpenMenuItem.setOnAction(this::onFileOpenAction);
         mFileSaveMenuItem.setOnAction(this::onFileSaveAction);
         mFileSaveAsMenuItem.setOnAction(this::onFileSaveAsAction);
+        mFileExport3DMenuItem.setOnAction(this::onFileExport3DAction);
         mFileQuitMenuItem.setOnAction(this::onFileQuitAction);
 
         mUndoMenuItem.setOnAction(this::onUndoAction);
@@ -553,21 +558,32 @@ public class MainWindow implements Initializable {
         mRedoMenuItem.setText(nextOperation == null ? Strings.MAIN_WINDOW_REDO_MENU_ITEM_INVALID : MessageFormat.format(Strings.MAIN_WINDOW_REDO_MENU_ITEM_VALID, nextOperation.getChangeDescription()));
     }
 
-    public void initializeAfterShow() {
-        Platform.runLater(() -> {
-            Optional<ViewsLayoutState> oViewsLayoutState = Optional.empty();
-            try {
-                Path settingsPath = Paths.get(Constants.ARCHITECT_VIEWS_LAYOUT_FILE_NAME);
-                if (Files.exists(settingsPath)) {
-                    try (BufferedReader br = Files.newBufferedReader(settingsPath)) {
-                        oViewsLayoutState = Optional.of(ViewsLayoutStateIO.deserialize(br));
-                    }
+    /**
+     * Loads the views layout of the last session. This method can be called in a background thread.
+     */
+    public static Optional<ViewsLayoutState> loadViewsLayoutState() {
+        try {
+            Path settingsPath = Paths.get(Constants.ARCHITECT_VIEWS_LAYOUT_FILE_NAME);
+            if (Files.exists(settingsPath)) {
+                try (BufferedReader br = Files.newBufferedReader(settingsPath)) {
+                    return Optional.of(ViewsLayoutStateIO.deserialize(br));
                 }
-            } catch (Exception e) {
-                log.warn("Unable to load settings", e);
             }
-            initializeViewsAndDockZones(oViewsLayoutState);
-        });
+        } catch (Exception e) {
+            log.warn("Unable to load settings", e);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Creates the views and dock zones as soon as the given views layout was loaded.
+     * @param viewsLayoutStateFuture Result of {@link #loadViewsLayoutState()}, which is typically loaded in the background
+     * while the main window is created.
+     */
+    public void initializeAfterShow(CompletableFuture<Optional<ViewsLayoutState>> viewsLayoutStateFuture) {
+        viewsLayoutStateFuture.whenCompleteAsync((oViewsLayoutState, e) -> {
+            initializeViewsAndDockZones(oViewsLayoutState == null ? Optional.empty() : oViewsLayoutState);
+        }, Platform::runLater);
     }
 
     public void saveSettings() {
@@ -771,6 +787,10 @@ public class MainWindow implements Initializable {
         updateRecentFilesMenu();
     }
 
+    protected void onFileExport3DAction(ActionEvent event) {
+        mApplicationController.queryExport3D(getStage());
+    }
+
     protected void onFileQuitAction(ActionEvent event) {
         mApplicationController.queryQuitApplication(getStage());
     }
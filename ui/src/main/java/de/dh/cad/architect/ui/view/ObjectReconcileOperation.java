@@ -17,7 +17,10 @@
  *******************************************************************************/
 package de.dh.cad.architect.ui.view;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -39,6 +42,7 @@ import de.dh.cad.architect.model.coords.Position2D;
 import de.dh.cad.architect.model.coords.Position3D;
 import de.dh.cad.architect.model.objects.Anchor;
 import de.dh.cad.architect.model.objects.BaseAnchoredObject;
+import de.dh.cad.architect.model.objects.BaseObject;
 import de.dh.cad.architect.model.objects.ObjectHealReason;
 import de.dh.cad.architect.model.objects.ReconcileResult;
 import de.dh.cad.architect.ui.objects.AbstractObjectUIRepresentation;
@@ -49,17 +53,181 @@ import de.dh.cad.architect.ui.objects.ObjectTypesRegistry;
  * the objects and docked anchors. This model is used during a move or modify operation of objects
  * to collect/calculate all derived anchor position updates in a transaction. After derived position updates are calcuated and
  * approved by the participating members, the collected updates are executed to match all new object constraints.
+ *
+ * The objects are reconciled in passes. Each pass builds the {@link ReconcileDependencyGraph dependency graph} of the
+ * affected objects once and reconciles each object at most once, in topological order. Independent components of
+ * the graph can be reconciled in parallel.
  */
 public class ObjectReconcileOperation {
     private static final Logger log = LoggerFactory.getLogger(ObjectReconcileOperation.class);
 
     private static final Length EPSILON = Length.ofMM(0.01);
 
+    /**
+     * Maximum number of passes. A further pass is only necessary if a handle of an object is moved again after that
+     * object was reconciled, which normally doesn't happen; this limit breaks potential oscillations.
+     */
+    protected static final int MAX_NUM_PASSES = 8;
+
+    /**
+     * Minimum size of the dependency graph for reconciling its components in parallel.
+     */
+    protected static final int MIN_NUM_OBJECTS_FOR_PARALLEL_COMPONENTS = 200;
+
     protected final String mDescription;
     protected final Collection<BaseAnchoredObject> mUnprocessedObjects = ListOrderedSet.listOrderedSet(new TreeSet<>()); // Objects to be reconciled
     protected final Map<String, AnchorTarget> mProcessedHandleAnchorPositions = new TreeMap<>();
     protected final Collection<BaseAnchoredObject> mProcessedObjects = new TreeSet<>();
     protected final MultiValuedMap<BaseAnchoredObject, ObjectHealReason> mObjectsToHeal = new ArrayListValuedHashMap<>();
+    protected final List<ReconcilePassStatistics> mPassStatistics = new ArrayList<>();
+    protected boolean mParallelComponentsEnabled = true;
+
+    /**
+     * Reconciles the objects of one component of the dependency graph of a pass. Works on its own change trace and result
+     * collections, which are merged into the operation after all components of the pass have been processed.
+     * A run only changes objects of its own component, changes of other objects are deferred to the merge.
+     */
+    protected class ComponentReconcileRun implements Runnable {
+        protected final ReconcileDependencyGraph mGraph;
+        protected final int[] mObjectIndices; // Graph indices of the component's objects in topological order
+        protected final int[] mTopologicalPositions; // Position of each graph object in its component's topological order
+        protected final boolean[] mReconciled;
+        protected final TreeSet<Integer> mScheduledPositions = new TreeSet<>();
+
+        protected final List<IModelChange> mChangeTrace = new ArrayList<>();
+        protected final Map<String, AnchorTarget> mProcessedHandleAnchorPositions = new HashMap<>();
+        protected final List<BaseAnchoredObject> mReconciledObjects = new ArrayList<>();
+        protected final List<BaseAnchoredObject> mNextPassObjects = new ArrayList<>();
+        protected final MultiValuedMap<BaseAnchoredObject, ObjectHealReason> mObjectsToHeal = new ArrayListValuedHashMap<>();
+        protected final List<AnchorTarget> mDeferredAnchorMoves = new ArrayList<>(); // Docked anchors of objects outside of this component
+        protected boolean mVerifyChanges = false;
+        protected Exception mFailure = null;
+
+        public ComponentReconcileRun(ReconcileDependencyGraph graph, int[] objectIndices, int[] topologicalPositions) {
+            mGraph = graph;
+            mObjectIndices = objectIndices;
+            mTopologicalPositions = topologicalPositions;
+            mReconciled = new boolean[objectIndices.length];
+        }
+
+        public void schedule(int objectIndex) {
+            mScheduledPositions.add(mTopologicalPositions[objectIndex]);
+        }
+
+        /**
+         * Returns the information whether the given object belongs to the component of this run.
+         */
+        public boolean contains(BaseAnchoredObject object) {
+            int objectIndex = mGraph.getObjectIndex(object);
+            return objectIndex >= 0 && mObjectIndices[mTopologicalPositions[objectIndex]] == objectIndex;
+        }
+
+        /**
+         * Enables the check that the reconcilers only change objects of this component, which is necessary
+         * if components are reconciled concurrently.
+         */
+        public void setVerifyChanges(boolean value) {
+            mVerifyChanges = value;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!mScheduledPositions.isEmpty()) {
+                    reconcileObject(mScheduledPositions.pollFirst());
+                }
+            } catch (Exception e) {
+                mFailure = e;
+            }
+        }
+
+        protected void reconcileObject(int position) {
+            BaseAnchoredObject object = mGraph.getObject(mObjectIndices[position]);
+            mReconciled[position] = true;
+            List<IPosition> anchorPositionsBefore = getAnchorPositions(object);
+
+            AbstractObjectUIRepresentation uiRepresentation = ObjectTypesRegistry.getUIRepresentation(object.getClass());
+            IObjectReconciler reconciler = uiRepresentation.getReconciler();
+            int numChangesBefore = mChangeTrace.size();
+            ReconcileResult reconcileResult = reconciler.reconcileObjectChange(object, mChangeTrace);
+            if (mVerifyChanges) {
+                verifyChanges(object, numChangesBefore);
+            }
+            // Remember positions of processed anchors to be able to determine further changes
+            mProcessedHandleAnchorPositions.putAll(AnchorTarget.mapAnchorIdToTargetFromAnchors(object.getHandleAnchors()));
+            mReconciledObjects.add(object);
+
+            // Get the anchors of the processed object which have been changed during the reconcile operation and
+            // propagate their new position to docked anchors, potentially cascading the reconcile process to their owner objects.
+            boolean objectChanged = !isCompatiblePositions(anchorPositionsBefore, getAnchorPositions(object));
+            propagateDependentAnchorChanges(reconcileResult.getDependentAnchors(), objectChanged);
+
+            // Schedule objects to heal later
+            mObjectsToHeal.putAll(reconcileResult.getHealObjects());
+        }
+
+        /**
+         * Checks that the changes which were made by the reconciler of the given object only touch objects of this component.
+         */
+        protected void verifyChanges(BaseAnchoredObject object, int firstChangeIndex) {
+            for (int i = firstChangeIndex; i < mChangeTrace.size(); i++) {
+                for (BaseObject modifiedObject : mChangeTrace.get(i).getModifications()) {
+                    BaseObject changedObject = modifiedObject instanceof Anchor anchor ? anchor.getAnchorOwner() : modifiedObject;
+                    if (changedObject instanceof BaseAnchoredObject anchoredObject && !contains(anchoredObject)) {
+                        throw new IllegalStateException("Reconciling " + object + " changed " + anchoredObject
+                            + ", which is not part of the same component of the dependency graph");
+                    }
+                }
+            }
+        }
+
+        /**
+         * Moves the anchors docked to the given changed anchors. The owner of a docked anchor is scheduled if that anchor was actually moved
+         * or if the reconciled object has changed at all; in the latter case, the owner might depend on the changed object in another
+         * way, e.g. a neighbor wall uses the position of the far wall handle to calculate its corners.
+         * Docked anchors of objects outside of this component are not moved by this run, see {@link #mDeferredAnchorMoves}.
+         */
+        protected void propagateDependentAnchorChanges(Collection<Anchor> changedDependentAnchors, boolean objectChanged) {
+            for (Anchor changedAnchor : changedDependentAnchors) {
+                IPosition position = changedAnchor.getPosition();
+                for (Anchor dockedAnchor : changedAnchor.getAllDockedAnchors()) {
+                    if (dockedAnchor.equals(changedAnchor)) {
+                        continue;
+                    }
+                    IPosition oldPosition = dockedAnchor.getPosition();
+                    IPosition newPosition = mapTargetPositionForAnchor(dockedAnchor, position);
+                    BaseAnchoredObject owner = dockedAnchor.getAnchorOwner();
+                    if (!contains(owner)) {
+                        // Should not happen, the dependency graph contains all docked objects.
+                        // The anchor is moved after the pass and its owner is reconciled in the next pass.
+                        mDeferredAnchorMoves.add(new AnchorTarget(dockedAnchor, newPosition));
+                        mNextPassObjects.add(owner);
+                        continue;
+                    }
+                    dockedAnchor.setPosition(newPosition, mChangeTrace);
+                    if (objectChanged || !isCompatiblePosition(oldPosition, newPosition)) {
+                        scheduleOwnerOfMovedAnchor(dockedAnchor);
+                    }
+                }
+            }
+        }
+
+        protected void scheduleOwnerOfMovedAnchor(Anchor anchor) {
+            BaseAnchoredObject owner = anchor.getAnchorOwner();
+            int position = mTopologicalPositions[mGraph.getObjectIndex(owner)];
+            if (!mReconciled[position]) {
+                mScheduledPositions.add(position);
+                return;
+            }
+            // The owner has already been reconciled in this pass; only reconcile it again in the next pass
+            // if its handle has really been moved since then
+            AnchorTarget processedHandleAnchorTarget = mProcessedHandleAnchorPositions.get(anchor.getId());
+            if (processedHandleAnchorTarget == null || isCompatiblePosition(anchor.getPosition(), processedHandleAnchorTarget.getTargetPosition())) {
+                return;
+            }
+            mNextPassObjects.add(owner);
+        }
+    }
 
     /**
      * Use this constructor if you need to configure this object in separate calls to {@link #trySetTargetHandlePosition(Anchor, IPosition)} or
@@ -87,15 +255,50 @@ public class ObjectReconcileOperation {
         return mProcessedObjects;
     }
 
+    public boolean isParallelComponentsEnabled() {
+        return mParallelComponentsEnabled;
+    }
+
+    /**
+     * Enables or disables reconciling independent components of large dependency graphs in parallel. Enabled by default.
+     */
+    public void setParallelComponentsEnabled(boolean value) {
+        mParallelComponentsEnabled = value;
+    }
+
+    /**
+     * Gets the statistics of all passes which have been executed by {@link #reconcileObjects(List)}.
+     */
+    public List<ReconcilePassStatistics> getPassStatistics() {
+        return Collections.unmodifiableList(mPassStatistics);
+    }
+
+    public int getNumPasses() {
+        return mPassStatistics.size();
+    }
+
+    /**
+     * Gets the number of object reconcile calls over all passes. Objects which were reconciled in more than one pass are counted for each pass.
+     */
+    public int getNumReconciledObjects() {
+        int result = 0;
+        for (ReconcilePassStatistics passStatistics : mPassStatistics) {
+            result += passStatistics.getNumReconciledObjects();
+        }
+        return result;
+    }
+
+    public long getDurationNanos() {
+        long result = 0;
+        for (ReconcilePassStatistics passStatistics : mPassStatistics) {
+            result += passStatistics.getDurationNanos();
+        }
+        return result;
+    }
+
     public void tryAddObjectToProcess(BaseAnchoredObject object) {
         if (mProcessedObjects.contains(object)) {
-            // This short-cut can lead to incompletely solved/reconciled situations if the order of objects
-            // is wrong, for example if the object, which has already been reconciled, changes as a result
-            // of a later reconcile operation.
-            // But we also cannot simply remove this short-cut return, else we can get an infinite loop
-            // if two objects return each other as included reconcile object.
-            // To avoid this, it would require a sophisticated check if none of the properties has
-            // changed from which the need for the object to reconcile derives.
+            // Objects which are affected by the reconciliation of other objects are scheduled by the reconcile passes.
             return;
         }
         mUnprocessedObjects.add(object);
@@ -109,29 +312,6 @@ public class ObjectReconcileOperation {
         mObjectsToHeal.put(object, reason);
     }
 
-    protected void tryAddHandleAnchorChange(Anchor handleAnchor) {
-        String anchorId = handleAnchor.getId();
-        AnchorTarget processedHandleAnchorTarget = mProcessedHandleAnchorPositions.get(anchorId);
-        if (processedHandleAnchorTarget != null && isCompatiblePosition(handleAnchor.getPosition(), processedHandleAnchorTarget.getTargetPosition())) {
-            // No change in position
-            return;
-        }
-        BaseAnchoredObject owner = handleAnchor.getAnchorOwner();
-        tryAddObjectToProcess(owner);
-    }
-
-    protected void tryAddDependentAnchorChanges(Collection<Anchor> changedDependentAnchors, List<IModelChange> changeTrace) {
-        for (Anchor changedAnchor : changedDependentAnchors) {
-            IPosition position = changedAnchor.getPosition();
-            for (Anchor dockedAnchor : changedAnchor.getAllDockedAnchors()) {
-                if (!dockedAnchor.equals(changedAnchor)) {
-                    dockedAnchor.setPosition(mapTargetPositionForAnchor(dockedAnchor, position), changeTrace);
-                    tryAddHandleAnchorChange(dockedAnchor);
-                }
-            }
-        }
-    }
-
     public static IPosition mapTargetPositionForAnchor(Anchor anchor, IPosition targetPosition) {
         return mapTargetPosition(anchor.getPosition(), targetPosition);
     }
@@ -158,28 +338,18 @@ public class ObjectReconcileOperation {
         // will grow during the operation. Furthermore, more object properties might become invalid during that process
         // (think of a wall whose wall end handle anchor was moved. After that, the wall's apex points must be repositioned to
         // match the new wall's position and the positions of the connected walls).
-        // So, the first loop will process all direct and transitive anchor moves.
-        // After that, we go through all objects which were invalidated by the first run ("objects to heal") and heal them.
+        // So, the first step will process all direct and transitive anchor moves, pass by pass, in the order of the
+        // dependency graph.
+        // After that, we go through all objects which were invalidated by the first step ("objects to heal") and heal them.
         try {
-            // Step 1: Reconcile object by object
+            // Step 1: Reconcile objects
             while (!mUnprocessedObjects.isEmpty()) {
-                BaseAnchoredObject object = mUnprocessedObjects.iterator().next();
-                mUnprocessedObjects.remove(object);
-                AbstractObjectUIRepresentation uiRepresentation = ObjectTypesRegistry.getUIRepresentation(object.getClass());
-                IObjectReconciler reconciler = uiRepresentation.getReconciler();
-                ReconcileResult reconcileResult = reconciler.reconcileObjectChange(object, changeTrace);
-                // Remember positions of processed anchors to be able to determine further changes
-                mProcessedHandleAnchorPositions.putAll(AnchorTarget.mapAnchorIdToTargetFromAnchors(object.getHandleAnchors()));
-                // Remember processed objects to be able to break infinite loops
-                mProcessedObjects.add(object);
-
-                // Get the anchors of the processed object which have been changed during the reconcile operation and
-                // propagate their new position to docked anchors, potentially cascading the reconcile process to their owner objects.
-                Collection<Anchor> dependentAnchors = reconcileResult.getDependentAnchors();
-                tryAddDependentAnchorChanges(dependentAnchors, changeTrace); // Propagate movements of dependent anchors
-
-                // Schedule objects to heal later
-                addObjectsToHeal(reconcileResult.getHealObjects());
+                if (mPassStatistics.size() >= MAX_NUM_PASSES) {
+                    log.warn("Object reconcile operation '" + mDescription + "' did not settle after " + MAX_NUM_PASSES + " passes, "
+                            + mUnprocessedObjects.size() + " objects remain unreconciled");
+                    break;
+                }
+                executePass(changeTrace);
             }
 
             // Step 2: Heal objects
@@ -192,9 +362,103 @@ public class ObjectReconcileOperation {
         }
     }
 
+    protected void executePass(List<IModelChange> changeTrace) throws Exception {
+        long startTime = System.nanoTime();
+        List<BaseAnchoredObject> changedObjects = new ArrayList<>(mUnprocessedObjects);
+        mUnprocessedObjects.clear();
+
+        ReconcileDependencyGraph graph = ReconcileDependencyGraph.build(changedObjects);
+        List<int[]> components = graph.getComponentsInTopologicalOrder();
+        int[] topologicalPositions = new int[graph.getNumObjects()];
+        ComponentReconcileRun[] runsByObjectIndex = new ComponentReconcileRun[graph.getNumObjects()];
+        List<ComponentReconcileRun> runs = new ArrayList<>(components.size());
+        for (int[] objectIndices : components) {
+            ComponentReconcileRun run = new ComponentReconcileRun(graph, objectIndices, topologicalPositions);
+            for (int position = 0; position < objectIndices.length; position++) {
+                topologicalPositions[objectIndices[position]] = position;
+                runsByObjectIndex[objectIndices[position]] = run;
+            }
+            runs.add(run);
+        }
+        for (BaseAnchoredObject object : changedObjects) {
+            int objectIndex = graph.getObjectIndex(object);
+            runsByObjectIndex[objectIndex].schedule(objectIndex);
+        }
+
+        // The model objects are not thread-safe, but the components of a pass can be reconciled concurrently because
+        // each run only reads and changes objects of its own component:
+        // - The graph puts all objects which are connected by a dock or an ownership relation into the same component.
+        // - A reconciler changes the reconciled object and its owned children, e.g. the wall holes of a wall, and reads
+        //   docked objects, e.g. the neighbor walls. Parallel runs verify that the changes of the reconcilers stay in their component.
+        // - A run moves docked anchors of its own component only, moves of other anchors are deferred until after the pass.
+        // - The dock hierarchy is not changed during a pass, the shared dock index of the plan is a concurrent map.
+        // - Change traces and results are collected per run and merged on the calling thread; objects are healed after all passes.
+        boolean parallel = mParallelComponentsEnabled && runs.size() > 1 && graph.getNumObjects() >= MIN_NUM_OBJECTS_FOR_PARALLEL_COMPONENTS;
+        if (parallel) {
+            for (ComponentReconcileRun run : runs) {
+                run.setVerifyChanges(true);
+            }
+            runs.parallelStream().forEach(ComponentReconcileRun::run);
+        } else {
+            for (ComponentReconcileRun run : runs) {
+                run.run();
+                if (run.mFailure != null) {
+                    break;
+                }
+            }
+        }
+
+        // Merge results in component order to keep the change trace deterministic
+        Exception failure = null;
+        int numReconciledObjects = 0;
+        for (ComponentReconcileRun run : runs) {
+            changeTrace.addAll(run.mChangeTrace);
+            for (AnchorTarget anchorMove : run.mDeferredAnchorMoves) {
+                anchorMove.getAnchor().setPosition(anchorMove.getTargetPosition(), changeTrace);
+            }
+            mProcessedHandleAnchorPositions.putAll(run.mProcessedHandleAnchorPositions);
+            mProcessedObjects.addAll(run.mReconciledObjects);
+            mObjectsToHeal.putAll(run.mObjectsToHeal);
+            mUnprocessedObjects.addAll(run.mNextPassObjects);
+            numReconciledObjects += run.mReconciledObjects.size();
+            if (failure == null) {
+                failure = run.mFailure;
+            }
+        }
+        ReconcilePassStatistics passStatistics = new ReconcilePassStatistics(mPassStatistics.size() + 1,
+            graph.getNumObjects(), runs.size(), numReconciledObjects, parallel, System.nanoTime() - startTime);
+        mPassStatistics.add(passStatistics);
+        log.trace("Object reconcile operation '" + mDescription + "': " + passStatistics);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    protected static List<IPosition> getAnchorPositions(BaseAnchoredObject object) {
+        List<Anchor> anchors = object.getAnchors();
+        List<IPosition> result = new ArrayList<>(anchors.size());
+        for (Anchor anchor : anchors) {
+            result.add(anchor.getPosition());
+        }
+        return result;
+    }
+
     @Override
     public String toString() {
-        return mDescription + ": " + mProcessedObjects.size() + " objects processed, " + mUnprocessedObjects.size() + " objects to reconcile";
+        return mDescription + ": " + mProcessedObjects.size() + " objects processed, " + mUnprocessedObjects.size() + " objects to reconcile, "
+                + getNumPasses() + " passes, " + getNumReconciledObjects() + " reconcile calls";
+    }
+
+    public static boolean isCompatiblePositions(List<IPosition> sourcePositions, List<IPosition> targetPositions) {
+        if (sourcePositions.size() != targetPositions.size()) {
+            return false;
+        }
+        for (int i = 0; i < sourcePositions.size(); i++) {
+            if (!isCompatiblePosition(sourcePositions.get(i), targetPositions.get(i))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public static boolean isCompatiblePosition(IPosition sourcePosition, IPosition targetPosition) {
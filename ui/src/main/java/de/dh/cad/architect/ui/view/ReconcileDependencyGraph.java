@@ -0,0 +1,350 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.ui.view;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import de.dh.cad.architect.model.objects.Anchor;
+import de.dh.cad.architect.model.objects.BaseAnchoredObject;
+import de.dh.cad.architect.model.objects.BaseObject;
+import de.dh.cad.architect.model.objects.IObjectsContainer;
+
+/**
+ * Dependency graph of all objects which can be affected by a reconcile pass, built once from the dock relationships
+ * of the anchors, starting at the changed objects.
+ *
+ * An object {@code A} must be reconciled before an object {@code B} if an anchor of {@code A} is docked to a handle anchor
+ * of {@code B} (reconciling {@code A} can move {@code B}'s handle) or if {@code B} is owned by {@code A} (e.g. a wall hole).
+ * Docks between handle anchors of two objects, like at wall joints, produce cycles. The objects of a cycle are sorted
+ * in discovery order, i.e. objects which are nearer to the changed objects come first.
+ *
+ * Objects which are connected by any dock or by an ownership relation belong to the same component. Different components
+ * don't share any anchor, so they can be reconciled independently from each other.
+ */
+public class ReconcileDependencyGraph {
+    protected final List<BaseAnchoredObject> mObjects = new ArrayList<>(); // In discovery order
+    protected final Map<BaseAnchoredObject, Integer> mObjectIndices = new HashMap<>();
+
+    // Relations as flat edge list; each relation connects the objects of its component, dependency relations also define the order
+    protected int[] mRelationsFrom = new int[64];
+    protected int[] mRelationsTo = new int[64];
+    protected boolean[] mDependencies = new boolean[64];
+    protected int mNumRelations = 0;
+
+    protected ReconcileDependencyGraph() {
+        // Use build method
+    }
+
+    public static ReconcileDependencyGraph build(Collection<? extends BaseAnchoredObject> changedObjects) {
+        ReconcileDependencyGraph result = new ReconcileDependencyGraph();
+        for (BaseAnchoredObject object : changedObjects) {
+            result.addObject(object);
+        }
+        // The list of objects grows while we're collecting the relations
+        List<Anchor> dockStack = new ArrayList<>();
+        for (int i = 0; i < result.mObjects.size(); i++) {
+            result.collectRelations(i, dockStack);
+        }
+        return result;
+    }
+
+    public int getNumObjects() {
+        return mObjects.size();
+    }
+
+    public BaseAnchoredObject getObject(int index) {
+        return mObjects.get(index);
+    }
+
+    /**
+     * Returns the index of the given object in this graph or {@code -1} if the object is not part of this graph.
+     */
+    public int getObjectIndex(BaseAnchoredObject object) {
+        Integer result = mObjectIndices.get(object);
+        return result == null ? -1 : result;
+    }
+
+    protected int addObject(BaseAnchoredObject object) {
+        Integer index = mObjectIndices.get(object);
+        if (index != null) {
+            return index;
+        }
+        int result = mObjects.size();
+        mObjects.add(object);
+        mObjectIndices.put(object, result);
+        return result;
+    }
+
+    protected void addRelation(int fromIndex, int toIndex, boolean dependency) {
+        if (fromIndex == toIndex) {
+            return;
+        }
+        if (mNumRelations == mRelationsFrom.length) {
+            int newLength = mNumRelations * 2;
+            mRelationsFrom = Arrays.copyOf(mRelationsFrom, newLength);
+            mRelationsTo = Arrays.copyOf(mRelationsTo, newLength);
+            mDependencies = Arrays.copyOf(mDependencies, newLength);
+        }
+        mRelationsFrom[mNumRelations] = fromIndex;
+        mRelationsTo[mNumRelations] = toIndex;
+        mDependencies[mNumRelations] = dependency;
+        mNumRelations++;
+    }
+
+    protected void collectRelations(int index, List<Anchor> dockStack) {
+        BaseAnchoredObject object = mObjects.get(index);
+        for (Anchor anchor : object.getAnchors()) {
+            if (anchor.getDockMaster().isEmpty() && anchor.getDockSlaves().isEmpty()) {
+                continue;
+            }
+            // Walk the dock from its root without creating the list of all docked anchors
+            dockStack.add(anchor.getRootMasterOfAnchorDock());
+            while (!dockStack.isEmpty()) {
+                Anchor dockedAnchor = dockStack.remove(dockStack.size() - 1);
+                dockStack.addAll(dockedAnchor.getDockSlaves());
+                BaseAnchoredObject dockedOwner = dockedAnchor.getAnchorOwner();
+                if (dockedOwner == null || dockedOwner == object) {
+                    continue;
+                }
+                addRelation(index, addObject(dockedOwner), dockedAnchor.isHandle());
+            }
+        }
+        if (object instanceof IObjectsContainer container) {
+            for (BaseObject child : container.getOwnedChildren()) {
+                if (child instanceof BaseAnchoredObject anchoredChild) {
+                    addRelation(index, addObject(anchoredChild), true);
+                }
+            }
+        }
+        if (object.getOwnerContainer() instanceof BaseAnchoredObject owner) {
+            addRelation(addObject(owner), index, true);
+        }
+    }
+
+    /**
+     * Creates the adjacency lists of all objects in compressed form: The adjacent objects of object {@code i} are located in
+     * {@code result[1]} from index {@code result[0][i]} to index {@code result[0][i + 1]} (exclusive).
+     * @param dependenciesOnly If set to {@code true}, only the successors of the directed dependency relations are collected,
+     * else all relations are collected in both directions.
+     */
+    protected int[][] createAdjacencyLists(boolean dependenciesOnly) {
+        int numObjects = mObjects.size();
+        int[] offsets = new int[numObjects + 1];
+        for (int i = 0; i < mNumRelations; i++) {
+            if (dependenciesOnly) {
+                if (mDependencies[i]) {
+                    offsets[mRelationsFrom[i] + 1]++;
+                }
+            } else {
+                offsets[mRelationsFrom[i] + 1]++;
+                offsets[mRelationsTo[i] + 1]++;
+            }
+        }
+        for (int i = 0; i < numObjects; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] adjacentObjects = new int[offsets[numObjects]];
+        int[] fillPositions = Arrays.copyOf(offsets, numObjects);
+        for (int i = 0; i < mNumRelations; i++) {
+            int from = mRelationsFrom[i];
+            int to = mRelationsTo[i];
+            if (dependenciesOnly) {
+                if (mDependencies[i]) {
+                    adjacentObjects[fillPositions[from]++] = to;
+                }
+            } else {
+                adjacentObjects[fillPositions[from]++] = to;
+                adjacentObjects[fillPositions[to]++] = from;
+            }
+        }
+        return new int[][] {offsets, adjacentObjects};
+    }
+
+    /**
+     * Splits this graph into its connected components. The objects of each component are sorted in topological order,
+     * so each object comes after all objects which can move its handles. Objects in a cycle are sorted by discovery order.
+     * Components are returned in the order of their first discovered object.
+     * @return Indices of the objects of each component, in topological order.
+     */
+    public List<int[]> getComponentsInTopologicalOrder() {
+        int numObjects = mObjects.size();
+        int[][] successors = createAdjacencyLists(true);
+        int[] cycleIds = calculateCycles(successors[0], successors[1]);
+
+        // Cycles are numbered in reverse topological order; we collect the members of each cycle and the dependencies between cycles
+        int numCycles = 0;
+        for (int cycleId : cycleIds) {
+            numCycles = Math.max(numCycles, cycleId + 1);
+        }
+        int[] cycleFirstMembers = new int[numCycles];
+        Arrays.fill(cycleFirstMembers, -1);
+        int[] nextCycleMembers = new int[numObjects]; // Linked lists of cycle members in discovery order
+        int[] cycleLastMembers = new int[numCycles];
+        int[] cycleInDegrees = new int[numCycles];
+        for (int i = 0; i < numObjects; i++) {
+            int cycleId = cycleIds[i];
+            nextCycleMembers[i] = -1;
+            if (cycleFirstMembers[cycleId] < 0) {
+                cycleFirstMembers[cycleId] = i;
+            } else {
+                nextCycleMembers[cycleLastMembers[cycleId]] = i;
+            }
+            cycleLastMembers[cycleId] = i;
+            for (int j = successors[0][i]; j < successors[0][i + 1]; j++) {
+                if (cycleIds[successors[1][j]] != cycleId) {
+                    cycleInDegrees[cycleIds[successors[1][j]]]++;
+                }
+            }
+        }
+
+        int[][] neighbors = createAdjacencyLists(false);
+        boolean[] visited = new boolean[numObjects];
+        List<int[]> result = new ArrayList<>();
+        for (int i = 0; i < numObjects; i++) {
+            if (visited[i]) {
+                continue;
+            }
+            int[] componentIndices = collectComponent(i, neighbors[0], neighbors[1], visited);
+            result.add(sortTopologically(componentIndices, successors[0], successors[1], cycleIds, cycleFirstMembers, nextCycleMembers, cycleInDegrees));
+        }
+        return result;
+    }
+
+    protected static int[] collectComponent(int startIndex, int[] neighborOffsets, int[] neighbors, boolean[] visited) {
+        int[] result = new int[16];
+        int size = 0;
+        visited[startIndex] = true;
+        result[size++] = startIndex;
+        for (int i = 0; i < size; i++) {
+            int index = result[i];
+            for (int j = neighborOffsets[index]; j < neighborOffsets[index + 1]; j++) {
+                int neighbor = neighbors[j];
+                if (!visited[neighbor]) {
+                    visited[neighbor] = true;
+                    if (size == result.length) {
+                        result = Arrays.copyOf(result, size * 2);
+                    }
+                    result[size++] = neighbor;
+                }
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Calculates the strongly connected components ("cycles") of the dependency graph using Tarjan's algorithm,
+     * implemented iteratively because the graphs of big plans would exceed the stack depth.
+     * Objects which are not part of a cycle get a cycle of their own.
+     * @return Cycle id for each object.
+     */
+    protected static int[] calculateCycles(int[] successorOffsets, int[] successors) {
+        int numObjects = successorOffsets.length - 1;
+        int[] order = new int[numObjects];
+        Arrays.fill(order, -1);
+        int[] lowLinks = new int[numObjects];
+        boolean[] onStack = new boolean[numObjects];
+        int[] stack = new int[numObjects];
+        int stackSize = 0;
+        int[] callNodes = new int[numObjects];
+        int[] callPositions = new int[numObjects];
+        int[] result = new int[numObjects];
+        int counter = 0;
+        int numCycles = 0;
+        for (int root = 0; root < numObjects; root++) {
+            if (order[root] >= 0) {
+                continue;
+            }
+            int depth = 0;
+            callNodes[0] = root;
+            callPositions[0] = successorOffsets[root];
+            order[root] = lowLinks[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            while (depth >= 0) {
+                int node = callNodes[depth];
+                if (callPositions[depth] < successorOffsets[node + 1]) {
+                    int successor = successors[callPositions[depth]++];
+                    if (order[successor] < 0) {
+                        order[successor] = lowLinks[successor] = counter++;
+                        stack[stackSize++] = successor;
+                        onStack[successor] = true;
+                        depth++;
+                        callNodes[depth] = successor;
+                        callPositions[depth] = successorOffsets[successor];
+                    } else if (onStack[successor]) {
+                        lowLinks[node] = Math.min(lowLinks[node], order[successor]);
+                    }
+                } else {
+                    if (lowLinks[node] == order[node]) {
+                        int member;
+                        do {
+                            member = stack[--stackSize];
+                            onStack[member] = false;
+                            result[member] = numCycles;
+                        } while (member != node);
+                        numCycles++;
+                    }
+                    depth--;
+                    if (depth >= 0) {
+                        int caller = callNodes[depth];
+                        lowLinks[caller] = Math.min(lowLinks[caller], lowLinks[node]);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Kahn's algorithm on the cycles of a component; if more than one cycle is ready, the cycle which was discovered first wins.
+     */
+    protected static int[] sortTopologically(int[] componentIndices, int[] successorOffsets, int[] successors,
+        int[] cycleIds, int[] cycleFirstMembers, int[] nextCycleMembers, int[] cycleInDegrees) {
+        int[] result = new int[componentIndices.length];
+        int size = 0;
+        // Cycles are represented by their first discovered member
+        PriorityQueue<Integer> readyCycleFirstMembers = new PriorityQueue<>();
+        for (int index : componentIndices) {
+            int cycleId = cycleIds[index];
+            if (cycleInDegrees[cycleId] == 0 && cycleFirstMembers[cycleId] == index) {
+                readyCycleFirstMembers.add(index);
+            }
+        }
+        while (!readyCycleFirstMembers.isEmpty()) {
+            int cycleId = cycleIds[readyCycleFirstMembers.poll()];
+            for (int member = cycleFirstMembers[cycleId]; member >= 0; member = nextCycleMembers[member]) {
+                result[size++] = member;
+            }
+            for (int member = cycleFirstMembers[cycleId]; member >= 0; member = nextCycleMembers[member]) {
+                for (int j = successorOffsets[member]; j < successorOffsets[member + 1]; j++) {
+                    int successorCycleId = cycleIds[successors[j]];
+                    if (successorCycleId != cycleId && --cycleInDegrees[successorCycleId] == 0) {
+                        readyCycleFirstMembers.add(cycleFirstMembers[successorCycleId]);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.ui.view;
+
+/**
+ * Statistics of a single pass of an {@link ObjectReconcileOperation}.
+ */
+public class ReconcilePassStatistics {
+    protected final int mPassNumber;
+    protected final int mNumGraphObjects;
+    protected final int mNumComponents;
+    protected final int mNumReconciledObjects;
+    protected final boolean mParallel;
+    protected final long mDurationNanos;
+
+    public ReconcilePassStatistics(int passNumber, int numGraphObjects, int numComponents, int numReconciledObjects, boolean parallel, long durationNanos) {
+        mPassNumber = passNumber;
+        mNumGraphObjects = numGraphObjects;
+        mNumComponents = numComponents;
+        mNumReconciledObjects = numReconciledObjects;
+        mParallel = parallel;
+        mDurationNanos = durationNanos;
+    }
+
+    /**
+     * Gets the 1-based number of the pass in its reconcile operation.
+     */
+    public int getPassNumber() {
+        return mPassNumber;
+    }
+
+    /**
+     * Gets the number of objects in the dependency graph of the pass, i.e. all objects which could have been affected.
+     */
+    public int getNumGraphObjects() {
+        return mNumGraphObjects;
+    }
+
+    /**
+     * Gets the number of independent components of the dependency graph.
+     */
+    public int getNumComponents() {
+        return mNumComponents;
+    }
+
+    /**
+     * Gets the number of objects which were actually visited and reconciled in the pass.
+     */
+    public int getNumReconciledObjects() {
+        return mNumReconciledObjects;
+    }
+
+    /**
+     * Returns the information whether the components were reconciled in parallel.
+     */
+    public boolean isParallel() {
+        return mParallel;
+    }
+
+    public long getDurationNanos() {
+        return mDurationNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Pass " + mPassNumber + ": " + mNumReconciledObjects + " of " + mNumGraphObjects + " objects reconciled in "
+                + mNumComponents + " component(s)" + (mParallel ? " (parallel)" : "") + ", " + String.format("%.3f", mDurationNanos / 1_000_000.0) + " ms";
+    }
+}
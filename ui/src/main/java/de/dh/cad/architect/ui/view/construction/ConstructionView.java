@@ -89,6 +89,7 @@ public class ConstructionView extends Abstract2DView {
     protected Vector2D mCombinedTranslation = new Vector2D(0, 0);
     protected Map<String, Line> mGuideLines = new TreeMap<>();
     protected ConstructionViewState mSavedViewState;
+    protected StaticLayerManager mStaticLayerManager = null;
 
     public ConstructionView(UiController uiController) {
         super(uiController);
@@ -106,6 +107,11 @@ public class ConstructionView extends Abstract2DView {
     protected void uninitialize() {
         setBehavior(null);
 
+        if (mStaticLayerManager != null) {
+            mStaticLayerManager.dispose();
+            mStaticLayerManager = null;
+        }
+
         takeViewStateFromView();
 
         mGuideLines.clear();
@@ -148,6 +154,10 @@ public class ConstructionView extends Abstract2DView {
         });
 
         super.initialize();
+        if (mUiController.getConfiguration().getBoolean(StaticLayerManager.KEY_STATIC_LAYER_ENABLED, StaticLayerManager.DEFAULT_STATIC_LAYER_ENABLED)) {
+            mStaticLayerManager = new StaticLayerManager(this);
+            mStaticLayerManager.install();
+        }
         setToolBarContributionItems(mSelectionModeButton, mGroundPlanModeButton, mSupportObjectsModeButton);
 
         updateViewToViewState();
@@ -278,6 +288,13 @@ mCenterPane.setStyle("-fx-background-color: cornsilk;");
         return mScaleCompensation;
     }
 
+    /**
+     * Gets the manager of the static layer rendering mode, if that mode is enabled.
+     */
+    public StaticLayerManager getStaticLayerManager() {
+        return mStaticLayerManager;
+    }
+
     @Override
     public AbstractConstructionBehavior getBehavior() {
         return (AbstractConstructionBehavior) super.getBehavior();
@@ -295,9 +312,31 @@ mCenterPane.setStyle("-fx-background-color: cornsilk;");
         for (Abstract2DRepresentation repr : result) {
             repr.updateScale(mScaleCompensation);
         }
+        if (mStaticLayerManager != null) {
+            mStaticLayerManager.add(result);
+        }
         return result;
     }
 
+    @Override
+    protected Collection<Abstract2DRepresentation> doRemoveUIRepresentations(Collection<? extends BaseObject> removedObjects) {
+        Collection<Abstract2DRepresentation> result = super.doRemoveUIRepresentations(removedObjects);
+        if (mStaticLayerManager != null) {
+            for (Abstract2DRepresentation repr : result) {
+                mStaticLayerManager.remove(repr);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    protected void uiRepresentationsChanged(Collection<Abstract2DRepresentation> changedReprs) {
+        super.uiRepresentationsChanged(changedReprs);
+        if (mStaticLayerManager != null) {
+            mStaticLayerManager.objectsEdited(changedReprs);
+        }
+    }
+
     @Override
     protected void onModelObjectsAdded(Collection<BaseObject> addedObjects) {
         super.onModelObjectsAdded(addedObjects);
@@ -513,6 +552,9 @@ mCenterPane.setStyle("-fx-background-color: cornsilk;");
         mHorizontalRuler.setTransform(mScale, mCombinedTranslation);
         mVerticalRuler.setTransform(mScale, mCombinedTranslation);
         updateAllGuideLines();
+        if (mStaticLayerManager != null) {
+            mStaticLayerManager.viewTransformChanged(updateScaleCompensation);
+        }
     }
 
     public void enableRulerCursorMarker() {
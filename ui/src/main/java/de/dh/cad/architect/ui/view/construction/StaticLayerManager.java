@@ -0,0 +1,791 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.ui.view.construction;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.dh.cad.architect.ui.Constants;
+import de.dh.cad.architect.ui.objects.Abstract2DRepresentation;
+import javafx.animation.Animation;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.property.ReadOnlyProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.event.EventHandler;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.geometry.Point2D;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Affine;
+import javafx.stage.Window;
+import javafx.util.Duration;
+
+/**
+ * Optional rendering mode of the construction view which reduces the number of nodes which are rendered in each frame.
+ * All object representations which are not in the focus of the user are painted into cached image tiles per zoom level,
+ * which are displayed below the live representations. The static representations are moved out of the transformed root
+ * into a group which is invisible, unmanaged and mouse transparent, thus they are neither rendered, nor layouted, nor
+ * picked. That group is only made visible for the snapshots which paint the tiles.
+ *
+ * Representations which are selected, hovered, spotted, focused, emphasized or recently edited remain live nodes, together
+ * with all representations in front of them which overlap them, to keep the correct painting order. Because static
+ * representations cannot be picked, the mouse position is looked up in a spatial index and the static representations
+ * under the mouse cursor are made live, so they get their mouse events as before.
+ * When a representation switches between the static and the live state, only the tiles intersecting its bounds are painted again.
+ * Panning only paints the tiles which scroll into view, without visiting the representations.
+ * While the plan is zoomed, the tiles of the former zoom level are scaled; the tiles of the new zoom level are painted
+ * when the zoom gesture is finished.
+ */
+public class StaticLayerManager {
+    private static final Logger log = LoggerFactory.getLogger(StaticLayerManager.class);
+
+    public static final String KEY_STATIC_LAYER_ENABLED = "ConstructionView.StaticLayer.Enabled";
+    public static final boolean DEFAULT_STATIC_LAYER_ENABLED = false;
+
+    /**
+     * Size of the tiles in screen pixels.
+     */
+    public static final int TILE_SIZE = 256;
+
+    protected static final int MAX_SNAPSHOT_TILES = 8; // Maximum number of tiles per direction which are painted in a single snapshot
+    protected static final int MAX_CACHED_LEVELS = 3;
+    protected static final int MAX_TILES_PER_LEVEL = 400;
+    protected static final int MAX_LIVE_REPRESENTATIONS = 200;
+    protected static final double INDEX_CELL_SIZE = 500; // Size of the cells of the spatial index in plan units
+    protected static final int MAX_INDEX_CELLS_PER_OBJECT = 256;
+    protected static final Duration EDIT_IDLE_DURATION = Duration.seconds(1);
+    protected static final Duration ZOOM_IDLE_DURATION = Duration.millis(300);
+
+    protected record TileKey(int x, int y) {
+        // Empty
+    }
+
+    protected static class Tile {
+        protected final ImageView mImageView = new ImageView();
+        protected boolean mDirty = true;
+
+        public Tile(TileKey key, double scale) {
+            double size = TILE_SIZE / scale;
+            mImageView.setX(key.x() * size);
+            mImageView.setY(key.y() * size);
+            mImageView.setFitWidth(size);
+            mImageView.setFitHeight(size);
+        }
+    }
+
+    /**
+     * Tiles of a zoom level. Tile {@code (x, y)} covers the plan area {@code [x, x + 1] * TILE_SIZE / scale} in X direction
+     * and {@code [y, y + 1] * TILE_SIZE / scale} in Y direction.
+     */
+    protected static class Level {
+        protected final double mScale;
+        protected final double mOutputScale;
+        protected final Map<TileKey, Tile> mTiles = new HashMap<>();
+
+        public Level(double scale, double outputScale) {
+            mScale = scale;
+            mOutputScale = outputScale;
+        }
+
+        protected int toTileIndex(double planCoord) {
+            return (int) Math.floor(planCoord * mScale / TILE_SIZE);
+        }
+
+        /**
+         * Returns the range of tile indices {@code [minX, minY, maxX, maxY]} which cover the given plan area.
+         */
+        public int[] getTileRange(Bounds planBounds) {
+            return new int[] {
+                toTileIndex(planBounds.getMinX()), toTileIndex(planBounds.getMinY()),
+                toTileIndex(planBounds.getMaxX()), toTileIndex(planBounds.getMaxY())};
+        }
+
+        /**
+         * Returns the number of pixels of a tile image.
+         */
+        public int getTilePixels() {
+            return (int) Math.round(TILE_SIZE * mOutputScale);
+        }
+    }
+
+    /**
+     * Grid of the bounds of all representations, used to find the representations at a plan position or in a plan area
+     * without visiting all representations.
+     */
+    protected static class SpatialIndex {
+        protected final Map<TileKey, Set<Abstract2DRepresentation>> mCells = new HashMap<>();
+        protected final Set<Abstract2DRepresentation> mLargeObjects = new HashSet<>(); // Objects which cover too many cells
+        protected final Map<Abstract2DRepresentation, Bounds> mBounds = new HashMap<>();
+
+        protected static int toCellIndex(double planCoord) {
+            return (int) Math.floor(planCoord / INDEX_CELL_SIZE);
+        }
+
+        protected static int[] getCellRange(Bounds planBounds) {
+            return new int[] {
+                toCellIndex(planBounds.getMinX()), toCellIndex(planBounds.getMinY()),
+                toCellIndex(planBounds.getMaxX()), toCellIndex(planBounds.getMaxY())};
+        }
+
+        protected static boolean isLarge(int[] range) {
+            return (long) (range[2] - range[0] + 1) * (range[3] - range[1] + 1) > MAX_INDEX_CELLS_PER_OBJECT;
+        }
+
+        public Bounds getBounds(Abstract2DRepresentation repr) {
+            return mBounds.get(repr);
+        }
+
+        public void put(Abstract2DRepresentation repr, Bounds bounds) {
+            remove(repr);
+            mBounds.put(repr, bounds);
+            if (bounds.isEmpty()) {
+                return;
+            }
+            int[] range = getCellRange(bounds);
+            if (isLarge(range)) {
+                mLargeObjects.add(repr);
+                return;
+            }
+            for (int y = range[1]; y <= range[3]; y++) {
+                for (int x = range[0]; x <= range[2]; x++) {
+                    mCells.computeIfAbsent(new TileKey(x, y), k -> new HashSet<>()).add(repr);
+                }
+            }
+        }
+
+        public void remove(Abstract2DRepresentation repr) {
+            Bounds bounds = mBounds.remove(repr);
+            if (bounds == null || bounds.isEmpty() || mLargeObjects.remove(repr)) {
+                return;
+            }
+            int[] range = getCellRange(bounds);
+            for (int y = range[1]; y <= range[3]; y++) {
+                for (int x = range[0]; x <= range[2]; x++) {
+                    TileKey key = new TileKey(x, y);
+                    Set<Abstract2DRepresentation> cell = mCells.get(key);
+                    if (cell != null && cell.remove(repr) && cell.isEmpty()) {
+                        mCells.remove(key);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns all representations whose bounds intersect the given plan area.
+         */
+        public Set<Abstract2DRepresentation> query(Bounds planBounds) {
+            Set<Abstract2DRepresentation> result = new HashSet<>();
+            if (planBounds.isEmpty()) {
+                return result;
+            }
+            int[] range = getCellRange(planBounds);
+            if (isLarge(range)) {
+                for (Entry<Abstract2DRepresentation, Bounds> entry : mBounds.entrySet()) {
+                    if (entry.getValue().intersects(planBounds)) {
+                        result.add(entry.getKey());
+                    }
+                }
+                return result;
+            }
+            for (int y = range[1]; y <= range[3]; y++) {
+                for (int x = range[0]; x <= range[2]; x++) {
+                    Set<Abstract2DRepresentation> cell = mCells.get(new TileKey(x, y));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (Abstract2DRepresentation repr : cell) {
+                        if (mBounds.get(repr).intersects(planBounds)) {
+                            result.add(repr);
+                        }
+                    }
+                }
+            }
+            for (Abstract2DRepresentation repr : mLargeObjects) {
+                if (mBounds.get(repr).intersects(planBounds)) {
+                    result.add(repr);
+                }
+            }
+            return result;
+        }
+
+        public void clear() {
+            mCells.clear();
+            mLargeObjects.clear();
+            mBounds.clear();
+        }
+    }
+
+    protected static boolean isInRange(TileKey key, int[] range) {
+        return key.x() >= range[0] && key.y() >= range[1] && key.x() <= range[2] && key.y() <= range[3];
+    }
+
+    protected final ConstructionView mView;
+    protected final Group mTilesGroup = new Group();
+    protected final Group mStaticGroup = new Group(); // Parent of the static representations, only visible while tiles are painted
+    protected final Map<Double, Level> mLevels = new LinkedHashMap<>(MAX_CACHED_LEVELS + 1, 0.75f, true);
+    protected Level mDisplayedLevel = null;
+
+    protected final Set<Abstract2DRepresentation> mObservedRepresentations = new HashSet<>();
+    protected final SpatialIndex mIndex = new SpatialIndex();
+    protected final Set<Abstract2DRepresentation> mChangedRepresentations = new HashSet<>(); // Representations to be checked in the next update
+    protected final Set<Abstract2DRepresentation> mEditedRepresentations = new HashSet<>();
+    protected final Set<Abstract2DRepresentation> mHoveredRepresentations = new HashSet<>(); // Representations under the mouse cursor
+    protected final Set<Abstract2DRepresentation> mFocusedRepresentations = new HashSet<>(); // Representations which are live by themselves
+    protected Set<Abstract2DRepresentation> mLiveRepresentations = new HashSet<>(); // Live representations, if not all are live
+    protected boolean mAllLive = false; // Set if too many representations are live
+    protected final Map<Abstract2DRepresentation, Bounds> mStaticBounds = new HashMap<>(); // Static representations to their bounds in the tiles
+
+    protected final PauseTransition mEditIdleTimer = new PauseTransition(EDIT_IDLE_DURATION);
+    protected final PauseTransition mZoomIdleTimer = new PauseTransition(ZOOM_IDLE_DURATION);
+    protected boolean mUpdateScheduled = false;
+
+    protected final ChangeListener<Boolean> REPRESENTATION_STATE_LISTENER = (observable, oldValue, newValue) -> representationChanged(observable);
+
+    protected final ChangeListener<Boolean> VISIBILITY_LISTENER = (observable, oldValue, newValue) -> {
+        representationChanged(observable);
+        if (observable instanceof ReadOnlyProperty<?> property && property.getBean() instanceof Abstract2DRepresentation repr) {
+            staticAppearanceChanged(repr);
+        }
+    };
+
+    protected final ChangeListener<Number> OPACITY_LISTENER = (observable, oldValue, newValue) -> {
+        if (observable instanceof ReadOnlyProperty<?> property && property.getBean() instanceof Abstract2DRepresentation repr) {
+            // Opacity was changed, e.g. by the UI element filter, while the representation is painted in the tiles
+            staticAppearanceChanged(repr);
+        }
+    };
+
+    protected final InvalidationListener VIEW_SIZE_LISTENER = observable -> scheduleUpdate();
+
+    protected final EventHandler<MouseEvent> MOUSE_MOVED_FILTER = event -> {
+        updateHoveredRepresentations(mView.getPointOnPlanFromScene(event.getSceneX(), event.getSceneY()));
+    };
+
+    protected final EventHandler<MouseEvent> MOUSE_EXITED_HANDLER = event -> updateHoveredRepresentations(null);
+
+    public StaticLayerManager(ConstructionView view) {
+        mView = view;
+        mTilesGroup.setMouseTransparent(true);
+        mTilesGroup.setViewOrder(Constants.VIEW_ORDER_STATIC_LAYER);
+        mStaticGroup.setVisible(false);
+        mStaticGroup.setManaged(false);
+        mStaticGroup.setMouseTransparent(true);
+        mEditIdleTimer.setOnFinished(event -> {
+            mChangedRepresentations.addAll(mEditedRepresentations);
+            mEditedRepresentations.clear();
+            scheduleUpdate();
+        });
+        mZoomIdleTimer.setOnFinished(event -> scheduleUpdate());
+    }
+
+    public void install() {
+        mView.getTransformedRoot().getChildren().addAll(mTilesGroup, mStaticGroup);
+        Pane centerPane = mView.getCenterPane();
+        centerPane.widthProperty().addListener(VIEW_SIZE_LISTENER);
+        centerPane.heightProperty().addListener(VIEW_SIZE_LISTENER);
+        centerPane.addEventFilter(MouseEvent.MOUSE_MOVED, MOUSE_MOVED_FILTER);
+        centerPane.addEventFilter(MouseEvent.MOUSE_DRAGGED, MOUSE_MOVED_FILTER);
+        centerPane.addEventHandler(MouseEvent.MOUSE_EXITED, MOUSE_EXITED_HANDLER);
+        add(mView.getRepresentationsById().values());
+    }
+
+    /**
+     * Shows all representations as live nodes again and discards all tiles.
+     */
+    public void dispose() {
+        mEditIdleTimer.stop();
+        mZoomIdleTimer.stop();
+        Pane centerPane = mView.getCenterPane();
+        centerPane.widthProperty().removeListener(VIEW_SIZE_LISTENER);
+        centerPane.heightProperty().removeListener(VIEW_SIZE_LISTENER);
+        centerPane.removeEventFilter(MouseEvent.MOUSE_MOVED, MOUSE_MOVED_FILTER);
+        centerPane.removeEventFilter(MouseEvent.MOUSE_DRAGGED, MOUSE_MOVED_FILTER);
+        centerPane.removeEventHandler(MouseEvent.MOUSE_EXITED, MOUSE_EXITED_HANDLER);
+        Pane transformedRoot = mView.getTransformedRoot();
+        if (transformedRoot != null) {
+            makeLive(new ArrayList<>(mStaticBounds.keySet()));
+            transformedRoot.getChildren().removeAll(mTilesGroup, mStaticGroup);
+        }
+        for (Abstract2DRepresentation repr : mObservedRepresentations) {
+            removeStateListeners(repr);
+        }
+        mObservedRepresentations.clear();
+        mIndex.clear();
+        mChangedRepresentations.clear();
+        mEditedRepresentations.clear();
+        mHoveredRepresentations.clear();
+        mFocusedRepresentations.clear();
+        mLiveRepresentations.clear();
+        mStaticBounds.clear();
+        mStaticGroup.getChildren().clear();
+        mLevels.clear();
+        mDisplayedLevel = null;
+        mTilesGroup.getChildren().clear();
+    }
+
+    public int getNumStaticRepresentations() {
+        return mStaticBounds.size();
+    }
+
+    /**
+     * Must be called when the given representations were added to our view. New representations start as live nodes
+     * and are moved to the static layer by the next update.
+     */
+    public void add(Collection<? extends Abstract2DRepresentation> reprs) {
+        for (Abstract2DRepresentation repr : reprs) {
+            if (mObservedRepresentations.add(repr)) {
+                addStateListeners(repr);
+                mLiveRepresentations.add(repr);
+                mChangedRepresentations.add(repr);
+            }
+        }
+        scheduleUpdate();
+    }
+
+    /**
+     * Marks the given representations as edited. Edited representations remain live nodes until they were not edited for a while.
+     */
+    public void objectsEdited(Collection<? extends Abstract2DRepresentation> reprs) {
+        if (reprs.isEmpty()) {
+            return;
+        }
+        mEditedRepresentations.addAll(reprs);
+        mChangedRepresentations.addAll(reprs);
+        mEditIdleTimer.playFromStart();
+        scheduleUpdate();
+    }
+
+    /**
+     * Must be called when the given representation was removed from our view.
+     */
+    public void remove(Abstract2DRepresentation repr) {
+        if (mObservedRepresentations.remove(repr)) {
+            removeStateListeners(repr);
+        }
+        mIndex.remove(repr);
+        mChangedRepresentations.remove(repr);
+        mEditedRepresentations.remove(repr);
+        mHoveredRepresentations.remove(repr);
+        mFocusedRepresentations.remove(repr);
+        if (mLiveRepresentations.remove(repr)) {
+            // The live set might contain representations in front of the removed one which don't need to be live any more
+            mChangedRepresentations.addAll(mFocusedRepresentations);
+        }
+        Bounds staticBounds = mStaticBounds.remove(repr);
+        if (staticBounds != null) {
+            mStaticGroup.getChildren().remove(repr);
+            invalidate(staticBounds);
+        }
+        scheduleUpdate();
+    }
+
+    /**
+     * Must be called when the view transformation was changed.
+     * @param scaleChanged {@code true} if the plan was zoomed, {@code false} if it was only moved.
+     */
+    public void viewTransformChanged(boolean scaleChanged) {
+        if (scaleChanged) {
+            mZoomIdleTimer.playFromStart();
+        }
+        scheduleUpdate();
+    }
+
+    /**
+     * Schedules an update of the live representations and of the tiles. Multiple calls during the same pulse are coalesced.
+     */
+    public void scheduleUpdate() {
+        if (mUpdateScheduled) {
+            return;
+        }
+        mUpdateScheduled = true;
+        Platform.runLater(() -> {
+            mUpdateScheduled = false;
+            if (mView.isAlive()) {
+                update();
+            }
+        });
+    }
+
+    protected void addStateListeners(Abstract2DRepresentation repr) {
+        repr.selectedProperty().addListener(REPRESENTATION_STATE_LISTENER);
+        repr.mouseOverProperty().addListener(REPRESENTATION_STATE_LISTENER);
+        repr.objectSpottedProperty().addListener(REPRESENTATION_STATE_LISTENER);
+        repr.objectFocusedProperty().addListener(REPRESENTATION_STATE_LISTENER);
+        repr.objectEmphasizedProperty().addListener(REPRESENTATION_STATE_LISTENER);
+        repr.visibleProperty().addListener(VISIBILITY_LISTENER);
+        repr.opacityProperty().addListener(OPACITY_LISTENER);
+    }
+
+    protected void removeStateListeners(Abstract2DRepresentation repr) {
+        repr.selectedProperty().removeListener(REPRESENTATION_STATE_LISTENER);
+        repr.mouseOverProperty().removeListener(REPRESENTATION_STATE_LISTENER);
+        repr.objectSpottedProperty().removeListener(REPRESENTATION_STATE_LISTENER);
+        repr.objectFocusedProperty().removeListener(REPRESENTATION_STATE_LISTENER);
+        repr.objectEmphasizedProperty().removeListener(REPRESENTATION_STATE_LISTENER);
+        repr.visibleProperty().removeListener(VISIBILITY_LISTENER);
+        repr.opacityProperty().removeListener(OPACITY_LISTENER);
+    }
+
+    protected void representationChanged(ObservableValue<?> observable) {
+        if (observable instanceof ReadOnlyProperty<?> property && property.getBean() instanceof Abstract2DRepresentation repr
+                        && mObservedRepresentations.contains(repr)) {
+            mChangedRepresentations.add(repr);
+            scheduleUpdate();
+        }
+    }
+
+    /**
+     * Updates the set of representations under the mouse cursor. Static representations under the cursor are made live,
+     * that way they are picked by the following mouse events.
+     * @param planPosition Position of the mouse cursor on the plan or {@code null} if the mouse cursor left the view.
+     */
+    protected void updateHoveredRepresentations(Point2D planPosition) {
+        Set<Abstract2DRepresentation> hovered = new HashSet<>();
+        if (planPosition != null) {
+            for (Abstract2DRepresentation repr : mIndex.query(new BoundingBox(planPosition.getX(), planPosition.getY(), 0, 0))) {
+                if (repr.contains(repr.parentToLocal(planPosition))) {
+                    hovered.add(repr);
+                }
+            }
+        }
+        if (hovered.equals(mHoveredRepresentations)) {
+            return;
+        }
+        mChangedRepresentations.addAll(mHoveredRepresentations);
+        mChangedRepresentations.addAll(hovered);
+        mHoveredRepresentations.clear();
+        mHoveredRepresentations.addAll(hovered);
+        scheduleUpdate();
+    }
+
+    protected void staticAppearanceChanged(Abstract2DRepresentation repr) {
+        Bounds oldBounds = mStaticBounds.get(repr);
+        if (oldBounds == null) {
+            // Live representation, not painted in the tiles
+            return;
+        }
+        Bounds bounds = repr.getBoundsInParent();
+        mStaticBounds.put(repr, bounds);
+        invalidate(oldBounds);
+        invalidate(bounds);
+        scheduleUpdate();
+    }
+
+    /**
+     * Marks all tiles which intersect the given plan area to be painted again.
+     */
+    protected void invalidate(Bounds planBounds) {
+        if (planBounds == null || planBounds.isEmpty()) {
+            return;
+        }
+        for (Level level : mLevels.values()) {
+            int[] range = level.getTileRange(planBounds);
+            Iterator<Entry<TileKey, Tile>> i = level.mTiles.entrySet().iterator();
+            while (i.hasNext()) {
+                Entry<TileKey, Tile> entry = i.next();
+                if (!isInRange(entry.getKey(), range)) {
+                    continue;
+                }
+                if (level == mDisplayedLevel) {
+                    // Keep the outdated image until the tile is painted again
+                    entry.getValue().mDirty = true;
+                } else {
+                    i.remove();
+                }
+            }
+        }
+    }
+
+    protected static boolean isLive(Abstract2DRepresentation repr) {
+        return repr.isSelected() || repr.isMouseOver() || repr.isObjectSpotted() || repr.isObjectFocused() || repr.isObjectEmphasized();
+    }
+
+    /**
+     * Calculates the representations which must be rendered as live nodes. Those are the representations in the focus of the user
+     * and all representations which are painted in front of them and which overlap them.
+     * @return Set of the live representations or {@code null} if too many representations are live, in that case
+     * all representations should be live.
+     */
+    protected Set<Abstract2DRepresentation> calculateLiveRepresentations() {
+        Set<Abstract2DRepresentation> result = new HashSet<>(mFocusedRepresentations);
+        List<Abstract2DRepresentation> queue = new ArrayList<>(result);
+        while (!queue.isEmpty()) {
+            if (result.size() > MAX_LIVE_REPRESENTATIONS) {
+                return null;
+            }
+            Abstract2DRepresentation liveRepr = queue.remove(queue.size() - 1);
+            Bounds liveBounds = mIndex.getBounds(liveRepr);
+            double viewOrder = liveRepr.getViewOrder();
+            for (Abstract2DRepresentation repr : mIndex.query(liveBounds)) {
+                // Representations with the same view order might be painted after the live representation
+                if (repr.getViewOrder() <= viewOrder && repr.isVisible() && result.add(repr)) {
+                    queue.add(repr);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Moves the given representations from the transformed root to the static group.
+     */
+    protected void makeStatic(Collection<Abstract2DRepresentation> reprs) {
+        Set<Abstract2DRepresentation> newStaticReprs = new HashSet<>();
+        for (Abstract2DRepresentation repr : reprs) {
+            if (!mStaticBounds.containsKey(repr)) {
+                newStaticReprs.add(repr);
+            }
+        }
+        if (newStaticReprs.isEmpty()) {
+            return;
+        }
+        mView.getTransformedRoot().getChildren().removeAll(newStaticReprs);
+        mStaticGroup.getChildren().addAll(newStaticReprs);
+        for (Abstract2DRepresentation repr : newStaticReprs) {
+            Bounds bounds = repr.getBoundsInParent();
+            mStaticBounds.put(repr, bounds);
+            invalidate(bounds);
+        }
+    }
+
+    /**
+     * Moves the given representations from the static group back to the transformed root.
+     */
+    protected void makeLive(Collection<Abstract2DRepresentation> reprs) {
+        Set<Abstract2DRepresentation> newLiveReprs = new HashSet<>();
+        for (Abstract2DRepresentation repr : reprs) {
+            Bounds bounds = mStaticBounds.remove(repr);
+            if (bounds != null) {
+                newLiveReprs.add(repr);
+                invalidate(bounds);
+            }
+        }
+        if (newLiveReprs.isEmpty()) {
+            return;
+        }
+        mStaticGroup.getChildren().removeAll(newLiveReprs);
+        mView.getTransformedRoot().getChildren().addAll(newLiveReprs);
+    }
+
+    /**
+     * Moves representations between the live nodes and the static layer. Only the representations whose live state might
+     * have changed are visited.
+     */
+    protected void updateLiveRepresentations() {
+        Set<Abstract2DRepresentation> liveReprs = calculateLiveRepresentations();
+        if (liveReprs == null) {
+            if (!mAllLive) {
+                makeLive(new ArrayList<>(mStaticBounds.keySet()));
+                mAllLive = true;
+            }
+            return;
+        }
+        Collection<Abstract2DRepresentation> formerLiveReprs = mAllLive ? mObservedRepresentations : mLiveRepresentations;
+        List<Abstract2DRepresentation> newStaticReprs = new ArrayList<>();
+        for (Abstract2DRepresentation repr : formerLiveReprs) {
+            if (!liveReprs.contains(repr)) {
+                newStaticReprs.add(repr);
+            }
+        }
+        makeStatic(newStaticReprs);
+        makeLive(liveReprs);
+        mLiveRepresentations = liveReprs;
+        mAllLive = false;
+    }
+
+    /**
+     * Updates the live and static state of the changed representations and paints all missing or outdated tiles in the visible area.
+     */
+    public void update() {
+        long start = System.currentTimeMillis();
+        boolean liveStateChanged = !mChangedRepresentations.isEmpty();
+        for (Abstract2DRepresentation repr : mChangedRepresentations) {
+            mIndex.put(repr, repr.getBoundsInParent());
+            if (repr.isVisible() && (isLive(repr) || mEditedRepresentations.contains(repr) || mHoveredRepresentations.contains(repr))) {
+                mFocusedRepresentations.add(repr);
+            } else {
+                mFocusedRepresentations.remove(repr);
+            }
+        }
+        mChangedRepresentations.clear();
+        if (liveStateChanged) {
+            updateLiveRepresentations();
+        }
+        int numPainted = updateTiles();
+        if (numPainted > 0) {
+            log.debug("Static layer updated in " + (System.currentTimeMillis() - start) + " ms: " + numPainted + " tiles painted, "
+                    + mStaticBounds.size() + " static and " + (mObservedRepresentations.size() - mStaticBounds.size()) + " live objects");
+        }
+    }
+
+    protected double getOutputScale() {
+        Scene scene = mView.getScene();
+        Window window = scene == null ? null : scene.getWindow();
+        return window == null ? 1 : window.getOutputScaleX();
+    }
+
+    /**
+     * Chooses the zoom level to display and paints its missing and outdated tiles in the visible area.
+     * @return Number of painted tiles.
+     */
+    protected int updateTiles() {
+        double scale = mView.getScale();
+        double outputScale = getOutputScale();
+        boolean zooming = mZoomIdleTimer.getStatus() == Animation.Status.RUNNING;
+        if (mDisplayedLevel == null || mDisplayedLevel.mOutputScale != outputScale || (!zooming && mDisplayedLevel.mScale != scale)) {
+            if (mDisplayedLevel != null && mDisplayedLevel.mOutputScale != outputScale) {
+                mLevels.clear();
+            }
+            Level level = mLevels.get(scale);
+            if (level == null) {
+                level = new Level(scale, outputScale);
+                mLevels.put(scale, level);
+                if (mLevels.size() > MAX_CACHED_LEVELS) {
+                    Iterator<Level> i = mLevels.values().iterator();
+                    i.next();
+                    i.remove();
+                }
+            }
+            mDisplayedLevel = level;
+            // Sizes of unscaled parts of the representations depend on the zoom level; this is done once per zoom gesture
+            for (Abstract2DRepresentation repr : mObservedRepresentations) {
+                Bounds bounds = repr.getBoundsInParent();
+                mIndex.put(repr, bounds);
+                if (mStaticBounds.containsKey(repr)) {
+                    mStaticBounds.put(repr, bounds);
+                }
+            }
+        }
+        Level level = mDisplayedLevel;
+
+        Pane centerPane = mView.getCenterPane();
+        Bounds visibleArea = mView.getTransformedRoot().sceneToLocal(centerPane.localToScene(centerPane.getLayoutBounds()));
+        int[] range = level.getTileRange(visibleArea);
+        // One tile margin for panning
+        range[0]--;
+        range[1]--;
+        range[2]++;
+        range[3]++;
+
+        List<TileKey> dirtyKeys = new ArrayList<>();
+        List<Node> tileViews = new ArrayList<>();
+        for (int y = range[1]; y <= range[3]; y++) {
+            for (int x = range[0]; x <= range[2]; x++) {
+                TileKey key = new TileKey(x, y);
+                Tile tile = level.mTiles.get(key);
+                if (tile == null) {
+                    if (zooming) {
+                        // Tiles of the former zoom level are scaled, new tiles are painted after the zoom gesture
+                        continue;
+                    }
+                    tile = new Tile(key, level.mScale);
+                    level.mTiles.put(key, tile);
+                }
+                if (tile.mDirty && !zooming) {
+                    dirtyKeys.add(key);
+                }
+                tileViews.add(tile.mImageView);
+            }
+        }
+        paintTiles(level, dirtyKeys);
+        if (level.mTiles.size() > MAX_TILES_PER_LEVEL) {
+            level.mTiles.keySet().removeIf(key -> !isInRange(key, range));
+        }
+        if (!mTilesGroup.getChildren().equals(tileViews)) {
+            mTilesGroup.getChildren().setAll(tileViews);
+        }
+        return dirtyKeys.size();
+    }
+
+    /**
+     * Paints the given tiles from the static representations. Neighboured tiles are painted together in one snapshot.
+     */
+    protected void paintTiles(Level level, List<TileKey> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Set<TileKey> remainingKeys = new HashSet<>(keys);
+        // The static group has no transform, its coordinates are plan coordinates
+        mStaticGroup.setVisible(true);
+        try {
+            int tilePixels = level.getTilePixels();
+            double pixelsPerPlanUnit = tilePixels * level.mScale / TILE_SIZE;
+            for (TileKey key : keys) {
+                if (!remainingKeys.contains(key)) {
+                    continue;
+                }
+                // Snapshot of the chunk of tiles which starts at the first remaining tile
+                int chunkX = key.x();
+                int chunkY = key.y();
+                int chunkWidth = 1;
+                int chunkHeight = 1;
+                for (TileKey k : remainingKeys) {
+                    int dx = k.x() - chunkX;
+                    int dy = k.y() - chunkY;
+                    if (dx >= 0 && dy >= 0 && dx < MAX_SNAPSHOT_TILES && dy < MAX_SNAPSHOT_TILES) {
+                        chunkWidth = Math.max(chunkWidth, dx + 1);
+                        chunkHeight = Math.max(chunkHeight, dy + 1);
+                    }
+                }
+                SnapshotParameters params = new SnapshotParameters();
+                params.setFill(Color.TRANSPARENT);
+                params.setTransform(new Affine(pixelsPerPlanUnit, 0, -chunkX * tilePixels, 0, pixelsPerPlanUnit, -chunkY * tilePixels));
+                params.setViewport(new Rectangle2D(0, 0, chunkWidth * tilePixels, chunkHeight * tilePixels));
+                WritableImage chunkImage = mStaticGroup.snapshot(params, null);
+                PixelReader pixelReader = chunkImage.getPixelReader();
+                for (int y = 0; y < chunkHeight; y++) {
+                    for (int x = 0; x < chunkWidth; x++) {
+                        TileKey chunkKey = new TileKey(chunkX + x, chunkY + y);
+                        if (!remainingKeys.remove(chunkKey)) {
+                            continue;
+                        }
+                        Tile tile = level.mTiles.get(chunkKey);
+                        tile.mImageView.setImage(new WritableImage(pixelReader, x * tilePixels, y * tilePixels, tilePixels, tilePixels));
+                        tile.mDirty = false;
+                    }
+                }
+            }
+        } finally {
+            mStaticGroup.setVisible(false);
+        }
+    }
+}
@@ -58,7 +58,7 @@ import de.dh.cad.architect.utils.SystemUtils;
 import de.dh.cad.architect.utils.vfs.IDirectoryLocator;
 import de.dh.cad.architect.utils.vfs.PlainFileSystemResourceLocator;
 import de.dh.utils.MaterialMapping;
-import de.dh.utils.io.fx.MaterialData;
+import de.dh.utils.io.obj.MaterialData;
 import javafx.beans.binding.BooleanBinding;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
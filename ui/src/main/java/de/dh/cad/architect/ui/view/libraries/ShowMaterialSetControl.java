@@ -26,7 +26,7 @@ import org.apache.commons.lang3.StringUtils;
 import de.dh.cad.architect.model.assets.AssetRefPath;
 import de.dh.cad.architect.model.assets.MaterialSetDescriptor;
 import de.dh.cad.architect.ui.assets.AssetLoader;
-import de.dh.utils.io.fx.MaterialData;
+import de.dh.utils.io.obj.MaterialData;
 import de.dh.utils.io.obj.RawMaterialData;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.fxml.FXML;
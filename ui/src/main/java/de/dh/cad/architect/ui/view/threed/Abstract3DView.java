@@ -17,6 +17,7 @@
  *******************************************************************************/
 package de.dh.cad.architect.ui.view.threed;
 
+import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -25,16 +26,21 @@ import java.util.Map;
 import de.dh.cad.architect.fx.nodes.CombinedTransformGroup;
 import de.dh.cad.architect.model.coords.Length;
 import de.dh.cad.architect.model.objects.BaseObject;
+import de.dh.cad.architect.ui.Strings;
 import de.dh.cad.architect.ui.controller.UiController;
 import de.dh.cad.architect.ui.objects.Abstract3DAncillaryObject;
 import de.dh.cad.architect.ui.objects.Abstract3DRepresentation;
 import de.dh.cad.architect.ui.objects.AbstractObjectUIRepresentation;
 import de.dh.cad.architect.ui.objects.ObjectTypesRegistry;
+import de.dh.cad.architect.ui.objects.SupportObject3DRepresentation;
 import de.dh.cad.architect.ui.utils.CoordinateUtils;
 import de.dh.cad.architect.ui.view.AbstractPlanView;
 import de.dh.cad.architect.ui.view.threed.behaviors.ThreeDNullBehavior;
 import de.dh.utils.fx.ClippingStackPane;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
 import javafx.collections.ObservableList;
+import javafx.geometry.Bounds;
 import javafx.scene.AmbientLight;
 import javafx.scene.Group;
 import javafx.scene.Node;
@@ -42,8 +48,10 @@ import javafx.scene.PerspectiveCamera;
 import javafx.scene.PointLight;
 import javafx.scene.SceneAntialiasing;
 import javafx.scene.SubScene;
+import javafx.scene.control.Label;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
+import javafx.scene.transform.Translate;
 
 public abstract class Abstract3DView extends AbstractPlanView<Abstract3DRepresentation, Abstract3DAncillaryObject> {
     protected static double mMinNearClip = CoordinateUtils.lengthToCoords(Length.ofCM(50), null);
@@ -59,6 +67,22 @@ public abstract class Abstract3DView extends AbstractPlanView<Abstract3DRepresen
     protected PerspectiveCamera mCamera;
     protected SubScene mSubScene;
 
+    protected MaterialBatchingManager mMaterialBatchingManager = null;
+    protected LevelOfDetailConfiguration mLevelOfDetailConfiguration = LevelOfDetailConfiguration.createDefault();
+    protected boolean mLevelsOfDetailUpdateScheduled = false;
+    protected VisibilityCullingManager mVisibilityCullingManager = null;
+    protected boolean mVisibilityCullingScheduled = false;
+    protected final Label mCullingInfoLabel = new Label();
+    protected PickingManager mPickingManager = null;
+
+    protected final InvalidationListener CAMERA_CHANGE_LISTENER = observable -> {
+        scheduleLevelsOfDetailUpdate();
+        scheduleVisibilityCulling();
+        if (mPickingManager != null) {
+            mPickingManager.scheduleRepick();
+        }
+    };
+
     protected Abstract3DView(UiController uiController) {
         super(uiController);
         mCenterPane = new Pane();
@@ -82,6 +106,46 @@ public abstract class Abstract3DView extends AbstractPlanView<Abstract3DRepresen
         return mRepresentationsById;
     }
 
+    /**
+     * Gets the manager of the material batching rendering mode, if that mode is enabled.
+     */
+    public MaterialBatchingManager getMaterialBatchingManager() {
+        return mMaterialBatchingManager;
+    }
+
+    /**
+     * Gets the geometry of the current plan which is shared between all 3D views.
+     */
+    public SharedPlanGeometry getSharedPlanGeometry() {
+        return mUiController.getSharedPlanGeometry();
+    }
+
+    public LevelOfDetailConfiguration getLevelOfDetailConfiguration() {
+        return mLevelOfDetailConfiguration;
+    }
+
+    /**
+     * Gets the visibility culling of this view, if culling is enabled.
+     */
+    public VisibilityCullingManager getVisibilityCullingManager() {
+        return mVisibilityCullingManager;
+    }
+
+    /**
+     * Gets the picking of this view, which resolves the object surface under the mouse cursor.
+     */
+    public PickingManager getPickingManager() {
+        return mPickingManager;
+    }
+
+    public PerspectiveCamera getCamera() {
+        return mCamera;
+    }
+
+    public SubScene getSubScene() {
+        return mSubScene;
+    }
+
     @Override
     public boolean canClose() {
         return true;
@@ -120,16 +184,137 @@ public abstract class Abstract3DView extends AbstractPlanView<Abstract3DRepresen
 
         mRepresentationsById.clear();
 
+        mLevelOfDetailConfiguration = LevelOfDetailConfiguration.load(mUiController.getConfiguration());
+        if (mUiController.getConfiguration().getBoolean(MaterialBatchingManager.KEY_MATERIAL_BATCHING_ENABLED, MaterialBatchingManager.DEFAULT_MATERIAL_BATCHING_ENABLED)) {
+            mMaterialBatchingManager = new MaterialBatchingManager(this);
+            mTransformedRoot.getChildren().add(mMaterialBatchingManager.getBatchesGroup());
+        }
+        if (mUiController.getConfiguration().getBoolean(VisibilityCullingManager.KEY_CULLING_ENABLED, VisibilityCullingManager.DEFAULT_CULLING_ENABLED)) {
+            mVisibilityCullingManager = new VisibilityCullingManager(this, mUiController.getConfiguration().getBoolean(
+                VisibilityCullingManager.KEY_ROOM_OCCLUSION_ENABLED, VisibilityCullingManager.DEFAULT_ROOM_OCCLUSION_ENABLED));
+            mCullingInfoLabel.setText("");
+            setBottom(mCullingInfoLabel);
+        }
+        mPickingManager = new PickingManager(this);
+        mPickingManager.install();
+
         super.initialize();
 
         ObservableList<Node> children = mCenterPane.getChildren();
         children.add(mSubScene);
 
         initializeLight();
+        installCameraChangeListeners();
+        scheduleLevelsOfDetailUpdate();
+        scheduleVisibilityCulling();
+    }
+
+    protected void installCameraChangeListeners() {
+        // Our camera is fixed, the view position is changed by transforming the root group
+        mCamera.translateZProperty().addListener(CAMERA_CHANGE_LISTENER);
+        mCamera.fieldOfViewProperty().addListener(CAMERA_CHANGE_LISTENER);
+        mTransformedRoot.getXRotate().angleProperty().addListener(CAMERA_CHANGE_LISTENER);
+        mTransformedRoot.getZRotate().angleProperty().addListener(CAMERA_CHANGE_LISTENER);
+        Translate translate = mTransformedRoot.getTranslate();
+        translate.xProperty().addListener(CAMERA_CHANGE_LISTENER);
+        translate.yProperty().addListener(CAMERA_CHANGE_LISTENER);
+        translate.zProperty().addListener(CAMERA_CHANGE_LISTENER);
+        mSubScene.heightProperty().addListener(CAMERA_CHANGE_LISTENER);
+        mSubScene.widthProperty().addListener(CAMERA_CHANGE_LISTENER);
+        mCamera.nearClipProperty().addListener(CAMERA_CHANGE_LISTENER);
+        mCamera.farClipProperty().addListener(CAMERA_CHANGE_LISTENER);
+    }
+
+    /**
+     * Schedules an update of the levels of detail of all objects. Multiple calls during the same pulse are coalesced.
+     */
+    public void scheduleLevelsOfDetailUpdate() {
+        if (mLevelsOfDetailUpdateScheduled || !mLevelOfDetailConfiguration.isEnabled()) {
+            return;
+        }
+        mLevelsOfDetailUpdateScheduled = true;
+        Platform.runLater(() -> {
+            mLevelsOfDetailUpdateScheduled = false;
+            updateLevelsOfDetail();
+        });
+    }
+
+    /**
+     * Chooses the level of detail of each object with multiple levels by its projected size on the screen.
+     */
+    protected void updateLevelsOfDetail() {
+        if (!isAlive() || !mLevelOfDetailConfiguration.isEnabled()) {
+            return;
+        }
+        double viewportHeight = mSubScene.getHeight();
+        if (viewportHeight <= 0) {
+            return;
+        }
+        // Field of view is vertical by default
+        double fovRad = Math.toRadians(mCamera.getFieldOfView());
+        double projectionFactor = viewportHeight / (2 * Math.tan(fovRad / 2));
+        double cameraZ = mCamera.getTranslateZ();
+        for (Abstract3DRepresentation repr : mRepresentationsById.values()) {
+            if (!(repr instanceof SupportObject3DRepresentation sor) || !sor.hasLevelsOfDetail()) {
+                continue;
+            }
+            // Bounds in sub scene coordinates, which is the coordinate system of the camera
+            Bounds bounds = sor.localToScene(sor.getBoundsInLocal());
+            double size = Math.max(bounds.getWidth(), Math.max(bounds.getHeight(), bounds.getDepth()));
+            double distance = (bounds.getMinZ() + bounds.getMaxZ()) / 2 - cameraZ;
+            int level;
+            if (distance <= size / 2) {
+                // Camera is very near to or inside the object
+                level = 0;
+            } else {
+                level = mLevelOfDetailConfiguration.calculateLevel(size * projectionFactor / distance);
+            }
+            if (sor.getLevelOfDetail() != level) {
+                sor.setLevelOfDetail(level);
+                mPickingManager.invalidate(sor);
+            }
+        }
+    }
+
+    /**
+     * Schedules a visibility culling pass over all objects. Multiple calls during the same pulse are coalesced.
+     */
+    public void scheduleVisibilityCulling() {
+        if (mVisibilityCullingScheduled || mVisibilityCullingManager == null) {
+            return;
+        }
+        mVisibilityCullingScheduled = true;
+        Platform.runLater(() -> {
+            mVisibilityCullingScheduled = false;
+            if (isAlive() && mVisibilityCullingManager != null) {
+                mVisibilityCullingManager.update();
+                updateCullingInfo();
+            }
+        });
+    }
+
+    protected void updateCullingInfo() {
+        VisibilityCullingManager vcm = mVisibilityCullingManager;
+        mCullingInfoLabel.setText(vcm.isRoomOcclusionEnabled()
+                ? MessageFormat.format(Strings.THREE_D_CULLING_INFO_WITH_OCCLUSION_PATTERN, vcm.getNumCulled(), vcm.getNumObjects(), vcm.getNumOccluded())
+                : MessageFormat.format(Strings.THREE_D_CULLING_INFO_PATTERN, vcm.getNumCulled(), vcm.getNumObjects()));
     }
 
     @Override
     protected void uninitialize() {
+        if (mPickingManager != null) {
+            mPickingManager.dispose();
+            mPickingManager = null;
+        }
+        if (mVisibilityCullingManager != null) {
+            mVisibilityCullingManager.dispose();
+            mVisibilityCullingManager = null;
+            setBottom(null);
+        }
+        if (mMaterialBatchingManager != null) {
+            mMaterialBatchingManager.dispose();
+            mMaterialBatchingManager = null;
+        }
         super.uninitialize();
         mRootGroup = null;
         mTransformedRoot = null;
@@ -157,9 +342,35 @@ public abstract class Abstract3DView extends AbstractPlanView<Abstract3DRepresen
             }
         }
         children.addAll(reprs);
+        for (Abstract3DRepresentation repr : reprs) {
+            mPickingManager.invalidate(repr);
+        }
+        scheduleLevelsOfDetailUpdate();
+        scheduleVisibilityCulling();
+        if (mMaterialBatchingManager != null) {
+            mMaterialBatchingManager.scheduleRebuild();
+        }
         return reprs;
     }
 
+    @Override
+    protected void uiRepresentationsChanged(Collection<Abstract3DRepresentation> changedReprs) {
+        super.uiRepresentationsChanged(changedReprs);
+        scheduleLevelsOfDetailUpdate();
+        for (Abstract3DRepresentation repr : changedReprs) {
+            mPickingManager.invalidate(repr);
+        }
+        if (mVisibilityCullingManager != null) {
+            for (Abstract3DRepresentation repr : changedReprs) {
+                mVisibilityCullingManager.invalidate(repr);
+            }
+            scheduleVisibilityCulling();
+        }
+        if (mMaterialBatchingManager != null) {
+            mMaterialBatchingManager.objectsEdited(changedReprs);
+        }
+    }
+
     @Override
     protected Collection<Abstract3DRepresentation> doRemoveUIRepresentations(Collection<? extends BaseObject> removedObjects) {
         Collection<Abstract3DRepresentation> result = new ArrayList<>(removedObjects.size());
@@ -171,8 +382,16 @@ public abstract class Abstract3DView extends AbstractPlanView<Abstract3DRepresen
             }
             children.remove(objRepr);
             objRepr.dispose();
+            mPickingManager.remove(objRepr);
+            if (mVisibilityCullingManager != null) {
+                mVisibilityCullingManager.invalidate(objRepr);
+            }
             result.add(objRepr);
         }
+        scheduleVisibilityCulling();
+        if (mMaterialBatchingManager != null) {
+            mMaterialBatchingManager.scheduleRebuild();
+        }
         return result;
     }
 
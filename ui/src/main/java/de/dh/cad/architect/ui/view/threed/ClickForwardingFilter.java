@@ -0,0 +1,63 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.ui.view.threed;
+
+import java.util.function.Function;
+
+import javafx.event.Event;
+import javafx.event.EventHandler;
+import javafx.scene.Node;
+import javafx.scene.input.MouseEvent;
+
+/**
+ * Mouse event filter which dispatches mouse clicks to a node which was resolved by our own picking, like JavaFX would
+ * do if it had picked that node itself.
+ * The filter is installed at an ancestor of the possible target nodes. The forwarded event passes all parents of the target
+ * node, so it also passes this filter again; forwarded events are let through while the original event is consumed.
+ */
+public class ClickForwardingFilter implements EventHandler<MouseEvent> {
+    protected final Function<MouseEvent, ? extends Node> mTargetResolver;
+    protected boolean mForwarding = false;
+
+    /**
+     * Creates a filter which forwards each click to the node returned by the given resolver.
+     * If the resolver returns {@code null}, the click is left to the normal JavaFX event dispatching.
+     */
+    public ClickForwardingFilter(Function<MouseEvent, ? extends Node> targetResolver) {
+        mTargetResolver = targetResolver;
+    }
+
+    @Override
+    public void handle(MouseEvent event) {
+        if (mForwarding) {
+            // Event forwarded by us
+            return;
+        }
+        Node target = mTargetResolver.apply(event);
+        if (target == null) {
+            return;
+        }
+        mForwarding = true;
+        try {
+            Event.fireEvent(target, event.copyFor(target, target));
+        } finally {
+            mForwarding = false;
+        }
+        event.consume();
+    }
+}
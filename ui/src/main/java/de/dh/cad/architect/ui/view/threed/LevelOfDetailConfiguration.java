@@ -0,0 +1,138 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.ui.view.threed;
+
+import java.util.Arrays;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.dh.cad.architect.ui.IConfig;
+
+/**
+ * Configuration of the level of detail (LOD) handling for support objects in the 3D view.
+ * Level 0 is the full resolution model, each further level is a coarser, decimated version of it.
+ * The level to show is chosen by the projected size of the object on the screen: If the object's projected
+ * size in pixels falls below {@link #getScreenSizeThresholds() screen size threshold} {@code i}, level {@code i + 1}
+ * is shown.
+ */
+public class LevelOfDetailConfiguration {
+    private static final Logger log = LoggerFactory.getLogger(LevelOfDetailConfiguration.class);
+
+    public static final String KEY_LOD_ENABLED = "ThreeDView.Lod.Enabled";
+    public static final String KEY_LOD_SCREEN_SIZE_THRESHOLDS = "ThreeDView.Lod.ScreenSizeThresholds";
+    public static final String KEY_LOD_GRID_RESOLUTIONS = "ThreeDView.Lod.GridResolutions";
+    public static final String KEY_LOD_MIN_FACES = "ThreeDView.Lod.MinFaces";
+
+    public static final boolean DEFAULT_LOD_ENABLED = true;
+    public static final double[] DEFAULT_SCREEN_SIZE_THRESHOLDS = new double[] {250, 80};
+    public static final int[] DEFAULT_GRID_RESOLUTIONS = new int[] {48, 16};
+    public static final int DEFAULT_MIN_FACES = 2000;
+
+    protected final boolean mEnabled;
+    protected final double[] mScreenSizeThresholds;
+    protected final int[] mGridResolutions;
+    protected final int mMinFaces;
+
+    public LevelOfDetailConfiguration(boolean enabled, double[] screenSizeThresholds, int[] gridResolutions, int minFaces) {
+        if (screenSizeThresholds.length != gridResolutions.length) {
+            throw new IllegalArgumentException("Number of LOD screen size thresholds must match the number of LOD grid resolutions");
+        }
+        mEnabled = enabled;
+        mScreenSizeThresholds = screenSizeThresholds;
+        mGridResolutions = gridResolutions;
+        mMinFaces = minFaces;
+    }
+
+    public static LevelOfDetailConfiguration createDefault() {
+        return new LevelOfDetailConfiguration(DEFAULT_LOD_ENABLED, DEFAULT_SCREEN_SIZE_THRESHOLDS, DEFAULT_GRID_RESOLUTIONS, DEFAULT_MIN_FACES);
+    }
+
+    public static LevelOfDetailConfiguration load(IConfig config) {
+        boolean enabled = config.getBoolean(KEY_LOD_ENABLED, DEFAULT_LOD_ENABLED);
+        int minFaces = config.getInt(KEY_LOD_MIN_FACES, DEFAULT_MIN_FACES);
+        String thresholdsStr = config.getString(KEY_LOD_SCREEN_SIZE_THRESHOLDS, null);
+        String resolutionsStr = config.getString(KEY_LOD_GRID_RESOLUTIONS, null);
+        double[] thresholds = DEFAULT_SCREEN_SIZE_THRESHOLDS;
+        int[] resolutions = DEFAULT_GRID_RESOLUTIONS;
+        if (!StringUtils.isEmpty(thresholdsStr) && !StringUtils.isEmpty(resolutionsStr)) {
+            try {
+                double[] t = Arrays.stream(thresholdsStr.split(",")).map(String::trim).mapToDouble(Double::parseDouble).toArray();
+                int[] r = Arrays.stream(resolutionsStr.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+                if (t.length == r.length) {
+                    thresholds = t;
+                    resolutions = r;
+                } else {
+                    log.warn("Number of LOD screen size thresholds doesn't match the number of LOD grid resolutions, using defaults");
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Invalid LOD configuration, using defaults", e);
+            }
+        }
+        return new LevelOfDetailConfiguration(enabled, thresholds, resolutions, minFaces);
+    }
+
+    public void save(IConfig config) {
+        config.setBoolean(KEY_LOD_ENABLED, mEnabled);
+        config.setInt(KEY_LOD_MIN_FACES, mMinFaces);
+        config.setString(KEY_LOD_SCREEN_SIZE_THRESHOLDS, StringUtils.join(Arrays.stream(mScreenSizeThresholds).boxed().toArray(), ","));
+        config.setString(KEY_LOD_GRID_RESOLUTIONS, StringUtils.join(Arrays.stream(mGridResolutions).boxed().toArray(), ","));
+    }
+
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+
+    /**
+     * Gets the projected object sizes in pixels below which the next coarser level is used, in descending order.
+     */
+    public double[] getScreenSizeThresholds() {
+        return mScreenSizeThresholds;
+    }
+
+    /**
+     * Gets the vertex clustering grid resolutions of the decimated levels 1..n, in descending order.
+     */
+    public int[] getGridResolutions() {
+        return mGridResolutions;
+    }
+
+    /**
+     * Gets the minimum number of faces of a mesh to be considered for decimation. Smaller meshes are always
+     * shown in full resolution.
+     */
+    public int getMinFaces() {
+        return mMinFaces;
+    }
+
+    public int getNumLevels() {
+        return mGridResolutions.length + 1;
+    }
+
+    /**
+     * Calculates the level of detail to be used for an object of the given projected size.
+     */
+    public int calculateLevel(double projectedSizePx) {
+        int level = 0;
+        while (level < mScreenSizeThresholds.length && projectedSizePx < mScreenSizeThresholds[level]) {
+            level++;
+        }
+        return level;
+    }
+}
@@ -0,0 +1,574 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.ui.view.threed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.dh.cad.architect.ui.objects.Abstract3DRepresentation;
+import de.dh.cad.architect.ui.objects.AbstractSolid3DRepresentation;
+import de.dh.cad.architect.ui.objects.SupportObject3DRepresentation;
+import de.dh.cad.architect.ui.objects.SurfaceData;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.geometry.Point3D;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.CullFace;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.Shape3D;
+import javafx.scene.shape.TriangleMesh;
+import javafx.scene.shape.VertexFormat;
+import javafx.scene.transform.Transform;
+import javafx.util.Duration;
+
+/**
+ * Optional rendering mode of the 3D view which reduces the number of scene graph nodes and draw calls.
+ * All static surfaces which share the same material appearance and cull face are merged into a single {@link TriangleMesh}
+ * per material and cull face.
+ * The original surface shapes are kept in the scene graph but are made invisible while they are part of a batch.
+ *
+ * Surfaces of objects which are selected, hovered, recently edited or which switch their levels of detail are not batched.
+ * The batch meshes are mouse transparent; the {@link PickingManager} resolves the original surfaces under the mouse cursor,
+ * also if they are currently hidden in a batch. When the mouse moves over an object, it gets the mouse-over state
+ * and is split out of its batches, thus all behaviors keep working on the original shapes.
+ *
+ * State changes of single objects don't rebuild the batches: The faces of an object which is split out are only masked
+ * in the batch meshes of its materials (they are replaced by degenerated faces) and restored when the object can be batched again,
+ * so the cost of a hover or selection change only depends on the size of the object. The batches are compacted by
+ * a full {@link #rebuild()} when objects are added or removed and after edits.
+ *
+ * Objects which are {@link Abstract3DRepresentation#isCulled() culled} by the {@link VisibilityCullingManager} stay members of
+ * their batches but are masked, thus visibility culling also reduces the faces to be rendered in batching mode.
+ * Batches whose members are all masked are hidden.
+ */
+public class MaterialBatchingManager {
+    private static final Logger log = LoggerFactory.getLogger(MaterialBatchingManager.class);
+
+    public static final String KEY_MATERIAL_BATCHING_ENABLED = "ThreeDView.MaterialBatching.Enabled";
+    public static final boolean DEFAULT_MATERIAL_BATCHING_ENABLED = false;
+
+    /**
+     * Time without changes after which edited objects are merged into batches again.
+     */
+    protected static final Duration EDIT_IDLE_DURATION = Duration.seconds(1);
+
+    /**
+     * Identifies the appearance of a material. Two surfaces can be merged if their materials look the same,
+     * even if they are represented by different {@link PhongMaterial} instances.
+     */
+    protected static record MaterialKey(Color diffuseColor, Color specularColor, double specularPower,
+        Image diffuseMap, Image specularMap, Image bumpMap, Image selfIlluminationMap) {
+        public static MaterialKey of(PhongMaterial material) {
+            return new MaterialKey(material.getDiffuseColor(), material.getSpecularColor(), material.getSpecularPower(),
+                material.getDiffuseMap(), material.getSpecularMap(), material.getBumpMap(), material.getSelfIlluminationMap());
+        }
+
+        public PhongMaterial createMaterial() {
+            PhongMaterial result = new PhongMaterial(diffuseColor, diffuseMap, specularMap, bumpMap, selfIlluminationMap);
+            result.setSpecularColor(specularColor);
+            result.setSpecularPower(specularPower);
+            return result;
+        }
+    }
+
+    /**
+     * Identifies the surfaces which can be merged into the same batch mesh.
+     */
+    protected static record BatchKey(MaterialKey materialKey, CullFace cullFace) {
+        public static BatchKey of(MeshView meshView) {
+            return new BatchKey(MaterialKey.of((PhongMaterial) meshView.getMaterial()), meshView.getCullFace());
+        }
+    }
+
+    protected static class Batch {
+        protected final BatchKey mKey;
+        protected final MeshView mMeshView;
+        protected List<SurfaceData<? extends Shape3D>> mMembers = new ArrayList<>();
+        protected Map<SurfaceData<? extends Shape3D>, Integer> mMemberIndices = new HashMap<>();
+        protected final Set<SurfaceData<? extends Shape3D>> mMaskedMembers = new HashSet<>();
+        protected int[] mMemberFaceOffsets = new int[0]; // Index of the first face of each member in the batch mesh
+        protected int[] mFaces = new int[0]; // Unmasked faces of the batch mesh
+
+        public Batch(BatchKey key) {
+            mKey = key;
+            mMeshView = new MeshView();
+            mMeshView.setMaterial(key.materialKey().createMaterial());
+            mMeshView.setCullFace(key.cullFace());
+            mMeshView.setMouseTransparent(true);
+        }
+
+        public MeshView getMeshView() {
+            return mMeshView;
+        }
+
+        public List<SurfaceData<? extends Shape3D>> getMembers() {
+            return mMembers;
+        }
+
+        /**
+         * Finds the surface which contributed the given face of the batch mesh.
+         */
+        public SurfaceData<? extends Shape3D> findSurfaceByFace(int faceIndex) {
+            if (faceIndex < 0 || mMembers.isEmpty()) {
+                return null;
+            }
+            int pos = Arrays.binarySearch(mMemberFaceOffsets, faceIndex);
+            if (pos < 0) {
+                pos = -pos - 2;
+            }
+            return pos < 0 ? null : mMembers.get(pos);
+        }
+
+        /**
+         * Hides or shows the faces of the given member in the batch mesh without touching the faces of the other members.
+         */
+        public void setMasked(SurfaceData<? extends Shape3D> surface, boolean masked) {
+            if (masked ? !mMaskedMembers.add(surface) : !mMaskedMembers.remove(surface)) {
+                return;
+            }
+            int m = mMemberIndices.get(surface);
+            int start = mMemberFaceOffsets[m] * 6;
+            int end = m + 1 < mMemberFaceOffsets.length ? mMemberFaceOffsets[m + 1] * 6 : mFaces.length;
+            TriangleMesh mesh = (TriangleMesh) mMeshView.getMesh();
+            if (masked) {
+                // Degenerated faces which only reference the first point are not rendered
+                mesh.getFaces().set(start, new int[end - start], 0, end - start);
+            } else {
+                mesh.getFaces().set(start, mFaces, start, end - start);
+            }
+            updateVisibility();
+        }
+
+        /**
+         * Hides the batch mesh if all members are masked.
+         */
+        public void updateVisibility() {
+            mMeshView.setVisible(mMaskedMembers.size() < mMembers.size());
+        }
+    }
+
+    protected final Abstract3DView mView;
+    protected final Group mBatchesGroup = new Group();
+    protected final Map<BatchKey, Batch> mBatches = new HashMap<>();
+    protected final Map<SurfaceData<? extends Shape3D>, Batch> mSurfaceBatches = new HashMap<>();
+    protected final Map<Abstract3DRepresentation, ChangeListener<Boolean>> mObservedRepresentations = new HashMap<>();
+    protected final Set<Abstract3DRepresentation> mEditedRepresentations = new HashSet<>();
+    protected final Set<Abstract3DRepresentation> mChangedRepresentations = new HashSet<>();
+    protected final PauseTransition mEditIdleTimer = new PauseTransition(EDIT_IDLE_DURATION);
+    protected boolean mRebuildScheduled = false;
+    protected boolean mUpdateScheduled = false;
+
+    public MaterialBatchingManager(Abstract3DView view) {
+        mView = view;
+        mEditIdleTimer.setOnFinished(event -> {
+            mEditedRepresentations.clear();
+            scheduleRebuild();
+        });
+    }
+
+    /**
+     * Gets the node which contains the batch meshes. This node must be added to the transformed root of the 3D view.
+     */
+    public Group getBatchesGroup() {
+        return mBatchesGroup;
+    }
+
+    public int getNumBatches() {
+        return mBatches.size();
+    }
+
+    public int getNumBatchedSurfaces() {
+        int result = 0;
+        for (Batch batch : mBatches.values()) {
+            result += batch.getMembers().size() - batch.mMaskedMembers.size();
+        }
+        return result;
+    }
+
+    /**
+     * Splits the given objects out of their batches until no more changes happened for some time.
+     */
+    public void objectsEdited(Collection<? extends Abstract3DRepresentation> reprs) {
+        if (reprs.isEmpty()) {
+            return;
+        }
+        mEditedRepresentations.addAll(reprs);
+        mEditIdleTimer.playFromStart();
+        for (Abstract3DRepresentation repr : reprs) {
+            representationChanged(repr);
+        }
+    }
+
+    /**
+     * Schedules an update of the batch state of the given object. Multiple calls during the same pulse are coalesced.
+     */
+    protected void representationChanged(Abstract3DRepresentation repr) {
+        mChangedRepresentations.add(repr);
+        if (mUpdateScheduled) {
+            return;
+        }
+        mUpdateScheduled = true;
+        Platform.runLater(() -> {
+            mUpdateScheduled = false;
+            if (mView.isAlive()) {
+                updateChangedRepresentations();
+            }
+        });
+    }
+
+    /**
+     * Schedules a re-computation of all batches. Multiple calls during the same pulse are coalesced.
+     */
+    public void scheduleRebuild() {
+        if (mRebuildScheduled) {
+            return;
+        }
+        mRebuildScheduled = true;
+        Platform.runLater(() -> {
+            mRebuildScheduled = false;
+            if (mView.isAlive()) {
+                rebuild();
+            }
+        });
+    }
+
+    /**
+     * Makes all original surfaces visible again and removes all batches.
+     */
+    public void dispose() {
+        mEditIdleTimer.stop();
+        for (Batch batch : mBatches.values()) {
+            for (SurfaceData<? extends Shape3D> surface : batch.getMembers()) {
+                surface.getShape().setVisible(true);
+            }
+        }
+        mBatches.clear();
+        mSurfaceBatches.clear();
+        mBatchesGroup.getChildren().clear();
+        for (Entry<Abstract3DRepresentation, ChangeListener<Boolean>> entry : mObservedRepresentations.entrySet()) {
+            removeStateListener(entry.getKey(), entry.getValue());
+        }
+        mObservedRepresentations.clear();
+        mEditedRepresentations.clear();
+        mChangedRepresentations.clear();
+    }
+
+    protected void addStateListener(Abstract3DRepresentation repr) {
+        ChangeListener<Boolean> listener = (observable, oldValue, newValue) -> representationChanged(repr);
+        repr.selectedProperty().addListener(listener);
+        repr.mouseOverProperty().addListener(listener);
+        repr.shownProperty().addListener(listener);
+        repr.culledProperty().addListener(listener);
+        mObservedRepresentations.put(repr, listener);
+    }
+
+    protected void removeStateListener(Abstract3DRepresentation repr, ChangeListener<Boolean> listener) {
+        repr.selectedProperty().removeListener(listener);
+        repr.mouseOverProperty().removeListener(listener);
+        repr.shownProperty().removeListener(listener);
+        repr.culledProperty().removeListener(listener);
+    }
+
+    protected boolean isBatchable(AbstractSolid3DRepresentation repr) {
+        // Culling state is not relevant here, culled objects stay in their batches and are only masked
+        if (!repr.isShown() || repr.isSelected() || repr.isMouseOver() || repr.isObjectSpotted() || repr.getSpottedSurface() != null) {
+            return false;
+        }
+        if (mEditedRepresentations.contains(repr)) {
+            return false;
+        }
+        // Objects with levels of detail exchange their meshes when the camera moves
+        return !(repr instanceof SupportObject3DRepresentation sor && sor.hasLevelsOfDetail());
+    }
+
+    protected static boolean isBatchable(SurfaceData<? extends Shape3D> surface) {
+        Shape3D shape = surface.getShape();
+        if (!(shape instanceof MeshView meshView)) {
+            return false;
+        }
+        return meshView.getMesh() instanceof TriangleMesh mesh && mesh.getVertexFormat() == VertexFormat.POINT_TEXCOORD
+                        && mesh.getFaces().size() > 0
+                        && meshView.getMaterial() instanceof PhongMaterial;
+    }
+
+    protected boolean isBatchable(SurfaceData<? extends Shape3D> surface, Batch batch) {
+        return isBatchable(surface) && batch.mKey.equals(BatchKey.of((MeshView) surface.getShape()));
+    }
+
+    /**
+     * Updates the batch state of the objects whose state changed since the last call. Objects which cannot be batched
+     * at the moment or which are culled are masked in their batches, objects which can be batched again are unmasked or appended
+     * to the existing batch of their material and cull face. Only the batch faces of the changed objects are touched; appending a surface refills its batch.
+     */
+    protected void updateChangedRepresentations() {
+        if (mChangedRepresentations.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        Map<Batch, List<SurfaceData<? extends Shape3D>>> newMembers = new LinkedHashMap<>();
+        for (Abstract3DRepresentation repr : mChangedRepresentations) {
+            if (!mObservedRepresentations.containsKey(repr) || !(repr instanceof AbstractSolid3DRepresentation solidRepr)) {
+                continue;
+            }
+            boolean batchableRepr = isBatchable(solidRepr);
+            for (SurfaceData<? extends Shape3D> surface : solidRepr.getSurfaces()) {
+                Batch batch = mSurfaceBatches.get(surface);
+                if (batch == null && batchableRepr && isBatchable(surface)) {
+                    batch = mBatches.get(BatchKey.of((MeshView) surface.getShape()));
+                    if (batch != null) {
+                        if (solidRepr.isCulled()) {
+                            // Stays masked when the batch is refilled
+                            batch.mMaskedMembers.add(surface);
+                        }
+                        newMembers.computeIfAbsent(batch, b -> new ArrayList<>()).add(surface);
+                        continue;
+                    }
+                }
+                if (batch == null) {
+                    // Not batched, single surfaces are merged by the next rebuild
+                    surface.getShape().setVisible(true);
+                    continue;
+                }
+                boolean batched = batchableRepr && isBatchable(surface, batch);
+                batch.setMasked(surface, !batched || solidRepr.isCulled());
+                surface.getShape().setVisible(!batched);
+            }
+        }
+        mChangedRepresentations.clear();
+        for (Entry<Batch, List<SurfaceData<? extends Shape3D>>> entry : newMembers.entrySet()) {
+            Batch batch = entry.getKey();
+            List<SurfaceData<? extends Shape3D>> members = new ArrayList<>(batch.getMembers());
+            members.addAll(entry.getValue());
+            fillBatch(batch, members);
+            for (SurfaceData<? extends Shape3D> surface : entry.getValue()) {
+                surface.getShape().setVisible(false);
+            }
+        }
+        log.trace("Material batches updated in " + (System.nanoTime() - start) / 1000 + " µs");
+    }
+
+    /**
+     * Re-computes the batches from the current state of the object representations of our view.
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        mChangedRepresentations.clear();
+        Map<BatchKey, List<SurfaceData<? extends Shape3D>>> grouping = new LinkedHashMap<>();
+        Set<SurfaceData<? extends Shape3D>> culledSurfaces = new HashSet<>();
+        Set<Abstract3DRepresentation> currentRepresentations = new HashSet<>();
+        for (Abstract3DRepresentation repr : mView.getAllRepresentations()) {
+            currentRepresentations.add(repr);
+            if (!mObservedRepresentations.containsKey(repr)) {
+                addStateListener(repr);
+            }
+            if (!(repr instanceof AbstractSolid3DRepresentation solidRepr)) {
+                continue;
+            }
+            boolean batchableRepr = isBatchable(solidRepr);
+            for (SurfaceData<? extends Shape3D> surface : solidRepr.getSurfaces()) {
+                if (batchableRepr && isBatchable(surface)) {
+                    BatchKey key = BatchKey.of((MeshView) surface.getShape());
+                    grouping.computeIfAbsent(key, k -> new ArrayList<>()).add(surface);
+                    if (solidRepr.isCulled()) {
+                        culledSurfaces.add(surface);
+                    }
+                } else {
+                    surface.getShape().setVisible(true);
+                }
+            }
+        }
+        for (Abstract3DRepresentation repr : new ArrayList<>(mObservedRepresentations.keySet())) {
+            if (!currentRepresentations.contains(repr)) {
+                removeStateListener(repr, mObservedRepresentations.remove(repr));
+                mEditedRepresentations.remove(repr);
+            }
+        }
+
+        // Remove obsolete batches
+        for (Batch batch : new ArrayList<>(mBatches.values())) {
+            List<SurfaceData<? extends Shape3D>> members = grouping.get(batch.mKey);
+            if (members == null || members.size() < 2) {
+                for (SurfaceData<? extends Shape3D> surface : batch.getMembers()) {
+                    if (members == null || !members.contains(surface)) {
+                        surface.getShape().setVisible(true);
+                    }
+                }
+                mBatches.remove(batch.mKey);
+                mBatchesGroup.getChildren().remove(batch.getMeshView());
+            }
+        }
+        mSurfaceBatches.clear();
+
+        // Create or update batches
+        for (Entry<BatchKey, List<SurfaceData<? extends Shape3D>>> entry : grouping.entrySet()) {
+            List<SurfaceData<? extends Shape3D>> members = entry.getValue();
+            if (members.size() < 2) {
+                // Nothing to gain
+                members.get(0).getShape().setVisible(true);
+                continue;
+            }
+            BatchKey key = entry.getKey();
+            Batch batch = mBatches.get(key);
+            if (batch == null) {
+                batch = new Batch(key);
+                mBatches.put(key, batch);
+                mBatchesGroup.getChildren().add(batch.getMeshView());
+            } else {
+                for (SurfaceData<? extends Shape3D> surface : batch.getMembers()) {
+                    if (!members.contains(surface)) {
+                        surface.getShape().setVisible(true);
+                    }
+                }
+            }
+            batch.mMaskedMembers.clear();
+            for (SurfaceData<? extends Shape3D> surface : members) {
+                if (culledSurfaces.contains(surface)) {
+                    batch.mMaskedMembers.add(surface);
+                }
+            }
+            fillBatch(batch, members);
+            for (SurfaceData<? extends Shape3D> surface : members) {
+                surface.getShape().setVisible(false);
+            }
+        }
+        log.debug("Material batches rebuilt in " + (System.currentTimeMillis() - start) + " ms: "
+                + mBatches.size() + " batches with " + getNumBatchedSurfaces() + " surfaces");
+    }
+
+    protected Transform getTransformToBatchesRoot(Node shape) {
+        Node batchesRoot = mBatchesGroup.getParent();
+        Transform result = shape.getLocalToParentTransform();
+        Node parent = shape.getParent();
+        while (parent != null && parent != batchesRoot) {
+            // Attention: Matrix multiplication, inverse sequence of transformations
+            result = parent.getLocalToParentTransform().createConcatenation(result);
+            parent = parent.getParent();
+        }
+        return result;
+    }
+
+    /**
+     * Fills the mesh of the given batch with the given members. Members which are masked in the batch stay masked.
+     */
+    protected void fillBatch(Batch batch, List<SurfaceData<? extends Shape3D>> members) {
+        int numPoints = 0;
+        int numTexCoords = 0;
+        int numFaces = 0;
+        for (SurfaceData<? extends Shape3D> surface : members) {
+            TriangleMesh mesh = (TriangleMesh) ((MeshView) surface.getShape()).getMesh();
+            numPoints += mesh.getPoints().size();
+            numTexCoords += mesh.getTexCoords().size();
+            numFaces += mesh.getFaces().size() / 6;
+        }
+        float[] points = new float[numPoints];
+        float[] texCoords = new float[numTexCoords];
+        int[] faces = new int[numFaces * 6];
+        int[] smoothingGroups = new int[numFaces];
+        int[] memberFaceOffsets = new int[members.size()];
+
+        int pointsPos = 0;
+        int texCoordsPos = 0;
+        int facePos = 0;
+        for (int m = 0; m < members.size(); m++) {
+            SurfaceData<? extends Shape3D> surface = members.get(m);
+            MeshView meshView = (MeshView) surface.getShape();
+            TriangleMesh mesh = (TriangleMesh) meshView.getMesh();
+            Transform transform = getTransformToBatchesRoot(meshView);
+            boolean mirrored = transform.determinant() < 0;
+
+            float[] meshPoints = mesh.getPoints().toArray(null);
+            int pointOffset = pointsPos / 3;
+            for (int i = 0; i < meshPoints.length; i += 3) {
+                Point3D p = transform.transform(meshPoints[i], meshPoints[i + 1], meshPoints[i + 2]);
+                points[pointsPos++] = (float) p.getX();
+                points[pointsPos++] = (float) p.getY();
+                points[pointsPos++] = (float) p.getZ();
+            }
+            int texCoordOffset = texCoordsPos / 2;
+            mesh.getTexCoords().copyTo(0, texCoords, texCoordsPos, mesh.getTexCoords().size());
+            texCoordsPos += mesh.getTexCoords().size();
+
+            int[] meshFaces = mesh.getFaces().toArray(null);
+            int[] meshSmoothingGroups = mesh.getFaceSmoothingGroups().toArray(null);
+            int meshNumFaces = meshFaces.length / 6;
+            memberFaceOffsets[m] = facePos;
+            for (int f = 0; f < meshNumFaces; f++) {
+                int i = f * 6;
+                int j = facePos * 6;
+                faces[j] = meshFaces[i] + pointOffset;
+                faces[j + 1] = meshFaces[i + 1] + texCoordOffset;
+                if (mirrored) {
+                    // Mirroring transformations invert the winding order
+                    faces[j + 2] = meshFaces[i + 4] + pointOffset;
+                    faces[j + 3] = meshFaces[i + 5] + texCoordOffset;
+                    faces[j + 4] = meshFaces[i + 2] + pointOffset;
+                    faces[j + 5] = meshFaces[i + 3] + texCoordOffset;
+                } else {
+                    faces[j + 2] = meshFaces[i + 2] + pointOffset;
+                    faces[j + 3] = meshFaces[i + 3] + texCoordOffset;
+                    faces[j + 4] = meshFaces[i + 4] + pointOffset;
+                    faces[j + 5] = meshFaces[i + 5] + texCoordOffset;
+                }
+                smoothingGroups[facePos] = meshSmoothingGroups.length == meshNumFaces ? meshSmoothingGroups[f] : 0;
+                facePos++;
+            }
+        }
+
+        Map<SurfaceData<? extends Shape3D>, Integer> memberIndices = new HashMap<>();
+        for (int m = 0; m < members.size(); m++) {
+            SurfaceData<? extends Shape3D> surface = members.get(m);
+            memberIndices.put(surface, m);
+            mSurfaceBatches.put(surface, batch);
+        }
+        batch.mMaskedMembers.retainAll(memberIndices.keySet());
+        int[] maskedFaces = faces.clone();
+        for (SurfaceData<? extends Shape3D> surface : batch.mMaskedMembers) {
+            int m = memberIndices.get(surface);
+            int end = m + 1 < members.size() ? memberFaceOffsets[m + 1] : numFaces;
+            Arrays.fill(maskedFaces, memberFaceOffsets[m] * 6, end * 6, 0);
+        }
+
+        TriangleMesh batchMesh = new TriangleMesh(VertexFormat.POINT_TEXCOORD);
+        batchMesh.getPoints().setAll(points);
+        batchMesh.getTexCoords().setAll(texCoords);
+        batchMesh.getFaces().setAll(maskedFaces);
+        batchMesh.getFaceSmoothingGroups().setAll(smoothingGroups);
+        batch.getMeshView().setMesh(batchMesh);
+        batch.mMembers = new ArrayList<>(members);
+        batch.mMemberIndices = memberIndices;
+        batch.mMemberFaceOffsets = memberFaceOffsets;
+        batch.mFaces = faces;
+        batch.updateVisibility();
+    }
+}
@@ -0,0 +1,390 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.ui.view.threed;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.dh.cad.architect.ui.objects.Abstract3DRepresentation;
+import de.dh.cad.architect.ui.objects.AbstractSolid3DRepresentation;
+import de.dh.cad.architect.ui.objects.SurfaceData;
+import de.dh.utils.csg.BoundingVolumeHierarchy;
+import de.dh.utils.csg.BoundingVolumeHierarchy.RayHit;
+import de.dh.utils.csg.TriangleMeshBvh;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.event.EventHandler;
+import javafx.geometry.Bounds;
+import javafx.geometry.Point3D;
+import javafx.scene.Node;
+import javafx.scene.PerspectiveCamera;
+import javafx.scene.SubScene;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.PickResult;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.Shape3D;
+import javafx.scene.shape.TriangleMesh;
+import javafx.scene.transform.NonInvertibleTransformException;
+import javafx.scene.transform.Transform;
+
+/**
+ * Resolves the object and the surface under the mouse cursor of a 3D view with a single ray cast.
+ * JavaFX's own picking tests the pick ray against every triangle of every mesh on each mouse move, so the surface meshes
+ * of the object representations are mouse transparent and this class takes over the mouse-over handling and the
+ * dispatching of mouse clicks to the representations.
+ *
+ * Picking uses a two level bounding volume hierarchy: The top level contains an entry per surface of all object representations,
+ * located in the coordinate system of the transformed root of the view. Each entry refers to the hierarchy over the triangles of its mesh,
+ * which is cached per mesh in the {@link SharedPlanGeometry} of the plan. When representations change, only their entries are computed again;
+ * the top level hierarchy is rebuilt lazily before the next ray cast, which is cheap compared to the mesh hierarchies.
+ *
+ * Nodes which are still picked by JavaFX, e.g. anchors, take precedence if they are nearer to the camera than the picked surface.
+ * Triangles are hit from both sides, in contrast to JavaFX, which doesn't pick back faces of culled meshes.
+ */
+public class PickingManager {
+    private static final Logger log = LoggerFactory.getLogger(PickingManager.class);
+
+    protected static class SurfaceEntry {
+        protected final SurfaceData<? extends Shape3D> mSurface;
+        protected final TriangleMeshBvh mMeshBvh;
+        protected final Transform mRootToMesh;
+        protected final Bounds mBoundsInRoot;
+
+        public SurfaceEntry(SurfaceData<? extends Shape3D> surface, TriangleMeshBvh meshBvh, Transform rootToMesh, Bounds boundsInRoot) {
+            mSurface = surface;
+            mMeshBvh = meshBvh;
+            mRootToMesh = rootToMesh;
+            mBoundsInRoot = boundsInRoot;
+        }
+
+        public AbstractSolid3DRepresentation getOwnerRepr() {
+            return mSurface.getOwnerRepr();
+        }
+    }
+
+    protected final Abstract3DView mView;
+    protected final Map<AbstractSolid3DRepresentation, List<SurfaceEntry>> mEntriesByRepresentation = new HashMap<>();
+    protected final Set<AbstractSolid3DRepresentation> mDirtyRepresentations = new HashSet<>();
+    protected final List<SurfaceEntry> mEntries = new ArrayList<>();
+    protected BoundingVolumeHierarchy mHierarchy = null;
+
+    protected final RayHit mRootHit = new RayHit();
+    protected final RayHit mMeshHit = new RayHit();
+
+    protected SurfaceData<? extends Shape3D> mPickedSurface = null;
+    protected final ReadOnlyObjectWrapper<AbstractSolid3DRepresentation> mPickedRepresentationProperty = new ReadOnlyObjectWrapper<>(this, "pickedRepresentation", null);
+
+    protected boolean mMouseInside = false;
+    protected double mLastMouseX = 0;
+    protected double mLastMouseY = 0;
+    protected boolean mRepickScheduled = false;
+
+    protected final EventHandler<MouseEvent> MOUSE_MOVED_FILTER = event -> {
+        mMouseInside = true;
+        mLastMouseX = event.getX();
+        mLastMouseY = event.getY();
+        setPickedSurface(pick(event.getX(), event.getY(), event.getPickResult()));
+    };
+
+    protected final EventHandler<MouseEvent> MOUSE_EXITED_FILTER = event -> {
+        mMouseInside = false;
+        setPickedSurface(null);
+    };
+
+    // Dispatches clicks to the representation like JavaFX would do if it had picked the surface's shape
+    protected final ClickForwardingFilter MOUSE_CLICKED_FILTER = new ClickForwardingFilter(event -> {
+        SurfaceData<? extends Shape3D> surface = pick(event.getX(), event.getY(), event.getPickResult());
+        return surface == null ? null : surface.getOwnerRepr();
+    });
+
+    public PickingManager(Abstract3DView view) {
+        mView = view;
+    }
+
+    /**
+     * Installs the mouse handlers at the sub scene of our view.
+     */
+    public void install() {
+        SubScene subScene = mView.getSubScene();
+        subScene.addEventFilter(MouseEvent.MOUSE_MOVED, MOUSE_MOVED_FILTER);
+        subScene.addEventFilter(MouseEvent.MOUSE_DRAGGED, MOUSE_MOVED_FILTER);
+        subScene.addEventFilter(MouseEvent.MOUSE_EXITED, MOUSE_EXITED_FILTER);
+        subScene.addEventFilter(MouseEvent.MOUSE_CLICKED, MOUSE_CLICKED_FILTER);
+    }
+
+    /**
+     * Removes the mouse handlers, resets the mouse-over state and discards all picking data.
+     */
+    public void dispose() {
+        SubScene subScene = mView.getSubScene();
+        subScene.removeEventFilter(MouseEvent.MOUSE_MOVED, MOUSE_MOVED_FILTER);
+        subScene.removeEventFilter(MouseEvent.MOUSE_DRAGGED, MOUSE_MOVED_FILTER);
+        subScene.removeEventFilter(MouseEvent.MOUSE_EXITED, MOUSE_EXITED_FILTER);
+        subScene.removeEventFilter(MouseEvent.MOUSE_CLICKED, MOUSE_CLICKED_FILTER);
+        setPickedSurface(null);
+        mEntriesByRepresentation.clear();
+        mDirtyRepresentations.clear();
+        mEntries.clear();
+        mHierarchy = null;
+    }
+
+    /**
+     * Gets the representation under the mouse cursor, if any.
+     */
+    public ReadOnlyObjectProperty<AbstractSolid3DRepresentation> pickedRepresentationProperty() {
+        return mPickedRepresentationProperty.getReadOnlyProperty();
+    }
+
+    public AbstractSolid3DRepresentation getPickedRepresentation() {
+        return mPickedRepresentationProperty.get();
+    }
+
+    public SurfaceData<? extends Shape3D> getPickedSurface() {
+        return mPickedSurface;
+    }
+
+    public int getNumSurfaceEntries() {
+        return mEntries.size();
+    }
+
+    /**
+     * Marks the picking data of the given representation to be computed again, must be called when the meshes
+     * or transformations of the representation change.
+     */
+    public void invalidate(Abstract3DRepresentation repr) {
+        if (repr instanceof AbstractSolid3DRepresentation solidRepr) {
+            mDirtyRepresentations.add(solidRepr);
+            mHierarchy = null;
+            scheduleRepick();
+        }
+    }
+
+    /**
+     * Discards the picking data of the given representation, must be called when the representation is removed from our view.
+     */
+    public void remove(Abstract3DRepresentation repr) {
+        if (!(repr instanceof AbstractSolid3DRepresentation solidRepr)) {
+            return;
+        }
+        mDirtyRepresentations.remove(solidRepr);
+        if (mEntriesByRepresentation.remove(solidRepr) != null) {
+            mHierarchy = null;
+        }
+        if (mPickedSurface != null && mPickedSurface.getOwnerRepr() == solidRepr) {
+            setPickedSurface(null);
+        }
+        scheduleRepick();
+    }
+
+    /**
+     * Schedules an update of the mouse-over state at the last mouse position, e.g. after the camera or the objects
+     * under the mouse cursor were moved. Multiple calls during the same pulse are coalesced.
+     */
+    public void scheduleRepick() {
+        if (mRepickScheduled || !mMouseInside) {
+            return;
+        }
+        mRepickScheduled = true;
+        Platform.runLater(() -> {
+            mRepickScheduled = false;
+            if (mView.isAlive() && mMouseInside) {
+                setPickedSurface(pick(mLastMouseX, mLastMouseY, null));
+            }
+        });
+    }
+
+    protected void setPickedSurface(SurfaceData<? extends Shape3D> surface) {
+        SurfaceData<? extends Shape3D> oldSurface = mPickedSurface;
+        if (oldSurface == surface) {
+            return;
+        }
+        mPickedSurface = surface;
+        AbstractSolid3DRepresentation oldRepr = oldSurface == null ? null : oldSurface.getOwnerRepr();
+        AbstractSolid3DRepresentation repr = surface == null ? null : surface.getOwnerRepr();
+        // Same sequence as JavaFX's mouse exited/entered events: Exit surface, exit object, enter object, enter surface
+        if (oldRepr != null) {
+            oldRepr.setMouseOverSurface(null);
+            if (oldRepr != repr) {
+                oldRepr.setMouseOver(false);
+            }
+        }
+        if (repr != null) {
+            repr.setMouseOver(true);
+            repr.setMouseOverSurface(surface);
+        }
+        mPickedRepresentationProperty.set(repr);
+    }
+
+    /**
+     * Finds the surface under the given position of the sub scene.
+     * @param javaFxPickResult Result of JavaFX's picking at the given position, if present. If JavaFX picked a node
+     * in front of our result, {@code null} is returned to leave the mouse handling to that node.
+     */
+    public SurfaceData<? extends Shape3D> pick(double subSceneX, double subSceneY, PickResult javaFxPickResult) {
+        SubScene subScene = mView.getSubScene();
+        PerspectiveCamera camera = mView.getCamera();
+        double width = subScene.getWidth();
+        double height = subScene.getHeight();
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+        ensureHierarchy();
+        if (mHierarchy.getNumPrimitives() == 0) {
+            return null;
+        }
+
+        // The camera is located at (0, 0, cameraZ) in sub scene coordinates and looks into +Z direction,
+        // the center of the view port is located on the camera axis
+        double tanHalfFov = Math.tan(Math.toRadians(camera.getFieldOfView()) / 2);
+        double tanV;
+        double tanH;
+        if (camera.isVerticalFieldOfView()) {
+            tanV = tanHalfFov;
+            tanH = tanHalfFov * width / height;
+        } else {
+            tanH = tanHalfFov;
+            tanV = tanHalfFov * height / width;
+        }
+        Point3D direction = new Point3D((2 * subSceneX / width - 1) * tanH, (2 * subSceneY / height - 1) * tanV, 1).normalize();
+        Point3D origin = new Point3D(0, 0, camera.getTranslateZ());
+
+        // Ray in coordinates of the transformed root; the ray parameter remains the distance in sub scene coordinates
+        Node transformedRoot = mView.getTransformedRoot();
+        Point3D o = transformedRoot.sceneToLocal(origin);
+        Point3D d = transformedRoot.sceneToLocal(origin.add(direction)).subtract(o);
+        double ox = o.getX(), oy = o.getY(), oz = o.getZ();
+        double dx = d.getX(), dy = d.getY(), dz = d.getZ();
+
+        // Intersections nearer than the near clip plane are not visible
+        double minT = camera.getNearClip() / direction.getZ();
+        double maxT = camera.getFarClip() / direction.getZ();
+
+        mHierarchy.raycast(ox, oy, oz, dx, dy, dz, maxT, (index, currentMaxT) -> {
+            SurfaceEntry entry = mEntries.get(index);
+            AbstractSolid3DRepresentation repr = entry.getOwnerRepr();
+            if (!repr.isVisible() || repr.isMouseTransparent()) {
+                return Double.POSITIVE_INFINITY;
+            }
+            Transform rootToMesh = entry.mRootToMesh;
+            Point3D mo = rootToMesh.transform(ox, oy, oz);
+            Point3D md = rootToMesh.deltaTransform(dx, dy, dz);
+            // Skip the part of the ray in front of the near clip plane
+            if (!entry.mMeshBvh.raycast(mo.getX() + md.getX() * minT, mo.getY() + md.getY() * minT, mo.getZ() + md.getZ() * minT,
+                md.getX(), md.getY(), md.getZ(), currentMaxT - minT, mMeshHit)) {
+                return Double.POSITIVE_INFINITY;
+            }
+            return mMeshHit.getT() + minT;
+        }, mRootHit);
+        if (!mRootHit.isHit()) {
+            return null;
+        }
+        if (javaFxPickResult != null) {
+            Node javaFxNode = javaFxPickResult.getIntersectedNode();
+            if (javaFxNode != null && javaFxNode != subScene && javaFxPickResult.getIntersectedDistance() < mRootHit.getT()) {
+                return null;
+            }
+        }
+        return mEntries.get(mRootHit.getPrimitive()).mSurface;
+    }
+
+    protected void ensureHierarchy() {
+        if (mHierarchy != null) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        for (AbstractSolid3DRepresentation repr : mDirtyRepresentations) {
+            if (mView.getRepresentationByModelId(repr.getModelId()) != repr) {
+                mEntriesByRepresentation.remove(repr);
+                continue;
+            }
+            mEntriesByRepresentation.put(repr, createEntries(repr));
+        }
+        int numUpdated = mDirtyRepresentations.size();
+        mDirtyRepresentations.clear();
+
+        mEntries.clear();
+        for (List<SurfaceEntry> entries : mEntriesByRepresentation.values()) {
+            mEntries.addAll(entries);
+        }
+        int numEntries = mEntries.size();
+        double[] bounds = new double[numEntries * 6];
+        for (int i = 0; i < numEntries; i++) {
+            Bounds b = mEntries.get(i).mBoundsInRoot;
+            int pos = i * 6;
+            bounds[pos] = b.getMinX();
+            bounds[pos + 1] = b.getMinY();
+            bounds[pos + 2] = b.getMinZ();
+            bounds[pos + 3] = b.getMaxX();
+            bounds[pos + 4] = b.getMaxY();
+            bounds[pos + 5] = b.getMaxZ();
+        }
+        mHierarchy = BoundingVolumeHierarchy.build(bounds, numEntries);
+        log.debug("Picking hierarchy rebuilt in " + (System.currentTimeMillis() - start) + " ms: "
+                + numEntries + " surfaces, " + numUpdated + " objects updated");
+    }
+
+    protected List<SurfaceEntry> createEntries(AbstractSolid3DRepresentation repr) {
+        List<SurfaceEntry> result = new ArrayList<>();
+        SharedPlanGeometry sharedPlanGeometry = mView.getSharedPlanGeometry();
+        for (SurfaceData<? extends Shape3D> surface : repr.getSurfaces()) {
+            if (!(surface.getShape() instanceof MeshView meshView) || !(meshView.getMesh() instanceof TriangleMesh mesh)
+                    || mesh.getFaces().size() == 0) {
+                continue;
+            }
+            Transform meshToRoot = getTransformToRoot(meshView);
+            if (meshToRoot == null) {
+                continue;
+            }
+            try {
+                Transform rootToMesh = meshToRoot.createInverse();
+                Bounds boundsInRoot = meshToRoot.transform(meshView.getBoundsInLocal());
+                result.add(new SurfaceEntry(surface, sharedPlanGeometry.getMeshBvh(mesh), rootToMesh, boundsInRoot));
+            } catch (NonInvertibleTransformException e) {
+                // Degenerated transformation, e.g. scaled to zero size; such surfaces cannot be hit
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the transformation from the coordinate system of the given shape to the coordinate system of the transformed root
+     * of our view or {@code null}, if the shape is not located below the transformed root.
+     */
+    protected Transform getTransformToRoot(Node shape) {
+        Node root = mView.getTransformedRoot();
+        Transform result = shape.getLocalToParentTransform();
+        Node parent = shape.getParent();
+        while (parent != root) {
+            if (parent == null) {
+                return null;
+            }
+            // Attention: Matrix multiplication, inverse sequence of transformations
+            result = parent.getLocalToParentTransform().createConcatenation(result);
+            parent = parent.getParent();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,280 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.ui.view.threed;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import de.dh.cad.architect.geometry.ObjectMeshes;
+import de.dh.cad.architect.geometry.PlanGeometry;
+import de.dh.cad.architect.model.Plan;
+import de.dh.cad.architect.model.objects.BaseObject;
+import de.dh.utils.Vector2D;
+import de.dh.utils.Vector3D;
+import de.dh.utils.csg.TriangleMeshBvh;
+import de.dh.utils.csg.TriangulationCache;
+import de.dh.utils.io.IndexedMeshData;
+import de.dh.utils.io.fx.FxMeshBuilder;
+import javafx.geometry.Point3D;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.Mesh;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+
+/**
+ * Geometry of the 3D representations of a plan, shared between all 3D views of that plan.
+ * The first 3D representation of a model object computes the meshes, surface sizes and materials of its object
+ * and stores them here, the representations of the same object in other 3D views only attach their own {@link MeshView}
+ * nodes to the shared meshes and materials.
+ * The entries of changed and removed objects are invalidated by the UI controller before the views are notified
+ * about the change. The geometry of a changed object can be reused if its geometry key didn't change, e.g. if only
+ * the material or the visibility of the object was changed.
+ *
+ * The geometry of walls, floors, ceilings and coverings is computed by the UI independent {@link PlanGeometry},
+ * its plain mesh buffers are uploaded to JavaFX meshes here.
+ *
+ * Additionally, the bounding volume hierarchies of the meshes, which are used for picking, are cached here per mesh
+ * instance, thus all 3D views of the plan share them.
+ */
+public class SharedPlanGeometry {
+    /**
+     * Computed geometry of a single model object. The contained meshes and materials must not be modified after
+     * the computation because they are shown in multiple views.
+     */
+    public static class ObjectGeometry {
+        protected final Map<String, Mesh> mMeshes = new HashMap<>(); // Surface type id -> mesh
+        protected final Map<String, Vector2D> mSurfaceSizes = new HashMap<>(); // Surface type id -> surface size
+        protected final Map<String, PhongMaterial> mMaterials = new HashMap<>(); // Surface type id -> material
+        protected double mRotationAngle = 0;
+        protected Point3D mRotationAxis = ROTATION_Z_AXIS;
+        protected Object mGeometryKey = null;
+
+        /**
+         * Gets the key which describes all inputs of the geometry computation or {@code null}, if
+         * the geometry must be computed again after each change of the object.
+         */
+        public Object getGeometryKey() {
+            return mGeometryKey;
+        }
+
+        public void setGeometryKey(Object value) {
+            mGeometryKey = value;
+        }
+
+        /**
+         * Discards the materials, which must be created again, but keeps the geometry.
+         */
+        public void clearMaterials() {
+            mMaterials.clear();
+        }
+
+        public Mesh getMesh(String surfaceTypeId) {
+            return mMeshes.get(surfaceTypeId);
+        }
+
+        public void setMesh(String surfaceTypeId, Mesh mesh) {
+            mMeshes.put(surfaceTypeId, mesh);
+        }
+
+        public Optional<Vector2D> getSurfaceSize(String surfaceTypeId) {
+            return Optional.ofNullable(mSurfaceSizes.get(surfaceTypeId));
+        }
+
+        public void setSurfaceSize(String surfaceTypeId, Vector2D surfaceSize) {
+            mSurfaceSizes.put(surfaceTypeId, surfaceSize);
+        }
+
+        /**
+         * Returns the material of the given surface. The material is created by the given factory on first request.
+         */
+        public PhongMaterial getOrCreateMaterial(String surfaceTypeId, Supplier<PhongMaterial> materialFactory) {
+            return mMaterials.computeIfAbsent(surfaceTypeId, id -> materialFactory.get());
+        }
+
+        /**
+         * Gets the angle of the rotation which must be applied to the meshes of the object.
+         */
+        public double getRotationAngle() {
+            return mRotationAngle;
+        }
+
+        public Point3D getRotationAxis() {
+            return mRotationAxis;
+        }
+
+        public void setRotation(double angle, Point3D axis) {
+            mRotationAngle = angle;
+            mRotationAxis = axis;
+        }
+
+        /**
+         * Uploads the plain mesh buffers, surface sizes and rotation of the given object geometry, which was computed
+         * by the geometry module, to JavaFX meshes.
+         */
+        public void setMeshes(ObjectMeshes objectMeshes) {
+            for (Map.Entry<String, IndexedMeshData> entry : objectMeshes.getMeshes().entrySet()) {
+                setMesh(entry.getKey(), FxMeshBuilder.buildMesh(entry.getValue()));
+            }
+            mSurfaceSizes.putAll(objectMeshes.getSurfaceSizes());
+            Vector3D axis = objectMeshes.getRotationAxis();
+            setRotation(objectMeshes.getRotationAngle(), new Point3D(axis.getX(), axis.getY(), axis.getZ()));
+        }
+    }
+
+    protected static final Point3D ROTATION_Z_AXIS = new Point3D(0, 0, 1);
+
+    protected final Plan mPlan;
+    protected final Map<String, ObjectGeometry> mGeometriesById = new HashMap<>();
+    protected final Map<String, ObjectGeometry> mStaleGeometriesById = new HashMap<>(); // Geometries of changed objects
+    protected final TriangulationCache mTriangulationCache = new TriangulationCache();
+    protected final PlanGeometry mPlanGeometry = new PlanGeometry(mTriangulationCache);
+
+    // Meshes are never modified after their computation, so the hierarchy of a mesh stays valid as long as the mesh is used
+    protected final Map<TriangleMesh, TriangleMeshBvh> mMeshBvhs = new WeakHashMap<>();
+
+    protected long mNumComputations = 0;
+    protected long mNumReuses = 0;
+    protected long mNumRevalidations = 0;
+
+    public SharedPlanGeometry(Plan plan) {
+        mPlan = plan;
+    }
+
+    public Plan getPlan() {
+        return mPlan;
+    }
+
+    /**
+     * Gets the cache for polygon triangulations, shared by the 3D representations of all objects of the plan.
+     */
+    public TriangulationCache getTriangulationCache() {
+        return mTriangulationCache;
+    }
+
+    /**
+     * Gets the UI independent geometry computation of the plan's objects, whose results are uploaded to
+     * JavaFX meshes via {@link ObjectGeometry#setMeshes(ObjectMeshes)}.
+     */
+    public PlanGeometry getPlanGeometry() {
+        return mPlanGeometry;
+    }
+
+    /**
+     * Returns the bounding volume hierarchy of the given mesh for picking, building it on first request.
+     */
+    public TriangleMeshBvh getMeshBvh(TriangleMesh mesh) {
+        TriangleMeshBvh result = mMeshBvhs.get(mesh);
+        int faceStride = mesh.getFaceElementSize();
+        if (result == null || result.getNumPoints() * 3 != mesh.getPoints().size() || result.getNumFaces() * faceStride != mesh.getFaces().size()) {
+            result = new TriangleMeshBvh(mesh.getPoints().toArray(null), mesh.getFaces().toArray(null), faceStride);
+            mMeshBvhs.put(mesh, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the geometry of the object with the given id. If there is no valid geometry for that object, it is computed
+     * by the given computation.
+     */
+    public ObjectGeometry getOrCompute(String objectId, Consumer<ObjectGeometry> computation) {
+        return getOrCompute(objectId, null, computation);
+    }
+
+    /**
+     * Returns the geometry of the object with the given id. If there is no valid geometry for that object, but the
+     * geometry which was computed before the last change of the object has the given geometry key, that geometry is reused
+     * with its materials discarded. Else, the geometry is computed by the given computation.
+     * @param geometryKey Key which describes all inputs of the geometry computation, must implement
+     * {@link Object#equals(Object)}. If {@code null}, the geometry is computed again after each change.
+     */
+    public ObjectGeometry getOrCompute(String objectId, Object geometryKey, Consumer<ObjectGeometry> computation) {
+        ObjectGeometry result = mGeometriesById.get(objectId);
+        if (result != null) {
+            mNumReuses++;
+            return result;
+        }
+        result = mStaleGeometriesById.remove(objectId);
+        if (result != null && geometryKey != null && geometryKey.equals(result.getGeometryKey())) {
+            result.clearMaterials();
+            mGeometriesById.put(objectId, result);
+            mNumRevalidations++;
+            return result;
+        }
+        result = new ObjectGeometry();
+        computation.accept(result);
+        result.setGeometryKey(geometryKey);
+        mGeometriesById.put(objectId, result);
+        mNumComputations++;
+        return result;
+    }
+
+    /**
+     * Marks the geometry of the given objects as stale, must be called when those objects are changed.
+     */
+    public void invalidate(Collection<? extends BaseObject> objects) {
+        for (BaseObject obj : objects) {
+            String id = obj.getId();
+            ObjectGeometry geometry = mGeometriesById.remove(id);
+            if (geometry != null) {
+                mStaleGeometriesById.put(id, geometry);
+            }
+        }
+    }
+
+    /**
+     * Discards the geometry of the given objects, must be called when those objects are removed.
+     */
+    public void remove(Collection<? extends BaseObject> objects) {
+        for (BaseObject obj : objects) {
+            String id = obj.getId();
+            mGeometriesById.remove(id);
+            mStaleGeometriesById.remove(id);
+        }
+    }
+
+    public void clear() {
+        mGeometriesById.clear();
+        mStaleGeometriesById.clear();
+        mTriangulationCache.clear();
+        mMeshBvhs.clear();
+    }
+
+    public int getNumEntries() {
+        return mGeometriesById.size();
+    }
+
+    public long getNumComputations() {
+        return mNumComputations;
+    }
+
+    public long getNumReuses() {
+        return mNumReuses;
+    }
+
+    /**
+     * Gets the number of geometries which were reused after a change of their object because their geometry key didn't change.
+     */
+    public long getNumRevalidations() {
+        return mNumRevalidations;
+    }
+}
@@ -61,13 +61,13 @@ public class ThreeDUIElementFilter extends AbstractUIElementFilter<Abstract3DRep
         getUIElementOpacity(repr).ifPresent(value -> {
             repr.setOpacity(value);
         });
-        repr.setVisible(isUIElementVisible(repr) && !repr.getModelObject().isHidden());
+        repr.setShown(isUIElementVisible(repr) && !repr.getModelObject().isHidden());
         repr.setMouseTransparent(isUIElementMouseTransparent(repr));
     }
 
     @Override
     public void unconfigure(Abstract3DRepresentation repr) {
         repr.setOpacity(Abstract2DRepresentation.OPACITY_DEFAULT);
-        repr.setVisible(true);
+        repr.setShown(true);
     }
 }
@@ -0,0 +1,318 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.cad.architect.ui.view.threed;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.dh.cad.architect.model.coords.Position2D;
+import de.dh.cad.architect.model.objects.Floor;
+import de.dh.cad.architect.ui.objects.Abstract3DRepresentation;
+import de.dh.cad.architect.ui.objects.Floor3DRepresentation;
+import de.dh.cad.architect.ui.objects.SupportObject3DRepresentation;
+import de.dh.cad.architect.ui.utils.CoordinateUtils;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.geometry.Point2D;
+import javafx.geometry.Point3D;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.PerspectiveCamera;
+import javafx.scene.SubScene;
+import javafx.scene.shape.Shape3D;
+
+/**
+ * Hides objects of the 3D view which cannot be seen from the current camera position.
+ * Each object representation gets a bounding volume, which is calculated lazily and cached until the object changes.
+ * On each camera change, the bounding volumes are tested against the view frustum; objects completely outside
+ * the frustum are {@link Abstract3DRepresentation#setCulled(boolean) culled}.
+ *
+ * Optionally, a coarse room based occlusion test can be enabled: The outlines of the floors are used as room cells.
+ * If the camera is located inside a room cell, support objects and floors which are located in other room cells
+ * are culled too. That test doesn't take wall openings into account and thus is disabled by default.
+ */
+public class VisibilityCullingManager {
+    public static final String KEY_CULLING_ENABLED = "ThreeDView.Culling.Enabled";
+    public static final boolean DEFAULT_CULLING_ENABLED = true;
+
+    public static final String KEY_ROOM_OCCLUSION_ENABLED = "ThreeDView.Culling.RoomOcclusion.Enabled";
+    public static final boolean DEFAULT_ROOM_OCCLUSION_ENABLED = false;
+
+    /**
+     * Height of a room cell above the floor level in cm.
+     */
+    protected static final double ROOM_CELL_HEIGHT_CM = 300;
+
+    protected static record RoomCell(Floor3DRepresentation floorRepr, List<Point2D> outline, double minHeight, double maxHeight) {
+        public boolean contains(double x, double y, double height) {
+            if (height < minHeight || height > maxHeight) {
+                return false;
+            }
+            // Even-odd rule
+            boolean result = false;
+            int numPoints = outline.size();
+            for (int i = 0, j = numPoints - 1; i < numPoints; j = i++) {
+                Point2D pi = outline.get(i);
+                Point2D pj = outline.get(j);
+                if ((pi.getY() > y) != (pj.getY() > y)
+                        && x < (pj.getX() - pi.getX()) * (y - pi.getY()) / (pj.getY() - pi.getY()) + pi.getX()) {
+                    result = !result;
+                }
+            }
+            return result;
+        }
+    }
+
+    protected final Abstract3DView mView;
+    protected final boolean mRoomOcclusionEnabled;
+
+    // Bounding boxes of the representations in the coordinate system of the transformed root of the view
+    protected final Map<Abstract3DRepresentation, Bounds> mBoundsCache = new HashMap<>();
+
+    protected int mNumObjects = 0;
+    protected int mNumFrustumCulled = 0;
+    protected int mNumOccluded = 0;
+
+    public VisibilityCullingManager(Abstract3DView view, boolean roomOcclusionEnabled) {
+        mView = view;
+        mRoomOcclusionEnabled = roomOcclusionEnabled;
+    }
+
+    public boolean isRoomOcclusionEnabled() {
+        return mRoomOcclusionEnabled;
+    }
+
+    /**
+     * Gets the number of objects which were considered in the last culling pass.
+     */
+    public int getNumObjects() {
+        return mNumObjects;
+    }
+
+    /**
+     * Gets the number of objects which were culled in the last culling pass because they are outside of the view frustum.
+     */
+    public int getNumFrustumCulled() {
+        return mNumFrustumCulled;
+    }
+
+    /**
+     * Gets the number of objects which were culled in the last culling pass because they are located in another room.
+     */
+    public int getNumOccluded() {
+        return mNumOccluded;
+    }
+
+    public int getNumCulled() {
+        return mNumFrustumCulled + mNumOccluded;
+    }
+
+    /**
+     * Discards the cached bounding volume of the given object, must be called when the object's geometry changes.
+     */
+    public void invalidate(Abstract3DRepresentation repr) {
+        mBoundsCache.remove(repr);
+    }
+
+    /**
+     * Makes all objects visible again and discards all cached data.
+     */
+    public void dispose() {
+        for (Abstract3DRepresentation repr : mView.getAllRepresentations()) {
+            repr.setCulled(false);
+        }
+        mBoundsCache.clear();
+        mNumObjects = 0;
+        mNumFrustumCulled = 0;
+        mNumOccluded = 0;
+    }
+
+    /**
+     * Tests all objects against the current view frustum and updates their culled state.
+     */
+    public void update() {
+        SubScene subScene = mView.getSubScene();
+        PerspectiveCamera camera = mView.getCamera();
+        double width = subScene.getWidth();
+        double height = subScene.getHeight();
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        Node transformedRoot = mView.getTransformedRoot();
+
+        // The camera is located at (0, 0, cameraZ) in sub scene coordinates and looks into +Z direction
+        double cameraZ = camera.getTranslateZ();
+        double near = camera.getNearClip();
+        double far = camera.getFarClip();
+        double tanHalfFov = Math.tan(Math.toRadians(camera.getFieldOfView()) / 2);
+        double tanV;
+        double tanH;
+        if (camera.isVerticalFieldOfView()) {
+            tanV = tanHalfFov;
+            tanH = tanHalfFov * width / height;
+        } else {
+            tanH = tanHalfFov;
+            tanV = tanHalfFov * height / width;
+        }
+        double normH = Math.sqrt(1 + tanH * tanH);
+        double normV = Math.sqrt(1 + tanV * tanV);
+
+        List<RoomCell> roomCells = null;
+        RoomCell cameraRoomCell = null;
+        if (mRoomOcclusionEnabled) {
+            roomCells = collectRoomCells();
+            Point3D eye = transformedRoot.sceneToLocal(0, 0, cameraZ);
+            cameraRoomCell = findRoomCell(roomCells, eye.getX(), eye.getY(), -eye.getZ());
+        }
+
+        int numObjects = 0;
+        int numFrustumCulled = 0;
+        int numOccluded = 0;
+        for (Abstract3DRepresentation repr : mView.getAllRepresentations()) {
+            Bounds bounds = getBounds(repr);
+            if (bounds == null) {
+                repr.setCulled(false);
+                continue;
+            }
+            numObjects++;
+
+            // Bounding sphere in camera coordinates
+            Bounds sceneBounds = transformedRoot.localToScene(bounds);
+            double cx = (sceneBounds.getMinX() + sceneBounds.getMaxX()) / 2;
+            double cy = (sceneBounds.getMinY() + sceneBounds.getMaxY()) / 2;
+            double d = (sceneBounds.getMinZ() + sceneBounds.getMaxZ()) / 2 - cameraZ;
+            double w = sceneBounds.getWidth();
+            double h = sceneBounds.getHeight();
+            double dp = sceneBounds.getDepth();
+            double r = Math.sqrt(w * w + h * h + dp * dp) / 2;
+
+            boolean culled = d + r < near || d - r > far
+                    || (cx - d * tanH) / normH > r
+                    || (-cx - d * tanH) / normH > r
+                    || (cy - d * tanV) / normV > r
+                    || (-cy - d * tanV) / normV > r;
+            if (culled) {
+                numFrustumCulled++;
+            } else if (cameraRoomCell != null && isOccluded(repr, bounds, roomCells, cameraRoomCell)) {
+                culled = true;
+                numOccluded++;
+            }
+            repr.setCulled(culled);
+        }
+        mNumObjects = numObjects;
+        mNumFrustumCulled = numFrustumCulled;
+        mNumOccluded = numOccluded;
+    }
+
+    protected boolean isOccluded(Abstract3DRepresentation repr, Bounds bounds, List<RoomCell> roomCells, RoomCell cameraRoomCell) {
+        if (!(repr instanceof SupportObject3DRepresentation) && !(repr instanceof Floor3DRepresentation)) {
+            return false;
+        }
+        if (repr == cameraRoomCell.floorRepr()) {
+            return false;
+        }
+        double x = (bounds.getMinX() + bounds.getMaxX()) / 2;
+        double y = (bounds.getMinY() + bounds.getMaxY()) / 2;
+        // JavaFX inverts the Z axis. Floors are located at the lower border of their room cell, so we test a point slightly above the floor's top.
+        double height = repr instanceof Floor3DRepresentation ? -bounds.getMinZ() + 1 : -(bounds.getMinZ() + bounds.getMaxZ()) / 2;
+        RoomCell roomCell = findRoomCell(roomCells, x, y, height);
+        return roomCell != null && roomCell != cameraRoomCell;
+    }
+
+    protected List<RoomCell> collectRoomCells() {
+        List<RoomCell> result = new ArrayList<>();
+        for (Abstract3DRepresentation repr : mView.getAllRepresentations()) {
+            if (!(repr instanceof Floor3DRepresentation floorRepr) || !floorRepr.isShown()) {
+                continue;
+            }
+            Floor floor = floorRepr.getFloor();
+            List<Position2D> edgePositions = floor.getEdgePositions();
+            if (edgePositions.size() < 3) {
+                continue;
+            }
+            List<Point2D> outline = new ArrayList<>(edgePositions.size());
+            for (Position2D position : edgePositions) {
+                outline.add(CoordinateUtils.positionToPoint2D(position));
+            }
+            double floorHeight = floor.getHeight().inCM();
+            result.add(new RoomCell(floorRepr, outline, floorHeight, floorHeight + ROOM_CELL_HEIGHT_CM));
+        }
+        return result;
+    }
+
+    protected static RoomCell findRoomCell(List<RoomCell> roomCells, double x, double y, double height) {
+        for (RoomCell roomCell : roomCells) {
+            if (roomCell.contains(x, y, height)) {
+                return roomCell;
+            }
+        }
+        return null;
+    }
+
+    protected Bounds getBounds(Abstract3DRepresentation repr) {
+        Bounds result = mBoundsCache.get(repr);
+        if (result == null) {
+            result = calculateBounds(repr);
+            if (result != null) {
+                mBoundsCache.put(repr, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Calculates the bounding box of all shapes of the given representation in the coordinate system of the representation's parent.
+     * In contrast to {@link Node#getBoundsInParent()}, the result also contains shapes which are currently invisible, e.g. because
+     * they are part of a material batch.
+     */
+    protected static Bounds calculateBounds(Abstract3DRepresentation repr) {
+        double[] minMax = new double[] {
+                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        accumulateBounds(repr, repr, minMax);
+        if (minMax[0] > minMax[3]) {
+            return null;
+        }
+        return new BoundingBox(minMax[0], minMax[1], minMax[2], minMax[3] - minMax[0], minMax[4] - minMax[1], minMax[5] - minMax[2]);
+    }
+
+    protected static void accumulateBounds(Node node, Abstract3DRepresentation repr, double[] minMax) {
+        if (node instanceof Shape3D) {
+            Bounds bounds = node.getBoundsInLocal();
+            if (bounds.isEmpty()) {
+                return;
+            }
+            for (Node n = node; n != repr; n = n.getParent()) {
+                bounds = n.localToParent(bounds);
+            }
+            bounds = repr.localToParent(bounds);
+            minMax[0] = Math.min(minMax[0], bounds.getMinX());
+            minMax[1] = Math.min(minMax[1], bounds.getMinY());
+            minMax[2] = Math.min(minMax[2], bounds.getMinZ());
+            minMax[3] = Math.max(minMax[3], bounds.getMaxX());
+            minMax[4] = Math.max(minMax[4], bounds.getMaxY());
+            minMax[5] = Math.max(minMax[5], bounds.getMaxZ());
+        } else if (node instanceof Parent parent) {
+            for (Node child : parent.getChildrenUnmodifiable()) {
+                accumulateBounds(child, repr, minMax);
+            }
+        }
+    }
+}
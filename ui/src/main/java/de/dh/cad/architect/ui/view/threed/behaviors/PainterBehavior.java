@@ -42,6 +42,7 @@ import de.dh.cad.architect.ui.view.AbstractPlanView;
 import de.dh.cad.architect.ui.view.AbstractUiMode;
 import de.dh.cad.architect.ui.view.IContextAction;
 import de.dh.cad.architect.ui.view.InteractionsControl;
+import de.dh.cad.architect.ui.view.threed.PickingManager;
 import de.dh.cad.architect.ui.view.threed.ThreeDUIElementFilter;
 import de.dh.cad.architect.ui.view.threed.ThreeDView;
 import javafx.beans.property.SimpleObjectProperty;
@@ -227,7 +228,13 @@ public class PainterBehavior extends AbstractPainterModeBehavior {
     };
 
     protected EventHandler<MouseEvent> RESET_MOUSE_OVER_EVENT_HANDLER = event -> {
-        setMouseAndKeyState(false, event.isControlDown());
+        // Mesh surfaces are mouse transparent, the mouse might still be over a surface resolved by the picking manager
+        setMouseAndKeyState(isMouseOverPickedObject(), event.isControlDown());
+    };
+
+    protected ChangeListener<Abstract3DRepresentation> PICKED_REPRESENTATION_LISTENER = (observable, oldValue, newValue) -> {
+        MouseAndKeyState state = getMouseAndKeyState();
+        setMouseAndKeyState(isMouseOverView(), state != null && state.isControlDown());
     };
 
     protected EventHandler<KeyEvent> CHECK_CONTROL_EVENT_HANDLER = event -> {
@@ -287,7 +294,12 @@ public class PainterBehavior extends AbstractPainterModeBehavior {
 
     protected boolean isMouseOverView() {
         CombinedTransformGroup transformedRoot = getView().getTransformedRoot();
-        return transformedRoot.isHover();
+        return transformedRoot.isHover() || isMouseOverPickedObject();
+    }
+
+    protected boolean isMouseOverPickedObject() {
+        PickingManager pickingManager = getView().getPickingManager();
+        return pickingManager != null && pickingManager.getPickedRepresentation() != null;
     }
 
     protected void initMouseAndKeyState() {
@@ -377,6 +389,7 @@ public class PainterBehavior extends AbstractPainterModeBehavior {
         CombinedTransformGroup transformedRoot = threeDView.getTransformedRoot();
         transformedRoot.addEventHandler(MouseEvent.MOUSE_ENTERED, SET_MOUSE_OVER_EVENT_HANDLER);
         transformedRoot.addEventHandler(MouseEvent.MOUSE_EXITED, RESET_MOUSE_OVER_EVENT_HANDLER);
+        threeDView.getPickingManager().pickedRepresentationProperty().addListener(PICKED_REPRESENTATION_LISTENER);
         scene.addEventHandler(KeyEvent.KEY_PRESSED, CHECK_CONTROL_EVENT_HANDLER);
         scene.addEventHandler(KeyEvent.KEY_RELEASED, CHECK_CONTROL_EVENT_HANDLER);
     }
@@ -388,6 +401,10 @@ public class PainterBehavior extends AbstractPainterModeBehavior {
         CombinedTransformGroup transformedRoot = threeDView.getTransformedRoot();
         transformedRoot.removeEventHandler(MouseEvent.MOUSE_ENTERED, SET_MOUSE_OVER_EVENT_HANDLER);
         transformedRoot.removeEventHandler(MouseEvent.MOUSE_EXITED, RESET_MOUSE_OVER_EVENT_HANDLER);
+        PickingManager pickingManager = threeDView.getPickingManager();
+        if (pickingManager != null) {
+            pickingManager.pickedRepresentationProperty().removeListener(PICKED_REPRESENTATION_LISTENER);
+        }
         scene.removeEventHandler(KeyEvent.KEY_PRESSED, CHECK_CONTROL_EVENT_HANDLER);
         scene.removeEventHandler(KeyEvent.KEY_RELEASED, CHECK_CONTROL_EVENT_HANDLER);
 
@@ -43,6 +43,7 @@ module de.dh.cad.architect.ui {
     requires de.dh.cad.architect.utils;
     requires transitive de.dh.cad.architect.model;
     requires transitive de.dh.cad.architect.fxutils;
+    requires de.dh.cad.architect.geometry;
     requires de.dh.utils.fx.viewsfx;
 
     requires javafx.web;
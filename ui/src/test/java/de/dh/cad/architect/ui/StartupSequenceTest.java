@@ -0,0 +1,233 @@
+package de.dh.cad.architect.ui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.dh.cad.architect.ui.assets.AssetManager.LibraryData;
+import de.dh.cad.architect.ui.persistence.PlanFile;
+import de.dh.utils.fx.viewsfx.state.ViewsLayoutState;
+
+/**
+ * Test class for {@link StartupSequence}.
+ * Runs the startup sequence with recording phases and checks the dependency structure of the startup: Which phases overlap
+ * with the creation of the main window and which phases wait for others. Overlapping is checked with latches which block
+ * each side until the other side has started, so a phase which is executed sequentially makes the test fail instead of
+ * only being slower.
+ */
+public class StartupSequenceTest {
+    protected static final long TIMEOUT_SECONDS = 10;
+    protected static final String UI_THREAD_NAME = "UI";
+    protected static final Path PLAN_FILE_PATH = Paths.get("plan", "Plan.xml");
+
+    /**
+     * Phases which record the calls and their threads.
+     */
+    protected static class RecordingPhases implements StartupSequence.IStartupPhases {
+        protected final List<String> mUiCalls = new ArrayList<>();
+        protected final Map<String, String> mThreadNames = new ConcurrentHashMap<>();
+        protected final Set<String> mOverlappingPhases = ConcurrentHashMap.newKeySet();
+        protected final CountDownLatch mBackgroundPhasesStarted;
+        protected final CountDownLatch mMainWindowStarted = new CountDownLatch(1);
+        protected final PlanFile mPlanFile = new PlanFile();
+        protected Exception mLibrariesFailure = null;
+        protected Exception mPlanFileFailure = null;
+        protected boolean mPlanChanged = false;
+        protected boolean mViewsLayoutStateDoneOnMainWindow = false;
+        protected boolean mBackgroundPhasesStartedOnMainWindow = false;
+        protected List<LibraryData> mOpenedLibraries = null;
+        protected PlanFile mShownPlanFile = null;
+
+        public RecordingPhases(int numBackgroundPhases) {
+            mBackgroundPhasesStarted = new CountDownLatch(numBackgroundPhases);
+        }
+
+        /**
+         * Records the current thread for the given phase and blocks until the main window creation has started.
+         * The phase is recorded as overlapping if the main window creation was started while it was running.
+         */
+        protected void startBackgroundPhase(String name) throws InterruptedException {
+            mThreadNames.put(name, Thread.currentThread().getName());
+            mBackgroundPhasesStarted.countDown();
+            if (mMainWindowStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                mOverlappingPhases.add(name);
+            }
+        }
+
+        protected synchronized void recordUiCall(String name) {
+            mThreadNames.put(name, Thread.currentThread().getName());
+            mUiCalls.add(name);
+        }
+
+        @Override
+        public void createJaxbContexts() throws Exception {
+            startBackgroundPhase(StartupSequence.PHASE_CREATE_JAXB_CONTEXTS);
+        }
+
+        @Override
+        public List<LibraryData> loadAssetLibraries() throws Exception {
+            startBackgroundPhase(StartupSequence.PHASE_LOAD_ASSET_LIBRARIES);
+            if (mLibrariesFailure != null) {
+                throw mLibrariesFailure;
+            }
+            return new ArrayList<>();
+        }
+
+        @Override
+        public Optional<ViewsLayoutState> loadViewsLayoutState() throws Exception {
+            startBackgroundPhase(StartupSequence.PHASE_LOAD_VIEWS_LAYOUT);
+            return Optional.empty();
+        }
+
+        @Override
+        public PlanFile parsePlanFile(Path planFilePath) throws Exception {
+            startBackgroundPhase(StartupSequence.PHASE_PARSE_PLAN_FILE);
+            if (mPlanFileFailure != null) {
+                throw mPlanFileFailure;
+            }
+            return mPlanFile;
+        }
+
+        @Override
+        public void createMainWindow(CompletableFuture<Optional<ViewsLayoutState>> viewsLayoutStateFuture) {
+            mThreadNames.put(StartupSequence.PHASE_CREATE_MAIN_WINDOW, Thread.currentThread().getName());
+            mViewsLayoutStateDoneOnMainWindow = viewsLayoutStateFuture.isDone();
+            mMainWindowStarted.countDown();
+            try {
+                mBackgroundPhasesStartedOnMainWindow = mBackgroundPhasesStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public void openAssetLibraries(List<LibraryData> libraries) {
+            recordUiCall(StartupSequence.PHASE_OPEN_ASSET_LIBRARIES);
+            mOpenedLibraries = libraries;
+        }
+
+        @Override
+        public boolean isPlanChanged() {
+            return mPlanChanged;
+        }
+
+        @Override
+        public void showPlan(PlanFile planFile, Path planFilePath) {
+            recordUiCall(StartupSequence.PHASE_SHOW_PLAN);
+            mShownPlanFile = planFile;
+        }
+
+        @Override
+        public void newPlan() {
+            recordUiCall("New plan");
+        }
+    }
+
+    protected ExecutorService mUiExecutor;
+
+    @BeforeEach
+    public void setUp() {
+        mUiExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, UI_THREAD_NAME));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mUiExecutor.shutdownNow();
+    }
+
+    protected void runStartup(StartupSequence.IStartupPhases phases, Path planFilePath) throws Exception {
+        StartupSequence sequence = new StartupSequence(phases, mUiExecutor);
+        sequence.run(planFilePath).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Background phases overlap the main window creation, the plan is shown after parsing in the UI thread")
+    public void testPhaseDependencies() throws Exception {
+        RecordingPhases phases = new RecordingPhases(4);
+        runStartup(phases, PLAN_FILE_PATH);
+
+        List<String> backgroundPhases = List.of(StartupSequence.PHASE_CREATE_JAXB_CONTEXTS, StartupSequence.PHASE_LOAD_ASSET_LIBRARIES,
+            StartupSequence.PHASE_LOAD_VIEWS_LAYOUT, StartupSequence.PHASE_PARSE_PLAN_FILE);
+        assertTrue(phases.mBackgroundPhasesStartedOnMainWindow, "Background phases were not started during main window creation");
+        assertEquals(Set.copyOf(backgroundPhases), phases.mOverlappingPhases, "Background phases running during main window creation");
+        String callingThreadName = Thread.currentThread().getName();
+        assertEquals(callingThreadName, phases.mThreadNames.get(StartupSequence.PHASE_CREATE_MAIN_WINDOW));
+        for (String backgroundPhase : backgroundPhases) {
+            String threadName = phases.mThreadNames.get(backgroundPhase);
+            assertNotEquals(callingThreadName, threadName, backgroundPhase);
+            assertNotEquals(UI_THREAD_NAME, threadName, backgroundPhase);
+        }
+        // The main window gets the views layout as future and must not wait for it
+        assertFalse(phases.mViewsLayoutStateDoneOnMainWindow);
+
+        assertEquals(List.of(StartupSequence.PHASE_OPEN_ASSET_LIBRARIES, StartupSequence.PHASE_SHOW_PLAN), phases.mUiCalls);
+        assertEquals(UI_THREAD_NAME, phases.mThreadNames.get(StartupSequence.PHASE_OPEN_ASSET_LIBRARIES));
+        assertEquals(UI_THREAD_NAME, phases.mThreadNames.get(StartupSequence.PHASE_SHOW_PLAN));
+        assertSame(phases.mPlanFile, phases.mShownPlanFile);
+    }
+
+    @Test
+    @DisplayName("Startup without last plan creates a new plan and doesn't parse a plan file")
+    public void testWithoutPlanFile() throws Exception {
+        RecordingPhases phases = new RecordingPhases(3);
+        runStartup(phases, null);
+
+        assertTrue(phases.mBackgroundPhasesStartedOnMainWindow);
+        assertFalse(phases.mThreadNames.containsKey(StartupSequence.PHASE_PARSE_PLAN_FILE));
+        assertEquals(List.of(StartupSequence.PHASE_OPEN_ASSET_LIBRARIES, "New plan"), phases.mUiCalls);
+    }
+
+    @Test
+    @DisplayName("A failing asset library load starts without libraries and still shows the plan")
+    public void testLibrariesFailure() throws Exception {
+        RecordingPhases phases = new RecordingPhases(4);
+        phases.mLibrariesFailure = new IOException("Library corrupt");
+        runStartup(phases, PLAN_FILE_PATH);
+
+        assertTrue(phases.mOverlappingPhases.contains(StartupSequence.PHASE_LOAD_ASSET_LIBRARIES));
+        assertTrue(phases.mOpenedLibraries.isEmpty());
+        assertEquals(List.of(StartupSequence.PHASE_OPEN_ASSET_LIBRARIES, StartupSequence.PHASE_SHOW_PLAN), phases.mUiCalls);
+    }
+
+    @Test
+    @DisplayName("A failing plan file parse starts with a new plan")
+    public void testPlanFileFailure() throws Exception {
+        RecordingPhases phases = new RecordingPhases(4);
+        phases.mPlanFileFailure = new IOException("Plan file corrupt");
+        runStartup(phases, PLAN_FILE_PATH);
+
+        assertEquals(List.of(StartupSequence.PHASE_OPEN_ASSET_LIBRARIES, "New plan"), phases.mUiCalls);
+    }
+
+    @Test
+    @DisplayName("The last plan is skipped if the user changed the plan during startup")
+    public void testPlanChanged() throws Exception {
+        RecordingPhases phases = new RecordingPhases(4);
+        phases.mPlanChanged = true;
+        runStartup(phases, PLAN_FILE_PATH);
+
+        assertEquals(List.of(StartupSequence.PHASE_OPEN_ASSET_LIBRARIES), phases.mUiCalls);
+    }
+}
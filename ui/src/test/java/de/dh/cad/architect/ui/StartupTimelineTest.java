@@ -0,0 +1,63 @@
+package de.dh.cad.architect.ui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.dh.cad.architect.ui.StartupTimeline.Phase;
+
+/**
+ * Test class for {@link StartupTimeline}.
+ * The dependency structure of the real startup phases is tested in {@link StartupSequenceTest}.
+ */
+public class StartupTimelineTest {
+    @Test
+    @DisplayName("Phases are recorded with their threads, background phases run outside the calling thread")
+    public void testRecordedPhases() {
+        try (StartupTimeline timeline = new StartupTimeline()) {
+            CompletableFuture<String> planFileFuture = timeline.startAsync("Parse plan file", () -> "Plan");
+            timeline.record("Create main window", () -> {
+                // Nothing to do
+            });
+            assertEquals("Plan", planFileFuture.join());
+
+            List<Phase> phases = timeline.getPhases();
+            assertEquals(2, phases.size());
+            Map<String, Phase> phasesByName = phases.stream().collect(Collectors.toMap(Phase::name, Function.identity()));
+            String mainThreadName = Thread.currentThread().getName();
+            assertEquals(mainThreadName, phasesByName.get("Create main window").threadName());
+            assertNotEquals(mainThreadName, phasesByName.get("Parse plan file").threadName());
+            for (Phase phase : phases) {
+                assertTrue(phase.endNanos() >= phase.startNanos());
+            }
+            assertTrue(timeline.getSequentialNanos() >= phases.get(0).getDurationNanos());
+        }
+    }
+
+    @Test
+    @DisplayName("Failing background phases are recorded and complete their future exceptionally")
+    public void testFailingPhase() {
+        try (StartupTimeline timeline = new StartupTimeline()) {
+            IOException exception = new IOException("Plan file corrupt");
+            CompletableFuture<String> planFileFuture = timeline.startAsync("Parse plan file", () -> {
+                throw exception;
+            });
+            CompletionException thrown = assertThrows(CompletionException.class, planFileFuture::join);
+            assertSame(exception, thrown.getCause());
+            assertEquals("Parse plan file", timeline.getPhases().get(0).name());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package de.dh.cad.architect.ui.assets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.dh.cad.architect.model.assets.AssetRefPath;
+import de.dh.utils.MaterialMapping;
+import de.dh.utils.Vector2D;
+import javafx.application.Platform;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+
+/**
+ * Test class for {@link MaterialCache}.
+ * Checks the mapping keys, the invalidation of material sets and the eviction of least recently used materials.
+ */
+public class MaterialCacheTest {
+    protected static final String LIBRARY_PATH = "/Libraries/c5704b87-f568-4711-b11a-0935e9735c80/MaterialSets/";
+    protected static final AssetRefPath MATERIAL_SET_1 = AssetRefPath.parse(LIBRARY_PATH + "9a51e220-be8d-4e8d-96f1-e6052097814c");
+    protected static final AssetRefPath MATERIAL_SET_2 = AssetRefPath.parse(LIBRARY_PATH + "1f0c7e5a-3b2d-4c6e-9a8f-7d5b4e3c2a10");
+    protected static final String STRETCH_KEY = MaterialCache.createMappingKey(MaterialMapping.stretch());
+
+    @BeforeAll
+    public static void startFx() {
+        try {
+            Platform.startup(() -> {
+                // Nothing to do
+            });
+        } catch (IllegalStateException e) {
+            // Toolkit was already started
+        }
+    }
+
+    protected static <T> T runOnFxThread(Callable<T> task) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(task.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result.get();
+    }
+
+    protected static PhongMaterial createMaterial(int textureSize) {
+        PhongMaterial result = new PhongMaterial(Color.GRAY);
+        if (textureSize > 0) {
+            result.setDiffuseMap(new WritableImage(textureSize, textureSize));
+        }
+        return result;
+    }
+
+    @Test
+    @DisplayName("Surface sizes are only part of the mapping key if the texture is generated for the surface")
+    public void testMappingKey() {
+        Vector2D tileSize = new Vector2D(20, 20);
+        String tiled1 = MaterialCache.createMappingKey(MaterialMapping.tile(tileSize, new Vector2D(100.2, 50)));
+        String tiled2 = MaterialCache.createMappingKey(MaterialMapping.tile(tileSize, new Vector2D(100.4, 50)));
+        String tiled3 = MaterialCache.createMappingKey(MaterialMapping.tile(tileSize, new Vector2D(120, 50)));
+        // Surfaces of the same size in texture pixels share the material
+        assertEquals(tiled1, tiled2);
+        assertNotEquals(tiled1, tiled3);
+        assertNotEquals(tiled1, MaterialCache.createMappingKey(MaterialMapping.tile(tileSize, 45, new Vector2D(100.2, 50))));
+        assertNotEquals(tiled1, MaterialCache.createMappingKey(MaterialMapping.tile(new Vector2D(40, 20), new Vector2D(100.2, 50))));
+
+        MaterialMapping stretchWithSize = MaterialMapping.stretch();
+        stretchWithSize.setTargetSurfaceSize(Optional.of(new Vector2D(300, 250)));
+        assertEquals(STRETCH_KEY, MaterialCache.createMappingKey(stretchWithSize));
+    }
+
+    @Test
+    @DisplayName("Materials are shared per material name and mapping, invalidation only removes the materials of the changed set")
+    public void testGetAndInvalidate() throws Exception {
+        runOnFxThread(() -> {
+            MaterialCache cache = new MaterialCache();
+            AssetRefPath wood = MATERIAL_SET_1.withMaterialName("wood");
+            AssetRefPath stone = MATERIAL_SET_1.withMaterialName("stone");
+            AssetRefPath otherWood = MATERIAL_SET_2.withMaterialName("wood");
+            PhongMaterial woodMaterial = createMaterial(0);
+            PhongMaterial stoneMaterial = createMaterial(0);
+            PhongMaterial otherWoodMaterial = createMaterial(0);
+
+            assertNull(cache.get(wood, STRETCH_KEY));
+            cache.put(wood, STRETCH_KEY, woodMaterial);
+            cache.put(stone, STRETCH_KEY, stoneMaterial);
+            cache.put(otherWood, STRETCH_KEY, otherWoodMaterial);
+            assertSame(woodMaterial, cache.get(wood, STRETCH_KEY));
+            assertSame(stoneMaterial, cache.get(stone, STRETCH_KEY));
+            assertSame(otherWoodMaterial, cache.get(otherWood, STRETCH_KEY));
+            assertNull(cache.get(wood, MaterialCache.createMappingKey(MaterialMapping.tile(new Vector2D(100, 100)))));
+            assertEquals(3, cache.getNumHits());
+            assertEquals(2, cache.getNumMisses());
+
+            cache.invalidateMaterialSet(MATERIAL_SET_1);
+            assertEquals(1, cache.getNumEntries());
+            assertNull(cache.get(wood, STRETCH_KEY));
+            assertNull(cache.get(stone, STRETCH_KEY));
+            assertSame(otherWoodMaterial, cache.get(otherWood, STRETCH_KEY));
+            return null;
+        });
+    }
+
+    @Test
+    @DisplayName("The least recently used materials are evicted when the maximum number of entries is exceeded")
+    public void testEvictByNumEntries() throws Exception {
+        runOnFxThread(() -> {
+            MaterialCache cache = new MaterialCache(2, MaterialCache.DEFAULT_MAX_TEXTURE_BYTES);
+            AssetRefPath m1 = MATERIAL_SET_1.withMaterialName("m1");
+            AssetRefPath m2 = MATERIAL_SET_1.withMaterialName("m2");
+            AssetRefPath m3 = MATERIAL_SET_1.withMaterialName("m3");
+            PhongMaterial material1 = createMaterial(0);
+            cache.put(m1, STRETCH_KEY, material1);
+            cache.put(m2, STRETCH_KEY, createMaterial(0));
+            // Access m1, so m2 is the least recently used entry
+            cache.get(m1, STRETCH_KEY);
+            cache.put(m3, STRETCH_KEY, createMaterial(0));
+
+            assertEquals(2, cache.getNumEntries());
+            assertEquals(1, cache.getNumEvictions());
+            assertSame(material1, cache.get(m1, STRETCH_KEY));
+            assertNull(cache.get(m2, STRETCH_KEY));
+            return null;
+        });
+    }
+
+    @Test
+    @DisplayName("The least recently used materials are evicted when the maximum texture size is exceeded")
+    public void testEvictByTextureBytes() throws Exception {
+        runOnFxThread(() -> {
+            long textureBytes = 64 * 64 * 4;
+            MaterialCache cache = new MaterialCache(MaterialCache.DEFAULT_MAX_ENTRIES, textureBytes * 2);
+            AssetRefPath m1 = MATERIAL_SET_1.withMaterialName("m1");
+            AssetRefPath m2 = MATERIAL_SET_1.withMaterialName("m2");
+            AssetRefPath m3 = MATERIAL_SET_1.withMaterialName("m3");
+            cache.put(m1, STRETCH_KEY, createMaterial(64));
+            cache.put(m2, STRETCH_KEY, createMaterial(64));
+            assertEquals(textureBytes * 2, cache.getTextureBytes());
+            assertEquals(0, cache.getNumEvictions());
+
+            cache.put(m3, STRETCH_KEY, createMaterial(64));
+            assertEquals(2, cache.getNumEntries());
+            assertEquals(textureBytes * 2, cache.getTextureBytes());
+            assertNull(cache.get(m1, STRETCH_KEY));
+
+            // Materials without textures don't count
+            cache.put(m1, STRETCH_KEY, createMaterial(0));
+            assertEquals(3, cache.getNumEntries());
+
+            // The most recently used material is kept, even if it exceeds the maximum texture size alone
+            PhongMaterial huge = createMaterial(128);
+            cache.put(m1, STRETCH_KEY, huge);
+            assertEquals(1, cache.getNumEntries());
+            assertSame(huge, cache.get(m1, STRETCH_KEY));
+            assertEquals(textureBytes * 4, cache.getTextureBytes());
+            return null;
+        });
+    }
+}
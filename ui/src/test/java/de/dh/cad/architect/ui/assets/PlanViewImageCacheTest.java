@@ -0,0 +1,90 @@
+package de.dh.cad.architect.ui.assets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.dh.cad.architect.ui.assets.PlanViewImageCache.ImagePyramid;
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+
+/**
+ * Test class for {@link PlanViewImageCache}.
+ * Checks the choice of the pyramid level for the display size and the output scale of the screen.
+ */
+public class PlanViewImageCacheTest {
+    protected static final int FULL_IMAGE_SIZE = 256;
+
+    @BeforeAll
+    public static void startFx() {
+        try {
+            Platform.startup(() -> {
+                // Nothing to do
+            });
+        } catch (IllegalStateException e) {
+            // Toolkit was already started
+        }
+    }
+
+    protected static <T> T runOnFxThread(Callable<T> task) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(task.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result.get();
+    }
+
+    protected static ImagePyramid createPyramid() {
+        return new ImagePyramid(new WritableImage(FULL_IMAGE_SIZE, FULL_IMAGE_SIZE));
+    }
+
+    @Test
+    @DisplayName("The smallest level which covers the display size is chosen")
+    public void testLevelForDisplaySize() throws Exception {
+        runOnFxThread(() -> {
+            ImagePyramid pyramid = createPyramid();
+            assertEquals(32, pyramid.getImage(30, 30).getWidth());
+            assertEquals(64, pyramid.getImage(40, 30).getWidth());
+            assertSame(pyramid.getFullImage(), pyramid.getImage(200, 200));
+            // Levels are not downsampled below the minimum level size
+            assertEquals(PlanViewImageCache.MIN_LEVEL_SIZE, pyramid.getImage(1, 1).getWidth());
+            return null;
+        });
+    }
+
+    @Test
+    @DisplayName("On screens with an output scale, the level covers the display size in device pixels")
+    public void testLevelForOutputScale() throws Exception {
+        runOnFxThread(() -> {
+            ImagePyramid pyramid = createPyramid();
+            Image standard = pyramid.getImage(30, 30, 1, 1);
+            assertEquals(32, standard.getWidth());
+            assertSame(standard, pyramid.getImage(30, 30));
+
+            // HiDPI screen: Twice the pixels in each direction
+            Image hiDpi = pyramid.getImage(30, 30, 2, 2);
+            assertEquals(64, hiDpi.getWidth());
+            assertEquals(64, hiDpi.getHeight());
+
+            // Fractional and asymmetric output scales
+            assertEquals(64, pyramid.getImage(30, 30, 1.5, 1.5).getWidth());
+            assertEquals(64, pyramid.getImage(30, 30, 1, 2).getWidth());
+
+            // Display size which needs the full resolution on a HiDPI screen
+            assertEquals(128, pyramid.getImage(100, 100, 1, 1).getWidth());
+            assertSame(pyramid.getFullImage(), pyramid.getImage(100, 100, 2, 2));
+            return null;
+        });
+    }
+}
@@ -0,0 +1,86 @@
+package de.dh.cad.architect.ui.controls;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.dh.cad.architect.model.objects.GuideLine.GuideLineDirection;
+
+/**
+ * Test class for {@link Ruler}.
+ * Pans and zooms a narrow ruler with few labels and a wide ruler with many labels and checks that both cause the
+ * same repaint work: The number of nodes of the ruler stays constant and the canvas is repainted equally often,
+ * independent of the number of labels.
+ */
+public class RulerTest {
+    protected static final double NARROW_WIDTH = 200;
+    protected static final double WIDE_WIDTH = 8000;
+    protected static final double PAN_STEP = 10;
+    protected static final int NUM_PAN_STEPS = 500;
+
+    protected static Ruler createRuler(double width) {
+        Ruler result = new Ruler(null, GuideLineDirection.Horizontal);
+        result.resize(width, Ruler.RULER_WIDTH);
+        return result;
+    }
+
+    protected static int getNumPaintedLabels(Ruler ruler) {
+        return ruler.calculateScaleLabels(-Ruler.PAN_MARGIN, ruler.getWidth() + Ruler.PAN_MARGIN).size();
+    }
+
+    /**
+     * Pans the given ruler and returns the number of repaints caused by panning.
+     */
+    protected static int pan(Ruler ruler, double scale) {
+        ruler.setTransform(scale, 0);
+        int numRepaintsBefore = ruler.getNumRepaints();
+        for (int i = 1; i <= NUM_PAN_STEPS; i++) {
+            ruler.setTransform(scale, i * PAN_STEP);
+        }
+        return ruler.getNumRepaints() - numRepaintsBefore;
+    }
+
+    @Test
+    @DisplayName("Panning repaints the ruler equally often, independent of the number of labels")
+    public void testPanRepaintsIndependentOfLabelCount() {
+        Ruler narrowRuler = createRuler(NARROW_WIDTH);
+        Ruler wideRuler = createRuler(WIDE_WIDTH);
+        int numNodes = narrowRuler.getChildrenUnmodifiable().size();
+        int numNarrowRepaints = pan(narrowRuler, 1);
+        int numWideRepaints = pan(wideRuler, 1);
+
+        int numNarrowLabels = getNumPaintedLabels(narrowRuler);
+        int numWideLabels = getNumPaintedLabels(wideRuler);
+        assertTrue(numWideLabels > 5 * numNarrowLabels, "Wide ruler must paint many more labels: " + numNarrowLabels + " vs. " + numWideLabels);
+
+        // The canvas is only repainted when the visible range leaves the pan margin
+        int maxNumRepaints = (int) (NUM_PAN_STEPS * PAN_STEP / Ruler.PAN_MARGIN) + 1;
+        assertTrue(numNarrowRepaints <= maxNumRepaints, "Too many repaints while panning: " + numNarrowRepaints);
+        assertEquals(numNarrowRepaints, numWideRepaints, "Repaints while panning");
+
+        // Scale lines and labels are painted, not added as nodes
+        assertEquals(numNodes, narrowRuler.getChildrenUnmodifiable().size(), "Nodes of narrow ruler");
+        assertEquals(numNodes, wideRuler.getChildrenUnmodifiable().size(), "Nodes of wide ruler");
+    }
+
+    @Test
+    @DisplayName("Zooming repaints the ruler once per step without creating nodes")
+    public void testZoomRepaints() {
+        for (double width : new double[] {NARROW_WIDTH, WIDE_WIDTH}) {
+            Ruler ruler = createRuler(width);
+            int numNodes = ruler.getChildrenUnmodifiable().size();
+            int numRepaintsBefore = ruler.getNumRepaints();
+            double scale = 1;
+            for (int i = 0; i < 20; i++) {
+                scale *= 1.2;
+                ruler.setTransform(scale, 0);
+                // Setting the same transform again must not repaint
+                ruler.setTransform(scale, 0);
+            }
+            assertEquals(20, ruler.getNumRepaints() - numRepaintsBefore, "Repaints of ruler with width " + width);
+            assertEquals(numNodes, ruler.getChildrenUnmodifiable().size(), "Nodes of ruler with width " + width);
+        }
+    }
+}
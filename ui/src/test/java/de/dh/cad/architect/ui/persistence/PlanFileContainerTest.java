@@ -0,0 +1,149 @@
+package de.dh.cad.architect.ui.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.dh.cad.architect.model.Plan;
+import de.dh.cad.architect.model.coords.Length;
+import de.dh.cad.architect.model.objects.GuideLine;
+import de.dh.cad.architect.model.objects.GuideLine.GuideLineDirection;
+
+/**
+ * Test class for {@link PlanFileContainer}.
+ * Writes plain and compressed files and checks that they are read back transparently, also as plan files, that failed
+ * writes never touch the existing file and that the permissions of a replaced file are kept.
+ */
+public class PlanFileContainerTest {
+    protected static final String CONTENT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<plan name=\"Grundriss Erdgeschoß\"/>\n";
+
+    protected Path mDirectory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        mDirectory = Files.createTempDirectory("PlanFileContainerTest");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(mDirectory.toFile());
+    }
+
+    protected static String read(Path path) throws IOException {
+        try (Reader reader = PlanFileContainer.openReader(path)) {
+            StringWriter result = new StringWriter();
+            reader.transferTo(result);
+            return result.toString();
+        }
+    }
+
+    protected static boolean startsWithGZIPMagic(Path path) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        return bytes.length >= 2 && (bytes[0] & 0xFF) == (GZIPInputStream.GZIP_MAGIC & 0xFF) && (bytes[1] & 0xFF) == GZIPInputStream.GZIP_MAGIC >> 8;
+    }
+
+    protected List<Path> listDirectory() throws IOException {
+        try (Stream<Path> files = Files.list(mDirectory)) {
+            return files.toList();
+        }
+    }
+
+    @Test
+    @DisplayName("Plain and compressed files are read back with their original content")
+    public void testRoundTrip() throws IOException {
+        Path plainFile = mDirectory.resolve("plan.xml");
+        Path compressedFile = mDirectory.resolve("plan." + PlanFileContainer.COMPRESSED_FILE_EXTENSION);
+        PlanFileContainer.write(plainFile, writer -> writer.write(CONTENT));
+        PlanFileContainer.write(compressedFile, writer -> writer.write(CONTENT));
+
+        assertEquals(CONTENT, Files.readString(plainFile));
+        assertEquals(CONTENT, read(plainFile));
+        assertEquals(CONTENT, read(compressedFile));
+
+        byte[] compressedBytes = Files.readAllBytes(compressedFile);
+        assertEquals(GZIPInputStream.GZIP_MAGIC & 0xFF, compressedBytes[0] & 0xFF, "First GZIP magic byte");
+        assertEquals(GZIPInputStream.GZIP_MAGIC >> 8, compressedBytes[1] & 0xFF, "Second GZIP magic byte");
+        assertEquals(2, listDirectory().size(), "Number of files in directory");
+    }
+
+    @Test
+    @DisplayName("Compression is detected by the file content, not by the file name")
+    public void testDetectCompressionByContent() throws IOException {
+        Path compressedXmlFile = mDirectory.resolve("plan.xml");
+        PlanFileContainer.write(compressedXmlFile, true, writer -> writer.write(CONTENT));
+        assertFalse(PlanFileContainer.isCompressedFileName(compressedXmlFile));
+        assertEquals(CONTENT, read(compressedXmlFile));
+
+        Path emptyFile = mDirectory.resolve("empty.xml");
+        PlanFileContainer.write(emptyFile, writer -> {});
+        assertEquals("", read(emptyFile));
+    }
+
+    @Test
+    @DisplayName("A failed write leaves the existing file untouched and removes its temporary file")
+    public void testFailedWrite() throws IOException {
+        Path file = mDirectory.resolve("plan." + PlanFileContainer.COMPRESSED_FILE_EXTENSION);
+        PlanFileContainer.write(file, writer -> writer.write(CONTENT));
+
+        IOException e = assertThrows(IOException.class, () -> PlanFileContainer.write(file, writer -> {
+            writer.write("<plan>");
+            throw new IOException("Disk full");
+        }));
+        assertEquals("Disk full", e.getMessage());
+        assertEquals(CONTENT, read(file));
+        assertEquals(List.of(file), listDirectory());
+        assertTrue(PlanFileContainer.isCompressedFileName(file));
+    }
+
+    @Test
+    @DisplayName("Replacing a file keeps its permissions")
+    public void testKeepPermissions() throws IOException {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"), "POSIX file system");
+        Path file = mDirectory.resolve("plan.xml");
+        PlanFileContainer.write(file, writer -> writer.write(CONTENT));
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-rw-r--");
+        Files.setPosixFilePermissions(file, permissions);
+
+        PlanFileContainer.write(file, writer -> writer.write(CONTENT));
+        assertEquals(permissions, Files.getPosixFilePermissions(file));
+    }
+
+    @Test
+    @DisplayName("Compressed plan files are loaded by the plan file IO")
+    public void testDeserializeCompressedPlanFile() throws IOException {
+        Plan plan = Plan.newPlan();
+        GuideLine guideLine = GuideLine.create("Achse Küche", GuideLineDirection.Vertical, Length.ofCM(420), plan, new ArrayList<>());
+        Path file = mDirectory.resolve("plan." + PlanFileContainer.COMPRESSED_FILE_EXTENSION);
+        PlanFileIO.serializePlanFile(new PlanFile(plan, new UiState()), file);
+        assertTrue(startsWithGZIPMagic(file));
+
+        Plan loadedPlan = PlanFileIO.deserializePlanFile(file).getPlan();
+        assertEquals(plan.getId(), loadedPlan.getId());
+        GuideLine loadedGuideLine = loadedPlan.getGuideLines().get(guideLine.getId());
+        assertEquals(guideLine.getName(), loadedGuideLine.getName());
+        assertEquals(guideLine.getDirection(), loadedGuideLine.getDirection());
+        assertEquals(guideLine.getPosition(), loadedGuideLine.getPosition());
+    }
+}
@@ -0,0 +1,330 @@
+package de.dh.cad.architect.ui.view;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.dh.cad.architect.model.Plan;
+import de.dh.cad.architect.model.changes.IModelChange;
+import de.dh.cad.architect.model.coords.Dimensions2D;
+import de.dh.cad.architect.model.coords.IPosition;
+import de.dh.cad.architect.model.coords.Length;
+import de.dh.cad.architect.model.coords.Position2D;
+import de.dh.cad.architect.model.objects.Anchor;
+import de.dh.cad.architect.model.objects.BaseAnchoredObject;
+import de.dh.cad.architect.model.objects.BaseObject;
+import de.dh.cad.architect.model.objects.Floor;
+import de.dh.cad.architect.model.objects.Wall;
+import de.dh.cad.architect.model.objects.WallHole;
+import de.dh.cad.architect.model.wallmodel.WallDockEnd;
+
+/**
+ * Test class for {@link ObjectReconcileOperation}.
+ *
+ * The benchmark {@link #benchmarkDragCornerIn500WallPlan()} is only executed if the system property
+ * {@value #BENCHMARK_PROPERTY} is set to {@code true}.
+ */
+public class ObjectReconcileOperationTest {
+    private static final Logger log = LoggerFactory.getLogger(ObjectReconcileOperationTest.class);
+
+    protected static final String BENCHMARK_PROPERTY = "architect.test.benchmark";
+
+    /**
+     * Upper bound for the reconcile time of a single drag step, with a generous margin for slow machines.
+     * Dragging must stay interactive, so a drag step should take much less than a frame.
+     */
+    protected static final double MAX_DRAG_STEP_MILLIS = 50;
+
+    protected static final Length CELL_SIZE = Length.ofM(4);
+    protected static final Length WALL_THICKNESS = Length.ofCM(24);
+    protected static final Length WALL_HEIGHT = Length.ofCM(250);
+
+    /**
+     * Number of independent grid plans in the parallel reconciliation test.
+     */
+    protected static final int NUM_PARALLEL_COMPONENTS = 8;
+
+    /**
+     * Plan with a grid of rectangular rooms. Each grid line between two crossings is a wall, the walls are docked at the crossings.
+     * Each room has a floor whose edges are docked to the inner wall corners, every third wall has a wall hole.
+     */
+    protected static class GridPlan {
+        protected final Plan mPlan = Plan.newPlan();
+        protected final int mNumRows;
+        protected final int mNumColumns;
+        protected final Length mOffsetX;
+        protected final Anchor[][] mCrossingAnchors; // Dock master of each crossing
+        protected final List<BaseAnchoredObject> mObjects = new ArrayList<>();
+
+        public GridPlan(int numRows, int numColumns, Length offsetX) {
+            mNumRows = numRows;
+            mNumColumns = numColumns;
+            mOffsetX = offsetX;
+            mCrossingAnchors = new Anchor[numRows + 1][numColumns + 1];
+            List<IModelChange> changeTrace = new ArrayList<>();
+            int wallIndex = 0;
+            for (int row = 0; row <= numRows; row++) {
+                for (int column = 0; column <= numColumns; column++) {
+                    if (column < numColumns) {
+                        createWall(row, column, row, column + 1, wallIndex++, changeTrace);
+                    }
+                    if (row < numRows) {
+                        createWall(row, column, row + 1, column, wallIndex++, changeTrace);
+                    }
+                }
+            }
+            // Settle walls before docking floors to their corners
+            reconcileAll(changeTrace);
+            for (int row = 0; row < numRows; row++) {
+                for (int column = 0; column < numColumns; column++) {
+                    createFloor(row, column, changeTrace);
+                }
+            }
+            reconcileAll(changeTrace);
+        }
+
+        public Position2D getCrossingPosition(int row, int column) {
+            return new Position2D(mOffsetX.plus(CELL_SIZE.times(column)), CELL_SIZE.times(row));
+        }
+
+        public Anchor getCrossingAnchor(int row, int column) {
+            return mCrossingAnchors[row][column];
+        }
+
+        public List<BaseAnchoredObject> getObjects() {
+            return mObjects;
+        }
+
+        public int getNumWalls() {
+            return mPlan.getWalls().size();
+        }
+
+        protected void createWall(int rowA, int columnA, int rowB, int columnB, int wallIndex, List<IModelChange> changeTrace) {
+            Wall wall = Wall.createFromHandlePositions("Wall " + wallIndex, WALL_THICKNESS, WALL_HEIGHT, WALL_HEIGHT,
+                getCrossingPosition(rowA, columnA), getCrossingPosition(rowB, columnB), mPlan, changeTrace);
+            mObjects.add(wall);
+            dockToCrossing(wall.getAnchorWallHandleA(), rowA, columnA, changeTrace);
+            dockToCrossing(wall.getAnchorWallHandleB(), rowB, columnB, changeTrace);
+            if (wallIndex % 3 == 0) {
+                mObjects.add(WallHole.createFromParameters("Hole " + wallIndex, Length.ofCM(90), new Dimensions2D(Length.ofCM(100), Length.ofCM(120)),
+                    WallDockEnd.A, Length.ofCM(80), wall, changeTrace));
+            }
+        }
+
+        protected void dockToCrossing(Anchor wallHandle, int row, int column, List<IModelChange> changeTrace) {
+            Anchor crossingAnchor = mCrossingAnchors[row][column];
+            if (crossingAnchor == null) {
+                mCrossingAnchors[row][column] = wallHandle;
+            } else {
+                wallHandle.setDockMaster(crossingAnchor, changeTrace);
+            }
+        }
+
+        protected void createFloor(int row, int column, List<IModelChange> changeTrace) {
+            Length halfThickness = WALL_THICKNESS.times(0.5);
+            List<Position2D> innerCorners = new ArrayList<>();
+            innerCorners.add(getCrossingPosition(row, column).movedX(halfThickness).movedY(halfThickness));
+            innerCorners.add(getCrossingPosition(row, column + 1).movedX(halfThickness.negated()).movedY(halfThickness));
+            innerCorners.add(getCrossingPosition(row + 1, column + 1).movedX(halfThickness.negated()).movedY(halfThickness.negated()));
+            innerCorners.add(getCrossingPosition(row + 1, column).movedX(halfThickness).movedY(halfThickness.negated()));
+            Floor floor = Floor.create(0, Length.ZERO, "Floor " + row + "/" + column, innerCorners, mPlan, changeTrace);
+            mObjects.add(floor);
+            int[][] crossings = new int[][] {{row, column}, {row, column + 1}, {row + 1, column + 1}, {row + 1, column}};
+            List<Anchor> edgeHandles = floor.getEdgeHandleAnchors();
+            for (int i = 0; i < edgeHandles.size(); i++) {
+                Anchor edgeHandle = edgeHandles.get(i);
+                Anchor wallCorner = findNearestLowerWallCorner(crossings[i][0], crossings[i][1], edgeHandle.projectionXY());
+                edgeHandle.setDockMaster(wallCorner, changeTrace);
+                edgeHandle.setPosition(ObjectReconcileOperation.mapTargetPositionForAnchor(edgeHandle, wallCorner.getPosition()), changeTrace);
+            }
+        }
+
+        protected Anchor findNearestLowerWallCorner(int row, int column, Position2D position) {
+            Anchor result = null;
+            Length resultDistance = null;
+            for (Anchor wallHandle : mCrossingAnchors[row][column].getAllDockedAnchors()) {
+                Wall wall = (Wall) wallHandle.getAnchorOwner();
+                for (Anchor corner : List.of(wall.getAnchorWallCornerLA1(), wall.getAnchorWallCornerLA2(), wall.getAnchorWallCornerLB1(), wall.getAnchorWallCornerLB2())) {
+                    Length distance = corner.projectionXY().distance(position);
+                    if (resultDistance == null || distance.lt(resultDistance)) {
+                        result = corner;
+                        resultDistance = distance;
+                    }
+                }
+            }
+            return result;
+        }
+
+        public ObjectReconcileOperation reconcileAll(List<IModelChange> changeTrace) {
+            ObjectReconcileOperation result = new ObjectReconcileOperation("Reconcile all", mObjects);
+            result.reconcileObjects(changeTrace);
+            return result;
+        }
+
+        /**
+         * Moves the dock at the given crossing like a drag operation in the construction view does.
+         */
+        public Collection<BaseAnchoredObject> moveCrossing(int row, int column, Position2D position, List<IModelChange> changeTrace) {
+            Collection<BaseAnchoredObject> result = new ArrayList<>();
+            for (Anchor anchor : mCrossingAnchors[row][column].getAllDockedAnchors()) {
+                anchor.setPosition(ObjectReconcileOperation.mapTargetPositionForAnchor(anchor, position), changeTrace);
+                result.add(anchor.getAnchorOwner());
+            }
+            return result;
+        }
+
+        public Map<String, IPosition> getAnchorPositions() {
+            Map<String, IPosition> result = new TreeMap<>();
+            for (BaseAnchoredObject object : mObjects) {
+                for (Anchor anchor : object.getAnchors()) {
+                    result.put(anchor.getId(), anchor.getPosition());
+                }
+            }
+            return result;
+        }
+    }
+
+    protected static void assertSamePositions(Map<String, IPosition> expected, Map<String, IPosition> actual) {
+        assertEquals(expected.keySet(), actual.keySet(), "Anchors differ");
+        for (Map.Entry<String, IPosition> entry : expected.entrySet()) {
+            IPosition actualPosition = actual.get(entry.getKey());
+            assertTrue(ObjectReconcileOperation.isCompatiblePosition(entry.getValue(), actualPosition),
+                "Anchor " + entry.getKey() + " is at " + actualPosition.coordsToString() + ", expected " + entry.getValue().coordsToString());
+        }
+    }
+
+    @Test
+    @DisplayName("Dragging a corner reconciles the affected objects completely")
+    public void testDragCornerIsComplete() {
+        GridPlan gridPlan = new GridPlan(6, 6, Length.ZERO);
+        List<IModelChange> changeTrace = new ArrayList<>();
+        Position2D position = gridPlan.getCrossingPosition(3, 3);
+        for (int step = 1; step <= 10; step++) {
+            Collection<BaseAnchoredObject> movedObjects = gridPlan.moveCrossing(3, 3, position.movedX(Length.ofCM(7 * step)).movedY(Length.ofCM(-4 * step)), changeTrace);
+            ObjectReconcileOperation oro = new ObjectReconcileOperation("Drag corner", movedObjects);
+            oro.reconcileObjects(changeTrace);
+
+            assertEquals(1, oro.getNumPasses(), "Reconcile operation should settle in one pass");
+            assertTrue(oro.getNumReconciledObjects() < gridPlan.getObjects().size() / 2, "Too many objects reconciled: " + oro);
+
+            // Reconciling all objects again must not change anything
+            Map<String, IPosition> incrementalPositions = gridPlan.getAnchorPositions();
+            gridPlan.reconcileAll(changeTrace);
+            assertSamePositions(incrementalPositions, gridPlan.getAnchorPositions());
+        }
+    }
+
+    @Test
+    @DisplayName("Parallel reconciliation of independent components produces the same result as the sequential reconciliation")
+    public void testParallelComponents() {
+        List<Map<String, IPosition>> results = new ArrayList<>();
+        List<List<String>> changeTraces = new ArrayList<>();
+        List<Integer> numReconciledObjects = new ArrayList<>();
+        for (boolean parallel : new boolean[] {false, true}) {
+            List<GridPlan> gridPlans = new ArrayList<>();
+            for (int i = 0; i < NUM_PARALLEL_COMPONENTS; i++) {
+                gridPlans.add(new GridPlan(6, 6, Length.ofM(100 * i)));
+            }
+            List<IModelChange> changeTrace = new ArrayList<>();
+            Collection<BaseAnchoredObject> movedObjects = new ArrayList<>();
+            for (int i = 0; i < gridPlans.size(); i++) {
+                GridPlan gridPlan = gridPlans.get(i);
+                int row = 1 + i % 5;
+                int column = 5 - i % 5;
+                movedObjects.addAll(gridPlan.moveCrossing(row, column, gridPlan.getCrossingPosition(row, column)
+                    .movedX(Length.ofCM(10 * (i + 1))).movedY(Length.ofCM(-7 * i)), changeTrace));
+            }
+            changeTrace.clear();
+            ObjectReconcileOperation oro = new ObjectReconcileOperation("Drag corners", movedObjects);
+            oro.setParallelComponentsEnabled(parallel);
+            oro.reconcileObjects(changeTrace);
+
+            ReconcilePassStatistics passStatistics = oro.getPassStatistics().get(0);
+            assertEquals(NUM_PARALLEL_COMPONENTS, passStatistics.getNumComponents(), "Number of components");
+            assertEquals(parallel, passStatistics.isParallel(), "Parallel execution");
+
+            // Ids are generated randomly, so we compare the anchors by their position in the object lists
+            Map<String, IPosition> positions = new TreeMap<>();
+            Map<BaseObject, String> keys = new HashMap<>();
+            int index = 0;
+            for (GridPlan gridPlan : gridPlans) {
+                for (BaseAnchoredObject object : gridPlan.getObjects()) {
+                    keys.put(object, String.format("%06d", index++));
+                    for (Anchor anchor : object.getAnchors()) {
+                        String key = String.format("%06d", index++);
+                        keys.put(anchor, key);
+                        positions.put(key, anchor.getPosition());
+                    }
+                }
+            }
+            results.add(positions);
+            List<String> changes = new ArrayList<>();
+            for (IModelChange change : changeTrace) {
+                List<String> modifications = new ArrayList<>();
+                for (BaseObject modifiedObject : change.getModifications()) {
+                    modifications.add(keys.getOrDefault(modifiedObject, modifiedObject.getClass().getSimpleName()));
+                }
+                changes.add(change.getClass().getSimpleName() + modifications);
+            }
+            // Objects are healed in hash order, which depends on the generated ids
+            Collections.sort(changes);
+            changeTraces.add(changes);
+            numReconciledObjects.add(oro.getNumReconciledObjects());
+        }
+        assertSamePositions(results.get(0), results.get(1));
+        assertEquals(numReconciledObjects.get(0), numReconciledObjects.get(1), "Number of reconciled objects");
+        assertEquals(changeTraces.get(0), changeTraces.get(1), "Change traces differ");
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = BENCHMARK_PROPERTY, matches = "true")
+    @DisplayName("Benchmark: Drag a corner in a 500 wall plan")
+    public void benchmarkDragCornerIn500WallPlan() {
+        GridPlan gridPlan = new GridPlan(15, 16, Length.ZERO);
+        List<IModelChange> changeTrace = new ArrayList<>();
+        int numWarmupSteps = 200;
+        int numSteps = 1000;
+        long durationNanos = 0;
+        long numReconciledObjects = 0;
+        long numPasses = 0;
+        Position2D position = gridPlan.getCrossingPosition(7, 8);
+        for (int step = 0; step < numWarmupSteps + numSteps; step++) {
+            // Drag the corner back and forth on a circle with 1 m radius
+            double angle = step * 2 * Math.PI / 100;
+            Position2D dragPosition = position.movedX(Length.ofM(Math.cos(angle))).movedY(Length.ofM(Math.sin(angle)));
+            long startTime = System.nanoTime();
+            Collection<BaseAnchoredObject> movedObjects = gridPlan.moveCrossing(7, 8, dragPosition, changeTrace);
+            ObjectReconcileOperation oro = new ObjectReconcileOperation("Drag corner", movedObjects);
+            oro.reconcileObjects(changeTrace);
+            if (step >= numWarmupSteps) {
+                durationNanos += System.nanoTime() - startTime;
+                numReconciledObjects += oro.getNumReconciledObjects();
+                numPasses += oro.getNumPasses();
+            }
+            changeTrace.clear();
+        }
+        double stepMillis = durationNanos / 1_000_000.0 / numSteps;
+        double reconciledObjectsPerStep = (double) numReconciledObjects / numSteps;
+        log.info(String.format("Drag corner in plan with %d walls, %d objects: %.3f ms per drag step, %.1f objects reconciled, %.2f passes",
+            gridPlan.getNumWalls(), gridPlan.getObjects().size(),
+            stepMillis, reconciledObjectsPerStep, (double) numPasses / numSteps));
+
+        assertEquals(numSteps, numPasses, "Each drag step should settle in one pass");
+        // Only the neighborhood of the dragged corner must be reconciled, independent of the plan size
+        assertTrue(reconciledObjectsPerStep < gridPlan.getObjects().size() / 10, "Too many objects reconciled per drag step: " + reconciledObjectsPerStep);
+        assertTrue(stepMillis < MAX_DRAG_STEP_MILLIS, "Drag step took " + stepMillis + " ms");
+    }
+}
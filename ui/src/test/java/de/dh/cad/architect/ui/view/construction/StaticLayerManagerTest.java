@@ -0,0 +1,326 @@
+package de.dh.cad.architect.ui.view.construction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.dh.cad.architect.model.coords.Length;
+import de.dh.cad.architect.model.objects.GuideLine;
+import de.dh.cad.architect.model.objects.GuideLine.GuideLineDirection;
+import de.dh.cad.architect.ui.Constants;
+import de.dh.cad.architect.ui.objects.Abstract2DRepresentation;
+import javafx.application.Platform;
+import javafx.geometry.Bounds;
+import javafx.scene.Scene;
+import javafx.scene.image.Image;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Text;
+
+/**
+ * Test class for {@link StaticLayerManager}.
+ * Checks the switching of representations between the live nodes and the static layer and the repainting of the tiles.
+ *
+ * The benchmark {@link #benchmarkPanAndZoom()} pans and zooms a plan of {@value #NUM_BENCHMARK_OBJECTS} objects with and
+ * without static layer and compares the frame times. A frame consists of the view update, CSS, layout and a snapshot
+ * of the scene, which renders it. The benchmark is only executed if the system property {@value #BENCHMARK_PROPERTY}
+ * is set to {@code true}.
+ */
+public class StaticLayerManagerTest {
+    private static final Logger log = LoggerFactory.getLogger(StaticLayerManagerTest.class);
+
+    protected static final String BENCHMARK_PROPERTY = "architect.test.benchmark";
+
+    protected static final int NUM_BENCHMARK_OBJECTS = 5000;
+    protected static final int NUM_OBJECTS = 300;
+    protected static final int NUM_COLUMNS = 100;
+    protected static final double OBJECT_SPACING = 400;
+    protected static final double OBJECT_LENGTH = 380;
+    protected static final double OBJECT_THICKNESS = 24;
+    protected static final double VIEW_WIDTH = 1600;
+    protected static final double VIEW_HEIGHT = 1000;
+    protected static final int NUM_WARMUP_FRAMES = 10;
+    protected static final int NUM_FRAMES = 100;
+    protected static final double PAN_STEP = 10;
+    protected static final double ZOOM_FACTOR = 1.01;
+
+    /**
+     * Wall-like representation, every fifth one has a label.
+     */
+    protected static class TestRepresentation extends Abstract2DRepresentation {
+        public TestRepresentation(GuideLine modelObject, Abstract2DView parentView, int index) {
+            super(modelObject, parentView);
+            double x = (index % NUM_COLUMNS) * OBJECT_SPACING;
+            double y = (index / NUM_COLUMNS) * OBJECT_SPACING;
+            Rectangle rect = new Rectangle(x, y, OBJECT_LENGTH, OBJECT_THICKNESS);
+            rect.setFill(Color.LIGHTGRAY);
+            rect.setStroke(Color.BLACK);
+            getChildren().add(rect);
+            if (index % 5 == 0) {
+                getChildren().add(new Text(x, y + OBJECT_THICKNESS * 2, modelObject.getName()));
+            }
+            setViewOrder(Constants.VIEW_ORDER_WALL);
+        }
+    }
+
+    /**
+     * Construction view which is set up without UI controller, containing only the test representations.
+     */
+    protected static class TestView extends ConstructionView {
+        public TestView(int numObjects) {
+            super(null);
+            mTransformedRoot = new Pane();
+            mTopLayer = new Pane();
+            mCenterPane.getChildren().addAll(mTransformedRoot, mTopLayer);
+            List<Abstract2DRepresentation> reprs = new ArrayList<>(numObjects);
+            for (int i = 0; i < numObjects; i++) {
+                GuideLine modelObject = new GuideLine("object-" + i, "Object " + i, GuideLineDirection.Horizontal, Length.ZERO);
+                TestRepresentation repr = new TestRepresentation(modelObject, this, i);
+                registerRepresentation(modelObject.getId(), repr);
+                reprs.add(repr);
+            }
+            mTransformedRoot.getChildren().addAll(reprs);
+        }
+
+        public void enableStaticLayer() {
+            mStaticLayerManager = new StaticLayerManager(this);
+            mStaticLayerManager.install();
+            mStaticLayerManager.update();
+        }
+
+        public void pan(double dx) {
+            mRootTransform.appendTranslation(dx / mScale, 0);
+            updateToTransform(false);
+        }
+
+        public void zoom(double factor) {
+            mRootTransform.appendScale(factor, factor);
+            mScale *= factor;
+            mScaleCompensation = 1 / mScale;
+            updateToTransform(true);
+        }
+    }
+
+    @BeforeAll
+    public static void startFx() {
+        try {
+            Platform.startup(() -> {
+                // Nothing to do
+            });
+        } catch (IllegalStateException e) {
+            // Toolkit was already started
+        }
+    }
+
+    protected static <T> T runOnFxThread(Callable<T> task) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(task.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result.get();
+    }
+
+    protected static void renderFrame(TestView view, Scene scene) {
+        StaticLayerManager manager = view.getStaticLayerManager();
+        if (manager != null) {
+            manager.update();
+        }
+        scene.getRoot().applyCss();
+        scene.getRoot().layout();
+        scene.snapshot(null);
+    }
+
+    /**
+     * Executes the given step for each frame and returns the average frame time in milliseconds.
+     */
+    protected static double measureFrameMillis(TestView view, Scene scene, Runnable step) {
+        for (int i = 0; i < NUM_WARMUP_FRAMES; i++) {
+            step.run();
+            renderFrame(view, scene);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < NUM_FRAMES; i++) {
+            step.run();
+            renderFrame(view, scene);
+        }
+        return (System.nanoTime() - start) / 1e6 / NUM_FRAMES;
+    }
+
+    /**
+     * Returns the average pan and zoom frame times in milliseconds.
+     */
+    protected static double[] benchmark(boolean staticLayer) throws Exception {
+        return runOnFxThread(() -> {
+            TestView view = new TestView(NUM_BENCHMARK_OBJECTS);
+            Scene scene = new Scene(view, VIEW_WIDTH, VIEW_HEIGHT);
+            renderFrame(view, scene);
+            if (staticLayer) {
+                view.enableStaticLayer();
+                renderFrame(view, scene);
+                StaticLayerManager manager = view.getStaticLayerManager();
+                assertEquals(NUM_BENCHMARK_OBJECTS, manager.getNumStaticRepresentations());
+                // Only the tiles group and the static group remain in the live scene graph
+                assertEquals(2, view.getTransformedRoot().getChildren().size());
+            }
+            double panMillis = measureFrameMillis(view, scene, () -> view.pan(PAN_STEP));
+            double zoomMillis = measureFrameMillis(view, scene, () -> view.zoom(ZOOM_FACTOR));
+            return new double[] {panMillis, zoomMillis};
+        });
+    }
+
+    /**
+     * Creates a view of {@value #NUM_OBJECTS} objects with enabled static layer, all objects are static.
+     */
+    protected static TestView createStaticView(Scene[] scene) {
+        TestView view = new TestView(NUM_OBJECTS);
+        scene[0] = new Scene(view, VIEW_WIDTH, VIEW_HEIGHT);
+        renderFrame(view, scene[0]);
+        view.enableStaticLayer();
+        renderFrame(view, scene[0]);
+        return view;
+    }
+
+    protected static boolean isStatic(StaticLayerManager manager, Abstract2DRepresentation repr) {
+        return repr.getParent() == manager.mStaticGroup && manager.mStaticBounds.containsKey(repr);
+    }
+
+    protected static boolean isLive(TestView view, Abstract2DRepresentation repr) {
+        return repr.getParent() == view.getTransformedRoot() && !view.getStaticLayerManager().mStaticBounds.containsKey(repr);
+    }
+
+    @Test
+    @DisplayName("Selected objects are made live and static again after deselection")
+    public void testMakeLiveAndStatic() throws Exception {
+        runOnFxThread(() -> {
+            Scene[] scene = new Scene[1];
+            TestView view = createStaticView(scene);
+            StaticLayerManager manager = view.getStaticLayerManager();
+            assertEquals(NUM_OBJECTS, manager.getNumStaticRepresentations());
+            // Only the tiles group and the static group remain in the live scene graph
+            assertEquals(2, view.getTransformedRoot().getChildren().size());
+            assertTrue(manager.mTilesGroup.getChildren().size() > 0, "Tiles must be displayed");
+            assertFalse(manager.mStaticGroup.isVisible(), "Static group must only be visible while painting");
+
+            // Objects don't overlap, thus only the selected object is made live
+            Abstract2DRepresentation selected = view.getRepresentationByModelId("object-102");
+            selected.setSelected(true);
+            renderFrame(view, scene[0]);
+            assertTrue(isLive(view, selected), "Selected object must be live");
+            assertEquals(NUM_OBJECTS - 1, manager.getNumStaticRepresentations());
+            for (Abstract2DRepresentation repr : view.getAllRepresentations()) {
+                if (repr != selected) {
+                    assertTrue(isStatic(manager, repr), "Object " + repr.getModelId() + " must be static");
+                }
+            }
+
+            selected.setSelected(false);
+            renderFrame(view, scene[0]);
+            assertTrue(isStatic(manager, selected), "Deselected object must be static again");
+            assertEquals(NUM_OBJECTS, manager.getNumStaticRepresentations());
+            assertEquals(2, view.getTransformedRoot().getChildren().size());
+
+            // Disposing makes all objects live
+            manager.dispose();
+            assertEquals(0, manager.getNumStaticRepresentations());
+            assertEquals(NUM_OBJECTS, view.getTransformedRoot().getChildren().size());
+            return null;
+        });
+    }
+
+    @Test
+    @DisplayName("Only the tiles intersecting an object are painted again when the object changes its live state")
+    public void testTileInvalidation() throws Exception {
+        runOnFxThread(() -> {
+            Scene[] scene = new Scene[1];
+            TestView view = createStaticView(scene);
+            StaticLayerManager manager = view.getStaticLayerManager();
+            StaticLayerManager.Level level = manager.mDisplayedLevel;
+            Map<StaticLayerManager.TileKey, Image> imagesBefore = new HashMap<>();
+            for (Entry<StaticLayerManager.TileKey, StaticLayerManager.Tile> entry : level.mTiles.entrySet()) {
+                StaticLayerManager.Tile tile = entry.getValue();
+                assertFalse(tile.mDirty, "Displayed tiles must be painted");
+                imagesBefore.put(entry.getKey(), tile.mImageView.getImage());
+            }
+
+            Abstract2DRepresentation selected = view.getRepresentationByModelId("object-102");
+            Bounds bounds = selected.getBoundsInParent();
+            int[] range = level.getTileRange(bounds);
+
+            // Invalidation marks the tiles of the displayed level as dirty and keeps their images
+            manager.invalidate(bounds);
+            int numDirty = 0;
+            for (Entry<StaticLayerManager.TileKey, StaticLayerManager.Tile> entry : level.mTiles.entrySet()) {
+                boolean inRange = StaticLayerManager.isInRange(entry.getKey(), range);
+                assertEquals(inRange, entry.getValue().mDirty, "Dirty state of tile " + entry.getKey());
+                assertSame(imagesBefore.get(entry.getKey()), entry.getValue().mImageView.getImage());
+                if (inRange) {
+                    numDirty++;
+                }
+            }
+            assertTrue(numDirty > 0, "The object must intersect displayed tiles");
+
+            // Making the object live paints the tiles in its bounds without the object
+            selected.setSelected(true);
+            renderFrame(view, scene[0]);
+            assertSame(level, manager.mDisplayedLevel);
+            for (Entry<StaticLayerManager.TileKey, StaticLayerManager.Tile> entry : level.mTiles.entrySet()) {
+                StaticLayerManager.Tile tile = entry.getValue();
+                assertFalse(tile.mDirty, "Tile " + entry.getKey() + " must be painted");
+                Image image = tile.mImageView.getImage();
+                if (StaticLayerManager.isInRange(entry.getKey(), range)) {
+                    assertNotSame(imagesBefore.get(entry.getKey()), image, "Tile " + entry.getKey() + " must be painted again");
+                } else {
+                    assertSame(imagesBefore.get(entry.getKey()), image, "Tile " + entry.getKey() + " must not be painted again");
+                }
+            }
+
+            // Panning only paints the tiles which scroll into view
+            Map<StaticLayerManager.TileKey, Image> imagesAfter = new HashMap<>();
+            for (Entry<StaticLayerManager.TileKey, StaticLayerManager.Tile> entry : level.mTiles.entrySet()) {
+                imagesAfter.put(entry.getKey(), entry.getValue().mImageView.getImage());
+            }
+            view.pan(PAN_STEP * 30);
+            int numPainted = manager.updateTiles();
+            assertEquals(level.mTiles.size() - imagesAfter.size(), numPainted, "Number of painted tiles");
+            for (Entry<StaticLayerManager.TileKey, Image> entry : imagesAfter.entrySet()) {
+                assertSame(entry.getValue(), level.mTiles.get(entry.getKey()).mImageView.getImage());
+            }
+            return null;
+        });
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = BENCHMARK_PROPERTY, matches = "true")
+    @DisplayName("Pan and zoom frame times of a 5000 object plan with and without static layer")
+    public void benchmarkPanAndZoom() throws Exception {
+        double[] liveMillis = benchmark(false);
+        double[] staticMillis = benchmark(true);
+        log.info(String.format("Frame times for %d objects: pan %.2f ms live, %.2f ms static layer; zoom %.2f ms live, %.2f ms static layer",
+            NUM_BENCHMARK_OBJECTS, liveMillis[0], staticMillis[0], liveMillis[1], staticMillis[1]));
+        assertTrue(staticMillis[0] < liveMillis[0], "Panning with static layer must be faster than with live nodes");
+        // While zooming, the tiles of the former zoom level are scaled instead of painting the objects
+        assertTrue(staticMillis[1] < liveMillis[1], "Zooming with static layer must be faster than with live nodes");
+    }
+}
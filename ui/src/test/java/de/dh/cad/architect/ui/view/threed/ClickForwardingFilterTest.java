@@ -0,0 +1,70 @@
+package de.dh.cad.architect.ui.view.threed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javafx.event.Event;
+import javafx.scene.Group;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+
+/**
+ * Test class for {@link ClickForwardingFilter}.
+ * Builds a node tree like the one of a 3D view: The filter is installed at the root, the click hits some other node and
+ * must be forwarded to the resolved target node.
+ */
+public class ClickForwardingFilterTest {
+    protected static MouseEvent createClick() {
+        return new MouseEvent(MouseEvent.MOUSE_CLICKED, 10, 20, 10, 20, MouseButton.PRIMARY, 1,
+            false, false, false, false, true, false, false, false, false, true, null);
+    }
+
+    @Test
+    @DisplayName("A click is forwarded to the resolved target exactly once")
+    public void testClickReachesTargetOnce() {
+        Group root = new Group();
+        Group target = new Group();
+        Group background = new Group();
+        root.getChildren().addAll(target, background);
+
+        int[] numResolves = new int[1];
+        root.addEventFilter(MouseEvent.MOUSE_CLICKED, new ClickForwardingFilter(event -> {
+            numResolves[0]++;
+            return target;
+        }));
+        List<MouseEvent> targetClicks = new ArrayList<>();
+        target.addEventHandler(MouseEvent.MOUSE_CLICKED, targetClicks::add);
+        List<MouseEvent> backgroundClicks = new ArrayList<>();
+        background.addEventHandler(MouseEvent.MOUSE_CLICKED, backgroundClicks::add);
+
+        Event.fireEvent(background, createClick());
+
+        assertEquals(1, numResolves[0], "Number of target resolutions");
+        assertEquals(1, targetClicks.size(), "Number of clicks at the target");
+        assertSame(target, targetClicks.get(0).getTarget());
+        assertTrue(targetClicks.get(0).isStillSincePress());
+        assertEquals(0, backgroundClicks.size(), "The original click must be consumed");
+    }
+
+    @Test
+    @DisplayName("A click without resolved target is dispatched normally")
+    public void testUnresolvedClick() {
+        Group root = new Group();
+        Group background = new Group();
+        root.getChildren().add(background);
+        root.addEventFilter(MouseEvent.MOUSE_CLICKED, new ClickForwardingFilter(event -> null));
+        List<MouseEvent> backgroundClicks = new ArrayList<>();
+        background.addEventHandler(MouseEvent.MOUSE_CLICKED, backgroundClicks::add);
+
+        Event.fireEvent(background, createClick());
+
+        assertEquals(1, backgroundClicks.size());
+    }
+}
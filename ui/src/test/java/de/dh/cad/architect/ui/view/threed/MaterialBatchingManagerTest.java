@@ -0,0 +1,252 @@
+package de.dh.cad.architect.ui.view.threed;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.dh.cad.architect.fx.nodes.CombinedTransformGroup;
+import de.dh.cad.architect.model.coords.Length;
+import de.dh.cad.architect.model.objects.Wall;
+import de.dh.cad.architect.ui.objects.AbstractSolid3DRepresentation;
+import de.dh.cad.architect.ui.objects.SurfaceData;
+import de.dh.cad.architect.ui.persistence.ViewState;
+import javafx.application.Platform;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.CullFace;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.Shape3D;
+import javafx.scene.shape.TriangleMesh;
+import javafx.scene.shape.VertexFormat;
+
+/**
+ * Test class for {@link MaterialBatchingManager}.
+ * Builds a 3D view without UI controller which contains objects with one triangle surface each and checks the batches
+ * built for them.
+ */
+public class MaterialBatchingManagerTest {
+    protected static final PhongMaterial MATERIAL = new PhongMaterial(Color.RED);
+
+    /**
+     * Object with a single triangle surface.
+     */
+    protected static class TestRepresentation extends AbstractSolid3DRepresentation {
+        protected final SurfaceData<MeshView> mSurface;
+
+        public TestRepresentation(Abstract3DView parentView, int index, CullFace cullFace) {
+            super(new Wall("wall-" + index, "Wall " + index, Length.ofCM(10), Length.ofCM(250), Length.ofCM(250)), parentView);
+            TriangleMesh mesh = new TriangleMesh(VertexFormat.POINT_TEXCOORD);
+            mesh.getPoints().setAll(index * 100, 0, 0, index * 100 + 50, 0, 0, index * 100, 50, 0);
+            mesh.getTexCoords().setAll(0, 0, 1, 0, 0, 1);
+            mesh.getFaces().setAll(0, 0, 1, 1, 2, 2);
+            MeshView meshView = new MeshView(mesh);
+            meshView.setMaterial(MATERIAL);
+            meshView.setCullFace(cullFace);
+            getChildren().add(meshView);
+            mSurface = new SurfaceData<>(this, "Surface", meshView);
+            registerSurface(mSurface);
+        }
+
+        public SurfaceData<MeshView> getSurface() {
+            return mSurface;
+        }
+    }
+
+    /**
+     * 3D view which is set up without UI controller, containing only the test representations.
+     */
+    protected static class TestView extends Abstract3DView {
+        public TestView() {
+            super(null);
+            mTransformedRoot = new CombinedTransformGroup();
+            mMaterialBatchingManager = new MaterialBatchingManager(this);
+            mTransformedRoot.getChildren().add(mMaterialBatchingManager.getBatchesGroup());
+        }
+
+        public TestRepresentation addObject(CullFace cullFace) {
+            TestRepresentation result = new TestRepresentation(this, mRepresentationsById.size(), cullFace);
+            mTransformedRoot.getChildren().add(result);
+            return result;
+        }
+
+        @Override
+        protected void initializeFromPlan() {
+            // Not used
+        }
+
+        @Override
+        public String getTitle() {
+            return "Test";
+        }
+
+        @Override
+        public Class<? extends ViewState> getViewStateClass() {
+            return null;
+        }
+
+        @Override
+        public Optional<? extends ViewState> getViewState() {
+            return Optional.empty();
+        }
+
+        @Override
+        public void setViewState(ViewState viewState) {
+            // Not used
+        }
+    }
+
+    @BeforeAll
+    public static void startFx() {
+        try {
+            Platform.startup(() -> {
+                // Nothing to do
+            });
+        } catch (IllegalStateException e) {
+            // Toolkit was already started
+        }
+    }
+
+    protected static <T> T runOnFxThread(Callable<T> task) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(task.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result.get();
+    }
+
+    protected static int[] getBatchFaces(MaterialBatchingManager.Batch batch) {
+        return ((TriangleMesh) batch.getMeshView().getMesh()).getFaces().toArray(null);
+    }
+
+    protected static int[] getMemberFaces(MaterialBatchingManager.Batch batch, SurfaceData<? extends Shape3D> surface) {
+        int start = batch.mMemberFaceOffsets[batch.mMemberIndices.get(surface)] * 6;
+        int[] result = new int[6];
+        System.arraycopy(getBatchFaces(batch), start, result, 0, 6);
+        return result;
+    }
+
+    @Test
+    @DisplayName("Surfaces with different cull faces are put into different batches which keep the cull face")
+    public void testBatchesByCullFace() throws Exception {
+        runOnFxThread(() -> {
+            TestView view = new TestView();
+            TestRepresentation back1 = view.addObject(CullFace.BACK);
+            TestRepresentation back2 = view.addObject(CullFace.BACK);
+            TestRepresentation none1 = view.addObject(CullFace.NONE);
+            TestRepresentation none2 = view.addObject(CullFace.NONE);
+            MaterialBatchingManager manager = view.getMaterialBatchingManager();
+            manager.rebuild();
+
+            assertEquals(2, manager.getNumBatches(), "Number of batches");
+            assertEquals(4, manager.getNumBatchedSurfaces(), "Number of batched surfaces");
+            MaterialBatchingManager.Batch backBatch = manager.mSurfaceBatches.get(back1.getSurface());
+            MaterialBatchingManager.Batch noneBatch = manager.mSurfaceBatches.get(none1.getSurface());
+            assertNotSame(backBatch, noneBatch);
+            assertSame(backBatch, manager.mSurfaceBatches.get(back2.getSurface()));
+            assertSame(noneBatch, manager.mSurfaceBatches.get(none2.getSurface()));
+            assertEquals(CullFace.BACK, backBatch.getMeshView().getCullFace());
+            assertEquals(CullFace.NONE, noneBatch.getMeshView().getCullFace());
+            for (TestRepresentation repr : List.of(back1, back2, none1, none2)) {
+                assertFalse(repr.getSurface().getShape().isVisible(), "Batched surface must be hidden");
+            }
+
+            // A surface whose cull face changed is split out of its batch
+            none2.getSurface().getShape().setCullFace(CullFace.BACK);
+            manager.representationChanged(none2);
+            manager.updateChangedRepresentations();
+            assertTrue(noneBatch.mMaskedMembers.contains(none2.getSurface()));
+            assertTrue(none2.getSurface().getShape().isVisible());
+
+            // ... and goes to the batch of its new cull face after the next rebuild
+            manager.rebuild();
+            assertSame(backBatch, manager.mSurfaceBatches.get(none2.getSurface()));
+            assertEquals(3, backBatch.getMembers().size());
+            return null;
+        });
+    }
+
+    @Test
+    @DisplayName("Culled objects are masked in their batches and batches of only culled objects are hidden")
+    public void testCulledObjects() throws Exception {
+        runOnFxThread(() -> {
+            TestView view = new TestView();
+            TestRepresentation repr1 = view.addObject(CullFace.BACK);
+            TestRepresentation repr2 = view.addObject(CullFace.BACK);
+            TestRepresentation repr3 = view.addObject(CullFace.BACK);
+            MaterialBatchingManager manager = view.getMaterialBatchingManager();
+
+            // Objects which are already culled at the time of the rebuild stay masked
+            repr3.setCulled(true);
+            manager.rebuild();
+            assertEquals(1, manager.getNumBatches(), "Number of batches");
+            MaterialBatchingManager.Batch batch = manager.mSurfaceBatches.get(repr1.getSurface());
+            assertEquals(3, batch.getMembers().size());
+            assertEquals(2, manager.getNumBatchedSurfaces(), "Number of batched surfaces");
+            assertArrayEquals(new int[6], getMemberFaces(batch, repr3.getSurface()));
+            assertTrue(batch.getMeshView().isVisible());
+
+            // Culling state changes only touch the faces of the changed object
+            int[] repr1Faces = getMemberFaces(batch, repr1.getSurface());
+            repr1.setCulled(true);
+            repr3.setCulled(false);
+            manager.updateChangedRepresentations();
+            assertArrayEquals(new int[6], getMemberFaces(batch, repr1.getSurface()));
+            assertTrue(getMemberFaces(batch, repr3.getSurface())[2] != 0, "Culling must be reverted");
+            assertFalse(repr3.getSurface().getShape().isVisible(), "Batched surface must stay hidden");
+
+            // All members culled: The batch is hidden
+            repr2.setCulled(true);
+            repr3.setCulled(true);
+            manager.updateChangedRepresentations();
+            assertEquals(0, manager.getNumBatchedSurfaces(), "Number of batched surfaces");
+            assertFalse(batch.getMeshView().isVisible(), "Batch of culled objects must be hidden");
+
+            repr1.setCulled(false);
+            manager.updateChangedRepresentations();
+            assertTrue(batch.getMeshView().isVisible());
+            assertArrayEquals(repr1Faces, getMemberFaces(batch, repr1.getSurface()));
+            return null;
+        });
+    }
+
+    @Test
+    @DisplayName("Culled objects appended to an existing batch stay masked")
+    public void testAppendCulledObject() throws Exception {
+        runOnFxThread(() -> {
+            TestView view = new TestView();
+            TestRepresentation repr1 = view.addObject(CullFace.BACK);
+            view.addObject(CullFace.BACK);
+            TestRepresentation repr3 = view.addObject(CullFace.BACK);
+            MaterialBatchingManager manager = view.getMaterialBatchingManager();
+            repr3.setSelected(true);
+            manager.rebuild();
+            MaterialBatchingManager.Batch batch = manager.mSurfaceBatches.get(repr1.getSurface());
+            assertEquals(2, batch.getMembers().size());
+
+            repr3.setSelected(false);
+            repr3.setCulled(true);
+            manager.updateChangedRepresentations();
+            assertSame(batch, manager.mSurfaceBatches.get(repr3.getSurface()));
+            assertEquals(3, batch.getMembers().size());
+            assertArrayEquals(new int[6], getMemberFaces(batch, repr3.getSurface()));
+            assertEquals(2, manager.getNumBatchedSurfaces(), "Number of batched surfaces");
+            return null;
+        });
+    }
+}
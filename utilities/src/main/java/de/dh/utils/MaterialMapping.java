@@ -21,7 +21,7 @@ package de.dh.utils;
 import java.util.Optional;
 
 /**
- * Configuration options for the application of a raw material texture on a target {@link javafx.scene.paint.Material}.
+ * Configuration options for the application of a raw material texture on a target JavaFX {@code Material}.
  * A material texture can be either {@link LayoutMode#Stretch stretched} or {@link LayoutMode#Tile tiled} to fill a target
  * object.
  */
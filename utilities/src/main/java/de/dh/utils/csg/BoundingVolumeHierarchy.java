@@ -0,0 +1,296 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.utils.csg;
+
+/**
+ * Bounding volume hierarchy over axis aligned bounding boxes of arbitrary primitives, used to find the nearest primitive
+ * hit by a ray without testing every primitive.
+ *
+ * The hierarchy is built top-down: Each node's primitives are split at the median of their centroids along the longest
+ * axis of the centroid bounds until a node contains at most {@link #MAX_LEAF_SIZE} primitives. Nodes are stored in flat
+ * arrays, the children of an inner node are stored next to each other.
+ * The primitives themselves are not known to this class, the caller tests them via an {@link IPrimitiveIntersector}.
+ */
+public class BoundingVolumeHierarchy {
+    public static final int MAX_LEAF_SIZE = 4;
+
+    /**
+     * Tests a single primitive against the ray of a {@link BoundingVolumeHierarchy#raycast(double, double, double, double, double, double, double, IPrimitiveIntersector, RayHit) ray cast}.
+     */
+    public interface IPrimitiveIntersector {
+        /**
+         * Returns the ray parameter of the nearest intersection of the ray with the given primitive if it is smaller than
+         * {@code maxT}, else {@link Double#POSITIVE_INFINITY}.
+         */
+        double intersect(int primitive, double maxT);
+    }
+
+    /**
+     * Result of a ray cast: The index of the nearest primitive hit by the ray and the ray parameter of the hit.
+     */
+    public static class RayHit {
+        protected int mPrimitive = -1;
+        protected double mT = Double.POSITIVE_INFINITY;
+
+        public boolean isHit() {
+            return mPrimitive >= 0;
+        }
+
+        public int getPrimitive() {
+            return mPrimitive;
+        }
+
+        public double getT() {
+            return mT;
+        }
+
+        public void reset() {
+            mPrimitive = -1;
+            mT = Double.POSITIVE_INFINITY;
+        }
+
+        public void set(int primitive, double t) {
+            mPrimitive = primitive;
+            mT = t;
+        }
+    }
+
+    protected final int mNumPrimitives;
+    protected final int[] mPrimitiveIndices;
+
+    // Per node: min x, y, z, max x, y, z
+    protected float[] mNodeBounds;
+    // Per node: For leaves, start position in mPrimitiveIndices, for inner nodes, index of the first child
+    protected int[] mNodeStart;
+    // Per node: Number of primitives for leaves, 0 for inner nodes
+    protected int[] mNodeCount;
+    protected int mNumNodes = 0;
+    protected int mDepth = 0;
+
+    protected BoundingVolumeHierarchy(int numPrimitives) {
+        mNumPrimitives = numPrimitives;
+        mPrimitiveIndices = new int[numPrimitives];
+        int maxNodes = Math.max(1, 2 * numPrimitives);
+        mNodeBounds = new float[maxNodes * 6];
+        mNodeStart = new int[maxNodes];
+        mNodeCount = new int[maxNodes];
+    }
+
+    /**
+     * Builds a hierarchy over the given primitive bounds.
+     * @param primitiveBounds Bounding boxes of the primitives, six values per primitive: min x, y, z, max x, y, z.
+     */
+    public static BoundingVolumeHierarchy build(double[] primitiveBounds, int numPrimitives) {
+        BoundingVolumeHierarchy result = new BoundingVolumeHierarchy(numPrimitives);
+        if (numPrimitives == 0) {
+            return result;
+        }
+        double[] centroids = new double[numPrimitives * 3];
+        for (int i = 0; i < numPrimitives; i++) {
+            result.mPrimitiveIndices[i] = i;
+            int b = i * 6;
+            centroids[i * 3] = (primitiveBounds[b] + primitiveBounds[b + 3]) / 2;
+            centroids[i * 3 + 1] = (primitiveBounds[b + 1] + primitiveBounds[b + 4]) / 2;
+            centroids[i * 3 + 2] = (primitiveBounds[b + 2] + primitiveBounds[b + 5]) / 2;
+        }
+        result.mNumNodes = 1;
+        result.buildNode(0, 0, numPrimitives, 1, primitiveBounds, centroids);
+        return result;
+    }
+
+    protected void buildNode(int node, int start, int count, int depth, double[] primitiveBounds, double[] centroids) {
+        mDepth = Math.max(mDepth, depth);
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        double cMinX = Double.POSITIVE_INFINITY, cMinY = Double.POSITIVE_INFINITY, cMinZ = Double.POSITIVE_INFINITY;
+        double cMaxX = Double.NEGATIVE_INFINITY, cMaxY = Double.NEGATIVE_INFINITY, cMaxZ = Double.NEGATIVE_INFINITY;
+        for (int i = start; i < start + count; i++) {
+            int p = mPrimitiveIndices[i];
+            int b = p * 6;
+            minX = Math.min(minX, primitiveBounds[b]);
+            minY = Math.min(minY, primitiveBounds[b + 1]);
+            minZ = Math.min(minZ, primitiveBounds[b + 2]);
+            maxX = Math.max(maxX, primitiveBounds[b + 3]);
+            maxY = Math.max(maxY, primitiveBounds[b + 4]);
+            maxZ = Math.max(maxZ, primitiveBounds[b + 5]);
+            int c = p * 3;
+            cMinX = Math.min(cMinX, centroids[c]);
+            cMinY = Math.min(cMinY, centroids[c + 1]);
+            cMinZ = Math.min(cMinZ, centroids[c + 2]);
+            cMaxX = Math.max(cMaxX, centroids[c]);
+            cMaxY = Math.max(cMaxY, centroids[c + 1]);
+            cMaxZ = Math.max(cMaxZ, centroids[c + 2]);
+        }
+        // Float bounds are rounded outwards to stay conservative
+        int nb = node * 6;
+        mNodeBounds[nb] = Math.nextDown((float) minX);
+        mNodeBounds[nb + 1] = Math.nextDown((float) minY);
+        mNodeBounds[nb + 2] = Math.nextDown((float) minZ);
+        mNodeBounds[nb + 3] = Math.nextUp((float) maxX);
+        mNodeBounds[nb + 4] = Math.nextUp((float) maxY);
+        mNodeBounds[nb + 5] = Math.nextUp((float) maxZ);
+
+        double extentX = cMaxX - cMinX;
+        double extentY = cMaxY - cMinY;
+        double extentZ = cMaxZ - cMinZ;
+        double maxExtent = Math.max(extentX, Math.max(extentY, extentZ));
+        if (count <= MAX_LEAF_SIZE || maxExtent <= 0) {
+            mNodeStart[node] = start;
+            mNodeCount[node] = count;
+            return;
+        }
+        int axis = maxExtent == extentX ? 0 : (maxExtent == extentY ? 1 : 2);
+        int mid = start + count / 2;
+        selectNth(start, start + count - 1, mid, axis, centroids);
+
+        int left = mNumNodes;
+        mNumNodes += 2;
+        mNodeStart[node] = left;
+        mNodeCount[node] = 0;
+        buildNode(left, start, mid - start, depth + 1, primitiveBounds, centroids);
+        buildNode(left + 1, mid, start + count - mid, depth + 1, primitiveBounds, centroids);
+    }
+
+    /**
+     * Partially sorts the primitive indices between {@code from} and {@code to} (inclusive) by their centroid coordinate on the
+     * given axis, thus the index at position {@code n} is in its final sort position (quickselect).
+     */
+    protected void selectNth(int from, int to, int n, int axis, double[] centroids) {
+        int[] indices = mPrimitiveIndices;
+        while (from < to) {
+            double pivot = centroids[indices[(from + to) >>> 1] * 3 + axis];
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (centroids[indices[i] * 3 + axis] < pivot) {
+                    i++;
+                }
+                while (centroids[indices[j] * 3 + axis] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int h = indices[i];
+                    indices[i] = indices[j];
+                    indices[j] = h;
+                    i++;
+                    j--;
+                }
+            }
+            if (n <= j) {
+                to = j;
+            } else if (n >= i) {
+                from = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    public int getNumPrimitives() {
+        return mNumPrimitives;
+    }
+
+    public int getNumNodes() {
+        return mNumNodes;
+    }
+
+    public int getDepth() {
+        return mDepth;
+    }
+
+    /**
+     * Finds the nearest primitive hit by the ray {@code origin + t * direction} with {@code 0 <= t < maxT}.
+     * @param result Receives the hit primitive and its ray parameter; is reset if no primitive is hit.
+     * @return {@code true} if a primitive was hit.
+     */
+    public boolean raycast(double ox, double oy, double oz, double dx, double dy, double dz, double maxT,
+        IPrimitiveIntersector intersector, RayHit result) {
+        result.reset();
+        if (mNumNodes == 0) {
+            return false;
+        }
+        double invDx = 1 / dx;
+        double invDy = 1 / dy;
+        double invDz = 1 / dz;
+        double bestT = maxT;
+        int[] stack = new int[mDepth + 1];
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+        while (stackSize > 0) {
+            int node = stack[--stackSize];
+            if (intersectNode(node, ox, oy, oz, invDx, invDy, invDz, bestT) == Double.POSITIVE_INFINITY) {
+                continue;
+            }
+            int count = mNodeCount[node];
+            int start = mNodeStart[node];
+            if (count > 0) {
+                for (int i = start; i < start + count; i++) {
+                    int primitive = mPrimitiveIndices[i];
+                    double t = intersector.intersect(primitive, bestT);
+                    if (t < bestT) {
+                        bestT = t;
+                        result.set(primitive, t);
+                    }
+                }
+            } else {
+                // Visit the nearer child first, thus it is pushed last
+                double tLeft = intersectNode(start, ox, oy, oz, invDx, invDy, invDz, bestT);
+                double tRight = intersectNode(start + 1, ox, oy, oz, invDx, invDy, invDz, bestT);
+                if (tLeft <= tRight) {
+                    if (tRight != Double.POSITIVE_INFINITY) {
+                        stack[stackSize++] = start + 1;
+                    }
+                    if (tLeft != Double.POSITIVE_INFINITY) {
+                        stack[stackSize++] = start;
+                    }
+                } else {
+                    if (tLeft != Double.POSITIVE_INFINITY) {
+                        stack[stackSize++] = start;
+                    }
+                    stack[stackSize++] = start + 1;
+                }
+            }
+        }
+        return result.isHit();
+    }
+
+    /**
+     * Slab test of the ray against the bounds of the given node. Returns the ray parameter where the ray enters the box
+     * or {@link Double#POSITIVE_INFINITY} if the box is not hit in the interval {@code [0, maxT)}.
+     */
+    protected double intersectNode(int node, double ox, double oy, double oz, double invDx, double invDy, double invDz, double maxT) {
+        int nb = node * 6;
+        double t1 = (mNodeBounds[nb] - ox) * invDx;
+        double t2 = (mNodeBounds[nb + 3] - ox) * invDx;
+        double tMin = Math.min(t1, t2);
+        double tMax = Math.max(t1, t2);
+        t1 = (mNodeBounds[nb + 1] - oy) * invDy;
+        t2 = (mNodeBounds[nb + 4] - oy) * invDy;
+        tMin = Math.max(tMin, Math.min(t1, t2));
+        tMax = Math.min(tMax, Math.max(t1, t2));
+        t1 = (mNodeBounds[nb + 2] - oz) * invDz;
+        t2 = (mNodeBounds[nb + 5] - oz) * invDz;
+        tMin = Math.max(tMin, Math.min(t1, t2));
+        tMax = Math.min(tMax, Math.max(t1, t2));
+        // NaN, produced by a zero direction component and an origin on a slab border, fails both comparisons
+        if (!(tMax >= Math.max(tMin, 0)) || !(tMin < maxT)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.max(tMin, 0);
+    }
+}
@@ -17,21 +17,23 @@
  *******************************************************************************/
 package de.dh.utils.csg;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.UUID;
 
 import de.dh.utils.Vector2D;
+import de.dh.utils.io.IndexedMeshBuilder;
+import de.dh.utils.io.IndexedMeshData;
 import de.dh.utils.io.MeshData;
 import eu.mihosoft.jcsg.CSG;
 import eu.mihosoft.jcsg.Polygon;
 import eu.mihosoft.jcsg.PropertyStorage;
+import eu.mihosoft.jcsg.Vertex;
 import eu.mihosoft.vvecmath.Vector3d;
 
 /**
@@ -127,84 +129,64 @@ public class CSGSurfaceAwareAddon {
 
     /**
      * Exports this CSG object to format-independent {@link MeshData} objects, one mesh per surface.
+     * The vertices of the resulting meshes are welded, see {@link #createIndexedMeshes(CSG, Optional)}.
      */
     public static <S> Map<S, MeshData> createMeshes(CSG csg, Optional<ISurfaceDataProvider<S>> oSurfaceDataProvider) {
         Map<S, MeshData> result = new HashMap<>();
+        for (Entry<S, IndexedMeshData> entry : createIndexedMeshes(csg, oSurfaceDataProvider).entrySet()) {
+            result.put(entry.getKey(), entry.getValue().toMeshData());
+        }
+        return result;
+    }
+
+    public static <S> Map<S, IndexedMeshData> createIndexedMeshes(CSG csg, ISurfaceDataProvider<S> surfaceDataProvider) {
+        return createIndexedMeshes(csg, Optional.of(surfaceDataProvider));
+    }
+
+    /**
+     * Exports this CSG object to indexed meshes, one mesh per surface.
+     * Vertices of the polygons of a surface which share the same position and texture coordinates are welded,
+     * the resulting arrays can directly be used for a JavaFX {@code TriangleMesh}.
+     */
+    public static <S> Map<S, IndexedMeshData> createIndexedMeshes(CSG csg, Optional<ISurfaceDataProvider<S>> oSurfaceDataProvider) {
+        Map<S, IndexedMeshBuilder> builders = new HashMap<>();
+        int[] vertexIndices = new int[16];
         for (Polygon p : csg.getPolygons()) {
+            List<Vertex> vertices = p.vertices;
+            int numVertices = vertices.size();
+            if (numVertices < 3) {
+                // Ignore polygon
+                continue;
+            }
             SurfacePart<S> surfacePart = getSurfacePart(p.getStorage());
 
             S surface = surfacePart.getSurface();
 
-            MeshData current = result.computeIfAbsent(surface, s -> new MeshData(oSurfaceDataProvider.map(sdp -> sdp.getSurfaceName(surface)).orElse(null),
-                oSurfaceDataProvider.map(sdp -> sdp.getGroups(surface)).orElse(null),
-                new ArrayList<>(), // Vertices
-                new ArrayList<>(), // Uvs
-                new ArrayList<>(), // Faces
-                new ArrayList<>(), // SmoothingGroups
-                Optional.empty(), // FaceNormalsData
-                null)); // Material name
+            IndexedMeshBuilder builder = builders.computeIfAbsent(surface, s -> new IndexedMeshBuilder(
+                oSurfaceDataProvider.map(sdp -> sdp.getSurfaceName(surface)).orElse(null),
+                oSurfaceDataProvider.map(sdp -> sdp.getGroups(surface)).orElse(null)));
 
-            List<Float> points = current.getVertices();
-            List<Float> texCoords = current.getTexCoords();
-            List<Integer> faces = current.getFaces();
+            TextureProjection textureProjection = surfacePart.getTextureProjection();
 
-            if (p.vertices.size() < 3) {
-                // Ignore polygon
+            if (vertexIndices.length < numVertices) {
+                vertexIndices = new int[numVertices];
+            }
+            for (int i = 0; i < numVertices; i++) {
+                Vector3d pos = vertices.get(i).pos;
+                Vector2D uv = textureProjection.getTextureCoordinates(pos);
+                vertexIndices[i] = builder.addVertex((float) pos.x(), (float) pos.y(), (float) pos.z(), (float) uv.getX(), (float) uv.getY());
             }
-            TextureProjection textureProjection = surfacePart.getTextureProjection();
 
-            Vector3d pos1 = p.vertices.get(0).pos;
-            Vector2D v1UV = textureProjection.getTextureCoordinates(pos1);
-
-            for (int i = 0; i < p.vertices.size() - 2; i++) {
-                points.addAll(Arrays.asList(
-                    (float) pos1.x(),
-                    (float) pos1.y(),
-                    (float) pos1.z()));
-
-                texCoords.addAll(Arrays.asList(
-                    (float) v1UV.getX(),
-                    (float) v1UV.getY()));
-                int t0 = texCoords.size() / 2 - 1;
-
-                Vector3d pos2 = p.vertices.get(i + 1).pos;
-                Vector2D v2UV = textureProjection.getTextureCoordinates(pos2);
-
-                points.addAll(Arrays.asList(
-                    (float) pos2.x(),
-                    (float) pos2.y(),
-                    (float) pos2.z()));
-
-                texCoords.addAll(Arrays.asList(
-                    (float) v2UV.getX(),
-                    (float) v2UV.getY()));
-                int t1 = texCoords.size() / 2 - 1;
-
-                Vector3d pos3 = p.vertices.get(i + 2).pos;
-                Vector2D v3UV = textureProjection.getTextureCoordinates(pos3);
-
-                points.addAll(Arrays.asList(
-                    (float) pos3.x(),
-                    (float) pos3.y(),
-                    (float) pos3.z()));
-
-                texCoords.addAll(Arrays.asList(
-                    (float) v3UV.getX(),
-                    (float) v3UV.getY()));
-                int t2 = texCoords.size() / 2 - 1;
-
-                int vertexCount = faces.size() / 2;
-                faces.addAll(Arrays.asList(
-                    vertexCount, // first vertex
-                    t0,
-                    vertexCount + 1, // second vertex
-                    t1,
-                    vertexCount + 2, // third vertex
-                    t2
-                ));
-            } // end for vertex
-        } // end for polygon
+            // Triangle fan, polygons are convex
+            for (int i = 0; i < numVertices - 2; i++) {
+                builder.addTriangle(vertexIndices[0], vertexIndices[i + 1], vertexIndices[i + 2]);
+            }
+        }
 
+        Map<S, IndexedMeshData> result = new HashMap<>();
+        for (Entry<S, IndexedMeshBuilder> entry : builders.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().build());
+        }
         return result;
     }
 
@@ -25,7 +25,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import de.dh.utils.Vector2D;
 import de.dh.utils.csg.CSGSurfaceAwareAddon.SurfacePart;
+import de.dh.utils.io.IndexedMeshBuilder;
+import de.dh.utils.io.IndexedMeshData;
 import eu.mihosoft.jcsg.CSG;
 import eu.mihosoft.jcsg.Polygon;
 import eu.mihosoft.jcsg.PropertyStorage;
@@ -352,4 +355,102 @@ public class CSGs {
 
         return CSG.fromPolygons(surfacePolygons);
     }
+
+    /**
+     * Creates the meshes of an extruded polygon like {@link #extrudeSurfaces(ExtrusionSurfaceDataProvider, int, boolean)}, but
+     * directly builds one indexed mesh per surface instead of creating a CSG object.
+     * The top and bottom polygons are triangulated in the X/Y plane and the side faces are created as quads between the
+     * corresponding top and bottom points, thus this method is much faster than the CSG path. Use it when the result is
+     * only displayed, i.e. no CSG operations need to be applied.
+     * Surfaces which are {@code null} are skipped. Textures of adjacent side surfaces are not continued.
+     *
+     * @param extrusionSurfaceDataProvider Provider for the polygon points and surfaces.
+     * @param startPoint See {@link #extrudeSurfaces(ExtrusionSurfaceDataProvider, int, boolean)}.
+     * @param triangulationCache Cache for the triangulations of the top and bottom polygons or {@code null}.
+     * @return Map of surfaces to their meshes.
+     */
+    public static <S> Map<S, IndexedMeshData> extrudeSurfacesToMeshes(ExtrusionSurfaceDataProvider<S> extrusionSurfaceDataProvider, int startPoint,
+        TriangulationCache triangulationCache) {
+        Map<S, IndexedMeshBuilder> builders = new HashMap<>();
+        List<Vector3d> bottomPolygonPointsCW = extrusionSurfaceDataProvider.getBottomPolygonPointsCW();
+        List<Vector3d> topPolygonPointsCW = extrusionSurfaceDataProvider.getTopPolygonPointsCW();
+
+        // Top, triangles in the orientation of the top polygon
+        S topSurface = extrusionSurfaceDataProvider.getTopSurface();
+        if (topSurface != null) {
+            IndexedMeshBuilder builder = builders.computeIfAbsent(topSurface, s -> new IndexedMeshBuilder(null, null));
+            addCap(builder, topPolygonPointsCW, extrusionSurfaceDataProvider.getTopPolygonTextureProjection(), triangulationCache, false);
+        }
+
+        // Bottom, triangles are turned to the bottom
+        S bottomSurface = extrusionSurfaceDataProvider.getBottomSurface();
+        if (bottomSurface != null) {
+            IndexedMeshBuilder builder = builders.computeIfAbsent(bottomSurface, s -> new IndexedMeshBuilder(null, null));
+            addCap(builder, bottomPolygonPointsCW, extrusionSurfaceDataProvider.getBottomPolygonTextureProjection(), triangulationCache, true);
+        }
+
+        // Sides, same vertex order and texture projection as in extrudeSurfaces
+        int numPoints = bottomPolygonPointsCW.size();
+        for (int i = 0; i < numPoints; i++) {
+            int elementIndex = (i + startPoint) % numPoints;
+            int nextElementIndex = (i + startPoint + 1) % numPoints;
+            S surface = extrusionSurfaceDataProvider.getSurfaceCW(elementIndex);
+            if (surface == null) {
+                continue;
+            }
+
+            Vector3d bottomV1 = bottomPolygonPointsCW.get(elementIndex);
+            Vector3d topV1 = topPolygonPointsCW.get(elementIndex);
+            Vector3d bottomV2 = bottomPolygonPointsCW.get(nextElementIndex);
+            Vector3d topV2 = topPolygonPointsCW.get(nextElementIndex);
+
+            Vector3d textureDirectionX = bottomV1.minus(bottomV2);
+            Vector3d textureDirectionY = bottomV1.minus(topV1);
+            TextureCoordinateSystem textureCoordinateSystem = TextureCoordinateSystem.create(
+                textureDirectionX.crossed(textureDirectionY),
+                textureDirectionX);
+            TextureProjection textureProjection = TextureProjection.fromPointsBorder(textureCoordinateSystem,
+                Arrays.asList(bottomV1, bottomV2, topV2, topV1));
+
+            IndexedMeshBuilder builder = builders.computeIfAbsent(surface, s -> new IndexedMeshBuilder(null, null));
+            int v0 = addVertex(builder, bottomV1, textureProjection);
+            int v1 = addVertex(builder, topV1, textureProjection);
+            int v2 = addVertex(builder, topV2, textureProjection);
+            int v3 = addVertex(builder, bottomV2, textureProjection);
+            builder.addTriangle(v0, v1, v2);
+            builder.addTriangle(v0, v2, v3);
+        }
+
+        Map<S, IndexedMeshData> result = new HashMap<>();
+        for (Entry<S, IndexedMeshBuilder> entry : builders.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().build());
+        }
+        return result;
+    }
+
+    protected static int addVertex(IndexedMeshBuilder builder, Vector3d pos, TextureProjection textureProjection) {
+        Vector2D uv = textureProjection.getTextureCoordinates(pos);
+        return builder.addVertex((float) pos.x(), (float) pos.y(), (float) pos.z(), (float) uv.getX(), (float) uv.getY());
+    }
+
+    protected static void addCap(IndexedMeshBuilder builder, List<Vector3d> pointsCW, TextureProjection textureProjection,
+        TriangulationCache triangulationCache, boolean reverse) {
+        int[] triangles = triangulationCache == null
+                ? PolygonTriangulator.triangulate(TriangulationCache.toXY(pointsCW))
+                : triangulationCache.getOrTriangulateXY(pointsCW);
+        int[] vertexIndices = new int[pointsCW.size()];
+        for (int i = 0; i < vertexIndices.length; i++) {
+            vertexIndices[i] = addVertex(builder, pointsCW.get(i), textureProjection);
+        }
+        for (int i = 0; i + 2 < triangles.length; i += 3) {
+            int a = vertexIndices[triangles[i]];
+            int b = vertexIndices[triangles[i + 1]];
+            int c = vertexIndices[triangles[i + 2]];
+            if (reverse) {
+                builder.addTriangle(a, c, b);
+            } else {
+                builder.addTriangle(a, b, c);
+            }
+        }
+    }
 }
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.utils.csg;
+
+import java.util.Arrays;
+
+/**
+ * Triangulates simple polygons without holes by ear clipping.
+ * In contrast to the triangulation via {@code PolygonUtil.concaveToConvex}, this class works directly on primitive
+ * coordinate arrays and doesn't create any polygon objects.
+ */
+public class PolygonTriangulator {
+    protected static final double EPSILON = 1e-9;
+
+    protected static double cross(double ax, double ay, double bx, double by, double cx, double cy) {
+        return (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+    }
+
+    /**
+     * Calculates the doubled signed area of the given polygon, positive for counter-clockwise polygons.
+     * @param xy Coordinates of the polygon points, 2 elements per point.
+     */
+    public static double signedArea2(double[] xy) {
+        int numPoints = xy.length / 2;
+        double result = 0;
+        for (int i = 0; i < numPoints; i++) {
+            int j = (i + 1) % numPoints;
+            result += xy[i * 2] * xy[j * 2 + 1] - xy[j * 2] * xy[i * 2 + 1];
+        }
+        return result;
+    }
+
+    protected static boolean isSamePoint(double[] xy, int a, int b) {
+        return xy[a * 2] == xy[b * 2] && xy[a * 2 + 1] == xy[b * 2 + 1];
+    }
+
+    protected static boolean isEar(double[] xy, int[] next, int prev, int current, int nxt, double orientation) {
+        double ax = xy[prev * 2], ay = xy[prev * 2 + 1];
+        double bx = xy[current * 2], by = xy[current * 2 + 1];
+        double cx = xy[nxt * 2], cy = xy[nxt * 2 + 1];
+        if (cross(ax, ay, bx, by, cx, cy) * orientation <= EPSILON) {
+            // Reflex or degenerate corner
+            return false;
+        }
+        // No other point may be located inside the triangle or on its border
+        for (int p = next[nxt]; p != prev; p = next[p]) {
+            if (isSamePoint(xy, p, prev) || isSamePoint(xy, p, current) || isSamePoint(xy, p, nxt)) {
+                continue;
+            }
+            double px = xy[p * 2], py = xy[p * 2 + 1];
+            if (cross(ax, ay, bx, by, px, py) * orientation >= 0
+                    && cross(bx, by, cx, cy, px, py) * orientation >= 0
+                    && cross(cx, cy, ax, ay, px, py) * orientation >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Triangulates the simple polygon given by the given point coordinates.
+     * Each resulting triangle has the same orientation as the polygon, degenerate corners (duplicate or collinear points)
+     * don't produce triangles.
+     * @param xy Coordinates of the polygon points, 2 elements per point, clockwise or counter-clockwise.
+     * @return Indices of the polygon points, 3 elements per triangle.
+     */
+    public static int[] triangulate(double[] xy) {
+        int numPoints = xy.length / 2;
+        if (numPoints < 3) {
+            return new int[0];
+        }
+        double area2 = signedArea2(xy);
+        if (Math.abs(area2) <= EPSILON) {
+            return new int[0];
+        }
+        double orientation = Math.signum(area2);
+
+        // Doubly linked ring of the remaining points
+        int[] next = new int[numPoints];
+        int[] prev = new int[numPoints];
+        for (int i = 0; i < numPoints; i++) {
+            next[i] = (i + 1) % numPoints;
+            prev[i] = (i + numPoints - 1) % numPoints;
+        }
+
+        int[] result = new int[(numPoints - 2) * 3];
+        int numIndices = 0;
+        int remaining = numPoints;
+        int current = 0;
+        int numChecked = 0; // Number of points checked since the last clipping
+        while (remaining > 3) {
+            int p = prev[current];
+            int n = next[current];
+            boolean clip;
+            if (isEar(xy, next, p, current, n, orientation)) {
+                result[numIndices++] = p;
+                result[numIndices++] = current;
+                result[numIndices++] = n;
+                clip = true;
+            } else if (Math.abs(cross(xy[p * 2], xy[p * 2 + 1], xy[current * 2], xy[current * 2 + 1], xy[n * 2], xy[n * 2 + 1])) <= EPSILON) {
+                // Degenerate corner, remove point without creating a triangle
+                clip = true;
+            } else {
+                clip = numChecked > remaining; // No ear found in a whole round, polygon is not simple; clip anyway to terminate
+                if (clip) {
+                    result[numIndices++] = p;
+                    result[numIndices++] = current;
+                    result[numIndices++] = n;
+                }
+            }
+            if (clip) {
+                next[p] = n;
+                prev[n] = p;
+                remaining--;
+                numChecked = 0;
+                current = p;
+            } else {
+                numChecked++;
+                current = n;
+            }
+        }
+        int p = prev[current];
+        int n = next[current];
+        if (Math.abs(cross(xy[p * 2], xy[p * 2 + 1], xy[current * 2], xy[current * 2 + 1], xy[n * 2], xy[n * 2 + 1])) > EPSILON) {
+            result[numIndices++] = p;
+            result[numIndices++] = current;
+            result[numIndices++] = n;
+        }
+        return numIndices == result.length ? result : Arrays.copyOf(result, numIndices);
+    }
+}
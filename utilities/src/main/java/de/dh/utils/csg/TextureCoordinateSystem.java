@@ -18,7 +18,6 @@
 package de.dh.utils.csg;
 
 import de.dh.utils.Vector2D;
-import de.dh.utils.fx.MathUtils;
 import eu.mihosoft.vvecmath.Transform;
 import eu.mihosoft.vvecmath.Vector3d;
 
@@ -36,11 +35,11 @@ public class TextureCoordinateSystem {
         mTexturePlaneNormal = textureNormal.normalized();
         mTextureDirectionX = textureDirectionX.normalized();
 
-        Transform t = MathUtils.rot(Transform.unity(), mTexturePlaneNormal, Vector3d.Z_ONE);
+        Transform t = TransformUtils.rot(Transform.unity(), mTexturePlaneNormal, Vector3d.Z_ONE);
         Vector3d tDX_XY = mTextureDirectionX.transformed(t);
         double angle = Vector2D.angleBetween(new Vector2D(tDX_XY.getX(), tDX_XY.getY()), Vector2D.X_ONE);
         t = Transform.unity().rot(Vector3d.ZERO, Vector3d.Z_ONE, angle);
-        t = MathUtils.rot(t, mTexturePlaneNormal, Vector3d.Z_ONE);
+        t = TransformUtils.rot(t, mTexturePlaneNormal, Vector3d.Z_ONE);
 
         double[] m = t.to();
         // Projection to XY plane
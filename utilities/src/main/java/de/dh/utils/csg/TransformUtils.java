@@ -0,0 +1,116 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.utils.csg;
+
+import eu.mihosoft.vvecmath.Transform;
+import eu.mihosoft.vvecmath.Vector3d;
+
+/**
+ * Rotation utilities for {@link Vector3d} and {@link Transform}.
+ */
+public class TransformUtils {
+    public static class RotationData {
+        protected final double mAngle;
+        protected final Vector3d mAxis;
+
+        public RotationData(double angle, Vector3d axis) {
+            mAngle = angle;
+            mAxis = axis;
+        }
+
+        public double getAngle() {
+            return mAngle;
+        }
+
+        public Vector3d getAxis() {
+            return mAxis;
+        }
+    }
+
+    public static Vector3d findOrthogonalVector(Vector3d v) {
+        double vx = v.getX();
+        double vy = v.getY();
+        double vz = v.getZ();
+        double ax = Math.abs(vx);
+        double ay = Math.abs(vy);
+        double az = Math.abs(vz);
+        if (ax > ay && ax > az) {
+            // Calculate intersection point at Y + 1
+            return calculatePlaneLineIntersectionPoint(Vector3d.ZERO, v, Vector3d.xyz(v.getX(), v.getY() + 1, v.getZ()), v);
+        } else {
+            // Calculate intersection point at X + 1
+            return calculatePlaneLineIntersectionPoint(Vector3d.ZERO, v, Vector3d.xyz(v.getX() + 1, v.getY(), v.getZ()), v);
+        }
+    }
+
+    public static Transform rot(Transform t, Vector3d from, Vector3d to) {
+        RotationData rotationData = calculateRotation(from, to);
+        Vector3d axis = rotationData.getAxis();
+        double angle = rotationData.getAngle();
+        return angle == 0 ? t : t.rot(Vector3d.ZERO, axis, angle);
+    }
+
+    public static RotationData calculateRotation(Vector3d from, Vector3d to) {
+        Vector3d a = from.normalized();
+        Vector3d b = to.normalized();
+        Vector3d c = a.crossed(b);
+
+        double l = c.magnitude(); // sine of angle
+
+        if (l > 1e-9) {
+            Vector3d axis = c.normalized();
+            double angle = a.angle(b);
+            if (a.dot(b) < 0) {
+                // Wrong direction, rotate by 180 degrees
+                angle += 180;
+            }
+
+            return new RotationData(angle, axis);
+        } else {
+            // Vectors linearly dependent
+            if (from.dot(to) < 0) {
+                // Wrong direction, rotate by 180 degrees
+                // We need to find a rotation vector in the plane which is normal to a
+                // Try to find vector with a big angle to a
+                Vector3d axis = findOrthogonalVector(a);
+                return new RotationData(180, axis);
+            }
+        }
+
+        return new RotationData(0, Vector3d.Z_ONE);
+    }
+
+    // Code from https://stackoverflow.com/questions/5666222/3d-line-plane-intersection
+    /**
+     * Determines the point of intersection between a plane defined by a point and a normal vector and a line defined by a point and a direction vector.
+     * @param planePoint A point on the plane.
+     * @param planeNormal The normal vector of the plane.
+     * @param linePoint A point on the line.
+     * @param lineDirection The direction vector of the line.
+     * @return The point of intersection between the line and the plane, null if the line is parallel to the plane.
+     */
+    public static Vector3d calculatePlaneLineIntersectionPoint(Vector3d planePoint, Vector3d planeNormal, Vector3d linePoint, Vector3d lineDirection) {
+        Vector3d ldu = lineDirection.normalized();
+        if (planeNormal.dot(ldu) == 0) {
+            return null;
+        }
+
+        double t = (planeNormal.dot(planePoint) - planeNormal.dot(linePoint)) / planeNormal.dot(ldu);
+        return linePoint.plus(ldu.times(t));
+    }
+}
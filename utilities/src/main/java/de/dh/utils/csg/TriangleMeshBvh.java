@@ -0,0 +1,124 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.utils.csg;
+
+import de.dh.utils.csg.BoundingVolumeHierarchy.RayHit;
+
+/**
+ * Bounding volume hierarchy over the triangles of a mesh in the array layout of a JavaFX {@code TriangleMesh}.
+ * Finds the nearest triangle hit by a ray in the coordinate system of the mesh. Triangles are hit from both sides.
+ */
+public class TriangleMeshBvh {
+    protected final float[] mPoints;
+    protected final int[] mFaces;
+    protected final int mFaceStride;
+    protected final int mPointIndexStride;
+    protected final int mNumFaces;
+    protected final BoundingVolumeHierarchy mHierarchy;
+
+    /**
+     * Creates the hierarchy for the given mesh data.
+     * @param points Point coordinates, three values per point.
+     * @param faces Face indices.
+     * @param faceStride Number of indices per face, e.g. 6 for vertex format {@code POINT_TEXCOORD} and 9 for
+     * {@code POINT_NORMAL_TEXCOORD}. The point indices are expected at the positions {@code 0}, {@code faceStride / 3}
+     * and {@code 2 * faceStride / 3} of each face.
+     */
+    public TriangleMeshBvh(float[] points, int[] faces, int faceStride) {
+        mPoints = points;
+        mFaces = faces;
+        mFaceStride = faceStride;
+        mPointIndexStride = faceStride / 3;
+        mNumFaces = faces.length / faceStride;
+        double[] faceBounds = new double[mNumFaces * 6];
+        for (int f = 0; f < mNumFaces; f++) {
+            int b = f * 6;
+            faceBounds[b] = faceBounds[b + 1] = faceBounds[b + 2] = Double.POSITIVE_INFINITY;
+            faceBounds[b + 3] = faceBounds[b + 4] = faceBounds[b + 5] = Double.NEGATIVE_INFINITY;
+            for (int v = 0; v < 3; v++) {
+                int p = getPointIndex(f, v) * 3;
+                for (int axis = 0; axis < 3; axis++) {
+                    faceBounds[b + axis] = Math.min(faceBounds[b + axis], points[p + axis]);
+                    faceBounds[b + 3 + axis] = Math.max(faceBounds[b + 3 + axis], points[p + axis]);
+                }
+            }
+        }
+        mHierarchy = BoundingVolumeHierarchy.build(faceBounds, mNumFaces);
+    }
+
+    protected int getPointIndex(int face, int vertex) {
+        return mFaces[face * mFaceStride + vertex * mPointIndexStride];
+    }
+
+    public int getNumFaces() {
+        return mNumFaces;
+    }
+
+    public int getNumPoints() {
+        return mPoints.length / 3;
+    }
+
+    /**
+     * Finds the nearest face hit by the ray {@code origin + t * direction} with {@code 0 <= t < maxT}.
+     * @param result Receives the hit face index and its ray parameter.
+     * @return {@code true} if a face was hit.
+     */
+    public boolean raycast(double ox, double oy, double oz, double dx, double dy, double dz, double maxT, RayHit result) {
+        return mHierarchy.raycast(ox, oy, oz, dx, dy, dz, maxT,
+            (face, currentMaxT) -> intersectFace(face, ox, oy, oz, dx, dy, dz, currentMaxT), result);
+    }
+
+    /**
+     * Möller-Trumbore ray/triangle intersection test.
+     */
+    protected double intersectFace(int face, double ox, double oy, double oz, double dx, double dy, double dz, double maxT) {
+        int p0 = getPointIndex(face, 0) * 3;
+        int p1 = getPointIndex(face, 1) * 3;
+        int p2 = getPointIndex(face, 2) * 3;
+        float[] points = mPoints;
+        double v0x = points[p0], v0y = points[p0 + 1], v0z = points[p0 + 2];
+        double e1x = points[p1] - v0x, e1y = points[p1 + 1] - v0y, e1z = points[p1 + 2] - v0z;
+        double e2x = points[p2] - v0x, e2y = points[p2 + 1] - v0y, e2z = points[p2 + 2] - v0z;
+
+        // h = direction x e2
+        double hx = dy * e2z - dz * e2y;
+        double hy = dz * e2x - dx * e2z;
+        double hz = dx * e2y - dy * e2x;
+        double a = e1x * hx + e1y * hy + e1z * hz;
+        if (a == 0) {
+            // Ray is parallel to the triangle or triangle is degenerated
+            return Double.POSITIVE_INFINITY;
+        }
+        double f = 1 / a;
+        double sx = ox - v0x, sy = oy - v0y, sz = oz - v0z;
+        double u = f * (sx * hx + sy * hy + sz * hz);
+        if (u < 0 || u > 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        // q = s x e1
+        double qx = sy * e1z - sz * e1y;
+        double qy = sz * e1x - sx * e1z;
+        double qz = sx * e1y - sy * e1x;
+        double v = f * (dx * qx + dy * qy + dz * qz);
+        if (v < 0 || u + v > 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double t = f * (e2x * qx + e2y * qy + e2z * qz);
+        return t >= 0 && t < maxT ? t : Double.POSITIVE_INFINITY;
+    }
+}
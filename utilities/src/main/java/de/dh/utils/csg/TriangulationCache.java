@@ -0,0 +1,135 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.utils.csg;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import eu.mihosoft.vvecmath.Vector3d;
+
+/**
+ * Cache for triangulations of polygons, keyed by the X/Y coordinates of the polygon points.
+ * Polygons which only differ in their Z coordinates, e.g. the top and bottom polygon of an extrusion or a floor
+ * whose height was changed, share the same triangulation.
+ * The cache holds a limited number of entries, the least recently used entries are dropped first.
+ * The cache is thread-safe, triangulations of different polygons can be computed in parallel.
+ */
+public class TriangulationCache {
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    protected static class PolygonKey {
+        protected final double[] mXY;
+        protected final int mHashCode;
+
+        public PolygonKey(double[] xy) {
+            mXY = xy;
+            mHashCode = Arrays.hashCode(xy);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof PolygonKey other)) {
+                return false;
+            }
+            return mHashCode == other.mHashCode && Arrays.equals(mXY, other.mXY);
+        }
+    }
+
+    protected final Map<PolygonKey, int[]> mTriangulations;
+
+    protected long mNumHits = 0;
+    protected long mNumMisses = 0;
+
+    public TriangulationCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public TriangulationCache(int maxEntries) {
+        mTriangulations = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PolygonKey, int[]> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public static double[] toXY(List<Vector3d> points) {
+        double[] result = new double[points.size() * 2];
+        for (int i = 0; i < points.size(); i++) {
+            Vector3d point = points.get(i);
+            result[i * 2] = point.getX();
+            result[i * 2 + 1] = point.getY();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the triangulation of the projection of the given polygon to the X/Y plane, see {@link PolygonTriangulator#triangulate(double[])}.
+     * The returned array must not be modified.
+     */
+    public int[] getOrTriangulateXY(List<Vector3d> points) {
+        double[] xy = toXY(points);
+        PolygonKey key = new PolygonKey(xy);
+        synchronized (mTriangulations) {
+            int[] result = mTriangulations.get(key);
+            if (result != null) {
+                mNumHits++;
+                return result;
+            }
+            mNumMisses++;
+        }
+        // Triangulate outside of the lock; if two threads triangulate the same polygon concurrently, both results are equal
+        int[] result = PolygonTriangulator.triangulate(xy);
+        synchronized (mTriangulations) {
+            mTriangulations.put(key, result);
+        }
+        return result;
+    }
+
+    public void clear() {
+        synchronized (mTriangulations) {
+            mTriangulations.clear();
+        }
+    }
+
+    public int getNumEntries() {
+        synchronized (mTriangulations) {
+            return mTriangulations.size();
+        }
+    }
+
+    public long getNumHits() {
+        return mNumHits;
+    }
+
+    public long getNumMisses() {
+        return mNumMisses;
+    }
+}
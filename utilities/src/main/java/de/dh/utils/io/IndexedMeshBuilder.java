@@ -0,0 +1,189 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.utils.io;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Builds an {@link IndexedMeshData} from triangles. Vertices with the same position and texture coordinates
+ * are welded, i.e. they are stored only once. The vertex components are compared after rounding them to multiples
+ * of {@link #WELD_EPSILON}, that way vertices which only differ by the rounding errors of the CSG operations are
+ * also welded; the first added vertex keeps its exact values. Duplicates are detected using an open addressing hash table
+ * over the rounded vertex components, so no objects are created per vertex.
+ *
+ * Welding doesn't change the shading of the mesh because all faces are put into smoothing group 0,
+ * which means that each face is shaded flat, like before, when each triangle had its own vertices.
+ */
+public class IndexedMeshBuilder {
+    protected static final int EMPTY = -1;
+
+    /**
+     * Grid size for comparing vertex components.
+     */
+    public static final double WELD_EPSILON = 1e-4;
+
+    protected final String mName;
+    protected final Collection<String> mGroups;
+
+    protected float[] mPoints;
+    protected float[] mTexCoords;
+    protected int mNumVertices = 0;
+
+    protected int[] mFaces;
+    protected int mNumFaces = 0;
+
+    // Open addressing hash table, contains vertex indices or EMPTY; capacity is always a power of 2
+    protected int[] mHashTable;
+
+    public IndexedMeshBuilder(String name, Collection<String> groups) {
+        this(name, groups, 64);
+    }
+
+    public IndexedMeshBuilder(String name, Collection<String> groups, int expectedNumTriangles) {
+        mName = name;
+        mGroups = groups;
+        int expectedNumVertices = Math.max(16, expectedNumTriangles);
+        mPoints = new float[expectedNumVertices * 3];
+        mTexCoords = new float[expectedNumVertices * 2];
+        mFaces = new int[Math.max(16, expectedNumTriangles) * 6];
+        mHashTable = new int[tableSizeFor(expectedNumVertices * 2)];
+        Arrays.fill(mHashTable, EMPTY);
+    }
+
+    protected static int tableSizeFor(int minSize) {
+        int result = 16;
+        while (result < minSize) {
+            result <<= 1;
+        }
+        return result;
+    }
+
+    // -0.0f and 0.0f are both rounded to 0, so both values are welded
+    protected static long quantize(float value) {
+        return Math.round(value / WELD_EPSILON);
+    }
+
+    protected static int hash(float x, float y, float z, float u, float v) {
+        int h = Long.hashCode(quantize(x));
+        h = h * 31 + Long.hashCode(quantize(y));
+        h = h * 31 + Long.hashCode(quantize(z));
+        h = h * 31 + Long.hashCode(quantize(u));
+        h = h * 31 + Long.hashCode(quantize(v));
+        // Spread bits, the table index is taken from the lower bits
+        h ^= (h >>> 16);
+        h *= 0x85EBCA6B;
+        h ^= (h >>> 13);
+        return h;
+    }
+
+    protected boolean vertexEquals(int index, float x, float y, float z, float u, float v) {
+        int p = index * 3;
+        int t = index * 2;
+        return quantize(mPoints[p]) == quantize(x) && quantize(mPoints[p + 1]) == quantize(y) && quantize(mPoints[p + 2]) == quantize(z)
+                && quantize(mTexCoords[t]) == quantize(u) && quantize(mTexCoords[t + 1]) == quantize(v);
+    }
+
+    /**
+     * Returns the index of the vertex with the given position and texture coordinates, creating it if necessary.
+     */
+    public int addVertex(float x, float y, float z, float u, float v) {
+        int mask = mHashTable.length - 1;
+        int slot = hash(x, y, z, u, v) & mask;
+        while (true) {
+            int index = mHashTable[slot];
+            if (index == EMPTY) {
+                break;
+            }
+            if (vertexEquals(index, x, y, z, u, v)) {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int result = mNumVertices++;
+        if (result * 3 + 3 > mPoints.length) {
+            mPoints = Arrays.copyOf(mPoints, mPoints.length * 2);
+            mTexCoords = Arrays.copyOf(mTexCoords, mTexCoords.length * 2);
+        }
+        int p = result * 3;
+        mPoints[p] = x;
+        mPoints[p + 1] = y;
+        mPoints[p + 2] = z;
+        int t = result * 2;
+        mTexCoords[t] = u;
+        mTexCoords[t + 1] = v;
+        mHashTable[slot] = result;
+        // Keep load factor below 0.5
+        if (mNumVertices * 2 > mHashTable.length) {
+            rehash(mHashTable.length * 2);
+        }
+        return result;
+    }
+
+    protected void rehash(int newSize) {
+        mHashTable = new int[newSize];
+        Arrays.fill(mHashTable, EMPTY);
+        int mask = newSize - 1;
+        for (int i = 0; i < mNumVertices; i++) {
+            int p = i * 3;
+            int t = i * 2;
+            int slot = hash(mPoints[p], mPoints[p + 1], mPoints[p + 2], mTexCoords[t], mTexCoords[t + 1]) & mask;
+            while (mHashTable[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            mHashTable[slot] = i;
+        }
+    }
+
+    /**
+     * Adds a triangle of the given vertex indices, which were returned by {@link #addVertex(float, float, float, float, float)}.
+     * Degenerate triangles, whose vertices were welded together, are skipped.
+     */
+    public void addTriangle(int v0, int v1, int v2) {
+        if (v0 == v1 || v1 == v2 || v2 == v0) {
+            return;
+        }
+        if (mNumFaces * 6 + 6 > mFaces.length) {
+            mFaces = Arrays.copyOf(mFaces, mFaces.length * 2);
+        }
+        int f = mNumFaces * 6;
+        mFaces[f] = v0;
+        mFaces[f + 1] = v0;
+        mFaces[f + 2] = v1;
+        mFaces[f + 3] = v1;
+        mFaces[f + 4] = v2;
+        mFaces[f + 5] = v2;
+        mNumFaces++;
+    }
+
+    public int getNumVertices() {
+        return mNumVertices;
+    }
+
+    public int getNumFaces() {
+        return mNumFaces;
+    }
+
+    public IndexedMeshData build() {
+        return new IndexedMeshData(mName, mGroups,
+            Arrays.copyOf(mPoints, mNumVertices * 3),
+            Arrays.copyOf(mTexCoords, mNumVertices * 2),
+            Arrays.copyOf(mFaces, mNumFaces * 6),
+            new int[mNumFaces]);
+    }
+}
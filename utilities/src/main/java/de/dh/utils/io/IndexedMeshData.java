@@ -0,0 +1,114 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.utils.io;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Format-independent data container for a single indexed 3D mesh, which holds its data in primitive arrays.
+ * In contrast to {@link MeshData}, each vertex is stored only once and is referenced by all faces which use it.
+ * Point {@code i} always corresponds to texture coordinate {@code i}, thus the face array can directly be
+ * used for a JavaFX {@code TriangleMesh} with the default vertex format.
+ */
+public class IndexedMeshData {
+    protected final String mName;
+    protected final Collection<String> mGroups;
+    protected final float[] mPoints;
+    protected final float[] mTexCoords;
+    protected final int[] mFaces;
+    protected final int[] mSmoothingGroups;
+
+    /**
+     * Creates a new indexed mesh data object.
+     * @param points Array of vertex coordinates, 3 elements per vertex.
+     * @param texCoords Array of texture coordinates, 2 elements per vertex.
+     * @param faces Array of faces, 6 elements per face, alternating vertex index and texture coordinate index.
+     * @param smoothingGroups Array of smoothing groups, 1 element per face.
+     */
+    public IndexedMeshData(String name, Collection<String> groups, float[] points, float[] texCoords, int[] faces, int[] smoothingGroups) {
+        mName = name;
+        mGroups = groups;
+        mPoints = points;
+        mTexCoords = texCoords;
+        mFaces = faces;
+        mSmoothingGroups = smoothingGroups;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public Collection<String> getGroups() {
+        return mGroups;
+    }
+
+    public float[] getPoints() {
+        return mPoints;
+    }
+
+    public float[] getTexCoords() {
+        return mTexCoords;
+    }
+
+    public int[] getFaces() {
+        return mFaces;
+    }
+
+    public int[] getSmoothingGroups() {
+        return mSmoothingGroups;
+    }
+
+    public int getNumVertices() {
+        return mPoints.length / 3;
+    }
+
+    public int getNumFaces() {
+        return mFaces.length / 6;
+    }
+
+    /**
+     * Converts this mesh to a {@link MeshData} object, e.g. for exporting it.
+     */
+    public MeshData toMeshData() {
+        List<Float> vertices = new ArrayList<>(mPoints.length);
+        for (float f : mPoints) {
+            vertices.add(f);
+        }
+        List<Float> texCoords = new ArrayList<>(mTexCoords.length);
+        for (float f : mTexCoords) {
+            texCoords.add(f);
+        }
+        List<Integer> faces = new ArrayList<>(mFaces.length);
+        for (int i : mFaces) {
+            faces.add(i);
+        }
+        List<Integer> smoothingGroups = new ArrayList<>(mSmoothingGroups.length);
+        for (int i : mSmoothingGroups) {
+            smoothingGroups.add(i);
+        }
+        return new MeshData(mName, mGroups, vertices, texCoords, faces, smoothingGroups, Optional.empty(), null);
+    }
+
+    @Override
+    public String toString() {
+        return "IndexedMeshData [name=" + mName + ", #vertices=" + getNumVertices() + ", #faces=" + getNumFaces() + "]";
+    }
+}
@@ -22,10 +22,8 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
-import de.dh.utils.io.fx.MaterialData;
+import de.dh.utils.io.obj.MaterialData;
 import de.dh.utils.io.obj.RawMaterialData;
-import javafx.scene.paint.Material;
-import javafx.scene.shape.Shape3D;
 
 /**
  * Data of a 3D object, contains a collection of meshes which are mapped to materials, as it was defined in an {@code .obj} file.
@@ -34,7 +32,7 @@ import javafx.scene.shape.Shape3D;
  * This allows us to override the mesh materials, which are defined in the object file, via user configuration. So we can for example
  * redefine the materials of the meshes of a piece of furniture to change the color or the surface of the object.
  * This would not be possible so easily if we would translate the object and material data directly to objects in the final 3D library format
- * (e.g. {@link Shape3D} with {@link Material} instances), like it is done in several libraries available in the net.
+ * (e.g. JavaFX {@code Shape3D} with {@code Material} instances), like it is done in several libraries available in the net.
  *
  * We use a separate map {@link #getMeshNamesToMaterials()} to indirectly assign mesh objects to materials via the artificial mesh's name
  * (instead of using the material name from the {@link MeshData} as mapping key). This allows us to define a material for each individual
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.utils.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes PNG images directly from int buffers with non-premultiplied ARGB pixels, like they are delivered by
+ * {@code PixelReader.getPixels} with {@code PixelFormat.getIntArgbInstance()}.
+ *
+ * Images without any transparent pixel are written as RGB, all other images as RGBA with 8 bits per sample.
+ * Each scanline is filtered with the filter of the types None, Sub and Up which produces the smallest sum of absolute
+ * differences, which is the usual heuristic for choosing PNG filters.
+ */
+public class PngWriter {
+    protected static final byte[] PNG_SIGNATURE = new byte[] {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    protected static final int COLOR_TYPE_RGB = 2;
+    protected static final int COLOR_TYPE_RGBA = 6;
+
+    protected static final int FILTER_NONE = 0;
+    protected static final int FILTER_SUB = 1;
+    protected static final int FILTER_UP = 2;
+
+    public static void writeArgb(int[] argb, int width, int height, OutputStream outputStream) throws IOException {
+        writeArgb(argb, 0, width, width, height, outputStream);
+    }
+
+    /**
+     * Writes the given pixels as PNG image.
+     * @param argb Pixel buffer, non-premultiplied ARGB.
+     * @param offset Index of the upper left pixel in the buffer.
+     * @param scanlineStride Distance between the start of two pixel rows in the buffer.
+     */
+    public static void writeArgb(int[] argb, int offset, int scanlineStride, int width, int height, OutputStream outputStream) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid image size " + width + "x" + height);
+        }
+        boolean opaque = isOpaque(argb, offset, scanlineStride, width, height);
+        int bytesPerPixel = opaque ? 3 : 4;
+
+        DataOutputStream dos = new DataOutputStream(outputStream);
+        dos.write(PNG_SIGNATURE);
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        DataOutputStream headerData = new DataOutputStream(header);
+        headerData.writeInt(width);
+        headerData.writeInt(height);
+        headerData.writeByte(8); // Bit depth
+        headerData.writeByte(opaque ? COLOR_TYPE_RGB : COLOR_TYPE_RGBA);
+        headerData.writeByte(0); // Compression method
+        headerData.writeByte(0); // Filter method
+        headerData.writeByte(0); // Interlace method
+        writeChunk(dos, "IHDR", header.toByteArray());
+
+        int rowLength = width * bytesPerPixel;
+        byte[] previousRow = new byte[rowLength];
+        byte[] currentRow = new byte[rowLength];
+        byte[] filteredRow = new byte[rowLength + 1];
+        byte[] bestRow = new byte[rowLength + 1];
+        ByteArrayOutputStream imageData = new ByteArrayOutputStream(rowLength * height / 4 + 64);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try (DeflaterOutputStream deflaterStream = new DeflaterOutputStream(imageData, deflater, 8192)) {
+            for (int y = 0; y < height; y++) {
+                int rowStart = offset + y * scanlineStride;
+                int i = 0;
+                for (int x = 0; x < width; x++) {
+                    int pixel = argb[rowStart + x];
+                    currentRow[i++] = (byte) (pixel >> 16);
+                    currentRow[i++] = (byte) (pixel >> 8);
+                    currentRow[i++] = (byte) pixel;
+                    if (!opaque) {
+                        currentRow[i++] = (byte) (pixel >>> 24);
+                    }
+                }
+                long bestSum = Long.MAX_VALUE;
+                for (int filter = FILTER_NONE; filter <= FILTER_UP; filter++) {
+                    long sum = filterRow(filter, currentRow, previousRow, bytesPerPixel, filteredRow);
+                    if (sum < bestSum) {
+                        bestSum = sum;
+                        byte[] h = bestRow;
+                        bestRow = filteredRow;
+                        filteredRow = h;
+                    }
+                }
+                deflaterStream.write(bestRow);
+                byte[] h = previousRow;
+                previousRow = currentRow;
+                currentRow = h;
+            }
+        } finally {
+            deflater.end();
+        }
+        writeChunk(dos, "IDAT", imageData.toByteArray());
+        writeChunk(dos, "IEND", new byte[0]);
+        dos.flush();
+    }
+
+    protected static boolean isOpaque(int[] argb, int offset, int scanlineStride, int width, int height) {
+        for (int y = 0; y < height; y++) {
+            int rowStart = offset + y * scanlineStride;
+            for (int x = 0; x < width; x++) {
+                if ((argb[rowStart + x] >>> 24) != 0xFF) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Filters the given row into {@code target}, including the leading filter type byte, and returns the sum of
+     * absolute values of the filtered bytes, interpreted as signed bytes.
+     */
+    protected static long filterRow(int filter, byte[] row, byte[] previousRow, int bytesPerPixel, byte[] target) {
+        target[0] = (byte) filter;
+        long sum = 0;
+        for (int i = 0; i < row.length; i++) {
+            int value = row[i] & 0xFF;
+            int predictor;
+            switch (filter) {
+            case FILTER_SUB:
+                predictor = i < bytesPerPixel ? 0 : row[i - bytesPerPixel] & 0xFF;
+                break;
+            case FILTER_UP:
+                predictor = previousRow[i] & 0xFF;
+                break;
+            default:
+                predictor = 0;
+            }
+            byte filtered = (byte) (value - predictor);
+            target[i + 1] = filtered;
+            sum += Math.abs(filtered);
+        }
+        return sum;
+    }
+
+    protected static void writeChunk(DataOutputStream dos, String type, byte[] data) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        dos.writeInt(data.length);
+        dos.write(typeBytes);
+        dos.write(data);
+        dos.writeInt((int) crc.getValue());
+    }
+}
@@ -0,0 +1,306 @@
+/*******************************************************************************
+ *     Architect - A free 2D/3D home and interior designer
+ *     Copyright (C) 2021 - 2023  Daniel Höh
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>
+ *******************************************************************************/
+package de.dh.utils.io;
+
+import java.util.Arrays;
+
+/**
+ * Util for converting Normals to Smoothing Groups.
+ *
+ * Two faces are connected if they share an edge (identified by its two vertex indices) which is used by exactly
+ * those two faces and if the normals at that edge are equal in both faces. Each connected component of faces
+ * with more than one face becomes a smoothing group, single faces get smoothing group 0.
+ * Components are collected beginning at the face with the highest index.
+ *
+ * This implementation works on primitive arrays only: Edges are identified by packed {@code long} keys in an
+ * open addressing hash table, the connected components are collected by a flood fill using an array stack.
+ */
+public class SmoothingGroups {
+    private static final float normalAngle = 0.9994f; // cos(2)
+    private static final float UNLOCKED_NORMAL = 1.0e20f;
+    private static final long EMPTY_KEY = -1L;
+
+    private final int numFaces;
+
+    // Edge slots, edgesPerFace slots per face; normal indices are sorted independently from the vertex indices
+    private final int edgesPerFace;
+    private final int[] slotKeyIds;
+    private final int[] slotNormal1;
+    private final int[] slotNormal2;
+
+    // Normalized normals and information whether a normal is usable at all
+    private final float[] normalizedNormals;
+    private final boolean[] lockedNormals;
+
+    // Distinct edge keys: number of usages and the first two faces using the edge
+    private int numKeys = 0;
+    private int[] keyUsages;
+    private int[] keyFace1;
+    private int[] keyFace2;
+
+    private SmoothingGroups(int numFaces, int edgesPerFace, float[] normals) {
+        this.numFaces = numFaces;
+        this.edgesPerFace = edgesPerFace;
+        int numSlots = numFaces * edgesPerFace;
+        slotKeyIds = new int[numSlots];
+        slotNormal1 = new int[numSlots];
+        slotNormal2 = new int[numSlots];
+
+        int numNormals = normals.length / 3;
+        normalizedNormals = new float[numNormals * 3];
+        lockedNormals = new boolean[numNormals];
+        for (int i = 0; i < numNormals; i++) {
+            float x = normals[i * 3];
+            float y = normals[i * 3 + 1];
+            float z = normals[i * 3 + 2];
+            lockedNormals[i] = x != UNLOCKED_NORMAL && y != UNLOCKED_NORMAL && z != UNLOCKED_NORMAL;
+            // Same float operations as Vec3f.normalize()
+            float norm = 1.0f / (float) Math.sqrt(x * x + y * y + z * z);
+            normalizedNormals[i * 3] = x * norm;
+            normalizedNormals[i * 3 + 1] = y * norm;
+            normalizedNormals[i * 3 + 2] = z * norm;
+        }
+    }
+
+    private static long edgeKey(int v1, int v2) {
+        int from = Math.min(v1, v2);
+        int to = Math.max(v1, v2);
+        return ((long) from << 32) | (to & 0xFFFFFFFFL);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Sets the edge slots of all faces and counts the faces using each edge.
+     * @param faceVertices Vertex indices, {@code edgesPerFace} entries per face.
+     * @param faceNormals Normal indices, {@code edgesPerFace} entries per face.
+     */
+    private void computeEdges(int[] faceVertices, int[] faceNormals) {
+        int numSlots = slotKeyIds.length;
+        int capacity = 16;
+        while (capacity < numSlots * 2) {
+            capacity <<= 1;
+        }
+        long[] tableKeys = new long[capacity];
+        int[] tableKeyIds = new int[capacity];
+        Arrays.fill(tableKeys, EMPTY_KEY);
+        int mask = capacity - 1;
+
+        keyUsages = new int[numSlots];
+        keyFace1 = new int[numSlots];
+        keyFace2 = new int[numSlots];
+
+        int n = edgesPerFace;
+        for (int f = 0; f < numFaces; f++) {
+            int base = f * n;
+            int from = faceVertices[base + n - 1];
+            int fromNormal = faceNormals[base + n - 1];
+            for (int i = 0; i < n; i++) {
+                int to = faceVertices[base + i];
+                int toNormal = faceNormals[base + i];
+                long key = edgeKey(from, to);
+                int slot = hash(key) & mask;
+                int keyId;
+                while (true) {
+                    long tableKey = tableKeys[slot];
+                    if (tableKey == EMPTY_KEY) {
+                        keyId = numKeys++;
+                        tableKeys[slot] = key;
+                        tableKeyIds[slot] = keyId;
+                        break;
+                    }
+                    if (tableKey == key) {
+                        keyId = tableKeyIds[slot];
+                        break;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+                int usages = keyUsages[keyId]++;
+                if (usages == 0) {
+                    keyFace1[keyId] = f;
+                } else if (usages == 1) {
+                    keyFace2[keyId] = f;
+                }
+                int edgeSlot = base + i;
+                slotKeyIds[edgeSlot] = keyId;
+                slotNormal1[edgeSlot] = Math.min(fromNormal, toNormal);
+                slotNormal2[edgeSlot] = Math.max(fromNormal, toNormal);
+                from = to;
+                fromNormal = toNormal;
+            }
+        }
+    }
+
+    private boolean isNormalsEqual(int n1, int n2) {
+        if (!lockedNormals[n1] || !lockedNormals[n2]) {
+            return false;
+        }
+        int i1 = n1 * 3;
+        int i2 = n2 * 3;
+        float dot = normalizedNormals[i1] * normalizedNormals[i2]
+                + normalizedNormals[i1 + 1] * normalizedNormals[i2 + 1]
+                + normalizedNormals[i1 + 2] * normalizedNormals[i2 + 2];
+        return dot >= normalAngle;
+    }
+
+    private boolean isSmooth(int edgeSlot1, int edgeSlot2) {
+        int a1 = slotNormal1[edgeSlot1];
+        int a2 = slotNormal2[edgeSlot1];
+        int b1 = slotNormal1[edgeSlot2];
+        int b2 = slotNormal2[edgeSlot2];
+        return (isNormalsEqual(a1, b1) && isNormalsEqual(a2, b2))
+                || (isNormalsEqual(a1, b2) && isNormalsEqual(a2, b1));
+    }
+
+    private int getAdjacentFace(int keyId, int face) {
+        return keyFace1[keyId] == face ? keyFace2[keyId] : keyFace1[keyId];
+    }
+
+    /**
+     * Determines the smooth edges. An edge is smooth if it is used by exactly two faces and if its normals,
+     * seen from one of the faces, match the normals of the first occurrence of the edge in the other face.
+     */
+    private boolean[] calcSmoothEdges() {
+        boolean[] result = new boolean[numKeys];
+        int n = edgesPerFace;
+        for (int face = 0; face < numFaces; face++) {
+            for (int i = 0; i < n; i++) {
+                int edgeSlot = face * n + i;
+                int keyId = slotKeyIds[edgeSlot];
+                if (keyUsages[keyId] != 2 || result[keyId]) {
+                    continue;
+                }
+                int adjFace = getAdjacentFace(keyId, face);
+                int adjEdgeSlot = -1;
+                for (int j = 0; j < n; j++) {
+                    if (slotKeyIds[adjFace * n + j] == keyId) {
+                        adjEdgeSlot = adjFace * n + j;
+                        break;
+                    }
+                }
+                if (adjEdgeSlot != -1 && isSmooth(edgeSlot, adjEdgeSlot)) {
+                    result[keyId] = true;
+                }
+            }
+        }
+        return result;
+    }
+
+    private int[] calcSmoothGroups() {
+        int[] result = new int[numFaces];
+        if (numFaces == 0) {
+            return result;
+        }
+        boolean[] smoothEdges = calcSmoothEdges();
+
+        boolean[] visited = new boolean[numFaces];
+        int[] stack = new int[numFaces];
+        int[] component = new int[numFaces];
+        int curGroup = 0;
+        int n = edgesPerFace;
+        for (int start = numFaces - 1; start >= 0; start--) {
+            if (visited[start]) {
+                continue;
+            }
+            int stackSize = 0;
+            int componentSize = 0;
+            stack[stackSize++] = start;
+            visited[start] = true;
+            while (stackSize > 0) {
+                int face = stack[--stackSize];
+                component[componentSize++] = face;
+                for (int i = 0; i < n; i++) {
+                    int keyId = slotKeyIds[face * n + i];
+                    if (!smoothEdges[keyId]) {
+                        continue;
+                    }
+                    int adjFace = getAdjacentFace(keyId, face);
+                    if (!visited[adjFace]) {
+                        visited[adjFace] = true;
+                        stack[stackSize++] = adjFace;
+                    }
+                }
+            }
+            if (componentSize == 1) {
+                result[component[0]] = 0;
+            } else {
+                int group = 1 << curGroup;
+                for (int j = 0; j < componentSize; j++) {
+                    result[component[j]] = group;
+                }
+                if (curGroup++ == 31) {
+                    curGroup = 0;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Calculates smoothing groups for data formatted in PolygonMesh style
+     * @param faces An array of faces, where each face consists of an array of vertex and uv indices
+     * @param faceNormals An array of face normals, where each face normal consists of an array of normal indices
+     * @param normals The array of normals
+     * @return An array of smooth groups, where the length of the array is the number of faces
+     */
+    public static int[] calcSmoothGroups(int[][] faces, int[][] faceNormals, float[] normals) {
+        if (faces.length == 0) {
+            return new int[0];
+        }
+        int edgesPerFace = faces[0].length / 2;
+        int[] faceVertices = new int[faces.length * edgesPerFace];
+        int[] flatFaceNormals = new int[faces.length * edgesPerFace];
+        for (int f = 0; f < faces.length; f++) {
+            if (faces[f].length != edgesPerFace * 2) {
+                throw new IllegalArgumentException("All faces must have the same number of vertices");
+            }
+            for (int i = 0; i < edgesPerFace; i++) {
+                faceVertices[f * edgesPerFace + i] = faces[f][i * 2];
+                flatFaceNormals[f * edgesPerFace + i] = faceNormals[f][i];
+            }
+        }
+        SmoothingGroups smoothGroups = new SmoothingGroups(faces.length, edgesPerFace, normals);
+        smoothGroups.computeEdges(faceVertices, flatFaceNormals);
+        return smoothGroups.calcSmoothGroups();
+    }
+
+    /**
+     * Calculates smoothing groups for faces given in flat arrays.
+     * @param flatFaces An array of faces, where each face is represented by {@code faceElementSize} (vertex and uv) indices
+     * @param faceElementSize Number of elements per face in {@code flatFaces}, twice the number of vertices per face
+     * @param flatFaceNormals An array of face normals, where each face is represented by one normal index per vertex
+     * @param normals The array of normals
+     * @return An array of smooth groups, where the length of the array is the number of faces
+     */
+    public static int[] calcSmoothGroups(int[] flatFaces, int faceElementSize, int[] flatFaceNormals, float[] normals) {
+        int numFaces = flatFaces.length / faceElementSize;
+        int edgesPerFace = faceElementSize / 2;
+        int[] faceVertices = new int[numFaces * edgesPerFace];
+        for (int f = 0; f < numFaces; f++) {
+            for (int i = 0; i < edgesPerFace; i++) {
+                faceVertices[f * edgesPerFace + i] = flatFaces[f * faceElementSize + i * 2];
+            }
+        }
+        SmoothingGroups smoothGroups = new SmoothingGroups(numFaces, edgesPerFace, normals);
+        smoothGroups.computeEdges(faceVertices, flatFaceNormals);
+        return smoothGroups.calcSmoothGroups();
+    }
+}
@@ -15,7 +15,7 @@
  *     You should have received a copy of the GNU General Public License
  *     along with this program.  If not, see <https://www.gnu.org/licenses/>
  *******************************************************************************/
-package de.dh.utils.io.fx;
+package de.dh.utils.io.obj;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -26,10 +26,9 @@ import java.util.stream.Collectors;
 
 import de.dh.cad.architect.utils.vfs.IDirectoryLocator;
 import de.dh.utils.Vector2D;
-import de.dh.utils.io.obj.RawMaterialData;
 
 /**
- * Contains all data about a material which is needed by {@link FxMeshBuilder} to apply a
+ * Contains all data about a material which is needed by the {@code FxMeshBuilder} to apply a
  * material to a mesh object.
  * This is similar to the {@link RawMaterialData} class but additionally contains an optional
  * {@link #getTileSize() tile size}.
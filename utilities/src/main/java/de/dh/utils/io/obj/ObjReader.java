@@ -42,7 +42,6 @@ import de.dh.cad.architect.utils.vfs.IDirectoryLocator;
 import de.dh.cad.architect.utils.vfs.IResourceLocator;
 import de.dh.utils.io.MeshData;
 import de.dh.utils.io.ObjData;
-import de.dh.utils.io.fx.MaterialData;
 
 /**
  * Obj file reader creating {@link ObjData} and {@link RawMaterialData} objects.
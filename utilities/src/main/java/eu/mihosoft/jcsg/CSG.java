@@ -35,9 +35,6 @@ import java.util.stream.Stream;
 import eu.mihosoft.jcsg.ext.quickhull3d.HullUtil;
 import eu.mihosoft.vvecmath.Transform;
 import eu.mihosoft.vvecmath.Vector3d;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Mesh;
-import javafx.scene.shape.TriangleMesh;
 
 /**
  * Constructive Solid Geometry (CSG).
@@ -85,7 +82,12 @@ public class CSG {
         NONE
     }
 
-    protected static OptType defaultOptType = OptType.NONE;
+    /**
+     * Polygons which are outside of the bounds of the other operand are not passed through the BSP operations.
+     * If the bounds of one operand contain the bounds of the other operand, the full BSP operations are used.
+     * This produces the same solids as {@link OptType#NONE}, but much faster for the wall shapes of the application.
+     */
+    protected static OptType defaultOptType = OptType.POLYGON_BOUND;
 
     protected List<Polygon> mPolygons;
     protected OptType mOptType = null;
@@ -362,11 +364,23 @@ public class CSG {
         return _unionIntersectOpt(csg);
     }
 
+    /**
+     * The polygon bounds optimizations only pass the polygons which touch the bounds of the other operand through the
+     * BSP operations. If one operand lies inside the other, the enclosing operand possibly has no such polygons although
+     * the solids overlap, so these optimizations must not be used in that case.
+     */
+    private static boolean isNested(Bounds a, Bounds b) {
+        return (a.contains(b.getMin()) && a.contains(b.getMax())) || (b.contains(a.getMin()) && b.contains(a.getMax()));
+    }
+
     private CSG _unionPolygonBoundsOpt(CSG csg) {
         List<Polygon> inner = new ArrayList<>();
         List<Polygon> outer = new ArrayList<>();
 
         Bounds bounds = csg.getBounds();
+        if (isNested(getBounds(), bounds)) {
+            return _unionNoOpt(csg);
+        }
 
         this.mPolygons.stream().forEach((p) -> {
             if (bounds.intersects(p.getBounds())) {
@@ -541,6 +555,10 @@ public class CSG {
         List<Polygon> outer = new ArrayList<>();
 
         Bounds bounds = csg.getBounds();
+        if (isNested(getBounds(), bounds)) {
+            // Enclosed cavity or enclosing subtrahend
+            return _differenceNoOpt(csg);
+        }
 
         this.mPolygons.stream().forEach((p) -> {
             if (bounds.intersects(p.getBounds())) {
@@ -550,6 +568,11 @@ public class CSG {
             }
         });
 
+        if (inner.isEmpty()) {
+            // Nothing to subtract
+            return this.clone();
+        }
+
         CSG innerCSG = CSG.fromPolygons(inner);
 
         List<Polygon> allPolygons = new ArrayList<>();
@@ -599,6 +622,46 @@ public class CSG {
      * @return intersection of this csg and the specified csg
      */
     public CSG intersect(CSG csg) {
+        switch (getOptType()) {
+            case POLYGON_BOUND:
+                return _intersectPolygonBoundsOpt(csg);
+            default:
+                return _intersectNoOpt(csg);
+        }
+    }
+
+    /**
+     * Polygons of one operand which are outside the bounds of the other operand cannot be part of the intersection,
+     * so only the remaining polygons are passed through the BSP operations.
+     */
+    private CSG _intersectPolygonBoundsOpt(CSG csg) {
+        Bounds boundsA = this.getBounds();
+        Bounds boundsB = csg.getBounds();
+        if (isNested(boundsA, boundsB)) {
+            return _intersectNoOpt(csg);
+        }
+
+        List<Polygon> innerA = new ArrayList<>();
+        for (Polygon p : this.mPolygons) {
+            if (boundsB.intersects(p.getBounds())) {
+                innerA.add(p);
+            }
+        }
+        List<Polygon> innerB = new ArrayList<>();
+        for (Polygon p : csg.mPolygons) {
+            if (boundsA.intersects(p.getBounds())) {
+                innerB.add(p);
+            }
+        }
+
+        if (innerA.isEmpty() || innerB.isEmpty()) {
+            return CSG.fromPolygons(new ArrayList<>()).optimization(getOptType());
+        }
+
+        return CSG.fromPolygons(innerA).optimization(getOptType())._intersectNoOpt(CSG.fromPolygons(innerB));
+    }
+
+    private CSG _intersectNoOpt(CSG csg) {
         Node a = new Node(this.clone().mPolygons);
         Node b = new Node(csg.clone().mPolygons);
         a.invert();
@@ -673,17 +736,6 @@ public class CSG {
         return intersect(Arrays.asList(csgs));
     }
 
-    public CSG color(Color c) {
-        CSG result = this.clone();
-
-        mStorage.set("material:color",
-                "" + c.getRed()
-                + " " + c.getGreen()
-                + " " + c.getBlue());
-
-        return result;
-    }
-
     /**
      * Returns this csg in STL string format.
      *
@@ -815,143 +867,6 @@ public class CSG {
         return result;
     }
 
-    public Mesh toJavaFXMesh() {
-        return toJavaFXTriangleMesh();
-    }
-
-    /**
-     * Returns the CSG as JavaFX triangle mesh.
-     *
-     * @return the CSG as JavaFX triangle mesh
-     */
-    public TriangleMesh toJavaFXTriangleMesh() {
-        TriangleMesh result = new TriangleMesh();
-
-//        double minX = Double.POSITIVE_INFINITY;
-//        double minY = Double.POSITIVE_INFINITY;
-//        double minZ = Double.POSITIVE_INFINITY;
-//
-//        double maxX = Double.NEGATIVE_INFINITY;
-//        double maxY = Double.NEGATIVE_INFINITY;
-//        double maxZ = Double.NEGATIVE_INFINITY;
-
-        int counter = 0;
-        for (Polygon p : getPolygons()) {
-            if (p.vertices.size() >= 3) {
-
-                // TODO: improve the triangulation?
-                //
-                // JavaOne requires triangular polygons.
-                // If our polygon has more vertices, create
-                // multiple triangles:
-                Vertex firstVertex = p.vertices.get(0);
-                for (int i = 0; i < p.vertices.size() - 2; i++) {
-
-//                    if (firstVertex.pos.x() < minX) {
-//                        minX = firstVertex.pos.x();
-//                    }
-//                    if (firstVertex.pos.y() < minY) {
-//                        minY = firstVertex.pos.y();
-//                    }
-//                    if (firstVertex.pos.z() < minZ) {
-//                        minZ = firstVertex.pos.z();
-//                    }
-//
-//                    if (firstVertex.pos.x() > maxX) {
-//                        maxX = firstVertex.pos.x();
-//                    }
-//                    if (firstVertex.pos.y() > maxY) {
-//                        maxY = firstVertex.pos.y();
-//                    }
-//                    if (firstVertex.pos.z() > maxZ) {
-//                        maxZ = firstVertex.pos.z();
-//                    }
-
-                    result.getPoints().addAll(
-                            (float) firstVertex.pos.x(),
-                            (float) firstVertex.pos.y(),
-                            (float) firstVertex.pos.z());
-
-                    result.getTexCoords().addAll(0); // texture (not covered)
-                    result.getTexCoords().addAll(0);
-
-                    Vertex secondVertex = p.vertices.get(i + 1);
-
-//                    if (secondVertex.pos.x() < minX) {
-//                        minX = secondVertex.pos.x();
-//                    }
-//                    if (secondVertex.pos.y() < minY) {
-//                        minY = secondVertex.pos.y();
-//                    }
-//                    if (secondVertex.pos.z() < minZ) {
-//                        minZ = secondVertex.pos.z();
-//                    }
-//
-//                    if (secondVertex.pos.x() > maxX) {
-//                        maxX = firstVertex.pos.x();
-//                    }
-//                    if (secondVertex.pos.y() > maxY) {
-//                        maxY = firstVertex.pos.y();
-//                    }
-//                    if (secondVertex.pos.z() > maxZ) {
-//                        maxZ = firstVertex.pos.z();
-//                    }
-
-                    result.getPoints().addAll(
-                            (float) secondVertex.pos.x(),
-                            (float) secondVertex.pos.y(),
-                            (float) secondVertex.pos.z());
-
-                    result.getTexCoords().addAll(0); // texture (not covered)
-                    result.getTexCoords().addAll(0);
-
-                    Vertex thirdVertex = p.vertices.get(i + 2);
-
-                    result.getPoints().addAll(
-                            (float) thirdVertex.pos.x(),
-                            (float) thirdVertex.pos.y(),
-                            (float) thirdVertex.pos.z());
-
-//                    if (thirdVertex.pos.x() < minX) {
-//                        minX = thirdVertex.pos.x();
-//                    }
-//                    if (thirdVertex.pos.y() < minY) {
-//                        minY = thirdVertex.pos.y();
-//                    }
-//                    if (thirdVertex.pos.z() < minZ) {
-//                        minZ = thirdVertex.pos.z();
-//                    }
-//
-//                    if (thirdVertex.pos.x() > maxX) {
-//                        maxX = firstVertex.pos.x();
-//                    }
-//                    if (thirdVertex.pos.y() > maxY) {
-//                        maxY = firstVertex.pos.y();
-//                    }
-//                    if (thirdVertex.pos.z() > maxZ) {
-//                        maxZ = firstVertex.pos.z();
-//                    }
-
-                    result.getTexCoords().addAll(0); // texture (not covered)
-                    result.getTexCoords().addAll(0);
-
-                    result.getFaces().addAll(
-                            counter, // first vertex
-                            0, // texture (not covered)
-                            counter + 1, // second vertex
-                            0, // texture (not covered)
-                            counter + 2, // third vertex
-                            0 // texture (not covered)
-                    );
-                    counter += 3;
-                } // end for
-            } // end if #verts >= 3
-
-        } // end for polygon
-
-        return result;
-    }
-
     /**
      * Returns the bounds of this csg.
      *
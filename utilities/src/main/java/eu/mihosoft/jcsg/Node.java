@@ -33,7 +33,10 @@
  */
 package eu.mihosoft.jcsg;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -220,11 +223,36 @@ final class Node {
         return localPolygons;
     }
 
+    /**
+     * Maximum number of polygons which are evaluated as splitting plane candidates for a node.
+     */
+    private static final int MAX_PLANE_CANDIDATES = 8;
+
+    /**
+     * Maximum number of polygons which are classified against each splitting plane candidate.
+     */
+    private static final int MAX_CLASSIFICATION_SAMPLES = 64;
+
+    /**
+     * Weight of a polygon split in relation to the imbalance of the front and back polygon counts.
+     */
+    private static final int SPLIT_WEIGHT = 8;
+
+    private static final int COPLANAR = 0;
+    private static final int FRONT = 1;
+    private static final int BACK = 2;
+    private static final int SPANNING = 3;
+
+    private static record BuildTask(Node node, List<Polygon> polygons) {
+        // Empty
+    }
+
     /**
      * Build a BSP tree out of {@code polygons}. When called on an existing
      * tree, the new polygons are filtered down to the bottom of the tree and
      * become new nodes there. Each set of polygons is partitioned using the
-     * first polygon (no heuristic is used to pick a good split).
+     * best of a few sampled candidate planes, see {@link #choosePlane(List)}.
+     * The tree is built iteratively to avoid deep recursion for large polygon sets.
      *
      * @param polygons polygons used to build the BSP
      */
@@ -232,32 +260,117 @@ final class Node {
 
         if (polygons.isEmpty()) return;
 
-        if (this.plane == null) {
-            this.plane = polygons.get(0)._csg_plane.clone();
-        }
+        // Polygon lists of the sub nodes are created below and cannot contain duplicates,
+        // so it is enough to remove duplicate instances once at the beginning
+        List<Polygon> distinctPolygons = new ArrayList<>(new LinkedHashSet<>(polygons));
+
+        Deque<BuildTask> tasks = new ArrayDeque<>();
+        tasks.push(new BuildTask(this, distinctPolygons));
+        while (!tasks.isEmpty()) {
+            BuildTask task = tasks.pop();
+            Node node = task.node();
+            List<Polygon> validPolygons = new ArrayList<>(task.polygons().size());
+            for (Polygon polygon : task.polygons()) {
+                if (polygon.isValid()) {
+                    validPolygons.add(polygon);
+                }
+            }
 
-        polygons = polygons.stream().filter(p->p.isValid()).distinct().collect(Collectors.toList());
+            if (node.plane == null) {
+                node.plane = validPolygons.isEmpty()
+                        ? task.polygons().get(0)._csg_plane.clone()
+                        : choosePlane(validPolygons);
+            }
 
-        List<Polygon> frontP = new ArrayList<>();
-        List<Polygon> backP = new ArrayList<>();
+            List<Polygon> frontP = new ArrayList<>();
+            List<Polygon> backP = new ArrayList<>();
 
-        // parellel version does not work here
-        polygons.forEach((polygon) -> {
-            this.plane.splitPolygon(
-                    polygon, this.polygons, this.polygons, frontP, backP);
-        });
+            // parellel version does not work here
+            for (Polygon polygon : validPolygons) {
+                node.plane.splitPolygon(
+                        polygon, node.polygons, node.polygons, frontP, backP);
+            }
 
-        if (frontP.size() > 0) {
-            if (this.front == null) {
-                this.front = new Node();
+            if (frontP.size() > 0) {
+                if (node.front == null) {
+                    node.front = new Node();
+                }
+                tasks.push(new BuildTask(node.front, frontP));
+            }
+            if (backP.size() > 0) {
+                if (node.back == null) {
+                    node.back = new Node();
+                }
+                tasks.push(new BuildTask(node.back, backP));
             }
-            this.front.build(frontP);
         }
-        if (backP.size() > 0) {
-            if (this.back == null) {
-                this.back = new Node();
+    }
+
+    /**
+     * Chooses the splitting plane for the given polygons. A few polygons, evenly distributed over the list, are
+     * used as candidates; each candidate plane is rated by the number of polygons it would split and by the imbalance
+     * of the polygons in front of and behind it. For large lists, only a sample of the polygons is classified.
+     * The first polygon wins in case of equal ratings, which was the plane chosen by the former implementation.
+     *
+     * @param polygons valid polygons to partition, must not be empty
+     * @return the chosen splitting plane
+     */
+    private static Plane choosePlane(List<Polygon> polygons) {
+        int numPolygons = polygons.size();
+        if (numPolygons <= 2) {
+            return polygons.get(0)._csg_plane.clone();
+        }
+        int numCandidates = Math.min(MAX_PLANE_CANDIDATES, numPolygons);
+        int candidateStep = numPolygons / numCandidates;
+        int sampleStep = Math.max(1, numPolygons / MAX_CLASSIFICATION_SAMPLES);
+
+        Plane bestPlane = null;
+        long bestScore = Long.MAX_VALUE;
+        for (int c = 0; c < numCandidates; c++) {
+            Plane candidate = polygons.get(c * candidateStep)._csg_plane;
+            int numFront = 0;
+            int numBack = 0;
+            int numSpanning = 0;
+            for (int i = 0; i < numPolygons; i += sampleStep) {
+                switch (classify(candidate, polygons.get(i))) {
+                    case FRONT:
+                        numFront++;
+                        break;
+                    case BACK:
+                        numBack++;
+                        break;
+                    case SPANNING:
+                        numSpanning++;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            long score = (long) numSpanning * SPLIT_WEIGHT + Math.abs(numFront - numBack);
+            if (score < bestScore) {
+                bestScore = score;
+                bestPlane = candidate;
+                if (score == 0) {
+                    break;
+                }
+            }
+        }
+        return bestPlane.clone();
+    }
+
+    /**
+     * Classifies the given polygon against the given plane like {@link Plane#splitPolygon(Polygon, List, List, List, List)}
+     * does, but without creating any objects.
+     */
+    private static int classify(Plane plane, Polygon polygon) {
+        int polygonType = COPLANAR;
+        for (Vertex vertex : polygon.vertices) {
+            double t = plane.normal.dot(vertex.pos) - plane.dist;
+            polygonType |= (t < -Plane.EPSILON) ? BACK : (t > Plane.EPSILON) ? FRONT : COPLANAR;
+            if (polygonType == SPANNING) {
+                break;
             }
-            this.back.build(backP);
         }
+        return polygonType;
     }
 }
@@ -36,7 +36,6 @@ package eu.mihosoft.jcsg;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
-import javafx.scene.paint.Color;
 
 /**
  * A simple property storage.
@@ -47,15 +46,11 @@ public class PropertyStorage {
 
     private final Map<String, Object> map = new HashMap<>();
 
-    private static final Color[] colors = {
-        Color.RED, Color.YELLOW, Color.GREEN, Color.BLUE, Color.MAGENTA,
-        Color.WHITE, Color.BLACK, Color.GRAY, Color.ORANGE};
-
     /**
      * Constructor. Creates a new property storage.
      */
     public PropertyStorage() {
-       randomColor(this);
+        // Empty
     }
 
     /**
@@ -106,13 +101,4 @@ public class PropertyStorage {
     public boolean contains(String key) {
         return map.containsKey(key);
     }
-
-    static void randomColor(PropertyStorage storage) {
-        Color c = colors[(int) (Math.random() * colors.length)];
-
-        storage.set("material:color",
-                "" + c.getRed()
-                + " " + c.getGreen()
-                + " " + c.getBlue());
-    }
 }
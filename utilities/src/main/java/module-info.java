@@ -20,6 +20,13 @@ module de.dh.cad.architect.utils {
     exports de.dh.cad.architect.utils.jaxb;
     exports de.dh.cad.architect.utils.vfs;
     exports de.dh.cad.architect.utils.todo;
+    exports de.dh.utils;
+    exports de.dh.utils.csg;
+    exports de.dh.utils.io;
+    exports de.dh.utils.io.obj;
+    exports eu.mihosoft.vvecmath;
+    exports eu.mihosoft.jcsg;
+    exports eu.mihosoft.jcsg.ext.org.poly2tri;
 
     requires transitive org.slf4j;
     requires transitive java.xml.bind;
@@ -0,0 +1,84 @@
+package de.dh.utils.csg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link PolygonTriangulator}.
+ * Checks that the triangles of random concave polygons cover the polygon area exactly once and have the orientation of the polygon.
+ */
+public class PolygonTriangulatorTest {
+    protected static final int NUM_POLYGONS = 500;
+    protected static final double EPSILON = 1e-6;
+
+    /**
+     * Creates a random star-shaped polygon, which is concave in most cases.
+     */
+    protected static double[] createStarPolygon(Random random, int numPoints, boolean clockwise) {
+        double[] result = new double[numPoints * 2];
+        for (int i = 0; i < numPoints; i++) {
+            double angle = 2 * Math.PI * i / numPoints * (clockwise ? -1 : 1);
+            double radius = 1 + random.nextDouble() * 9;
+            result[i * 2] = Math.cos(angle) * radius;
+            result[i * 2 + 1] = Math.sin(angle) * radius;
+        }
+        return result;
+    }
+
+    protected static double triangleArea2(double[] xy, int a, int b, int c) {
+        return PolygonTriangulator.cross(xy[a * 2], xy[a * 2 + 1], xy[b * 2], xy[b * 2 + 1], xy[c * 2], xy[c * 2 + 1]);
+    }
+
+    protected static void assertValidTriangulation(double[] xy, int[] triangles, String context) {
+        double polygonArea2 = PolygonTriangulator.signedArea2(xy);
+        double trianglesArea2 = 0;
+        for (int i = 0; i < triangles.length; i += 3) {
+            double area2 = triangleArea2(xy, triangles[i], triangles[i + 1], triangles[i + 2]);
+            assertTrue(area2 * Math.signum(polygonArea2) > 0, context + ": Triangle " + i / 3 + " is degenerate or has the wrong orientation");
+            trianglesArea2 += area2;
+        }
+        assertEquals(polygonArea2, trianglesArea2, EPSILON * Math.abs(polygonArea2), context + ": Triangles don't cover the polygon area");
+    }
+
+    @Test
+    @DisplayName("Random concave polygons")
+    public void testRandomPolygons() {
+        Random random = new Random(42);
+        for (int i = 0; i < NUM_POLYGONS; i++) {
+            int numPoints = 3 + random.nextInt(150);
+            boolean clockwise = random.nextBoolean();
+            double[] xy = createStarPolygon(random, numPoints, clockwise);
+            int[] triangles = PolygonTriangulator.triangulate(xy);
+            assertEquals((numPoints - 2) * 3, triangles.length, "Polygon " + i + ": Wrong number of triangles");
+            assertValidTriangulation(xy, triangles, "Polygon " + i);
+        }
+    }
+
+    @Test
+    @DisplayName("Duplicate and collinear points")
+    public void testDegeneratePoints() {
+        double[] xy = {
+            0, 0,
+            5, 0, // Collinear
+            10, 0,
+            10, 0, // Duplicate
+            10, 10,
+            5, 5, // Reflex
+            0, 10
+        };
+        int[] triangles = PolygonTriangulator.triangulate(xy);
+        assertValidTriangulation(xy, triangles, "Degenerate polygon");
+    }
+
+    @Test
+    @DisplayName("Polygons without area")
+    public void testEmptyPolygons() {
+        assertEquals(0, PolygonTriangulator.triangulate(new double[] {0, 0, 1, 1}).length);
+        assertEquals(0, PolygonTriangulator.triangulate(new double[] {0, 0, 1, 1, 2, 2}).length);
+    }
+}
@@ -0,0 +1,106 @@
+package de.dh.utils.csg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.dh.utils.csg.BoundingVolumeHierarchy.RayHit;
+
+/**
+ * Test class for {@link TriangleMeshBvh} and {@link BoundingVolumeHierarchy}.
+ * Casts random rays into random triangle soups and compares the results with a test of all triangles.
+ */
+public class TriangleMeshBvhTest {
+    protected static final int NUM_TRIANGLES = 2000;
+    protected static final int NUM_RAYS = 2000;
+    protected static final int FACE_STRIDE = 6;
+    protected static final double EPSILON = 1e-9;
+
+    protected static float[] createPoints(Random random, int numTriangles) {
+        float[] result = new float[numTriangles * 9];
+        for (int t = 0; t < numTriangles; t++) {
+            float cx = random.nextFloat() * 1000;
+            float cy = random.nextFloat() * 1000;
+            float cz = random.nextFloat() * 1000;
+            for (int v = 0; v < 3; v++) {
+                int p = t * 9 + v * 3;
+                result[p] = cx + random.nextFloat() * 40 - 20;
+                result[p + 1] = cy + random.nextFloat() * 40 - 20;
+                result[p + 2] = cz + random.nextFloat() * 40 - 20;
+            }
+        }
+        return result;
+    }
+
+    protected static int[] createFaces(int numTriangles) {
+        // POINT_TEXCOORD layout, texture coordinate indices are irrelevant
+        int[] result = new int[numTriangles * FACE_STRIDE];
+        for (int t = 0; t < numTriangles; t++) {
+            for (int v = 0; v < 3; v++) {
+                result[t * FACE_STRIDE + v * 2] = t * 3 + v;
+            }
+        }
+        return result;
+    }
+
+    @Test
+    @DisplayName("Nearest hit matches a test of all triangles")
+    public void testRandomRays() {
+        Random random = new Random(42);
+        float[] points = createPoints(random, NUM_TRIANGLES);
+        TriangleMeshBvh bvh = new TriangleMeshBvh(points, createFaces(NUM_TRIANGLES), FACE_STRIDE);
+        assertEquals(NUM_TRIANGLES, bvh.getNumFaces());
+
+        RayHit hit = new RayHit();
+        int numHits = 0;
+        for (int i = 0; i < NUM_RAYS; i++) {
+            double ox = random.nextDouble() * 1400 - 200;
+            double oy = random.nextDouble() * 1400 - 200;
+            double oz = -100;
+            // Aim at a random point inside the triangle area
+            double dx = random.nextDouble() * 1000 - ox;
+            double dy = random.nextDouble() * 1000 - oy;
+            double dz = random.nextDouble() * 1000 - oz;
+
+            double expectedT = Double.POSITIVE_INFINITY;
+            int expectedFace = -1;
+            for (int f = 0; f < NUM_TRIANGLES; f++) {
+                double t = bvh.intersectFace(f, ox, oy, oz, dx, dy, dz, expectedT);
+                if (t < expectedT) {
+                    expectedT = t;
+                    expectedFace = f;
+                }
+            }
+            boolean found = bvh.raycast(ox, oy, oz, dx, dy, dz, Double.POSITIVE_INFINITY, hit);
+            assertEquals(expectedFace >= 0, found, "Ray " + i);
+            if (found) {
+                numHits++;
+                assertEquals(expectedT, hit.getT(), EPSILON, "Ray " + i);
+                assertEquals(expectedFace, hit.getPrimitive(), "Ray " + i);
+            }
+        }
+        assertTrue(numHits > NUM_RAYS / 10, "Test rays should hit triangles");
+    }
+
+    @Test
+    @DisplayName("Triangles are hit from both sides and only in front of the ray origin")
+    public void testSingleTriangle() {
+        float[] points = new float[] {0, 0, 0, 10, 0, 0, 0, 10, 0};
+        TriangleMeshBvh bvh = new TriangleMeshBvh(points, createFaces(1), FACE_STRIDE);
+        RayHit hit = new RayHit();
+
+        assertTrue(bvh.raycast(2, 2, -5, 0, 0, 1, Double.POSITIVE_INFINITY, hit));
+        assertEquals(5, hit.getT(), EPSILON);
+        assertTrue(bvh.raycast(2, 2, 5, 0, 0, -2, Double.POSITIVE_INFINITY, hit));
+        assertEquals(2.5, hit.getT(), EPSILON);
+
+        assertFalse(bvh.raycast(2, 2, 5, 0, 0, 1, Double.POSITIVE_INFINITY, hit), "Triangle is behind the origin");
+        assertFalse(bvh.raycast(8, 8, -5, 0, 0, 1, Double.POSITIVE_INFINITY, hit), "Ray passes outside of the triangle");
+        assertFalse(bvh.raycast(2, 2, -5, 0, 0, 1, 4, hit), "Triangle is farther than max t");
+    }
+}
@@ -0,0 +1,132 @@
+package de.dh.utils.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link IndexedMeshBuilder}.
+ */
+public class IndexedMeshBuilderTest {
+    protected static final float DELTA = (float) (IndexedMeshBuilder.WELD_EPSILON / 10);
+
+    @Test
+    @DisplayName("Vertices with the same position and texture coordinates are welded")
+    public void testWeldIdenticalVertices() {
+        IndexedMeshBuilder builder = new IndexedMeshBuilder("Test", null);
+        int v0 = builder.addVertex(1, 2, 3, 0.5f, 0.25f);
+        int v1 = builder.addVertex(4, 5, 6, 1, 0);
+        assertEquals(v0, builder.addVertex(1, 2, 3, 0.5f, 0.25f));
+        assertEquals(v1, builder.addVertex(4, 5, 6, 1, 0));
+        assertEquals(2, builder.getNumVertices());
+    }
+
+    @Test
+    @DisplayName("Positions which differ by less than the weld epsilon are welded, the first vertex keeps its values")
+    public void testWeldWithinEpsilon() {
+        IndexedMeshBuilder builder = new IndexedMeshBuilder("Test", null);
+        int v0 = builder.addVertex(10.1f, -3.2f, 0.7f, 0.3f, 0.6f);
+        assertEquals(v0, builder.addVertex(10.1f + DELTA, -3.2f, 0.7f, 0.3f, 0.6f));
+        assertEquals(v0, builder.addVertex(10.1f, -3.2f - DELTA, 0.7f + DELTA, 0.3f, 0.6f));
+        assertEquals(1, builder.getNumVertices());
+        assertArrayEquals(new float[] {10.1f, -3.2f, 0.7f}, builder.build().getPoints());
+
+        // Clearly different positions are not welded
+        float distance = (float) (IndexedMeshBuilder.WELD_EPSILON * 10);
+        assertNotEquals(v0, builder.addVertex(10.1f + distance, -3.2f, 0.7f, 0.3f, 0.6f));
+        assertNotEquals(v0, builder.addVertex(10.1f, -3.2f, 0.7f - distance, 0.3f, 0.6f));
+        assertEquals(3, builder.getNumVertices());
+    }
+
+    @Test
+    @DisplayName("Negative and positive zero are welded")
+    public void testWeldNegativeZero() {
+        IndexedMeshBuilder builder = new IndexedMeshBuilder("Test", null);
+        int v0 = builder.addVertex(0.0f, 1, 0.0f, 0.0f, 1);
+        assertEquals(v0, builder.addVertex(-0.0f, 1, 0.0f, 0.0f, 1));
+        assertEquals(v0, builder.addVertex(0.0f, 1, -0.0f, -0.0f, 1));
+        assertEquals(v0, builder.addVertex(-0.0f, 1, -0.0f, -0.0f, 1));
+        assertEquals(1, builder.getNumVertices());
+    }
+
+    @Test
+    @DisplayName("Vertices with different texture coordinates are not welded")
+    public void testDifferentTexCoords() {
+        IndexedMeshBuilder builder = new IndexedMeshBuilder("Test", null);
+        int v0 = builder.addVertex(1, 1, 1, 0, 0);
+        int v1 = builder.addVertex(1, 1, 1, 1, 0);
+        int v2 = builder.addVertex(1, 1, 1, 0, 1);
+        assertNotEquals(v0, v1);
+        assertNotEquals(v0, v2);
+        assertNotEquals(v1, v2);
+        assertEquals(3, builder.getNumVertices());
+        assertArrayEquals(new float[] {0, 0, 1, 0, 0, 1}, builder.build().getTexCoords());
+    }
+
+    @Test
+    @DisplayName("Shared vertices of faces with different normals keep flat shading")
+    public void testSharedVerticesOfDifferentNormals() {
+        // Two faces of a box edge, facing in -Y and in +X direction, share the vertices of the edge
+        IndexedMeshBuilder builder = new IndexedMeshBuilder("Test", null);
+        int e0 = builder.addVertex(1, 0, 0, 0, 0);
+        int e1 = builder.addVertex(1, 0, 1, 0, 1);
+        builder.addTriangle(builder.addVertex(0, 0, 0, 0, 0), e0, e1);
+        builder.addTriangle(e0, builder.addVertex(1, 1, 0, 0, 0), e1);
+        IndexedMeshData mesh = builder.build();
+        assertEquals(4, mesh.getNumVertices());
+        assertEquals(2, mesh.getNumFaces());
+        // The mesh format doesn't contain normals; faces without smoothing group are shaded with their own face normals
+        assertArrayEquals(new int[] {0, 0}, mesh.getSmoothingGroups());
+    }
+
+    @Test
+    @DisplayName("Degenerate triangles are skipped")
+    public void testSkipDegenerateTriangles() {
+        IndexedMeshBuilder builder = new IndexedMeshBuilder("Test", null);
+        int v0 = builder.addVertex(0, 0, 0, 0, 0);
+        int v1 = builder.addVertex(1, 0, 0, 1, 0);
+        int v2 = builder.addVertex(0, 1, 0, 0, 1);
+        // Vertex which is welded with v1
+        int v3 = builder.addVertex(1 + DELTA, 0, 0, 1, 0);
+        builder.addTriangle(v0, v1, v3);
+        builder.addTriangle(v0, v0, v2);
+        builder.addTriangle(v2, v1, v2);
+        assertEquals(0, builder.getNumFaces());
+
+        builder.addTriangle(v0, v1, v2);
+        IndexedMeshData mesh = builder.build();
+        assertEquals(1, mesh.getNumFaces());
+        assertArrayEquals(new int[] {v0, v0, v1, v1, v2, v2}, mesh.getFaces());
+    }
+
+    @Test
+    @DisplayName("Welding still works after the vertex and face arrays and the hash table were grown")
+    public void testGrow() {
+        IndexedMeshBuilder builder = new IndexedMeshBuilder("Test", null, 1);
+        Random random = new Random(1);
+        int numVertices = 1000;
+        float[] points = new float[numVertices * 3];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = random.nextInt(100000) / 100f;
+        }
+        int[] indices = new int[numVertices];
+        for (int i = 0; i < numVertices; i++) {
+            indices[i] = builder.addVertex(points[i * 3], points[i * 3 + 1], points[i * 3 + 2], 0, 0);
+        }
+        for (int i = 0; i < numVertices; i++) {
+            assertEquals(indices[i], builder.addVertex(points[i * 3], points[i * 3 + 1], points[i * 3 + 2], 0, 0));
+        }
+        for (int i = 0; i + 2 < numVertices; i += 3) {
+            builder.addTriangle(indices[i], indices[i + 1], indices[i + 2]);
+        }
+        IndexedMeshData mesh = builder.build();
+        assertEquals(numVertices, mesh.getNumVertices());
+        assertEquals(numVertices / 3, mesh.getNumFaces());
+        assertArrayEquals(points, mesh.getPoints());
+    }
+}
@@ -0,0 +1,79 @@
+package de.dh.utils.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link PngWriter}.
+ * Writes random pixel buffers and checks that {@link ImageIO} reads back exactly the same pixels.
+ */
+public class PngWriterTest {
+    protected static int[] createPixels(Random random, int numPixels, boolean opaque) {
+        int[] result = new int[numPixels];
+        for (int i = 0; i < numPixels; i++) {
+            // Mix random noise with smooth areas to exercise all filter types
+            int pixel = random.nextInt(4) == 0 ? random.nextInt() : (i * 0x010203);
+            result[i] = opaque ? pixel | 0xFF000000 : pixel;
+        }
+        return result;
+    }
+
+    protected static BufferedImage writeAndRead(int[] argb, int offset, int scanlineStride, int width, int height) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        PngWriter.writeArgb(argb, offset, scanlineStride, width, height, bos);
+        return ImageIO.read(new ByteArrayInputStream(bos.toByteArray()));
+    }
+
+    protected static void assertPixels(int[] argb, int offset, int scanlineStride, int width, int height, BufferedImage image) {
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int expected = argb[offset + y * scanlineStride + x];
+                int actual = image.getRGB(x, y);
+                if ((expected >>> 24) == 0) {
+                    // Color of completely transparent pixels is irrelevant
+                    assertEquals(0, actual >>> 24, "Alpha at " + x + "/" + y);
+                } else {
+                    assertEquals(expected, actual, "Pixel at " + x + "/" + y);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Transparent and opaque images are read back unchanged")
+    public void testRoundTrip() throws IOException {
+        Random random = new Random(42);
+        for (boolean opaque : new boolean[] {false, true}) {
+            int width = 37;
+            int height = 23;
+            int[] argb = createPixels(random, width * height, opaque);
+            BufferedImage image = writeAndRead(argb, 0, width, width, height);
+            assertEquals(!opaque, image.getColorModel().hasAlpha());
+            assertPixels(argb, 0, width, width, height, image);
+        }
+    }
+
+    @Test
+    @DisplayName("Sub region of a pixel buffer is written")
+    public void testSubRegion() throws IOException {
+        Random random = new Random(7);
+        int bufferWidth = 50;
+        int bufferHeight = 40;
+        int[] argb = createPixels(random, bufferWidth * bufferHeight, false);
+        int offset = 5 * bufferWidth + 3;
+        BufferedImage image = writeAndRead(argb, offset, bufferWidth, 20, 30);
+        assertPixels(argb, offset, bufferWidth, 20, 30, image);
+    }
+}
@@ -1,20 +1,3 @@
-/*******************************************************************************
- *     Architect - A free 2D/3D home and interior designer
- *     Copyright (C) 2021 - 2023  Daniel Höh
- *
- *     This program is free software: you can redistribute it and/or modify
- *     it under the terms of the GNU General Public License as published by
- *     the Free Software Foundation, either version 3 of the License, or
- *     (at your option) any later version.
- *
- *     This program is distributed in the hope that it will be useful,
- *     but WITHOUT ANY WARRANTY; without even the implied warranty of
- *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
- *     GNU General Public License for more details.
- *
- *     You should have received a copy of the GNU General Public License
- *     along with this program.  If not, see <https://www.gnu.org/licenses/>
- *******************************************************************************/
 package de.dh.utils.io;
 
 import java.util.ArrayList;
@@ -27,10 +10,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 
-import javafx.scene.shape.TriangleMesh;
-
-/** Util for converting Normals to Smoothing Groups */
-public class SmoothingGroups {
+/**
+ * Former, object based implementation of {@link SmoothingGroups}, kept as reference for the golden tests.
+ */
+public class ReferenceSmoothingGroups {
     private BitSet visited, notVisited;
     private Queue<Integer> q;
 
@@ -40,7 +23,7 @@ public class SmoothingGroups {
 
     private Edge[][] faceEdges;
 
-    public SmoothingGroups(int faces[][], int[][] faceNormals, float[] normals) {
+    public ReferenceSmoothingGroups(int faces[][], int[][] faceNormals, float[] normals) {
         this.faces = faces;
         this.faceNormals = faceNormals;
         this.normals = normals;
@@ -266,33 +249,7 @@ public class SmoothingGroups {
      * @return An array of smooth groups, where the length of the array is the number of faces
      */
     public static int[] calcSmoothGroups(int[][] faces, int[][] faceNormals, float[] normals) {
-        SmoothingGroups smoothGroups = new SmoothingGroups(faces, faceNormals, normals);
-        return smoothGroups.calcSmoothGroups();
-    }
-
-    /**
-     * Calculates smoothing groups for data formatted in TriangleMesh style
-     * @param flatFaces An array of faces, where each triangle face is represented by 6 (vertex and uv) indices
-     * @param flatFaceNormals An array of face normals, where each triangle face is represented by 3 normal indices
-     * @param normals The array of normals
-     * @return An array of smooth groups, where the length of the array is the number of faces
-     */
-    public static int[] calcSmoothGroups(TriangleMesh mesh, int[] flatFaces, int[] flatFaceNormals, float[] normals) {
-        int faceElementSize = mesh.getFaceElementSize();
-        int[][] faces = new int[flatFaces.length/faceElementSize][faceElementSize];
-        for (int f = 0; f < faces.length; f++) {
-            for (int e = 0; e < faceElementSize; e++) {
-                faces[f][e] = flatFaces[f * faceElementSize + e];
-            }
-        }
-        int pointElementSize = mesh.getPointElementSize();
-        int[][] faceNormals = new int[flatFaceNormals.length/pointElementSize][pointElementSize];
-        for (int f = 0; f < faceNormals.length; f++) {
-            for (int e = 0; e < pointElementSize; e++) {
-                faceNormals[f][e] = flatFaceNormals[f * pointElementSize + e];
-            }
-        }
-        SmoothingGroups smoothGroups = new SmoothingGroups(faces, faceNormals, normals);
+        ReferenceSmoothingGroups smoothGroups = new ReferenceSmoothingGroups(faces, faceNormals, normals);
         return smoothGroups.calcSmoothGroups();
     }
 }
@@ -0,0 +1,167 @@
+package de.dh.utils.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.dh.cad.architect.utils.vfs.PlainFileSystemResourceLocator;
+import de.dh.utils.ArrayUtils;
+import de.dh.utils.io.MeshData.FaceNormalsData;
+import de.dh.utils.io.obj.ObjReader;
+
+/**
+ * Golden tests for {@link SmoothingGroups}, which must produce exactly the same smoothing groups as the former
+ * implementation, which is kept in {@link ReferenceSmoothingGroups}.
+ */
+public class SmoothingGroupsTest {
+    /**
+     * System property to specify an additional directory which is searched for {@code .obj} files, e.g. the
+     * directory of the object library.
+     */
+    protected static final String PROPERTY_OBJ_DIRECTORY = "architect.test.objDirectory";
+
+    protected static final int FACE_ELEMENT_SIZE = 6;
+
+    protected static int[][] split(int[] flat, int elementSize) {
+        int[][] result = new int[flat.length / elementSize][elementSize];
+        for (int i = 0; i < result.length; i++) {
+            System.arraycopy(flat, i * elementSize, result[i], 0, elementSize);
+        }
+        return result;
+    }
+
+    protected static void assertSameSmoothingGroups(int[] faces, int[] faceNormals, float[] normals, String name) {
+        int[] expected = ReferenceSmoothingGroups.calcSmoothGroups(split(faces, FACE_ELEMENT_SIZE), split(faceNormals, 3), normals);
+        int[] actual = SmoothingGroups.calcSmoothGroups(faces, FACE_ELEMENT_SIZE, faceNormals, normals);
+        assertArrayEquals(expected, actual, "Smoothing groups differ for " + name);
+    }
+
+    protected static List<Path> findObjFiles() throws IOException {
+        List<Path> roots = new ArrayList<>();
+        roots.add(Paths.get("../fxutils/src/main/resources"));
+        roots.add(Paths.get("../ui/src/main/resources"));
+        String objDirectory = System.getProperty(PROPERTY_OBJ_DIRECTORY);
+        if (objDirectory != null) {
+            roots.add(Paths.get(objDirectory));
+        }
+        List<Path> result = new ArrayList<>();
+        for (Path root : roots) {
+            if (!Files.isDirectory(root)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(root)) {
+                files
+                    .filter(p -> p.getFileName().toString().toLowerCase().endsWith(".obj"))
+                    .forEach(result::add);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    @DisplayName("Smoothing groups of OBJ files")
+    public void testObjFiles() throws IOException {
+        List<Path> objFiles = findObjFiles();
+        assertTrue(!objFiles.isEmpty(), "No OBJ files found");
+        for (Path objFile : objFiles) {
+            for (MeshData meshData : ObjReader.readObjRaw(new PlainFileSystemResourceLocator(objFile)).getMeshes()) {
+                Optional<FaceNormalsData> oFaceNormalsData = meshData.getOFaceNormalsData();
+                if (oFaceNormalsData.isEmpty()) {
+                    continue;
+                }
+                FaceNormalsData faceNormalsData = oFaceNormalsData.get();
+                assertSameSmoothingGroups(
+                    ArrayUtils.toPrimitiveIntArray(meshData.getFaces()),
+                    ArrayUtils.toPrimitiveIntArray(faceNormalsData.getFaceNormals()),
+                    ArrayUtils.toPrimitiveFloatArray(faceNormalsData.getNormals()),
+                    objFile + " / " + meshData.getName());
+            }
+        }
+    }
+
+    /**
+     * Creates a triangulated grid mesh with shared vertices. Each vertex of each face gets its own normal, which is
+     * either a common normal for the vertex, a perturbed normal to produce creases or an unlocked normal. Some faces are
+     * duplicated to produce edges which are used by more than two faces.
+     */
+    protected static void assertRandomGridMesh(Random random, int size) {
+        int numVertices = (size + 1) * (size + 1);
+        float[] vertexNormals = new float[numVertices * 3];
+        for (int v = 0; v < numVertices; v++) {
+            vertexNormals[v * 3] = random.nextFloat() - 0.5f;
+            vertexNormals[v * 3 + 1] = random.nextFloat() - 0.5f;
+            vertexNormals[v * 3 + 2] = random.nextFloat() + 0.5f;
+        }
+        List<Integer> faces = new ArrayList<>();
+        List<Integer> faceNormals = new ArrayList<>();
+        List<Float> normals = new ArrayList<>();
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int v00 = y * (size + 1) + x;
+                int v10 = v00 + 1;
+                int v01 = v00 + size + 1;
+                int v11 = v01 + 1;
+                int[][] triangles = random.nextBoolean()
+                        ? new int[][] {{v00, v10, v11}, {v00, v11, v01}}
+                        : new int[][] {{v00, v10, v01}, {v10, v11, v01}};
+                for (int[] triangle : triangles) {
+                    int numCopies = random.nextInt(20) == 0 ? 2 : 1;
+                    for (int c = 0; c < numCopies; c++) {
+                        for (int v : triangle) {
+                            faces.add(v);
+                            faces.add(0);
+                            faceNormals.add(normals.size() / 3);
+                            int mode = random.nextInt(10);
+                            if (mode == 0) {
+                                // Crease
+                                normals.add(random.nextFloat());
+                                normals.add(random.nextFloat());
+                                normals.add(random.nextFloat());
+                            } else if (mode == 1) {
+                                normals.add(1.0e20f);
+                                normals.add(1.0e20f);
+                                normals.add(1.0e20f);
+                            } else {
+                                normals.add(vertexNormals[v * 3]);
+                                normals.add(vertexNormals[v * 3 + 1]);
+                                normals.add(vertexNormals[v * 3 + 2]);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        assertSameSmoothingGroups(
+            ArrayUtils.toPrimitiveIntArray(faces),
+            ArrayUtils.toPrimitiveIntArray(faceNormals),
+            ArrayUtils.toPrimitiveFloatArray(normals),
+            "random grid of size " + size);
+    }
+
+    @Test
+    @DisplayName("Smoothing groups of random meshes")
+    public void testRandomMeshes() {
+        Random random = new Random(4711);
+        for (int i = 0; i < 200; i++) {
+            assertRandomGridMesh(random, 1 + random.nextInt(40));
+        }
+    }
+
+    @Test
+    @DisplayName("Smoothing groups of empty mesh")
+    public void testEmptyMesh() {
+        assertSameSmoothingGroups(new int[0], new int[0], new float[0], "empty mesh");
+    }
+}
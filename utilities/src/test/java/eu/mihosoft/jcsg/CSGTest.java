@@ -0,0 +1,330 @@
+package eu.mihosoft.jcsg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BinaryOperator;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import eu.mihosoft.jcsg.CSG.OptType;
+import eu.mihosoft.vvecmath.Transform;
+import eu.mihosoft.vvecmath.Vector3d;
+
+/**
+ * Test class for the bounds optimizations and the BSP construction of {@link CSG}.
+ * Computes a corpus of wall shapes and nested solids with {@link OptType#POLYGON_BOUND} and with {@link OptType#NONE}
+ * and checks that both produce solids of the same volume, surface area and bounds.
+ * Additionally, nested, coplanar and touching solids and wall shapes are compared with the results of the JCSG
+ * implementation before the BSP split heuristic and the bounds pre-pass were introduced, which are stored in the
+ * resource {@value #BASELINE_RESOURCE}. The resource was written by {@link #main(String[])}, run against that implementation.
+ */
+public class CSGTest {
+    protected static final int NUM_WALLS = 500;
+    protected static final int NUM_BASELINE_WALLS = 200;
+    protected static final long BASELINE_WALLS_SEED = 1;
+    protected static final String BASELINE_RESOURCE = "csg-baseline.csv";
+    protected static final double EPSILON = 1e-6;
+
+    protected static record Shape(String name, CSG a, CSG b, BinaryOperator<CSG> operation) {
+        public CSG compute(OptType optType) {
+            return operation.apply(a.clone().optimization(optType), b.clone().optimization(optType));
+        }
+
+        /**
+         * Computes this shape with the default optimization, which is used by the application.
+         */
+        public CSG compute() {
+            return operation.apply(a.clone(), b.clone());
+        }
+    }
+
+    /**
+     * Volume, surface area and bounds of a solid, as stored in the baseline resource.
+     * The bounds are {@code null} for empty solids.
+     */
+    protected static record SolidMeasures(double volume, double area, double[] min, double[] max) {
+        public static SolidMeasures of(CSG csg) {
+            if (csg.getPolygons().isEmpty()) {
+                return new SolidMeasures(CSGTest.volume(csg), CSGTest.area(csg), null, null);
+            }
+            Bounds bounds = csg.getBounds();
+            return new SolidMeasures(CSGTest.volume(csg), CSGTest.area(csg),
+                new double[] {bounds.getMin().x(), bounds.getMin().y(), bounds.getMin().z()},
+                new double[] {bounds.getMax().x(), bounds.getMax().y(), bounds.getMax().z()});
+        }
+
+        public static SolidMeasures parse(String[] fields) {
+            double volume = Double.parseDouble(fields[1]);
+            double area = Double.parseDouble(fields[2]);
+            if (fields.length == 3) {
+                return new SolidMeasures(volume, area, null, null);
+            }
+            double[] min = new double[3];
+            double[] max = new double[3];
+            for (int i = 0; i < 3; i++) {
+                min[i] = Double.parseDouble(fields[3 + i]);
+                max[i] = Double.parseDouble(fields[6 + i]);
+            }
+            return new SolidMeasures(volume, area, min, max);
+        }
+
+        public String format(String name) {
+            StringBuilder result = new StringBuilder(name).append(';').append(volume).append(';').append(area);
+            if (min != null) {
+                for (double c : min) {
+                    result.append(';').append(c);
+                }
+                for (double c : max) {
+                    result.append(';').append(c);
+                }
+            }
+            return result.toString();
+        }
+
+        public void assertSame(SolidMeasures expected, String name) {
+            assertEquals(expected.volume(), volume, EPSILON * Math.max(1, Math.abs(expected.volume())), name + ": Volume");
+            assertEquals(expected.area(), area, EPSILON * Math.max(1, expected.area()), name + ": Surface area");
+            assertEquals(expected.min() == null, min == null, name + ": Empty solid");
+            if (min != null) {
+                for (int i = 0; i < 3; i++) {
+                    assertEquals(expected.min()[i], min[i], EPSILON, name + ": Bounds min");
+                    assertEquals(expected.max()[i], max[i], EPSILON, name + ": Bounds max");
+                }
+            }
+        }
+    }
+
+    protected static CSG box(double x, double y, double z, double w, double d, double h) {
+        return new Cube(Vector3d.xyz(x + w / 2, y + d / 2, z + h / 2), Vector3d.xyz(w, d, h)).toCSG();
+    }
+
+    protected static CSG trapezoidWall(Random random, double length, double thickness, double height) {
+        double bevelA = random.nextDouble() * thickness;
+        double bevelB = random.nextDouble() * thickness;
+        return Extrude.points(Vector3d.z(height),
+            Vector3d.xy(0, 0), Vector3d.xy(length, 0), Vector3d.xy(length + bevelB, thickness), Vector3d.xy(-bevelA, thickness));
+    }
+
+    /**
+     * Creates walls with through holes like windows and doors and with niches which only reach into the wall.
+     */
+    protected static List<Shape> createWallShapes(long seed, int numWalls) {
+        Random random = new Random(seed);
+        List<Shape> result = new ArrayList<>();
+        for (int i = 0; i < numWalls; i++) {
+            double length = 100 + random.nextInt(400);
+            double thickness = 10 + random.nextInt(30);
+            double height = 200 + random.nextInt(100);
+            CSG wall = trapezoidWall(random, length, thickness, height);
+            double holeWidth = 20 + random.nextInt(80);
+            double holeX = random.nextDouble() * (length - holeWidth);
+            double holeZ = random.nextDouble() * (height / 2);
+            double holeHeight = 20 + random.nextDouble() * (height - holeZ - 30);
+            boolean niche = random.nextBoolean();
+            double holeY = niche ? thickness / 2 : -1;
+            CSG hole = box(holeX, holeY, holeZ, holeWidth, thickness + 2, holeHeight);
+            result.add(new Shape((niche ? "Niche " : "Hole ") + i, wall, hole, CSG::difference));
+            if (i % 4 == 0) {
+                CSG other = trapezoidWall(random, length, thickness, height).transformed(Transform.unity().translateX(length / 2).rotZ(random.nextInt(90)));
+                result.add(new Shape("Union " + i, wall, other, CSG::union));
+                result.add(new Shape("Intersection " + i, wall, other, CSG::intersect));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates pairs of solids where one solid lies completely inside the other.
+     */
+    protected static List<Shape> createNestedShapes() {
+        CSG outer = box(0, 0, 0, 100, 100, 100);
+        CSG inner = box(30, 30, 30, 40, 40, 40);
+        CSG touchingInner = box(0, 30, 30, 40, 40, 40);
+        CSG wall = Extrude.points(Vector3d.z(250), Vector3d.xy(0, 0), Vector3d.xy(400, 0), Vector3d.xy(420, 30), Vector3d.xy(-20, 30));
+        CSG cavity = box(100, 10, 50, 50, 10, 100);
+        List<Shape> result = new ArrayList<>();
+        result.add(new Shape("Cavity", outer, inner, CSG::difference));
+        result.add(new Shape("Wall cavity", wall, cavity, CSG::difference));
+        result.add(new Shape("Enclosing subtrahend", inner, outer, CSG::difference));
+        result.add(new Shape("Touching cavity", outer, touchingInner, CSG::difference));
+        result.add(new Shape("Intersection with inner", outer, inner, CSG::intersect));
+        result.add(new Shape("Intersection with outer", inner, outer, CSG::intersect));
+        result.add(new Shape("Union with inner", outer, inner, CSG::union));
+        result.add(new Shape("Union with outer", inner, outer, CSG::union));
+        return result;
+    }
+
+    /**
+     * Creates pairs of solids which share faces in the same planes.
+     */
+    protected static List<Shape> createCoplanarShapes() {
+        CSG box = box(0, 0, 0, 100, 100, 100);
+        CSG shifted = box(50, 50, 0, 100, 100, 100);
+        CSG shaft = box(20, 20, 0, 40, 40, 100);
+        CSG half = box(50, 0, 0, 50, 100, 100);
+        CSG slab = box(-20, -20, 0, 140, 140, 30);
+        List<Shape> result = new ArrayList<>();
+        result.add(new Shape("Coplanar union", box, shifted, CSG::union));
+        result.add(new Shape("Coplanar difference", box, shifted, CSG::difference));
+        result.add(new Shape("Coplanar intersection", box, shifted, CSG::intersect));
+        result.add(new Shape("Coplanar shaft", box, shaft, CSG::difference));
+        result.add(new Shape("Coplanar half", box, half, CSG::difference));
+        result.add(new Shape("Coplanar slab union", box, slab, CSG::union));
+        result.add(new Shape("Coplanar slab difference", box, slab, CSG::difference));
+        result.add(new Shape("Identical union", box, box, CSG::union));
+        result.add(new Shape("Identical difference", box, box, CSG::difference));
+        result.add(new Shape("Identical intersection", box, box, CSG::intersect));
+        return result;
+    }
+
+    /**
+     * Creates pairs of solids which only touch each other at a face, an edge or a vertex.
+     */
+    protected static List<Shape> createTouchingShapes() {
+        CSG box = box(0, 0, 0, 100, 100, 100);
+        CSG faceNeighbor = box(100, 20, 20, 50, 50, 50);
+        CSG edgeNeighbor = box(100, 100, 0, 50, 50, 100);
+        CSG vertexNeighbor = box(100, 100, 100, 50, 50, 50);
+        CSG wall = Extrude.points(Vector3d.z(250), Vector3d.xy(0, 0), Vector3d.xy(400, 0), Vector3d.xy(420, 30), Vector3d.xy(-20, 30));
+        CSG wallNeighbor = Extrude.points(Vector3d.z(250), Vector3d.xy(400, 0), Vector3d.xy(420, 30), Vector3d.xy(450, 0), Vector3d.xy(430, -30));
+        List<Shape> result = new ArrayList<>();
+        for (Map.Entry<String, CSG> neighbor : List.of(Map.entry("face", faceNeighbor), Map.entry("edge", edgeNeighbor), Map.entry("vertex", vertexNeighbor))) {
+            result.add(new Shape("Touching " + neighbor.getKey() + " union", box, neighbor.getValue(), CSG::union));
+            result.add(new Shape("Touching " + neighbor.getKey() + " difference", box, neighbor.getValue(), CSG::difference));
+            result.add(new Shape("Touching " + neighbor.getKey() + " intersection", box, neighbor.getValue(), CSG::intersect));
+        }
+        result.add(new Shape("Touching wall union", wall, wallNeighbor, CSG::union));
+        result.add(new Shape("Touching wall difference", wall, wallNeighbor, CSG::difference));
+        return result;
+    }
+
+    /**
+     * Creates the shapes which are compared with the baseline resource.
+     */
+    protected static List<Shape> createBaselineShapes() {
+        List<Shape> result = new ArrayList<>();
+        result.addAll(createNestedShapes());
+        result.addAll(createCoplanarShapes());
+        result.addAll(createTouchingShapes());
+        result.addAll(createWallShapes(BASELINE_WALLS_SEED, NUM_BASELINE_WALLS));
+        return result;
+    }
+
+    /**
+     * Reads the baseline resource, shape name to measures of the expected solid.
+     */
+    protected static Map<String, SolidMeasures> readBaseline() throws IOException {
+        Map<String, SolidMeasures> result = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(CSGTest.class.getResourceAsStream(BASELINE_RESOURCE), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(";");
+                result.put(fields[0], SolidMeasures.parse(fields));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the baseline resource for the current implementation to the standard output.
+     */
+    public static void main(String[] args) {
+        System.out.println("# Volume, surface area and bounds of the CSG regression shapes, see CSGTest");
+        System.out.println("# name;volume;area[;minX;minY;minZ;maxX;maxY;maxZ]");
+        for (Shape shape : createBaselineShapes()) {
+            System.out.println(SolidMeasures.of(shape.compute()).format(shape.name()));
+        }
+    }
+
+    protected static double volume(CSG csg) {
+        double result = 0;
+        for (Polygon polygon : csg.getPolygons()) {
+            Vector3d p0 = polygon.vertices.get(0).pos;
+            for (int i = 1; i < polygon.vertices.size() - 1; i++) {
+                Vector3d p1 = polygon.vertices.get(i).pos;
+                Vector3d p2 = polygon.vertices.get(i + 1).pos;
+                result += p0.dot(p1.crossed(p2)) / 6;
+            }
+        }
+        return result;
+    }
+
+    protected static double area(CSG csg) {
+        double result = 0;
+        for (Polygon polygon : csg.getPolygons()) {
+            Vector3d p0 = polygon.vertices.get(0).pos;
+            for (int i = 1; i < polygon.vertices.size() - 1; i++) {
+                Vector3d p1 = polygon.vertices.get(i).pos;
+                Vector3d p2 = polygon.vertices.get(i + 1).pos;
+                result += p1.minus(p0).crossed(p2.minus(p0)).magnitude() / 2;
+            }
+        }
+        return result;
+    }
+
+    protected static void assertSameSolid(Shape shape) {
+        CSG expected = shape.compute(OptType.NONE);
+        CSG actual = shape.compute(OptType.POLYGON_BOUND);
+        double expectedVolume = volume(expected);
+        double tolerance = EPSILON * Math.max(1, Math.abs(expectedVolume));
+        assertEquals(expectedVolume, volume(actual), tolerance, shape.name() + ": Volume");
+        assertEquals(area(expected), area(actual), EPSILON * Math.max(1, area(expected)), shape.name() + ": Surface area");
+        if (!expected.getPolygons().isEmpty()) {
+            assertEquals(0, expected.getBounds().getMin().distance(actual.getBounds().getMin()), EPSILON, shape.name() + ": Bounds min");
+            assertEquals(0, expected.getBounds().getMax().distance(actual.getBounds().getMax()), EPSILON, shape.name() + ": Bounds max");
+        }
+    }
+
+    @Test
+    @DisplayName("Bounds optimization produces the same wall shapes as the plain BSP operations")
+    public void testWallShapes() {
+        for (Shape shape : createWallShapes(0, NUM_WALLS)) {
+            assertSameSolid(shape);
+        }
+    }
+
+    @Test
+    @DisplayName("Bounds optimization handles solids which lie inside each other")
+    public void testNestedShapes() {
+        for (Shape shape : createNestedShapes()) {
+            assertSameSolid(shape);
+        }
+
+        // Check the expected volumes explicitly, the plain BSP operations are the reference of the test above
+        CSG outer = box(0, 0, 0, 100, 100, 100);
+        CSG inner = box(30, 30, 30, 40, 40, 40);
+        assertEquals(1000000 - 64000, volume(outer.difference(inner)), EPSILON);
+        assertEquals(64000, volume(outer.intersect(inner)), EPSILON);
+        assertEquals(64000, volume(inner.intersect(outer)), EPSILON);
+        assertEquals(1000000, volume(outer.union(inner)), EPSILON);
+        assertTrue(inner.difference(outer).getPolygons().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Nested, coplanar and touching solids and wall shapes match the results of the former BSP implementation")
+    public void testBaseline() throws IOException {
+        Map<String, SolidMeasures> baseline = readBaseline();
+        List<Shape> shapes = createBaselineShapes();
+        assertEquals(shapes.size(), baseline.size(), "Number of baseline shapes");
+        for (Shape shape : shapes) {
+            SolidMeasures expected = baseline.get(shape.name());
+            assertTrue(expected != null, shape.name() + ": Missing in baseline");
+            SolidMeasures.of(shape.compute()).assertSame(expected, shape.name() + " (default optimization)");
+            SolidMeasures.of(shape.compute(OptType.NONE)).assertSame(expected, shape.name() + " (no optimization)");
+        }
+    }
+}